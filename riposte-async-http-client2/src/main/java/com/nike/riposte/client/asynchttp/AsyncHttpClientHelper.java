@@ -7,6 +7,7 @@ import com.nike.fastbreak.exception.CircuitBreakerOpenException;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.config.distributedtracing.SpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Tracer;
 import com.nike.wingtips.http.HttpRequestTracingUtils;
@@ -382,6 +383,10 @@ public class AsyncHttpClientHelper {
    * HttpProcessingState} from the given ctx argument, and then grabs {@link
    * HttpProcessingState#getDistributedTraceStack()} and {@link HttpProcessingState#getLoggerMdcContextMap()} to use
    * as the distributed trace stack and MDC info for the downstream call.
+   * <p/>
+   * If the request has a deadline (see {@link HttpProcessingState#getRequestDeadline()}) then the remaining
+   * budget is also set on the downstream call - see {@link
+   * RequestDeadline#propagateRemainingBudget(java.util.function.BiConsumer)}.
    */
   public <O> CompletableFuture<O> executeAsyncHttpRequest(
       RequestBuilderWrapper requestBuilderWrapper,
@@ -397,6 +402,14 @@ public class AsyncHttpClientHelper {
 
     requestBuilderWrapper.setCtx(ctx);
 
+    // Propagate the caller's remaining deadline budget to the downstream call if the request has a deadline.
+    RequestDeadline requestDeadline = state.getRequestDeadline();
+    if (requestDeadline != null) {
+      requestDeadline.propagateRemainingBudget(
+          (headerKey, headerValue) -> requestBuilderWrapper.requestBuilder.setHeader(headerKey, headerValue)
+      );
+    }
+
     return executeAsyncHttpRequest(requestBuilderWrapper, responseHandlerFunction,
         distributedTraceStack,
         mdcContextMap);
@@ -4,13 +4,16 @@ import com.nike.backstopper.exception.WrapperException;
 import com.nike.internal.util.Pair;
 import com.nike.internal.util.StringUtils;
 import com.nike.riposte.client.asynchttp.netty.downstreampipeline.DownstreamIdleChannelTimeoutHandler;
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
 import com.nike.riposte.server.error.exception.NativeIoExceptionWrapper;
+import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.Span.TimestampedAnnotation;
@@ -596,6 +599,11 @@ public class StreamingAsyncHttpClient {
         return Boolean.TRUE.equals(brokenAttr.get());
     }
 
+    protected @Nullable RequestDeadline getRequestDeadline(ChannelHandlerContext ctx) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        return (state == null) ? null : state.getRequestDeadline();
+    }
+
     protected void logInitialRequestChunk(HttpRequest initialRequestChunk, String downstreamHost, int downstreamPort) {
         if (logger.isDebugEnabled()) {
             StringBuilder sb = new StringBuilder();
@@ -654,6 +662,7 @@ public class StreamingAsyncHttpClient {
                                  : downstreamHost + ":" + downstreamPort;
         initialRequestChunk.headers().set(HttpHeaderNames.HOST, hostHeaderValue);
 
+        RequestDeadline requestDeadline = getRequestDeadline(ctx);
         long beforeConnectionStartTimeNanos = System.nanoTime();
 
         // Create a connection to the downstream server.
@@ -778,6 +787,13 @@ public class StreamingAsyncHttpClient {
                     );
                 }
 
+                // Add the caller's remaining deadline budget to the downstream call if the request has a deadline.
+                if (requestDeadline != null) {
+                    requestDeadline.propagateRemainingBudget(
+                        (headerKey, headerValue) -> initialRequestChunk.headers().set(headerKey, headerValue)
+                    );
+                }
+
                 Channel ch = channelFuture.getNow();
                 if (logger.isDebugEnabled())
                     logger.debug("Channel ID of the Channel pulled from the pool: {}", ch.toString());
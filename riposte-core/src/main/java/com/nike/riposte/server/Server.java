@@ -135,7 +135,8 @@ public class Server {
                 serverConfig.requestContentValidationService(), serverConfig.defaultRequestContentDeserializer(),
                 new ResponseSender(
                     serverConfig.defaultResponseContentSerializer(), serverConfig.errorResponseBodySerializer(),
-                    wingtipsDistributedTracingConfig
+                    wingtipsDistributedTracingConfig, serverConfig.isAutomaticETagHandlingEnabled(),
+                    serverConfig.contentCodecs()
                 ),
                 serverConfig.metricsListener(),
                 serverConfig.defaultCompletableFutureTimeoutInMillisForNonblockingEndpoints(),
@@ -144,7 +145,16 @@ public class Server {
                 serverConfig.proxyRouterConnectTimeoutMillis(), serverConfig.incompleteHttpCallTimeoutMillis(),
                 serverConfig.maxOpenIncomingServerChannels(), serverConfig.isDebugChannelLifecycleLoggingEnabled(),
                 serverConfig.userIdHeaderKeys(), serverConfig.responseCompressionThresholdBytes(),
-                serverConfig.httpRequestDecoderConfig(), wingtipsDistributedTracingConfig
+                serverConfig.httpRequestDecoderConfig(), serverConfig.responseCompressionConfig(),
+                serverConfig.longRunningTaskExecutorConfig(), serverConfig.securityValidationExecutorConfig(),
+                serverConfig.concurrencyLimitConfig(),
+                serverConfig.loadSheddingConfig(),
+                serverConfig.requestDeadlineConfig(),
+                serverConfig.requestContentSpillConfig(),
+                serverConfig.streamingMultipartConfig(),
+                serverConfig.requestBodyMemoryBudgetConfig(),
+                serverConfig.contentCodecs(),
+                wingtipsDistributedTracingConfig
             );
         }
 
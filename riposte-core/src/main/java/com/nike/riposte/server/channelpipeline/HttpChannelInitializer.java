@@ -3,8 +3,20 @@ package com.nike.riposte.server.channelpipeline;
 import com.nike.internal.util.StringUtils;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
 import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.concurrency.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.concurrency.CoDelLoadShedder;
+import com.nike.riposte.server.concurrency.RequestBodyMemoryBudget;
+import com.nike.riposte.server.concurrency.TimeoutWheel;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.config.ServerConfig.BoundedExecutorConfig;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
 import com.nike.riposte.server.config.ServerConfig.HttpRequestDecoderConfig;
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestBodyMemoryBudgetConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestContentSpillConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
+import com.nike.riposte.server.config.ServerConfig.StreamingMultipartConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
 import com.nike.riposte.server.error.handler.RiposteErrorHandler;
@@ -14,17 +26,21 @@ import com.nike.riposte.server.error.validation.RequestValidator;
 import com.nike.riposte.server.handler.AccessLogEndHandler;
 import com.nike.riposte.server.handler.AccessLogStartHandler;
 import com.nike.riposte.server.handler.ChannelPipelineFinalizerHandler;
+import com.nike.riposte.server.handler.ConcurrencyLimitHandler;
 import com.nike.riposte.server.handler.DTraceEndHandler;
 import com.nike.riposte.server.handler.DTraceStartHandler;
 import com.nike.riposte.server.handler.ExceptionHandlingHandler;
+import com.nike.riposte.server.handler.ExpectContinueHandler;
 import com.nike.riposte.server.handler.IdleChannelTimeoutHandler;
 import com.nike.riposte.server.handler.IncompleteHttpCallTimeoutHandler;
+import com.nike.riposte.server.handler.LoadSheddingHandler;
 import com.nike.riposte.server.handler.NonblockingEndpointExecutionHandler;
 import com.nike.riposte.server.handler.OpenChannelLimitHandler;
 import com.nike.riposte.server.handler.ProcessFinalResponseOutputHandler;
 import com.nike.riposte.server.handler.ProxyRouterEndpointExecutionHandler;
 import com.nike.riposte.server.handler.RequestContentDeserializerHandler;
 import com.nike.riposte.server.handler.RequestContentValidationHandler;
+import com.nike.riposte.server.handler.RequestDeadlineHandler;
 import com.nike.riposte.server.handler.RequestFilterHandler;
 import com.nike.riposte.server.handler.RequestHasBeenHandledVerificationHandler;
 import com.nike.riposte.server.handler.RequestInfoSetterHandler;
@@ -35,25 +51,36 @@ import com.nike.riposte.server.handler.RoutingHandler;
 import com.nike.riposte.server.handler.SecurityValidationHandler;
 import com.nike.riposte.server.handler.SmartHttpContentCompressor;
 import com.nike.riposte.server.handler.SmartHttpContentDecompressor;
+import com.nike.riposte.server.handler.StreamingRequestEndpointExecutionHandler;
 import com.nike.riposte.server.hooks.PipelineCreateHook;
+import com.nike.riposte.server.http.ContentCodec;
+import com.nike.riposte.server.http.ContentCodecNegotiator;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseSender;
+import com.nike.riposte.server.http.cache.CompressedVariantCache;
+import com.nike.riposte.server.http.cache.RequestCoalescer;
 import com.nike.riposte.server.http.filter.RequestAndResponseFilter;
 import com.nike.riposte.server.logging.AccessLogger;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 import com.nike.wingtips.Span;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
@@ -65,6 +92,8 @@ import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
 /**
@@ -132,6 +161,10 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link SmartHttpContentCompressor} handler in the pipeline.
      */
     public static final String SMART_HTTP_CONTENT_COMPRESSOR_HANDLER_NAME = "SmartHttpContentCompressorHandler";
+    /**
+     * The name of the {@link LoadSheddingHandler} handler in the pipeline.
+     */
+    public static final String LOAD_SHEDDING_HANDLER_NAME = "LoadSheddingHandler";
     /**
      * The name of the {@link SmartHttpContentDecompressor} handler in the pipeline.
      */
@@ -144,6 +177,14 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link OpenChannelLimitHandler} handler in the pipeline.
      */
     public static final String OPEN_CHANNEL_LIMIT_HANDLER_NAME = "OpenChannelLimitHandler";
+    /**
+     * The name of the {@link RequestDeadlineHandler} handler in the pipeline.
+     */
+    public static final String REQUEST_DEADLINE_HANDLER_NAME = "RequestDeadlineHandler";
+    /**
+     * The name of the {@link ConcurrencyLimitHandler} handler in the pipeline.
+     */
+    public static final String CONCURRENCY_LIMIT_HANDLER_NAME = "ConcurrencyLimitHandler";
     /**
      * The name of the {@link RequestFilterHandler} before security handler in the pipeline.
      */
@@ -160,6 +201,10 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link SecurityValidationHandler} handler in the pipeline.
      */
     public static final String SECURITY_VALIDATION_HANDLER_NAME = "SecurityValidationHandler";
+    /**
+     * The name of the {@link ExpectContinueHandler} handler in the pipeline.
+     */
+    public static final String EXPECT_CONTINUE_HANDLER_NAME = "ExpectContinueHandler";
     /**
      * The name of the {@link RequestContentDeserializerHandler} handler in the pipeline.
      */
@@ -169,6 +214,11 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * present in the pipeline depending on the value of {@link #validationService}.
      */
     public static final String REQUEST_CONTENT_VALIDATION_HANDLER_NAME = "RequestContentValidationHandler";
+    /**
+     * The name of the {@link StreamingRequestEndpointExecutionHandler} handler in the pipeline.
+     */
+    public static final String STREAMING_REQUEST_ENDPOINT_EXECUTION_HANDLER_NAME =
+        "StreamingRequestEndpointExecutionHandler";
     /**
      * The name of the {@link NonblockingEndpointExecutionHandler} handler in the pipeline.
      */
@@ -212,6 +262,10 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * The name of the {@link ProcessFinalResponseOutputHandler} handler in the pipeline.
      */
     public static final String PROCESS_FINAL_RESPONSE_OUTPUT_HANDLER_NAME = "ProcessFinalResponseOutputHandler";
+    /**
+     * The name of the {@link ChunkedWriteHandler} handler in the pipeline.
+     */
+    public static final String CHUNKED_WRITE_HANDLER_NAME = "ChunkedWriteHandler";
 
     // -------- CLASS MEMBER FIELDS ----------
     private final SslContext sslCtx;
@@ -222,19 +276,31 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
     private final RiposteUnhandledErrorHandler riposteUnhandledErrorHandler;
     private final RequestValidator validationService;
     private final ObjectMapper requestContentDeserializer;
+    private final ContentCodecNegotiator contentCodecNegotiator;
     private final ResponseSender responseSender;
     private final MetricsListener metricsListener;
     private final long defaultCompletableFutureTimeoutMillis;
     private final AccessLogger accessLogger;
     private final List<PipelineCreateHook> pipelineCreateHooks;
     private final RequestSecurityValidator requestSecurityValidator;
+    private final Executor securityValidationExecutor;
     private final long workerChannelIdleTimeoutMillis;
     private final long incompleteHttpCallTimeoutMillis;
     private final int maxOpenChannelsThreshold;
     private final ChannelGroup openChannelsGroup;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final CoDelLoadShedder loadShedder;
+    private final RequestDeadlineConfig requestDeadlineConfig;
+    private final RequestContentSpillConfig requestContentSpillConfig;
+    private final StreamingMultipartConfig streamingMultipartConfig;
+    private final RequestBodyMemoryBudget requestBodyMemoryBudget;
     private final boolean debugChannelLifecycleLoggingEnabled;
     private final int responseCompressionThresholdBytes;
     private final HttpRequestDecoderConfig httpRequestDecoderConfig;
+    private final ResponseCompressionConfig responseCompressionConfig;
+    private final Executor compressionOffloadExecutor;
+    private final CompressedVariantCache compressedVariantCache;
+    private final RequestCoalescer requestCoalescer;
     private final DistributedTracingConfig<Span> distributedTracingConfig;
 
     private final StreamingAsyncHttpClient streamingAsyncHttpClientForProxyRouterEndpoints;
@@ -261,7 +327,7 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
      * @param longRunningTaskExecutor
      *     The task executor that should be used for long running tasks when endpoints need to do blocking
      *     I/O (e.g. making downstream calls to other systems, DB calls, etc, where there is no async nonblocking
-     *     driver). This can be null - if it is null then {@link Executors#newCachedThreadPool()} will be used.
+     *     driver). This can be null - if it is null then {@link #createDefaultLongRunningTaskExecutor()} will be used.
      * @param riposteErrorHandler
      *     The "normal" error handler. Cannot be null.
      * @param riposteUnhandledErrorHandler
@@ -343,12 +409,27 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
                                   List<String> userIdHeaderKeys,
                                   int responseCompressionThresholdBytes,
                                   HttpRequestDecoderConfig httpRequestDecoderConfig,
+                                  ResponseCompressionConfig responseCompressionConfig,
+                                  BoundedExecutorConfig longRunningTaskExecutorConfig,
+                                  BoundedExecutorConfig securityValidationExecutorConfig,
+                                  ConcurrencyLimitConfig concurrencyLimitConfig,
+                                  LoadSheddingConfig loadSheddingConfig,
+                                  RequestDeadlineConfig requestDeadlineConfig,
+                                  RequestContentSpillConfig requestContentSpillConfig,
+                                  StreamingMultipartConfig streamingMultipartConfig,
+                                  RequestBodyMemoryBudgetConfig requestBodyMemoryBudgetConfig,
+                                  List<ContentCodec> contentCodecs,
                                   @NotNull DistributedTracingConfig<Span> distributedTracingConfig) {
         if (endpoints == null || endpoints.isEmpty())
             throw new IllegalArgumentException("endpoints cannot be empty");
 
-        if (longRunningTaskExecutor == null)
-            longRunningTaskExecutor = Executors.newCachedThreadPool();
+        if (longRunningTaskExecutor == null) {
+            longRunningTaskExecutor = (longRunningTaskExecutorConfig == null)
+                                      ? createDefaultLongRunningTaskExecutor()
+                                      : new InstrumentedThreadPoolExecutor(
+                                          "riposte-long-running-task", longRunningTaskExecutorConfig, metricsListener
+                                      );
+        }
 
         if (riposteErrorHandler == null)
             throw new IllegalArgumentException("riposteErrorHandler cannot be null");
@@ -363,6 +444,10 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
             httpRequestDecoderConfig = HttpRequestDecoderConfig.DEFAULT_IMPL;
         }
 
+        if (responseCompressionConfig == null) {
+            responseCompressionConfig = ResponseCompressionConfig.DEFAULT_IMPL;
+        }
+
         //noinspection ConstantConditions
         if (distributedTracingConfig == null) {
             throw new IllegalArgumentException("distributedTracingConfig cannot be null");
@@ -376,12 +461,22 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         this.riposteUnhandledErrorHandler = riposteUnhandledErrorHandler;
         this.validationService = validationService;
         this.requestContentDeserializer = requestContentDeserializer;
+        RequestContentDeserializerHandler.preloadRequestContentReaders(endpoints, requestContentDeserializer);
+        this.contentCodecNegotiator = (contentCodecs == null || contentCodecs.isEmpty())
+                                      ? null
+                                      : new ContentCodecNegotiator(contentCodecs);
         this.responseSender = responseSender;
         this.metricsListener = metricsListener;
         this.defaultCompletableFutureTimeoutMillis = defaultCompletableFutureTimeoutMillis;
         this.accessLogger = accessLogger;
         this.pipelineCreateHooks = pipelineCreateHooks;
         this.requestSecurityValidator = requestSecurityValidator;
+        this.securityValidationExecutor = (securityValidationExecutorConfig == null)
+                                          ? null
+                                          : new InstrumentedThreadPoolExecutor(
+                                              "riposte-security-validation", securityValidationExecutorConfig,
+                                              metricsListener
+                                          );
         logger.info(
             "Creating HttpChannelInitializer with {} default timeout in millis before cancelling endpoint"
             + " CompletableFutures. SSL enabled: {}",
@@ -403,6 +498,16 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         openChannelsGroup = (maxOpenChannelsThreshold == -1)
                             ? null
                             : new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        this.concurrencyLimiter = (concurrencyLimitConfig == null)
+                                  ? null
+                                  : new AdaptiveConcurrencyLimiter(concurrencyLimitConfig, metricsListener);
+        this.loadShedder = (loadSheddingConfig == null) ? null : new CoDelLoadShedder(loadSheddingConfig);
+        this.requestDeadlineConfig = requestDeadlineConfig;
+        this.requestContentSpillConfig = requestContentSpillConfig;
+        this.streamingMultipartConfig = streamingMultipartConfig;
+        this.requestBodyMemoryBudget = (requestBodyMemoryBudgetConfig == null)
+                                       ? null
+                                       : new RequestBodyMemoryBudget(requestBodyMemoryBudgetConfig, metricsListener);
         this.debugChannelLifecycleLoggingEnabled = debugChannelLifecycleLoggingEnabled;
 
         this.streamingAsyncHttpClientForProxyRouterEndpoints = new StreamingAsyncHttpClient(
@@ -437,9 +542,63 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         this.userIdHeaderKeys = userIdHeaderKeys;
         this.responseCompressionThresholdBytes = responseCompressionThresholdBytes;
         this.httpRequestDecoderConfig = httpRequestDecoderConfig;
+        this.responseCompressionConfig = responseCompressionConfig;
+        this.compressionOffloadExecutor = (responseCompressionConfig.compressionOffloadThresholdBytes() > 0)
+                                          ? determineCompressionOffloadExecutor(responseCompressionConfig)
+                                          : null;
+        long compressedVariantCacheMaxSizeInBytes = responseCompressionConfig.compressedVariantCacheMaxSizeInBytes();
+        this.compressedVariantCache = (compressedVariantCacheMaxSizeInBytes > 0)
+                                      ? new CompressedVariantCache(compressedVariantCacheMaxSizeInBytes)
+                                      : null;
+        // Shared by every channel's NonblockingEndpointExecutionHandler so identical requests arriving on different
+        //      connections can share an execution.
+        this.requestCoalescer = new RequestCoalescer(metricsListener);
         this.distributedTracingConfig = distributedTracingConfig;
     }
 
+    /**
+     * @return A virtual-thread-per-task executor when running on a JVM that supports virtual threads (Java 21+),
+     * otherwise {@link Executors#newCachedThreadPool()}. Virtual threads are looked up reflectively since Riposte is
+     * compiled for Java 8.
+     */
+    protected static Executor createDefaultLongRunningTaskExecutor() {
+        Executor virtualThreadExecutor = createVirtualThreadPerTaskExecutorIfAvailable();
+        return (virtualThreadExecutor == null) ? Executors.newCachedThreadPool() : virtualThreadExecutor;
+    }
+
+    /**
+     * @return The result of {@code Executors.newVirtualThreadPerTaskExecutor()}, or null if the current JVM doesn't
+     * support virtual threads (or only supports them as a disabled preview feature).
+     */
+    protected static @Nullable Executor createVirtualThreadPerTaskExecutorIfAvailable() {
+        try {
+            Method factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) factoryMethod.invoke(null);
+        }
+        catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The {@link ResponseCompressionConfig#compressionOffloadExecutor()} if it is non-null, otherwise a new
+     * bounded executor with one daemon thread per available processor and a queue of 1024 tasks. Tasks submitted when
+     * the queue is full are rejected, which causes the compression to be done inline instead.
+     */
+    protected static Executor determineCompressionOffloadExecutor(ResponseCompressionConfig responseCompressionConfig) {
+        Executor configuredExecutor = responseCompressionConfig.compressionOffloadExecutor();
+        if (configuredExecutor != null)
+            return configuredExecutor;
+
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor defaultExecutor = new ThreadPoolExecutor(
+            numThreads, numThreads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1024),
+            new DefaultThreadFactory("riposte-compression-offload", true)
+        );
+        defaultExecutor.allowCoreThreadTimeOut(true);
+        return defaultExecutor;
+    }
+
     @Override
     public void initChannel(SocketChannel ch) {
         ChannelPipeline p = ch.pipeline();
@@ -468,6 +627,11 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
                   )
         );
 
+        // OUTBOUND - Add ChunkedWriteHandler so that file-backed responses can be streamed via ChunkedInput when a
+        //            zero-copy FileRegion can't be used (i.e. when the connection is encrypted). This must come after
+        //            HttpServerCodec so the ByteBufs it produces are encoded as the raw response body.
+        p.addLast(CHUNKED_WRITE_HANDLER_NAME, new ChunkedWriteHandler());
+
         // OUTBOUND - Add ProcessFinalResponseOutputHandler to get the final response headers, calculate the final
         //            content length (after compression/gzip and/or any other modifications), etc, and set those values
         //            on the channel's HttpProcessingState.
@@ -491,7 +655,17 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         //          request/response/size threshold). This must be added after HttpServerCodec so that it can process
         //          after the request on the incoming pipeline and before the response on the outbound pipeline.
         p.addLast(SMART_HTTP_CONTENT_COMPRESSOR_HANDLER_NAME,
-                  new SmartHttpContentCompressor(responseCompressionThresholdBytes));
+                  new SmartHttpContentCompressor(
+                      responseCompressionThresholdBytes, responseCompressionConfig, compressionOffloadExecutor,
+                      metricsListener, compressedVariantCache
+                  ));
+
+        // INBOUND - Add LoadSheddingHandler to shed requests with a 503 when they've waited too long to be processed
+        //           while the server is overloaded, but only if load shedding is enabled. This must come after
+        //           AccessLogStartHandler (which records when the request was decoded) and SmartHttpContentCompressor
+        //           (which must see every request that gets a response), and before any real work is done.
+        if (loadShedder != null)
+            p.addLast(LOAD_SHEDDING_HANDLER_NAME, new LoadSheddingHandler(loadShedder, metricsListener));
 
         // INBOUND - Add the "before security" RequestFilterHandler before security and even before routing
         //      (if we have any filters to apply). This is here before RoutingHandler so that it can intercept requests
@@ -509,36 +683,71 @@ public class HttpChannelInitializer extends ChannelInitializer<SocketChannel> {
         p.addLast(SMART_HTTP_CONTENT_DECOMPRESSOR_HANDLER_NAME, new SmartHttpContentDecompressor());
 
         // INBOUND - Add RequestInfoSetterHandler to populate our RequestInfo's content.
-        p.addLast(REQUEST_INFO_SETTER_HANDLER_NAME, new RequestInfoSetterHandler(maxRequestSizeInBytes));
+        p.addLast(
+            REQUEST_INFO_SETTER_HANDLER_NAME,
+            new RequestInfoSetterHandler(
+                maxRequestSizeInBytes, requestContentSpillConfig, streamingMultipartConfig, requestBodyMemoryBudget,
+                longRunningTaskExecutor
+            )
+        );
         // INBOUND - Add OpenChannelLimitHandler to limit the number of open incoming server channels, but only if
         //           maxOpenChannelsThreshold is not -1.
         if (maxOpenChannelsThreshold != -1) {
             p.addLast(OPEN_CHANNEL_LIMIT_HANDLER_NAME,
                       new OpenChannelLimitHandler(openChannelsGroup, maxOpenChannelsThreshold));
         }
+        // INBOUND - Add RequestDeadlineHandler to record the caller's deadline for the request and reject the request
+        //           with a 503 if the deadline has already passed, but only if deadline support is enabled. This must
+        //           come after AccessLogStartHandler (the deadline is relative to when the request was decoded), and
+        //           before ConcurrencyLimitHandler so expired requests don't take up concurrency limit permits.
+        if (requestDeadlineConfig != null)
+            p.addLast(REQUEST_DEADLINE_HANDLER_NAME, new RequestDeadlineHandler(requestDeadlineConfig));
+        // INBOUND - Add ConcurrencyLimitHandler to reject requests with a 503 when the server is at its adaptive
+        //           concurrency limit, but only if concurrency limiting is enabled. This must come after
+        //           RoutingHandler so the endpoint's concurrency limit partition is known, and before any security
+        //           validation or endpoint work is done.
+        if (concurrencyLimiter != null)
+            p.addLast(CONCURRENCY_LIMIT_HANDLER_NAME, new ConcurrencyLimitHandler(concurrencyLimiter));
 
         // INBOUND - Add SecurityValidationHandler to validate the RequestInfo object for the matching endpoint
-        p.addLast(SECURITY_VALIDATION_HANDLER_NAME, new SecurityValidationHandler(requestSecurityValidator));
+        p.addLast(SECURITY_VALIDATION_HANDLER_NAME, new SecurityValidationHandler(requestSecurityValidator,
+                                                                             securityValidationExecutor));
 
         // INBOUND - Add the RequestFilterHandler for after security (if we have any filters to apply).
         if (afterSecurityRequestFilterHandler != null)
             p.addLast(REQUEST_FILTER_AFTER_SECURITY_HANDLER_NAME, afterSecurityRequestFilterHandler);
 
+        // INBOUND - Everything that can reject the request based on its headers alone has had its chance, so tell any
+        //           caller that sent Expect: 100-continue to go ahead and send the payload.
+        p.addLast(EXPECT_CONTINUE_HANDLER_NAME, new ExpectContinueHandler());
+
         // INBOUND - Now that the request state knows which endpoint will be called we can try to deserialize the
         //           request content (if desired by the endpoint)
         p.addLast(REQUEST_CONTENT_DESERIALIZER_HANDLER_NAME,
-                  new RequestContentDeserializerHandler(requestContentDeserializer));
+                  new RequestContentDeserializerHandler(requestContentDeserializer, contentCodecNegotiator));
 
         // INBOUND - Now that the request content has (maybe) been deserialized we can try validation on that
         //           deserialized content (if desired by the endpoint and if we have a non-null validator)
         if (validationService != null)
             p.addLast(REQUEST_CONTENT_VALIDATION_HANDLER_NAME, new RequestContentValidationHandler(validationService));
 
+        // INBOUND - Add StreamingRequestEndpointExecutionHandler to perform execution of endpoints that consume the
+        //           request content as a stream. This must come before NonblockingEndpointExecutionHandler since
+        //           streaming endpoints are also nonblocking endpoints.
+        p.addLast(
+            STREAMING_REQUEST_ENDPOINT_EXECUTION_HANDLER_NAME,
+            new StreamingRequestEndpointExecutionHandler(
+                longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig,
+                requestCoalescer, TimeoutWheel.getDefaultInstance()
+            )
+        );
+
         // INBOUND - Add NonblockingEndpointExecutionHandler to perform execution of async/nonblocking endpoints
         p.addLast(
             NONBLOCKING_ENDPOINT_EXECUTION_HANDLER_NAME,
             new NonblockingEndpointExecutionHandler(
-                longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig
+                longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig,
+                requestCoalescer, TimeoutWheel.getDefaultInstance()
             )
         );
 
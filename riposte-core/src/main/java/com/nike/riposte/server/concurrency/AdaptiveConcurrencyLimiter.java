@@ -0,0 +1,301 @@
+package com.nike.riposte.server.concurrency;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
+import com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException;
+import com.nike.riposte.server.http.EndpointPriority;
+import com.nike.riposte.server.metrics.ConcurrencyLimitStats;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of requests the server processes concurrently, adjusting the limit from observed request latency
+ * using a gradient algorithm. See {@link ConcurrencyLimitConfig} for a description of the algorithm and its knobs.
+ * <p/>
+ * Call {@link #acquire(String, EndpointPriority)} when a request arrives. It either returns a {@link Permit} that
+ * must be released via {@link Permit#releaseWithSample()} or {@link Permit#releaseWithoutSample()} when the request
+ * is done, or throws a {@link ConcurrencyLimitExceededException} if the server is at its limit. Only requests
+ * released via {@link Permit#releaseWithSample()} feed their latency back into the limit calculation - errors, closed
+ * connections, etc should use {@link Permit#releaseWithoutSample()} so their (often unrepresentative) latency doesn't
+ * skew the limit.
+ * <p/>
+ * This class is thread safe. Acquiring and releasing permits is lock free; limit recalculation is synchronized, but
+ * only does a handful of arithmetic operations.
+ */
+@SuppressWarnings("WeakerAccess")
+public class AdaptiveConcurrencyLimiter implements ConcurrencyLimitStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /**
+     * The number of samples the short-term latency average roughly covers.
+     */
+    protected static final int SHORT_WINDOW = 10;
+    /**
+     * The number of samples the long-term latency average roughly covers.
+     */
+    protected static final int LONG_WINDOW = 600;
+
+    protected final int minLimit;
+    protected final int maxLimit;
+    protected final double smoothing;
+    protected final double rttTolerance;
+    protected final @Nullable MetricsListener metricsListener;
+    protected final @NotNull Map<String, Partition> partitions;
+    // Indexed by EndpointPriority ordinal.
+    protected final double[] priorityLimitFactors;
+
+    protected final AtomicInteger inFlight = new AtomicInteger(0);
+    protected final LongAdder rejectedCount = new LongAdder();
+
+    protected volatile double estimatedLimit;
+    // Only accessed while synchronized on this instance.
+    protected double shortRttNanos = 0;
+    protected double longRttNanos = 0;
+
+    public AdaptiveConcurrencyLimiter(
+        @NotNull ConcurrencyLimitConfig config,
+        @Nullable MetricsListener metricsListener
+    ) {
+        if (config.minLimit() < 1)
+            throw new IllegalArgumentException("minLimit must be at least 1");
+
+        if (config.maxLimit() < config.minLimit())
+            throw new IllegalArgumentException("maxLimit cannot be less than minLimit");
+
+        if (config.smoothing() <= 0 || config.smoothing() > 1)
+            throw new IllegalArgumentException("smoothing must be greater than 0 and at most 1");
+
+        this.minLimit = config.minLimit();
+        this.maxLimit = config.maxLimit();
+        this.smoothing = config.smoothing();
+        this.rttTolerance = config.rttTolerance();
+        this.metricsListener = metricsListener;
+        this.estimatedLimit = clamp(config.initialLimit());
+
+        Map<String, Partition> partitionsMap = new HashMap<>();
+        config.partitionGuaranteedShares().forEach(
+            (name, share) -> partitionsMap.put(name, new Partition(name, share))
+        );
+        this.partitions = Collections.unmodifiableMap(partitionsMap);
+
+        EndpointPriority[] priorities = EndpointPriority.values();
+        this.priorityLimitFactors = new double[priorities.length];
+        for (EndpointPriority priority : priorities) {
+            double factor = config.priorityLimitFactor(priority);
+            if (factor <= 0)
+                throw new IllegalArgumentException("priorityLimitFactor must be greater than 0 for " + priority);
+
+            priorityLimitFactors[priority.ordinal()] = factor;
+        }
+
+        notifyMetricsListener(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, this);
+    }
+
+    /**
+     * Same as calling {@link #acquire(String, EndpointPriority)} with {@link EndpointPriority#NORMAL} priority.
+     */
+    public @NotNull Permit acquire(@Nullable String partitionName) {
+        return acquire(partitionName, EndpointPriority.NORMAL);
+    }
+
+    /**
+     * @param partitionName The concurrency limit partition of the endpoint the request is for, or null if it isn't
+     * in a partition. Partition names that weren't configured are treated as null.
+     * @param priority The priority of the endpoint the request is for. Null is treated as {@link
+     * EndpointPriority#NORMAL}.
+     * @return A {@link Permit} that must be released when the request is done.
+     * @throws ConcurrencyLimitExceededException if the server is at the limit for the request's priority (see {@link
+     * ConcurrencyLimitConfig#priorityLimitFactor(EndpointPriority)}) and the request's partition (if any) is already
+     * using its guaranteed share.
+     */
+    public @NotNull Permit acquire(@Nullable String partitionName, @Nullable EndpointPriority priority) {
+        if (priority == null)
+            priority = EndpointPriority.NORMAL;
+
+        Partition partition = (partitionName == null) ? null : partitions.get(partitionName);
+        int limit = getLimit();
+        int priorityLimit = Math.max(1, (int) (limit * priorityLimitFactors[priority.ordinal()]));
+        int currentInFlight = inFlight.incrementAndGet();
+
+        if (currentInFlight > priorityLimit
+            && (partition == null || partition.inFlight.get() >= partition.guaranteedLimit(limit))) {
+            inFlight.decrementAndGet();
+            rejectedCount.increment();
+            ConcurrencyLimitExceededException ex = new ConcurrencyLimitExceededException(
+                limit, currentInFlight - 1, partitionName, priority
+            );
+            notifyMetricsListener(ServerMetricsEvent.CONCURRENCY_LIMIT_REJECTED, ex);
+            throw ex;
+        }
+
+        if (partition != null)
+            partition.inFlight.incrementAndGet();
+
+        return new Permit(partition, System.nanoTime(), currentInFlight);
+    }
+
+    /**
+     * Recalculates the limit using the latency of a request that finished successfully.
+     *
+     * @param rttNanos How long the request took.
+     * @param inFlightAtStart How many requests were in flight (including this one) when the request started.
+     */
+    protected void onSample(long rttNanos, int inFlightAtStart) {
+        int oldLimit;
+        int newLimit;
+        synchronized (this) {
+            if (longRttNanos == 0) {
+                shortRttNanos = rttNanos;
+                longRttNanos = rttNanos;
+            }
+            else {
+                shortRttNanos = ema(shortRttNanos, rttNanos, SHORT_WINDOW);
+                longRttNanos = ema(longRttNanos, rttNanos, LONG_WINDOW);
+            }
+
+            // If the long-term average is way above the short-term one then latency has dropped for good (e.g. a slow
+            //      dependency recovered). Pull the long-term average down faster than it would decay on its own so the
+            //      limit can recover without waiting for hundreds of samples.
+            if (longRttNanos / shortRttNanos > 2)
+                longRttNanos *= 0.95;
+
+            // Don't grow the limit based on samples taken when we weren't using much of it - they don't tell us
+            //      anything about how the server behaves near the limit.
+            if (inFlightAtStart < estimatedLimit / 2)
+                return;
+
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+            double queueAllowance = Math.sqrt(estimatedLimit);
+            double candidateLimit = estimatedLimit * gradient + queueAllowance;
+
+            oldLimit = getLimit();
+            estimatedLimit = clamp(estimatedLimit * (1 - smoothing) + candidateLimit * smoothing);
+            newLimit = getLimit();
+        }
+
+        if (newLimit != oldLimit)
+            notifyMetricsListener(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, this);
+    }
+
+    protected static double ema(double currentAverage, double sample, int window) {
+        double factor = 2.0 / (window + 1);
+        return currentAverage * (1 - factor) + sample * factor;
+    }
+
+    protected double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+
+    protected void notifyMetricsListener(@NotNull ServerMetricsEvent event, @NotNull Object value) {
+        if (metricsListener == null)
+            return;
+
+        try {
+            metricsListener.onEvent(event, value);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener blew up while handling a concurrency limit event.", t);
+        }
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * @return The number of requests currently in flight for the given partition, or 0 if there's no such partition.
+     */
+    public int getInFlight(@NotNull String partitionName) {
+        Partition partition = partitions.get(partitionName);
+        return (partition == null) ? 0 : partition.inFlight.get();
+    }
+
+    /**
+     * A named slice of the concurrency limit that is guaranteed to a group of endpoints.
+     */
+    protected static class Partition {
+        protected final @NotNull String name;
+        protected final double guaranteedShare;
+        protected final AtomicInteger inFlight = new AtomicInteger(0);
+
+        protected Partition(@NotNull String name, double guaranteedShare) {
+            this.name = name;
+            this.guaranteedShare = guaranteedShare;
+        }
+
+        protected int guaranteedLimit(int totalLimit) {
+            return Math.max(1, (int) Math.ceil(totalLimit * guaranteedShare));
+        }
+    }
+
+    /**
+     * Represents one request's slot under the concurrency limit. Releasing a permit more than once has no effect.
+     */
+    public class Permit {
+        protected final @Nullable Partition partition;
+        protected final long startTimeNanos;
+        protected final int inFlightAtStart;
+        protected final AtomicBoolean released = new AtomicBoolean(false);
+
+        protected Permit(@Nullable Partition partition, long startTimeNanos, int inFlightAtStart) {
+            this.partition = partition;
+            this.startTimeNanos = startTimeNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Releases this permit and uses the time since it was acquired to recalculate the concurrency limit. Call this
+         * when a request completed successfully.
+         */
+        public void releaseWithSample() {
+            if (release())
+                onSample(System.nanoTime() - startTimeNanos, inFlightAtStart);
+        }
+
+        /**
+         * Releases this permit without affecting the concurrency limit. Call this when a request failed or was
+         * abandoned.
+         */
+        public void releaseWithoutSample() {
+            release();
+        }
+
+        protected boolean release() {
+            if (!released.compareAndSet(false, true))
+                return false;
+
+            inFlight.decrementAndGet();
+            if (partition != null)
+                partition.inFlight.decrementAndGet();
+
+            return true;
+        }
+
+        public boolean isReleased() {
+            return released.get();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.nike.riposte.server.concurrency;
+
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * Decides whether requests should be shed because they've waited too long before processing started, using the CoDel
+ * (controlled delay) approach. See {@link LoadSheddingConfig} for a description of the algorithm and its knobs.
+ * <p/>
+ * Each event loop gets its own {@link EventLoopState}, since each event loop has its own queue of pending work and
+ * one event loop can fall behind while the others are fine. The CoDel state for an event loop is only ever touched by
+ * that event loop's thread, so no synchronization is needed - {@link #shouldShed(EventExecutor, Long)} must therefore
+ * only be called from the given event loop.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CoDelLoadShedder {
+
+    protected final long targetDelayNanos;
+    protected final long intervalNanos;
+    protected final long lagProbeIntervalNanos;
+    protected final ConcurrentMap<EventExecutor, EventLoopState> eventLoopStates = new ConcurrentHashMap<>();
+
+    public CoDelLoadShedder(@NotNull LoadSheddingConfig config) {
+        if (config.targetDelayMillis() <= 0)
+            throw new IllegalArgumentException("targetDelayMillis must be greater than 0");
+
+        if (config.intervalMillis() <= 0)
+            throw new IllegalArgumentException("intervalMillis must be greater than 0");
+
+        if (config.eventLoopLagProbeIntervalMillis() <= 0)
+            throw new IllegalArgumentException("eventLoopLagProbeIntervalMillis must be greater than 0");
+
+        this.targetDelayNanos = TimeUnit.MILLISECONDS.toNanos(config.targetDelayMillis());
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.intervalMillis());
+        this.lagProbeIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.eventLoopLagProbeIntervalMillis());
+    }
+
+    /**
+     * @param eventLoop The event loop the request is being processed on. This method must be called from this event
+     * loop's thread.
+     * @param requestStartTimeNanos The {@link System#nanoTime()} when the request was decoded, or null if unknown.
+     * @return The request's estimated sojourn time (how long it waited before processing started) in nanoseconds if
+     * the request should be shed, or null if the request should be processed normally.
+     */
+    public @Nullable Long shouldShed(@NotNull EventExecutor eventLoop, @Nullable Long requestStartTimeNanos) {
+        EventLoopState state = stateFor(eventLoop);
+        long nowNanos = System.nanoTime();
+        long timeSinceRequestStartNanos = (requestStartTimeNanos == null)
+                                          ? 0
+                                          : Math.max(0, nowNanos - requestStartTimeNanos);
+        long sojournNanos = state.lagNanos + timeSinceRequestStartNanos;
+
+        return (state.onRequest(sojournNanos, nowNanos)) ? sojournNanos : null;
+    }
+
+    protected @NotNull EventLoopState stateFor(@NotNull EventExecutor eventLoop) {
+        EventLoopState state = eventLoopStates.get(eventLoop);
+        if (state != null)
+            return state;
+
+        EventLoopState newState = new EventLoopState(eventLoop);
+        EventLoopState existingState = eventLoopStates.putIfAbsent(eventLoop, newState);
+        if (existingState != null)
+            return existingState;
+
+        newState.scheduleLagProbe();
+        return newState;
+    }
+
+    /**
+     * Tracks the scheduling lag and CoDel state for a single event loop.
+     */
+    protected class EventLoopState {
+        protected final @NotNull EventExecutor eventLoop;
+
+        // Written by the lag probe on the event loop thread, but may be read by others (e.g. for debugging or tests).
+        protected volatile long lagNanos = 0;
+
+        // Only accessed from the event loop thread.
+        protected long intervalEndNanos = 0;
+        protected long minSojournNanosInInterval = Long.MAX_VALUE;
+        protected boolean overloaded = false;
+
+        protected EventLoopState(@NotNull EventExecutor eventLoop) {
+            this.eventLoop = eventLoop;
+        }
+
+        /**
+         * Records the given request's sojourn time and returns true if the request should be shed.
+         */
+        protected boolean onRequest(long sojournNanos, long nowNanos) {
+            if (intervalEndNanos == 0) {
+                // First request on this event loop.
+                intervalEndNanos = nowNanos + intervalNanos;
+                minSojournNanosInInterval = sojournNanos;
+            }
+            else if (nowNanos - intervalEndNanos >= 0) {
+                // The interval is over. If even the best-case request in the interval waited longer than the target
+                //      then there's a standing queue and we're overloaded, otherwise any delays were just a burst.
+                overloaded = minSojournNanosInInterval > targetDelayNanos;
+                intervalEndNanos = nowNanos + intervalNanos;
+                minSojournNanosInInterval = sojournNanos;
+            }
+            else if (sojournNanos < minSojournNanosInInterval) {
+                minSojournNanosInInterval = sojournNanos;
+            }
+
+            // While overloaded, shed anything that has waited well past the target - it's likely the caller has given
+            //      up or is about to, and shedding it gives the requests behind it a chance to be answered in time.
+            return overloaded && sojournNanos > 2 * targetDelayNanos;
+        }
+
+        protected void scheduleLagProbe() {
+            if (eventLoop.isShuttingDown()) {
+                eventLoopStates.remove(eventLoop, this);
+                return;
+            }
+
+            long expectedRunTimeNanos = System.nanoTime() + lagProbeIntervalNanos;
+            try {
+                eventLoop.schedule(
+                    () -> {
+                        lagNanos = Math.max(0, System.nanoTime() - expectedRunTimeNanos);
+                        scheduleLagProbe();
+                    },
+                    lagProbeIntervalNanos, TimeUnit.NANOSECONDS
+                );
+            }
+            catch (RejectedExecutionException ex) {
+                // The event loop is shutting down, so there's nothing left to measure.
+                eventLoopStates.remove(eventLoop, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.nike.riposte.server.concurrency;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.RequestBodyMemoryBudgetConfig;
+import com.nike.riposte.server.error.exception.RequestBodyMemoryBudgetExceededException;
+import com.nike.riposte.server.metrics.RequestBodyMemoryBudgetStats;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Timeout;
+
+/**
+ * Bounds the total number of request payload bytes buffered in memory across all in-flight requests. See {@link
+ * RequestBodyMemoryBudgetConfig} for a description of the behavior.
+ * <p/>
+ * Call {@link #newReservation()} when a request arrives, {@link Reservation#reserve(long)} for each payload chunk as
+ * it's buffered, and {@link Reservation#release()} once the request's resources have been released. If {@link
+ * Reservation#reserve(long)} returns false then the budget is used up and {@link
+ * Reservation#pauseReadingUntilBudgetAvailable(ChannelHandlerContext)} should be called to stop reading from the
+ * caller until other requests give back some of the budget.
+ * <p/>
+ * The chunk that takes the total past the budget has already been read off the socket, so it's always counted and
+ * kept. The budget can therefore be overshot by up to one chunk per connection - it bounds buffered memory, it doesn't
+ * cap it exactly.
+ * <p/>
+ * Paused requests are resumed one at a time (oldest first) rather than all at once when room frees up, since every
+ * resumed request immediately reads another chunk and resuming them all would just overshoot the budget and pause
+ * most of them again. A paused request is resumed by each release and by each successful reservation that leaves room
+ * in the budget - so a resumed request whose next chunk fits hands the room on to the next paused request.
+ * <p/>
+ * This class is thread safe. Reserving and releasing bytes is lock free. The pause state of a {@link Reservation} is
+ * only ever touched on its channel's event loop.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestBodyMemoryBudget implements RequestBodyMemoryBudgetStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestBodyMemoryBudget.class);
+
+    protected final long maxBytes;
+    protected final long maxWaitMillis;
+    protected final @Nullable MetricsListener metricsListener;
+    protected final @NotNull TimeoutWheel timeoutWheel;
+
+    protected final AtomicLong reservedBytes = new AtomicLong(0);
+    protected final AtomicInteger pausedRequests = new AtomicInteger(0);
+    protected final LongAdder rejectedCount = new LongAdder();
+    protected final Queue<Reservation> pausedReservations = new ConcurrentLinkedQueue<>();
+
+    public RequestBodyMemoryBudget(
+        @NotNull RequestBodyMemoryBudgetConfig config,
+        @Nullable MetricsListener metricsListener
+    ) {
+        this(config, metricsListener, TimeoutWheel.getDefaultInstance());
+    }
+
+    public RequestBodyMemoryBudget(
+        @NotNull RequestBodyMemoryBudgetConfig config,
+        @Nullable MetricsListener metricsListener,
+        @NotNull TimeoutWheel timeoutWheel
+    ) {
+        if (config.maxBufferedBytes() < 1)
+            throw new IllegalArgumentException("maxBufferedBytes must be at least 1");
+
+        //noinspection ConstantConditions
+        if (timeoutWheel == null)
+            throw new NullPointerException("timeoutWheel cannot be null");
+
+        this.maxBytes = config.maxBufferedBytes();
+        this.maxWaitMillis = config.maxWaitMillis();
+        this.metricsListener = metricsListener;
+        this.timeoutWheel = timeoutWheel;
+
+        notifyMetricsListener(ServerMetricsEvent.REQUEST_BODY_MEMORY_BUDGET_CREATED, this);
+    }
+
+    /**
+     * @return A new {@link Reservation} for a request. It must be released via {@link Reservation#release()} when the
+     * request's resources are released.
+     */
+    public @NotNull Reservation newReservation() {
+        return new Reservation();
+    }
+
+    /**
+     * Resumes reading for the oldest paused request if there's room in the budget. Only one request is resumed - see
+     * the class javadoc for how the rest get resumed.
+     */
+    protected void resumeNextPausedReservationIfRoom() {
+        Reservation reservation;
+        while (reservedBytes.get() < maxBytes && (reservation = pausedReservations.poll()) != null) {
+            // Skip any reservation that stopped being paused (timed out or released) before it left the queue.
+            if (reservation.resumeReading())
+                return;
+        }
+    }
+
+    protected void notifyMetricsListener(@NotNull ServerMetricsEvent event, @NotNull Object value) {
+        if (metricsListener == null)
+            return;
+
+        try {
+            metricsListener.onEvent(event, value);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener blew up while handling a request body memory budget event.", t);
+        }
+    }
+
+    @Override
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    @Override
+    public int getPausedRequests() {
+        return pausedRequests.get();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Represents the bytes one request has buffered under the budget. Releasing a reservation more than once has no
+     * effect, and bytes reserved after it has been released are ignored.
+     */
+    public class Reservation {
+        protected final AtomicLong bytes = new AtomicLong(0);
+        protected final AtomicBoolean released = new AtomicBoolean(false);
+
+        // Only changed on the paused channel's event loop, but read from other threads to find out where to send the
+        //      resume call.
+        protected volatile @Nullable ChannelHandlerContext pausedCtx;
+        protected @Nullable Timeout pauseTimeout;
+        protected long pauseStartNanos;
+
+        protected Reservation() {
+        }
+
+        /**
+         * Counts the given number of bytes against the budget. The bytes are always counted, even if they take the
+         * total past the budget.
+         *
+         * @return true if the total is still within the budget, false if it has gone past the budget.
+         */
+        public boolean reserve(long numBytes) {
+            if (numBytes <= 0 || released.get())
+                return true;
+
+            bytes.addAndGet(numBytes);
+            if (reservedBytes.addAndGet(numBytes) > maxBytes)
+                return false;
+
+            if (!pausedReservations.isEmpty())
+                resumeNextPausedReservationIfRoom();
+
+            return true;
+        }
+
+        /**
+         * Turns off autoRead for the given context's channel until the budget has room again. If the budget is still
+         * used up after {@link RequestBodyMemoryBudgetConfig#maxWaitMillis()} then autoRead is restored and a {@link
+         * RequestBodyMemoryBudgetExceededException} is fired down the pipeline via {@link
+         * ChannelHandlerContext#fireExceptionCaught(Throwable)}. Must be called on the channel's event loop. Does
+         * nothing if reading is already paused.
+         *
+         * @throws RequestBodyMemoryBudgetExceededException immediately if the configured max wait is 0 or less.
+         */
+        public void pauseReadingUntilBudgetAvailable(@NotNull ChannelHandlerContext ctx) {
+            if (maxWaitMillis <= 0) {
+                rejectedCount.increment();
+                throw new RequestBodyMemoryBudgetExceededException(maxBytes, reservedBytes.get(), 0);
+            }
+
+            if (pausedCtx != null || released.get())
+                return;
+
+            pausedCtx = ctx;
+            pauseStartNanos = System.nanoTime();
+            pausedRequests.incrementAndGet();
+            ctx.channel().config().setAutoRead(false);
+            pauseTimeout = timeoutWheel.schedule(
+                ctx.executor(), this::onPauseTimedOut, maxWaitMillis, TimeUnit.MILLISECONDS
+            );
+            pausedReservations.offer(this);
+
+            // Another request may have given back some of the budget between reserve() and now, in which case
+            //      nobody else is going to wake us up.
+            resumeNextPausedReservationIfRoom();
+        }
+
+        /**
+         * Releases every byte this reservation has counted against the budget, and resumes reading for this request
+         * (if it was paused) and for the oldest other paused request if the budget now has room.
+         */
+        public void release() {
+            if (!released.compareAndSet(false, true))
+                return;
+
+            reservedBytes.addAndGet(-bytes.getAndSet(0));
+
+            ChannelHandlerContext ctx = pausedCtx;
+            if (ctx != null) {
+                pausedReservations.remove(this);
+                resumeReading();
+            }
+
+            resumeNextPausedReservationIfRoom();
+        }
+
+        public boolean isReleased() {
+            return released.get();
+        }
+
+        public long getReservedBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * @return true if reading from the caller is currently paused until the budget has room.
+         */
+        public boolean isReadingPaused() {
+            return pausedCtx != null;
+        }
+
+        /**
+         * Turns autoRead back on for the paused channel. Hops to the channel's event loop if necessary.
+         *
+         * @return true if this reservation was paused, false if there was nothing to resume.
+         */
+        protected boolean resumeReading() {
+            ChannelHandlerContext ctx = pausedCtx;
+            if (ctx == null)
+                return false;
+
+            if (ctx.executor().inEventLoop())
+                doResumeReading(ctx);
+            else
+                ctx.executor().execute(() -> doResumeReading(ctx));
+
+            return true;
+        }
+
+        protected void doResumeReading(@NotNull ChannelHandlerContext ctx) {
+            if (endPause(ctx))
+                ctx.channel().config().setAutoRead(true);
+        }
+
+        protected void onPauseTimedOut() {
+            ChannelHandlerContext ctx = pausedCtx;
+            if (ctx == null)
+                return;
+
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pauseStartNanos);
+            pausedReservations.remove(this);
+            if (!endPause(ctx))
+                return;
+
+            ctx.channel().config().setAutoRead(true);
+            rejectedCount.increment();
+            ctx.fireExceptionCaught(
+                new RequestBodyMemoryBudgetExceededException(maxBytes, reservedBytes.get(), waitedMillis)
+            );
+        }
+
+        /**
+         * @return true if this reservation was paused on the given context (and now isn't), false if it wasn't.
+         */
+        protected boolean endPause(@NotNull ChannelHandlerContext ctx) {
+            if (pausedCtx != ctx)
+                return false;
+
+            pausedCtx = null;
+            pausedRequests.decrementAndGet();
+            Timeout timeout = pauseTimeout;
+            pauseTimeout = null;
+            if (timeout != null)
+                timeout.cancel();
+
+            return true;
+        }
+    }
+}
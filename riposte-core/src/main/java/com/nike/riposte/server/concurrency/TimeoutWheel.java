@@ -0,0 +1,87 @@
+package com.nike.riposte.server.concurrency;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Schedules per-request timeout checks on a shared {@link HashedWheelTimer} rather than on the event loop's scheduled
+ * task queue. Nearly every request registers a timeout and then cancels it when the request finishes well before the
+ * timeout would fire, and the event loop's scheduled task queue is a priority queue where every insert and cancel
+ * costs O(log n) on the event loop thread. A timer wheel makes both operations O(1), at the cost of only firing
+ * timeouts to the nearest {@link #DEFAULT_TICK_DURATION_MILLIS} - which is plenty accurate for request timeouts.
+ * <p/>
+ * Timeouts are tracked by the wheel's single worker thread, but when a timeout fires the task is handed off to the
+ * {@link Executor} passed to {@link #schedule(Executor, Runnable, long, TimeUnit)} (usually the channel's event loop)
+ * so that the task runs on the same thread it would have if it had been scheduled on the event loop directly.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TimeoutWheel {
+
+    public static final long DEFAULT_TICK_DURATION_MILLIS = 10;
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    private static final TimeoutWheel DEFAULT_INSTANCE = new TimeoutWheel(
+        new HashedWheelTimer(
+            new DefaultThreadFactory("riposte-timeout-wheel", true),
+            DEFAULT_TICK_DURATION_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL
+        )
+    );
+
+    protected final @NotNull Timer timer;
+
+    /**
+     * @param timer The {@link Timer} to use for tracking timeouts. This should almost always be a {@link
+     * HashedWheelTimer} shared by the whole application - see {@link #getDefaultInstance()}.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public TimeoutWheel(@NotNull Timer timer) {
+        if (timer == null)
+            throw new IllegalArgumentException("timer cannot be null");
+
+        this.timer = timer;
+    }
+
+    /**
+     * @return The application-wide shared instance. The wheel's worker thread is a daemon thread that isn't started
+     * until the first timeout is scheduled.
+     */
+    public static @NotNull TimeoutWheel getDefaultInstance() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Schedules the given task to be executed on the given executor after the given delay. Call {@link
+     * Timeout#cancel()} on the result if the task is no longer needed (e.g. because the request finished before it
+     * timed out) so that it doesn't hold on to anything it references until the delay passes.
+     *
+     * @param executor The executor the task should run on when it fires - usually the channel's event loop.
+     * @param task The task to run.
+     * @param delay The delay before the task should run.
+     * @param unit The unit for the delay.
+     * @return The {@link Timeout} handle for the scheduled task.
+     */
+    public @NotNull Timeout schedule(
+        @NotNull Executor executor, @NotNull Runnable task, long delay, @NotNull TimeUnit unit
+    ) {
+        return timer.newTimeout(timeout -> {
+            if (timeout.isCancelled())
+                return;
+
+            try {
+                executor.execute(task);
+            }
+            catch (RejectedExecutionException ex) {
+                // The executor is shutting down (e.g. the server is stopping), so the channel this timeout was for is
+                //      going away anyway. Nothing left to do.
+            }
+        }, delay, unit);
+    }
+}
@@ -4,11 +4,14 @@ import com.nike.internal.util.Pair;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessage;
+import com.nike.riposte.server.concurrency.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.concurrency.RequestBodyMemoryBudget;
 import com.nike.riposte.server.error.handler.ErrorResponseBody;
 import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
+import com.nike.riposte.server.http.RequestContentStream;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
@@ -26,8 +29,10 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Deque;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandler;
@@ -195,10 +200,19 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
 
         handleMetricsForCompletedRequestIfNotAlreadyDone(state);
 
+        releaseConcurrencyLimitPermitIfNecessary(state);
+
+        abortRequestContentStreamIfNecessary(
+            state, "The request finished before its content stream was fully consumed."
+        );
+
         // Make sure to clear out request info chunks, multipart data, and any other resources to prevent reference
         //      counting memory leaks (or any other kind of memory leaks).
         requestInfo.releaseAllResources();
 
+        // The request's payload bytes are no longer held, so give them back to the request body memory budget.
+        releaseRequestBodyMemoryReservationIfNecessary(state);
+
         // Add an IdleChannelTimeoutHandler (if desired) to the start of the pipeline in order to auto-close this
         //      channel if it sits unused longer than the timeout value before the next request arrives.
         if (workerChannelIdleTimeoutMillis > 0 && ctx.pipeline().get(IDLE_CHANNEL_TIMEOUT_HANDLER_NAME) == null) {
@@ -224,6 +238,49 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
         }
     }
 
+    /**
+     * Aborts the request's {@link RequestContentStream} (if it has one) so that any content chunks it's holding are
+     * released, its subscriber finds out that no more content is coming, and the channel's autoRead is turned back on
+     * for the next request. Does nothing if the stream already completed.
+     */
+    protected void abortRequestContentStreamIfNecessary(HttpProcessingState state, String reason) {
+        RequestContentStream contentStream = state.getRequestContentStream();
+        if (contentStream == null || contentStream.isCompleted())
+            return;
+
+        try {
+            contentStream.abort(new CancellationException(reason));
+        }
+        catch (Throwable t) {
+            logErrorWithTracing(
+                "An unexpected error occurred while trying to abort the request content stream. "
+                + "This exception will be swallowed.", t, state
+            );
+        }
+    }
+
+    /**
+     * Releases the request's {@link RequestBodyMemoryBudget.Reservation} (if it has one) so its bytes count towards
+     * the budget again. This should only be called once the {@link RequestInfo}'s resources have been released.
+     */
+    protected void releaseRequestBodyMemoryReservationIfNecessary(HttpProcessingState state) {
+        RequestBodyMemoryBudget.Reservation reservation = state.getRequestBodyMemoryReservation();
+        if (reservation == null)
+            return;
+
+        state.setRequestBodyMemoryReservation(null);
+
+        try {
+            reservation.release();
+        }
+        catch (Throwable t) {
+            logErrorWithTracing(
+                "An unexpected error occurred while trying to release the request body memory reservation. "
+                + "This exception will be swallowed.", t, state
+            );
+        }
+    }
+
     protected void handleMetricsForCompletedRequestIfNotAlreadyDone(HttpProcessingState state) {
         // Send response-sent event for metrics purposes now that we handled all possible cases.
         //      Due to multiple messages and exception possibilities/interactions it's possible we've already dealt with
@@ -261,6 +318,43 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
         }
     }
 
+    /**
+     * Releases the request's {@link AdaptiveConcurrencyLimiter.Permit} (if it has one). If the response was sent
+     * successfully and wasn't a 5xx error then the request's latency is fed back into the concurrency limit once the
+     * last chunk is written, otherwise the permit is released without affecting the limit.
+     */
+    protected void releaseConcurrencyLimitPermitIfNecessary(HttpProcessingState state) {
+        AdaptiveConcurrencyLimiter.Permit permit = state.getConcurrencyLimitPermit();
+        if (permit == null)
+            return;
+
+        state.setConcurrencyLimitPermit(null);
+
+        try {
+            ResponseInfo<?> responseInfo = state.getResponseInfo();
+            ChannelFuture finalChunkFuture = state.getResponseWriterFinalChunkChannelFuture();
+            boolean isServerError = responseInfo == null || responseInfo.getHttpStatusCodeWithDefault(200) >= 500;
+            if (state.isResponseSendingLastChunkSent() && finalChunkFuture != null && !isServerError) {
+                finalChunkFuture.addListener((ChannelFutureListener) channelFuture -> {
+                    if (channelFuture.isSuccess())
+                        permit.releaseWithSample();
+                    else
+                        permit.releaseWithoutSample();
+                });
+            }
+            else {
+                permit.releaseWithoutSample();
+            }
+        }
+        catch (Throwable t) {
+            permit.releaseWithoutSample();
+            logErrorWithTracing(
+                "An unexpected error occurred while trying to release the concurrency limit permit. "
+                + "This exception will be swallowed.", t, state
+            );
+        }
+    }
+
     /**
      * This method is used as the final cleanup safety net for when a channel is closed. It guarantees that any
      * {@link ByteBuf}s being held by {@link RequestInfo} or {@link ProxyRouterProcessingState} are {@link
@@ -382,6 +476,14 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
             // Make sure metrics is handled
             handleMetricsForCompletedRequestIfNotAlreadyDone(httpState);
 
+            // Make sure the concurrency limit permit is released
+            releaseConcurrencyLimitPermitIfNecessary(httpState);
+
+            // Make sure any streaming request content is released
+            abortRequestContentStreamIfNecessary(
+                httpState, "The channel closed before the request content stream was fully consumed."
+            );
+
             // Tell the RequestInfo it can release all its resources.
             if (requestInfo != null) {
                 try {
@@ -395,6 +497,9 @@ public class ChannelPipelineFinalizerHandler extends BaseInboundHandlerWithTraci
                 }
             }
 
+            // Make sure the request body memory reservation is released
+            releaseRequestBodyMemoryReservationIfNecessary(httpState);
+
             try {
                 releaseProxyRouterStateResources(proxyRouterState, ctx);
             }
@@ -0,0 +1,61 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.concurrency.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.EndpointPriority;
+import com.nike.riposte.server.http.HttpProcessingState;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Acquires a {@link AdaptiveConcurrencyLimiter.Permit} for each new request, throwing a {@link
+ * ConcurrencyLimitExceededException} (which maps to a 503) if the server is at its concurrency limit. The permit is
+ * stored in the request's {@link HttpProcessingState} and released by {@link ChannelPipelineFinalizerHandler} once the
+ * response has been sent. See {@link com.nike.riposte.server.config.ServerConfig#concurrencyLimitConfig()} for
+ * details.
+ * <p/>
+ * This handler should come after {@link RoutingHandler} (so the endpoint's {@link
+ * Endpoint#concurrencyLimitPartition()} and {@link Endpoint#priority()} are known) but before any security validation
+ * or endpoint work is done.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ConcurrencyLimitHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    protected final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    public ConcurrencyLimitHandler(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        if (concurrencyLimiter == null)
+            throw new IllegalArgumentException("concurrencyLimiter cannot be null");
+
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+            Endpoint<?> endpoint = state.getEndpointForExecution();
+            String partition = (endpoint == null) ? null : endpoint.concurrencyLimitPartition();
+            EndpointPriority priority = (endpoint == null) ? null : endpoint.priority();
+
+            // This throws ConcurrencyLimitExceededException if we're at the limit for this request's priority.
+            state.setConcurrencyLimitPermit(concurrencyLimiter.acquire(partition, priority));
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // This class does not log, and nothing that happens in this class should cause logging to happen elsewhere.
+        //      Therefore we should never bother with linking/unlinking tracing info to save on the extra processing.
+        return false;
+    }
+}
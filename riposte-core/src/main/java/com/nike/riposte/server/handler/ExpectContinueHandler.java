@@ -0,0 +1,140 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.HttpChannelInitializer;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.ProxyRouterEndpoint;
+import com.nike.riposte.server.http.StreamingRequestEndpoint;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import static com.nike.riposte.util.AsyncNettyHelper.executeOnlyIfChannelIsActive;
+
+/**
+ * Handles requests that contain an {@code Expect: 100-continue} header. Those callers hold back the request payload
+ * until they receive a {@code 100 Continue} interim response, so the request has to be accepted based on its headers
+ * alone. By the time the request gets to this handler the earlier handlers have already had their chance to reject it
+ * without the payload - {@link RoutingHandler} (404/405, and 413 when the {@code Content-Length} is over the size
+ * limit), {@link SecurityValidationHandler} (401/403 for security validators that are fast enough to run on the Netty
+ * worker thread), and any short-circuiting {@link com.nike.riposte.server.http.filter.RequestAndResponseFilter}s - so
+ * if the request is still alive then this handler sends the {@code 100 Continue}. When security validation runs
+ * asynchronously the {@code 100 Continue} is held back until it succeeds, and if it fails then the error is fired
+ * right away rather than waiting on a payload the caller will never send.
+ * <p/>
+ * The {@code Expect} header is removed from the request once it has been handled here, so endpoints (and in
+ * particular {@link ProxyRouterEndpoint}s, which would otherwise forward it downstream) never see it. {@link
+ * ResponseSenderHandler} closes the connection after any response that's sent while the {@code 100 Continue} is still
+ * pending, since the caller may or may not go on to send the payload and the connection can't safely be reused either
+ * way.
+ * <p/>
+ * This handler should come after {@link SecurityValidationHandler} and the after-security {@link
+ * RequestFilterHandler}, and before any handler that needs the request payload.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ExpectContinueHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    // Written as raw bytes through the HttpServerCodec's context so that it bypasses the codec's encoder. The encoder
+    //      treats every HttpResponse as the response to the oldest outstanding request, which would throw off its
+    //      HEAD request tracking for the real response.
+    protected static final byte[] CONTINUE_RESPONSE_BYTES =
+        "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) {
+        if (shouldHandleDoChannelReadMessage(msg)) {
+            HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+            if (state != null && !state.isResponseSendingStarted())
+                handleExpectContinue(ctx, (HttpRequest) msg, state);
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    protected boolean shouldHandleDoChannelReadMessage(Object msg) {
+        // A full request already has its payload, so there's nothing to continue.
+        return (msg instanceof HttpRequest)
+               && !(msg instanceof LastHttpContent)
+               && HttpUtil.is100ContinueExpected((HttpRequest) msg);
+    }
+
+    protected void handleExpectContinue(
+        @NotNull ChannelHandlerContext ctx, @NotNull HttpRequest request, @NotNull HttpProcessingState state
+    ) {
+        // Riposte answers the expectation itself. The header is shared with the RequestInfo.
+        HttpUtil.set100ContinueExpected(request, false);
+        state.setContinueResponsePending(true);
+
+        CompletableFuture<Void> preEndpointExecutionWorkChain = state.getPreEndpointExecutionWorkChain();
+        if (preEndpointExecutionWorkChain.isDone() && !preEndpointExecutionWorkChain.isCompletedExceptionally()) {
+            sendContinueResponse(ctx, state);
+            return;
+        }
+
+        // Asynchronous security validation (or other pre-endpoint work) hasn't finished yet, so hold off on telling
+        //      the caller to send the payload until we know the request is going to be accepted.
+        preEndpointExecutionWorkChain.whenComplete((aVoid, error) -> ctx.executor().execute(() -> {
+            // Nothing to do if the request has already been responded to.
+            if (!state.isContinueResponsePending() || state.isResponseSendingStarted())
+                return;
+
+            if (error == null)
+                sendContinueResponse(ctx, state);
+            else if (isEndpointWaitingOnPayloadBeforeExecuting(state.getEndpointForExecution())) {
+                // The endpoint handler wouldn't notice the failure until the full payload arrived, which it won't.
+                executeOnlyIfChannelIsActive(
+                    ctx, "ExpectContinueHandler-preEndpointExecutionWorkFailed",
+                    () -> ctx.fireExceptionCaught(error)
+                );
+            }
+        }));
+    }
+
+    /**
+     * @return true if the given endpoint is only executed (and therefore only notices a failed pre-endpoint-execution
+     * work chain) once the full request payload has arrived. {@link StreamingRequestEndpoint}s and {@link
+     * ProxyRouterEndpoint}s are started as soon as the request's headers arrive, so they surface the failure
+     * themselves.
+     */
+    protected boolean isEndpointWaitingOnPayloadBeforeExecuting(Endpoint<?> endpoint) {
+        return endpoint != null
+               && !(endpoint instanceof StreamingRequestEndpoint)
+               && !(endpoint instanceof ProxyRouterEndpoint);
+    }
+
+    protected void sendContinueResponse(@NotNull ChannelHandlerContext ctx, @NotNull HttpProcessingState state) {
+        state.setContinueResponsePending(false);
+
+        ChannelHandlerContext codecCtx = ctx.pipeline().context(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME);
+        if (codecCtx != null)
+            codecCtx.writeAndFlush(Unpooled.wrappedBuffer(CONTINUE_RESPONSE_BYTES));
+        else {
+            ctx.writeAndFlush(
+                new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER)
+            );
+        }
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // This class does not log, and nothing that happens in this class should cause logging to happen elsewhere.
+        //      Therefore we should never bother with linking/unlinking tracing info to save on the extra processing.
+        return false;
+    }
+}
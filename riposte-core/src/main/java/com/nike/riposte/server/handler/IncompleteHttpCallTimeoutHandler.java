@@ -1,5 +1,6 @@
 package com.nike.riposte.server.handler;
 
+import com.nike.riposte.server.concurrency.TimeoutWheel;
 import com.nike.riposte.server.error.exception.IncompleteHttpCallTimeoutException;
 
 import org.slf4j.Logger;
@@ -7,14 +8,17 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.TimeUnit;
 
+import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.Timeout;
 
 import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
 
 /**
- * Extension of {@link IdleStateHandler} intended to catch when an HTTP call is incomplete - i.e. when
+ * All-idle timeout handler intended to catch when an HTTP call is incomplete - i.e. when
  * a caller sends some of the data required for a full HTTP request but does not finish it. This could happen because
  * of a really slow client, or a bad network connection that keeps the connection open but doesn't send data, or a
  * broken client that doesn't send requests that conform to the HTTP spec. In any case we want to catch these cases
@@ -25,21 +29,121 @@ import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
  * trickle) it will not trigger this handler's timeout logic. It will only timeout and close the connection if no
  * incoming or outgoing data has passed through the channel *at all* in {@link #idleTimeoutMillis} milliseconds.
  *
+ * <p>This handler is added and removed for every request that arrives in more than one chunk, so rather than being an
+ * {@link IdleStateHandler} (which schedules its idle checks on the event loop's scheduled task queue, where inserts
+ * and cancels cost O(log n)) it tracks the idle check on a {@link TimeoutWheel}. Like {@link IdleStateHandler} there
+ * is only ever one idle check outstanding - activity just records a timestamp, and when the check fires it either
+ * times out the call or reschedules itself for the remaining idle time.
+ *
  * @author Nic Munroe
  */
 @SuppressWarnings("WeakerAccess")
-public class IncompleteHttpCallTimeoutHandler extends IdleStateHandler {
+public class IncompleteHttpCallTimeoutHandler extends ChannelDuplexHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(IncompleteHttpCallTimeoutHandler.class);
     protected final long idleTimeoutMillis;
+    protected final long idleTimeoutNanos;
+    protected final TimeoutWheel timeoutWheel;
     protected boolean alreadyTriggeredException = false;
 
+    protected long lastActivityNanos;
+    protected Timeout idleCheckTimeout;
+    protected boolean destroyed = false;
+
     public IncompleteHttpCallTimeoutHandler(long idleTimeoutMillis) {
-        super(0, 0, (int) idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        this(idleTimeoutMillis, TimeoutWheel.getDefaultInstance());
+    }
+
+    public IncompleteHttpCallTimeoutHandler(long idleTimeoutMillis, TimeoutWheel timeoutWheel) {
+        if (timeoutWheel == null)
+            throw new IllegalArgumentException("timeoutWheel cannot be null");
+
         this.idleTimeoutMillis = idleTimeoutMillis;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.timeoutWheel = timeoutWheel;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isActive() && ctx.channel().isRegistered())
+            initialize(ctx);
+
+        super.handlerAdded(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+        super.handlerRemoved(ctx);
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        initialize(ctx);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        lastActivityNanos = System.nanoTime();
+        super.channelRead(ctx, msg);
     }
 
     @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        lastActivityNanos = System.nanoTime();
+        super.write(ctx, msg, promise);
+    }
+
+    protected void initialize(ChannelHandlerContext ctx) {
+        // Only ever initialize once, and never after being destroyed.
+        if (idleCheckTimeout != null || destroyed || idleTimeoutNanos <= 0)
+            return;
+
+        lastActivityNanos = System.nanoTime();
+        scheduleIdleCheck(ctx, idleTimeoutNanos);
+    }
+
+    protected void destroy() {
+        destroyed = true;
+        if (idleCheckTimeout != null) {
+            idleCheckTimeout.cancel();
+            idleCheckTimeout = null;
+        }
+    }
+
+    protected void scheduleIdleCheck(ChannelHandlerContext ctx, long delayNanos) {
+        idleCheckTimeout = timeoutWheel.schedule(
+            ctx.executor(), () -> doIdleCheck(ctx), delayNanos, TimeUnit.NANOSECONDS
+        );
+    }
+
+    protected void doIdleCheck(ChannelHandlerContext ctx) {
+        if (destroyed || !ctx.channel().isOpen())
+            return;
+
+        long remainingNanos = idleTimeoutNanos - (System.nanoTime() - lastActivityNanos);
+        if (remainingNanos > 0) {
+            // There was activity since the check was scheduled, so check again when the idle timeout would now expire.
+            scheduleIdleCheck(ctx, remainingNanos);
+            return;
+        }
+
+        idleCheckTimeout = null;
+        try {
+            channelIdle(ctx, IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        }
+        catch (Throwable t) {
+            ctx.fireExceptionCaught(t);
+        }
+    }
+
     protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent evt) throws Exception {
         if (alreadyTriggeredException) {
             runnableWithTracingAndMdc(
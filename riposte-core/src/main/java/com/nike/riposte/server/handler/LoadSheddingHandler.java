@@ -0,0 +1,111 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendFullResponseInfo;
+import com.nike.riposte.server.concurrency.CoDelLoadShedder;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Sheds requests with a 503 when they've waited too long before processing started while the server is overloaded,
+ * as decided by a {@link CoDelLoadShedder}. See {@link
+ * com.nike.riposte.server.config.ServerConfig#loadSheddingConfig()} for details.
+ * <p/>
+ * Shed requests are short circuited the same way {@link RequestFilterHandler} does it: a bare 503 {@link ResponseInfo}
+ * is set on the request state and sent immediately, so access logging, metrics, and distributed tracing still see the
+ * request, but no filters, routing, security validation, or endpoint work is done for it. Any remaining content
+ * chunks for a shed request are discarded as they arrive.
+ * <p/>
+ * This handler should come after {@link AccessLogStartHandler} (which records when the request was decoded) and
+ * {@link SmartHttpContentCompressor} (which must see every request that gets a response), but before anything that
+ * does real work for the request.
+ */
+@SuppressWarnings("WeakerAccess")
+public class LoadSheddingHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadSheddingHandler.class);
+
+    protected final RiposteHandlerInternalUtil handlerUtils = RiposteHandlerInternalUtil.DEFAULT_IMPL;
+    protected final CoDelLoadShedder loadShedder;
+    protected final MetricsListener metricsListener;
+
+    // Handlers are created per-channel, and only ever accessed from the channel's event loop.
+    protected boolean discardingContentForShedRequest = false;
+
+    public LoadSheddingHandler(CoDelLoadShedder loadShedder, MetricsListener metricsListener) {
+        if (loadShedder == null)
+            throw new IllegalArgumentException("loadShedder cannot be null");
+
+        this.loadShedder = loadShedder;
+        this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            discardingContentForShedRequest = false;
+
+            HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+            Long sojournNanos = loadShedder.shouldShed(ctx.channel().eventLoop(), state.getRequestStartTimeNanos());
+            if (sojournNanos == null)
+                return PipelineContinuationBehavior.CONTINUE;
+
+            notifyMetricsListener(sojournNanos);
+
+            handlerUtils.createRequestInfoFromNettyHttpRequestAndHandleStateSetupIfNecessary((HttpRequest) msg, state);
+            state.setResponseInfo(
+                ResponseInfo.newBuilder().withHttpStatusCode(HttpResponseStatus.SERVICE_UNAVAILABLE.code()).build(),
+                null
+            );
+            discardingContentForShedRequest = !(msg instanceof LastHttpContent);
+
+            // Fire the short-circuit event that will get the 503 sent to the caller, and stop this request here.
+            ctx.fireChannelRead(LastOutboundMessageSendFullResponseInfo.INSTANCE);
+            return PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT;
+        }
+
+        if (discardingContentForShedRequest && msg instanceof HttpContent) {
+            if (msg instanceof LastHttpContent)
+                discardingContentForShedRequest = false;
+
+            ReferenceCountUtil.release(msg);
+            return PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT;
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    protected void notifyMetricsListener(long sojournNanos) {
+        if (metricsListener == null)
+            return;
+
+        try {
+            metricsListener.onEvent(ServerMetricsEvent.REQUEST_SHED, sojournNanos);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener blew up while handling a request shed event.", t);
+        }
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // Only HttpRequests can cause a request to be shed (and therefore cause logging to happen elsewhere).
+        return (msgOrEvt instanceof HttpRequest);
+    }
+}
@@ -1,17 +1,23 @@
 package com.nike.riposte.server.handler;
 
+import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendFullResponseInfo;
+import com.nike.riposte.server.concurrency.TimeoutWheel;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut;
+import com.nike.riposte.server.error.exception.RequestDeadlineExceededException;
 import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.NonblockingEndpoint;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.cache.RequestCoalescer;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 import com.nike.wingtips.Span;
 
 import org.jetbrains.annotations.NotNull;
@@ -24,12 +30,13 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.Timeout;
 import io.netty.util.concurrent.EventExecutor;
-import io.netty.util.concurrent.ScheduledFuture;
 
 import static com.nike.riposte.util.AsyncNettyHelper.executeOnlyIfChannelIsActive;
 import static com.nike.riposte.util.AsyncNettyHelper.functionWithTracingAndMdc;
@@ -55,12 +62,49 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
     private final long defaultCompletableFutureTimeoutMillis;
 
     private final @NotNull ServerSpanNamingAndTaggingStrategy<Span> spanTaggingStrategy;
+    private final @NotNull RequestCoalescer requestCoalescer;
+    private final @NotNull TimeoutWheel timeoutWheel;
 
-    @SuppressWarnings("ConstantConditions")
     public NonblockingEndpointExecutionHandler(
         @NotNull Executor longRunningTaskExecutor,
         long defaultCompletableFutureTimeoutMillis,
         @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig, null);
+    }
+
+    /**
+     * @param metricsListener The {@link MetricsListener} that should be notified of request coalescing events (see
+     * {@link NonblockingEndpoint#requestCoalescingKey(RequestInfo)}). Can be null.
+     */
+    public NonblockingEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable MetricsListener metricsListener
+    ) {
+        this(
+            longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig,
+            new RequestCoalescer(metricsListener), TimeoutWheel.getDefaultInstance()
+        );
+    }
+
+    /**
+     * @param requestCoalescer The {@link RequestCoalescer} used to share in-flight executions between identical
+     * requests (see {@link NonblockingEndpoint#requestCoalescingKey(RequestInfo)}). Cannot be null. A new handler is
+     * created for every channel, so this should be shared by all the handlers for a server - otherwise only requests
+     * on the same connection could ever be coalesced, and HTTP/1.1 only processes one request per connection at a
+     * time.
+     * @param timeoutWheel The {@link TimeoutWheel} used to schedule the endpoint timeout checks. Cannot be null -
+     * pass in {@link TimeoutWheel#getDefaultInstance()} if you don't need a custom one.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public NonblockingEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @NotNull RequestCoalescer requestCoalescer,
+        @NotNull TimeoutWheel timeoutWheel
     ) {
         if (longRunningTaskExecutor == null) {
             throw new IllegalArgumentException("longRunningTaskExecutor cannot be null");
@@ -70,9 +114,19 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
             throw new IllegalArgumentException("distributedTracingConfig cannot be null");
         }
 
+        if (requestCoalescer == null) {
+            throw new IllegalArgumentException("requestCoalescer cannot be null");
+        }
+
+        if (timeoutWheel == null) {
+            throw new IllegalArgumentException("timeoutWheel cannot be null");
+        }
+
         this.longRunningTaskExecutor = longRunningTaskExecutor;
         this.defaultCompletableFutureTimeoutMillis = defaultCompletableFutureTimeoutMillis;
         this.spanTaggingStrategy = distributedTracingConfig.getServerSpanNamingAndTaggingStrategy();
+        this.requestCoalescer = requestCoalescer;
+        this.timeoutWheel = timeoutWheel;
     }
 
     protected boolean shouldHandleDoChannelReadMessage(Object msg, Endpoint<?> endpoint) {
@@ -90,84 +144,7 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
         if (shouldHandleDoChannelReadMessage(msg, endpoint)) {
             // We only do something when the last chunk of content has arrived.
             if (msg instanceof LastHttpContent) {
-                NonblockingEndpoint nonblockingEndpoint = ((NonblockingEndpoint) endpoint);
-
-                // We're supposed to execute the endpoint. There may be pre-endpoint-execution validation logic or
-                //      other work that needs to happen before the endpoint is executed, so set up the
-                //      CompletableFuture for the endpoint call to only execute if the pre-endpoint-execution
-                //      validation/work chain is successful.
-                RequestInfo<?> requestInfo = state.getRequestInfo();
-                Span endpointExecutionSpan = findEndpointExecutionSpan(state);
-
-                CompletableFuture<ResponseInfo<?>> responseFuture = state
-                    .getPreEndpointExecutionWorkChain()
-                    .thenCompose(
-                        doExecuteEndpointFunction(requestInfo, nonblockingEndpoint, endpointExecutionSpan, ctx)
-                    );
-
-                // Register an on-completion callback so we can be notified when the CompletableFuture finishes.
-                responseFuture.whenComplete((responseInfo, throwable) -> {
-                    // TODO: If something in the state.getPreEndpointExecutionWorkChain() CompletableFuture throws
-                    //      an exception before the doExecuteEndpointFunction() can run, then we'll have a situation
-                    //      where there's no endpoint.start annotation, but we do get endpoint.finish. This seems odd,
-                    //      but also seems to requires some annoying workarounds to prevent (passing some object into
-                    //      doExecuteEndpointFunction() to track whether the endpoint was executed, or putting a
-                    //      endpointWasExecuted variable into the HttpProcessingState, or etc. Do we care? Is it worth
-                    //      the extra hassle?
-
-                    // Add the endpoint.finish span annotation if desired. We have to do this here, because of
-                    //      annoying CompletableFuture reasons. See the javadocs for doExecuteEndpointFunction() for
-                    //      full details on why this needs to be done here.
-                    if (endpointExecutionSpan != null && spanTaggingStrategy.shouldAddEndpointFinishAnnotation()) {
-                        addEndpointFinishAnnotation(endpointExecutionSpan, spanTaggingStrategy);
-                    }
-
-                    // Kick off the response processing, depending on whether the result is an error or not.
-                    if (throwable != null)
-                        asyncErrorCallback(ctx, throwable);
-                    else
-                        asyncCallback(ctx, responseInfo);
-                });
-
-                // TODO: We might be able to put the timeout future in an if block in the case that the endpoint
-                //      returned an already-completed future (i.e. if responseFuture.isDone() returns true at this
-                //      point).
-
-                // Also schedule a timeout check with our Netty event loop to make sure we kill the
-                //      CompletableFuture if it goes on too long.
-                Long endpointTimeoutOverride = nonblockingEndpoint.completableFutureTimeoutOverrideMillis();
-                long timeoutValueToUse = (endpointTimeoutOverride == null)
-                                         ? defaultCompletableFutureTimeoutMillis
-                                         : endpointTimeoutOverride;
-                ScheduledFuture<?> responseTimeoutScheduledFuture = ctx.channel().eventLoop().schedule(() -> {
-                    if (!responseFuture.isDone()) {
-                        runnableWithTracingAndMdc(
-                            () -> logger.error("A non-blocking endpoint's CompletableFuture did not finish within "
-                                               + "the allotted timeout ({} milliseconds). Forcibly cancelling it.",
-                                               timeoutValueToUse), ctx
-                        ).run();
-                        @SuppressWarnings("unchecked")
-                        Throwable errorToUse = nonblockingEndpoint.getCustomTimeoutExceptionCause(requestInfo, ctx);
-                        if (errorToUse == null)
-                            errorToUse = new NonblockingEndpointCompletableFutureTimedOut(timeoutValueToUse);
-                        responseFuture.completeExceptionally(errorToUse);
-                    }
-                }, timeoutValueToUse, TimeUnit.MILLISECONDS);
-
-                /*
-                    The problem with the scheduled timeout check is that it holds on to the RequestInfo,
-                    ChannelHandlerContext, and a bunch of other stuff that *should* become garbage the instant the
-                    request finishes, but because of the timeout check it has to wait until the check executes
-                    before the garbage is collectible. In high volume servers the default 60 second timeout is way
-                    too long and acts like a memory leak and results in garbage collection thrashing if the
-                    available memory can be filled within the 60 second timeout. To combat this we cancel the
-                    timeout future when the endpoint future finishes. Netty will remove the cancelled timeout future
-                    from its scheduled list within a short time, thus letting the garbage be collected.
-                */
-                responseFuture.whenComplete((responseInfo, throwable) -> {
-                    if (!responseTimeoutScheduledFuture.isDone())
-                        responseTimeoutScheduledFuture.cancel(false);
-                });
+                executeEndpoint(ctx, state, (NonblockingEndpoint<?, ?>) endpoint);
             }
 
             // Whether it was the last chunk or not, we don't want the pipeline to continue since the endpoint was a
@@ -183,6 +160,121 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
         return PipelineContinuationBehavior.CONTINUE;
     }
 
+    /**
+     * Executes the given endpoint once the {@link HttpProcessingState#getPreEndpointExecutionWorkChain()} completes
+     * successfully, arranges for the pipeline to be notified when the endpoint's future finishes, and schedules the
+     * timeout check for it.
+     *
+     * @return The future that will be completed with the endpoint's response (or error).
+     */
+    protected CompletableFuture<ResponseInfo<?>> executeEndpoint(
+        ChannelHandlerContext ctx,
+        HttpProcessingState state,
+        NonblockingEndpoint<?, ?> nonblockingEndpoint
+    ) {
+        // We're supposed to execute the endpoint. There may be pre-endpoint-execution validation logic or
+        //      other work that needs to happen before the endpoint is executed, so set up the
+        //      CompletableFuture for the endpoint call to only execute if the pre-endpoint-execution
+        //      validation/work chain is successful.
+        RequestInfo<?> requestInfo = state.getRequestInfo();
+        Span endpointExecutionSpan = findEndpointExecutionSpan(state);
+
+        CompletableFuture<ResponseInfo<?>> responseFuture = state
+            .getPreEndpointExecutionWorkChain()
+            .thenCompose(
+                doExecuteEndpointFunction(requestInfo, nonblockingEndpoint, endpointExecutionSpan, ctx)
+            );
+
+        // Register an on-completion callback so we can be notified when the CompletableFuture finishes.
+        responseFuture.whenComplete((responseInfo, throwable) -> {
+            // TODO: If something in the state.getPreEndpointExecutionWorkChain() CompletableFuture throws
+            //      an exception before the doExecuteEndpointFunction() can run, then we'll have a situation
+            //      where there's no endpoint.start annotation, but we do get endpoint.finish. This seems odd,
+            //      but also seems to requires some annoying workarounds to prevent (passing some object into
+            //      doExecuteEndpointFunction() to track whether the endpoint was executed, or putting a
+            //      endpointWasExecuted variable into the HttpProcessingState, or etc. Do we care? Is it worth
+            //      the extra hassle?
+
+            // Add the endpoint.finish span annotation if desired. We have to do this here, because of
+            //      annoying CompletableFuture reasons. See the javadocs for doExecuteEndpointFunction() for
+            //      full details on why this needs to be done here.
+            if (endpointExecutionSpan != null && spanTaggingStrategy.shouldAddEndpointFinishAnnotation()) {
+                addEndpointFinishAnnotation(endpointExecutionSpan, spanTaggingStrategy);
+            }
+
+            // Kick off the response processing, depending on whether the result is an error or not.
+            if (throwable != null)
+                asyncErrorCallback(ctx, throwable);
+            else
+                asyncCallback(ctx, responseInfo);
+        });
+
+        // If the endpoint returned an already-completed future (very common for cached or trivial
+        //      endpoints) then there's nothing to time out, so skip the timeout registration entirely.
+        if (!responseFuture.isDone()) {
+            scheduleResponseTimeout(ctx, state, nonblockingEndpoint, requestInfo, responseFuture);
+        }
+
+        return responseFuture;
+    }
+
+    /**
+     * Schedules a timeout check on the {@link #timeoutWheel} to make sure we kill the given response future if it goes
+     * on too long, and cancels the check when the response future finishes.
+     */
+    protected void scheduleResponseTimeout(
+        ChannelHandlerContext ctx,
+        HttpProcessingState state,
+        NonblockingEndpoint<?, ?> nonblockingEndpoint,
+        RequestInfo<?> requestInfo,
+        CompletableFuture<ResponseInfo<?>> responseFuture
+    ) {
+        Long endpointTimeoutOverride = nonblockingEndpoint.completableFutureTimeoutOverrideMillis();
+        long configuredTimeoutMillis = (endpointTimeoutOverride == null)
+                                       ? defaultCompletableFutureTimeoutMillis
+                                       : endpointTimeoutOverride;
+        // If the caller sent a deadline then don't wait any longer than the caller is willing to wait.
+        RequestDeadline requestDeadline = state.getRequestDeadline();
+        long timeoutValueToUse = (requestDeadline == null)
+                                 ? configuredTimeoutMillis
+                                 : Math.max(0, requestDeadline.clampTimeoutMillis(configuredTimeoutMillis));
+        boolean timeoutIsDueToRequestDeadline = (timeoutValueToUse < configuredTimeoutMillis);
+        Timeout responseTimeout = timeoutWheel.schedule(ctx.channel().eventLoop(), () -> {
+            if (!responseFuture.isDone()) {
+                runnableWithTracingAndMdc(
+                    () -> logger.error("A non-blocking endpoint's CompletableFuture did not finish within "
+                                       + "the allotted timeout ({} milliseconds). Forcibly cancelling it.",
+                                       timeoutValueToUse), ctx
+                ).run();
+                @SuppressWarnings("unchecked")
+                Throwable errorToUse = ((NonblockingEndpoint<Object, ?>) nonblockingEndpoint)
+                    .getCustomTimeoutExceptionCause((RequestInfo<Object>) requestInfo, ctx);
+                if (errorToUse == null) {
+                    //noinspection ConstantConditions
+                    errorToUse = (timeoutIsDueToRequestDeadline)
+                                 ? createRequestDeadlineExceededException(requestDeadline)
+                                 : new NonblockingEndpointCompletableFutureTimedOut(timeoutValueToUse);
+                }
+                responseFuture.completeExceptionally(errorToUse);
+            }
+        }, timeoutValueToUse, TimeUnit.MILLISECONDS);
+
+        /*
+            The problem with the scheduled timeout check is that it holds on to the RequestInfo,
+            ChannelHandlerContext, and a bunch of other stuff that *should* become garbage the instant the
+            request finishes, but because of the timeout check it has to wait until the check executes
+            before the garbage is collectible. In high volume servers the default 60 second timeout is way
+            too long and acts like a memory leak and results in garbage collection thrashing if the
+            available memory can be filled within the 60 second timeout. To combat this we cancel the
+            timeout when the endpoint future finishes, which removes it from the timer wheel on the wheel's
+            next tick, thus letting the garbage be collected.
+        */
+        responseFuture.whenComplete((responseInfo, throwable) -> {
+            if (!responseTimeout.isExpired())
+                responseTimeout.cancel();
+        });
+    }
+
     protected @Nullable Span findEndpointExecutionSpan(@NotNull HttpProcessingState state) {
         Deque<Span> spanStack = state.getDistributedTraceStack();
         return (spanStack == null) ? null : spanStack.peek();
@@ -241,10 +333,23 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
                     logger.error("Unexpected error while annotating Span with endpoint start timestamp.", t);
                 }
 
-                // Kick off the endpoint execution.
-                //noinspection unchecked
-                CompletableFuture<ResponseInfo<?>> executionResult = nonblockingEndpoint.execute(
-                    requestInfo, longRunningTaskExecutor, ctx
+                // Don't bother executing the endpoint if the caller's deadline passed while we were getting here
+                //      (e.g. while waiting on security validation).
+                RequestDeadline requestDeadline =
+                    ChannelAttributes.getHttpProcessingStateForChannel(ctx).get().getRequestDeadline();
+                if (requestDeadline != null && requestDeadline.calculateRemainingMillis() <= 0) {
+                    throw createRequestDeadlineExceededException(requestDeadline);
+                }
+
+                // Kick off the endpoint execution - or if the endpoint supports request coalescing, join any
+                //      identical request that is already executing.
+                //      Work the endpoint submits to the long running task executor is queued according to the
+                //      endpoint's priority.
+                Executor endpointExecutor = InstrumentedThreadPoolExecutor.prioritized(
+                    longRunningTaskExecutor, nonblockingEndpoint.priority()
+                );
+                CompletableFuture<ResponseInfo<?>> executionResult = executeOrJoinCoalescedExecution(
+                    nonblockingEndpoint, requestInfo, endpointExecutor, ctx
                 );
 
                 //noinspection ConstantConditions
@@ -258,6 +363,42 @@ public class NonblockingEndpointExecutionHandler extends BaseInboundHandlerWithT
         );
     }
 
+    /**
+     * Calls {@link NonblockingEndpoint#execute(RequestInfo, Executor, ChannelHandlerContext)} on the given endpoint -
+     * or if the endpoint supports request coalescing (see {@link
+     * NonblockingEndpoint#requestCoalescingKey(RequestInfo)}) joins any identical request that is already executing.
+     * The unchecked casts are safe: the request's content was deserialized to the endpoint's input type by {@link
+     * RequestContentDeserializerHandler}, and the endpoint's future is only ever read as a future of some {@link
+     * ResponseInfo}.
+     */
+    @SuppressWarnings("unchecked")
+    protected @NotNull CompletableFuture<ResponseInfo<?>> executeOrJoinCoalescedExecution(
+        @NotNull NonblockingEndpoint<?, ?> nonblockingEndpoint,
+        @NotNull RequestInfo<?> requestInfo,
+        @NotNull Executor endpointExecutor,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        NonblockingEndpoint<Object, ?> endpoint = (NonblockingEndpoint<Object, ?>) nonblockingEndpoint;
+        RequestInfo<Object> request = (RequestInfo<Object>) requestInfo;
+        Supplier<CompletableFuture<ResponseInfo<?>>> execution =
+            () -> (CompletableFuture<ResponseInfo<?>>) (CompletableFuture<?>) endpoint.execute(
+                request, endpointExecutor, ctx
+            );
+
+        String coalescingKey = endpoint.requestCoalescingKey(request);
+        return (coalescingKey == null)
+               ? execution.get()
+               : requestCoalescer.execute(endpoint, coalescingKey, execution);
+    }
+
+    protected RequestDeadlineExceededException createRequestDeadlineExceededException(
+        @NotNull RequestDeadline requestDeadline
+    ) {
+        return new RequestDeadlineExceededException(
+            requestDeadline.budgetMillis, Math.max(0, -requestDeadline.calculateRemainingMillis())
+        );
+    }
+
     protected void addEndpointFinishAnnotation(Span span, ServerSpanNamingAndTaggingStrategy<Span> strategy) {
         // Don't allow the annotation addition to cause the endpoint execution future to fail if it
         //      fails, by surrounding with try/catch. This should never actually happen, but better
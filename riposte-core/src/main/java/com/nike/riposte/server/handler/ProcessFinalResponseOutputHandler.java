@@ -7,8 +7,10 @@ import com.nike.riposte.server.http.ResponseInfo;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.stream.ChunkedInput;
 
 /**
  * Monitors outgoing messages to capture the final state of the outgoing response before it is sent. This is used to
@@ -38,12 +40,20 @@ public class ProcessFinalResponseOutputHandler extends ChannelOutboundHandlerAda
                 state.setActualResponseObject((HttpResponse) msg);
         }
 
-        // Deal with the final outbound body content
-        if (msg instanceof HttpContent) {
+        // Deal with the final outbound body content. File-backed responses send their body as a FileRegion or a
+        //      ChunkedInput rather than HttpContent.
+        long contentBytes = -1;
+        if (msg instanceof HttpContent)
+            contentBytes = ((HttpContent) msg).content().readableBytes();
+        else if (msg instanceof FileRegion)
+            contentBytes = ((FileRegion) msg).count();
+        else if (msg instanceof ChunkedInput)
+            contentBytes = ((ChunkedInput<?>) msg).length();
+
+        if (contentBytes >= 0) {
             HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
             if (state != null && state.getResponseInfo() != null) {
                 ResponseInfo<?> responseInfo = state.getResponseInfo();
-                long contentBytes = ((HttpContent) msg).content().readableBytes();
                 if (responseInfo.getFinalContentLength() == null)
                     responseInfo.setFinalContentLength(contentBytes);
                 else
@@ -12,7 +12,10 @@ import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendLastContentChunk;
 import com.nike.riposte.server.channelpipeline.message.OutboundMessageSendContentChunk;
 import com.nike.riposte.server.channelpipeline.message.OutboundMessageSendHeadersChunkFromResponseInfo;
+import com.nike.riposte.server.concurrency.TimeoutWheel;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
+import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut;
+import com.nike.riposte.server.error.exception.RequestDeadlineExceededException;
 import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
@@ -20,11 +23,13 @@ import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterEndpoint;
 import com.nike.riposte.server.http.ProxyRouterEndpoint.DownstreamRequestFirstChunkInfo;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.impl.RiposteInternalRequestInfo;
 import com.nike.riposte.util.AsyncNettyHelper;
 import com.nike.riposte.util.HttpUtils;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 import com.nike.wingtips.Span;
 
 import org.slf4j.Logger;
@@ -37,6 +42,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
@@ -48,6 +54,7 @@ import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.Attribute;
+import io.netty.util.Timeout;
 import io.netty.util.concurrent.EventExecutor;
 
 import static com.nike.fastbreak.CircuitBreakerForHttpStatusCode.getDefaultHttpStatusCodeCircuitBreakerForKey;
@@ -71,6 +78,7 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
     private final StreamingAsyncHttpClient streamingAsyncHttpClient;
     private final long defaultCompletableFutureTimeoutMillis;
     private final DistributedTracingConfig<Span> distributedTracingConfig;
+    private final TimeoutWheel timeoutWheel;
 
     public static final String DOWNSTREAM_CALL_TIME_NANOS_REQUEST_ATTR_KEY = "proxyRouterDownstreamCallTimeNanos";
     public static final String DOWNSTREAM_CALL_PATH_REQUEST_ATTR_KEY = "proxyRouterDownstreamCallPath";
@@ -82,11 +90,23 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
         StreamingAsyncHttpClient streamingAsyncHttpClient,
         long defaultCompletableFutureTimeoutMillis,
         DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(longRunningTaskExecutor, streamingAsyncHttpClient, defaultCompletableFutureTimeoutMillis,
+             distributedTracingConfig, TimeoutWheel.getDefaultInstance());
+    }
+
+    public ProxyRouterEndpointExecutionHandler(
+        Executor longRunningTaskExecutor,
+        StreamingAsyncHttpClient streamingAsyncHttpClient,
+        long defaultCompletableFutureTimeoutMillis,
+        DistributedTracingConfig<Span> distributedTracingConfig,
+        TimeoutWheel timeoutWheel
     ) {
         this.longRunningTaskExecutor = longRunningTaskExecutor;
         this.streamingAsyncHttpClient = streamingAsyncHttpClient;
         this.defaultCompletableFutureTimeoutMillis = defaultCompletableFutureTimeoutMillis;
         this.distributedTracingConfig = distributedTracingConfig;
+        this.timeoutWheel = timeoutWheel;
     }
 
     protected ProxyRouterProcessingState getOrCreateProxyRouterProcessingState(ChannelHandlerContext ctx) {
@@ -134,8 +154,18 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                 CompletableFuture<DownstreamRequestFirstChunkInfo> firstChunkFuture =
                     state.getPreEndpointExecutionWorkChain()
                          .thenCompose(functionWithTracingAndMdc(
-                             aVoid -> endpointProxyRouter
-                                 .getDownstreamRequestFirstChunkInfo(requestInfo, longRunningTaskExecutor, ctx),
+                             aVoid -> {
+                                 // Don't bother calling downstream if the caller's deadline passed while we were
+                                 //      getting here (e.g. while waiting on security validation).
+                                 throwIfRequestDeadlineExceeded(state.getRequestDeadline());
+                                 return endpointProxyRouter.getDownstreamRequestFirstChunkInfo(
+                                     requestInfo,
+                                     InstrumentedThreadPoolExecutor.prioritized(
+                                         longRunningTaskExecutor, endpointProxyRouter.priority()
+                                     ),
+                                     ctx
+                                 );
+                             },
                              ctx)
                          );
 
@@ -144,6 +174,17 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                                              ? defaultCompletableFutureTimeoutMillis
                                              : endpointTimeoutOverride;
 
+                // Don't let the pre-endpoint-execution work or the endpoint's first chunk info hang the request
+                //      forever. Most proxy endpoints return an already-completed future, in which case there's
+                //      nothing to time out and we can skip the timeout registration entirely.
+                if (!firstChunkFuture.isDone()) {
+                    scheduleFirstChunkTimeout(
+                        ctx, firstChunkFuture,
+                        clampTimeoutToRequestDeadline(callTimeoutValueToUse, state.getRequestDeadline()),
+                        state.getRequestDeadline()
+                    );
+                }
+
                 // When the first chunk is ready, stream it downstream and set up what happens afterward.
                 firstChunkFuture.whenComplete((downstreamRequestFirstChunkInfo, throwable) -> {
 
@@ -204,10 +245,15 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
                                 // Setup the streaming channel future with everything it needs to kick off the
                                 //      downstream request.
                                 proxyRouterState.setStreamingStartTimeNanos(System.nanoTime());
+                                // If the caller sent a deadline then don't wait on the downstream call any longer
+                                //      than the caller is willing to wait.
+                                long downstreamCallTimeoutMillis = clampTimeoutToRequestDeadline(
+                                    callTimeoutValueToUse, state.getRequestDeadline()
+                                );
                                 CompletableFuture<StreamingChannel> streamingChannel =
                                     streamingAsyncHttpClient.streamDownstreamCall(
                                         downstreamHost, downstreamPort, downstreamRequestFirstChunk, isSecureHttpsCall,
-                                        relaxedHttpsValidation, callback, callTimeoutValueToUse,
+                                        relaxedHttpsValidation, callback, downstreamCallTimeoutMillis,
                                             performSubSpanAroundDownstreamCall, addTracingHeadersToDownstreamCall,
                                             proxyRouterState, requestInfo,
                                             ctx
@@ -438,6 +484,55 @@ public class ProxyRouterEndpointExecutionHandler extends BaseInboundHandlerWithT
         return false;
     }
 
+    protected void scheduleFirstChunkTimeout(
+        ChannelHandlerContext ctx,
+        CompletableFuture<DownstreamRequestFirstChunkInfo> firstChunkFuture,
+        long timeoutMillis,
+        RequestDeadline requestDeadline
+    ) {
+        Timeout firstChunkTimeout = timeoutWheel.schedule(ctx.channel().eventLoop(), () -> {
+            if (!firstChunkFuture.isDone()) {
+                runnableWithTracingAndMdc(
+                    () -> logger.error("A proxy router endpoint's first chunk info did not finish within the allotted "
+                                       + "timeout ({} milliseconds). Forcibly cancelling it.", timeoutMillis),
+                    ctx
+                ).run();
+                long deadlineRemainingMillis = (requestDeadline == null)
+                                               ? Long.MAX_VALUE
+                                               : requestDeadline.calculateRemainingMillis();
+                Throwable errorToUse = (deadlineRemainingMillis <= 0)
+                                       ? new RequestDeadlineExceededException(
+                                           requestDeadline.budgetMillis, -deadlineRemainingMillis
+                                       )
+                                       : new NonblockingEndpointCompletableFutureTimedOut(timeoutMillis);
+                firstChunkFuture.completeExceptionally(errorToUse);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+        // Cancel the timeout as soon as the first chunk info is ready so that it doesn't hold on to the request's
+        //      objects until the timeout would have fired.
+        firstChunkFuture.whenComplete((firstChunkInfo, throwable) -> {
+            if (!firstChunkTimeout.isExpired())
+                firstChunkTimeout.cancel();
+        });
+    }
+
+    protected void throwIfRequestDeadlineExceeded(RequestDeadline requestDeadline) {
+        if (requestDeadline == null)
+            return;
+
+        long remainingMillis = requestDeadline.calculateRemainingMillis();
+        if (remainingMillis <= 0)
+            throw new RequestDeadlineExceededException(requestDeadline.budgetMillis, -remainingMillis);
+    }
+
+    protected long clampTimeoutToRequestDeadline(long timeoutMillis, RequestDeadline requestDeadline) {
+        if (requestDeadline == null)
+            return timeoutMillis;
+
+        return requestDeadline.clampDownstreamCallTimeoutMillis(timeoutMillis);
+    }
+
     protected Throwable unwrapAsyncExceptions(Throwable error) {
         if (error == null || error.getCause() == null)
             return error;
@@ -4,17 +4,24 @@ import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
 import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.ContentCodec;
+import com.nike.riposte.server.http.ContentCodecNegotiator;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.util.ObjectReaderWriterCache;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.LastHttpContent;
 
 /**
@@ -24,7 +31,9 @@ import io.netty.handler.codec.http.LastHttpContent;
  * appropriate arguments so that {@link RequestInfo#getContent()} is populated for future handlers in the pipeline. If
  * deserialization fails then a {@link RequestContentDeserializationException} will be thrown. This handler will use
  * {@link Endpoint#customRequestContentDeserializer(RequestInfo)} if the endpoint returns one, otherwise it will use
- * {@link #defaultRequestContentDeserializer}.
+ * {@link #defaultRequestContentDeserializer}. If the request's Content-Type matches one of the {@link ContentCodec}s in
+ * the given {@link ContentCodecNegotiator} then {@link RequestInfo#setupContentCodec(ContentCodec, TypeReference)} is
+ * called with that codec instead, regardless of the endpoint's custom deserializer.
  * <p/>
  * This must come after {@link com.nike.riposte.server.handler.RequestInfoSetterHandler} and {@link
  * com.nike.riposte.server.handler.RoutingHandler} in the pipeline to make sure that the {@link
@@ -38,16 +47,60 @@ public class RequestContentDeserializerHandler extends BaseInboundHandlerWithTra
     @SuppressWarnings("FieldCanBeLocal")
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    // Shared by every handler that isn't given a default deserializer so that the ObjectReaders cached for it by
+    //      ObjectReaderWriterCache are reused across channels rather than rebuilt for each new channel's mapper.
+    private static final ObjectMapper FALLBACK_REQUEST_CONTENT_DESERIALIZER = new ObjectMapper();
+
     private final ObjectMapper defaultRequestContentDeserializer;
+    private final ContentCodecNegotiator contentCodecNegotiator;
 
     public RequestContentDeserializerHandler(ObjectMapper defaultRequestContentDeserializer) {
+        this(defaultRequestContentDeserializer, null);
+    }
+
+    /**
+     * @param contentCodecNegotiator Picks the {@link ContentCodec} for requests whose Content-Type isn't JSON. Can be
+     * null if the server has no {@link com.nike.riposte.server.config.ServerConfig#contentCodecs()}.
+     */
+    public RequestContentDeserializerHandler(
+        ObjectMapper defaultRequestContentDeserializer, ContentCodecNegotiator contentCodecNegotiator
+    ) {
         if (defaultRequestContentDeserializer == null) {
-            logger.debug( "No defaultRequestContentDeserializer specified - using a new no-arg ObjectMapper as the "
+            logger.debug( "No defaultRequestContentDeserializer specified - using a no-arg ObjectMapper as the "
                           + "default request deserializer");
-            defaultRequestContentDeserializer = new ObjectMapper();
+            defaultRequestContentDeserializer = FALLBACK_REQUEST_CONTENT_DESERIALIZER;
         }
 
         this.defaultRequestContentDeserializer = defaultRequestContentDeserializer;
+        this.contentCodecNegotiator = contentCodecNegotiator;
+    }
+
+    /**
+     * Resolves and caches (via {@link ObjectReaderWriterCache#getDefaultInstance()}) the {@link
+     * com.fasterxml.jackson.databind.ObjectReader} for each of the given endpoints' {@link
+     * Endpoint#requestContentType()} up front, so that the first request to each endpoint doesn't pay for it. Endpoints
+     * with a {@link Endpoint#customRequestContentDeserializer(RequestInfo)} get their reader cached on first use
+     * instead, since the custom deserializer can depend on the request.
+     *
+     * @param endpoints The endpoints to preload readers for. Can be null.
+     * @param defaultRequestContentDeserializer The default deserializer that will be passed to this class' constructor.
+     * Can be null, in which case the same fallback mapper the constructor uses is used here.
+     */
+    public static void preloadRequestContentReaders(
+        Collection<Endpoint<?>> endpoints, ObjectMapper defaultRequestContentDeserializer
+    ) {
+        if (endpoints == null)
+            return;
+
+        ObjectMapper deserializer = (defaultRequestContentDeserializer == null)
+                                    ? FALLBACK_REQUEST_CONTENT_DESERIALIZER
+                                    : defaultRequestContentDeserializer;
+
+        for (Endpoint<?> endpoint : endpoints) {
+            TypeReference<?> contentTypeRef = endpoint.requestContentType();
+            if (contentTypeRef != null)
+                ObjectReaderWriterCache.getDefaultInstance().readerFor(deserializer, contentTypeRef);
+        }
     }
 
     @Override
@@ -63,12 +116,23 @@ public class RequestContentDeserializerHandler extends BaseInboundHandlerWithTra
                 if (contentTypeRef != null) {
                     // A non-null TypeReference is available, so deserialization is possible. Retrieve the appropriate
                     //      deserializer and setup the RequestInfo so that it can lazily deserialize when requested.
-                    ObjectMapper deserializer = endpoint.customRequestContentDeserializer(reqInfo);
-                    if (deserializer == null)
-                        deserializer = defaultRequestContentDeserializer;
+                    ContentCodec codec = (contentCodecNegotiator == null)
+                                         ? null
+                                         : contentCodecNegotiator.codecForContentType(
+                                             reqInfo.getHeaders().get(HttpHeaderNames.CONTENT_TYPE)
+                                         );
+                    if (codec != null) {
+                        // The content is in a format a JSON mapper can't read, so the codec wins.
+                        setupContentCodec(reqInfo, codec, contentTypeRef);
+                    }
+                    else {
+                        ObjectMapper deserializer = endpoint.customRequestContentDeserializer(reqInfo);
+                        if (deserializer == null)
+                            deserializer = defaultRequestContentDeserializer;
 
-                    //noinspection unchecked
-                    reqInfo.setupContentDeserializer(deserializer, contentTypeRef);
+                        //noinspection unchecked
+                        reqInfo.setupContentDeserializer(deserializer, contentTypeRef);
+                    }
                 }
             }
         }
@@ -76,6 +140,18 @@ public class RequestContentDeserializerHandler extends BaseInboundHandlerWithTra
         return PipelineContinuationBehavior.CONTINUE;
     }
 
+    /**
+     * Calls {@link RequestInfo#setupContentCodec(ContentCodec, TypeReference)} on the given request. The given type is
+     * the endpoint's {@link Endpoint#requestContentType()}, i.e. the type the request's content is meant to be
+     * deserialized to, so the unchecked cast is safe.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> void setupContentCodec(
+        @NotNull RequestInfo<?> reqInfo, @NotNull ContentCodec codec, @NotNull TypeReference<T> contentTypeRef
+    ) {
+        ((RequestInfo<T>) reqInfo).setupContentCodec(codec, contentTypeRef);
+    }
+
     @Override
     protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
         HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
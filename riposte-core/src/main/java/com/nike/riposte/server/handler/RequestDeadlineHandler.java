@@ -0,0 +1,90 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.error.exception.RequestDeadlineExceededException;
+import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Reads the caller's remaining budget for each new request from the {@link RequestDeadlineConfig#inboundHeaderName()}
+ * header and stores the resulting absolute deadline on the request's {@link HttpProcessingState} as a {@link
+ * RequestDeadline}, where it's used to clamp endpoint timeouts and is propagated to downstream calls. If the deadline
+ * has already passed then a {@link RequestDeadlineExceededException} (which maps to a 503) is thrown so that no
+ * further work is done for the request. Requests without the header, or with a value that isn't a number, are left
+ * alone. See {@link
+ * com.nike.riposte.server.config.ServerConfig#requestDeadlineConfig()} for details.
+ * <p/>
+ * This handler should come after {@link AccessLogStartHandler} (the deadline is calculated relative to when the
+ * request was decoded so that any time spent waiting in Netty's queues counts against it) but before any security
+ * validation or endpoint work is done.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestDeadlineHandler extends BaseInboundHandlerWithTracingAndMdcSupport {
+
+    // Budgets are capped so that nonsensically large header values can't overflow the System.nanoTime() math.
+    protected static final long MAX_BUDGET_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    protected final String inboundHeaderName;
+    protected final String outboundHeaderName;
+
+    public RequestDeadlineHandler(RequestDeadlineConfig requestDeadlineConfig) {
+        if (requestDeadlineConfig == null)
+            throw new IllegalArgumentException("requestDeadlineConfig cannot be null");
+
+        this.inboundHeaderName = requestDeadlineConfig.inboundHeaderName();
+        this.outboundHeaderName = requestDeadlineConfig.outboundHeaderName();
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest) {
+            Long budgetMillis = parseBudgetMillis(((HttpRequest) msg).headers().get(inboundHeaderName));
+            if (budgetMillis == null)
+                return PipelineContinuationBehavior.CONTINUE;
+
+            HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+            Long requestStartTimeNanos = state.getRequestStartTimeNanos();
+            long startNanos = (requestStartTimeNanos == null) ? System.nanoTime() : requestStartTimeNanos;
+            long cappedBudgetMillis = Math.max(-MAX_BUDGET_MILLIS, Math.min(budgetMillis, MAX_BUDGET_MILLIS));
+            RequestDeadline deadline = new RequestDeadline(
+                budgetMillis, startNanos + TimeUnit.MILLISECONDS.toNanos(cappedBudgetMillis), outboundHeaderName
+            );
+            state.setRequestDeadline(deadline);
+
+            long remainingMillis = deadline.calculateRemainingMillis();
+            if (remainingMillis <= 0)
+                throw new RequestDeadlineExceededException(budgetMillis, -remainingMillis);
+        }
+
+        return PipelineContinuationBehavior.CONTINUE;
+    }
+
+    protected Long parseBudgetMillis(String headerValue) {
+        if (headerValue == null)
+            return null;
+
+        try {
+            return Long.parseLong(headerValue.trim());
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    protected boolean argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+        HandlerMethodToExecute methodToExecute, ChannelHandlerContext ctx, Object msgOrEvt, Throwable cause
+    ) {
+        // This class does not log, and nothing that happens in this class should cause logging to happen elsewhere.
+        //      Therefore we should never bother with linking/unlinking tracing info to save on the extra processing.
+        return false;
+    }
+}
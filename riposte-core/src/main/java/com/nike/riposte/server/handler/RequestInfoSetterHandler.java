@@ -1,19 +1,31 @@
 package com.nike.riposte.server.handler;
 
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.concurrency.RequestBodyMemoryBudget;
+import com.nike.riposte.server.config.ServerConfig.RequestContentSpillConfig;
+import com.nike.riposte.server.config.ServerConfig.StreamingMultipartConfig;
 import com.nike.riposte.server.error.exception.RequestTooBigException;
 import com.nike.riposte.server.handler.base.BaseInboundHandlerWithTracingAndMdcSupport;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.ProxyRouterEndpoint;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.StreamingRequestEndpoint;
 import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.server.http.impl.RiposteInternalRequestInfo;
 
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.ReferenceCountUtil;
 
 import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
@@ -31,6 +43,23 @@ import static com.nike.riposte.util.HttpUtils.isMaxRequestSizeValidationDisabled
  *
  * The request size is tracked and if it exceeds the configured global or a given endpoint's override, an exception
  * will be thrown.
+ * <p/>
+ * If a {@link RequestContentSpillConfig} is given then each new {@link RequestInfo} is told to spill its content to a
+ * temp file once the content grows past the configured threshold (see {@link
+ * RiposteInternalRequestInfo#spillContentToDiskPastThreshold(long, java.nio.file.Path)}). Similarly if a {@link
+ * StreamingMultipartConfig} is given then each new {@link RequestInfo} is told to decode multipart content as it
+ * arrives (see {@link RiposteInternalRequestInfo#decodeMultipartContentAsItArrives(long, java.nio.file.Path)}).
+ * <p/>
+ * If a spill write executor is also given then the temp file is written on that executor instead of the Netty worker
+ * thread (see {@link RiposteInternalRequestInfo#spillContentToDiskPastThreshold(long, java.nio.file.Path,
+ * Executor)}). Reading from the caller is paused while a write is pending, and once the last chunk arrives the endpoint
+ * is held back until the writes are done (see {@link
+ * HttpProcessingState#addPreEndpointExecutionWorkChainSegment(java.util.function.Function)}).
+ * <p/>
+ * If a {@link RequestBodyMemoryBudget} is given then each buffered content chunk is counted against it, and reading
+ * from the caller is paused while the budget is used up (see {@link
+ * RequestBodyMemoryBudget.Reservation#pauseReadingUntilBudgetAvailable(ChannelHandlerContext)}). Content for {@link
+ * ProxyRouterEndpoint}s and {@link StreamingRequestEndpoint}s isn't buffered, so it isn't counted.
  *
  * @author Nic Munroe
  */
@@ -41,9 +70,54 @@ public class RequestInfoSetterHandler extends BaseInboundHandlerWithTracingAndMd
 
     protected final RiposteHandlerInternalUtil handlerUtils = RiposteHandlerInternalUtil.DEFAULT_IMPL;
     protected final int globalConfiguredMaxRequestSizeInBytes;
+    protected final @Nullable RequestContentSpillConfig requestContentSpillConfig;
+    protected final @Nullable StreamingMultipartConfig streamingMultipartConfig;
+    protected final @Nullable RequestBodyMemoryBudget requestBodyMemoryBudget;
+    protected final @Nullable Executor spillWriteExecutor;
 
     public RequestInfoSetterHandler(int globalConfiguredMaxRequestSizeInBytes) {
+        this(globalConfiguredMaxRequestSizeInBytes, null, null, null);
+    }
+
+    /**
+     * Same as the 5-arg constructor with a null spill write executor, i.e. spilled content is written to the temp file
+     * on the Netty worker thread.
+     */
+    public RequestInfoSetterHandler(
+        int globalConfiguredMaxRequestSizeInBytes,
+        @Nullable RequestContentSpillConfig requestContentSpillConfig,
+        @Nullable StreamingMultipartConfig streamingMultipartConfig,
+        @Nullable RequestBodyMemoryBudget requestBodyMemoryBudget
+    ) {
+        this(
+            globalConfiguredMaxRequestSizeInBytes, requestContentSpillConfig, streamingMultipartConfig,
+            requestBodyMemoryBudget, null
+        );
+    }
+
+    /**
+     * @param requestContentSpillConfig The {@link RequestContentSpillConfig} describing when request content should be
+     * spilled to a temp file, or null if request content should always be kept in memory.
+     * @param streamingMultipartConfig The {@link StreamingMultipartConfig} describing how multipart content should be
+     * decoded as it arrives, or null if multipart content should only be decoded once it has all arrived.
+     * @param requestBodyMemoryBudget The {@link RequestBodyMemoryBudget} that buffered content chunks should be
+     * counted against, or null if there's no server-wide limit on buffered content.
+     * @param spillWriteExecutor The executor to write spilled request content on (usually the server's long running
+     * task executor), or null to write it on the Netty worker thread. Ignored if {@code requestContentSpillConfig} is
+     * null.
+     */
+    public RequestInfoSetterHandler(
+        int globalConfiguredMaxRequestSizeInBytes,
+        @Nullable RequestContentSpillConfig requestContentSpillConfig,
+        @Nullable StreamingMultipartConfig streamingMultipartConfig,
+        @Nullable RequestBodyMemoryBudget requestBodyMemoryBudget,
+        @Nullable Executor spillWriteExecutor
+    ) {
         this.globalConfiguredMaxRequestSizeInBytes = globalConfiguredMaxRequestSizeInBytes;
+        this.requestContentSpillConfig = requestContentSpillConfig;
+        this.streamingMultipartConfig = streamingMultipartConfig;
+        this.requestBodyMemoryBudget = requestBodyMemoryBudget;
+        this.spillWriteExecutor = spillWriteExecutor;
     }
 
     @Override
@@ -73,6 +147,26 @@ public class RequestInfoSetterHandler extends BaseInboundHandlerWithTracingAndMd
                 //      error). But if it *is* invalid, we want to throw an exception here to immediately invoke
                 //      error handling behavior.
                 handlerUtils.throwExceptionIfNotSuccessfullyDecoded((HttpRequest) msg);
+
+                RequestInfo<?> requestInfo = state.getRequestInfo();
+                if (requestInfo instanceof RiposteInternalRequestInfo) {
+                    RiposteInternalRequestInfo internalRequestInfo = (RiposteInternalRequestInfo) requestInfo;
+                    // Multipart decoding is set up first so that multipart content is decoded as it arrives rather
+                    //      than being spilled to disk.
+                    if (streamingMultipartConfig != null) {
+                        internalRequestInfo.decodeMultipartContentAsItArrives(
+                            streamingMultipartConfig.minSizeForDiskBytes(), streamingMultipartConfig.tempDirectory()
+                        );
+                    }
+
+                    if (requestContentSpillConfig != null) {
+                        internalRequestInfo.spillContentToDiskPastThreshold(
+                            requestContentSpillConfig.inMemoryThresholdBytes(),
+                            requestContentSpillConfig.tempDirectory(),
+                            spillWriteExecutor
+                        );
+                    }
+                }
             }
             else if (msg instanceof HttpContent) {
                 HttpContent httpContentMsg = (HttpContent) msg;
@@ -86,6 +180,9 @@ public class RequestInfoSetterHandler extends BaseInboundHandlerWithTracingAndMd
                     );
                 }
 
+                // Grab the chunk size before adding it - the RequestInfo may consume the chunk's content (e.g. when
+                //      decoding multipart content as it arrives).
+                int chunkSizeInBytes = httpContentMsg.content().readableBytes();
                 int currentRequestLengthInBytes = requestInfo.addContentChunk(httpContentMsg);
                 int configuredMaxRequestSize = getConfiguredMaxRequestSize(
                     state.getEndpointForExecution(), globalConfiguredMaxRequestSizeInBytes
@@ -98,6 +195,16 @@ public class RequestInfoSetterHandler extends BaseInboundHandlerWithTracingAndMd
                         + configuredMaxRequestSize
                     );
                 }
+
+                if (requestBodyMemoryBudget != null)
+                    reserveRequestBodyMemory(ctx, state, chunkSizeInBytes, httpContentMsg instanceof LastHttpContent);
+
+                if (requestContentSpillConfig != null && spillWriteExecutor != null
+                    && requestInfo instanceof RiposteInternalRequestInfo) {
+                    waitForPendingSpillFileWrites(
+                        ctx, state, (RiposteInternalRequestInfo) requestInfo, httpContentMsg instanceof LastHttpContent
+                    );
+                }
             }
 
             return PipelineContinuationBehavior.CONTINUE;
@@ -111,6 +218,77 @@ public class RequestInfoSetterHandler extends BaseInboundHandlerWithTracingAndMd
         }
     }
 
+    /**
+     * Counts a content chunk of the given size against the {@link #requestBodyMemoryBudget}, and pauses reading from
+     * the caller if that uses up the budget. There's no point pausing on the last chunk since there's nothing left to
+     * read.
+     */
+    protected void reserveRequestBodyMemory(
+        ChannelHandlerContext ctx, HttpProcessingState state, int chunkSizeInBytes, boolean isLastChunk
+    ) {
+        Endpoint<?> endpoint = state.getEndpointForExecution();
+        if (endpoint instanceof ProxyRouterEndpoint || endpoint instanceof StreamingRequestEndpoint)
+            return;
+
+        RequestBodyMemoryBudget.Reservation reservation = state.getRequestBodyMemoryReservation();
+        if (reservation == null) {
+            //noinspection ConstantConditions
+            reservation = requestBodyMemoryBudget.newReservation();
+            state.setRequestBodyMemoryReservation(reservation);
+        }
+
+        boolean withinBudget = reservation.reserve(chunkSizeInBytes);
+        if (!withinBudget && !isLastChunk)
+            reservation.pauseReadingUntilBudgetAvailable(ctx);
+    }
+
+    /**
+     * If the given request has spill file writes pending on the {@link #spillWriteExecutor}, then pauses reading from
+     * the caller until they're done, or if this was the last chunk then holds back the endpoint until they're done.
+     * Pausing keeps the chunks queued for the disk from piling up in memory when the disk is slower than the caller.
+     */
+    protected void waitForPendingSpillFileWrites(
+        ChannelHandlerContext ctx,
+        HttpProcessingState state,
+        RiposteInternalRequestInfo requestInfo,
+        boolean isLastChunk
+    ) {
+        CompletableFuture<Void> pendingWrites = requestInfo.getPendingSpillFileWrites();
+        if (isLastChunk) {
+            // A failed write also goes through the work chain, so the endpoint is never called with missing content.
+            if (!pendingWrites.isDone() || pendingWrites.isCompletedExceptionally())
+                state.addPreEndpointExecutionWorkChainSegment(aVoid -> pendingWrites);
+
+            return;
+        }
+
+        if (pendingWrites.isDone())
+            return;
+
+        ctx.channel().config().setAutoRead(false);
+        pendingWrites.whenComplete(
+            (ignored, error) -> ctx.executor().execute(() -> resumeReadingAfterSpillFileWrites(ctx, state, requestInfo))
+        );
+    }
+
+    /**
+     * Turns autoRead back on once the spill file writes are done, unless more writes have been queued in the meantime
+     * or reading is also paused for the {@link RequestBodyMemoryBudget} (which will turn autoRead back on itself). A
+     * failed write is reported once the last chunk arrives.
+     */
+    protected void resumeReadingAfterSpillFileWrites(
+        ChannelHandlerContext ctx, HttpProcessingState state, RiposteInternalRequestInfo requestInfo
+    ) {
+        if (!requestInfo.getPendingSpillFileWrites().isDone())
+            return;
+
+        RequestBodyMemoryBudget.Reservation reservation = state.getRequestBodyMemoryReservation();
+        if (reservation != null && reservation.isReadingPaused())
+            return;
+
+        ctx.channel().config().setAutoRead(true);
+    }
+
     @Override
     public PipelineContinuationBehavior doExceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         // If this method is called, there's a (small) chance that the HttpProcessingState does not have a RequestInfo
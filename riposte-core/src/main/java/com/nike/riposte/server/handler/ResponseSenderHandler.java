@@ -31,6 +31,9 @@ import java.util.UUID;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
 
 import static com.nike.riposte.util.AsyncNettyHelper.runnableWithTracingAndMdc;
 
@@ -204,6 +207,13 @@ public class ResponseSenderHandler extends BaseInboundHandlerWithTracingAndMdcSu
         if (requestInfo == null)
             requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
         ResponseInfo<?> responseInfo = state.getResponseInfo();
+        if (responseInfo != null
+            && !responseInfo.isResponseSendingStarted()
+            && isResponseRejectingRequestBeforeContinueWasSent(state, requestInfo)) {
+            // The caller is still holding back the payload, and may or may not go on to send it after seeing this
+            //      response. Either way the connection is no longer in a reusable state.
+            responseInfo.setForceConnectionCloseAfterResponseSent(true);
+        }
         Endpoint<?> endpointExecuted = state.getEndpointForExecution();
         ObjectMapper customSerializer = (endpointExecuted == null)
                                         ? null
@@ -225,6 +235,26 @@ public class ResponseSenderHandler extends BaseInboundHandlerWithTracingAndMdcSu
         }
     }
 
+    /**
+     * @return true if the caller sent an {@code Expect: 100-continue} header, the {@code 100 Continue} response hasn't
+     * been sent yet, and the payload hasn't arrived. See {@link ExpectContinueHandler}.
+     */
+    protected boolean isResponseRejectingRequestBeforeContinueWasSent(
+        @NotNull HttpProcessingState state, @NotNull RequestInfo<?> requestInfo
+    ) {
+        if (requestInfo.isCompleteRequestWithAllChunks())
+            return false;
+
+        // ExpectContinueHandler removes the Expect header when it picks up the request, so if the header is still
+        //      there then the request was rejected before it got that far.
+        if (state.isContinueResponsePending())
+            return true;
+
+        HttpHeaders headers = requestInfo.getHeaders();
+        //noinspection ConstantConditions
+        return headers != null && headers.containsValue(HttpHeaderNames.EXPECT, HttpHeaderValues.CONTINUE, true);
+    }
+
     protected @Nullable ErrorResponseBody getErrorResponseBodyIfPossible(@Nullable ResponseInfo<?> responseInfo) {
         if (responseInfo == null || responseInfo.isChunkedResponse()) {
             return null;
@@ -7,6 +7,7 @@ import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,11 +52,23 @@ public class SecurityValidationHandler extends BaseInboundHandlerWithTracingAndM
     private final Executor securityValidationExecutor;
 
     public SecurityValidationHandler(RequestSecurityValidator securityValidator) {
+        this(securityValidator, null);
+    }
+
+    /**
+     * @param securityValidator The security validator to use. Can be null, in which case no validation is done.
+     * @param securityValidationExecutor The executor to run the security validator on when it isn't fast enough to run
+     * on the Netty worker thread. Can be null, in which case a default work-stealing pool is used.
+     */
+    public SecurityValidationHandler(RequestSecurityValidator securityValidator,
+                                     Executor securityValidationExecutor) {
         this.securityValidator = securityValidator;
-        this.securityValidationExecutor =
-            (securityValidator == null || securityValidator.isFastEnoughToRunOnNettyWorkerThread())
-            ? null
-            : DEFAULT_ASYNC_VALIDATION_EXECUTOR;
+        if (securityValidator == null || securityValidator.isFastEnoughToRunOnNettyWorkerThread())
+            this.securityValidationExecutor = null;
+        else if (securityValidationExecutor == null)
+            this.securityValidationExecutor = DEFAULT_ASYNC_VALIDATION_EXECUTOR;
+        else
+            this.securityValidationExecutor = securityValidationExecutor;
     }
 
     @Override
@@ -93,7 +106,10 @@ public class SecurityValidationHandler extends BaseInboundHandlerWithTracingAndM
                                         httpProcessingState.getEndpointForExecution()
                                     ), ctx
                                 ),
-                                securityValidationExecutor
+                                InstrumentedThreadPoolExecutor.prioritized(
+                                    securityValidationExecutor,
+                                    httpProcessingState.getEndpointForExecution().priority()
+                                )
                             )
                         );
                     }
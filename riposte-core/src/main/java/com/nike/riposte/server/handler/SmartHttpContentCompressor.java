@@ -1,23 +1,66 @@
 package com.nike.riposte.server.handler;
 
+import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterEndpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseCompressionPolicy;
+import com.nike.riposte.server.http.ResponseContentEncoder;
 import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.ZlibResponseContentEncoder;
+import com.nike.riposte.server.http.cache.CompressedVariantCache;
+import com.nike.riposte.server.http.cache.CompressedVariantCache.VariantKey;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * Extension of {@link HttpContentCompressor} that is smart about whether it compresses responses or not. See the {@link
  * #write(ChannelHandlerContext, Object, ChannelPromise)} method for the specific rules, but in short compression is
  * only allowed if the following criteria are met:
  * <ul>
- *     <li>The total length of the raw content being sent must be greater than {@link #responseSizeThresholdBytes}</li>
+ *     <li>
+ *         The total length of the raw content being sent must be greater than {@link #responseSizeThresholdBytes}
+ *         (or the endpoint's {@link ResponseCompressionPolicy#getThresholdBytes()} override if it has one)
+ *     </li>
  *     <li>
  *         The response must be a full response (i.e. the output message must be both a {@link HttpResponse} *and* a
  *         {@link LastHttpContent}). This is necessary because otherwise there's no way to tell what the total length of
@@ -32,64 +75,607 @@ import io.netty.handler.codec.http.LastHttpContent;
  *         The response info must be available in the state and must allow it - see {@link
  *         ResponseInfo#isPreventCompressedOutput()}
  *     </li>
+ *     <li>
+ *         The response's Content-Type must not be one of the {@link
+ *         ResponseCompressionConfig#skipCompressionContentTypes()}, since those payloads are already compressed.
+ *     </li>
  * </ul>
  * Compression is prevented in all other cases.
  *
+ * <p>When compression is allowed the content coding is negotiated against the request's Accept-Encoding header (see
+ * {@link #negotiateContentEncoder(String, List)}) from the {@link ResponseCompressionConfig#contentEncoders()}, as
+ * restricted and reordered by the endpoint's {@link ResponseCompressionPolicy#getContentEncodings()} if it has one.
+ *
+ * <p>If {@link ResponseCompressionConfig#compressionOffloadThresholdBytes()} is enabled and an offload executor is
+ * supplied, payloads larger than that threshold are compressed on the offload executor rather than on the channel's
+ * event loop (see {@link #offloadCompression(ChannelHandlerContext, Object, ChannelPromise, ResponseContentEncoder,
+ * VariantKey)}). The compressed response is written back on the event loop, and any writes that arrive in the meantime
+ * are held and written afterward so that the channel's output stays in order.
+ *
+ * <p>If a {@link CompressedVariantCache} is supplied and the endpoint opts in via {@link
+ * ResponseCompressionPolicy#isCacheCompressedVariants()}, compressed payloads are stored in the cache and a response
+ * whose payload was already compressed with the negotiated content coding is written straight from the cache without
+ * running the encoder at all.
+ *
  * @author Nic Munroe
  */
 public class SmartHttpContentCompressor extends HttpContentCompressor {
 
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
     private boolean allowCompressionForThisRequest = false;
+    private @NotNull List<ResponseContentEncoder> contentEncodersForThisRequest = Collections.emptyList();
+    private @Nullable Integer compressionLevelForThisRequest = null;
     private final long responseSizeThresholdBytes;
+    private final @NotNull List<ResponseContentEncoder> contentEncoders;
+    private final @NotNull Set<String> skipCompressionMimeTypes;
+    private final @NotNull Set<String> skipCompressionWildcardTypes;
+    private final int compressionOffloadThresholdBytes;
+    private final @Nullable Executor compressionOffloadExecutor;
+    private final @Nullable MetricsListener metricsListener;
+    private final @Nullable CompressedVariantCache compressedVariantCache;
+    private ChannelHandlerContext ctx;
+
+    // These are only ever touched on the channel's event loop.
+    private boolean offloadedCompressionInProgress = false;
+    private final Queue<PendingWrite> writesHeldForOffloadedCompression = new ArrayDeque<>();
 
     public SmartHttpContentCompressor(int responseSizeThresholdBytes) {
+        this(responseSizeThresholdBytes, null);
+    }
+
+    /**
+     * @param responseSizeThresholdBytes The size (in bytes) a response payload must exceed before it is compressed,
+     * unless overridden by the endpoint's {@link ResponseCompressionPolicy}.
+     * @param responseCompressionConfig The config to use for the available encoders and the content types that should
+     * never be compressed. Can be null, in which case {@link ResponseCompressionConfig#DEFAULT_IMPL} will be used.
+     */
+    public SmartHttpContentCompressor(int responseSizeThresholdBytes,
+                                      @Nullable ResponseCompressionConfig responseCompressionConfig) {
+        this(responseSizeThresholdBytes, responseCompressionConfig, null, null);
+    }
+
+    /**
+     * @param responseSizeThresholdBytes The size (in bytes) a response payload must exceed before it is compressed,
+     * unless overridden by the endpoint's {@link ResponseCompressionPolicy}.
+     * @param responseCompressionConfig The config to use for the available encoders, the content types that should
+     * never be compressed, and the compression offload threshold. Can be null, in which case {@link
+     * ResponseCompressionConfig#DEFAULT_IMPL} will be used.
+     * @param compressionOffloadExecutor The executor to compress payloads larger than {@link
+     * ResponseCompressionConfig#compressionOffloadThresholdBytes()} on. Can be null, in which case all compression is
+     * done inline on the channel's event loop.
+     * @param metricsListener The {@link MetricsListener} to notify of {@link
+     * ServerMetricsEvent#RESPONSE_COMPRESSION_OFFLOADED} and {@link
+     * ServerMetricsEvent#RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT} events. Can be null.
+     */
+    public SmartHttpContentCompressor(int responseSizeThresholdBytes,
+                                      @Nullable ResponseCompressionConfig responseCompressionConfig,
+                                      @Nullable Executor compressionOffloadExecutor,
+                                      @Nullable MetricsListener metricsListener) {
+        this(responseSizeThresholdBytes, responseCompressionConfig, compressionOffloadExecutor, metricsListener, null);
+    }
+
+    /**
+     * @param responseSizeThresholdBytes The size (in bytes) a response payload must exceed before it is compressed,
+     * unless overridden by the endpoint's {@link ResponseCompressionPolicy}.
+     * @param responseCompressionConfig The config to use for the available encoders, the content types that should
+     * never be compressed, and the compression offload threshold. Can be null, in which case {@link
+     * ResponseCompressionConfig#DEFAULT_IMPL} will be used.
+     * @param compressionOffloadExecutor The executor to compress payloads larger than {@link
+     * ResponseCompressionConfig#compressionOffloadThresholdBytes()} on. Can be null, in which case all compression is
+     * done inline on the channel's event loop.
+     * @param metricsListener The {@link MetricsListener} to notify of {@link
+     * ServerMetricsEvent#RESPONSE_COMPRESSION_OFFLOADED} and {@link
+     * ServerMetricsEvent#RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT} events. Can be null.
+     * @param compressedVariantCache The cache of compressed payloads to use for endpoints that opt in via {@link
+     * ResponseCompressionPolicy#isCacheCompressedVariants()}. This is usually shared by every channel on the server.
+     * Can be null, in which case compressed payloads are never cached.
+     */
+    public SmartHttpContentCompressor(int responseSizeThresholdBytes,
+                                      @Nullable ResponseCompressionConfig responseCompressionConfig,
+                                      @Nullable Executor compressionOffloadExecutor,
+                                      @Nullable MetricsListener metricsListener,
+                                      @Nullable CompressedVariantCache compressedVariantCache) {
+        if (responseCompressionConfig == null) {
+            responseCompressionConfig = ResponseCompressionConfig.DEFAULT_IMPL;
+        }
+
         this.responseSizeThresholdBytes = responseSizeThresholdBytes;
+        this.contentEncoders = Collections.unmodifiableList(
+            new ArrayList<>(responseCompressionConfig.contentEncoders())
+        );
+        this.skipCompressionMimeTypes = new HashSet<>();
+        this.skipCompressionWildcardTypes = new HashSet<>();
+        for (String skipType : responseCompressionConfig.skipCompressionContentTypes()) {
+            String normalized = skipType.trim().toLowerCase(Locale.US);
+            if (normalized.endsWith("/*")) {
+                skipCompressionWildcardTypes.add(normalized.substring(0, normalized.length() - 2));
+            }
+            else {
+                skipCompressionMimeTypes.add(normalized);
+            }
+        }
+        this.compressionOffloadThresholdBytes = responseCompressionConfig.compressionOffloadThresholdBytes();
+        this.compressionOffloadExecutor = compressionOffloadExecutor;
+        this.metricsListener = metricsListener;
+        this.compressedVariantCache = compressedVariantCache;
     }
 
     @SuppressWarnings("unused")
     public SmartHttpContentCompressor(int compressionLevel, int responseSizeThresholdBytes) {
-        super(compressionLevel);
-        this.responseSizeThresholdBytes = responseSizeThresholdBytes;
+        this(compressionLevel, 15, 8, responseSizeThresholdBytes);
     }
 
     @SuppressWarnings("unused")
     public SmartHttpContentCompressor(int compressionLevel, int windowBits, int memLevel,
                                       int responseSizeThresholdBytes) {
-        super(compressionLevel, windowBits, memLevel);
-        this.responseSizeThresholdBytes = responseSizeThresholdBytes;
+        this(responseSizeThresholdBytes, new ResponseCompressionConfig() {
+            private final List<ResponseContentEncoder> zlibEncoders = Arrays.asList(
+                new ZlibResponseContentEncoder(ZlibWrapper.GZIP, compressionLevel, windowBits, memLevel),
+                new ZlibResponseContentEncoder(ZlibWrapper.ZLIB, compressionLevel, windowBits, memLevel)
+            );
+
+            @Override
+            public @NotNull List<@NotNull ResponseContentEncoder> contentEncoders() {
+                return zlibEncoders;
+            }
+        });
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
     }
 
     @Override
     protected Result beginEncode(HttpResponse headers, String acceptEncoding) throws Exception {
-        if (allowCompressionForThisRequest)
-            return super.beginEncode(headers, acceptEncoding);
+        if (!allowCompressionForThisRequest)
+            return null;
+
+        String existingContentEncoding = headers.headers().get(HttpHeaderNames.CONTENT_ENCODING);
+        if (existingContentEncoding != null
+            && !HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(existingContentEncoding.trim())) {
+            // The content is already encoded - don't encode it again.
+            return null;
+        }
 
-        return null;
+        ResponseContentEncoder encoder = negotiateContentEncoder(acceptEncoding, contentEncodersForThisRequest);
+        if (encoder == null)
+            return null;
+
+        return new Result(
+            encoder.contentEncoding(),
+            new EmbeddedChannel(
+                ctx.channel().id(), ctx.channel().metadata().hasDisconnect(), ctx.channel().config(),
+                encoder.newEncoder(compressionLevelForThisRequest)
+            )
+        );
     }
 
     @Override
     public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
 
+        if (offloadedCompressionInProgress) {
+            // An earlier response is still being compressed on the offload executor - hold this write until it has
+            //      been written so the output stays in order.
+            writesHeldForOffloadedCompression.add(new PendingWrite(msg, promise));
+            return;
+        }
+
         HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
 
         allowCompressionForThisRequest = false;
+        contentEncodersForThisRequest = Collections.emptyList();
+        compressionLevelForThisRequest = null;
 
         if (state != null) {
-            // We only want to allow compression if the endpoint being hit is *not* a ProxyRouterEndpoint, the response is full, and the response size
-            // is greater than the threshold
+            // We only want to allow compression if the endpoint being hit is *not* a ProxyRouterEndpoint, the response
+            //      is full, the response isn't already compressed, and the response size is greater than the threshold
+            Endpoint<?> endpoint = state.getEndpointForExecution();
+            ResponseCompressionPolicy policy = (endpoint == null) ? null : endpoint.responseCompressionPolicy();
+            long thresholdBytes = (policy == null || policy.getThresholdBytes() == null)
+                                  ? responseSizeThresholdBytes
+                                  : policy.getThresholdBytes();
+
             boolean isFull = msg instanceof HttpResponse && msg instanceof LastHttpContent;
-            boolean endpointAllowed = endpointAllowsCompression(state.getEndpointForExecution());
+            boolean endpointAllowed = endpointAllowsCompression(endpoint);
             boolean responseInfoAllowed =
                 state.getResponseInfo() == null || !state.getResponseInfo().isPreventCompressedOutput();
             if (isFull && endpointAllowed && responseInfoAllowed
-                && ((LastHttpContent) msg).content().readableBytes() > responseSizeThresholdBytes) {
-                allowCompressionForThisRequest = true;
+                && contentTypeAllowsCompression(((HttpResponse) msg).headers().get(HttpHeaderNames.CONTENT_TYPE))
+                && ((LastHttpContent) msg).content().readableBytes() > thresholdBytes) {
+                contentEncodersForThisRequest = determineContentEncoders(policy);
+                compressionLevelForThisRequest = (policy == null) ? null : policy.getCompressionLevel();
+                allowCompressionForThisRequest = !contentEncodersForThisRequest.isEmpty();
+            }
+
+            boolean useVariantCache = compressedVariantCache != null
+                                      && policy != null
+                                      && policy.isCacheCompressedVariants();
+            if (allowCompressionForThisRequest
+                && (useVariantCache || shouldOffloadCompression((LastHttpContent) msg))
+                && compressFullResponse(ctx, msg, promise, state, useVariantCache)) {
+                return;
             }
         }
 
         super.write(ctx, msg, promise);
     }
 
+    /**
+     * Compresses the given full response without going through {@link #beginEncode(HttpResponse, String)}, which is
+     * needed when the compressed payload should come from (or be stored in) the {@link CompressedVariantCache}, or when
+     * compression should be offloaded. On a cache hit the cached payload is written directly. On a miss the payload is
+     * compressed on the offload executor if it's big enough, otherwise inline.
+     *
+     * @return true if this method took care of writing the response, false if the caller should write it through the
+     * normal encoding path instead.
+     */
+    protected boolean compressFullResponse(
+        @NotNull ChannelHandlerContext ctx,
+        @NotNull Object msg,
+        @NotNull ChannelPromise promise,
+        @NotNull HttpProcessingState state,
+        boolean useVariantCache
+    ) throws Exception {
+        if (((HttpResponse) msg).headers().get(HttpHeaderNames.CONTENT_ENCODING) != null)
+            return false;
+
+        ResponseContentEncoder encoder = negotiateContentEncoder(
+            extractAcceptEncoding(state), contentEncodersForThisRequest
+        );
+        if (encoder == null)
+            return false;
+
+        ByteBuf content = ((LastHttpContent) msg).content();
+        VariantKey variantKey = null;
+        if (useVariantCache && compressedVariantCache != null) {
+            variantKey = CompressedVariantCache.keyFor(
+                content, encoder.contentEncoding(), compressionLevelForThisRequest
+            );
+            byte[] cachedCompressedContent = compressedVariantCache.get(variantKey, content);
+            if (cachedCompressedContent != null) {
+                writeCompressedResponse(
+                    ctx, msg, promise, encoder, Unpooled.wrappedBuffer(cachedCompressedContent)
+                );
+                return true;
+            }
+        }
+
+        if (shouldOffloadCompression((LastHttpContent) msg)
+            && offloadCompression(ctx, msg, promise, encoder, variantKey)) {
+            return true;
+        }
+
+        if (variantKey == null) {
+            // Nothing to cache, so the normal encoding path can handle it.
+            return false;
+        }
+
+        ByteBuf compressed = encodeContent(content, encoder, compressionLevelForThisRequest, ctx.alloc());
+        storeCompressedVariant(variantKey, content, compressed);
+        writeCompressedResponse(ctx, msg, promise, encoder, compressed);
+        return true;
+    }
+
+    protected void storeCompressedVariant(
+        @Nullable VariantKey variantKey, @NotNull ByteBuf uncompressed, @NotNull ByteBuf compressed
+    ) {
+        if (variantKey == null || compressedVariantCache == null)
+            return;
+
+        compressedVariantCache.put(variantKey, uncompressed, ByteBufUtil.getBytes(compressed));
+    }
+
+    /**
+     * Replaces the given full response's content with the given compressed content, sets the Content-Encoding and
+     * Content-Length headers to match, and writes it. The original message is released.
+     */
+    protected void writeCompressedResponse(
+        @NotNull ChannelHandlerContext ctx,
+        @NotNull Object originalMsg,
+        @NotNull ChannelPromise promise,
+        @NotNull ResponseContentEncoder encoder,
+        @NotNull ByteBuf compressed
+    ) throws Exception {
+        // The payload is already compressed, so make sure beginEncode() leaves it alone.
+        allowCompressionForThisRequest = false;
+
+        HttpResponse original = (HttpResponse) originalMsg;
+        DefaultFullHttpResponse compressedResponse = new DefaultFullHttpResponse(
+            original.protocolVersion(), original.status(), compressed, original.headers(),
+            ((LastHttpContent) originalMsg).trailingHeaders()
+        );
+        compressedResponse.headers().set(HttpHeaderNames.CONTENT_ENCODING, encoder.contentEncoding());
+        compressedResponse.headers().remove(HttpHeaderNames.TRANSFER_ENCODING);
+        HttpUtil.setContentLength(compressedResponse, compressed.readableBytes());
+        ReferenceCountUtil.release(originalMsg);
+        // This still has to go through super.write() so the superclass consumes this response's Accept-Encoding.
+        super.write(ctx, compressedResponse, promise);
+    }
+
+    protected boolean shouldOffloadCompression(@NotNull LastHttpContent fullResponse) {
+        return compressionOffloadExecutor != null
+               && compressionOffloadThresholdBytes > 0
+               && fullResponse.content().readableBytes() > compressionOffloadThresholdBytes;
+    }
+
+    protected @Nullable String extractAcceptEncoding(@NotNull HttpProcessingState state) {
+        RequestInfo<?> requestInfo = state.getRequestInfo();
+        return (requestInfo == null) ? null : requestInfo.getHeaders().get(HttpHeaderNames.ACCEPT_ENCODING);
+    }
+
+    /**
+     * Hands the given full response's content off to the compression offload executor to be compressed with the given
+     * encoder. Once compression finishes, the compressed response is written on the channel's event loop followed by
+     * any writes that were held while compression was in progress. If the given variant key is not null then the
+     * compressed payload is also stored in the {@link CompressedVariantCache} under that key.
+     *
+     * @return true if the compression was offloaded, false if the offload executor rejected the task (in which case
+     * nothing has been done and the caller should compress the response inline instead).
+     */
+    protected boolean offloadCompression(
+        @NotNull ChannelHandlerContext ctx,
+        @NotNull Object msg,
+        @NotNull ChannelPromise promise,
+        @NotNull ResponseContentEncoder encoder,
+        @Nullable VariantKey variantKey
+    ) {
+        //noinspection ConstantConditions
+        Executor executor = compressionOffloadExecutor;
+        ByteBuf content = ((LastHttpContent) msg).content();
+        int uncompressedBytes = content.readableBytes();
+        Integer compressionLevel = compressionLevelForThisRequest;
+        long enqueuedAtNanos = System.nanoTime();
+
+        try {
+            //noinspection ConstantConditions
+            executor.execute(() -> {
+                notifyMetricsListener(
+                    ServerMetricsEvent.RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT, System.nanoTime() - enqueuedAtNanos
+                );
+
+                ByteBuf compressed = null;
+                Throwable error = null;
+                try {
+                    compressed = encodeContent(content, encoder, compressionLevel, ctx.alloc());
+                }
+                catch (Throwable t) {
+                    error = t;
+                }
+
+                ByteBuf finalCompressed = compressed;
+                Throwable finalError = error;
+                ctx.executor().execute(
+                    () -> finishOffloadedCompression(
+                        ctx, msg, promise, encoder, variantKey, finalCompressed, finalError
+                    )
+                );
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            logger.debug("Compression offload executor rejected the task. Compressing the response inline instead.");
+            return false;
+        }
+
+        offloadedCompressionInProgress = true;
+        notifyMetricsListener(ServerMetricsEvent.RESPONSE_COMPRESSION_OFFLOADED, (long) uncompressedBytes);
+        return true;
+    }
+
+    protected static @NotNull ByteBuf encodeContent(
+        @NotNull ByteBuf content,
+        @NotNull ResponseContentEncoder encoder,
+        @Nullable Integer compressionLevel,
+        @NotNull ByteBufAllocator alloc
+    ) {
+        EmbeddedChannel encoderChannel = new EmbeddedChannel(encoder.newEncoder(compressionLevel));
+        CompositeByteBuf result = alloc.compositeBuffer(Integer.MAX_VALUE);
+        try {
+            encoderChannel.writeOutbound(content.retainedDuplicate());
+            encoderChannel.finish();
+
+            ByteBuf encodedChunk;
+            while ((encodedChunk = encoderChannel.readOutbound()) != null) {
+                if (encodedChunk.isReadable())
+                    result.addComponent(true, encodedChunk);
+                else
+                    encodedChunk.release();
+            }
+
+            return result;
+        }
+        catch (Throwable t) {
+            result.release();
+            encoderChannel.finishAndReleaseAll();
+            throw t;
+        }
+    }
+
+    protected void finishOffloadedCompression(
+        @NotNull ChannelHandlerContext ctx,
+        @NotNull Object originalMsg,
+        @NotNull ChannelPromise promise,
+        @NotNull ResponseContentEncoder encoder,
+        @Nullable VariantKey variantKey,
+        @Nullable ByteBuf compressed,
+        @Nullable Throwable error
+    ) {
+        offloadedCompressionInProgress = false;
+        allowCompressionForThisRequest = false;
+
+        try {
+            if (compressed == null) {
+                logger.warn("Offloaded response compression failed. Sending the response uncompressed instead.", error);
+                super.write(ctx, originalMsg, promise);
+            }
+            else {
+                storeCompressedVariant(variantKey, ((LastHttpContent) originalMsg).content(), compressed);
+                writeCompressedResponse(ctx, originalMsg, promise, encoder, compressed);
+            }
+        }
+        catch (Throwable t) {
+            promise.tryFailure(t);
+        }
+
+        // Now that the offloaded response has been written, write anything that was held while it was being
+        //      compressed - unless one of them kicks off another offloaded compression, in which case the rest stay
+        //      held until that one finishes.
+        PendingWrite pendingWrite;
+        while (!offloadedCompressionInProgress && (pendingWrite = writesHeldForOffloadedCompression.poll()) != null) {
+            try {
+                write(ctx, pendingWrite.msg, pendingWrite.promise);
+            }
+            catch (Throwable t) {
+                pendingWrite.promise.tryFailure(t);
+            }
+        }
+
+        ctx.flush();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        PendingWrite pendingWrite;
+        while ((pendingWrite = writesHeldForOffloadedCompression.poll()) != null) {
+            ReferenceCountUtil.safeRelease(pendingWrite.msg);
+            pendingWrite.promise.tryFailure(
+                new IllegalStateException("Handler was removed before the held write could be completed.")
+            );
+        }
+
+        super.handlerRemoved(ctx);
+    }
+
+    protected void notifyMetricsListener(@NotNull ServerMetricsEvent event, long value) {
+        if (metricsListener == null)
+            return;
+
+        try {
+            metricsListener.onEvent(event, value);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener blew up while handling a response compression event.", t);
+        }
+    }
+
+    protected static final class PendingWrite {
+        final Object msg;
+        final ChannelPromise promise;
+
+        PendingWrite(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
+
+    /**
+     * @return false if the given Content-Type header value matches one of the {@link
+     * ResponseCompressionConfig#skipCompressionContentTypes()}, true otherwise.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected boolean contentTypeAllowsCompression(@Nullable String contentType) {
+        if (contentType == null)
+            return true;
+
+        int paramsIndex = contentType.indexOf(';');
+        String mimeType = ((paramsIndex >= 0) ? contentType.substring(0, paramsIndex) : contentType)
+            .trim()
+            .toLowerCase(Locale.US);
+
+        if (skipCompressionMimeTypes.contains(mimeType))
+            return false;
+
+        int slashIndex = mimeType.indexOf('/');
+        //noinspection RedundantIfStatement
+        if (slashIndex > 0 && skipCompressionWildcardTypes.contains(mimeType.substring(0, slashIndex)))
+            return false;
+
+        return true;
+    }
+
+    /**
+     * @return The encoders that are allowed for the given policy in order of preference - the server's encoders
+     * restricted to and ordered by the policy's {@link ResponseCompressionPolicy#getContentEncodings()}, or all of the
+     * server's encoders if the policy doesn't restrict them.
+     */
+    @SuppressWarnings("WeakerAccess")
+    protected @NotNull List<ResponseContentEncoder> determineContentEncoders(
+        @Nullable ResponseCompressionPolicy policy
+    ) {
+        if (policy == null || policy.getContentEncodings() == null)
+            return contentEncoders;
+
+        List<ResponseContentEncoder> result = new ArrayList<>();
+        for (String allowedEncoding : policy.getContentEncodings()) {
+            for (ResponseContentEncoder encoder : contentEncoders) {
+                if (encoder.contentEncoding().equalsIgnoreCase(allowedEncoding)) {
+                    result.add(encoder);
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Picks the encoder whose content coding has the highest q-value in the given Accept-Encoding header value. Codings
+     * that aren't listed get the q-value of the {@code *} wildcard if present, and are otherwise not acceptable. A
+     * q-value of 0 means the coding is not acceptable. Ties are broken by the order of the given encoders.
+     *
+     * @param acceptEncoding The request's Accept-Encoding header value.
+     * @param encoders The available encoders in order of preference.
+     * @return The negotiated encoder, or null if the client doesn't accept any of the given encoders.
+     */
+    protected static @Nullable ResponseContentEncoder negotiateContentEncoder(
+        @Nullable String acceptEncoding,
+        @NotNull List<ResponseContentEncoder> encoders
+    ) {
+        if (acceptEncoding == null || encoders.isEmpty())
+            return null;
+
+        Map<String, Float> qValuesByCoding = new HashMap<>();
+        for (String codingWithParams : acceptEncoding.split(",")) {
+            String[] parts = codingWithParams.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.US);
+            if (coding.isEmpty())
+                continue;
+
+            float qValue = 1.0f;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        qValue = Float.parseFloat(param.substring(2).trim());
+                    }
+                    catch (NumberFormatException ex) {
+                        qValue = 0.0f;
+                    }
+                }
+            }
+
+            qValuesByCoding.merge(coding, qValue, Math::max);
+        }
+
+        Float wildcardQValue = qValuesByCoding.get("*");
+        ResponseContentEncoder bestEncoder = null;
+        float bestQValue = 0.0f;
+        for (ResponseContentEncoder encoder : encoders) {
+            Float qValue = qValuesByCoding.get(encoder.contentEncoding().toLowerCase(Locale.US));
+            if (qValue == null)
+                qValue = wildcardQValue;
+
+            if (qValue != null && qValue > bestQValue) {
+                bestEncoder = encoder;
+                bestQValue = qValue;
+            }
+        }
+
+        return bestEncoder;
+    }
+
     @SuppressWarnings("WeakerAccess")
     protected boolean endpointAllowsCompression(Endpoint<?> endpoint) {
         if (endpoint == null)
@@ -0,0 +1,137 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.concurrency.TimeoutWheel;
+import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestContentStream;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StreamingRequestEndpoint;
+import com.nike.riposte.server.http.cache.RequestCoalescer;
+import com.nike.riposte.server.http.impl.RiposteInternalRequestInfo;
+import com.nike.wingtips.Span;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Executes {@link StreamingRequestEndpoint}s. Unlike {@link NonblockingEndpointExecutionHandler}, which waits for the
+ * last chunk of content before executing the endpoint, this handler executes the endpoint as soon as the {@link
+ * HttpRequest} arrives and then feeds each {@link HttpContent} chunk into the request's {@link RequestContentStream}
+ * as it comes in. The {@link RequestContentStream} turns the channel's autoRead off whenever the endpoint isn't ready
+ * for more content, so the payload never piles up in memory. The endpoint's response is handled exactly the same way
+ * as for any other {@link com.nike.riposte.server.http.NonblockingEndpoint}.
+ * <p/>
+ * This handler should come immediately before {@link NonblockingEndpointExecutionHandler} in the pipeline, since
+ * {@link StreamingRequestEndpoint}s are also {@link com.nike.riposte.server.http.NonblockingEndpoint}s.
+ */
+@SuppressWarnings("WeakerAccess")
+public class StreamingRequestEndpointExecutionHandler extends NonblockingEndpointExecutionHandler {
+
+    /**
+     * @param metricsListener The {@link MetricsListener} to pass through to {@link
+     * NonblockingEndpointExecutionHandler}. Can be null.
+     */
+    public StreamingRequestEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @Nullable MetricsListener metricsListener
+    ) {
+        this(
+            longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig,
+            new RequestCoalescer(metricsListener), TimeoutWheel.getDefaultInstance()
+        );
+    }
+
+    /**
+     * @param requestCoalescer The {@link RequestCoalescer} to pass through to {@link
+     * NonblockingEndpointExecutionHandler}. Cannot be null, and should be shared by all the handlers for a server.
+     * @param timeoutWheel The {@link TimeoutWheel} used to schedule the endpoint timeout checks. Cannot be null -
+     * pass in {@link TimeoutWheel#getDefaultInstance()} if you don't need a custom one.
+     */
+    public StreamingRequestEndpointExecutionHandler(
+        @NotNull Executor longRunningTaskExecutor,
+        long defaultCompletableFutureTimeoutMillis,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        @NotNull RequestCoalescer requestCoalescer,
+        @NotNull TimeoutWheel timeoutWheel
+    ) {
+        super(
+            longRunningTaskExecutor, defaultCompletableFutureTimeoutMillis, distributedTracingConfig, requestCoalescer,
+            timeoutWheel
+        );
+    }
+
+    @Override
+    protected boolean shouldHandleDoChannelReadMessage(Object msg, Endpoint<?> endpoint) {
+        return (msg instanceof HttpObject) && (endpoint instanceof StreamingRequestEndpoint);
+    }
+
+    @Override
+    public PipelineContinuationBehavior doChannelRead(ChannelHandlerContext ctx, Object msg) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        Endpoint<?> endpoint = state.getEndpointForExecution();
+
+        if (!shouldHandleDoChannelReadMessage(msg, endpoint)) {
+            // Not a StreamingRequestEndpoint, so let the other endpoint handlers deal with it.
+            return PipelineContinuationBehavior.CONTINUE;
+        }
+
+        if (msg instanceof HttpRequest) {
+            RequestInfo<?> requestInfo = state.getRequestInfo();
+            if (requestInfo instanceof RiposteInternalRequestInfo) {
+                // Tell this RequestInfo that the content stream will be managing the release of content chunks, so
+                //      that when RequestInfo.releaseAllResources() is called we don't have extra reference count
+                //      removals.
+                ((RiposteInternalRequestInfo) requestInfo).contentChunksWillBeReleasedExternally();
+            }
+
+            RequestContentStream contentStream = new RequestContentStream(ctx.channel());
+            state.setRequestContentStream(contentStream);
+
+            CompletableFuture<ResponseInfo<?>> responseFuture =
+                executeEndpoint(ctx, state, (StreamingRequestEndpoint<?>) endpoint);
+
+            // Once the endpoint has responded (or failed) there's nobody left to consume the content, so discard
+            //      whatever remains of it. This also makes sure the channel's autoRead is turned back on.
+            responseFuture.whenComplete((responseInfo, throwable) -> {
+                if (throwable == null)
+                    contentStream.cancel();
+                else
+                    contentStream.abort(throwable);
+            });
+        }
+
+        if (msg instanceof HttpContent) {
+            RequestContentStream contentStream = state.getRequestContentStream();
+            if (contentStream == null) {
+                // Should not be possible, but make sure we don't leak the chunk if it happens.
+                ((HttpContent) msg).release();
+                throw new IllegalStateException(
+                    "Found a HttpContent msg for a StreamingRequestEndpoint without a RequestContentStream stored in "
+                    + "the HttpProcessingState. This should be impossible"
+                );
+            }
+
+            // The content stream takes ownership of the chunk (and is responsible for releasing it).
+            contentStream.offerChunk((HttpContent) msg);
+        }
+
+        // The pipeline will continue when the endpoint's CompletableFuture completes (see asyncCallback() and
+        //      asyncErrorCallback()).
+        return PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT;
+    }
+}
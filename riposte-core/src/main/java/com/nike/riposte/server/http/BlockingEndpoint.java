@@ -0,0 +1,64 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.util.AsyncNettyHelper;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * A {@link StandardEndpoint} for endpoints that need to do blocking work (blocking HTTP clients, JDBC, etc) and have no
+ * nonblocking alternative. Rather than implementing {@link NonblockingEndpoint#execute(RequestInfo, Executor,
+ * ChannelHandlerContext)} and remembering to wrap the blocking code in {@link AsyncNettyHelper#supplyAsync(
+ * java.util.function.Supplier, Executor, ChannelHandlerContext)}, you implement the synchronous {@link
+ * #executeBlocking(RequestInfo)} method and Riposte takes care of running it off the Netty worker thread.
+ * <p/>
+ * {@link #executeBlocking(RequestInfo)} is run on the {@link #blockingTaskExecutor(Executor)}, which defaults to the
+ * server's {@code longRunningTaskExecutor}. The distributed tracing and logging MDC info for the request are attached
+ * to the executing thread for the duration of the call, exactly as with {@link AsyncNettyHelper#supplyAsync(
+ * java.util.function.Supplier, Executor, ChannelHandlerContext)}. On Java 21 and later the default {@code
+ * longRunningTaskExecutor} runs each task on its own virtual thread (see {@link
+ * com.nike.riposte.server.config.ServerConfig#longRunningTaskExecutor()}), so thousands of concurrent blocking calls
+ * don't require thousands of platform threads. On earlier JVMs each concurrent call ties up a pooled platform thread.
+ * <p/>
+ * Exceptions thrown by {@link #executeBlocking(RequestInfo)} complete the returned future exceptionally and are handled
+ * by the normal Riposte error handling, just as if a {@link NonblockingEndpoint}'s future had failed.
+ * <p/>
+ * See the javadocs for {@link StandardEndpoint}, {@link NonblockingEndpoint}, and {@link Endpoint}.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class BlockingEndpoint<I, O> extends StandardEndpoint<I, O> {
+
+    /**
+     * Performs the (possibly blocking) work for the given request and returns the response. This is never called on a
+     * Netty worker thread - see the class-level javadocs for details.
+     *
+     * @param request The request to handle.
+     * @return The response to send to the caller. Cannot be null.
+     */
+    public abstract @NotNull ResponseInfo<O> executeBlocking(@NotNull RequestInfo<I> request);
+
+    /**
+     * @param longRunningTaskExecutor The server's {@code longRunningTaskExecutor}.
+     * @return The {@link Executor} that {@link #executeBlocking(RequestInfo)} should be run on. Defaults to the given
+     * {@code longRunningTaskExecutor}. Override this if this endpoint's blocking work needs its own pool, e.g. to
+     * bulkhead a slow downstream dependency from the rest of the server.
+     */
+    protected @NotNull Executor blockingTaskExecutor(@NotNull Executor longRunningTaskExecutor) {
+        return longRunningTaskExecutor;
+    }
+
+    @Override
+    public final @NotNull CompletableFuture<ResponseInfo<O>> execute(
+        @NotNull RequestInfo<I> request,
+        @NotNull Executor longRunningTaskExecutor,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        return AsyncNettyHelper.supplyAsync(
+            () -> executeBlocking(request), blockingTaskExecutor(longRunningTaskExecutor), ctx
+        );
+    }
+}
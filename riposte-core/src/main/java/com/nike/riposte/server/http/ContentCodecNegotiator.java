@@ -0,0 +1,139 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.http.header.AcceptHeader;
+import com.nike.riposte.server.http.header.ParsedHeaderCache;
+import com.nike.riposte.server.http.header.accept.MediaRange;
+import com.nike.riposte.server.http.header.accept.MimeMediaRangeSubType;
+import com.nike.riposte.server.http.header.accept.MimeMediaRangeType;
+import com.nike.riposte.server.http.mimetype.MimeType;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Picks the {@link ContentCodec} to use for a request's content (based on its Content-Type header) or for a response's
+ * content (based on the request's Accept header) from the server's {@link
+ * com.nike.riposte.server.config.ServerConfig#contentCodecs()}. A null result means the default JSON handling should
+ * be used.
+ *
+ * <p>Accept headers are negotiated in the most-significant-first order given by {@link AcceptHeader}, so q-values are
+ * honored and media ranges with {@code q=0} are skipped. The first media range that matches a codec wins, but JSON
+ * wins if the caller accepts it (or a wildcard) before any codec. Headers that can't be parsed are treated as not
+ * asking for a codec. Headers are parsed via {@link ParsedHeaderCache#getDefaultInstance()}.
+ *
+ * <p>This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ContentCodecNegotiator {
+
+    protected static final String JSON_MEDIA_TYPE_KEY = "application/json";
+
+    protected final @NotNull Map<String, ContentCodec> codecsByMediaType;
+
+    /**
+     * @param contentCodecs The codecs to choose from. Can be null or empty, in which case this class never picks a
+     * codec. If more than one codec has the same media type then the first one wins.
+     */
+    public ContentCodecNegotiator(@Nullable List<@NotNull ContentCodec> contentCodecs) {
+        Map<String, ContentCodec> codecMap = new HashMap<>();
+        if (contentCodecs != null) {
+            for (ContentCodec codec : contentCodecs) {
+                MimeType mimeType = codec.mimeType();
+                codecMap.putIfAbsent(mediaTypeKey(mimeType.getType(), mimeType.getSubType()), codec);
+            }
+        }
+
+        this.codecsByMediaType = Collections.unmodifiableMap(codecMap);
+    }
+
+    /**
+     * @return true if there is at least one codec to choose from.
+     */
+    public boolean hasCodecs() {
+        return !codecsByMediaType.isEmpty();
+    }
+
+    /**
+     * @param contentTypeHeader The request's Content-Type header value. Can be null.
+     * @return The codec that should be used to deserialize the request's content, or null if the content isn't in a
+     * format handled by one of the codecs.
+     */
+    public @Nullable ContentCodec codecForContentType(@Nullable String contentTypeHeader) {
+        if (contentTypeHeader == null || codecsByMediaType.isEmpty())
+            return null;
+
+        Optional<MimeType> mimeType = ParsedHeaderCache.getDefaultInstance().mimeType(contentTypeHeader);
+        return mimeType.map(mt -> codecsByMediaType.get(mediaTypeKey(mt.getType(), mt.getSubType()))).orElse(null);
+    }
+
+    /**
+     * @param acceptHeader The request's Accept header value. Can be null.
+     * @return The codec that should be used to serialize the response's content, or null if the default JSON
+     * serialization should be used.
+     */
+    public @Nullable ContentCodec codecForAccept(@Nullable String acceptHeader) {
+        if (acceptHeader == null || codecsByMediaType.isEmpty())
+            return null;
+
+        Optional<AcceptHeader> parsedAcceptHeader = ParsedHeaderCache.getDefaultInstance().acceptHeader(acceptHeader);
+        if (!parsedAcceptHeader.isPresent())
+            return null;
+
+        for (MediaRange mediaRange : parsedAcceptHeader.get().mediaRanges) {
+            if (mediaRange.qualityFactor != null && mediaRange.qualityFactor <= 0)
+                continue;
+
+            // Wildcards are satisfied by JSON, and JSON is the no-codec default.
+            if (!(mediaRange.type instanceof MimeMediaRangeType)
+                || !(mediaRange.subType instanceof MimeMediaRangeSubType)
+            ) {
+                return null;
+            }
+
+            String key = mediaTypeKey(
+                ((MimeMediaRangeType) mediaRange.type).getType(),
+                ((MimeMediaRangeSubType) mediaRange.subType).getSubType()
+            );
+            if (JSON_MEDIA_TYPE_KEY.equals(key))
+                return null;
+
+            ContentCodec codec = codecsByMediaType.get(key);
+            if (codec != null)
+                return codec;
+        }
+
+        // Nothing the caller asked for is supported, so fall back to JSON as Riposte always has.
+        return null;
+    }
+
+    /**
+     * @return true if the given mime type (e.g. {@link ResponseInfo#getDesiredContentWriterMimeType()}) belongs to one
+     * of the codecs.
+     */
+    public boolean isCodecMimeType(@Nullable String mimeType) {
+        if (mimeType == null || codecsByMediaType.isEmpty())
+            return false;
+
+        return ParsedHeaderCache.getDefaultInstance()
+                                .mimeType(mimeType)
+                                .map(mt -> codecsByMediaType.containsKey(mediaTypeKey(mt.getType(), mt.getSubType())))
+                                .orElse(false);
+    }
+
+    /**
+     * @return The type and subtype rendered in lowercase, since RFC-6838 says they're case-insensitive.
+     */
+    protected static @NotNull String mediaTypeKey(@NotNull MimeType.Type type, @NotNull MimeType.SubType subType) {
+        StringBuilder sb = new StringBuilder(type.getName()).append('/');
+        subType.getFacet().getRegistrationTreeName().ifPresent(tree -> sb.append(tree).append('.'));
+        sb.append(subType.getName());
+        subType.getSuffix().ifPresent(suffix -> sb.append('+').append(suffix));
+        return sb.toString().toLowerCase();
+    }
+}
@@ -1,5 +1,7 @@
 package com.nike.riposte.server.http;
 
+import com.nike.riposte.server.concurrency.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.concurrency.RequestBodyMemoryBudget;
 import com.nike.riposte.server.config.ServerConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.wingtips.Span;
@@ -48,6 +50,11 @@ public class HttpProcessingState implements ProcessingState {
     private boolean requestMetricsRecordedOrScheduled = false;
     private boolean tracingResponseTaggingAndFinalSpanNameCompleted = false;
     private CompletableFuture<Void> preEndpointExecutionWorkChain = COMPLETED_VOID_FUTURE;
+    private AdaptiveConcurrencyLimiter.Permit concurrencyLimitPermit;
+    private RequestDeadline requestDeadline;
+    private RequestContentStream requestContentStream;
+    private RequestBodyMemoryBudget.Reservation requestBodyMemoryReservation;
+    private boolean continueResponsePending = false;
 
     private DistributedTracingConfig<Span> distributedTracingConfig;
 
@@ -74,6 +81,11 @@ public class HttpProcessingState implements ProcessingState {
         this.requestMetricsRecordedOrScheduled = copyMe.isRequestMetricsRecordedOrScheduled();
         this.tracingResponseTaggingAndFinalSpanNameCompleted = copyMe.isTracingResponseTaggingAndFinalSpanNameCompleted();
         this.preEndpointExecutionWorkChain = copyMe.preEndpointExecutionWorkChain;
+        this.concurrencyLimitPermit = copyMe.getConcurrencyLimitPermit();
+        this.requestDeadline = copyMe.getRequestDeadline();
+        this.requestContentStream = copyMe.getRequestContentStream();
+        this.requestBodyMemoryReservation = copyMe.getRequestBodyMemoryReservation();
+        this.continueResponsePending = copyMe.isContinueResponsePending();
         this.distributedTracingConfig = copyMe.distributedTracingConfig;
     }
 
@@ -99,7 +111,25 @@ public class HttpProcessingState implements ProcessingState {
         requestMetricsRecordedOrScheduled = false;
         tracingResponseTaggingAndFinalSpanNameCompleted = false;
         preEndpointExecutionWorkChain = COMPLETED_VOID_FUTURE;
+        requestDeadline = null;
+        continueResponsePending = false;
         distributedTracingConfig = null;
+
+        // The stream should have been finished off when the previous request finished, but make sure we never leak
+        //      the chunks it's holding or leave the channel's autoRead turned off.
+        if (requestContentStream != null)
+            requestContentStream.cancel();
+        requestContentStream = null;
+
+        // The permit should have been released when the previous request finished, but make sure we never leak it.
+        if (concurrencyLimitPermit != null)
+            concurrencyLimitPermit.releaseWithoutSample();
+        concurrencyLimitPermit = null;
+
+        // Same for the request body memory reservation - the RequestInfo holding the bytes was released above.
+        if (requestBodyMemoryReservation != null)
+            requestBodyMemoryReservation.release();
+        requestBodyMemoryReservation = null;
     }
 
     public RequestInfo<?> getRequestInfo() {
@@ -276,6 +306,66 @@ public class HttpProcessingState implements ProcessingState {
         return preEndpointExecutionWorkChain;
     }
 
+    public @Nullable AdaptiveConcurrencyLimiter.Permit getConcurrencyLimitPermit() {
+        return concurrencyLimitPermit;
+    }
+
+    public void setConcurrencyLimitPermit(@Nullable AdaptiveConcurrencyLimiter.Permit concurrencyLimitPermit) {
+        this.concurrencyLimitPermit = concurrencyLimitPermit;
+    }
+
+    /**
+     * @return The caller-supplied deadline for this request, or null if the request has no deadline. See {@link
+     * ServerConfig#requestDeadlineConfig()}.
+     */
+    public @Nullable RequestDeadline getRequestDeadline() {
+        return requestDeadline;
+    }
+
+    public void setRequestDeadline(@Nullable RequestDeadline requestDeadline) {
+        this.requestDeadline = requestDeadline;
+    }
+
+    /**
+     * @return The stream delivering the request content to a {@link StreamingRequestEndpoint}, or null if the endpoint
+     * for this request isn't a streaming endpoint.
+     */
+    public @Nullable RequestContentStream getRequestContentStream() {
+        return requestContentStream;
+    }
+
+    public void setRequestContentStream(@Nullable RequestContentStream requestContentStream) {
+        this.requestContentStream = requestContentStream;
+    }
+
+    /**
+     * @return The reservation counting this request's buffered payload bytes against the server-wide budget, or null
+     * if the budget is disabled or no payload has been buffered yet. See {@link
+     * ServerConfig#requestBodyMemoryBudgetConfig()}.
+     */
+    public @Nullable RequestBodyMemoryBudget.Reservation getRequestBodyMemoryReservation() {
+        return requestBodyMemoryReservation;
+    }
+
+    public void setRequestBodyMemoryReservation(
+        @Nullable RequestBodyMemoryBudget.Reservation requestBodyMemoryReservation
+    ) {
+        this.requestBodyMemoryReservation = requestBodyMemoryReservation;
+    }
+
+    /**
+     * @return true if the caller sent an {@code Expect: 100-continue} header and is waiting on a {@code 100 Continue}
+     * response that hasn't been sent yet, false otherwise. See {@link
+     * com.nike.riposte.server.handler.ExpectContinueHandler}.
+     */
+    public boolean isContinueResponsePending() {
+        return continueResponsePending;
+    }
+
+    public void setContinueResponsePending(boolean continueResponsePending) {
+        this.continueResponsePending = continueResponsePending;
+    }
+
     public boolean isTracingResponseTaggingAndFinalSpanNameCompleted() {
         return tracingResponseTaggingAndFinalSpanNameCompleted;
     }
@@ -0,0 +1,299 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/**
+ * The incoming request content for a {@link StreamingRequestEndpoint}, delivered chunk by chunk as it arrives from
+ * the caller rather than being buffered into memory before the endpoint is executed. This is modeled after the Reactive
+ * Streams publisher/subscription contract: the endpoint calls {@link #subscribe(Subscriber)} to register the
+ * {@link Subscriber} that should receive the content, and then calls {@link #request(long)} to signal how many more
+ * chunks it is ready to receive. Chunks are only delivered while there is outstanding demand.
+ * <p/>
+ * Demand is tied to the channel's {@link io.netty.channel.ChannelConfig#isAutoRead() autoRead} setting - whenever
+ * there is no outstanding demand the channel stops reading from the socket, so a slow consumer causes the caller to be
+ * throttled by TCP flow control instead of the server buffering the request. Only the handful of chunks that were
+ * already decoded from the last socket read are ever held in memory, which lets endpoints process arbitrarily large
+ * uploads with constant memory. Note that the {@link
+ * com.nike.riposte.server.config.ServerConfig#incompleteHttpCallTimeoutMillis()} still applies while the socket is
+ * paused, so consumers must not stall for longer than that.
+ * <p/>
+ * All state changes and all {@link Subscriber} notifications happen on the channel's event loop. The public methods
+ * of this class are safe to call from any thread - calls made off the event loop are handed off to it. Since the
+ * {@link Subscriber} is notified on the event loop it must not block: hand any expensive work off to another thread
+ * (e.g. the {@code longRunningTaskExecutor} passed to the endpoint) and call {@link #request(long)} when that work is
+ * done and you're ready for more.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestContentStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestContentStream.class);
+
+    protected final @NotNull Channel channel;
+    protected final @NotNull Deque<HttpContent> bufferedChunks = new ArrayDeque<>();
+
+    protected volatile @Nullable Subscriber subscriber;
+    protected long demand = 0;
+    protected boolean lastChunkReceived = false;
+    protected boolean completed = false;
+    protected boolean cancelled = false;
+    protected @Nullable Throwable abortCause;
+
+    /**
+     * @param channel The channel the request content is arriving on. Its autoRead setting will be adjusted to match
+     * the subscriber's demand.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public RequestContentStream(@NotNull Channel channel) {
+        if (channel == null)
+            throw new IllegalArgumentException("channel cannot be null");
+
+        this.channel = channel;
+    }
+
+    /**
+     * Registers the {@link Subscriber} that will receive the request content. Only one subscriber is allowed per
+     * stream. No content is delivered until {@link #request(long)} is called.
+     *
+     * @throws IllegalStateException if a subscriber was already registered.
+     */
+    @SuppressWarnings("ConstantConditions")
+    public void subscribe(@NotNull Subscriber subscriber) {
+        if (subscriber == null)
+            throw new IllegalArgumentException("subscriber cannot be null");
+
+        synchronized (this) {
+            if (this.subscriber != null)
+                throw new IllegalStateException("This RequestContentStream already has a subscriber.");
+
+            this.subscriber = subscriber;
+        }
+
+        runOnEventLoop(this::deliverBufferedChunksAndAdjustAutoRead);
+    }
+
+    /**
+     * Signals that the subscriber is ready to receive up to the given number of additional chunks. Demand is
+     * cumulative, so calling {@code request(1)} each time a chunk has been processed is a perfectly good pattern, as
+     * is calling {@code request(Long.MAX_VALUE)} once if you don't need backpressure.
+     *
+     * @param n The number of additional chunks to allow - must be greater than zero.
+     */
+    public void request(long n) {
+        if (n <= 0)
+            throw new IllegalArgumentException("The number of chunks requested must be greater than zero. n=" + n);
+
+        runOnEventLoop(() -> {
+            demand += n;
+            // Guard against overflow - a negative demand would stop delivery entirely.
+            if (demand < 0)
+                demand = Long.MAX_VALUE;
+
+            deliverBufferedChunksAndAdjustAutoRead();
+        });
+    }
+
+    /**
+     * Stops delivery of any further content to the subscriber, releases any chunks that have been received but not
+     * yet delivered, and discards the rest of the request content as it arrives. The subscriber will not be notified
+     * of anything after this is called. Safe to call multiple times.
+     */
+    public void cancel() {
+        runOnEventLoop(() -> terminate(null));
+    }
+
+    /**
+     * Called by Riposte when the request is finished (or the channel closed) before the content stream was fully
+     * consumed. This behaves like {@link #cancel()}, except that the subscriber is notified via {@link
+     * Subscriber#onError(Throwable)} if it hasn't already been told the stream completed. If no subscriber has been
+     * registered yet then it will be notified of the error as soon as it subscribes.
+     */
+    public void abort(@NotNull Throwable cause) {
+        runOnEventLoop(() -> terminate(cause));
+    }
+
+    /**
+     * Called by Riposte for each chunk of request content that arrives for this request. This stream takes
+     * ownership of the chunk - it will be released here if the stream has already been cancelled, otherwise ownership
+     * passes to the subscriber when the chunk's content is delivered via {@link Subscriber#onNext(ByteBuf)}.
+     * <p/>
+     * This must be called on the channel's event loop.
+     */
+    public void offerChunk(@NotNull HttpContent chunk) {
+        if (cancelled || completed || lastChunkReceived) {
+            chunk.release();
+            return;
+        }
+
+        if (chunk instanceof LastHttpContent)
+            lastChunkReceived = true;
+
+        bufferedChunks.add(chunk);
+        deliverBufferedChunksAndAdjustAutoRead();
+    }
+
+    /**
+     * @return true if the subscriber has been told the stream is complete.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return true if the stream was cancelled or aborted before it completed.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    protected void deliverBufferedChunksAndAdjustAutoRead() {
+        Subscriber sub = subscriber;
+        if (cancelled) {
+            // An abort that happened before the subscriber arrived still needs to be passed along.
+            if (sub != null && abortCause != null) {
+                Throwable cause = abortCause;
+                abortCause = null;
+                notifySubscriberOfError(sub, cause);
+            }
+            return;
+        }
+
+        if (sub == null) {
+            // Nobody to deliver to yet. Stop reading from the socket until somebody asks for content.
+            if (!bufferedChunks.isEmpty())
+                setAutoRead(false);
+            return;
+        }
+
+        while (!cancelled && !bufferedChunks.isEmpty()) {
+            HttpContent chunk = bufferedChunks.peek();
+            ByteBuf content = chunk.content();
+            boolean hasContent = content.isReadable();
+
+            // Empty chunks are dropped without using up the subscriber's demand.
+            if (hasContent && demand <= 0)
+                break;
+
+            bufferedChunks.poll();
+            if (hasContent) {
+                demand--;
+                try {
+                    sub.onNext(content);
+                }
+                catch (Throwable t) {
+                    logger.error(
+                        "A RequestContentStream subscriber threw an exception while processing a chunk. The stream "
+                        + "will be cancelled and the rest of the request content discarded.", t
+                    );
+                    terminate(null);
+                    return;
+                }
+            }
+            else {
+                chunk.release();
+            }
+
+            if (chunk instanceof LastHttpContent) {
+                completed = true;
+                setAutoRead(true);
+                try {
+                    sub.onComplete();
+                }
+                catch (Throwable t) {
+                    logger.error("A RequestContentStream subscriber threw an exception from onComplete().", t);
+                }
+                return;
+            }
+        }
+
+        if (!cancelled && !completed)
+            setAutoRead(demand > 0);
+    }
+
+    protected void terminate(@Nullable Throwable cause) {
+        if (cancelled || completed)
+            return;
+
+        cancelled = true;
+        releaseBufferedChunks();
+        // The rest of the request content still needs to be read off the socket (and discarded) so that the channel
+        //      can be used for the next request.
+        setAutoRead(true);
+
+        if (cause != null) {
+            Subscriber sub = subscriber;
+            if (sub == null)
+                abortCause = cause;
+            else
+                notifySubscriberOfError(sub, cause);
+        }
+    }
+
+    protected void notifySubscriberOfError(@NotNull Subscriber sub, @NotNull Throwable cause) {
+        try {
+            sub.onError(cause);
+        }
+        catch (Throwable t) {
+            logger.error("A RequestContentStream subscriber threw an exception from onError().", t);
+        }
+    }
+
+    protected void releaseBufferedChunks() {
+        HttpContent chunk;
+        while ((chunk = bufferedChunks.poll()) != null) {
+            chunk.release();
+        }
+    }
+
+    protected void setAutoRead(boolean autoRead) {
+        // Only touch the config if it's actually changing - turning autoRead back on triggers a read, which is what we
+        //      want, but there's no reason to pay for the config write on every chunk.
+        if (channel.config().isAutoRead() != autoRead)
+            channel.config().setAutoRead(autoRead);
+    }
+
+    protected void runOnEventLoop(@NotNull Runnable task) {
+        EventLoop eventLoop = channel.eventLoop();
+        if (eventLoop.inEventLoop())
+            task.run();
+        else
+            eventLoop.execute(task);
+    }
+
+    /**
+     * Receives the content of a {@link RequestContentStream}. All methods are called on the channel's event loop and
+     * must not block.
+     */
+    public interface Subscriber {
+
+        /**
+         * Called with each chunk of request content, in order, but only while there is outstanding demand (see
+         * {@link RequestContentStream#request(long)}). The subscriber takes ownership of the given buffer and
+         * <b>must</b> {@link ByteBuf#release()} it when done with it, otherwise memory will leak. Retain it (or copy
+         * it) if you need to process it on another thread.
+         */
+        void onNext(@NotNull ByteBuf chunk);
+
+        /**
+         * Called once after the last chunk of request content has been delivered.
+         */
+        void onComplete();
+
+        /**
+         * Called if the request is finished or the connection closes before all the content was delivered. No
+         * further methods will be called on this subscriber.
+         */
+        void onError(@NotNull Throwable error);
+    }
+}
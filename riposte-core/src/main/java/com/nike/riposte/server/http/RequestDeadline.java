@@ -0,0 +1,83 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * The caller-supplied deadline for a request (see {@code ServerConfig#requestDeadlineConfig()}). Stored on the
+ * request's {@link HttpProcessingState} so that endpoint timeouts can be clamped to the time the caller has left, and
+ * so that the remaining time can be propagated to downstream calls.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestDeadline {
+
+    /**
+     * The caller's budget for the request in milliseconds, as it was sent on the request's deadline header.
+     */
+    public final long budgetMillis;
+    /**
+     * The {@link System#nanoTime()} value at which the deadline passes. Like {@link
+     * HttpProcessingState#getRequestStartTimeNanos()} this is not a timestamp - it's only useful in relation to other
+     * {@link System#nanoTime()} values.
+     */
+    public final long deadlineNanos;
+    /**
+     * The name of the header that should carry the remaining budget on downstream calls, or null if the budget should
+     * not be propagated.
+     */
+    public final @Nullable String outboundHeaderName;
+
+    public RequestDeadline(long budgetMillis, long deadlineNanos, @Nullable String outboundHeaderName) {
+        this.budgetMillis = budgetMillis;
+        this.deadlineNanos = deadlineNanos;
+        this.outboundHeaderName = outboundHeaderName;
+    }
+
+    /**
+     * @return The number of milliseconds remaining before the deadline passes. This will be zero or negative if the
+     * deadline has passed (any sub-millisecond remainder is chopped, so less than a millisecond left is treated as no
+     * time left).
+     */
+    public long calculateRemainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * @return The given timeout clamped so it doesn't extend past the deadline. This will be zero or negative if the
+     * deadline has passed.
+     */
+    public long clampTimeoutMillis(long timeoutMillis) {
+        return Math.min(timeoutMillis, calculateRemainingMillis());
+    }
+
+    /**
+     * Like {@link #clampTimeoutMillis(long)}, but for downstream call timeouts where a timeout of zero or less means
+     * the call has no timeout at all. An unbounded timeout is limited to the remaining budget. The result is never
+     * less than 1 millisecond, since passing zero to the downstream client would disable its timeout - callers should
+     * check whether the deadline has already passed before making the call.
+     *
+     * @return The given downstream call timeout clamped so it doesn't extend past the deadline.
+     */
+    public long clampDownstreamCallTimeoutMillis(long timeoutMillis) {
+        long clampedMillis = (timeoutMillis <= 0)
+                             ? calculateRemainingMillis()
+                             : clampTimeoutMillis(timeoutMillis);
+
+        return Math.max(1, clampedMillis);
+    }
+
+    /**
+     * Passes the {@link #outboundHeaderName} and the remaining budget in milliseconds (never less than zero) to the
+     * given header setter so the remaining budget can be propagated to a downstream call. Does nothing if {@link
+     * #outboundHeaderName} is null.
+     */
+    public void propagateRemainingBudget(BiConsumer<String, String> headerSetter) {
+        if (outboundHeaderName == null) {
+            return;
+        }
+
+        headerSetter.accept(outboundHeaderName, String.valueOf(Math.max(0, calculateRemainingMillis())));
+    }
+}
@@ -8,8 +8,11 @@ import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfi
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.error.handler.ErrorResponseBody;
 import com.nike.riposte.server.error.handler.ErrorResponseBodySerializer;
+import com.nike.riposte.server.http.impl.FileResponseInfo;
 import com.nike.riposte.util.ErrorContractSerializerHelper;
 import com.nike.riposte.util.HttpUtils;
+import com.nike.riposte.util.ObjectReaderWriterCache;
+import com.nike.riposte.util.XxHash64;
 import com.nike.wingtips.Span;
 import com.nike.wingtips.TraceAndSpanIdGenerator;
 import com.nike.wingtips.TraceHeaders;
@@ -23,7 +26,15 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -35,9 +46,13 @@ import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.DateFormatter;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpMethod;
@@ -47,6 +62,9 @@ import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.util.CharsetUtil;
 import io.netty.util.ReferenceCountUtil;
 
 import static com.nike.riposte.util.AsyncNettyHelper.consumerWithTracingAndMdc;
@@ -80,9 +98,23 @@ public class ResponseSender {
     private final ObjectMapper defaultResponseContentSerializer;
     private final ErrorResponseBodySerializer errorResponseBodySerializer;
     private final @NotNull ServerSpanNamingAndTaggingStrategy<Span> spanNamingAndTaggingStrategy;
+    private final boolean automaticETagHandlingEnabled;
+    private final @Nullable ContentCodecNegotiator contentCodecNegotiator;
 
     public static final int DEFAULT_HTTP_STATUS_CODE = HttpResponseStatus.OK.code();
 
+    /**
+     * The chunk size used when a {@link FileResponseInfo} must be streamed via {@link ChunkedNioFile} (i.e. when the
+     * channel is encrypted and zero-copy {@link DefaultFileRegion} transfers are not possible).
+     */
+    public static final int FILE_CHUNK_SIZE_BYTES = 8192;
+
+    /**
+     * Sentinel returned by {@link #parseSingleByteRange(String, long)} when a range is well formed but cannot be
+     * satisfied.
+     */
+    protected static final long[] UNSATISFIABLE_RANGE = new long[0];
+
     private static final String HORRIBLE_EXPLOSION_DEFAULT_RESPONSE =
         "{\"error_id\":\"%UUID%\",\"errors\":[{\"code\":10,\"message\":\"An error occurred while fulfilling the request\"}]}";
 
@@ -104,6 +136,40 @@ public class ResponseSender {
         @Nullable ObjectMapper defaultResponseContentSerializer,
         @Nullable ErrorResponseBodySerializer errorResponseBodySerializer,
         @NotNull DistributedTracingConfig<Span> distributedTracingConfig
+    ) {
+        this(defaultResponseContentSerializer, errorResponseBodySerializer, distributedTracingConfig, false);
+    }
+
+    /**
+     * @param automaticETagHandlingEnabled Pass in true to have this class add ETags to successful full responses for
+     * GET and HEAD requests and return a 304 Not Modified when the request's If-None-Match header matches. See
+     * {@link com.nike.riposte.server.config.ServerConfig#isAutomaticETagHandlingEnabled()} for details.
+     */
+    public ResponseSender(
+        @Nullable ObjectMapper defaultResponseContentSerializer,
+        @Nullable ErrorResponseBodySerializer errorResponseBodySerializer,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        boolean automaticETagHandlingEnabled
+    ) {
+        this(
+            defaultResponseContentSerializer, errorResponseBodySerializer, distributedTracingConfig,
+            automaticETagHandlingEnabled, null
+        );
+    }
+
+    /**
+     * @param contentCodecs The {@link ContentCodec}s that response content can be serialized with when the request's
+     * Accept header prefers them over JSON. Can be null or empty, in which case response content is always serialized
+     * with the {@link ObjectMapper} passed to {@link #sendFullResponse(ChannelHandlerContext, RequestInfo,
+     * ResponseInfo, ObjectMapper)}. See {@link com.nike.riposte.server.config.ServerConfig#contentCodecs()} for
+     * details.
+     */
+    public ResponseSender(
+        @Nullable ObjectMapper defaultResponseContentSerializer,
+        @Nullable ErrorResponseBodySerializer errorResponseBodySerializer,
+        @NotNull DistributedTracingConfig<Span> distributedTracingConfig,
+        boolean automaticETagHandlingEnabled,
+        @Nullable List<@NotNull ContentCodec> contentCodecs
     ) {
         if (defaultResponseContentSerializer == null) {
             logger.info("No defaultResponseContentSerializer specified - using a new no-arg ObjectMapper as the "
@@ -124,6 +190,10 @@ public class ResponseSender {
         this.defaultResponseContentSerializer = defaultResponseContentSerializer;
         this.errorResponseBodySerializer = errorResponseBodySerializer;
         this.spanNamingAndTaggingStrategy = distributedTracingConfig.getServerSpanNamingAndTaggingStrategy();
+        this.automaticETagHandlingEnabled = automaticETagHandlingEnabled;
+        this.contentCodecNegotiator = (contentCodecs == null || contentCodecs.isEmpty())
+                                      ? null
+                                      : new ContentCodecNegotiator(contentCodecs);
     }
 
     protected String serializeOutputToString(Object output, ObjectMapper serializer, ResponseInfo<?> responseInfo,
@@ -135,7 +205,14 @@ public class ResponseSender {
             serializer = defaultResponseContentSerializer;
 
         try {
-            return serializer.writeValueAsString(output);
+            if (output == null)
+                return serializer.writeValueAsString(null);
+
+            // A writer that's already bound to the output's type skips the per-call type resolution and serializer
+            //      lookup that ObjectMapper.writeValueAsString() would do.
+            return ObjectReaderWriterCache.getDefaultInstance()
+                                          .writerFor(serializer, output.getClass())
+                                          .writeValueAsString(output);
         }
         catch (JsonProcessingException e) {
             // Something blew up trying to serialize the output.
@@ -271,12 +348,498 @@ public class ResponseSender {
         if (serializer == null)
             serializer = defaultResponseContentSerializer;
 
-        // There is only one chunk representing the full request, so send it.
-        sendFirstChunk(ctx, requestInfo, responseInfo, serializer);
+        // Endpoints with a custom serializer get exactly what they asked for. This has to happen before the automatic
+        //      ETag is generated, since that hashes the serialized content.
+        if (contentCodecNegotiator != null && serializer == defaultResponseContentSerializer)
+            applyNegotiatedContentCodec(ctx, requestInfo, responseInfo, contentCodecNegotiator);
+
+        // File-backed responses generate their own cheap ETag and handle If-None-Match in sendFileResponse().
+        if (automaticETagHandlingEnabled
+            && !(responseInfo instanceof FileResponseInfo)
+            && isAutomaticETagApplicable(requestInfo, responseInfo)
+        ) {
+            applyAutomaticETag(ctx, requestInfo, responseInfo, serializer);
+        }
+
+        if (responseInfo instanceof FileResponseInfo && responseInfo.getContentForFullResponse() != null) {
+            // File-backed responses stream the file from disk rather than serializing content onto the heap.
+            sendFileResponse(ctx, requestInfo, (FileResponseInfo) responseInfo, serializer);
+        }
+        else {
+            // There is only one chunk representing the full request, so send it.
+            sendFirstChunk(ctx, requestInfo, responseInfo, serializer);
+        }
 
         ctx.flush();
     }
 
+    /**
+     * Sends the given file-backed response. The headers are written first with a Content-Length (and ETag,
+     * Last-Modified, and Accept-Ranges headers unless already specified), then the file region is written without
+     * copying it onto the heap: a zero-copy {@link DefaultFileRegion} when the channel is not encrypted, or a {@link
+     * ChunkedNioFile} (streamed by the pipeline's {@link io.netty.handler.stream.ChunkedWriteHandler}) when it is,
+     * followed by an empty {@link LastHttpContent} to finish the response.
+     *
+     * <p>If {@link FileResponseInfo#isRangeRequestsAllowed()} is true and the request is a GET with a single-range
+     * {@code Range: bytes=...} header (and a matching {@code If-Range} header if one was specified), then only the
+     * requested sub-range is sent with a 206 status code, or a 416 status code with no body is returned if the range
+     * cannot be satisfied. Multi-range requests are ignored and result in the full file region being sent.
+     */
+    protected void sendFileResponse(
+        ChannelHandlerContext ctx, RequestInfo<?> requestInfo, FileResponseInfo responseInfo, ObjectMapper serializer
+    ) {
+        Path file = responseInfo.getContentForFullResponse();
+        HttpHeaders headers = responseInfo.getHeaders();
+
+        if (responseInfo.getHttpStatusCode() == null) {
+            responseInfo.setHttpStatusCode(DEFAULT_HTTP_STATUS_CODE);
+        }
+
+        BasicFileAttributes fileAttributes;
+        try {
+            fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the attributes of the response file: " + file, e);
+        }
+
+        // Figure out the region of the file that represents the full response body, clamped to the actual file size.
+        long fileSize = fileAttributes.size();
+        long regionOffset = Math.min(responseInfo.getFileOffset(), fileSize);
+        long regionLength = fileSize - regionOffset;
+        if (responseInfo.getFileLength() != null) {
+            regionLength = Math.min(responseInfo.getFileLength(), regionLength);
+        }
+
+        if (!headers.contains(HttpHeaderNames.ETAG)) {
+            headers.set(HttpHeaderNames.ETAG, generateFileRegionETag(
+                fileAttributes.lastModifiedTime().toMillis(), regionOffset, regionLength
+            ));
+        }
+
+        if (!headers.contains(HttpHeaderNames.LAST_MODIFIED)) {
+            headers.set(HttpHeaderNames.LAST_MODIFIED,
+                        DateFormatter.format(new Date(fileAttributes.lastModifiedTime().toMillis())));
+        }
+
+        if (automaticETagHandlingEnabled
+            && isAutomaticETagApplicable(requestInfo, responseInfo)
+            && isIfNoneMatchSatisfiedBy(requestInfo, headers.get(HttpHeaderNames.ETAG))
+        ) {
+            // The caller already has this version of the file. Send a 304 that reports the size of the file region
+            //      it would have received.
+            responseInfo.setHttpStatusCode(HttpResponseStatus.NOT_MODIFIED.code());
+            responseInfo.setContentForFullResponse(null);
+            headers.set(CONTENT_LENGTH, regionLength);
+            sendFirstChunk(ctx, requestInfo, responseInfo, serializer);
+            return;
+        }
+
+        if (responseInfo.isRangeRequestsAllowed()) {
+            headers.set(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES);
+
+            if (isRangeRequestApplicable(requestInfo, responseInfo)) {
+                long[] range = parseSingleByteRange(requestInfo.getHeaders().get(HttpHeaderNames.RANGE), regionLength);
+                if (range == UNSATISFIABLE_RANGE) {
+                    responseInfo.setHttpStatusCode(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE.code());
+                    headers.set(HttpHeaderNames.CONTENT_RANGE, "bytes */" + regionLength);
+                    responseInfo.setContentForFullResponse(null);
+                    regionLength = 0;
+                }
+                else if (range != null) {
+                    responseInfo.setHttpStatusCode(HttpResponseStatus.PARTIAL_CONTENT.code());
+                    headers.set(HttpHeaderNames.CONTENT_RANGE,
+                                "bytes " + range[0] + "-" + range[1] + "/" + regionLength);
+                    regionOffset += range[0];
+                    regionLength = range[1] - range[0] + 1;
+                }
+            }
+        }
+
+        // Set an explicit content-length so that HEAD and 304 responses report the size of the file region rather
+        //      than trying to serialize the Path object.
+        headers.set(CONTENT_LENGTH, regionLength);
+
+        if (regionLength == 0 || isContentAlwaysEmpty(requestInfo, responseInfo)) {
+            // No body will be sent, so this can go through the normal empty-full-response logic.
+            responseInfo.setContentForFullResponse(null);
+            sendFirstChunk(ctx, requestInfo, responseInfo, serializer);
+            return;
+        }
+
+        sanitizeResponseInfo(responseInfo, requestInfo, serializer, ctx);
+
+        // Open the file before anything is written so that failures can still be turned into a normal error response.
+        FileChannel fileChannel;
+        try {
+            fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the response file: " + file, e);
+        }
+
+        Object fileBody;
+        try {
+            fileBody = (ctx.pipeline().get(SslHandler.class) == null)
+                       ? new DefaultFileRegion(fileChannel, regionOffset, regionLength)
+                       : new ChunkedNioFile(fileChannel, regionOffset, regionLength, FILE_CHUNK_SIZE_BYTES);
+        }
+        catch (IOException | RuntimeException e) {
+            closeQuietly(fileChannel);
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new UncheckedIOException("Unable to set up streaming of the response file: " + file, (IOException) e);
+        }
+
+        HttpResponse actualResponseObject = new DefaultHttpResponse(
+            HTTP_1_1, HttpResponseStatus.valueOf(responseInfo.getHttpStatusCode())
+        );
+        synchronizeAndSetupResponseInfoAndFirstChunk(responseInfo, actualResponseObject, requestInfo, ctx);
+
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        if (state != null)
+            state.setActualResponseObject(actualResponseObject);
+
+        writeChunk(ctx, actualResponseObject, requestInfo, responseInfo, state);
+
+        // The file body isn't an HttpObject so writeChunk() can't track it - do the equivalent bookkeeping here.
+        responseInfo.setUncompressedRawContentLength(responseInfo.getUncompressedRawContentLength() + regionLength);
+        ChannelFuture fileWriteFuture = ctx.write(fileBody);
+        fileWriteFuture.addListener(logOnWriteErrorOperationListener(ctx));
+        fileWriteFuture.addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+
+        writeChunk(ctx, LastHttpContent.EMPTY_LAST_CONTENT, requestInfo, responseInfo, state);
+    }
+
+    /**
+     * @return true if the given request's Range header (if any) should be honored for the given file response - only
+     * GET requests for 200 responses are eligible, and if the request has an If-Range header then it must match the
+     * response's ETag or Last-Modified header.
+     */
+    protected boolean isRangeRequestApplicable(RequestInfo<?> requestInfo, FileResponseInfo responseInfo) {
+        if (!HttpMethod.GET.equals(requestInfo.getMethod())
+            || responseInfo.getHttpStatusCode() != HttpResponseStatus.OK.code()
+            || !requestInfo.getHeaders().contains(HttpHeaderNames.RANGE)
+        ) {
+            return false;
+        }
+
+        String ifRange = requestInfo.getHeaders().get(HttpHeaderNames.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+
+        ifRange = ifRange.trim();
+        return ifRange.equals(responseInfo.getHeaders().get(HttpHeaderNames.ETAG))
+               || ifRange.equals(responseInfo.getHeaders().get(HttpHeaderNames.LAST_MODIFIED));
+    }
+
+    /**
+     * Parses the given {@code Range} header value for a representation of the given total length. Only a single
+     * {@code bytes} range is supported ({@code start-end}, {@code start-}, or {@code -suffixLength}).
+     *
+     * @return A two element array containing the inclusive start and end of the requested range, {@link
+     * #UNSATISFIABLE_RANGE} if the range is well formed but cannot be satisfied, or null if the header is missing,
+     * malformed, or a multi-range request (in which case it should be ignored and the full content sent).
+     */
+    protected static long[] parseSingleByteRange(String rangeHeader, long totalLength) {
+        if (rangeHeader == null) {
+            return null;
+        }
+
+        String value = rangeHeader.trim();
+        if (!value.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+
+        value = value.substring(6).trim();
+        int dashIndex = value.indexOf('-');
+        if (dashIndex < 0 || value.indexOf(',') >= 0) {
+            return null;
+        }
+
+        String startStr = value.substring(0, dashIndex).trim();
+        String endStr = value.substring(dashIndex + 1).trim();
+        long start;
+        long end;
+        try {
+            if (startStr.isEmpty()) {
+                // Suffix range, e.g. "-500" means the last 500 bytes.
+                long suffixLength = Long.parseLong(endStr);
+                if (suffixLength <= 0 || totalLength == 0) {
+                    return UNSATISFIABLE_RANGE;
+                }
+                start = Math.max(0, totalLength - suffixLength);
+                end = totalLength - 1;
+            }
+            else {
+                start = Long.parseLong(startStr);
+                end = (endStr.isEmpty()) ? Long.MAX_VALUE : Long.parseLong(endStr);
+                if (start < 0 || end < start) {
+                    // Syntactically invalid range, which must be ignored per RFC 7233 section 3.1.
+                    return null;
+                }
+                if (start >= totalLength) {
+                    return UNSATISFIABLE_RANGE;
+                }
+                end = Math.min(end, totalLength - 1);
+            }
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+
+        return new long[]{start, end};
+    }
+
+    /**
+     * @return A strong ETag for a file region based on the file's last modified time and the region's offset and
+     * length.
+     */
+    protected String generateFileRegionETag(long lastModifiedMillis, long regionOffset, long regionLength) {
+        return "\"" + Long.toHexString(lastModifiedMillis) + "-" + Long.toHexString(regionOffset) + "-"
+               + Long.toHexString(regionLength) + "\"";
+    }
+
+    /**
+     * @return true if automatic ETag handling applies to the given full response - only GET and HEAD requests with
+     * content and a 200 (or not yet specified) response status code are eligible.
+     */
+    protected boolean isAutomaticETagApplicable(RequestInfo<?> requestInfo, ResponseInfo<?> responseInfo) {
+        Integer statusCode = responseInfo.getHttpStatusCode();
+        return (HttpMethod.GET.equals(requestInfo.getMethod()) || HttpMethod.HEAD.equals(requestInfo.getMethod()))
+               && (statusCode == null || statusCode == HttpResponseStatus.OK.code())
+               && responseInfo.getContentForFullResponse() != null;
+    }
+
+    /**
+     * Serializes the response's content with the {@link ContentCodec} negotiated from the request's Accept header (if
+     * the caller prefers one of the codecs over JSON), replacing the content with the serialized bytes and setting the
+     * response's mime type to the codec's. Content that's already text or bytes, file-backed responses, and responses
+     * that already have a mime type are left alone. Otherwise a {@code Vary: Accept} header is added whether or not a
+     * codec is picked, since the choice depends on the Accept header. If the codec fails to serialize the content then
+     * the content is left alone so that it's serialized as JSON instead.
+     */
+    @SuppressWarnings("unchecked")
+    protected void applyNegotiatedContentCodec(
+        ChannelHandlerContext ctx,
+        RequestInfo<?> requestInfo,
+        ResponseInfo<?> responseInfo,
+        @NotNull ContentCodecNegotiator negotiator
+    ) {
+        Object content = responseInfo.getContentForFullResponse();
+        if (content == null
+            || content instanceof CharSequence
+            || content instanceof byte[]
+            || content instanceof ByteBuf
+            || responseInfo instanceof FileResponseInfo
+        ) {
+            return;
+        }
+
+        HttpHeaders responseHeaders = responseInfo.getHeaders();
+        if (responseInfo.getDesiredContentWriterMimeType() != null || responseHeaders.contains(CONTENT_TYPE))
+            return;
+
+        if (!responseHeaders.containsValue(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT, true))
+            responseHeaders.add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT);
+
+        HttpHeaders requestHeaders = requestInfo.getHeaders();
+        ContentCodec codec = negotiator.codecForAccept(
+            (requestHeaders == null) ? null : requestHeaders.get(HttpHeaderNames.ACCEPT)
+        );
+        if (codec == null)
+            return;
+
+        ByteBuf serializedContent;
+        try {
+            serializedContent = codec.serialize(content, ctx.alloc());
+        }
+        catch (Throwable t) {
+            runnableWithTracingAndMdc(
+                () -> logger.warn(
+                    "The output could not be serialized with the negotiated content codec. It will be serialized as "
+                    + "JSON instead. codec_mime_type={}, unserializable_class={}",
+                    codec.mimeType(), content.getClass().getName(), t
+                ),
+                ctx
+            ).run();
+            return;
+        }
+
+        ((ResponseInfo<Object>) responseInfo).setContentForFullResponse(serializedContent);
+        responseInfo.setDesiredContentWriterMimeType(codec.mimeType().toString());
+    }
+
+    /**
+     * Makes sure the given response has an ETag header, and converts it to a 304 Not Modified if the request's
+     * If-None-Match header matches that ETag. An ETag header already set on the response (i.e. by the endpoint) is
+     * used as-is, otherwise the endpoint's {@link Endpoint#responseETagVersionKey(RequestInfo)} is used if it returns
+     * a non-null value, otherwise the content is serialized and the ETag is generated from a hash of the resulting
+     * bytes. When the content has to be serialized here the serialized bytes replace the response's content so that
+     * the work isn't repeated when the response is sent. Generated ETags are made weak if the response might be
+     * compressed (see {@link #isResponseContentCodingPossible(RequestInfo, ResponseInfo)}), since the same ETag is
+     * then shared by representations with different bytes.
+     */
+    @SuppressWarnings("unchecked")
+    protected void applyAutomaticETag(
+        ChannelHandlerContext ctx, RequestInfo<?> requestInfo, ResponseInfo<?> responseInfo, ObjectMapper serializer
+    ) {
+        HttpHeaders headers = responseInfo.getHeaders();
+        String etag = headers.get(HttpHeaderNames.ETAG);
+        if (etag == null) {
+            etag = generateETagFromEndpointVersionKey(ctx, requestInfo);
+            if (etag == null) {
+                // The charset must be known before serializing, which would otherwise happen in sanitizeResponseInfo().
+                determineAndSetCharsetAndMimeTypeForResponseInfoIfNecessary(responseInfo);
+                ByteBuf serializedBytes = serializeOutputToByteBufForResponse(
+                    responseInfo.getContentForFullResponse(), responseInfo, serializer, ctx
+                );
+                ((ResponseInfo<Object>) responseInfo).setContentForFullResponse(serializedBytes);
+                etag = generateContentETag(serializedBytes);
+            }
+            if (isResponseContentCodingPossible(requestInfo, responseInfo)) {
+                // The generated ETag describes the uncompressed bytes, so it can't be a strong validator for a
+                //      gzipped (or otherwise content-coded) representation.
+                etag = "W/" + etag;
+            }
+            headers.set(HttpHeaderNames.ETAG, etag);
+        }
+
+        if (!isIfNoneMatchSatisfiedBy(requestInfo, etag)) {
+            return;
+        }
+
+        responseInfo.setHttpStatusCode(HttpResponseStatus.NOT_MODIFIED.code());
+
+        Object content = responseInfo.getContentForFullResponse();
+        if (!(content instanceof ByteBuf) && !(content instanceof byte[])) {
+            // Content that still needs serializing would only be serialized to calculate the 304's content-length,
+            //      which is exactly the work an endpoint version key is meant to avoid, so drop it instead. Content
+            //      that is already bytes is left alone so the 304 can report the real content-length for free.
+            responseInfo.setContentForFullResponse(null);
+        }
+    }
+
+    /**
+     * @return true if the given response might be compressed on its way out (e.g. by {@link
+     * com.nike.riposte.server.handler.SmartHttpContentCompressor}), which is the case when the request has an {@code
+     * Accept-Encoding} header and the response hasn't {@link ResponseInfo#isPreventCompressedOutput() prevented
+     * compression}. Whether the compressor actually kicks in depends on things like the size and content type of the
+     * payload, so this errs on the side of true.
+     */
+    protected boolean isResponseContentCodingPossible(RequestInfo<?> requestInfo, ResponseInfo<?> responseInfo) {
+        if (responseInfo.isPreventCompressedOutput())
+            return false;
+
+        HttpHeaders requestHeaders = requestInfo.getHeaders();
+        String acceptEncoding = (requestHeaders == null) ? null : requestHeaders.get(HttpHeaderNames.ACCEPT_ENCODING);
+        return acceptEncoding != null
+               && !acceptEncoding.trim().isEmpty()
+               && !HttpHeaderValues.IDENTITY.contentEqualsIgnoreCase(acceptEncoding.trim());
+    }
+
+    /**
+     * @return A strong ETag based on the {@link Endpoint#responseETagVersionKey(RequestInfo)} of the endpoint that
+     * handled the request, or null if there is no endpoint or it doesn't provide a version key. The version key is
+     * used verbatim if it is a legal ETag value, otherwise it is hashed.
+     */
+    protected @Nullable String generateETagFromEndpointVersionKey(
+        ChannelHandlerContext ctx, RequestInfo<?> requestInfo
+    ) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        Endpoint<?> endpoint = (state == null) ? null : state.getEndpointForExecution();
+        if (endpoint == null) {
+            return null;
+        }
+
+        String versionKey = endpoint.responseETagVersionKey(requestInfo);
+        if (versionKey == null) {
+            return null;
+        }
+
+        for (int i = 0; i < versionKey.length(); i++) {
+            char c = versionKey.charAt(i);
+            if (c <= 0x20 || c == '"' || c >= 0x7F) {
+                // Not a legal etagc character, so hash the key instead.
+                ByteBuf keyBytes = Unpooled.copiedBuffer(versionKey, CharsetUtil.UTF_8);
+                try {
+                    return generateContentETag(keyBytes);
+                }
+                finally {
+                    keyBytes.release();
+                }
+            }
+        }
+
+        return "\"" + versionKey + "\"";
+    }
+
+    /**
+     * @return A strong ETag generated from an {@link XxHash64} hash of the given serialized content.
+     */
+    protected String generateContentETag(ByteBuf serializedContent) {
+        return "\"" + Long.toHexString(XxHash64.hash(serializedContent)) + "\"";
+    }
+
+    /**
+     * @return true if the given request has an If-None-Match header that matches the given ETag (using the weak
+     * comparison required by <a href="https://tools.ietf.org/html/rfc7232#section-3.2">RFC 7232 Section 3.2</a>), or
+     * is {@code *}. False if there is no If-None-Match header, the given ETag is null, or nothing matches.
+     */
+    protected boolean isIfNoneMatchSatisfiedBy(RequestInfo<?> requestInfo, @Nullable String etag) {
+        if (etag == null) {
+            return false;
+        }
+
+        List<String> ifNoneMatchHeaders = requestInfo.getHeaders().getAll(HttpHeaderNames.IF_NONE_MATCH);
+        if (ifNoneMatchHeaders.isEmpty()) {
+            return false;
+        }
+
+        String opaqueTag = stripWeakETagPrefix(etag.trim());
+        for (String ifNoneMatch : ifNoneMatchHeaders) {
+            if (ifNoneMatch.trim().equals("*")) {
+                return true;
+            }
+
+            // Entity tags are quoted and may legally contain commas, so walk the quoted strings rather than splitting.
+            int index = 0;
+            while (index < ifNoneMatch.length()) {
+                int openQuote = ifNoneMatch.indexOf('"', index);
+                if (openQuote < 0) {
+                    break;
+                }
+                int closeQuote = ifNoneMatch.indexOf('"', openQuote + 1);
+                if (closeQuote < 0) {
+                    break;
+                }
+                if (opaqueTag.regionMatches(0, ifNoneMatch, openQuote, closeQuote - openQuote + 1)
+                    && opaqueTag.length() == closeQuote - openQuote + 1
+                ) {
+                    return true;
+                }
+                index = closeQuote + 1;
+            }
+        }
+
+        return false;
+    }
+
+    private static String stripWeakETagPrefix(String etag) {
+        return (etag.startsWith("W/")) ? etag.substring(2) : etag;
+    }
+
+    private void closeQuietly(FileChannel fileChannel) {
+        try {
+            fileChannel.close();
+        }
+        catch (IOException e) {
+            logger.warn("Unable to close the response file channel.", e);
+        }
+    }
+
     protected void sendFirstChunk(ChannelHandlerContext ctx, RequestInfo<?> requestInfo, ResponseInfo<?> responseInfo,
                                   ObjectMapper serializer) {
         // Sanitize the responseInfo
@@ -387,10 +950,18 @@ public class ResponseSender {
                                 }
                             }
                         }
+                        else {
+                            // The explicit content-length header wins, so the content is never serialized or written.
+                            //      Make sure any reference counted payload is released.
+                            ReferenceCountUtil.safeRelease(origResponseContent);
+                        }
                     }
                     else {
-                        // Not a HEAD request or 304 response, so the payload on responseInfo was invalid. Log a
-                        //      warning so the dev knows why their payload got stripped out.
+                        // Not a HEAD request or 304 response, so the payload on responseInfo was invalid. Make sure
+                        //      any reference counted payload is released since it will never be written.
+                        ReferenceCountUtil.safeRelease(origResponseContent);
+
+                        // Log a warning so the dev knows why their payload got stripped out.
                         logger.warn(
                             "The response contained non-empty payload, but per the HTTP specification the request's "
                             + "HTTP method and/or the response's HTTP status code means we MUST NOT return a payload, "
@@ -470,9 +1041,14 @@ public class ResponseSender {
         ObjectMapper serializer,
         ChannelHandlerContext ctx
     ) {
-        // If the content is a raw byte array then use it as-is via a wrapped ByteBuf. Otherwise serialize it to a
-        //      string using the provided serializer.
-        if (content instanceof byte[]) {
+        // If the content is already a ByteBuf (e.g. a pre-serialized cached response) then send it as-is - ownership
+        //      passes to the outbound pipeline, which releases it once written. If the content is a raw byte array
+        //      then use it as-is via a wrapped ByteBuf. Otherwise serialize it to a string using the provided
+        //      serializer.
+        if (content instanceof ByteBuf) {
+            return (ByteBuf) content;
+        }
+        else if (content instanceof byte[]) {
             return Unpooled.wrappedBuffer((byte[]) content);
         }
         else {
@@ -904,6 +1480,13 @@ public class ResponseSender {
         if (responseInfo.getDesiredContentWriterMimeType() == null)
             throw new IllegalArgumentException("responseInfo.getDesiredContentWriterMimeType() cannot be null");
 
+        // Codec formats are binary, so a charset would be meaningless.
+        if (contentCodecNegotiator != null
+            && contentCodecNegotiator.isCodecMimeType(responseInfo.getDesiredContentWriterMimeType())
+        ) {
+            return responseInfo.getDesiredContentWriterMimeType();
+        }
+
         return responseInfo.getDesiredContentWriterMimeType() + "; charset="
                + responseInfo.getDesiredContentWriterEncoding().name();
     }
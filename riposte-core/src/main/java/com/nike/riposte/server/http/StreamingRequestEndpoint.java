@@ -0,0 +1,95 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Extension of {@link NonblockingEndpoint} for endpoints that want to process the request payload incrementally as it
+ * arrives rather than having Riposte buffer the whole thing into memory first. {@link #executeStreaming(RequestInfo,
+ * RequestContentStream, Executor, ChannelHandlerContext)} is called as soon as the request's headers have arrived
+ * (and security validation etc has passed), and the payload is delivered via the given {@link RequestContentStream}.
+ * Since the stream applies backpressure to the caller's socket based on how fast the endpoint consumes it, these
+ * endpoints can accept uploads of any size using a constant amount of memory.
+ * <p/>
+ * Since the payload is never buffered, {@link RequestInfo#getRawContent()}, {@link RequestInfo#getContent()}, etc will
+ * not be populated for these endpoints, and there is no max request size by default (see {@link
+ * #maxRequestSizeInBytesOverride()}). Everything else works the same as for any other {@link NonblockingEndpoint} -
+ * in particular the returned {@link CompletableFuture} is subject to the usual timeout, so make sure {@link
+ * #completableFutureTimeoutOverrideMillis()} allows enough time to receive the largest payload you expect.
+ */
+@SuppressWarnings("WeakerAccess")
+public abstract class StreamingRequestEndpoint<O> implements NonblockingEndpoint<Void, O> {
+
+    /**
+     * This is where the logic for the endpoint goes. Subscribe to the given {@link RequestContentStream} and request
+     * chunks from it as you're ready for them - see the {@link RequestContentStream} javadocs for the details. You can
+     * complete the returned {@link CompletableFuture} whenever you're ready to respond. If you respond before the
+     * content stream completes then the rest of the payload will be discarded.
+     * <p/>
+     * This is called on a Netty worker I/O thread, so the same rules about never blocking apply here as for {@link
+     * NonblockingEndpoint#execute(RequestInfo, Executor, ChannelHandlerContext)}.
+     */
+    public abstract @NotNull CompletableFuture<ResponseInfo<O>> executeStreaming(
+        @NotNull RequestInfo<Void> request,
+        @NotNull RequestContentStream contentStream,
+        @NotNull Executor longRunningTaskExecutor,
+        @NotNull ChannelHandlerContext ctx
+    );
+
+    /**
+     * Delegates to {@link #executeStreaming(RequestInfo, RequestContentStream, Executor, ChannelHandlerContext)} with
+     * the {@link RequestContentStream} for the current request - implement that method instead.
+     */
+    @Override
+    public final @NotNull CompletableFuture<ResponseInfo<O>> execute(
+        @NotNull RequestInfo<Void> request,
+        @NotNull Executor longRunningTaskExecutor,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        RequestContentStream contentStream = (state == null) ? null : state.getRequestContentStream();
+        if (contentStream == null) {
+            throw new IllegalStateException(
+                "No RequestContentStream was found for this request. StreamingRequestEndpoints can only be executed "
+                + "by StreamingRequestEndpointExecutionHandler."
+            );
+        }
+
+        return executeStreaming(request, contentStream, longRunningTaskExecutor, ctx);
+    }
+
+    /**
+     * The payload is never buffered for streaming endpoints, so by default there's no limit on its size. Override this
+     * if you want Riposte to reject payloads over a certain size for you.
+     */
+    @Override
+    public @Nullable Integer maxRequestSizeInBytesOverride() {
+        return 0;
+    }
+
+    /**
+     * @return Always null - the payload is streamed to the endpoint, so it can't be deserialized up front.
+     */
+    @Override
+    public final @Nullable TypeReference<Void> requestContentType() {
+        return null;
+    }
+
+    /**
+     * @return Always null - requests with a streamed payload can't be coalesced since the payload isn't available
+     * when the coalescing key would need to be calculated.
+     */
+    @Override
+    public final @Nullable String requestCoalescingKey(@NotNull RequestInfo<Void> request) {
+        return null;
+    }
+}
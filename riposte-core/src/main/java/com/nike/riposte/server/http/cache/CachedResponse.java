@@ -0,0 +1,120 @@
+package com.nike.riposte.server.http.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+
+/**
+ * A fully serialized response held by a {@link ResponseCache}. The {@link #getContent()} buffer is owned by the cache
+ * and is released when the entry is evicted or replaced - callers that want to write it to a channel must use {@link
+ * #retainedContent()} to get their own reference-counted view of it rather than copying the bytes.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CachedResponse {
+
+    protected final @NotNull ByteBuf content;
+    protected final int httpStatusCode;
+    protected final @NotNull HttpHeaders headers;
+    protected final @Nullable String mimeType;
+    protected final @Nullable Charset charset;
+    protected final long createdAtNanos;
+    protected final long timeToLiveNanos;
+    protected final long staleWhileRevalidateNanos;
+    protected final AtomicBoolean revalidationClaimed = new AtomicBoolean(false);
+
+    public CachedResponse(
+        @NotNull ByteBuf content,
+        int httpStatusCode,
+        @NotNull HttpHeaders headers,
+        @Nullable String mimeType,
+        @Nullable Charset charset,
+        long createdAtNanos,
+        long timeToLiveMillis,
+        long staleWhileRevalidateMillis
+    ) {
+        this.content = content;
+        this.httpStatusCode = httpStatusCode;
+        this.headers = headers;
+        this.mimeType = mimeType;
+        this.charset = charset;
+        this.createdAtNanos = createdAtNanos;
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.staleWhileRevalidateNanos = TimeUnit.MILLISECONDS.toNanos(staleWhileRevalidateMillis);
+    }
+
+    /**
+     * @return The cache-owned serialized response body. Do not release this or write it to a channel directly - use
+     * {@link #retainedContent()} instead.
+     */
+    public @NotNull ByteBuf getContent() {
+        return content;
+    }
+
+    /**
+     * @return A retained duplicate of {@link #getContent()} that shares the cached bytes but has its own indexes, and
+     * which the caller is responsible for releasing (writing it to a channel does that). Throws {@link
+     * io.netty.util.IllegalReferenceCountException} if this entry was evicted and released concurrently.
+     */
+    public @NotNull ByteBuf retainedContent() {
+        return content.retainedDuplicate();
+    }
+
+    /**
+     * @return The size in bytes this entry counts against the cache's size limit.
+     */
+    public int getSizeInBytes() {
+        return content.readableBytes();
+    }
+
+    public int getHttpStatusCode() {
+        return httpStatusCode;
+    }
+
+    public @NotNull HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    public @Nullable String getMimeType() {
+        return mimeType;
+    }
+
+    public @Nullable Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return The age of this entry in whole seconds, suitable for an {@code Age} response header.
+     */
+    public long getAgeSeconds(long nowNanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(nowNanos - createdAtNanos);
+    }
+
+    /**
+     * @return true if this entry is still within its time-to-live.
+     */
+    public boolean isFresh(long nowNanos) {
+        return nowNanos - createdAtNanos < timeToLiveNanos;
+    }
+
+    /**
+     * @return true if this entry has expired but may still be served while it's being regenerated.
+     */
+    public boolean isWithinStaleWhileRevalidateWindow(long nowNanos) {
+        long age = nowNanos - createdAtNanos;
+        return age >= timeToLiveNanos && age < timeToLiveNanos + staleWhileRevalidateNanos;
+    }
+
+    /**
+     * Atomically claims the right to regenerate this stale entry. Only the first caller gets true - everyone else
+     * should keep being served this stale entry until the regenerated response replaces it.
+     */
+    public boolean claimRevalidation() {
+        return revalidationClaimed.compareAndSet(false, true);
+    }
+}
@@ -0,0 +1,228 @@
+package com.nike.riposte.server.http.cache;
+
+import com.nike.riposte.util.XxHash64;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+/**
+ * A size-bounded LRU store of compressed response payloads, keyed by a hash of the uncompressed content along with the
+ * content coding and compression level that produced them. This lets endpoints that return the same bytes over and
+ * over (config blobs, reference data, etc) skip running the compression encoder for every request - see {@link
+ * com.nike.riposte.server.http.ResponseCompressionPolicy#isCacheCompressedVariants()}.
+ *
+ * <p>Entries are looked up by the XXH64 hash and length of the content (see {@link #keyFor(ByteBuf, String,
+ * Integer)}), but XXH64 is not a cryptographic hash and collisions can be crafted. Each entry therefore also holds a
+ * copy of the uncompressed bytes it was produced from, and a lookup is only a hit if those bytes match the content
+ * being sent - so a collision costs a byte comparison and a compression, never a wrong response.
+ *
+ * <p>The size limit is the total number of uncompressed and compressed bytes held by the cache. Cached payloads are
+ * stored as byte arrays that are shared by every response they're sent with, so they must never be modified.
+ *
+ * <p>This class is thread safe. Map operations are O(1) and synchronized on this instance, while the byte copies
+ * and comparisons happen outside the lock.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CompressedVariantCache {
+
+    protected final long maxSizeInBytes;
+    // Access order, so iteration starts with the least recently used entry.
+    protected final LinkedHashMap<VariantKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    protected long currentSizeInBytes = 0;
+    protected final LongAdder hitCount = new LongAdder();
+    protected final LongAdder missCount = new LongAdder();
+
+    public CompressedVariantCache(long maxSizeInBytes) {
+        if (maxSizeInBytes <= 0) {
+            throw new IllegalArgumentException("maxSizeInBytes must be greater than 0");
+        }
+
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    /**
+     * @return The key identifying the compressed variant of the given buffer's readable bytes for the given content
+     * coding and compression level. The buffer's indexes are not modified.
+     */
+    public static @NotNull VariantKey keyFor(
+        @NotNull ByteBuf uncompressedContent,
+        @NotNull String contentEncoding,
+        @Nullable Integer compressionLevel
+    ) {
+        return new VariantKey(
+            XxHash64.hash(uncompressedContent), uncompressedContent.readableBytes(), contentEncoding, compressionLevel
+        );
+    }
+
+    /**
+     * @return The compressed bytes for the given key, or null if there are none or the cached entry was produced from
+     * content other than the given buffer's readable bytes (i.e. a hash collision). The buffer's indexes are not
+     * modified. The returned array is shared and must not be modified.
+     */
+    public @Nullable byte[] get(@NotNull VariantKey key, @NotNull ByteBuf uncompressedContent) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+
+        // The entry is immutable, so the (potentially large) comparison doesn't need to hold the lock.
+        if (entry == null || !entry.matches(uncompressedContent)) {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        return entry.compressedContent;
+    }
+
+    /**
+     * Stores the given compressed bytes for the given key along with a copy of the given buffer's readable bytes (the
+     * uncompressed content they were produced from), evicting least recently used entries as necessary to stay under
+     * {@link #getMaxSizeInBytes()}. The buffer's indexes are not modified. Ownership of the compressed array passes to
+     * this cache, so the caller must not modify it afterward. Entries larger than the entire cache are not stored.
+     *
+     * @return true if the payload was cached, false if it was too large.
+     */
+    public boolean put(
+        @NotNull VariantKey key, @NotNull ByteBuf uncompressedContent, @NotNull byte[] compressedContent
+    ) {
+        long entrySizeInBytes = (long) uncompressedContent.readableBytes() + compressedContent.length;
+        // Copy outside the lock, and only if the entry could possibly fit.
+        byte[] uncompressedCopy = (entrySizeInBytes > maxSizeInBytes)
+                                  ? null
+                                  : ByteBufUtil.getBytes(uncompressedContent);
+
+        synchronized (this) {
+            Entry replaced = entries.remove(key);
+            if (replaced != null) {
+                currentSizeInBytes -= replaced.sizeInBytes();
+            }
+
+            if (uncompressedCopy == null) {
+                return false;
+            }
+
+            entries.put(key, new Entry(uncompressedCopy, compressedContent));
+            currentSizeInBytes += entrySizeInBytes;
+
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (currentSizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+                Entry evicted = iterator.next();
+                iterator.remove();
+                currentSizeInBytes -= evicted.sizeInBytes();
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        currentSizeInBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentSizeInBytes() {
+        return currentSizeInBytes;
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+
+    /**
+     * @return The number of {@link #get(VariantKey)} calls that found a cached payload.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return The number of {@link #get(VariantKey)} calls that did not find a cached payload.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * A cached compressed payload along with the uncompressed content it was produced from.
+     */
+    protected static final class Entry {
+        private final @NotNull byte[] uncompressedContent;
+        private final @NotNull byte[] compressedContent;
+
+        protected Entry(@NotNull byte[] uncompressedContent, @NotNull byte[] compressedContent) {
+            this.uncompressedContent = uncompressedContent;
+            this.compressedContent = compressedContent;
+        }
+
+        protected boolean matches(@NotNull ByteBuf content) {
+            return content.readableBytes() == uncompressedContent.length
+                   && ByteBufUtil.equals(
+                       Unpooled.wrappedBuffer(uncompressedContent), 0, content, content.readerIndex(),
+                       uncompressedContent.length
+                   );
+        }
+
+        protected long sizeInBytes() {
+            return (long) uncompressedContent.length + compressedContent.length;
+        }
+    }
+
+    /**
+     * Identifies a compressed variant of some uncompressed content. See {@link #keyFor(ByteBuf, String, Integer)}.
+     */
+    public static final class VariantKey {
+        private final long contentHash;
+        private final int contentLength;
+        private final @NotNull String contentEncoding;
+        private final @Nullable Integer compressionLevel;
+
+        public VariantKey(
+            long contentHash,
+            int contentLength,
+            @NotNull String contentEncoding,
+            @Nullable Integer compressionLevel
+        ) {
+            this.contentHash = contentHash;
+            this.contentLength = contentLength;
+            this.contentEncoding = contentEncoding;
+            this.compressionLevel = compressionLevel;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof VariantKey)) {
+                return false;
+            }
+            VariantKey that = (VariantKey) o;
+            return contentHash == that.contentHash
+                   && contentLength == that.contentLength
+                   && contentEncoding.equals(that.contentEncoding)
+                   && Objects.equals(compressionLevel, that.compressionLevel);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(contentHash, contentLength, contentEncoding, compressionLevel);
+        }
+    }
+}
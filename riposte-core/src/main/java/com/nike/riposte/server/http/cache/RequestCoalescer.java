@@ -0,0 +1,303 @@
+package com.nike.riposte.server.http.cache;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.impl.FileResponseInfo;
+import com.nike.riposte.server.http.impl.FullResponseInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Coalesces concurrent identical requests (single-flight) so that they share a single in-flight execution. The first
+ * request for a given owner/key combination performs the execution, and any requests with the same owner/key that
+ * arrive before that execution completes simply wait for its result rather than doing the same work again. Once the
+ * execution completes the key is free again, so this is not a cache - it only deduplicates work that is *currently*
+ * in flight.
+ *
+ * <p>Every caller (including the one that performed the execution) receives its own copy of the resulting {@link
+ * ResponseInfo}, since the response pipeline mutates the {@link ResponseInfo} it sends. The copies share the same
+ * content object - {@link ByteBuf} content is shared via {@link ByteBuf#retainedDuplicate()} so that each copy can be
+ * released independently, and the original buffer is released once every caller has received its copy. Only {@link
+ * FullResponseInfo} and {@link FileResponseInfo} results can be copied - other (i.e. chunked) results cause the
+ * callers' futures to complete exceptionally.
+ *
+ * <p>Each caller's future is independent - completing or cancelling one (e.g. due to a timeout) does not affect the
+ * shared execution or the other callers.
+ *
+ * <p>This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RequestCoalescer {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    protected final @Nullable MetricsListener metricsListener;
+    protected final ConcurrentMap<CoalescingKey, InFlightExecution> inFlightExecutions = new ConcurrentHashMap<>();
+    protected final LongAdder executionCount = new LongAdder();
+    protected final LongAdder coalescedCount = new LongAdder();
+
+    /**
+     * @param metricsListener The {@link MetricsListener} that should be notified of {@link
+     * ServerMetricsEvent#REQUEST_COALESCING_EXECUTION} and {@link ServerMetricsEvent#REQUEST_COALESCED} events. Can be
+     * null if you don't need metrics.
+     */
+    public RequestCoalescer(@Nullable MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * @param owner The object that owns the key namespace (e.g. the endpoint being executed). Compared by identity.
+     * @param key The key identifying identical requests for the given owner.
+     * @param execution Performs the actual work. Only called if there is no in-flight execution for the owner/key.
+     * @return A future that will be completed with this caller's own copy of the shared execution's result.
+     */
+    public @NotNull CompletableFuture<ResponseInfo<?>> execute(
+        @NotNull Object owner,
+        @NotNull String key,
+        @NotNull Supplier<CompletableFuture<ResponseInfo<?>>> execution
+    ) {
+        CoalescingKey coalescingKey = new CoalescingKey(owner, key);
+        InFlightExecution[] createdHolder = new InFlightExecution[1];
+        InFlightExecution inFlight = inFlightExecutions.compute(coalescingKey, (k, existing) -> {
+            if (existing != null && existing.tryAddWaiter()) {
+                return existing;
+            }
+
+            createdHolder[0] = new InFlightExecution();
+            return createdHolder[0];
+        });
+
+        if (inFlight == createdHolder[0]) {
+            executionCount.increment();
+            notifyMetricsListener(ServerMetricsEvent.REQUEST_COALESCING_EXECUTION);
+            startExecution(coalescingKey, inFlight, execution);
+        }
+        else {
+            coalescedCount.increment();
+            notifyMetricsListener(ServerMetricsEvent.REQUEST_COALESCED);
+        }
+
+        CompletableFuture<ResponseInfo<?>> callerFuture = new CompletableFuture<>();
+        inFlight.sharedResult.whenComplete((sharedResponse, error) -> {
+            if (error != null) {
+                inFlight.waiterDone();
+                callerFuture.completeExceptionally(error);
+                return;
+            }
+
+            ResponseInfo<?> copy;
+            try {
+                copy = copyResponseInfo(sharedResponse);
+            }
+            catch (Throwable t) {
+                callerFuture.completeExceptionally(t);
+                return;
+            }
+            finally {
+                inFlight.waiterDone();
+            }
+
+            if (!callerFuture.complete(copy)) {
+                // The caller already gave up on this future (e.g. it timed out), so the copy will never be sent.
+                ReferenceCountUtil.safeRelease(copy.getContentForFullResponse());
+            }
+        });
+
+        return callerFuture;
+    }
+
+    protected void startExecution(
+        CoalescingKey coalescingKey,
+        InFlightExecution inFlight,
+        Supplier<CompletableFuture<ResponseInfo<?>>> execution
+    ) {
+        CompletableFuture<ResponseInfo<?>> executionFuture;
+        try {
+            executionFuture = execution.get();
+            if (executionFuture == null) {
+                throw new NullPointerException("The coalesced execution cannot return a null CompletableFuture.");
+            }
+        }
+        catch (Throwable t) {
+            executionFuture = new CompletableFuture<>();
+            executionFuture.completeExceptionally(t);
+        }
+
+        executionFuture.whenComplete((response, error) -> {
+            // Stop accepting new waiters before handing out the result, so that requests arriving from now on start a
+            //      fresh execution rather than receiving a response that may already be stale.
+            inFlight.close();
+            inFlightExecutions.remove(coalescingKey, inFlight);
+
+            if (error != null)
+                inFlight.sharedResult.completeExceptionally(error);
+            else
+                inFlight.sharedResult.complete(response);
+        });
+    }
+
+    /**
+     * @return A new {@link ResponseInfo} that can be sent and modified independently of the given one.
+     */
+    @SuppressWarnings("unchecked")
+    protected ResponseInfo<?> copyResponseInfo(ResponseInfo<?> orig) {
+        ResponseInfo<?> copy;
+        if (orig instanceof FileResponseInfo) {
+            FileResponseInfo origFile = (FileResponseInfo) orig;
+            copy = new FileResponseInfo(
+                origFile.getContentForFullResponse(), origFile.getFileOffset(), origFile.getFileLength(),
+                origFile.isRangeRequestsAllowed(), orig.getHttpStatusCode(),
+                new DefaultHttpHeaders().set(orig.getHeaders()), orig.getDesiredContentWriterMimeType(),
+                orig.getDesiredContentWriterEncoding(),
+                (orig.getCookies() == null) ? null : new HashSet<>(orig.getCookies()),
+                orig.isPreventCompressedOutput()
+            );
+        }
+        else if (orig instanceof FullResponseInfo) {
+            Object content = orig.getContentForFullResponse();
+            if (content instanceof ByteBuf) {
+                content = ((ByteBuf) content).retainedDuplicate();
+            }
+
+            copy = new FullResponseInfo<>(
+                content, orig.getHttpStatusCode(), new DefaultHttpHeaders().set(orig.getHeaders()),
+                orig.getDesiredContentWriterMimeType(), orig.getDesiredContentWriterEncoding(),
+                (orig.getCookies() == null) ? null : new HashSet<>(orig.getCookies()),
+                orig.isPreventCompressedOutput()
+            );
+        }
+        else {
+            throw new IllegalStateException(
+                "Only FullResponseInfo and FileResponseInfo responses can be shared between coalesced requests. "
+                + "response_class=" + ((orig == null) ? "null" : orig.getClass().getName())
+            );
+        }
+
+        copy.setForceConnectionCloseAfterResponseSent(orig.isForceConnectionCloseAfterResponseSent());
+        return copy;
+    }
+
+    protected void notifyMetricsListener(ServerMetricsEvent event) {
+        if (metricsListener == null) {
+            return;
+        }
+
+        try {
+            metricsListener.onEvent(event, null);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener blew up while handling a request coalescing event.", t);
+        }
+    }
+
+    /**
+     * @return The number of executions that have been started.
+     */
+    public long getExecutionCount() {
+        return executionCount.sum();
+    }
+
+    /**
+     * @return The number of requests that shared an in-flight execution rather than starting their own.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * @return The fraction of all requests passed to {@link #execute(Object, String, Supplier)} that were coalesced
+     * into an in-flight execution, between 0 and 1. Returns 0 if there have been no requests.
+     */
+    public double getCoalescingRatio() {
+        long coalesced = getCoalescedCount();
+        long total = coalesced + getExecutionCount();
+        return (total == 0) ? 0 : ((double) coalesced) / total;
+    }
+
+    /**
+     * @return The number of executions that are currently in flight.
+     */
+    public int getInFlightExecutionCount() {
+        return inFlightExecutions.size();
+    }
+
+    protected static final class CoalescingKey {
+        private final Object owner;
+        private final String key;
+
+        CoalescingKey(Object owner, String key) {
+            this.owner = owner;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CoalescingKey)) {
+                return false;
+            }
+            CoalescingKey that = (CoalescingKey) o;
+            return owner == that.owner && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(owner) + key.hashCode();
+        }
+    }
+
+    /**
+     * Tracks a single shared execution and the callers waiting on it, so that {@link ByteBuf} content can be released
+     * once the last waiter has made its copy.
+     */
+    protected static final class InFlightExecution {
+        final CompletableFuture<ResponseInfo<?>> sharedResult = new CompletableFuture<>();
+        // The caller that creates this instance is the first waiter.
+        private int waiters = 1;
+        private boolean closed = false;
+
+        synchronized boolean tryAddWaiter() {
+            if (closed) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        synchronized void close() {
+            closed = true;
+            releaseSharedContentIfNoLongerNeeded();
+        }
+
+        synchronized void waiterDone() {
+            waiters--;
+            releaseSharedContentIfNoLongerNeeded();
+        }
+
+        private void releaseSharedContentIfNoLongerNeeded() {
+            if (closed && waiters == 0 && sharedResult.isDone() && !sharedResult.isCompletedExceptionally()) {
+                ResponseInfo<?> sharedResponse = sharedResult.getNow(null);
+                if (sharedResponse != null && sharedResponse.getContentForFullResponse() instanceof ByteBuf) {
+                    ReferenceCountUtil.safeRelease(sharedResponse.getContentForFullResponse());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.nike.riposte.server.http.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * A size-bounded store of {@link CachedResponse}s using segmented LRU (SLRU) eviction. New entries are admitted into a
+ * probationary segment, and are only promoted into the protected segment when they are hit again. Eviction always
+ * takes from the least recently used end of the probationary segment first, so a burst of one-hit-wonder responses
+ * can't flush the frequently hit entries out of the cache. The protected segment is limited to {@link
+ * #PROTECTED_SEGMENT_PERCENTAGE} percent of the total size - entries that overflow it are demoted back to
+ * probation.
+ *
+ * <p>The size limit is the total number of serialized response body bytes held by the cache. Evicted or replaced
+ * entries have their buffers released, so anyone holding onto one must have retained it via {@link
+ * CachedResponse#retainedContent()}.
+ *
+ * <p>This class is thread safe. Operations are O(1) and synchronized on this instance.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ResponseCache {
+
+    /**
+     * The percentage of {@link #getMaxSizeInBytes()} that can be used by the protected segment.
+     */
+    public static final int PROTECTED_SEGMENT_PERCENTAGE = 80;
+
+    protected final long maxSizeInBytes;
+    protected final long maxProtectedSizeInBytes;
+
+    // Both maps are in access order, so iteration starts with the least recently used entry.
+    protected final LinkedHashMap<String, CachedResponse> probationSegment = new LinkedHashMap<>(16, 0.75f, true);
+    protected final LinkedHashMap<String, CachedResponse> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    protected long probationSizeInBytes = 0;
+    protected long protectedSizeInBytes = 0;
+
+    public ResponseCache(long maxSizeInBytes) {
+        if (maxSizeInBytes <= 0) {
+            throw new IllegalArgumentException("maxSizeInBytes must be greater than 0");
+        }
+
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.maxProtectedSizeInBytes = (maxSizeInBytes * PROTECTED_SEGMENT_PERCENTAGE) / 100;
+    }
+
+    /**
+     * @return The entry for the given key, or null if there isn't one. A hit on a probationary entry promotes it into
+     * the protected segment. Expiration is not considered here - that's up to the caller.
+     */
+    public synchronized @Nullable CachedResponse get(@NotNull String key) {
+        CachedResponse entry = protectedSegment.get(key);
+        if (entry != null) {
+            return entry;
+        }
+
+        entry = probationSegment.remove(key);
+        if (entry == null) {
+            return null;
+        }
+
+        // Second hit - promote to the protected segment, demoting protected entries as necessary to make room.
+        probationSizeInBytes -= entry.getSizeInBytes();
+        protectedSegment.put(key, entry);
+        protectedSizeInBytes += entry.getSizeInBytes();
+        Iterator<Map.Entry<String, CachedResponse>> protectedIterator = protectedSegment.entrySet().iterator();
+        while (protectedSizeInBytes > maxProtectedSizeInBytes && protectedIterator.hasNext()) {
+            Map.Entry<String, CachedResponse> lru = protectedIterator.next();
+            if (lru.getValue() == entry) {
+                break;
+            }
+            protectedIterator.remove();
+            protectedSizeInBytes -= lru.getValue().getSizeInBytes();
+            probationSegment.put(lru.getKey(), lru.getValue());
+            probationSizeInBytes += lru.getValue().getSizeInBytes();
+        }
+
+        return entry;
+    }
+
+    /**
+     * Adds the given entry to the probationary segment, replacing (and releasing) any existing entry for the key and
+     * evicting least recently used entries as necessary to stay under {@link #getMaxSizeInBytes()}. Ownership of the
+     * entry's buffer passes to this cache. Entries larger than the entire cache are released immediately rather than
+     * cached.
+     *
+     * @return true if the entry was cached, false if it was too large.
+     */
+    public synchronized boolean put(@NotNull String key, @NotNull CachedResponse entry) {
+        invalidate(key);
+
+        if (entry.getSizeInBytes() > maxSizeInBytes) {
+            ReferenceCountUtil.safeRelease(entry.getContent());
+            return false;
+        }
+
+        probationSegment.put(key, entry);
+        probationSizeInBytes += entry.getSizeInBytes();
+
+        evictUntilUnderMaxSize(probationSegment, true);
+        evictUntilUnderMaxSize(protectedSegment, false);
+
+        return true;
+    }
+
+    protected void evictUntilUnderMaxSize(LinkedHashMap<String, CachedResponse> segment, boolean isProbation) {
+        Iterator<CachedResponse> iterator = segment.values().iterator();
+        while (getCurrentSizeInBytes() > maxSizeInBytes && iterator.hasNext()) {
+            CachedResponse evicted = iterator.next();
+            iterator.remove();
+            if (isProbation)
+                probationSizeInBytes -= evicted.getSizeInBytes();
+            else
+                protectedSizeInBytes -= evicted.getSizeInBytes();
+            ReferenceCountUtil.safeRelease(evicted.getContent());
+        }
+    }
+
+    /**
+     * Removes and releases the entry for the given key (if any).
+     */
+    public synchronized void invalidate(@NotNull String key) {
+        CachedResponse removed = probationSegment.remove(key);
+        if (removed != null) {
+            probationSizeInBytes -= removed.getSizeInBytes();
+        }
+        else {
+            removed = protectedSegment.remove(key);
+            if (removed != null) {
+                protectedSizeInBytes -= removed.getSizeInBytes();
+            }
+        }
+
+        if (removed != null) {
+            ReferenceCountUtil.safeRelease(removed.getContent());
+        }
+    }
+
+    /**
+     * Removes and releases all entries.
+     */
+    public synchronized void invalidateAll() {
+        probationSegment.values().forEach(entry -> ReferenceCountUtil.safeRelease(entry.getContent()));
+        protectedSegment.values().forEach(entry -> ReferenceCountUtil.safeRelease(entry.getContent()));
+        probationSegment.clear();
+        protectedSegment.clear();
+        probationSizeInBytes = 0;
+        protectedSizeInBytes = 0;
+    }
+
+    public synchronized int size() {
+        return probationSegment.size() + protectedSegment.size();
+    }
+
+    public synchronized long getCurrentSizeInBytes() {
+        return probationSizeInBytes + protectedSizeInBytes;
+    }
+
+    public long getMaxSizeInBytes() {
+        return maxSizeInBytes;
+    }
+}
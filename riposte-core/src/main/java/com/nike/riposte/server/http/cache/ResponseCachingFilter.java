@@ -0,0 +1,599 @@
+package com.nike.riposte.server.http.cache;
+
+import com.nike.internal.util.Pair;
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.http.ContentCodec;
+import com.nike.riposte.server.http.ContentCodecNegotiator;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseCachePolicy;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.filter.ShortCircuitingRequestAndResponseFilter;
+import com.nike.riposte.server.http.impl.FullResponseInfo;
+import com.nike.riposte.util.HttpUtils;
+import com.nike.riposte.util.ObjectReaderWriterCache;
+import com.nike.wingtips.TraceHeaders;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.IllegalReferenceCountException;
+
+/**
+ * An opt-in server-side response cache, implemented as a {@link ShortCircuitingRequestAndResponseFilter}. Register it
+ * via {@link com.nike.riposte.server.config.ServerConfig#requestAndResponseFilters()}, and opt endpoints in by having
+ * them return a non-null {@link Endpoint#responseCachePolicy()}.
+ *
+ * <p>Successful (200) full responses to GET requests are serialized once and stored in a {@link ResponseCache} keyed by
+ * HTTP method, path, the query params selected by {@link ResponseCachePolicy#getKeyQueryParamNames()}, and the values
+ * of the request headers named by {@link ResponseCachePolicy#getVaryHeaderNames()}. Subsequent GET or HEAD requests
+ * with the same key are short circuited straight to the response sender with a retained duplicate of the cached
+ * {@link ByteBuf} - the endpoint isn't executed and nothing is serialized or copied. Cache hits get an {@code Age}
+ * response header.
+ *
+ * <p>If the filter is given the server's {@link com.nike.riposte.server.config.ServerConfig#contentCodecs()} then the
+ * response content is serialized with the {@link ContentCodec} negotiated from the request's Accept header, the same
+ * way the response sender would, and the negotiated codec is part of the cache key so callers asking for different
+ * formats never share an entry. Those responses also get a {@code Vary: Accept} header. Without the codecs, responses
+ * for cached endpoints are always serialized as JSON.
+ *
+ * <p>Cache-Control is honored in both directions: a request with {@code no-store} bypasses the cache entirely and one
+ * with {@code no-cache} skips the lookup (but still refreshes the entry), and responses with {@code no-store}, {@code
+ * no-cache}, or {@code private} are never stored, while a response {@code s-maxage} or {@code max-age} shortens the
+ * endpoint's TTL. Responses with cookies are never stored.
+ *
+ * <p>When an entry has expired but is still within its {@link ResponseCachePolicy#getStaleWhileRevalidateMillis()}
+ * window, exactly one request is let through to the endpoint to regenerate it while everyone else continues to be
+ * served the stale entry.
+ *
+ * <p>This filter executes after security validation (see {@link #shouldExecuteBeforeSecurityValidation()}) so that
+ * cached responses are never served to callers that would have been rejected, and so the endpoint is known.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ResponseCachingFilter implements ShortCircuitingRequestAndResponseFilter {
+
+    /**
+     * The request attribute used to remember the cache key of a request that missed the cache, so the response can be
+     * stored under that key.
+     */
+    public static final String CACHE_KEY_REQUEST_ATTR_KEY = ResponseCachingFilter.class.getName() + ".cacheKey";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    protected final @NotNull ResponseCache cache;
+    protected final @NotNull ObjectMapper defaultResponseContentSerializer;
+    protected final @Nullable ContentCodecNegotiator contentCodecNegotiator;
+
+    /**
+     * Creates a new instance backed by a new {@link ResponseCache} of the given max size.
+     *
+     * @param maxCacheSizeInBytes The max total size of the cached response bodies.
+     * @param defaultResponseContentSerializer The serializer to use for endpoints that don't specify a {@link
+     * Endpoint#customResponseContentSerializer(RequestInfo)}. This should be the same as your application's {@link
+     * com.nike.riposte.server.config.ServerConfig#defaultResponseContentSerializer()}. May be null, in which case a
+     * new no-arg {@link ObjectMapper} is used (the same as the response sender's default).
+     */
+    public ResponseCachingFilter(long maxCacheSizeInBytes, @Nullable ObjectMapper defaultResponseContentSerializer) {
+        this(maxCacheSizeInBytes, defaultResponseContentSerializer, null);
+    }
+
+    /**
+     * Creates a new instance backed by a new {@link ResponseCache} of the given max size.
+     *
+     * @param maxCacheSizeInBytes The max total size of the cached response bodies.
+     * @param defaultResponseContentSerializer The serializer to use for endpoints that don't specify a {@link
+     * Endpoint#customResponseContentSerializer(RequestInfo)}. This should be the same as your application's {@link
+     * com.nike.riposte.server.config.ServerConfig#defaultResponseContentSerializer()}. May be null, in which case a
+     * new no-arg {@link ObjectMapper} is used (the same as the response sender's default).
+     * @param contentCodecs The codecs response content can be serialized with. This should be the same as your
+     * application's {@link com.nike.riposte.server.config.ServerConfig#contentCodecs()}, otherwise callers that ask
+     * for one of those formats will be sent JSON. May be null or empty if the application only uses JSON.
+     */
+    public ResponseCachingFilter(
+        long maxCacheSizeInBytes,
+        @Nullable ObjectMapper defaultResponseContentSerializer,
+        @Nullable List<@NotNull ContentCodec> contentCodecs
+    ) {
+        this(new ResponseCache(maxCacheSizeInBytes), defaultResponseContentSerializer, contentCodecs);
+    }
+
+    public ResponseCachingFilter(
+        @NotNull ResponseCache cache,
+        @Nullable ObjectMapper defaultResponseContentSerializer
+    ) {
+        this(cache, defaultResponseContentSerializer, null);
+    }
+
+    public ResponseCachingFilter(
+        @NotNull ResponseCache cache,
+        @Nullable ObjectMapper defaultResponseContentSerializer,
+        @Nullable List<@NotNull ContentCodec> contentCodecs
+    ) {
+        //noinspection ConstantConditions
+        if (cache == null) {
+            throw new NullPointerException("cache cannot be null");
+        }
+
+        if (defaultResponseContentSerializer == null) {
+            defaultResponseContentSerializer = new ObjectMapper();
+        }
+
+        this.cache = cache;
+        this.defaultResponseContentSerializer = defaultResponseContentSerializer;
+        this.contentCodecNegotiator = (contentCodecs == null || contentCodecs.isEmpty())
+                                      ? null
+                                      : new ContentCodecNegotiator(contentCodecs);
+    }
+
+    public @NotNull ResponseCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public boolean shouldExecuteBeforeSecurityValidation() {
+        return false;
+    }
+
+    @Override
+    public <T> @Nullable Pair<RequestInfo<T>, Optional<ResponseInfo<?>>> filterRequestFirstChunkWithOptionalShortCircuitResponse(
+        @NotNull RequestInfo<T> currentRequestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        HttpMethod method = currentRequestInfo.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return null;
+        }
+
+        ResponseCachePolicy policy = getResponseCachePolicy(ctx);
+        if (policy == null) {
+            return null;
+        }
+
+        Set<String> requestCacheControl = parseCacheControlDirectives(
+            currentRequestInfo.getHeaders().getAll(HttpHeaderNames.CACHE_CONTROL)
+        );
+        if (requestCacheControl.contains("no-store")) {
+            return null;
+        }
+
+        String cacheKey = generateCacheKey(
+            currentRequestInfo, policy, negotiateResponseContentCodec(currentRequestInfo, ctx)
+        );
+
+        if (!requestCacheControl.contains("no-cache")) {
+            ResponseInfo<?> cachedResponse = lookupCachedResponse(cacheKey);
+            if (cachedResponse != null) {
+                return Pair.of(currentRequestInfo, Optional.of(cachedResponse));
+            }
+        }
+
+        // HEAD requests never populate the cache since they have no body to store.
+        if (HttpMethod.GET.equals(method)) {
+            currentRequestInfo.addRequestAttribute(CACHE_KEY_REQUEST_ATTR_KEY, cacheKey);
+        }
+
+        return null;
+    }
+
+    @Override
+    public <T> @Nullable Pair<RequestInfo<T>, Optional<ResponseInfo<?>>> filterRequestLastChunkWithOptionalShortCircuitResponse(
+        @NotNull RequestInfo<T> currentRequestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        return null;
+    }
+
+    @Override
+    public <T> @Nullable ResponseInfo<T> filterResponse(
+        @NotNull ResponseInfo<T> currentResponseInfo,
+        @NotNull RequestInfo<?> requestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        Object cacheKey = requestInfo.getRequestAttributes().get(CACHE_KEY_REQUEST_ATTR_KEY);
+        if (!(cacheKey instanceof String)) {
+            return currentResponseInfo;
+        }
+
+        ResponseCachePolicy policy = getResponseCachePolicy(ctx);
+        if (policy == null || !isResponseCacheable(currentResponseInfo)) {
+            return currentResponseInfo;
+        }
+
+        Long timeToLiveMillis = determineTimeToLiveMillis(currentResponseInfo, policy);
+        if (timeToLiveMillis == null) {
+            return currentResponseInfo;
+        }
+
+        // The response sender only negotiates a codec for content it has to serialize, so once the content has been
+        //      swapped for bytes below the negotiation has to happen here instead.
+        ContentCodec contentCodec = null;
+        if (isContentCodecNegotiationApplicable(currentResponseInfo, requestInfo, ctx)) {
+            HttpHeaders responseHeaders = currentResponseInfo.getHeaders();
+            if (!responseHeaders.containsValue(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT, true)) {
+                responseHeaders.add(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT);
+            }
+            contentCodec = negotiateResponseContentCodec(requestInfo, ctx);
+        }
+
+        ByteBuf serialized = (contentCodec == null)
+                             ? serializeContent(currentResponseInfo, requestInfo, ctx)
+                             : serializeContentWithCodec(currentResponseInfo, contentCodec);
+        if (serialized == null) {
+            return currentResponseInfo;
+        }
+
+        if (contentCodec != null) {
+            currentResponseInfo.setDesiredContentWriterMimeType(contentCodec.mimeType().toString());
+        }
+
+        HttpHeaders headersToCache = new DefaultHttpHeaders().add(currentResponseInfo.getHeaders());
+        headersToCache.remove(TraceHeaders.TRACE_ID);
+
+        // Send the already-serialized bytes so the response sender doesn't serialize the content a second time. This
+        //      must be retained before the entry is handed to the cache, since the cache may release it immediately.
+        ByteBuf contentForResponse = (currentResponseInfo.getContentForFullResponse() instanceof ByteBuf)
+                                     ? null
+                                     : serialized.retainedDuplicate();
+
+        cache.put((String) cacheKey, new CachedResponse(
+            serialized,
+            HttpResponseStatus.OK.code(),
+            headersToCache,
+            currentResponseInfo.getDesiredContentWriterMimeType(),
+            currentResponseInfo.getDesiredContentWriterEncoding(),
+            System.nanoTime(),
+            timeToLiveMillis,
+            policy.getStaleWhileRevalidateMillis()
+        ));
+
+        if (contentForResponse != null) {
+            // This swaps the T content for its serialized bytes, which the response sender sends as-is regardless of
+            //      the ResponseInfo's declared content type.
+            @SuppressWarnings("unchecked")
+            ResponseInfo<Object> responseInfoWithBytes = (ResponseInfo<Object>) currentResponseInfo;
+            responseInfoWithBytes.setContentForFullResponse(contentForResponse);
+        }
+
+        return currentResponseInfo;
+    }
+
+    protected @Nullable ResponseCachePolicy getResponseCachePolicy(@NotNull ChannelHandlerContext ctx) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        if (state == null) {
+            return null;
+        }
+
+        Endpoint<?> endpoint = state.getEndpointForExecution();
+        return (endpoint == null) ? null : endpoint.responseCachePolicy();
+    }
+
+    /**
+     * @return A response built from the cached entry for the given key, or null if there's no usable entry (missing,
+     * expired, or stale but this caller should regenerate it).
+     */
+    protected @Nullable ResponseInfo<?> lookupCachedResponse(@NotNull String cacheKey) {
+        CachedResponse entry = cache.get(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+
+        long now = System.nanoTime();
+        if (!entry.isFresh(now)) {
+            if (!entry.isWithinStaleWhileRevalidateWindow(now)) {
+                cache.invalidate(cacheKey);
+                return null;
+            }
+
+            if (entry.claimRevalidation()) {
+                // This caller gets to regenerate the entry - everyone else keeps getting the stale one.
+                return null;
+            }
+        }
+
+        ByteBuf content;
+        try {
+            content = entry.retainedContent();
+        }
+        catch (IllegalReferenceCountException ex) {
+            // The entry was evicted and released out from under us. Treat it as a miss.
+            return null;
+        }
+
+        HttpHeaders headers = new DefaultHttpHeaders().add(entry.getHeaders());
+        headers.set(HttpHeaderNames.AGE, entry.getAgeSeconds(now));
+
+        return ResponseInfo.newBuilder(content)
+                           .withHttpStatusCode(entry.getHttpStatusCode())
+                           .withHeaders(headers)
+                           .withDesiredContentWriterMimeType(entry.getMimeType())
+                           .withDesiredContentWriterEncoding(entry.getCharset())
+                           .build();
+    }
+
+    protected boolean isResponseCacheable(@NotNull ResponseInfo<?> responseInfo) {
+        if (responseInfo.isChunkedResponse()
+            || !(responseInfo instanceof FullResponseInfo)
+            || responseInfo.getContentForFullResponse() == null
+            || responseInfo.getHttpStatusCodeWithDefault(HttpResponseStatus.OK.code()) != HttpResponseStatus.OK.code()
+        ) {
+            return false;
+        }
+
+        if (responseInfo.getCookies() != null && !responseInfo.getCookies().isEmpty()) {
+            return false;
+        }
+
+        return !responseInfo.getHeaders().contains(HttpHeaderNames.SET_COOKIE);
+    }
+
+    /**
+     * @return The TTL to use for the given response based on the policy and the response's Cache-Control header, or
+     * null if the response's Cache-Control header forbids caching it.
+     */
+    protected @Nullable Long determineTimeToLiveMillis(
+        @NotNull ResponseInfo<?> responseInfo, @NotNull ResponseCachePolicy policy
+    ) {
+        long ttl = policy.getTimeToLiveMillis();
+        List<String> cacheControlHeaders = responseInfo.getHeaders().getAll(HttpHeaderNames.CACHE_CONTROL);
+        if (cacheControlHeaders.isEmpty()) {
+            return ttl;
+        }
+
+        Set<String> directives = parseCacheControlDirectives(cacheControlHeaders);
+        if (directives.contains("no-store") || directives.contains("no-cache") || directives.contains("private")) {
+            return null;
+        }
+
+        Long maxAgeSeconds = null;
+        for (String directive : directives) {
+            // s-maxage is the shared-cache specific value so it wins over max-age.
+            if (directive.startsWith("s-maxage=")) {
+                maxAgeSeconds = parseDeltaSeconds(directive.substring("s-maxage=".length()));
+                break;
+            }
+            if (directive.startsWith("max-age=")) {
+                maxAgeSeconds = parseDeltaSeconds(directive.substring("max-age=".length()));
+            }
+        }
+
+        if (maxAgeSeconds != null) {
+            if (maxAgeSeconds <= 0) {
+                return null;
+            }
+            ttl = Math.min(ttl, TimeUnit.SECONDS.toMillis(maxAgeSeconds));
+        }
+
+        return ttl;
+    }
+
+    /**
+     * @return The response content serialized the same way the response sender would serialize it, or null if it
+     * could not be serialized (in which case it is left for the response sender to deal with).
+     */
+    protected @Nullable ByteBuf serializeContent(
+        @NotNull ResponseInfo<?> responseInfo, @NotNull RequestInfo<?> requestInfo, @NotNull ChannelHandlerContext ctx
+    ) {
+        Object content = responseInfo.getContentForFullResponse();
+        if (content instanceof ByteBuf) {
+            // Already serialized. The cache keeps its own reference to the same bytes.
+            return ((ByteBuf) content).retainedDuplicate();
+        }
+
+        if (content instanceof byte[]) {
+            return Unpooled.wrappedBuffer((byte[]) content);
+        }
+
+        Charset charset = (responseInfo.getDesiredContentWriterEncoding() == null)
+                          ? HttpUtils.determineCharsetFromContentType(
+                              responseInfo.getHeaders(), ResponseInfo.DEFAULT_CONTENT_ENCODING
+                          )
+                          : responseInfo.getDesiredContentWriterEncoding();
+
+        if (content instanceof CharSequence) {
+            return Unpooled.copiedBuffer((CharSequence) content, charset);
+        }
+
+        ObjectMapper serializer = getCustomResponseContentSerializer(requestInfo, ctx);
+        if (serializer == null) {
+            serializer = defaultResponseContentSerializer;
+        }
+
+        try {
+            // Use the same cached type-bound writer as the response sender, so the cached bytes match what it would
+            //      have sent and the type isn't resolved again on every miss.
+            String serializedContent = ObjectReaderWriterCache.getDefaultInstance()
+                                                              .writerFor(serializer, content.getClass())
+                                                              .writeValueAsString(content);
+            return Unpooled.copiedBuffer(serializedContent, charset);
+        }
+        catch (JsonProcessingException e) {
+            logger.warn("Unable to serialize response content for caching. The response will not be cached.", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return The response content serialized with the given codec, or null if the codec could not serialize it (in
+     * which case it is left for the response sender, which falls back to JSON).
+     */
+    protected @Nullable ByteBuf serializeContentWithCodec(
+        @NotNull ResponseInfo<?> responseInfo, @NotNull ContentCodec contentCodec
+    ) {
+        Object content = responseInfo.getContentForFullResponse();
+        if (content == null) {
+            return null;
+        }
+
+        try {
+            // Cache entries can live for a long time, so they're kept out of the pooled allocator's arenas.
+            return contentCodec.serialize(content, UnpooledByteBufAllocator.DEFAULT);
+        }
+        catch (Throwable t) {
+            logger.warn("Unable to serialize response content with the negotiated content codec for caching. The "
+                        + "response will not be cached. codec_mime_type={}", contentCodec.mimeType(), t);
+            return null;
+        }
+    }
+
+    protected @Nullable ObjectMapper getCustomResponseContentSerializer(
+        @NotNull RequestInfo<?> requestInfo, @NotNull ChannelHandlerContext ctx
+    ) {
+        HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+        Endpoint<?> endpoint = (state == null) ? null : state.getEndpointForExecution();
+        return (endpoint == null) ? null : endpoint.customResponseContentSerializer(requestInfo);
+    }
+
+    /**
+     * @return The codec the response sender would serialize this request's response content with based on its Accept
+     * header, or null if the content would be serialized as JSON (including when the endpoint has a {@link
+     * Endpoint#customResponseContentSerializer(RequestInfo)}, which always wins over the codecs).
+     */
+    protected @Nullable ContentCodec negotiateResponseContentCodec(
+        @NotNull RequestInfo<?> requestInfo, @NotNull ChannelHandlerContext ctx
+    ) {
+        if (contentCodecNegotiator == null || getCustomResponseContentSerializer(requestInfo, ctx) != null) {
+            return null;
+        }
+
+        HttpHeaders requestHeaders = requestInfo.getHeaders();
+        return contentCodecNegotiator.codecForAccept(
+            (requestHeaders == null) ? null : requestHeaders.get(HttpHeaderNames.ACCEPT)
+        );
+    }
+
+    /**
+     * @return true if the response sender would negotiate a codec for the given response, i.e. there are codecs, the
+     * endpoint has no custom serializer, and the content is an object that hasn't been given a mime type yet. See
+     * {@link com.nike.riposte.server.http.ResponseSender#applyNegotiatedContentCodec(ChannelHandlerContext,
+     * RequestInfo, ResponseInfo, ContentCodecNegotiator)}.
+     */
+    protected boolean isContentCodecNegotiationApplicable(
+        @NotNull ResponseInfo<?> responseInfo, @NotNull RequestInfo<?> requestInfo, @NotNull ChannelHandlerContext ctx
+    ) {
+        Object content = responseInfo.getContentForFullResponse();
+        if (contentCodecNegotiator == null
+            || content == null
+            || content instanceof CharSequence
+            || content instanceof byte[]
+            || content instanceof ByteBuf
+        ) {
+            return false;
+        }
+
+        if (responseInfo.getDesiredContentWriterMimeType() != null
+            || responseInfo.getHeaders().contains(HttpHeaderNames.CONTENT_TYPE)
+        ) {
+            return false;
+        }
+
+        return getCustomResponseContentSerializer(requestInfo, ctx) == null;
+    }
+
+    /**
+     * @return A cache key made up of the HTTP method (HEAD shares GET's entries), the decoded path, the selected query
+     * params, the values of the policy's vary headers, and the negotiated response content codec (if any). Every
+     * variable part is length-prefixed (e.g. {@code 4:/foo}) so that delimiter chars inside a decoded path, param, or
+     * header value can't make two different requests produce the same key.
+     */
+    protected @NotNull String generateCacheKey(@NotNull RequestInfo<?> requestInfo,
+                                               @NotNull ResponseCachePolicy policy,
+                                               @Nullable ContentCodec responseContentCodec) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append("GET ");
+        appendCacheKeyPart(sb, requestInfo.getPath());
+
+        Set<String> keyQueryParamNames = policy.getKeyQueryParamNames();
+        Map<String, List<String>> queryParams = requestInfo.getQueryParams().parameters();
+        if (!queryParams.isEmpty() && (keyQueryParamNames == null || !keyQueryParamNames.isEmpty())) {
+            Collection<String> paramNames = (keyQueryParamNames == null)
+                                            ? new TreeMap<>(queryParams).keySet()
+                                            : keyQueryParamNames;
+            for (String paramName : paramNames) {
+                List<String> values = queryParams.get(paramName);
+                if (values == null) {
+                    continue;
+                }
+                for (String value : values) {
+                    sb.append('&');
+                    appendCacheKeyPart(sb, paramName);
+                    sb.append('=');
+                    appendCacheKeyPart(sb, value);
+                }
+            }
+        }
+
+        for (String headerName : policy.getVaryHeaderNames()) {
+            List<String> headerValues = requestInfo.getHeaders().getAll(headerName);
+            sb.append('\n');
+            appendCacheKeyPart(sb, headerName);
+            sb.append('#').append(headerValues.size());
+            for (String headerValue : headerValues) {
+                sb.append(':');
+                appendCacheKeyPart(sb, headerValue);
+            }
+        }
+
+        if (responseContentCodec != null) {
+            sb.append("\ncodec ");
+            appendCacheKeyPart(sb, responseContentCodec.mimeType().toString());
+        }
+
+        return sb.toString();
+    }
+
+    protected static void appendCacheKeyPart(@NotNull StringBuilder sb, @NotNull String part) {
+        sb.append(part.length()).append(':').append(part);
+    }
+
+    protected static @NotNull Set<String> parseCacheControlDirectives(@Nullable List<String> cacheControlHeaders) {
+        if (cacheControlHeaders == null || cacheControlHeaders.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<String> directives = new LinkedHashSet<>();
+        for (String header : cacheControlHeaders) {
+            for (String directive : header.split(",")) {
+                String trimmed = directive.trim().toLowerCase();
+                if (!trimmed.isEmpty()) {
+                    directives.add(trimmed);
+                }
+            }
+        }
+        return directives;
+    }
+
+    protected static @Nullable Long parseDeltaSeconds(@NotNull String value) {
+        try {
+            return Long.parseLong(value.replace("\"", "").trim());
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
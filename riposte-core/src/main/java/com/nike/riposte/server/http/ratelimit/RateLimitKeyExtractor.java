@@ -0,0 +1,122 @@
+package com.nike.riposte.server.http.ratelimit;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+
+/**
+ * Extracts the key that a {@link RateLimitingFilter} rate limits a request by. Requests for which this returns null are
+ * not rate limited. Implementations are called on the Netty event loop for every request, so they should be cheap and
+ * ideally shouldn't allocate - the built-in extractors only ever return objects that already exist (header values,
+ * endpoints, or a remote address that is computed once per connection).
+ */
+@FunctionalInterface
+public interface RateLimitKeyExtractor {
+
+    /**
+     * The channel attribute used by {@link #remoteIpAddress()} to remember the remote IP address of a connection so it
+     * only has to be computed once.
+     */
+    AttributeKey<String> REMOTE_IP_ADDRESS_ATTRIBUTE_KEY = AttributeKey.valueOf("RateLimitRemoteIpAddress");
+
+    /**
+     * @return The rate limiting key for the given request, or null if the request shouldn't be rate limited.
+     */
+    @Nullable Object extractKey(@NotNull RequestInfo<?> requestInfo, @NotNull ChannelHandlerContext ctx);
+
+    /**
+     * @return true if this extractor needs to know which endpoint the request was routed to. Filters using such an
+     * extractor run after security validation (after routing) rather than before it. Defaults to false.
+     */
+    default boolean requiresRoutedEndpoint() {
+        return false;
+    }
+
+    /**
+     * @return An extractor that uses the value of the given request header, for example an API key header.
+     */
+    static @NotNull RateLimitKeyExtractor header(@NotNull String headerName) {
+        return (requestInfo, ctx) -> requestInfo.getHeaders().get(headerName);
+    }
+
+    /**
+     * @return An extractor that uses the value of the first of the given request headers that is present. Pass in
+     * {@link com.nike.riposte.server.config.ServerConfig#userIdHeaderKeys()} to rate limit per user.
+     */
+    static @NotNull RateLimitKeyExtractor firstHeaderOf(@NotNull List<String> headerNames) {
+        List<String> headerNamesCopy = new ArrayList<>(headerNames);
+        return (requestInfo, ctx) -> {
+            //noinspection ForLoopReplaceableByForEach - Avoid allocating an iterator on every request.
+            for (int i = 0; i < headerNamesCopy.size(); i++) {
+                String value = requestInfo.getHeaders().get(headerNamesCopy.get(i));
+                if (value != null)
+                    return value;
+            }
+
+            return null;
+        };
+    }
+
+    /**
+     * @return An extractor that uses the IP address of the caller's connection. Note that if your server sits behind
+     * a load balancer or proxy this will be the proxy's address - use {@link #header(String)} with the appropriate
+     * forwarding header instead in that case.
+     */
+    static @NotNull RateLimitKeyExtractor remoteIpAddress() {
+        return (requestInfo, ctx) -> {
+            Channel channel = ctx.channel();
+            Attribute<String> remoteIpAttr = channel.attr(REMOTE_IP_ADDRESS_ATTRIBUTE_KEY);
+            String remoteIp = remoteIpAttr.get();
+            if (remoteIp == null) {
+                SocketAddress remoteAddress = channel.remoteAddress();
+                if (remoteAddress instanceof InetSocketAddress) {
+                    InetSocketAddress inetRemoteAddress = (InetSocketAddress) remoteAddress;
+                    remoteIp = (inetRemoteAddress.getAddress() == null)
+                               ? inetRemoteAddress.getHostString()
+                               : inetRemoteAddress.getAddress().getHostAddress();
+                }
+                else if (remoteAddress != null) {
+                    remoteIp = remoteAddress.toString();
+                }
+
+                remoteIpAttr.set(remoteIp);
+            }
+
+            return remoteIp;
+        };
+    }
+
+    /**
+     * @return An extractor that uses the endpoint the request was routed to, giving each endpoint its own rate limit
+     * shared by all callers.
+     */
+    static @NotNull RateLimitKeyExtractor endpoint() {
+        return new RateLimitKeyExtractor() {
+            @Override
+            public @Nullable Object extractKey(
+                @NotNull RequestInfo<?> requestInfo, @NotNull ChannelHandlerContext ctx
+            ) {
+                HttpProcessingState state = ChannelAttributes.getHttpProcessingStateForChannel(ctx).get();
+                return (state == null) ? null : state.getEndpointForExecution();
+            }
+
+            @Override
+            public boolean requiresRoutedEndpoint() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package com.nike.riposte.server.http.ratelimit;
+
+import com.nike.internal.util.Pair;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.filter.ShortCircuitingRequestAndResponseFilter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/**
+ * A token-bucket rate limiting filter, implemented as a {@link ShortCircuitingRequestAndResponseFilter}. Register it
+ * via {@link com.nike.riposte.server.config.ServerConfig#requestAndResponseFilters()}.
+ *
+ * <p>Each request is assigned a key by the {@link RateLimitKeyExtractor} (e.g. a header value, the user ID, the
+ * caller's IP address, or the endpoint), and takes a token from that key's bucket in a {@link TokenBucketRateLimiter}.
+ * Requests whose bucket is empty are short circuited with a 429 response with a {@code Retry-After} header. Requests
+ * without a key are not rate limited. To rate limit by more than one thing (e.g. per client and per endpoint), register
+ * one filter for each.
+ *
+ * <p>The filter runs on the Netty event loop and the allowed path does no locking and no allocation. It runs before
+ * security validation so rejected requests are as cheap as possible, unless the key extractor needs the routed
+ * endpoint (see {@link RateLimitKeyExtractor#requiresRoutedEndpoint()}), in which case it runs after.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RateLimitingFilter implements ShortCircuitingRequestAndResponseFilter {
+
+    protected final @NotNull RateLimitKeyExtractor keyExtractor;
+    protected final @NotNull TokenBucketRateLimiter rateLimiter;
+
+    /**
+     * Creates a new instance backed by a new {@link TokenBucketRateLimiter}. See {@link
+     * TokenBucketRateLimiter#TokenBucketRateLimiter(double, int, int)} for details on the arguments.
+     */
+    public RateLimitingFilter(
+        @NotNull RateLimitKeyExtractor keyExtractor,
+        double permitsPerSecond,
+        int burstCapacity,
+        int maxTrackedKeys
+    ) {
+        this(keyExtractor, new TokenBucketRateLimiter(permitsPerSecond, burstCapacity, maxTrackedKeys));
+    }
+
+    public RateLimitingFilter(
+        @NotNull RateLimitKeyExtractor keyExtractor,
+        @NotNull TokenBucketRateLimiter rateLimiter
+    ) {
+        //noinspection ConstantConditions
+        if (keyExtractor == null) {
+            throw new NullPointerException("keyExtractor cannot be null");
+        }
+
+        //noinspection ConstantConditions
+        if (rateLimiter == null) {
+            throw new NullPointerException("rateLimiter cannot be null");
+        }
+
+        this.keyExtractor = keyExtractor;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean shouldExecuteBeforeSecurityValidation() {
+        return !keyExtractor.requiresRoutedEndpoint();
+    }
+
+    @Override
+    public <T> @Nullable Pair<RequestInfo<T>, Optional<ResponseInfo<?>>> filterRequestFirstChunkWithOptionalShortCircuitResponse(
+        @NotNull RequestInfo<T> currentRequestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        Object key = keyExtractor.extractKey(currentRequestInfo, ctx);
+        if (key == null)
+            return null;
+
+        long waitNanos = rateLimiter.tryAcquire(key);
+        if (waitNanos == 0)
+            return null;
+
+        return Pair.of(currentRequestInfo, Optional.of(generateTooManyRequestsResponse(waitNanos)));
+    }
+
+    /**
+     * @param waitNanos How long until the caller's bucket will have a token available.
+     * @return The 429 response to send to a caller that has been rate limited.
+     */
+    protected @NotNull ResponseInfo<?> generateTooManyRequestsResponse(long waitNanos) {
+        // Retry-After is in whole seconds, so round up to make sure a retry at that time will succeed.
+        long nanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+        long retryAfterSeconds = Math.max(1, (waitNanos + nanosPerSecond - 1) / nanosPerSecond);
+
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder()
+                                                   .withHttpStatusCode(HttpResponseStatus.TOO_MANY_REQUESTS.code())
+                                                   .build();
+        responseInfo.getHeaders().set(HttpHeaderNames.RETRY_AFTER, retryAfterSeconds);
+        return responseInfo;
+    }
+
+    @Override
+    public <T> @Nullable Pair<RequestInfo<T>, Optional<ResponseInfo<?>>> filterRequestLastChunkWithOptionalShortCircuitResponse(
+        @NotNull RequestInfo<T> currentRequestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        // Rate limiting is decided entirely on the first chunk. Nothing to do here.
+        return null;
+    }
+
+    @Override
+    public <T> @Nullable ResponseInfo<T> filterResponse(
+        @NotNull ResponseInfo<T> currentResponseInfo,
+        @NotNull RequestInfo<?> requestInfo,
+        @NotNull ChannelHandlerContext ctx
+    ) {
+        // Nothing to do for responses.
+        return null;
+    }
+}
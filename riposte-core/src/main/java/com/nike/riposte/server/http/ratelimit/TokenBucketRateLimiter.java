@@ -0,0 +1,138 @@
+package com.nike.riposte.server.http.ratelimit;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free, fixed-size table of token buckets - one bucket per key, with every bucket sharing the same refill rate
+ * and burst capacity. Each bucket holds up to {@code burstCapacity} tokens and refills at {@code permitsPerSecond}.
+ * Each call to {@link #tryAcquire(Object)} takes one token from the key's bucket if one is available.
+ * <p/>
+ * Buckets are refilled lazily: rather than storing a token count and periodically topping it up, each bucket stores
+ * the single {@code long} "theoretical arrival time" at which it would next be completely full (the GCRA formulation of
+ * a token bucket). Taking a token pushes that time forward by one refill interval, and a request is allowed as long
+ * as that doesn't push it more than {@code burstCapacity} intervals past now. This means each bucket's entire state is
+ * updated with a single compare-and-set, no background refill task is needed, and nothing is allocated when acquiring.
+ * <p/>
+ * The table has room for a fixed number of keys (rounded up to a power of 2), so memory stays bounded no matter how
+ * many distinct keys are seen. Keys are hashed into the table with a short linear probe. When a new key finds no free
+ * or matching slot within its probe window, it takes over the slot whose bucket has been idle the longest. If that
+ * bucket had already refilled completely, the eviction loses nothing. Under heavy key churn or races between an
+ * eviction and a concurrent acquire, a request may occasionally be counted against the wrong bucket or get a fresh
+ * bucket - rate limiting is approximate in those edge cases, in exchange for never blocking.
+ */
+@SuppressWarnings("WeakerAccess")
+public class TokenBucketRateLimiter {
+
+    /**
+     * The number of slots a key will try (starting from its hash slot) before evicting another key.
+     */
+    protected static final int MAX_PROBES = 8;
+
+    protected final long refillIntervalNanos;
+    protected final long burstToleranceNanos;
+    protected final int mask;
+    protected final AtomicReferenceArray<Object> keys;
+    // Relative to startTimeNanos. A value at or before "now" means the bucket is full, so 0 means "full" for new slots.
+    protected final AtomicLongArray theoreticalArrivalTimes;
+    protected final long startTimeNanos = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond The rate at which each bucket refills. Must be greater than 0.
+     * @param burstCapacity The max number of tokens each bucket can hold, i.e. how many requests a key can make in a
+     * burst after being idle. Must be at least 1.
+     * @param maxTrackedKeys The number of keys the table has room for. This will be rounded up to a power of 2 (and to
+     * at least {@link #MAX_PROBES}).
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burstCapacity, int maxTrackedKeys) {
+        if (permitsPerSecond <= 0)
+            throw new IllegalArgumentException("permitsPerSecond must be greater than 0");
+
+        if (burstCapacity < 1)
+            throw new IllegalArgumentException("burstCapacity must be at least 1");
+
+        if (maxTrackedKeys < 1)
+            throw new IllegalArgumentException("maxTrackedKeys must be at least 1");
+
+        this.refillIntervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstToleranceNanos = refillIntervalNanos * burstCapacity;
+
+        int tableSize = Integer.highestOneBit(Math.max(MAX_PROBES, maxTrackedKeys) - 1) << 1;
+        this.mask = tableSize - 1;
+        this.keys = new AtomicReferenceArray<>(tableSize);
+        this.theoreticalArrivalTimes = new AtomicLongArray(tableSize);
+    }
+
+    /**
+     * Takes a token from the given key's bucket if one is available.
+     *
+     * @param key The key identifying the bucket. Must have reasonable {@link Object#equals(Object)} and {@link
+     * Object#hashCode()} implementations.
+     * @return 0 if a token was taken (the request is allowed), otherwise the number of nanoseconds until a token will
+     * be available.
+     */
+    public long tryAcquire(@NotNull Object key) {
+        return tryAcquire(key, System.nanoTime() - startTimeNanos);
+    }
+
+    protected long tryAcquire(@NotNull Object key, long nowNanos) {
+        int slot = slotFor(key);
+        while (true) {
+            long storedTat = theoreticalArrivalTimes.get(slot);
+            long newTat = Math.max(storedTat, nowNanos) + refillIntervalNanos;
+            long waitNanos = newTat - nowNanos - burstToleranceNanos;
+            if (waitNanos > 0)
+                return waitNanos;
+
+            if (theoreticalArrivalTimes.compareAndSet(slot, storedTat, newTat))
+                return 0;
+        }
+    }
+
+    protected int slotFor(@NotNull Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        int startSlot = hash & mask;
+
+        int evictionCandidate = startSlot;
+        long evictionCandidateTat = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int slot = (startSlot + i) & mask;
+            Object existingKey = keys.get(slot);
+            if (existingKey == null) {
+                if (keys.compareAndSet(slot, null, key))
+                    return slot;
+
+                // Someone else claimed the slot first - see if it was for the same key.
+                existingKey = keys.get(slot);
+            }
+
+            if (existingKey == key || existingKey.equals(key))
+                return slot;
+
+            long tat = theoreticalArrivalTimes.get(slot);
+            if (tat < evictionCandidateTat) {
+                evictionCandidate = slot;
+                evictionCandidateTat = tat;
+            }
+        }
+
+        // No free or matching slot, so take over the one that has been idle the longest, and give the new key a full
+        //      bucket.
+        Object evictedKey = keys.get(evictionCandidate);
+        if (keys.compareAndSet(evictionCandidate, evictedKey, key))
+            theoreticalArrivalTimes.set(evictionCandidate, 0);
+
+        return evictionCandidate;
+    }
+
+    /**
+     * @return The number of keys this limiter's table has room for.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+}
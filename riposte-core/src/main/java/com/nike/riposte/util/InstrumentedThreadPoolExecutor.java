@@ -0,0 +1,238 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.BoundedExecutorConfig;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException.RejectionReason;
+import com.nike.riposte.server.http.EndpointPriority;
+import com.nike.riposte.server.metrics.ExecutorTaskStats;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * A bounded {@link ThreadPoolExecutor} built from a {@link BoundedExecutorConfig} that reports what it's doing to a
+ * {@link MetricsListener}:
+ * <ul>
+ *     <li>
+ *         {@link ServerMetricsEvent#EXECUTOR_TASK_STARTED} with an {@link ExecutorTaskStats} whenever a task starts,
+ *         giving the time the task spent in the queue along with the queue depth and active thread count.
+ *     </li>
+ *     <li>
+ *         {@link ServerMetricsEvent#EXECUTOR_TASK_REJECTED} with the {@link ExecutorOverloadedException} whenever a
+ *         task is rejected.
+ *     </li>
+ * </ul>
+ *
+ * Rejected tasks cause {@link #execute(Runnable)} to throw an {@link ExecutorOverloadedException}, which the default
+ * Riposte error handler maps to a 503. See {@link BoundedExecutorConfig} for the rejection rules.
+ * <p/>
+ * Queued tasks are run in {@link EndpointPriority} order (and in submission order within a priority). Tasks submitted
+ * via {@link #execute(Runnable)} are {@link EndpointPriority#NORMAL} priority - use {@link
+ * #withPriority(EndpointPriority)} (or {@link #prioritized(Executor, EndpointPriority)}) to get a view of this executor
+ * that submits tasks with a different priority.
+ */
+@SuppressWarnings("WeakerAccess")
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedThreadPoolExecutor.class);
+
+    protected final @NotNull String executorName;
+    protected final long queueWaitTimeoutNanos;
+    protected final @Nullable MetricsListener metricsListener;
+    protected final @NotNull AtomicLong taskSequence = new AtomicLong(0);
+    protected final @NotNull Executor[] priorityViews;
+
+    /**
+     * @param executorName The name of this executor. Used for thread names, metrics, and error details.
+     * @param config The config describing the thread counts, queue size, and queue-wait timeout for this executor.
+     * @param metricsListener The {@link MetricsListener} to notify of task starts and rejections. Can be null.
+     */
+    public InstrumentedThreadPoolExecutor(
+        @NotNull String executorName,
+        @NotNull BoundedExecutorConfig config,
+        @Nullable MetricsListener metricsListener
+    ) {
+        super(
+            config.coreThreads(), Math.max(config.coreThreads(), config.maxThreads()), 60, TimeUnit.SECONDS,
+            createQueue(config.queueCapacity()), new DefaultThreadFactory(executorName, true)
+        );
+        this.executorName = executorName;
+        this.queueWaitTimeoutNanos = (config.queueWaitTimeoutMillis() > 0)
+                                     ? TimeUnit.MILLISECONDS.toNanos(config.queueWaitTimeoutMillis())
+                                     : 0;
+        this.metricsListener = metricsListener;
+        EndpointPriority[] priorities = EndpointPriority.values();
+        this.priorityViews = new Executor[priorities.length];
+        for (EndpointPriority priority : priorities) {
+            priorityViews[priority.ordinal()] = command -> execute(command, priority);
+        }
+        // Throw ExecutorOverloadedException rather than the generic RejectedExecutionException.
+        setRejectedExecutionHandler((task, executor) -> {
+            throw reject(executor.isShutdown() ? RejectionReason.SHUTDOWN : RejectionReason.QUEUE_FULL);
+        });
+    }
+
+    protected static @NotNull BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        return (queueCapacity > 0) ? new PriorityTaskQueue(queueCapacity) : new SynchronousQueue<>();
+    }
+
+    /**
+     * @param executor The executor to get a prioritized view of.
+     * @param priority The priority tasks submitted to the returned executor should have. Can be null, in which case
+     * the given executor is returned unchanged.
+     * @return {@link #withPriority(EndpointPriority)} if the given executor is an {@link
+     * InstrumentedThreadPoolExecutor} and the priority is non-null, otherwise the given executor (other executors have
+     * no notion of priority).
+     */
+    public static @NotNull Executor prioritized(@NotNull Executor executor, @Nullable EndpointPriority priority) {
+        if (priority == null || !(executor instanceof InstrumentedThreadPoolExecutor))
+            return executor;
+
+        return ((InstrumentedThreadPoolExecutor) executor).withPriority(priority);
+    }
+
+    /**
+     * @return A view of this executor that submits tasks with the given priority. The views are created up front, so
+     * calling this does not allocate.
+     */
+    public @NotNull Executor withPriority(@NotNull EndpointPriority priority) {
+        return priorityViews[priority.ordinal()];
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        execute(command, EndpointPriority.NORMAL);
+    }
+
+    /**
+     * Submits the given task with the given priority. See {@link #withPriority(EndpointPriority)}.
+     */
+    public void execute(@NotNull Runnable command, @NotNull EndpointPriority priority) {
+        if (queueWaitTimeoutNanos > 0) {
+            // The head of the queue is the next task that will run. If even that has waited too long then we're not
+            //      keeping up.
+            Runnable nextQueuedTask = getQueue().peek();
+            if (nextQueuedTask instanceof TimedTask
+                && System.nanoTime() - ((TimedTask) nextQueuedTask).submittedAtNanos > queueWaitTimeoutNanos) {
+                throw reject(RejectionReason.QUEUE_WAIT_TIMEOUT);
+            }
+        }
+
+        super.execute(new TimedTask(command, System.nanoTime(), priority, taskSequence.getAndIncrement()));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+
+        if (metricsListener != null && r instanceof TimedTask) {
+            notifyMetricsListener(
+                ServerMetricsEvent.EXECUTOR_TASK_STARTED,
+                new ExecutorTaskStats(
+                    executorName, System.nanoTime() - ((TimedTask) r).submittedAtNanos, getQueue().size(),
+                    getActiveCount()
+                )
+            );
+        }
+    }
+
+    protected @NotNull ExecutorOverloadedException reject(@NotNull RejectionReason reason) {
+        ExecutorOverloadedException ex = new ExecutorOverloadedException(executorName, reason, getQueue().size());
+        notifyMetricsListener(ServerMetricsEvent.EXECUTOR_TASK_REJECTED, ex);
+        return ex;
+    }
+
+    protected void notifyMetricsListener(@NotNull ServerMetricsEvent event, @NotNull Object value) {
+        if (metricsListener == null)
+            return;
+
+        try {
+            metricsListener.onEvent(event, value);
+        }
+        catch (Throwable t) {
+            logger.error("Metrics listener blew up while handling an executor event.", t);
+        }
+    }
+
+    public @NotNull String getExecutorName() {
+        return executorName;
+    }
+
+    /**
+     * Wraps submitted tasks so we know how long they waited in the queue and what order they should run in.
+     */
+    protected static class TimedTask implements Runnable {
+        protected final @NotNull Runnable delegate;
+        protected final long submittedAtNanos;
+        protected final @NotNull EndpointPriority priority;
+        protected final long sequence;
+
+        protected TimedTask(
+            @NotNull Runnable delegate,
+            long submittedAtNanos,
+            @NotNull EndpointPriority priority,
+            long sequence
+        ) {
+            this.delegate = delegate;
+            this.submittedAtNanos = submittedAtNanos;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    /**
+     * A bounded queue that hands out {@link TimedTask}s highest {@link EndpointPriority} first, and in submission order
+     * within a priority. {@link #offer(Runnable)} returns false when the queue is full, which is what makes {@link
+     * ThreadPoolExecutor} grow toward its max threads and then reject.
+     */
+    protected static class PriorityTaskQueue extends PriorityBlockingQueue<Runnable> {
+        protected static final Comparator<Runnable> TASK_ORDER = (r1, r2) -> {
+            TimedTask t1 = (TimedTask) r1;
+            TimedTask t2 = (TimedTask) r2;
+            int result = t1.priority.compareTo(t2.priority);
+            return (result != 0) ? result : Long.compare(t1.sequence, t2.sequence);
+        };
+
+        protected final int capacity;
+
+        protected PriorityTaskQueue(int capacity) {
+            super(Math.min(capacity, 64), TASK_ORDER);
+            this.capacity = capacity;
+        }
+
+        // Synchronized so the size check and insert are atomic relative to other offers. All the other insert methods
+        //      go through this one, and removals can only make room, so the capacity can't be exceeded.
+        @Override
+        public synchronized boolean offer(@NotNull Runnable task) {
+            if (size() >= capacity)
+                return false;
+
+            return super.offer(task);
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(0, capacity - size());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.nike.riposte.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A small implementation of the 64 bit variant of the <a href="https://github.com/Cyan4973/xxHash">xxHash</a>
+ * non-cryptographic hash algorithm (XXH64) that operates directly on the readable bytes of a {@link ByteBuf} without
+ * copying them or modifying its reader/writer indexes. This is a fast way to fingerprint payloads (e.g. for generating
+ * ETags) - it should never be used for anything security related.
+ */
+@SuppressWarnings("WeakerAccess")
+public class XxHash64 {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    // Intentionally private - use the static methods.
+    private XxHash64() {
+        // Do nothing
+    }
+
+    /**
+     * @return The XXH64 hash of the given buffer's readable bytes using a seed of 0.
+     */
+    public static long hash(@NotNull ByteBuf buf) {
+        return hash(buf, 0);
+    }
+
+    /**
+     * @return The XXH64 hash of the given buffer's readable bytes using the given seed.
+     */
+    public static long hash(@NotNull ByteBuf buf, long seed) {
+        int index = buf.readerIndex();
+        int length = buf.readableBytes();
+        int end = index + length;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+
+            int limit = end - 32;
+            do {
+                v1 = round(v1, buf.getLongLE(index));
+                v2 = round(v2, buf.getLongLE(index + 8));
+                v3 = round(v3, buf.getLongLE(index + 16));
+                v4 = round(v4, buf.getLongLE(index + 24));
+                index += 32;
+            }
+            while (index <= limit);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12)
+                   + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        }
+        else {
+            hash = seed + PRIME64_5;
+        }
+
+        hash += length;
+
+        while (index + 8 <= end) {
+            hash ^= round(0, buf.getLongLE(index));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            index += 8;
+        }
+
+        if (index + 4 <= end) {
+            hash ^= (buf.getIntLE(index) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            index += 4;
+        }
+
+        while (index < end) {
+            hash ^= (buf.getByte(index) & 0xFF) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            index++;
+        }
+
+        // Final avalanche.
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+
+        return hash;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME64_1 + PRIME64_4;
+    }
+}
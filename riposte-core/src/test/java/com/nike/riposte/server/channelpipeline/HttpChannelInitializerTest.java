@@ -3,7 +3,18 @@ package com.nike.riposte.server.channelpipeline;
 import com.nike.internal.util.Pair;
 import com.nike.riposte.client.asynchttp.netty.StreamingAsyncHttpClient;
 import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.concurrency.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.concurrency.CoDelLoadShedder;
+import com.nike.riposte.server.concurrency.RequestBodyMemoryBudget;
+import com.nike.riposte.server.config.ServerConfig.BoundedExecutorConfig;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
 import com.nike.riposte.server.config.ServerConfig.HttpRequestDecoderConfig;
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestBodyMemoryBudgetConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestContentSpillConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
+import com.nike.riposte.server.config.ServerConfig.StreamingMultipartConfig;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ProxyRouterSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
@@ -14,15 +25,19 @@ import com.nike.riposte.server.error.validation.RequestValidator;
 import com.nike.riposte.server.handler.AccessLogEndHandler;
 import com.nike.riposte.server.handler.AccessLogStartHandler;
 import com.nike.riposte.server.handler.ChannelPipelineFinalizerHandler;
+import com.nike.riposte.server.handler.ConcurrencyLimitHandler;
 import com.nike.riposte.server.handler.DTraceEndHandler;
 import com.nike.riposte.server.handler.DTraceStartHandler;
 import com.nike.riposte.server.handler.ExceptionHandlingHandler;
+import com.nike.riposte.server.handler.ExpectContinueHandler;
+import com.nike.riposte.server.handler.LoadSheddingHandler;
 import com.nike.riposte.server.handler.NonblockingEndpointExecutionHandler;
 import com.nike.riposte.server.handler.OpenChannelLimitHandler;
 import com.nike.riposte.server.handler.ProcessFinalResponseOutputHandler;
 import com.nike.riposte.server.handler.ProxyRouterEndpointExecutionHandler;
 import com.nike.riposte.server.handler.RequestContentDeserializerHandler;
 import com.nike.riposte.server.handler.RequestContentValidationHandler;
+import com.nike.riposte.server.handler.RequestDeadlineHandler;
 import com.nike.riposte.server.handler.RequestFilterHandler;
 import com.nike.riposte.server.handler.RequestHasBeenHandledVerificationHandler;
 import com.nike.riposte.server.handler.RequestInfoSetterHandler;
@@ -33,12 +48,16 @@ import com.nike.riposte.server.handler.RoutingHandler;
 import com.nike.riposte.server.handler.SecurityValidationHandler;
 import com.nike.riposte.server.handler.SmartHttpContentCompressor;
 import com.nike.riposte.server.handler.SmartHttpContentDecompressor;
+import com.nike.riposte.server.handler.StreamingRequestEndpointExecutionHandler;
 import com.nike.riposte.server.hooks.PipelineCreateHook;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.ResponseSender;
+import com.nike.riposte.server.http.cache.CompressedVariantCache;
+import com.nike.riposte.server.http.cache.RequestCoalescer;
 import com.nike.riposte.server.http.filter.RequestAndResponseFilter;
 import com.nike.riposte.server.logging.AccessLogger;
 import com.nike.riposte.testutils.Whitebox;
+import com.nike.riposte.util.InstrumentedThreadPoolExecutor;
 import com.nike.riposte.util.Matcher;
 import com.nike.wingtips.Span;
 
@@ -59,6 +78,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -77,6 +97,7 @@ import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedWriteHandler;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
@@ -161,6 +182,7 @@ public class HttpChannelInitializerTest {
         List<String> userIdHeaderKeys = mock(List.class);
         int responseCompressionThresholdBytes = 5678;
         HttpRequestDecoderConfig httpRequestDecoderConfig = new HttpRequestDecoderConfig() {};
+        ResponseCompressionConfig responseCompressionConfig = new ResponseCompressionConfig() {};
         DistributedTracingConfig<Span> distributedTracingConfig = mock(DistributedTracingConfig.class);
         ProxyRouterSpanNamingAndTaggingStrategy<Span> proxySpanTaggingStrategyMock =
             mock(ProxyRouterSpanNamingAndTaggingStrategy.class);
@@ -173,7 +195,8 @@ public class HttpChannelInitializerTest {
             validationService, requestContentDeserializer, responseSender, metricsListener, defaultCompletableFutureTimeoutMillis, accessLogger,
             pipelineCreateHooks, requestSecurityValidator, workerChannelIdleTimeoutMillis, proxyRouterConnectTimeoutMillis,
             incompleteHttpCallTimeoutMillis, maxOpenChannelsThreshold, debugChannelLifecycleLoggingEnabled, userIdHeaderKeys,
-            responseCompressionThresholdBytes, httpRequestDecoderConfig, distributedTracingConfig);
+            responseCompressionThresholdBytes, httpRequestDecoderConfig, responseCompressionConfig, null, null,
+            null, null, null, null, null, null, null, distributedTracingConfig);
 
         // then
         assertThat(extractField(hci, "sslCtx"), is(sslCtx));
@@ -197,6 +220,7 @@ public class HttpChannelInitializerTest {
         assertThat(extractField(hci, "userIdHeaderKeys"), is(userIdHeaderKeys));
         assertThat(extractField(hci, "responseCompressionThresholdBytes"), is(responseCompressionThresholdBytes));
         assertThat(extractField(hci, "httpRequestDecoderConfig"), is(httpRequestDecoderConfig));
+        assertThat(extractField(hci, "responseCompressionConfig"), is(responseCompressionConfig));
         assertThat(extractField(hci, "distributedTracingConfig"), is(distributedTracingConfig));
 
         StreamingAsyncHttpClient sahc = extractField(hci, "streamingAsyncHttpClientForProxyRouterEndpoints");
@@ -224,15 +248,13 @@ public class HttpChannelInitializerTest {
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
             null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
 
         // then
         assertThat(extractField(hci, "sslCtx"), nullValue());
         Executor longRunningTaskExecutor = extractField(hci, "longRunningTaskExecutor");
         assertThat(longRunningTaskExecutor, notNullValue());
-        assertThat(longRunningTaskExecutor, instanceOf(ThreadPoolExecutor.class));
-        assertThat(((ThreadPoolExecutor)longRunningTaskExecutor).getMaximumPoolSize(), is(Integer.MAX_VALUE));
-        assertThat(((ThreadPoolExecutor)longRunningTaskExecutor).getKeepAliveTime(TimeUnit.SECONDS), is(60L));
+        verifyDefaultLongRunningTaskExecutor(longRunningTaskExecutor);
         assertThat(extractField(hci, "validationService"), nullValue());
         assertThat(extractField(hci, "requestContentDeserializer"), nullValue());
         assertThat(extractField(hci, "metricsListener"), nullValue());
@@ -242,6 +264,141 @@ public class HttpChannelInitializerTest {
         assertThat(extractField(hci, "cachedResponseFilterHandler"), nullValue());
         assertThat(extractField(hci, "userIdHeaderKeys"), nullValue());
         assertThat(extractField(hci, "httpRequestDecoderConfig"), is(HttpRequestDecoderConfig.DEFAULT_IMPL));
+        assertThat(extractField(hci, "responseCompressionConfig"), is(ResponseCompressionConfig.DEFAULT_IMPL));
+        assertThat(extractField(hci, "compressionOffloadExecutor"), nullValue());
+        assertThat(extractField(hci, "securityValidationExecutor"), nullValue());
+        assertThat(extractField(hci, "concurrencyLimiter"), nullValue());
+        assertThat(extractField(hci, "loadShedder"), nullValue());
+        CompressedVariantCache compressedVariantCache = extractField(hci, "compressedVariantCache");
+        assertThat(compressedVariantCache.getMaxSizeInBytes(),
+                   is(ResponseCompressionConfig.DEFAULT_IMPL.compressedVariantCacheMaxSizeInBytes()));
+    }
+
+    @Test
+    public void constructor_does_not_create_compressed_variant_cache_if_disabled() {
+        // given
+        ResponseCompressionConfig config = new ResponseCompressionConfig() {
+            @Override
+            public long compressedVariantCacheMaxSizeInBytes() {
+                return 0;
+            }
+        };
+
+        // when
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
+            null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 121, 42, 321, 100, false, null,
+            123, null, config, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
+
+        // then
+        assertThat(extractField(hci, "compressedVariantCache"), nullValue());
+    }
+
+    @Test
+    public void constructor_creates_instrumented_executors_when_bounded_executor_configs_are_given() {
+        // given
+        BoundedExecutorConfig longRunningConfig = new BoundedExecutorConfig() {
+            @Override
+            public int coreThreads() {
+                return 3;
+            }
+
+            @Override
+            public int maxThreads() {
+                return 7;
+            }
+        };
+        MetricsListener metricsListener = mock(MetricsListener.class);
+
+        // when
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
+            null, null, mock(ResponseSender.class), metricsListener, 4242L, null,
+            null, null, 121, 42, 321, 100, false, null,
+            123, null, null, longRunningConfig, BoundedExecutorConfig.DEFAULT_IMPL, null,
+            null, null, null, null, null, null, mock(DistributedTracingConfig.class));
+
+        // then
+        InstrumentedThreadPoolExecutor longRunningTaskExecutor = extractField(hci, "longRunningTaskExecutor");
+        assertThat(longRunningTaskExecutor.getCorePoolSize(), is(3));
+        assertThat(longRunningTaskExecutor.getMaximumPoolSize(), is(7));
+        assertThat(extractField(longRunningTaskExecutor, "metricsListener"), is(metricsListener));
+
+        InstrumentedThreadPoolExecutor securityValidationExecutor = extractField(hci, "securityValidationExecutor");
+        assertThat(securityValidationExecutor.getExecutorName(), is("riposte-security-validation"));
+        assertThat(securityValidationExecutor.getMaximumPoolSize(),
+                   is(BoundedExecutorConfig.DEFAULT_IMPL.maxThreads()));
+
+        longRunningTaskExecutor.shutdown();
+        securityValidationExecutor.shutdown();
+    }
+
+    private void verifyDefaultLongRunningTaskExecutor(Executor executor) {
+        Executor virtualThreadExecutor = HttpChannelInitializer.createVirtualThreadPerTaskExecutorIfAvailable();
+        if (virtualThreadExecutor == null) {
+            assertThat(executor, instanceOf(ThreadPoolExecutor.class));
+            assertThat(((ThreadPoolExecutor)executor).getMaximumPoolSize(), is(Integer.MAX_VALUE));
+            assertThat(((ThreadPoolExecutor)executor).getKeepAliveTime(TimeUnit.SECONDS), is(60L));
+        }
+        else {
+            assertThat(executor.getClass().equals(virtualThreadExecutor.getClass()), is(true));
+            ((ExecutorService) virtualThreadExecutor).shutdown();
+        }
+    }
+
+    @Test
+    public void createDefaultLongRunningTaskExecutor_uses_virtual_threads_only_if_supported_by_the_jvm() {
+        // given
+        boolean virtualThreadsSupported;
+        try {
+            Thread.class.getMethod("ofVirtual");
+            virtualThreadsSupported = true;
+        }
+        catch (NoSuchMethodException ex) {
+            virtualThreadsSupported = false;
+        }
+
+        // when
+        Executor result = HttpChannelInitializer.createDefaultLongRunningTaskExecutor();
+
+        // then
+        assertThat(result, notNullValue());
+        if (!virtualThreadsSupported) {
+            assertThat(HttpChannelInitializer.createVirtualThreadPerTaskExecutorIfAvailable(), nullValue());
+        }
+        verifyDefaultLongRunningTaskExecutor(result);
+        ((ExecutorService) result).shutdown();
+    }
+
+    @Test
+    public void determineCompressionOffloadExecutor_returns_configured_executor_if_available() {
+        // given
+        Executor configuredExecutor = mock(Executor.class);
+        ResponseCompressionConfig config = new ResponseCompressionConfig() {
+            @Override
+            public Executor compressionOffloadExecutor() {
+                return configuredExecutor;
+            }
+        };
+
+        // expect
+        assertThat(HttpChannelInitializer.determineCompressionOffloadExecutor(config), is(configuredExecutor));
+    }
+
+    @Test
+    public void determineCompressionOffloadExecutor_returns_bounded_default_executor_if_none_configured() {
+        // when
+        Executor result = HttpChannelInitializer.determineCompressionOffloadExecutor(
+            ResponseCompressionConfig.DEFAULT_IMPL
+        );
+
+        // then
+        assertThat(result, instanceOf(ThreadPoolExecutor.class));
+        ThreadPoolExecutor tpe = (ThreadPoolExecutor) result;
+        assertThat(tpe.getMaximumPoolSize(), is(Runtime.getRuntime().availableProcessors()));
+        assertThat(tpe.getQueue().remainingCapacity(), is(1024));
+        tpe.shutdown();
     }
 
     @Test
@@ -256,7 +413,7 @@ public class HttpChannelInitializerTest {
                 null, 42, Arrays.asList(getMockEndpoint("/some/path")), reqResFilters, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
                 null, null, mock(ResponseSender.class), null, 4242L, null,
                 null, null, 121, 42, 321, 100, false, null,
-                123, null, mock(DistributedTracingConfig.class));
+                123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
 
         // then
         RequestFilterHandler beforeSecReqFH = extractField(hci, "beforeSecurityRequestFilterHandler");
@@ -280,7 +437,7 @@ public class HttpChannelInitializerTest {
                 null, 42, Arrays.asList(getMockEndpoint("/some/path")), reqResFilters, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
                 null, null, mock(ResponseSender.class), null, 4242L, null,
                 null, null, 121, 42, 321, 100, false, null,
-                123, null, mock(DistributedTracingConfig.class));
+                123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
 
         // then
         RequestFilterHandler beforeSecReqFH = extractField(hci, "afterSecurityRequestFilterHandler");
@@ -299,7 +456,7 @@ public class HttpChannelInitializerTest {
             null, 42, null, null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
             null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -309,7 +466,7 @@ public class HttpChannelInitializerTest {
             null, 42, Collections.emptyList(), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
             null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -319,7 +476,7 @@ public class HttpChannelInitializerTest {
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, null, mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
             null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -329,7 +486,7 @@ public class HttpChannelInitializerTest {
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), null,
             null, null, mock(ResponseSender.class), null, 4242L, null,
             null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -339,7 +496,7 @@ public class HttpChannelInitializerTest {
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, null, null, 4242L, null,
             null, null, 121, 42, 321, 100, false, null,
-            123, null, mock(DistributedTracingConfig.class));
+            123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -349,7 +506,7 @@ public class HttpChannelInitializerTest {
             null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
             null, null, mock(ResponseSender.class), null, 4242L, null,
             null, null, 121, 42, 321, 100, false, null,
-            123, null, null);
+            123, null, null, null, null, null, null, null, null, null, null, null, null);
     }
 
     private <T extends ChannelHandler> Pair<Integer, T> findChannelHandler(List<ChannelHandler> channelHandlers, Class<T> classToFind, boolean findLast) {
@@ -383,7 +540,7 @@ public class HttpChannelInitializerTest {
             sslCtx, 42, Arrays.asList(getMockEndpoint("/some/path")), requestAndResponseFilters, null, mock(RiposteErrorHandler.class),
             mock(RiposteUnhandledErrorHandler.class), validationService, null, mock(ResponseSender.class), null, 4242L, null,
             null, null, workerChannelIdleTimeoutMillis, 4200, 1234, maxOpenChannelsThreshold, debugChannelLifecycleLoggingEnabled,
-            null, 123, null, mock(DistributedTracingConfig.class));
+            null, 123, null, null, null, null, null, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
     }
 
     @Test
@@ -407,6 +564,7 @@ public class HttpChannelInitializerTest {
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.SERVER_WORKER_CHANNEL_DEBUG_LOGGING_HANDLER_NAME), any(LoggingHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.SSL_HANDLER_NAME), any(SslHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME), any(HttpServerCodec.class));
+        verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.CHUNKED_WRITE_HANDLER_NAME), any(ChunkedWriteHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.PROCESS_FINAL_RESPONSE_OUTPUT_HANDLER_NAME), any(ProcessFinalResponseOutputHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_STATE_CLEANER_HANDLER_NAME), any(RequestStateCleanerHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.DTRACE_START_HANDLER_NAME), any(DTraceStartHandler.class));
@@ -419,8 +577,10 @@ public class HttpChannelInitializerTest {
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_FILTER_BEFORE_SECURITY_HANDLER_NAME), any(RequestFilterHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.SECURITY_VALIDATION_HANDLER_NAME), any(SecurityValidationHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_FILTER_AFTER_SECURITY_HANDLER_NAME), any(RequestFilterHandler.class));
+        verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.EXPECT_CONTINUE_HANDLER_NAME), any(ExpectContinueHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_CONTENT_DESERIALIZER_HANDLER_NAME), any(RequestContentDeserializerHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_CONTENT_VALIDATION_HANDLER_NAME), any(RequestContentValidationHandler.class));
+        verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.STREAMING_REQUEST_ENDPOINT_EXECUTION_HANDLER_NAME), any(StreamingRequestEndpointExecutionHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.NONBLOCKING_ENDPOINT_EXECUTION_HANDLER_NAME), any(NonblockingEndpointExecutionHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.PROXY_ROUTER_ENDPOINT_EXECUTION_HANDLER_NAME), any(ProxyRouterEndpointExecutionHandler.class));
         verify(channelPipelineMock).addLast(eq(HttpChannelInitializer.REQUEST_HAS_BEEN_HANDLED_VERIFICATION_HANDLER_NAME), any(RequestHasBeenHandledVerificationHandler.class));
@@ -593,7 +753,7 @@ public class HttpChannelInitializerTest {
     }
 
     @Test
-    public void initChannel_adds_RequestStateCleanerHandler_immediately_after_HttpServerCodec_and_ProcessFinalResponseOutputHandler() {
+    public void initChannel_adds_RequestStateCleanerHandler_immediately_after_HttpServerCodec_ChunkedWriteHandler_and_ProcessFinalResponseOutputHandler() {
         // given
         HttpChannelInitializer hci = basicHttpChannelInitializerNoUtilityHandlers();
         MetricsListener expectedMetricsListener = mock(MetricsListener.class);
@@ -614,14 +774,17 @@ public class HttpChannelInitializerTest {
         Pair<Integer, ProcessFinalResponseOutputHandler> processFinalResponseOutputHandler = findChannelHandler(
             handlers, ProcessFinalResponseOutputHandler.class
         );
+        Pair<Integer, ChunkedWriteHandler> chunkedWriteHandler = findChannelHandler(handlers, ChunkedWriteHandler.class);
         Pair<Integer, RequestStateCleanerHandler> requestStateCleanerHandler = findChannelHandler(handlers, RequestStateCleanerHandler.class);
 
         assertThat(httpServerCodecHandler, notNullValue());
+        assertThat(chunkedWriteHandler, notNullValue());
         assertThat(processFinalResponseOutputHandler, notNullValue());
         assertThat(requestStateCleanerHandler, notNullValue());
 
-        assertThat(processFinalResponseOutputHandler.getLeft(), is(httpServerCodecHandler.getLeft() + 1));
-        assertThat(requestStateCleanerHandler.getLeft(), is(httpServerCodecHandler.getLeft() + 2));
+        assertThat(chunkedWriteHandler.getLeft(), is(httpServerCodecHandler.getLeft() + 1));
+        assertThat(processFinalResponseOutputHandler.getLeft(), is(httpServerCodecHandler.getLeft() + 2));
+        assertThat(requestStateCleanerHandler.getLeft(), is(httpServerCodecHandler.getLeft() + 3));
 
         RequestStateCleanerHandler handler = requestStateCleanerHandler.getRight();
         assertThat(Whitebox.getInternalState(handler, "metricsListener"), is(expectedMetricsListener));
@@ -730,6 +893,76 @@ public class HttpChannelInitializerTest {
         assertThat(extractField(requestInfoSetterHandler.getRight(), "globalConfiguredMaxRequestSizeInBytes"), is(42));
     }
 
+    @Test
+    public void initChannel_passes_RequestContentSpillConfig_and_StreamingMultipartConfig_through_to_RequestInfoSetterHandler() {
+        // given
+        RequestContentSpillConfig spillConfig = RequestContentSpillConfig.DEFAULT_IMPL;
+        StreamingMultipartConfig multipartConfig = StreamingMultipartConfig.DEFAULT_IMPL;
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
+            null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 121, 42, 321, 100, false, null,
+            123, null, null, null, null, null, null, null, spillConfig, multipartConfig, null, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, RequestInfoSetterHandler> requestInfoSetterHandler = findChannelHandler(handlers, RequestInfoSetterHandler.class);
+
+        assertThat(requestInfoSetterHandler, notNullValue());
+        assertThat(extractField(requestInfoSetterHandler.getRight(), "requestContentSpillConfig"), is(spillConfig));
+        assertThat(extractField(requestInfoSetterHandler.getRight(), "streamingMultipartConfig"), is(multipartConfig));
+        Executor expectedSpillWriteExecutor = extractField(hci, "longRunningTaskExecutor");
+        assertThat(expectedSpillWriteExecutor, notNullValue());
+        assertThat(
+            extractField(requestInfoSetterHandler.getRight(), "spillWriteExecutor"), is(expectedSpillWriteExecutor)
+        );
+    }
+
+    @Test
+    public void initChannel_passes_RequestBodyMemoryBudget_through_to_RequestInfoSetterHandler_when_config_is_given() {
+        // given
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
+            null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 121, 42, 321, 100, false, null,
+            123, null, null, null, null, null, null, null, null, null, RequestBodyMemoryBudgetConfig.DEFAULT_IMPL, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, RequestInfoSetterHandler> requestInfoSetterHandler = findChannelHandler(handlers, RequestInfoSetterHandler.class);
+
+        RequestBodyMemoryBudget expectedBudget = extractField(hci, "requestBodyMemoryBudget");
+        assertThat(expectedBudget.getMaxBytes(), is(RequestBodyMemoryBudgetConfig.DEFAULT_IMPL.maxBufferedBytes()));
+        assertThat(extractField(requestInfoSetterHandler.getRight(), "requestBodyMemoryBudget"), is(expectedBudget));
+    }
+
+    @Test
+    public void initChannel_does_not_give_RequestInfoSetterHandler_a_RequestBodyMemoryBudget_if_config_is_null() {
+        // given
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, null);
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, RequestInfoSetterHandler> requestInfoSetterHandler = findChannelHandler(handlers, RequestInfoSetterHandler.class);
+
+        assertThat(extractField(requestInfoSetterHandler.getRight(), "requestBodyMemoryBudget"), nullValue());
+    }
+
     @Test
     public void initChannel_adds_OpenChannelLimitHandler_after_RequestInfoSetterHandler_and_uses_cached_ChannelGroup() {
         // given
@@ -771,6 +1004,51 @@ public class HttpChannelInitializerTest {
         assertThat(findChannelHandler(handlers, OpenChannelLimitHandler.class), nullValue());
     }
 
+    @Test
+    public void initChannel_adds_ConcurrencyLimitHandler_after_OpenChannelLimitHandler_when_concurrency_limit_config_is_given() {
+        // given
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
+            null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 121, 42, 321, 100, false, null,
+            123, null, null, null, null, ConcurrencyLimitConfig.DEFAULT_IMPL, null, null, null, null, null, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, OpenChannelLimitHandler> openChannelLimitHandler = findChannelHandler(handlers, OpenChannelLimitHandler.class);
+        Pair<Integer, ConcurrencyLimitHandler> concurrencyLimitHandler = findChannelHandler(handlers, ConcurrencyLimitHandler.class);
+        Pair<Integer, SecurityValidationHandler> securityValidationHandler = findChannelHandler(handlers, SecurityValidationHandler.class);
+
+        assertThat(concurrencyLimitHandler, notNullValue());
+        assertThat(concurrencyLimitHandler.getLeft(), is(openChannelLimitHandler.getLeft() + 1));
+        assertThat(concurrencyLimitHandler.getLeft(), is(lessThan(securityValidationHandler.getLeft())));
+
+        // and then
+        AdaptiveConcurrencyLimiter expectedLimiter = extractField(hci, "concurrencyLimiter");
+        assertThat(expectedLimiter.getLimit(), is(ConcurrencyLimitConfig.DEFAULT_IMPL.initialLimit()));
+        assertThat(Whitebox.getInternalState(concurrencyLimitHandler.getRight(), "concurrencyLimiter"), is(expectedLimiter));
+    }
+
+    @Test
+    public void initChannel_does_not_add_ConcurrencyLimitHandler_if_concurrency_limit_config_is_null() {
+        // given
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, null);
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        assertThat(findChannelHandler(handlers, ConcurrencyLimitHandler.class), nullValue());
+    }
+
     @Test
     public void initChannel_adds_before_and_after_RequestFilterHandler_appropriately_before_and_after_security_filter() {
         // given
@@ -884,6 +1162,39 @@ public class HttpChannelInitializerTest {
         assertThat(smartDecompressionHandler.getLeft(), is(lessThan(requestInfoSetterhandler.getLeft())));
     }
 
+    @Test
+    public void initChannel_adds_ExpectContinueHandler_after_SecurityValidationHandler_and_after_security_RequestFilterHandler_but_before_RequestContentDeserializerHandler() {
+        // given
+        RequestAndResponseFilter beforeSecurityRequestFilter = mock(RequestAndResponseFilter.class);
+        doReturn(true).when(beforeSecurityRequestFilter).shouldExecuteBeforeSecurityValidation();
+        RequestAndResponseFilter afterSecurityRequestFilter = mock(RequestAndResponseFilter.class);
+        doReturn(false).when(afterSecurityRequestFilter).shouldExecuteBeforeSecurityValidation();
+        List<RequestAndResponseFilter> requestAndResponseFilters = Arrays.asList(beforeSecurityRequestFilter, afterSecurityRequestFilter);
+
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, requestAndResponseFilters);
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, SecurityValidationHandler> securityValidationHandler = findChannelHandler(handlers, SecurityValidationHandler.class);
+        Pair<Integer, RequestFilterHandler> afterSecurityRequestFilterHandler = findChannelHandler(handlers, RequestFilterHandler.class, true);
+        Pair<Integer, ExpectContinueHandler> expectContinueHandler = findChannelHandler(handlers, ExpectContinueHandler.class);
+        Pair<Integer, RequestContentDeserializerHandler> requestContentDeserializerHandler = findChannelHandler(handlers, RequestContentDeserializerHandler.class);
+
+        assertThat(securityValidationHandler, notNullValue());
+        assertThat(afterSecurityRequestFilterHandler, notNullValue());
+        assertThat(expectContinueHandler, notNullValue());
+        assertThat(requestContentDeserializerHandler, notNullValue());
+
+        assertThat(expectContinueHandler.getLeft(), is(greaterThan(securityValidationHandler.getLeft())));
+        assertThat(expectContinueHandler.getLeft(), is(greaterThan(afterSecurityRequestFilterHandler.getLeft())));
+        assertThat(expectContinueHandler.getLeft(), is(lessThan(requestContentDeserializerHandler.getLeft())));
+    }
+
     @Test
     public void initChannel_adds_RequestContentDeserializerHandler_after_RequestInfoSetterHandler_and_RoutingHandler_and_uses_requestContentDeserializer() {
         // given
@@ -1002,6 +1313,10 @@ public class HttpChannelInitializerTest {
         assertThat(actualLongRunningTaskExecutor, is(expectedLongRunningTaskExecutor));
         assertThat(actualDefaultCompletableFutureTimeoutMillis, is(expectedDefaultCompletableFutureTimeoutMillis));
         assertThat(actualTaggingStrategy, is(expectedServerSpanNamingAndTaggingStrategy));
+        RequestCoalescer expectedRequestCoalescer = extractField(hci, "requestCoalescer");
+        assertThat(expectedRequestCoalescer, notNullValue());
+        assertThat(Whitebox.getInternalState(nonblockingEndpointExecutionHandler.getRight(), "requestCoalescer"),
+                   is(expectedRequestCoalescer));
     }
 
     @Test
@@ -1231,4 +1546,101 @@ public class HttpChannelInitializerTest {
         doReturn(true).when(beforeSecurityRequestFilter).shouldExecuteBeforeSecurityValidation();
         return Arrays.asList(beforeSecurityRequestFilter);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void initChannel_adds_LoadSheddingHandler_after_SmartHttpContentCompressor_when_load_shedding_config_is_given() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
+            null, null, mock(ResponseSender.class), metricsListener, 4242L, null,
+            null, null, 121, 42, 321, 100, false, null,
+            123, null, null, null, null, null, LoadSheddingConfig.DEFAULT_IMPL, null, null, null, null, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, SmartHttpContentCompressor> compressorHandler = findChannelHandler(handlers, SmartHttpContentCompressor.class);
+        Pair<Integer, LoadSheddingHandler> loadSheddingHandler = findChannelHandler(handlers, LoadSheddingHandler.class);
+        Pair<Integer, RoutingHandler> routingHandler = findChannelHandler(handlers, RoutingHandler.class);
+
+        assertThat(loadSheddingHandler, notNullValue());
+        assertThat(loadSheddingHandler.getLeft(), is(compressorHandler.getLeft() + 1));
+        assertThat(loadSheddingHandler.getLeft(), is(lessThan(routingHandler.getLeft())));
+
+        // and then
+        CoDelLoadShedder expectedLoadShedder = extractField(hci, "loadShedder");
+        assertThat(expectedLoadShedder, notNullValue());
+        assertThat(Whitebox.getInternalState(loadSheddingHandler.getRight(), "loadShedder"), is(expectedLoadShedder));
+        assertThat(Whitebox.getInternalState(loadSheddingHandler.getRight(), "metricsListener"), is(metricsListener));
+    }
+
+    @Test
+    public void initChannel_does_not_add_LoadSheddingHandler_if_load_shedding_config_is_null() {
+        // given
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, null);
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        assertThat(findChannelHandler(handlers, LoadSheddingHandler.class), nullValue());
+    }
+
+    @Test
+    public void initChannel_adds_RequestDeadlineHandler_before_ConcurrencyLimitHandler_when_request_deadline_config_is_given() {
+        // given
+        RequestDeadlineConfig requestDeadlineConfig = new RequestDeadlineConfig() {
+            @Override
+            public @NotNull String inboundHeaderName() {
+                return "X-Some-Deadline";
+            }
+        };
+        HttpChannelInitializer hci = new HttpChannelInitializer(
+            null, 42, Arrays.asList(getMockEndpoint("/some/path")), null, null, mock(RiposteErrorHandler.class), mock(RiposteUnhandledErrorHandler.class),
+            null, null, mock(ResponseSender.class), null, 4242L, null,
+            null, null, 121, 42, 321, 100, false, null,
+            123, null, null, null, null, ConcurrencyLimitConfig.DEFAULT_IMPL, null, requestDeadlineConfig, null, null, null, null, mock(DistributedTracingConfig.class));
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        Pair<Integer, AccessLogStartHandler> accessLogStartHandler = findChannelHandler(handlers, AccessLogStartHandler.class);
+        Pair<Integer, RequestDeadlineHandler> requestDeadlineHandler = findChannelHandler(handlers, RequestDeadlineHandler.class);
+        Pair<Integer, ConcurrencyLimitHandler> concurrencyLimitHandler = findChannelHandler(handlers, ConcurrencyLimitHandler.class);
+
+        assertThat(requestDeadlineHandler, notNullValue());
+        assertThat(requestDeadlineHandler.getLeft(), is(greaterThan(accessLogStartHandler.getLeft())));
+        assertThat(requestDeadlineHandler.getLeft(), is(concurrencyLimitHandler.getLeft() - 1));
+
+        // and then
+        assertThat(Whitebox.getInternalState(requestDeadlineHandler.getRight(), "inboundHeaderName"), is("X-Some-Deadline"));
+        assertThat(Whitebox.getInternalState(requestDeadlineHandler.getRight(), "outboundHeaderName"), is("X-Some-Deadline"));
+    }
+
+    @Test
+    public void initChannel_does_not_add_RequestDeadlineHandler_if_request_deadline_config_is_null() {
+        // given
+        HttpChannelInitializer hci = basicHttpChannelInitializer(null, 0, 42, false, null, null);
+
+        // when
+        hci.initChannel(socketChannelMock);
+
+        // then
+        ArgumentCaptor<ChannelHandler> channelHandlerArgumentCaptor = ArgumentCaptor.forClass(ChannelHandler.class);
+        verify(channelPipelineMock, atLeastOnce()).addLast(anyString(), channelHandlerArgumentCaptor.capture());
+        List<ChannelHandler> handlers = channelHandlerArgumentCaptor.getAllValues();
+        assertThat(findChannelHandler(handlers, RequestDeadlineHandler.class), nullValue());
+    }
+}
@@ -0,0 +1,320 @@
+package com.nike.riposte.server.concurrency;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
+import com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException;
+import com.nike.riposte.server.http.EndpointPriority;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link AdaptiveConcurrencyLimiter}
+ */
+@RunWith(DataProviderRunner.class)
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static ConcurrencyLimitConfig config(int initialLimit, int minLimit, int maxLimit,
+                                                 Map<String, Double> partitionShares) {
+        return new ConcurrencyLimitConfig() {
+            @Override
+            public int initialLimit() {
+                return initialLimit;
+            }
+
+            @Override
+            public int minLimit() {
+                return minLimit;
+            }
+
+            @Override
+            public int maxLimit() {
+                return maxLimit;
+            }
+
+            @Override
+            public @NotNull Map<@NotNull String, @NotNull Double> partitionGuaranteedShares() {
+                return partitionShares;
+            }
+        };
+    }
+
+    private static ConcurrencyLimitConfig config(int initialLimit, int minLimit, int maxLimit) {
+        return config(initialLimit, minLimit, maxLimit, Collections.emptyMap());
+    }
+
+    private List<AdaptiveConcurrencyLimiter.Permit> acquire(AdaptiveConcurrencyLimiter limiter, int count) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limiter.acquire(null));
+        }
+        return permits;
+    }
+
+    @Test
+    public void constructor_sets_initial_limit_and_notifies_metrics_listener() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+
+        // when
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(42, 1, 100), metricsListener);
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(42);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getRejectedCount()).isZero();
+        verify(metricsListener).onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, limiter);
+    }
+
+    @DataProvider(value = {
+        "1      |   5   |   100 |   5",
+        "500    |   5   |   100 |   100"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_clamps_initial_limit(int initialLimit, int minLimit, int maxLimit, int expectedLimit) {
+        // when
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            config(initialLimit, minLimit, maxLimit), null
+        );
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(expectedLimit);
+    }
+
+    @DataProvider(value = {
+        "0  |   10",
+        "10 |   5"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_limits(int minLimit, int maxLimit) {
+        // when
+        Throwable ex = catchThrowable(() -> new AdaptiveConcurrencyLimiter(config(10, minLimit, maxLimit), null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void acquire_throws_ConcurrencyLimitExceededException_when_at_limit() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(3, 1, 100), metricsListener);
+        acquire(limiter, 3);
+
+        // when
+        Throwable ex = catchThrowable(() -> limiter.acquire("some-partition"));
+
+        // then
+        assertThat(ex).isInstanceOf(ConcurrencyLimitExceededException.class);
+        ConcurrencyLimitExceededException clee = (ConcurrencyLimitExceededException) ex;
+        assertThat(clee.concurrencyLimit).isEqualTo(3);
+        assertThat(clee.inFlightRequests).isEqualTo(3);
+        assertThat(clee.partition).isEqualTo("some-partition");
+        assertThat(limiter.getInFlight()).isEqualTo(3);
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+        verify(metricsListener).onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_REJECTED, clee);
+    }
+
+    @Test
+    public void releasing_a_permit_frees_up_a_slot_and_multiple_releases_have_no_effect() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(2, 1, 100), null);
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, 2);
+
+        // when
+        permits.get(0).releaseWithoutSample();
+        permits.get(0).releaseWithoutSample();
+        permits.get(0).releaseWithSample();
+
+        // then
+        assertThat(permits.get(0).isReleased()).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(limiter.acquire(null)).isNotNull();
+        assertThat(catchThrowable(() -> limiter.acquire(null))).isInstanceOf(ConcurrencyLimitExceededException.class);
+    }
+
+    @Test
+    public void lower_priorities_are_rejected_first_and_higher_priorities_get_headroom_above_the_limit() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(20, 1, 100), null);
+        acquire(limiter, 16);
+
+        // when
+        Throwable lowEx = catchThrowable(() -> limiter.acquire(null, EndpointPriority.LOW));
+        acquire(limiter, 4);
+        Throwable normalEx = catchThrowable(() -> limiter.acquire(null, EndpointPriority.NORMAL));
+        Throwable nullPriorityEx = catchThrowable(() -> limiter.acquire(null, null));
+        for (int i = 0; i < 2; i++) {
+            limiter.acquire(null, EndpointPriority.HIGH);
+        }
+        Throwable highEx = catchThrowable(() -> limiter.acquire(null, EndpointPriority.HIGH));
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(null, EndpointPriority.CRITICAL);
+        }
+        Throwable criticalEx = catchThrowable(() -> limiter.acquire(null, EndpointPriority.CRITICAL));
+
+        // then
+        assertThat(lowEx).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(((ConcurrencyLimitExceededException) lowEx).priority).isEqualTo(EndpointPriority.LOW);
+        assertThat(normalEx).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(nullPriorityEx).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(((ConcurrencyLimitExceededException) nullPriorityEx).priority).isEqualTo(EndpointPriority.NORMAL);
+        assertThat(highEx).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(criticalEx).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(limiter.getInFlight()).isEqualTo(25);
+    }
+
+    @Test
+    public void every_priority_is_admitted_when_nothing_is_in_flight_even_with_a_tiny_limit() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(1, 1, 100), null);
+
+        // expect
+        for (EndpointPriority priority : EndpointPriority.values()) {
+            limiter.acquire(null, priority).releaseWithoutSample();
+        }
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_non_positive_priorityLimitFactor() {
+        // when
+        Throwable ex = catchThrowable(() -> new AdaptiveConcurrencyLimiter(new ConcurrencyLimitConfig() {
+            @Override
+            public double priorityLimitFactor(@NotNull EndpointPriority priority) {
+                return (priority == EndpointPriority.LOW) ? 0 : 1;
+            }
+        }, null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void partition_with_guaranteed_share_is_admitted_when_server_is_at_limit() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            config(10, 1, 100, Collections.singletonMap("important", 0.2)), null
+        );
+        acquire(limiter, 10);
+
+        // when
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire("important");
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire("important");
+        Throwable thirdEx = catchThrowable(() -> limiter.acquire("important"));
+        Throwable unknownPartitionEx = catchThrowable(() -> limiter.acquire("not-configured"));
+
+        // then
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(thirdEx).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(unknownPartitionEx).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(limiter.getInFlight()).isEqualTo(12);
+        assertThat(limiter.getInFlight("important")).isEqualTo(2);
+
+        // and when
+        first.releaseWithoutSample();
+
+        // then
+        assertThat(limiter.getInFlight("important")).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isEqualTo(11);
+    }
+
+    @Test
+    public void limit_shrinks_when_latency_rises() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(100, 10, 1000), metricsListener);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), 100);
+        }
+        int limitAfterSteadyLatency = limiter.getLimit();
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(100), limiter.getLimit());
+        }
+
+        // then
+        assertThat(limiter.getLimit()).isLessThan(limitAfterSteadyLatency);
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(10);
+        verify(metricsListener, atLeast(2))
+            .onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, limiter);
+    }
+
+    @Test
+    public void limit_grows_when_latency_is_steady_and_limit_is_being_used() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(20, 10, 1000), null);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), limiter.getLimit());
+        }
+
+        // then
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+        assertThat(limiter.getLimit()).isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    public void limit_does_not_grow_from_samples_taken_while_mostly_idle() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(100, 10, 1000), null);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), 1);
+        }
+
+        // then
+        assertThat(limiter.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    public void releaseWithSample_feeds_latency_into_limit_calculation() {
+        // given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(2, 1, 1000), null);
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, 2);
+
+        // when
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::releaseWithSample);
+
+        // then
+        assertThat(limiter.longRttNanos).isGreaterThan(0);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    public void metrics_listener_exceptions_are_swallowed() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doThrow(new RuntimeException("intentional exception")).when(metricsListener).onEvent(any(), any());
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(config(1, 1, 100), metricsListener);
+        limiter.acquire(null);
+
+        // when
+        Throwable ex = catchThrowable(() -> limiter.acquire(null));
+
+        // then
+        assertThat(ex).isInstanceOf(ConcurrencyLimitExceededException.class);
+    }
+}
@@ -0,0 +1,234 @@
+package com.nike.riposte.server.concurrency;
+
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.util.concurrent.EventExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link CoDelLoadShedder}
+ */
+@RunWith(DataProviderRunner.class)
+public class CoDelLoadShedderTest {
+
+    private static final long TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private CoDelLoadShedder loadShedder;
+    private EventExecutor eventLoopMock;
+
+    @Before
+    public void beforeMethod() {
+        loadShedder = new CoDelLoadShedder(LoadSheddingConfig.DEFAULT_IMPL);
+        eventLoopMock = mock(EventExecutor.class);
+    }
+
+    private static LoadSheddingConfig config(long targetDelayMillis, long intervalMillis, long probeIntervalMillis) {
+        return new LoadSheddingConfig() {
+            @Override
+            public long targetDelayMillis() {
+                return targetDelayMillis;
+            }
+
+            @Override
+            public long intervalMillis() {
+                return intervalMillis;
+            }
+
+            @Override
+            public long eventLoopLagProbeIntervalMillis() {
+                return probeIntervalMillis;
+            }
+        };
+    }
+
+    @Test
+    public void constructor_sets_fields_from_config() {
+        // when
+        CoDelLoadShedder instance = new CoDelLoadShedder(config(7, 200, 3));
+
+        // then
+        assertThat(instance.targetDelayNanos).isEqualTo(TimeUnit.MILLISECONDS.toNanos(7));
+        assertThat(instance.intervalNanos).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(instance.lagProbeIntervalNanos).isEqualTo(TimeUnit.MILLISECONDS.toNanos(3));
+    }
+
+    @DataProvider(value = {
+        "0  |   100 |   10",
+        "5  |   0   |   10",
+        "5  |   100 |   0"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_non_positive_config_values(
+        long target, long interval, long probeInterval
+    ) {
+        // when
+        Throwable ex = catchThrowable(() -> new CoDelLoadShedder(config(target, interval, probeInterval)));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void onRequest_does_not_shed_anything_before_an_interval_has_shown_a_standing_queue() {
+        // given
+        CoDelLoadShedder.EventLoopState state = loadShedder.new EventLoopState(eventLoopMock);
+        long now = 1000;
+
+        // expect
+        assertThat(state.onRequest(TARGET_NANOS * 10, now)).isFalse();
+        assertThat(state.onRequest(TARGET_NANOS * 10, now + INTERVAL_NANOS / 2)).isFalse();
+        assertThat(state.overloaded).isFalse();
+    }
+
+    @Test
+    public void onRequest_sheds_requests_waiting_more_than_double_the_target_once_overloaded() {
+        // given
+        CoDelLoadShedder.EventLoopState state = loadShedder.new EventLoopState(eventLoopMock);
+        long now = 1000;
+        state.onRequest(TARGET_NANOS * 3, now);
+        state.onRequest(TARGET_NANOS * 4, now + INTERVAL_NANOS / 2);
+
+        // when
+        boolean shedAtIntervalEnd = state.onRequest(TARGET_NANOS * 3, now + INTERVAL_NANOS);
+        boolean shedShortWait = state.onRequest(TARGET_NANOS + 1, now + INTERVAL_NANOS + 1);
+
+        // then
+        assertThat(state.overloaded).isTrue();
+        assertThat(shedAtIntervalEnd).isTrue();
+        assertThat(shedShortWait).isFalse();
+    }
+
+    @Test
+    public void onRequest_does_not_become_overloaded_if_any_request_in_the_interval_was_under_target() {
+        // given
+        CoDelLoadShedder.EventLoopState state = loadShedder.new EventLoopState(eventLoopMock);
+        long now = 1000;
+        state.onRequest(TARGET_NANOS * 10, now);
+        state.onRequest(TARGET_NANOS - 1, now + 10);
+        state.onRequest(TARGET_NANOS * 10, now + 20);
+
+        // when
+        boolean shed = state.onRequest(TARGET_NANOS * 10, now + INTERVAL_NANOS);
+
+        // then
+        assertThat(state.overloaded).isFalse();
+        assertThat(shed).isFalse();
+    }
+
+    @Test
+    public void onRequest_stops_shedding_once_an_interval_shows_the_queue_has_drained() {
+        // given
+        CoDelLoadShedder.EventLoopState state = loadShedder.new EventLoopState(eventLoopMock);
+        long now = 1000;
+        state.onRequest(TARGET_NANOS * 10, now);
+        assertThat(state.onRequest(TARGET_NANOS * 10, now + INTERVAL_NANOS)).isTrue();
+        state.onRequest(0, now + INTERVAL_NANOS + 10);
+
+        // when
+        boolean shed = state.onRequest(TARGET_NANOS * 10, now + (2 * INTERVAL_NANOS) + 10);
+
+        // then
+        assertThat(state.overloaded).isFalse();
+        assertThat(shed).isFalse();
+    }
+
+    @Test
+    public void shouldShed_creates_state_and_starts_lag_probe_once_per_event_loop() {
+        // when
+        Long firstResult = loadShedder.shouldShed(eventLoopMock, System.nanoTime());
+        Long secondResult = loadShedder.shouldShed(eventLoopMock, null);
+
+        // then
+        assertThat(firstResult).isNull();
+        assertThat(secondResult).isNull();
+        assertThat(loadShedder.eventLoopStates).hasSize(1);
+        assertThat(loadShedder.eventLoopStates.containsKey(eventLoopMock)).isTrue();
+        verify(eventLoopMock).schedule(
+            any(Runnable.class), eq(loadShedder.lagProbeIntervalNanos), eq(TimeUnit.NANOSECONDS)
+        );
+    }
+
+    @Test
+    public void shouldShed_includes_event_loop_lag_and_time_since_request_start_in_sojourn_time() {
+        // given
+        CoDelLoadShedder.EventLoopState state = loadShedder.stateFor(eventLoopMock);
+        state.lagNanos = TARGET_NANOS * 3;
+        state.overloaded = true;
+        state.intervalEndNanos = System.nanoTime() + INTERVAL_NANOS;
+        long requestStartTimeNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1);
+
+        // when
+        Long sojournNanos = loadShedder.shouldShed(eventLoopMock, requestStartTimeNanos);
+
+        // then
+        assertThat(sojournNanos).isNotNull();
+        assertThat(sojournNanos).isGreaterThanOrEqualTo(TARGET_NANOS * 3 + TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    public void lag_probe_records_lag_and_reschedules_itself() {
+        // given
+        loadShedder.stateFor(eventLoopMock);
+        ArgumentCaptor<Runnable> probeCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(eventLoopMock).schedule(probeCaptor.capture(), anyLong(), any(TimeUnit.class));
+
+        // when
+        probeCaptor.getValue().run();
+
+        // then
+        assertThat(loadShedder.eventLoopStates.get(eventLoopMock).lagNanos).isGreaterThanOrEqualTo(0);
+        verify(eventLoopMock, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void lag_probe_removes_state_when_event_loop_is_shutting_down() {
+        // given
+        loadShedder.stateFor(eventLoopMock);
+        ArgumentCaptor<Runnable> probeCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(eventLoopMock).schedule(probeCaptor.capture(), anyLong(), any(TimeUnit.class));
+        doReturn(true).when(eventLoopMock).isShuttingDown();
+
+        // when
+        probeCaptor.getValue().run();
+
+        // then
+        assertThat(loadShedder.eventLoopStates).isEmpty();
+        verify(eventLoopMock).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void lag_probe_removes_state_when_event_loop_rejects_the_probe() {
+        // given
+        doThrow(new RejectedExecutionException("intentional exception"))
+            .when(eventLoopMock).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+        // when
+        CoDelLoadShedder.EventLoopState state = loadShedder.stateFor(eventLoopMock);
+
+        // then
+        assertThat(state).isNotNull();
+        assertThat(loadShedder.eventLoopStates).isEmpty();
+    }
+}
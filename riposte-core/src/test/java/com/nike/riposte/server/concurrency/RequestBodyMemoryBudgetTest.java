@@ -0,0 +1,450 @@
+package com.nike.riposte.server.concurrency;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.RequestBodyMemoryBudgetConfig;
+import com.nike.riposte.server.error.exception.RequestBodyMemoryBudgetExceededException;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.EventExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link RequestBodyMemoryBudget}
+ */
+public class RequestBodyMemoryBudgetTest {
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctxMock;
+    private TimeoutWheel timeoutWheelMock;
+    private Timeout timeoutMock;
+
+    @Before
+    public void beforeMethod() {
+        channel = new EmbeddedChannel();
+        ctxMock = mock(ChannelHandlerContext.class);
+        doReturn(channel).when(ctxMock).channel();
+        doReturn(channel.eventLoop()).when(ctxMock).executor();
+
+        timeoutWheelMock = mock(TimeoutWheel.class);
+        timeoutMock = mock(Timeout.class);
+        doReturn(timeoutMock).when(timeoutWheelMock).schedule(
+            any(Executor.class), any(Runnable.class), anyLong(), any(TimeUnit.class)
+        );
+    }
+
+    @After
+    public void afterMethod() {
+        channel.finishAndReleaseAll();
+    }
+
+    private static RequestBodyMemoryBudgetConfig config(long maxBufferedBytes, long maxWaitMillis) {
+        return new RequestBodyMemoryBudgetConfig() {
+            @Override
+            public long maxBufferedBytes() {
+                return maxBufferedBytes;
+            }
+
+            @Override
+            public long maxWaitMillis() {
+                return maxWaitMillis;
+            }
+        };
+    }
+
+    private RequestBodyMemoryBudget budget(long maxBufferedBytes, long maxWaitMillis) {
+        return new RequestBodyMemoryBudget(config(maxBufferedBytes, maxWaitMillis), null, timeoutWheelMock);
+    }
+
+    private Runnable captureScheduledTimeoutTask(long expectedDelayMillis) {
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(timeoutWheelMock).schedule(
+            eq(channel.eventLoop()), taskCaptor.capture(), eq(expectedDelayMillis), eq(TimeUnit.MILLISECONDS)
+        );
+        return taskCaptor.getValue();
+    }
+
+    @Test
+    public void constructor_sets_fields_and_notifies_metrics_listener() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+
+        // when
+        RequestBodyMemoryBudget budget = new RequestBodyMemoryBudget(config(100, 42), metricsListener);
+
+        // then
+        assertThat(budget.getMaxBytes()).isEqualTo(100);
+        assertThat(budget.maxWaitMillis).isEqualTo(42);
+        assertThat(budget.timeoutWheel).isSameAs(TimeoutWheel.getDefaultInstance());
+        assertThat(budget.getReservedBytes()).isZero();
+        assertThat(budget.getPausedRequests()).isZero();
+        assertThat(budget.getRejectedCount()).isZero();
+        verify(metricsListener).onEvent(ServerMetricsEvent.REQUEST_BODY_MEMORY_BUDGET_CREATED, budget);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_maxBufferedBytes_is_less_than_1() {
+        // when
+        Throwable ex = catchThrowable(() -> budget(0, 42));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxBufferedBytes must be at least 1");
+    }
+
+    @Test
+    public void constructor_throws_NullPointerException_if_timeoutWheel_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new RequestBodyMemoryBudget(config(100, 42), null, null));
+
+        // then
+        assertThat(ex).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    public void constructor_does_not_propagate_metrics_listener_exceptions() {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doThrow(new RuntimeException("intentional test exception")).when(metricsListener).onEvent(any(), any());
+
+        // when
+        Throwable ex = catchThrowable(() -> new RequestBodyMemoryBudget(config(100, 42), metricsListener));
+
+        // then
+        assertThat(ex).isNull();
+    }
+
+    @Test
+    public void reserve_counts_bytes_and_returns_false_once_the_budget_is_used_up() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation first = budget.newReservation();
+        RequestBodyMemoryBudget.Reservation second = budget.newReservation();
+
+        // expect
+        assertThat(first.reserve(60)).isTrue();
+        assertThat(second.reserve(40)).isTrue();
+        assertThat(second.reserve(1)).isFalse();
+        assertThat(budget.getReservedBytes()).isEqualTo(101);
+        assertThat(first.getReservedBytes()).isEqualTo(60);
+        assertThat(second.getReservedBytes()).isEqualTo(41);
+    }
+
+    @Test
+    public void reserve_ignores_non_positive_sizes_and_reservations_that_were_already_released() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+
+        // when
+        boolean zeroResult = reservation.reserve(0);
+        reservation.release();
+        boolean afterReleaseResult = reservation.reserve(500);
+
+        // then
+        assertThat(zeroResult).isTrue();
+        assertThat(afterReleaseResult).isTrue();
+        assertThat(budget.getReservedBytes()).isZero();
+        assertThat(reservation.isReleased()).isTrue();
+    }
+
+    @Test
+    public void release_gives_back_all_reserved_bytes_and_only_does_it_once() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        RequestBodyMemoryBudget.Reservation other = budget.newReservation();
+        reservation.reserve(30);
+        reservation.reserve(20);
+        other.reserve(10);
+
+        // when
+        reservation.release();
+        reservation.release();
+
+        // then
+        assertThat(budget.getReservedBytes()).isEqualTo(10);
+        assertThat(reservation.getReservedBytes()).isZero();
+    }
+
+    @Test
+    public void pauseReadingUntilBudgetAvailable_turns_off_autoRead_until_another_request_releases_its_bytes() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation hog = budget.newReservation();
+        RequestBodyMemoryBudget.Reservation waiter = budget.newReservation();
+        hog.reserve(90);
+        assertThat(waiter.reserve(20)).isFalse();
+
+        // when
+        waiter.pauseReadingUntilBudgetAvailable(ctxMock);
+
+        // then
+        assertThat(channel.config().isAutoRead()).isFalse();
+        assertThat(budget.getPausedRequests()).isEqualTo(1);
+        captureScheduledTimeoutTask(42);
+
+        // and when
+        hog.release();
+
+        // then
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(budget.getPausedRequests()).isZero();
+        assertThat(budget.pausedReservations).isEmpty();
+        verify(timeoutMock).cancel();
+        assertThat(budget.getRejectedCount()).isZero();
+    }
+
+    @Test
+    public void pauseReadingUntilBudgetAvailable_resumes_straight_away_if_the_budget_freed_up_in_the_meantime() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation other = budget.newReservation();
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        other.reserve(60);
+        assertThat(reservation.reserve(60)).isFalse();
+        other.release();
+
+        // when
+        reservation.pauseReadingUntilBudgetAvailable(ctxMock);
+
+        // then
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(budget.getPausedRequests()).isZero();
+        verify(timeoutMock).cancel();
+    }
+
+    private static ChannelHandlerContext ctxFor(EmbeddedChannel channel) {
+        ChannelHandlerContext ctx = mock(ChannelHandlerContext.class);
+        doReturn(channel).when(ctx).channel();
+        doReturn(channel.eventLoop()).when(ctx).executor();
+        return ctx;
+    }
+
+    @Test
+    public void paused_requests_are_resumed_one_at_a_time_as_room_is_confirmed() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation hog = budget.newReservation();
+        hog.reserve(100);
+        EmbeddedChannel firstChannel = new EmbeddedChannel();
+        EmbeddedChannel secondChannel = new EmbeddedChannel();
+        RequestBodyMemoryBudget.Reservation firstWaiter = budget.newReservation();
+        RequestBodyMemoryBudget.Reservation secondWaiter = budget.newReservation();
+        assertThat(firstWaiter.reserve(10)).isFalse();
+        firstWaiter.pauseReadingUntilBudgetAvailable(ctxFor(firstChannel));
+        assertThat(secondWaiter.reserve(10)).isFalse();
+        secondWaiter.pauseReadingUntilBudgetAvailable(ctxFor(secondChannel));
+
+        // when
+        hog.release();
+
+        // then
+        assertThat(firstChannel.config().isAutoRead()).isTrue();
+        assertThat(secondChannel.config().isAutoRead()).isFalse();
+        assertThat(budget.getPausedRequests()).isEqualTo(1);
+
+        // and when
+        assertThat(firstWaiter.reserve(10)).isTrue();
+
+        // then
+        assertThat(secondChannel.config().isAutoRead()).isTrue();
+        assertThat(budget.getPausedRequests()).isZero();
+        assertThat(budget.pausedReservations).isEmpty();
+        firstChannel.finishAndReleaseAll();
+        secondChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void resuming_skips_queued_reservations_that_are_no_longer_paused() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation hog = budget.newReservation();
+        hog.reserve(100);
+        EmbeddedChannel waiterChannel = new EmbeddedChannel();
+        RequestBodyMemoryBudget.Reservation stale = budget.newReservation();
+        RequestBodyMemoryBudget.Reservation waiter = budget.newReservation();
+        // A reservation that's queued without being paused, e.g. one that timed out just as it was being polled.
+        budget.pausedReservations.add(stale);
+        waiter.reserve(10);
+        waiter.pauseReadingUntilBudgetAvailable(ctxFor(waiterChannel));
+
+        // when
+        hog.release();
+
+        // then
+        assertThat(waiterChannel.config().isAutoRead()).isTrue();
+        assertThat(budget.pausedReservations).isEmpty();
+        waiterChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void pauseReadingUntilBudgetAvailable_does_nothing_if_already_paused() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        reservation.reserve(200);
+        reservation.pauseReadingUntilBudgetAvailable(ctxMock);
+
+        // when
+        reservation.pauseReadingUntilBudgetAvailable(ctxMock);
+
+        // then
+        assertThat(budget.getPausedRequests()).isEqualTo(1);
+        assertThat(budget.pausedReservations).hasSize(1);
+        captureScheduledTimeoutTask(42);
+    }
+
+    @Test
+    public void pauseReadingUntilBudgetAvailable_throws_immediately_if_maxWaitMillis_is_not_positive() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 0);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        reservation.reserve(150);
+
+        // when
+        Throwable ex = catchThrowable(() -> reservation.pauseReadingUntilBudgetAvailable(ctxMock));
+
+        // then
+        assertThat(ex).isInstanceOf(RequestBodyMemoryBudgetExceededException.class);
+        RequestBodyMemoryBudgetExceededException theEx = (RequestBodyMemoryBudgetExceededException) ex;
+        assertThat(theEx.budgetBytes).isEqualTo(100);
+        assertThat(theEx.reservedBytes).isEqualTo(150);
+        assertThat(theEx.waitedMillis).isZero();
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(budget.getRejectedCount()).isEqualTo(1);
+        verify(timeoutWheelMock, never()).schedule(any(Executor.class), any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    public void pause_timing_out_restores_autoRead_and_fires_RequestBodyMemoryBudgetExceededException() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        reservation.reserve(150);
+        reservation.pauseReadingUntilBudgetAvailable(ctxMock);
+        Runnable timeoutTask = captureScheduledTimeoutTask(42);
+
+        // when
+        timeoutTask.run();
+
+        // then
+        ArgumentCaptor<Throwable> exCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(ctxMock).fireExceptionCaught(exCaptor.capture());
+        assertThat(exCaptor.getValue()).isInstanceOf(RequestBodyMemoryBudgetExceededException.class);
+        RequestBodyMemoryBudgetExceededException theEx = (RequestBodyMemoryBudgetExceededException) exCaptor.getValue();
+        assertThat(theEx.budgetBytes).isEqualTo(100);
+        assertThat(theEx.reservedBytes).isEqualTo(150);
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(budget.getPausedRequests()).isZero();
+        assertThat(budget.pausedReservations).isEmpty();
+        assertThat(budget.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void pause_timing_out_does_nothing_if_reading_was_already_resumed() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        reservation.reserve(150);
+        reservation.pauseReadingUntilBudgetAvailable(ctxMock);
+        Runnable timeoutTask = captureScheduledTimeoutTask(42);
+        reservation.release();
+
+        // when
+        timeoutTask.run();
+
+        // then
+        verify(ctxMock, never()).fireExceptionCaught(any());
+        assertThat(budget.getRejectedCount()).isZero();
+    }
+
+    @Test
+    public void isReadingPaused_is_true_only_while_the_reservation_is_paused() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        reservation.reserve(150);
+
+        // expect
+        assertThat(reservation.isReadingPaused()).isFalse();
+        reservation.pauseReadingUntilBudgetAvailable(ctxMock);
+        assertThat(reservation.isReadingPaused()).isTrue();
+        reservation.release();
+        assertThat(reservation.isReadingPaused()).isFalse();
+    }
+
+    @Test
+    public void release_of_a_paused_reservation_resumes_its_own_reading() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        reservation.reserve(150);
+        reservation.pauseReadingUntilBudgetAvailable(ctxMock);
+
+        // when
+        reservation.release();
+
+        // then
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(budget.getReservedBytes()).isZero();
+        assertThat(budget.getPausedRequests()).isZero();
+        assertThat(budget.pausedReservations).isEmpty();
+        verify(timeoutMock).cancel();
+    }
+
+    @Test
+    public void resuming_from_outside_the_paused_channels_event_loop_hands_off_to_the_event_loop() {
+        // given
+        RequestBodyMemoryBudget budget = budget(100, 42);
+        RequestBodyMemoryBudget.Reservation reservation = budget.newReservation();
+        reservation.reserve(150);
+        ChannelHandlerContext offLoopCtxMock = mock(ChannelHandlerContext.class);
+        Channel channelMock = mock(Channel.class);
+        ChannelConfig channelConfigMock = mock(ChannelConfig.class);
+        EventExecutor executorMock = mock(EventExecutor.class);
+        doReturn(channelMock).when(offLoopCtxMock).channel();
+        doReturn(channelConfigMock).when(channelMock).config();
+        doReturn(executorMock).when(offLoopCtxMock).executor();
+        doReturn(false).when(executorMock).inEventLoop();
+        reservation.pauseReadingUntilBudgetAvailable(offLoopCtxMock);
+
+        // when
+        reservation.release();
+
+        // then
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executorMock).execute(taskCaptor.capture());
+        verify(channelConfigMock, never()).setAutoRead(true);
+
+        // and when
+        taskCaptor.getValue().run();
+
+        // then
+        verify(channelConfigMock).setAutoRead(true);
+        assertThat(budget.getPausedRequests()).isZero();
+    }
+}
@@ -0,0 +1,130 @@
+package com.nike.riposte.server.concurrency;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Tests the functionality of {@link TimeoutWheel}
+ */
+public class TimeoutWheelTest {
+
+    private Timer timerMock;
+    private Timeout timeoutMock;
+    private Executor executorMock;
+    private Runnable taskMock;
+    private TimeoutWheel timeoutWheel;
+
+    @Before
+    public void beforeMethod() {
+        timerMock = mock(Timer.class);
+        timeoutMock = mock(Timeout.class);
+        executorMock = mock(Executor.class);
+        taskMock = mock(Runnable.class);
+        doReturn(timeoutMock).when(timerMock).newTimeout(any(TimerTask.class), any(Long.class), any(TimeUnit.class));
+        timeoutWheel = new TimeoutWheel(timerMock);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_timer_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new TimeoutWheel(null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("timer cannot be null");
+    }
+
+    @Test
+    public void getDefaultInstance_returns_the_same_shared_instance() {
+        // expect
+        assertThat(TimeoutWheel.getDefaultInstance())
+            .isNotNull()
+            .isSameAs(TimeoutWheel.getDefaultInstance());
+    }
+
+    private TimerTask scheduleAndExtractTimerTask() {
+        Timeout result = timeoutWheel.schedule(executorMock, taskMock, 42, TimeUnit.MILLISECONDS);
+        assertThat(result).isSameAs(timeoutMock);
+        ArgumentCaptor<TimerTask> timerTaskCaptor = ArgumentCaptor.forClass(TimerTask.class);
+        verify(timerMock).newTimeout(timerTaskCaptor.capture(), eq(42L), eq(TimeUnit.MILLISECONDS));
+        return timerTaskCaptor.getValue();
+    }
+
+    @Test
+    public void schedule_hands_the_task_off_to_the_executor_when_the_timeout_fires() throws Exception {
+        // given
+        TimerTask timerTask = scheduleAndExtractTimerTask();
+        verifyNoInteractions(executorMock, taskMock);
+
+        // when
+        timerTask.run(timeoutMock);
+
+        // then
+        verify(executorMock).execute(taskMock);
+    }
+
+    @Test
+    public void schedule_does_nothing_when_a_cancelled_timeout_fires() throws Exception {
+        // given
+        TimerTask timerTask = scheduleAndExtractTimerTask();
+        doReturn(true).when(timeoutMock).isCancelled();
+
+        // when
+        timerTask.run(timeoutMock);
+
+        // then
+        verifyNoInteractions(executorMock, taskMock);
+    }
+
+    @Test
+    public void schedule_swallows_RejectedExecutionException_from_the_executor() throws Exception {
+        // given
+        TimerTask timerTask = scheduleAndExtractTimerTask();
+        doThrow(new RejectedExecutionException("intentional test exception")).when(executorMock).execute(taskMock);
+
+        // when
+        Throwable ex = catchThrowable(() -> timerTask.run(timeoutMock));
+
+        // then
+        assertThat(ex).isNull();
+        verify(executorMock).execute(taskMock);
+    }
+
+    @Test
+    public void default_instance_runs_scheduled_tasks_on_the_given_executor() throws Exception {
+        // given
+        AtomicReference<Runnable> taskHolder = new AtomicReference<>();
+        Executor capturingExecutor = taskHolder::set;
+
+        // when
+        TimeoutWheel.getDefaultInstance().schedule(capturingExecutor, taskMock, 1, TimeUnit.MILLISECONDS);
+        long waitUntil = System.currentTimeMillis() + 5000;
+        while (taskHolder.get() == null && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(5);
+        }
+
+        // then
+        assertThat(taskHolder.get()).isSameAs(taskMock);
+    }
+}
@@ -3,10 +3,13 @@ package com.nike.riposte.server.handler;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessage;
+import com.nike.riposte.server.concurrency.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.concurrency.RequestBodyMemoryBudget;
 import com.nike.riposte.server.error.handler.ErrorResponseBody;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
+import com.nike.riposte.server.http.RequestContentStream;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
@@ -25,11 +28,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.slf4j.Logger;
 
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -50,8 +55,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -506,6 +513,159 @@ public class ChannelPipelineFinalizerHandlerTest {
         }
     }
 
+    @DataProvider(value = {
+        "true   |   200 |   true",
+        "false  |   200 |   false",
+        "true   |   503 |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void finalizeChannelPipeline_releases_concurrency_limit_permit_with_sample_only_for_successful_non_5xx_responses(
+        boolean writeSucceeded, int statusCode, boolean expectSample
+    ) throws Exception {
+        // given
+        AdaptiveConcurrencyLimiter.Permit permitMock = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        state.setConcurrencyLimitPermit(permitMock);
+        doReturn(statusCode).when(responseInfoMock).getHttpStatusCodeWithDefault(200);
+        ChannelFuture responseWriterChannelFuture = mock(ChannelFuture.class);
+        state.setResponseWriterFinalChunkChannelFuture(responseWriterChannelFuture);
+        ChannelFuture responseWriteFutureResult = mock(ChannelFuture.class);
+        doReturn(writeSucceeded).when(responseWriteFutureResult).isSuccess();
+
+        // when
+        handler.finalizeChannelPipeline(ctxMock, null, state, null);
+
+        // then
+        ArgumentCaptor<GenericFutureListener> listenerCaptor = ArgumentCaptor.forClass(GenericFutureListener.class);
+        verify(responseWriterChannelFuture, atLeastOnce()).addListener(listenerCaptor.capture());
+        for (GenericFutureListener listener : listenerCaptor.getAllValues()) {
+            listener.operationComplete(responseWriteFutureResult);
+        }
+
+        if (expectSample) {
+            verify(permitMock).releaseWithSample();
+            verify(permitMock, never()).releaseWithoutSample();
+        }
+        else {
+            verify(permitMock).releaseWithoutSample();
+            verify(permitMock, never()).releaseWithSample();
+        }
+        Assertions.assertThat(state.getConcurrencyLimitPermit()).isNull();
+    }
+
+    @Test
+    public void finalizeChannelPipeline_releases_concurrency_limit_permit_without_sample_if_response_was_not_fully_sent()
+        throws Exception {
+        // given
+        AdaptiveConcurrencyLimiter.Permit permitMock = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        state.setConcurrencyLimitPermit(permitMock);
+        doReturn(false).when(responseInfoMock).isResponseSendingLastChunkSent();
+
+        // when
+        handler.finalizeChannelPipeline(ctxMock, null, state, null);
+
+        // then
+        verify(permitMock).releaseWithoutSample();
+        verify(permitMock, never()).releaseWithSample();
+        Assertions.assertThat(state.getConcurrencyLimitPermit()).isNull();
+    }
+
+    @Test
+    public void doChannelInactive_releases_concurrency_limit_permit() throws Exception {
+        // given
+        AdaptiveConcurrencyLimiter.Permit permitMock = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        state.setConcurrencyLimitPermit(permitMock);
+        doReturn(false).when(responseInfoMock).isResponseSendingLastChunkSent();
+
+        // when
+        handler.doChannelInactive(ctxMock);
+
+        // then
+        verify(permitMock).releaseWithoutSample();
+        Assertions.assertThat(state.getConcurrencyLimitPermit()).isNull();
+    }
+
+    @DataProvider(value = {
+        "true   |   false",
+        "false  |   true"
+    }, splitBy = "\\|")
+    @Test
+    public void finalizeChannelPipeline_and_doChannelInactive_abort_request_content_stream_if_not_completed(
+        boolean useChannelInactive, boolean streamCompleted
+    ) throws Exception {
+        // given
+        RequestContentStream streamMock = mock(RequestContentStream.class);
+        doReturn(streamCompleted).when(streamMock).isCompleted();
+        state.setRequestContentStream(streamMock);
+
+        // when
+        if (useChannelInactive)
+            handler.doChannelInactive(ctxMock);
+        else
+            handler.finalizeChannelPipeline(ctxMock, null, state, null);
+
+        // then
+        if (streamCompleted)
+            verify(streamMock, never()).abort(any(Throwable.class));
+        else
+            verify(streamMock).abort(any(CancellationException.class));
+    }
+
+    @Test
+    public void abortRequestContentStreamIfNecessary_does_not_propagate_unexpected_exceptions() {
+        // given
+        RequestContentStream streamMock = mock(RequestContentStream.class);
+        doThrow(new RuntimeException("intentional test exception")).when(streamMock).abort(any(Throwable.class));
+        state.setRequestContentStream(streamMock);
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.abortRequestContentStreamIfNecessary(state, "foo"));
+
+        // then
+        Assertions.assertThat(ex).isNull();
+        verify(streamMock).abort(any(Throwable.class));
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void finalizeChannelPipeline_and_doChannelInactive_release_request_body_memory_reservation_after_RequestInfo(
+        boolean useChannelInactive
+    ) throws Exception {
+        // given
+        RequestBodyMemoryBudget.Reservation reservationMock = mock(RequestBodyMemoryBudget.Reservation.class);
+        state.setRequestBodyMemoryReservation(reservationMock);
+
+        // when
+        if (useChannelInactive)
+            handler.doChannelInactive(ctxMock);
+        else
+            handler.finalizeChannelPipeline(ctxMock, null, state, null);
+
+        // then
+        InOrder inOrder = inOrder(requestInfoMock, reservationMock);
+        inOrder.verify(requestInfoMock).releaseAllResources();
+        inOrder.verify(reservationMock).release();
+        Assertions.assertThat(state.getRequestBodyMemoryReservation()).isNull();
+    }
+
+    @Test
+    public void releaseRequestBodyMemoryReservationIfNecessary_does_not_propagate_unexpected_exceptions() {
+        // given
+        RequestBodyMemoryBudget.Reservation reservationMock = mock(RequestBodyMemoryBudget.Reservation.class);
+        doThrow(new RuntimeException("intentional test exception")).when(reservationMock).release();
+        state.setRequestBodyMemoryReservation(reservationMock);
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.releaseRequestBodyMemoryReservationIfNecessary(state));
+
+        // then
+        Assertions.assertThat(ex).isNull();
+        verify(reservationMock).release();
+        Assertions.assertThat(state.getRequestBodyMemoryReservation()).isNull();
+    }
+
     private Span setupTracingForChannelInactive(boolean traceCompletedOrScheduled) {
         state.setTraceCompletedOrScheduled(traceCompletedOrScheduled);
         Span span = Span.newBuilder("fooSpan", Span.SpanPurpose.SERVER).build();
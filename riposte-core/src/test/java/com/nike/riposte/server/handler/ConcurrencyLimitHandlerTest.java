@@ -0,0 +1,152 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.concurrency.AdaptiveConcurrencyLimiter;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
+import com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.EndpointPriority;
+import com.nike.riposte.server.http.HttpProcessingState;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.Attribute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link ConcurrencyLimitHandler}
+ */
+public class ConcurrencyLimitHandlerTest {
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private ConcurrencyLimitHandler handler;
+    private ChannelHandlerContext ctxMock;
+    private HttpProcessingState state;
+    private Endpoint<?> endpointMock;
+
+    @Before
+    public void beforeMethod() {
+        limiter = new AdaptiveConcurrencyLimiter(new ConcurrencyLimitConfig() {
+            @Override
+            public int initialLimit() {
+                return 1;
+            }
+
+            @Override
+            public int minLimit() {
+                return 1;
+            }
+
+            @Override
+            public @NotNull Map<@NotNull String, @NotNull Double> partitionGuaranteedShares() {
+                return Collections.singletonMap("important", 0.5);
+            }
+        }, null);
+        handler = new ConcurrencyLimitHandler(limiter);
+
+        ctxMock = mock(ChannelHandlerContext.class);
+        Channel channelMock = mock(Channel.class);
+        @SuppressWarnings("unchecked")
+        Attribute<HttpProcessingState> stateAttrMock = mock(Attribute.class);
+        state = new HttpProcessingState();
+        endpointMock = mock(Endpoint.class);
+        state.setEndpointForExecution(endpointMock, "/some/path");
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(stateAttrMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(state).when(stateAttrMock).get();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_limiter_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new ConcurrencyLimitHandler(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void doChannelRead_acquires_permit_and_stores_it_in_state_for_HttpRequest() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, mock(HttpRequest.class));
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(state.getConcurrencyLimitPermit()).isNotNull();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_for_non_HttpRequest_messages() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, mock(HttpContent.class));
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(state.getConcurrencyLimitPermit()).isNull();
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    public void doChannelRead_throws_ConcurrencyLimitExceededException_when_at_limit() {
+        // given
+        limiter.acquire(null);
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.doChannelRead(ctxMock, mock(HttpRequest.class)));
+
+        // then
+        assertThat(ex).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(state.getConcurrencyLimitPermit()).isNull();
+    }
+
+    @Test
+    public void doChannelRead_uses_endpoint_partition() throws Exception {
+        // given
+        limiter.acquire(null);
+        doReturn("important").when(endpointMock).concurrencyLimitPartition();
+
+        // when
+        handler.doChannelRead(ctxMock, mock(HttpRequest.class));
+
+        // then
+        assertThat(state.getConcurrencyLimitPermit()).isNotNull();
+        assertThat(limiter.getInFlight("important")).isEqualTo(1);
+    }
+
+    @Test
+    public void doChannelRead_uses_endpoint_priority() {
+        // given
+        limiter.acquire(null);
+        doReturn(EndpointPriority.LOW).when(endpointMock).priority();
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.doChannelRead(ctxMock, mock(HttpRequest.class)));
+
+        // then
+        assertThat(ex).isInstanceOf(ConcurrencyLimitExceededException.class);
+        assertThat(((ConcurrencyLimitExceededException) ex).priority).isEqualTo(EndpointPriority.LOW);
+    }
+
+    @Test
+    public void argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo_returns_false() {
+        // expect
+        assertThat(handler.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(null, ctxMock, null, null))
+            .isFalse();
+    }
+}
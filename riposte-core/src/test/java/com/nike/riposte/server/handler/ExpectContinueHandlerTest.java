@@ -0,0 +1,285 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.HttpChannelInitializer;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.ProxyRouterEndpoint;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.http.StreamingRequestEndpoint;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link ExpectContinueHandler}
+ */
+@RunWith(DataProviderRunner.class)
+public class ExpectContinueHandlerTest {
+
+    private ExpectContinueHandler handler;
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctx;
+    private HttpProcessingState state;
+    private HttpRequest request;
+
+    @Before
+    public void beforeMethod() {
+        handler = new ExpectContinueHandler();
+        channel = new EmbeddedChannel();
+        channel.pipeline().addLast(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME, new HttpServerCodec());
+        channel.pipeline().addLast(HttpChannelInitializer.EXPECT_CONTINUE_HANDLER_NAME, handler);
+        ctx = channel.pipeline().context(handler);
+
+        request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo");
+        HttpUtil.set100ContinueExpected(request, true);
+
+        state = new HttpProcessingState();
+        state.setRequestInfo(new RequestInfoImpl<>(request));
+        state.setEndpointForExecution(mock(StandardEndpoint.class), "/foo");
+        channel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).set(state);
+    }
+
+    @After
+    public void afterMethod() {
+        channel.finishAndReleaseAll();
+    }
+
+    private String readOutboundString() {
+        ByteBuf outbound = channel.readOutbound();
+        if (outbound == null)
+            return null;
+
+        try {
+            return outbound.toString(StandardCharsets.US_ASCII);
+        }
+        finally {
+            outbound.release();
+        }
+    }
+
+    private void assertContinueSent() {
+        assertThat(readOutboundString()).isEqualTo("HTTP/1.1 100 Continue\r\n\r\n");
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(state.isContinueResponsePending()).isFalse();
+    }
+
+    @Test
+    public void shouldHandleDoChannelReadMessage_only_returns_true_for_HTTP_1_1_requests_still_waiting_on_their_payload_that_expect_100_Continue() {
+        // given
+        HttpRequest fullRequest = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo");
+        HttpUtil.set100ContinueExpected(fullRequest, true);
+        HttpRequest http10Request = new DefaultHttpRequest(HttpVersion.HTTP_1_0, HttpMethod.POST, "/foo");
+        http10Request.headers().set("Expect", "100-continue");
+
+        // expect
+        assertThat(handler.shouldHandleDoChannelReadMessage(request)).isTrue();
+        assertThat(handler.shouldHandleDoChannelReadMessage(fullRequest)).isFalse();
+        assertThat(handler.shouldHandleDoChannelReadMessage(http10Request)).isFalse();
+        assertThat(handler.shouldHandleDoChannelReadMessage(
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo")
+        )).isFalse();
+        assertThat(handler.shouldHandleDoChannelReadMessage(new Object())).isFalse();
+    }
+
+    @Test
+    public void doChannelRead_sends_100_Continue_and_removes_Expect_header_when_pre_endpoint_work_is_already_done() {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctx, request);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertContinueSent();
+        assertThat(HttpUtil.is100ContinueExpected(request)).isFalse();
+        assertThat(state.getRequestInfo().getHeaders().contains("Expect")).isFalse();
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_for_requests_that_do_not_expect_100_Continue() {
+        // given
+        HttpUtil.set100ContinueExpected(request, false);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctx, request);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(state.isContinueResponsePending()).isFalse();
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_if_response_sending_has_already_started() {
+        // given
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder().build();
+        responseInfo.setResponseSendingStarted(true);
+        state.setResponseInfo(responseInfo, null);
+
+        // when
+        handler.doChannelRead(ctx, request);
+
+        // then
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(HttpUtil.is100ContinueExpected(request)).isTrue();
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_if_state_is_null() {
+        // given
+        channel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).set(null);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctx, request);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+
+    @Test
+    public void doChannelRead_waits_for_pending_pre_endpoint_work_to_succeed_before_sending_100_Continue() {
+        // given
+        CompletableFuture<Void> securityValidation = new CompletableFuture<>();
+        state.addPreEndpointExecutionWorkChainSegment(aVoid -> securityValidation);
+
+        // when
+        handler.doChannelRead(ctx, request);
+        channel.runPendingTasks();
+
+        // then
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(state.isContinueResponsePending()).isTrue();
+        assertThat(HttpUtil.is100ContinueExpected(request)).isFalse();
+
+        // and when
+        securityValidation.complete(null);
+        channel.runPendingTasks();
+
+        // then
+        assertContinueSent();
+    }
+
+    @Test
+    public void doChannelRead_does_not_send_100_Continue_if_response_sending_started_while_pre_endpoint_work_was_pending() {
+        // given
+        CompletableFuture<Void> securityValidation = new CompletableFuture<>();
+        state.addPreEndpointExecutionWorkChainSegment(aVoid -> securityValidation);
+        handler.doChannelRead(ctx, request);
+
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder().build();
+        responseInfo.setResponseSendingStarted(true);
+        state.setResponseInfo(responseInfo, null);
+
+        // when
+        securityValidation.complete(null);
+        channel.runPendingTasks();
+
+        // then
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+
+    @Test
+    public void doChannelRead_fires_pre_endpoint_work_failure_right_away_for_endpoints_that_wait_on_the_payload() {
+        // given
+        CompletableFuture<Void> securityValidation = new CompletableFuture<>();
+        state.addPreEndpointExecutionWorkChainSegment(aVoid -> securityValidation);
+        handler.doChannelRead(ctx, request);
+        RuntimeException failure = new RuntimeException("intentional test exception");
+
+        // when
+        securityValidation.completeExceptionally(failure);
+        channel.runPendingTasks();
+
+        // then
+        Throwable firedEx = catchThrowable(() -> channel.checkException());
+        assertThat(firedEx).hasRootCauseInstanceOf(RuntimeException.class);
+        assertThat(firedEx.getCause()).isSameAs(failure);
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(state.isContinueResponsePending()).isTrue();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void doChannelRead_leaves_pre_endpoint_work_failure_to_endpoints_that_start_before_the_payload_arrives(
+        boolean isStreamingEndpoint
+    ) throws Exception {
+        // given
+        Endpoint<?> endpoint = (isStreamingEndpoint)
+                               ? mock(StreamingRequestEndpoint.class)
+                               : mock(ProxyRouterEndpoint.class);
+        state.setEndpointForExecution(endpoint, "/foo");
+        CompletableFuture<Void> securityValidation = new CompletableFuture<>();
+        state.addPreEndpointExecutionWorkChainSegment(aVoid -> securityValidation);
+        handler.doChannelRead(ctx, request);
+
+        // when
+        securityValidation.completeExceptionally(new RuntimeException("intentional test exception"));
+        channel.runPendingTasks();
+
+        // then
+        channel.checkException();
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+
+    @Test
+    public void isEndpointWaitingOnPayloadBeforeExecuting_works_as_expected() {
+        // expect
+        assertThat(handler.isEndpointWaitingOnPayloadBeforeExecuting(mock(StandardEndpoint.class))).isTrue();
+        assertThat(handler.isEndpointWaitingOnPayloadBeforeExecuting(mock(StreamingRequestEndpoint.class))).isFalse();
+        assertThat(handler.isEndpointWaitingOnPayloadBeforeExecuting(mock(ProxyRouterEndpoint.class))).isFalse();
+        assertThat(handler.isEndpointWaitingOnPayloadBeforeExecuting(null)).isFalse();
+    }
+
+    @Test
+    public void sendContinueResponse_writes_a_100_Continue_HttpResponse_if_there_is_no_HttpServerCodec_in_the_pipeline() {
+        // given
+        channel.pipeline().remove(HttpChannelInitializer.HTTP_SERVER_CODEC_HANDLER_NAME);
+
+        // when
+        handler.sendContinueResponse(ctx, state);
+
+        // then
+        FullHttpResponse response = channel.readOutbound();
+        assertThat(response.status()).isEqualTo(HttpResponseStatus.CONTINUE);
+        assertThat(response.content().readableBytes()).isZero();
+        assertThat(state.isContinueResponsePending()).isFalse();
+    }
+
+    @Test
+    public void argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo_returns_false() {
+        // expect
+        assertThat(handler.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(null, null, null, null))
+            .isFalse();
+    }
+}
@@ -1,25 +1,36 @@
 package com.nike.riposte.server.handler;
 
+import com.nike.riposte.server.concurrency.TimeoutWheel;
 import com.nike.riposte.server.error.exception.IncompleteHttpCallTimeoutException;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.EventExecutor;
 
 import static io.netty.handler.timeout.IdleStateEvent.ALL_IDLE_STATE_EVENT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 /**
  * Tests the functionality of {@link IncompleteHttpCallTimeoutHandler}.
@@ -30,13 +41,143 @@ public class IncompleteHttpCallTimeoutHandlerTest {
 
     private Channel channelMock;
     private ChannelHandlerContext ctxMock;
+    private EventExecutor executorMock;
+    private TimeoutWheel timeoutWheelMock;
+    private Timeout timeoutMock;
 
     @Before
     public void beforeMethod() {
         channelMock = mock(Channel.class);
         ctxMock = mock(ChannelHandlerContext.class);
+        executorMock = mock(EventExecutor.class);
+        timeoutWheelMock = mock(TimeoutWheel.class);
+        timeoutMock = mock(Timeout.class);
         doReturn(channelMock).when(ctxMock).channel();
+        doReturn(executorMock).when(ctxMock).executor();
         doReturn(mock(Attribute.class)).when(channelMock).attr(any(AttributeKey.class));
+        doReturn(true).when(channelMock).isActive();
+        doReturn(true).when(channelMock).isRegistered();
+        doReturn(true).when(channelMock).isOpen();
+        doReturn(timeoutMock).when(timeoutWheelMock).schedule(
+            any(Executor.class), any(Runnable.class), anyLong(), any(TimeUnit.class)
+        );
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_timeoutWheel_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new IncompleteHttpCallTimeoutHandler(42, null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("timeoutWheel cannot be null");
+    }
+
+    @Test
+    public void handlerAdded_schedules_idle_check_on_timeoutWheel_for_channel_executor() throws Exception {
+        // given
+        IncompleteHttpCallTimeoutHandler handler = new IncompleteHttpCallTimeoutHandler(4242, timeoutWheelMock);
+
+        // when
+        handler.handlerAdded(ctxMock);
+
+        // then
+        verify(timeoutWheelMock).schedule(
+            eq(executorMock), any(Runnable.class), eq(TimeUnit.MILLISECONDS.toNanos(4242)), eq(TimeUnit.NANOSECONDS)
+        );
+        assertThat(handler.idleCheckTimeout).isSameAs(timeoutMock);
+    }
+
+    @Test
+    public void handlerAdded_does_not_schedule_idle_check_if_channel_is_not_active() throws Exception {
+        // given
+        doReturn(false).when(channelMock).isActive();
+        IncompleteHttpCallTimeoutHandler handler = new IncompleteHttpCallTimeoutHandler(4242, timeoutWheelMock);
+
+        // when
+        handler.handlerAdded(ctxMock);
+
+        // then
+        verifyNoInteractions(timeoutWheelMock);
+    }
+
+    @Test
+    public void handlerRemoved_cancels_idle_check() throws Exception {
+        // given
+        IncompleteHttpCallTimeoutHandler handler = new IncompleteHttpCallTimeoutHandler(4242, timeoutWheelMock);
+        handler.handlerAdded(ctxMock);
+
+        // when
+        handler.handlerRemoved(ctxMock);
+
+        // then
+        verify(timeoutMock).cancel();
+        assertThat(handler.idleCheckTimeout).isNull();
+        assertThat(handler.destroyed).isTrue();
+    }
+
+    private Runnable extractIdleCheck(IncompleteHttpCallTimeoutHandler handler) throws Exception {
+        handler.handlerAdded(ctxMock);
+        ArgumentCaptor<Runnable> idleCheckCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(timeoutWheelMock).schedule(
+            eq(executorMock), idleCheckCaptor.capture(), anyLong(), eq(TimeUnit.NANOSECONDS)
+        );
+        return idleCheckCaptor.getValue();
+    }
+
+    @Test
+    public void idle_check_triggers_channelIdle_and_fires_resulting_exception_when_idle_timeout_has_passed() throws Exception {
+        // given
+        IncompleteHttpCallTimeoutHandler handlerSpy = spy(new IncompleteHttpCallTimeoutHandler(4242, timeoutWheelMock));
+        Runnable idleCheck = extractIdleCheck(handlerSpy);
+        handlerSpy.lastActivityNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5000);
+
+        // when
+        idleCheck.run();
+
+        // then
+        verify(handlerSpy).channelIdle(ctxMock, IdleStateEvent.ALL_IDLE_STATE_EVENT);
+        ArgumentCaptor<Throwable> exCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(ctxMock).fireExceptionCaught(exCaptor.capture());
+        assertThat(exCaptor.getValue()).isInstanceOf(IncompleteHttpCallTimeoutException.class);
+    }
+
+    @Test
+    public void idle_check_reschedules_for_remaining_time_if_there_was_activity_since_it_was_scheduled() throws Exception {
+        // given
+        IncompleteHttpCallTimeoutHandler handlerSpy = spy(new IncompleteHttpCallTimeoutHandler(4242, timeoutWheelMock));
+        Runnable idleCheck = extractIdleCheck(handlerSpy);
+        handlerSpy.channelRead(ctxMock, new Object());
+
+        // when
+        idleCheck.run();
+
+        // then
+        ArgumentCaptor<Long> delayCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(timeoutWheelMock, times(2)).schedule(
+            eq(executorMock), any(Runnable.class), delayCaptor.capture(), eq(TimeUnit.NANOSECONDS)
+        );
+        assertThat(delayCaptor.getAllValues().get(1))
+            .isPositive()
+            .isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(4242));
+        verify(handlerSpy, never()).channelIdle(any(ChannelHandlerContext.class), any(IdleStateEvent.class));
+    }
+
+    @Test
+    public void idle_check_does_nothing_if_handler_was_removed() throws Exception {
+        // given
+        IncompleteHttpCallTimeoutHandler handlerSpy = spy(new IncompleteHttpCallTimeoutHandler(4242, timeoutWheelMock));
+        Runnable idleCheck = extractIdleCheck(handlerSpy);
+        handlerSpy.lastActivityNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5000);
+        handlerSpy.handlerRemoved(ctxMock);
+
+        // when
+        idleCheck.run();
+
+        // then
+        verify(handlerSpy, never()).channelIdle(any(ChannelHandlerContext.class), any(IdleStateEvent.class));
+        verify(ctxMock, never()).fireExceptionCaught(any(Throwable.class));
     }
 
     @Test
@@ -0,0 +1,174 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendFullResponseInfo;
+import com.nike.riposte.server.concurrency.CoDelLoadShedder;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.Attribute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests the functionality of {@link LoadSheddingHandler}
+ */
+public class LoadSheddingHandlerTest {
+
+    private CoDelLoadShedder loadShedderMock;
+    private MetricsListener metricsListenerMock;
+    private LoadSheddingHandler handler;
+    private ChannelHandlerContext ctxMock;
+    private EventLoop eventLoopMock;
+    private HttpProcessingState state;
+    private HttpRequest httpRequest;
+
+    @Before
+    public void beforeMethod() {
+        loadShedderMock = mock(CoDelLoadShedder.class);
+        metricsListenerMock = mock(MetricsListener.class);
+        handler = new LoadSheddingHandler(loadShedderMock, metricsListenerMock);
+
+        ctxMock = mock(ChannelHandlerContext.class);
+        Channel channelMock = mock(Channel.class);
+        eventLoopMock = mock(EventLoop.class);
+        @SuppressWarnings("unchecked")
+        Attribute<HttpProcessingState> stateAttrMock = mock(Attribute.class);
+        state = new HttpProcessingState();
+        state.setRequestStartTimeNanos(4242L);
+        httpRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/path");
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(eventLoopMock).when(channelMock).eventLoop();
+        doReturn(stateAttrMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(state).when(stateAttrMock).get();
+        doReturn(null).when(loadShedderMock).shouldShed(any(), any());
+    }
+
+    private void shedNextRequest(long sojournNanos) {
+        doReturn(sojournNanos).when(loadShedderMock).shouldShed(eventLoopMock, 4242L);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_loadShedder_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new LoadSheddingHandler(null, metricsListenerMock));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void doChannelRead_continues_if_request_should_not_be_shed() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, httpRequest);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        verify(loadShedderMock).shouldShed(eventLoopMock, 4242L);
+        assertThat(state.getResponseInfo()).isNull();
+        verify(ctxMock, never()).fireChannelRead(any());
+        verifyNoMoreInteractions(metricsListenerMock);
+    }
+
+    @Test
+    public void doChannelRead_short_circuits_with_503_if_request_should_be_shed() throws Exception {
+        // given
+        shedNextRequest(42L);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, httpRequest);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+        assertThat(state.getRequestInfo()).isNotNull();
+        assertThat(state.getRequestInfo().getPath()).isEqualTo("/some/path");
+        assertThat(state.getResponseInfo().getHttpStatusCode()).isEqualTo(503);
+        verify(ctxMock).fireChannelRead(LastOutboundMessageSendFullResponseInfo.INSTANCE);
+        verify(metricsListenerMock).onEvent(ServerMetricsEvent.REQUEST_SHED, 42L);
+    }
+
+    @Test
+    public void doChannelRead_discards_remaining_content_of_shed_request() throws Exception {
+        // given
+        shedNextRequest(42L);
+        handler.doChannelRead(ctxMock, httpRequest);
+        HttpContent chunk = new DefaultHttpContent(Unpooled.copiedBuffer(new byte[]{1, 2, 3}));
+        LastHttpContent lastChunk = new DefaultLastHttpContent(Unpooled.copiedBuffer(new byte[]{4, 5, 6}));
+
+        // when
+        PipelineContinuationBehavior chunkResult = handler.doChannelRead(ctxMock, chunk);
+        PipelineContinuationBehavior lastChunkResult = handler.doChannelRead(ctxMock, lastChunk);
+
+        // then
+        assertThat(chunkResult).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+        assertThat(lastChunkResult).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+        assertThat(chunk.refCnt()).isZero();
+        assertThat(lastChunk.refCnt()).isZero();
+        assertThat(handler.discardingContentForShedRequest).isFalse();
+    }
+
+    @Test
+    public void doChannelRead_passes_content_through_for_requests_that_were_not_shed() throws Exception {
+        // given
+        handler.doChannelRead(ctxMock, httpRequest);
+        HttpContent chunk = new DefaultHttpContent(Unpooled.copiedBuffer(new byte[]{1, 2, 3}));
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, chunk);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(chunk.refCnt()).isEqualTo(1);
+        chunk.release();
+    }
+
+    @Test
+    public void doChannelRead_still_sheds_if_metrics_listener_explodes() throws Exception {
+        // given
+        shedNextRequest(42L);
+        doThrow(new RuntimeException("intentional exception")).when(metricsListenerMock).onEvent(any(), any());
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, httpRequest);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+        verify(ctxMock).fireChannelRead(LastOutboundMessageSendFullResponseInfo.INSTANCE);
+    }
+
+    @Test
+    public void argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo_only_returns_true_for_HttpRequest() {
+        // expect
+        assertThat(handler.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(null, ctxMock, httpRequest, null))
+            .isTrue();
+        assertThat(handler.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(
+            null, ctxMock, mock(HttpContent.class), null
+        )).isFalse();
+    }
+}
@@ -2,17 +2,21 @@ package com.nike.riposte.server.handler;
 
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendFullResponseInfo;
+import com.nike.riposte.server.concurrency.TimeoutWheel;
 import com.nike.riposte.server.config.distributedtracing.DefaultRiposteServerSpanNamingAndTaggingStrategy;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.config.distributedtracing.ServerSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.error.exception.RequestDeadlineExceededException;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.NonblockingEndpoint;
 import com.nike.riposte.server.http.ProxyRouterProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.http.cache.RequestCoalescer;
 import com.nike.riposte.server.http.impl.RequestInfoImpl;
 import com.nike.riposte.util.asynchelperwrapper.BiConsumerWithTracingAndMdcSupport;
 import com.nike.riposte.util.asynchelperwrapper.RunnableWithTracingAndMdcSupport;
@@ -50,8 +54,8 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.Attribute;
+import io.netty.util.Timeout;
 import io.netty.util.concurrent.EventExecutor;
-import io.netty.util.concurrent.ScheduledFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -83,6 +87,7 @@ public class NonblockingEndpointExecutionHandlerTest {
     private ChannelHandlerContext ctxMock;
     private Channel channelMock;
     private EventLoop eventLoopMock;
+    private TimeoutWheel timeoutWheelMock;
     private Attribute<HttpProcessingState> stateAttrMock;
     private Attribute<ProxyRouterProcessingState> proxyRouterStateAttrMock;
     private RequestInfo requestInfo;
@@ -111,6 +116,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         responseFuture = new CompletableFuture<>();
         stateWorkChainFutureSpy = spy(CompletableFuture.completedFuture(null));
         eventLoopMock = mock(EventLoop.class);
+        timeoutWheelMock = mock(TimeoutWheel.class);
         eventExecutorMock = mock(EventExecutor.class);
 
         distributedTracingConfigMock = mock(DistributedTracingConfig.class);
@@ -136,9 +142,13 @@ public class NonblockingEndpointExecutionHandlerTest {
             return futureThatWillBeAttachedToSpy;
         }).when(stateWorkChainFutureSpy).thenCompose(any(Function.class));
         doReturn(stateWorkChainFutureSpy).when(stateMock).getPreEndpointExecutionWorkChain();
+        doReturn(mock(Timeout.class)).when(timeoutWheelMock).schedule(
+            any(Executor.class), any(Runnable.class), any(Long.class), any(TimeUnit.class)
+        );
 
         handlerSpy = spy(new NonblockingEndpointExecutionHandler(
-            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock,
+            new RequestCoalescer(null), timeoutWheelMock
         ));
 
         resetTracingAndMdc();
@@ -205,13 +215,59 @@ public class NonblockingEndpointExecutionHandlerTest {
         verify(endpointMock).execute(requestInfo, longRunningTaskExecutorMock, ctxMock);
         // The 2nd whenComplete is for cancelling the timeout check if the response finishes before the timeout
         verify(futureThatWillBeAttachedToSpy, times(2)).whenComplete(any(BiConsumer.class));
-        verify(eventLoopMock).schedule(any(Runnable.class), any(Long.class), eq(TimeUnit.MILLISECONDS));
+        verify(timeoutWheelMock).schedule(eq(eventLoopMock), any(Runnable.class), any(Long.class), eq(TimeUnit.MILLISECONDS));
         verify(handlerSpy).doExecuteEndpointFunction(
             requestInfo, endpointMock, stateMock.getDistributedTraceStack().peek(), ctxMock
         );
         assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
     }
 
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_passed_null_timeoutWheel() {
+        // when
+        Throwable ex = catchThrowable(
+            () -> new NonblockingEndpointExecutionHandler(
+                longRunningTaskExecutorMock, 42, distributedTracingConfigMock, new RequestCoalescer(null), null
+            )
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("timeoutWheel cannot be null");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_passed_null_requestCoalescer() {
+        // when
+        Throwable ex = catchThrowable(
+            () -> new NonblockingEndpointExecutionHandler(
+                longRunningTaskExecutorMock, 42, distributedTracingConfigMock, null, timeoutWheelMock
+            )
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("requestCoalescer cannot be null");
+    }
+
+    @Test
+    public void doChannelRead_does_not_schedule_timeout_if_endpoint_returns_already_completed_future() throws Exception {
+        // given
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder().build();
+        doReturn(CompletableFuture.completedFuture(responseInfo))
+            .when(stateWorkChainFutureSpy).thenCompose(any(Function.class));
+
+        // when
+        PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(handlerSpy).asyncCallback(ctxMock, responseInfo);
+        verifyNoInteractions(timeoutWheelMock);
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+    }
+
     @Test
     public void doChannelRead_does_nothing_and_returns_CONTINUE_if_endpoint_is_not_NonblockingEndpoint() throws Exception {
         // given
@@ -224,7 +280,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         // then
         verifyNoMoreInteractions(endpointMock);
         assertThat(futureThatWillBeAttachedToSpy).isNull();
-        verifyNoMoreInteractions(eventLoopMock);
+        verifyNoMoreInteractions(eventLoopMock, timeoutWheelMock);
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
@@ -239,7 +295,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         // then
         verifyNoMoreInteractions(endpointMock);
         assertThat(futureThatWillBeAttachedToSpy).isNull();
-        verifyNoMoreInteractions(eventLoopMock);
+        verifyNoMoreInteractions(eventLoopMock, timeoutWheelMock);
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
@@ -252,7 +308,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         PipelineContinuationBehavior result = handlerSpy.doChannelRead(ctxMock, badMsg);
 
         // then
-        verifyNoInteractions(endpointMock, eventLoopMock);
+        verifyNoInteractions(endpointMock, eventLoopMock, timeoutWheelMock);
         assertThat(futureThatWillBeAttachedToSpy).isNull();
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
@@ -266,7 +322,7 @@ public class NonblockingEndpointExecutionHandlerTest {
         handlerSpy.doChannelRead(ctxMock, msg);
 
         // then
-        verify(eventLoopMock).schedule(any(Runnable.class), eq(defaultCompletableFutureTimeoutMillis), eq(TimeUnit.MILLISECONDS));
+        verify(timeoutWheelMock).schedule(eq(eventLoopMock), any(Runnable.class), eq(defaultCompletableFutureTimeoutMillis), eq(TimeUnit.MILLISECONDS));
     }
 
     @Test
@@ -279,7 +335,58 @@ public class NonblockingEndpointExecutionHandlerTest {
         handlerSpy.doChannelRead(ctxMock, msg);
 
         // then
-        verify(eventLoopMock).schedule(any(Runnable.class), eq(endpointValue), eq(TimeUnit.MILLISECONDS));
+        verify(timeoutWheelMock).schedule(eq(eventLoopMock), any(Runnable.class), eq(endpointValue), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void doChannelRead_clamps_timeout_to_remaining_request_deadline() throws Exception {
+        // given
+        doReturn(null).when(endpointMock).completableFutureTimeoutOverrideMillis();
+        doReturn(new RequestDeadline(100, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100), null))
+            .when(stateMock).getRequestDeadline();
+
+        // when
+        handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        ArgumentCaptor<Long> timeoutCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(timeoutWheelMock).schedule(eq(eventLoopMock), any(Runnable.class), timeoutCaptor.capture(), eq(TimeUnit.MILLISECONDS));
+        assertThat(timeoutCaptor.getValue()).isBetween(90L, 100L);
+    }
+
+    @Test
+    public void doChannelRead_does_not_extend_timeout_to_request_deadline() throws Exception {
+        // given
+        doReturn(null).when(endpointMock).completableFutureTimeoutOverrideMillis();
+        doReturn(new RequestDeadline(100_000, System.nanoTime() + TimeUnit.SECONDS.toNanos(100), null))
+            .when(stateMock).getRequestDeadline();
+
+        // when
+        handlerSpy.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(timeoutWheelMock).schedule(eq(eventLoopMock), any(Runnable.class), eq(defaultCompletableFutureTimeoutMillis), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void doChannelRead_timeout_runnable_uses_RequestDeadlineExceededException_if_timeout_was_clamped_to_request_deadline() throws Exception {
+        // given
+        doReturn(null).when(endpointMock).completableFutureTimeoutOverrideMillis();
+        doReturn(new RequestDeadline(100, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100), null))
+            .when(stateMock).getRequestDeadline();
+        Runnable timeoutRunnable = extractTimeoutRunnable();
+        doReturn(null).when(endpointMock).getCustomTimeoutExceptionCause(any(RequestInfo.class), any(ChannelHandlerContext.class));
+        doReturn(false).when(futureThatWillBeAttachedToSpy).isDone();
+
+        // when
+        timeoutRunnable.run();
+
+        // then
+        ArgumentCaptor<Throwable> throwableArgumentCaptor = ArgumentCaptor.forClass(Throwable.class);
+        verify(futureThatWillBeAttachedToSpy).completeExceptionally(throwableArgumentCaptor.capture());
+        assertThat(throwableArgumentCaptor.getValue()).isInstanceOf(RequestDeadlineExceededException.class);
+        assertThat(((RequestDeadlineExceededException) throwableArgumentCaptor.getValue()).deadlineBudgetMillis)
+            .isEqualTo(100);
     }
 
     private BiConsumer<ResponseInfo<?>, Throwable> extractContinuationLogic() throws Exception {
@@ -322,47 +429,47 @@ public class NonblockingEndpointExecutionHandlerTest {
     @Test
     public void doChannelRead_cancels_timeout_check_if_response_finishes_before_timeout_check_occurs() throws Exception {
         // given
-        ScheduledFuture timeoutCheckMock = mock(ScheduledFuture.class);
-        doReturn(timeoutCheckMock).when(eventLoopMock).schedule(any(Runnable.class), any(Long.class), any(TimeUnit.class));
+        Timeout timeoutCheckMock = mock(Timeout.class);
+        doReturn(timeoutCheckMock).when(timeoutWheelMock).schedule(any(Executor.class), any(Runnable.class), any(Long.class), any(TimeUnit.class));
         handlerSpy.doChannelRead(ctxMock, msg);
         ArgumentCaptor<BiConsumer> timeoutCheckCancellationLogicArgumentCaptor = ArgumentCaptor.forClass(BiConsumer.class);
         // The 2nd whenComplete is for cancelling the timeout check if the response finishes before the timeout
         verify(futureThatWillBeAttachedToSpy, times(2)).whenComplete(timeoutCheckCancellationLogicArgumentCaptor.capture());
         BiConsumer<ResponseInfo<?>, Throwable> timeoutCheckCancellationLogic = timeoutCheckCancellationLogicArgumentCaptor.getAllValues().get(1);
 
-        // when: the timeout check scheduled future is not yet complete when the response finishes
-        doReturn(false).when(timeoutCheckMock).isDone();
+        // when: the timeout check has not yet expired when the response finishes
+        doReturn(false).when(timeoutCheckMock).isExpired();
         timeoutCheckCancellationLogic.accept(mock(ResponseInfo.class), null);
 
-        // then: timeout check scheduled future should be cancelled
-        verify(timeoutCheckMock).cancel(false);
+        // then: timeout check should be cancelled
+        verify(timeoutCheckMock).cancel();
     }
 
     @Test
     public void doChannelRead_does_nothing_to_timeout_check_if_timeout_check_is_already_completed_when_response_completes() throws Exception {
         // given
-        ScheduledFuture timeoutCheckMock = mock(ScheduledFuture.class);
-        doReturn(timeoutCheckMock).when(eventLoopMock).schedule(any(Runnable.class), any(Long.class), any(TimeUnit.class));
+        Timeout timeoutCheckMock = mock(Timeout.class);
+        doReturn(timeoutCheckMock).when(timeoutWheelMock).schedule(any(Executor.class), any(Runnable.class), any(Long.class), any(TimeUnit.class));
         handlerSpy.doChannelRead(ctxMock, msg);
         ArgumentCaptor<BiConsumer> timeoutCheckCancellationLogicArgumentCaptor = ArgumentCaptor.forClass(BiConsumer.class);
         // The 2nd whenComplete is for cancelling the timeout check if the response finishes before the timeout
         verify(futureThatWillBeAttachedToSpy, times(2)).whenComplete(timeoutCheckCancellationLogicArgumentCaptor.capture());
         BiConsumer<ResponseInfo<?>, Throwable> timeoutCheckCancellationLogic = timeoutCheckCancellationLogicArgumentCaptor.getAllValues().get(1);
 
-        // when: the timeout check scheduled future is already done
-        doReturn(true).when(timeoutCheckMock).isDone();
+        // when: the timeout check has already expired
+        doReturn(true).when(timeoutCheckMock).isExpired();
         timeoutCheckCancellationLogic.accept(mock(ResponseInfo.class), null);
 
         // then: nothing should be done
-        verify(timeoutCheckMock).isDone();
-        verify(timeoutCheckMock, times(0)).cancel(any(Boolean.class));
+        verify(timeoutCheckMock).isExpired();
+        verify(timeoutCheckMock, times(0)).cancel();
         verifyNoMoreInteractions(timeoutCheckMock);
     }
 
     private Runnable extractTimeoutRunnable() throws Exception {
         handlerSpy.doChannelRead(ctxMock, msg);
         ArgumentCaptor<Runnable> timeoutRunnableCaptor = ArgumentCaptor.forClass(Runnable.class);
-        verify(eventLoopMock).schedule(timeoutRunnableCaptor.capture(), any(Long.class), any(TimeUnit.class));
+        verify(timeoutWheelMock).schedule(eq(eventLoopMock), timeoutRunnableCaptor.capture(), any(Long.class), any(TimeUnit.class));
         return timeoutRunnableCaptor.getValue();
     }
 
@@ -703,4 +810,100 @@ public class NonblockingEndpointExecutionHandlerTest {
             .hasMessage("NonblockingEndpoint.execute() cannot return null.");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void doExecuteEndpointFunction_coalesces_concurrent_requests_when_endpoint_provides_coalescing_key() {
+        // given
+        doReturn("someKey").when(endpointMock).requestCoalescingKey(requestInfo);
+        Function<Void, CompletableFuture<ResponseInfo<?>>> executeFunc = handlerSpy
+            .doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock);
+
+        // when
+        CompletableFuture<ResponseInfo<?>> first = executeFunc.apply(null);
+        CompletableFuture<ResponseInfo<?>> second = executeFunc.apply(null);
+        responseFuture.complete(ResponseInfo.newBuilder("foo").build());
+
+        // then
+        verify(endpointMock, times(1)).execute(requestInfo, longRunningTaskExecutorMock, ctxMock);
+        assertThat(first).isNotSameAs(responseFuture);
+        assertThat(first.join().getContentForFullResponse()).isEqualTo("foo");
+        assertThat(second.join().getContentForFullResponse()).isEqualTo("foo");
+        assertThat(first.join()).isNotSameAs(second.join());
+    }
+
+    @Test
+    public void doExecuteEndpointFunction_coalesces_concurrent_requests_across_handler_instances_sharing_a_coalescer() {
+        // given
+        RequestCoalescer sharedCoalescer = new RequestCoalescer(null);
+        NonblockingEndpointExecutionHandler firstChannelHandler = new NonblockingEndpointExecutionHandler(
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock,
+            sharedCoalescer, timeoutWheelMock
+        );
+        NonblockingEndpointExecutionHandler secondChannelHandler = new NonblockingEndpointExecutionHandler(
+            longRunningTaskExecutorMock, defaultCompletableFutureTimeoutMillis, distributedTracingConfigMock,
+            sharedCoalescer, timeoutWheelMock
+        );
+        doReturn("someKey").when(endpointMock).requestCoalescingKey(requestInfo);
+
+        // when
+        CompletableFuture<ResponseInfo<?>> first = firstChannelHandler
+            .doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock).apply(null);
+        CompletableFuture<ResponseInfo<?>> second = secondChannelHandler
+            .doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock).apply(null);
+        responseFuture.complete(ResponseInfo.newBuilder("foo").build());
+
+        // then
+        verify(endpointMock, times(1)).execute(requestInfo, longRunningTaskExecutorMock, ctxMock);
+        assertThat(first.join().getContentForFullResponse()).isEqualTo("foo");
+        assertThat(second.join().getContentForFullResponse()).isEqualTo("foo");
+        assertThat(sharedCoalescer.getCoalescingRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void doExecuteEndpointFunction_does_not_coalesce_when_endpoint_provides_null_coalescing_key() {
+        // given
+        doReturn(null).when(endpointMock).requestCoalescingKey(requestInfo);
+        Function<Void, CompletableFuture<ResponseInfo<?>>> executeFunc = handlerSpy
+            .doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock);
+
+        // when
+        CompletableFuture<ResponseInfo<?>> first = executeFunc.apply(null);
+        CompletableFuture<ResponseInfo<?>> second = executeFunc.apply(null);
+
+        // then
+        verify(endpointMock, times(2)).execute(requestInfo, longRunningTaskExecutorMock, ctxMock);
+        assertThat(first).isSameAs(responseFuture);
+        assertThat(second).isSameAs(responseFuture);
+    }
+
+    @Test
+    public void doExecuteEndpointFunction_fails_fast_without_executing_endpoint_if_request_deadline_has_passed() {
+        // given
+        doReturn(new RequestDeadline(100, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5), null))
+            .when(stateMock).getRequestDeadline();
+        Function<Void, CompletableFuture<ResponseInfo<?>>> executeFunc = handlerSpy
+            .doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock);
+
+        // when
+        Throwable ex = catchThrowable(() -> executeFunc.apply(null));
+
+        // then
+        assertThat(ex).isInstanceOf(RequestDeadlineExceededException.class);
+        assertThat(((RequestDeadlineExceededException) ex).overrunMillis).isGreaterThanOrEqualTo(4);
+        verify(endpointMock, never()).execute(any(RequestInfo.class), any(Executor.class), any(ChannelHandlerContext.class));
+    }
+
+    @Test
+    public void doExecuteEndpointFunction_executes_endpoint_if_request_deadline_has_not_passed() {
+        // given
+        doReturn(new RequestDeadline(100, System.nanoTime() + TimeUnit.SECONDS.toNanos(10), null))
+            .when(stateMock).getRequestDeadline();
+        Function<Void, CompletableFuture<ResponseInfo<?>>> executeFunc = handlerSpy
+            .doExecuteEndpointFunction(requestInfo, endpointMock, null, ctxMock);
+
+        // when
+        CompletableFuture<ResponseInfo<?>> result = executeFunc.apply(null);
+
+        // then
+        assertThat(result).isSameAs(responseFuture);
+    }
+}
@@ -12,8 +12,10 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.stream.ChunkedInput;
 import io.netty.util.Attribute;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -156,4 +158,32 @@ public class ProcessFinalResponseOutputHandlerTest {
         // then
         assertThat(responseInfo.getFinalContentLength()).isNull();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void write_adds_to_finalContentLength_if_msg_is_FileRegion() throws Exception {
+        // given
+        FileRegion msgMock = mock(FileRegion.class);
+        long contentBytes = (long)(Math.random() * 10000);
+        doReturn(contentBytes).when(msgMock).count();
+
+        // when
+        handler.write(ctxMock, msgMock, promiseMock);
+
+        // then
+        assertThat(responseInfo.getFinalContentLength()).isEqualTo(contentBytes);
+    }
+
+    @Test
+    public void write_adds_to_finalContentLength_if_msg_is_ChunkedInput() throws Exception {
+        // given
+        ChunkedInput<?> msgMock = mock(ChunkedInput.class);
+        long contentBytes = (long)(Math.random() * 10000);
+        doReturn(contentBytes).when(msgMock).length();
+
+        // when
+        handler.write(ctxMock, msgMock, promiseMock);
+
+        // then
+        assertThat(responseInfo.getFinalContentLength()).isEqualTo(contentBytes);
+    }
+}
@@ -2,11 +2,15 @@ package com.nike.riposte.server.handler;
 
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.ContentCodec;
+import com.nike.riposte.server.http.ContentCodecNegotiator;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.JacksonContentCodec;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.impl.RequestInfoImpl;
 import com.nike.riposte.util.Matcher;
+import com.nike.riposte.util.ObjectReaderWriterCache;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -16,10 +20,14 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import com.nike.riposte.testutils.Whitebox;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.UUID;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.Attribute;
 
@@ -28,6 +36,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -97,6 +106,51 @@ public class RequestContentDeserializerHandlerTest {
         assertThat(storedObjMapperDefault).isNotEqualTo(defaultHandlerDeserializerMock);
     }
 
+    @Test
+    public void constructor_uses_the_same_fallback_objectMapper_for_every_handler_if_passed_null() {
+        // when
+        RequestContentDeserializerHandler firstHandler = new RequestContentDeserializerHandler(null);
+        RequestContentDeserializerHandler secondHandler = new RequestContentDeserializerHandler(null);
+
+        // then
+        assertThat(Whitebox.getInternalState(firstHandler, "defaultRequestContentDeserializer"))
+            .isNotNull()
+            .isSameAs(Whitebox.getInternalState(secondHandler, "defaultRequestContentDeserializer"));
+    }
+
+    @Test
+    public void preloadRequestContentReaders_caches_readers_for_endpoints_with_a_requestContentType() {
+        // given
+        ObjectMapper deserializerSpy = spy(new ObjectMapper());
+        Endpoint<?> noContentTypeEndpointMock = mock(Endpoint.class);
+
+        // when
+        RequestContentDeserializerHandler.preloadRequestContentReaders(
+            Arrays.asList(endpointMock, noContentTypeEndpointMock), deserializerSpy
+        );
+
+        // then
+        verify(deserializerSpy).readerFor(contentTypeRef);
+
+        // and when
+        ObjectReaderWriterCache.getDefaultInstance().readerFor(deserializerSpy, contentTypeRef);
+
+        // then
+        verify(deserializerSpy).readerFor(any(TypeReference.class));
+    }
+
+    @Test
+    public void preloadRequestContentReaders_does_nothing_if_endpoints_is_null() {
+        // given
+        ObjectMapper deserializerMock = mock(ObjectMapper.class);
+
+        // when
+        RequestContentDeserializerHandler.preloadRequestContentReaders(null, deserializerMock);
+
+        // then
+        verifyNoInteractions(deserializerMock);
+    }
+
     @Test
     public void doChannelRead_uses_default_deserializer_if_custom_endpoint_one_is_null() throws Exception {
         // given
@@ -124,6 +178,45 @@ public class RequestContentDeserializerHandlerTest {
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
+    @Test
+    public void doChannelRead_uses_content_codec_matching_the_request_content_type_instead_of_a_deserializer() throws Exception {
+        // given
+        ContentCodec codec = new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+        handler = new RequestContentDeserializerHandler(
+            defaultHandlerDeserializerMock, new ContentCodecNegotiator(Collections.singletonList(codec))
+        );
+        doReturn(mock(ObjectMapper.class)).when(endpointMock).customRequestContentDeserializer(any());
+        doReturn(new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "application/cbor"))
+            .when(requestInfoSpy).getHeaders();
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(requestInfoSpy).setupContentCodec(codec, contentTypeRef);
+        verify(requestInfoSpy, never()).setupContentDeserializer(any(), any());
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelRead_uses_deserializer_if_request_content_type_does_not_match_a_content_codec() throws Exception {
+        // given
+        ContentCodec codec = new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+        handler = new RequestContentDeserializerHandler(
+            defaultHandlerDeserializerMock, new ContentCodecNegotiator(Collections.singletonList(codec))
+        );
+        doReturn(new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "application/json"))
+            .when(requestInfoSpy).getHeaders();
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msg);
+
+        // then
+        verify(requestInfoSpy).setupContentDeserializer(defaultHandlerDeserializerMock, contentTypeRef);
+        verify(requestInfoSpy, never()).setupContentCodec(any(), any());
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
     @Test
     public void doChannelRead_uses_TypeReference_from_endpoint_requestContentType_method() throws Exception {
         // given
@@ -0,0 +1,196 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.error.exception.RequestDeadlineExceededException;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestDeadline;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.Attribute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link RequestDeadlineHandler}
+ */
+@RunWith(DataProviderRunner.class)
+public class RequestDeadlineHandlerTest {
+
+    private static final String HEADER_NAME = RequestDeadlineConfig.DEFAULT_IMPL.inboundHeaderName();
+
+    private RequestDeadlineHandler handler;
+    private ChannelHandlerContext ctxMock;
+    private HttpProcessingState state;
+    private HttpRequest request;
+
+    @Before
+    public void beforeMethod() {
+        handler = new RequestDeadlineHandler(RequestDeadlineConfig.DEFAULT_IMPL);
+
+        ctxMock = mock(ChannelHandlerContext.class);
+        Channel channelMock = mock(Channel.class);
+        @SuppressWarnings("unchecked")
+        Attribute<HttpProcessingState> stateAttrMock = mock(Attribute.class);
+        state = new HttpProcessingState();
+        state.setRequestStartTimeNanos(System.nanoTime());
+        request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/path");
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(stateAttrMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(state).when(stateAttrMock).get();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_config_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new RequestDeadlineHandler(null));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_uses_header_names_from_config() {
+        // when
+        RequestDeadlineHandler instance = new RequestDeadlineHandler(new RequestDeadlineConfig() {
+            @Override
+            public @Nullable String outboundHeaderName() {
+                return null;
+            }
+        });
+
+        // then
+        assertThat(instance.inboundHeaderName).isEqualTo(HEADER_NAME);
+        assertThat(instance.outboundHeaderName).isNull();
+    }
+
+    @Test
+    public void doChannelRead_stores_deadline_relative_to_request_start_time() throws Exception {
+        // given
+        request.headers().set(HEADER_NAME, " 5000 ");
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, request);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        RequestDeadline deadline = state.getRequestDeadline();
+        assertThat(deadline).isNotNull();
+        assertThat(deadline.budgetMillis).isEqualTo(5000);
+        assertThat(deadline.deadlineNanos)
+            .isEqualTo(state.getRequestStartTimeNanos() + TimeUnit.MILLISECONDS.toNanos(5000));
+        assertThat(deadline.outboundHeaderName).isEqualTo(HEADER_NAME);
+    }
+
+    @Test
+    public void doChannelRead_caps_huge_budgets() throws Exception {
+        // given
+        request.headers().set(HEADER_NAME, String.valueOf(Long.MAX_VALUE));
+
+        // when
+        handler.doChannelRead(ctxMock, request);
+
+        // then
+        RequestDeadline deadline = state.getRequestDeadline();
+        assertThat(deadline).isNotNull();
+        assertThat(deadline.budgetMillis).isEqualTo(Long.MAX_VALUE);
+        assertThat(deadline.deadlineNanos).isEqualTo(
+            state.getRequestStartTimeNanos() + TimeUnit.MILLISECONDS.toNanos(RequestDeadlineHandler.MAX_BUDGET_MILLIS)
+        );
+        assertThat(deadline.calculateRemainingMillis()).isPositive();
+    }
+
+    @DataProvider(value = {
+        "0",
+        "-1",
+        "-9223372036854775808"
+    })
+    @Test
+    public void doChannelRead_throws_RequestDeadlineExceededException_if_deadline_has_already_passed(
+        String headerValue
+    ) {
+        // given
+        request.headers().set(HEADER_NAME, headerValue);
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.doChannelRead(ctxMock, request));
+
+        // then
+        assertThat(ex).isInstanceOf(RequestDeadlineExceededException.class);
+        assertThat(((RequestDeadlineExceededException) ex).deadlineBudgetMillis).isEqualTo(Long.parseLong(headerValue));
+        assertThat(((RequestDeadlineExceededException) ex).overrunMillis).isNotNegative();
+        assertThat(state.getRequestDeadline()).isNotNull();
+    }
+
+    @Test
+    public void doChannelRead_counts_time_since_request_start_against_the_deadline() {
+        // given
+        state.setRequestStartTimeNanos(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(100));
+        request.headers().set(HEADER_NAME, "50");
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.doChannelRead(ctxMock, request));
+
+        // then
+        assertThat(ex).isInstanceOf(RequestDeadlineExceededException.class);
+        assertThat(((RequestDeadlineExceededException) ex).overrunMillis).isGreaterThanOrEqualTo(49);
+    }
+
+    @DataProvider(value = {
+        "null",
+        "",
+        "not-a-number",
+        "1.5"
+    })
+    @Test
+    public void doChannelRead_does_nothing_if_header_is_missing_or_invalid(String headerValue) throws Exception {
+        // given
+        if (headerValue != null)
+            request.headers().set(HEADER_NAME, headerValue);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, request);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(state.getRequestDeadline()).isNull();
+    }
+
+    @Test
+    public void doChannelRead_does_nothing_for_content_chunks() throws Exception {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, mock(HttpContent.class));
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(state.getRequestDeadline()).isNull();
+    }
+
+    @Test
+    public void argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo_returns_false() {
+        // expect
+        assertThat(handler.argsAreEligibleForLinkingAndUnlinkingDistributedTracingInfo(null, ctxMock, request, null))
+            .isFalse();
+    }
+}
@@ -1,24 +1,38 @@
 package com.nike.riposte.server.handler;
 
 import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.concurrency.RequestBodyMemoryBudget;
+import com.nike.riposte.server.config.ServerConfig.RequestContentSpillConfig;
+import com.nike.riposte.server.config.ServerConfig.StreamingMultipartConfig;
 import com.nike.riposte.server.error.exception.InvalidHttpRequestException;
 import com.nike.riposte.server.error.exception.RequestTooBigException;
 import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.ProxyRouterEndpoint;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.StreamingRequestEndpoint;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 
 import org.assertj.core.api.Assertions;
+import org.jetbrains.annotations.Nullable;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.DecoderResult;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -28,10 +42,15 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.util.Attribute;
+import io.netty.util.concurrent.EventExecutor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -132,6 +151,101 @@ public class RequestInfoSetterHandlerTest {
         assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
     }
 
+    @Test
+    public void doChannelRead_enables_content_spilling_on_RequestInfo_if_RequestContentSpillConfig_is_given() {
+        // given
+        Path tempDirectory = Paths.get("/some/temp/dir");
+        handler = new RequestInfoSetterHandler(maxRequestSizeInBytes, new RequestContentSpillConfig() {
+            @Override
+            public long inMemoryThresholdBytes() {
+                return 1234;
+            }
+
+            @Override
+            public @Nullable Path tempDirectory() {
+                return tempDirectory;
+            }
+        }, null, null);
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        doReturn(requestInfoImplMock).when(stateMock).getRequestInfo();
+        HttpRequest msgMock = mock(HttpRequest.class);
+        doReturn(DecoderResult.SUCCESS).when(msgMock).decoderResult();
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msgMock);
+
+        // then
+        verify(requestInfoImplMock).spillContentToDiskPastThreshold(1234, tempDirectory, null);
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelRead_passes_spill_write_executor_to_RequestInfo_if_given() {
+        // given
+        Executor spillWriteExecutorMock = mock(Executor.class);
+        handler = new RequestInfoSetterHandler(
+            maxRequestSizeInBytes, RequestContentSpillConfig.DEFAULT_IMPL, null, null, spillWriteExecutorMock
+        );
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        doReturn(requestInfoImplMock).when(stateMock).getRequestInfo();
+        HttpRequest msgMock = mock(HttpRequest.class);
+        doReturn(DecoderResult.SUCCESS).when(msgMock).decoderResult();
+
+        // when
+        handler.doChannelRead(ctxMock, msgMock);
+
+        // then
+        verify(requestInfoImplMock).spillContentToDiskPastThreshold(
+            RequestContentSpillConfig.DEFAULT_IMPL.inMemoryThresholdBytes(), null, spillWriteExecutorMock
+        );
+    }
+
+    @Test
+    public void doChannelRead_enables_incremental_multipart_decoding_on_RequestInfo_if_StreamingMultipartConfig_is_given() {
+        // given
+        Path tempDirectory = Paths.get("/some/temp/dir");
+        handler = new RequestInfoSetterHandler(maxRequestSizeInBytes, null, new StreamingMultipartConfig() {
+            @Override
+            public long minSizeForDiskBytes() {
+                return 4321;
+            }
+
+            @Override
+            public @Nullable Path tempDirectory() {
+                return tempDirectory;
+            }
+        }, null);
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        doReturn(requestInfoImplMock).when(stateMock).getRequestInfo();
+        HttpRequest msgMock = mock(HttpRequest.class);
+        doReturn(DecoderResult.SUCCESS).when(msgMock).decoderResult();
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msgMock);
+
+        // then
+        verify(requestInfoImplMock).decodeMultipartContentAsItArrives(4321, tempDirectory);
+        verify(requestInfoImplMock, never()).spillContentToDiskPastThreshold(anyLong(), any(), any());
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
+    @Test
+    public void doChannelRead_does_not_enable_content_spilling_or_incremental_multipart_decoding_if_configs_are_null() {
+        // given
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        doReturn(requestInfoImplMock).when(stateMock).getRequestInfo();
+        HttpRequest msgMock = mock(HttpRequest.class);
+        doReturn(DecoderResult.SUCCESS).when(msgMock).decoderResult();
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, msgMock);
+
+        // then
+        verify(requestInfoImplMock, never()).spillContentToDiskPastThreshold(anyLong(), any(), any());
+        verify(requestInfoImplMock, never()).decodeMultipartContentAsItArrives(anyLong(), any());
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
     @Test
     public void doChannelRead_checks_for_fully_send_responses_but_does_nothing_else_if_msg_is_not_HttpRequest_or_HttpContent() {
         // given
@@ -193,6 +307,224 @@ public class RequestInfoSetterHandlerTest {
         verify(httpContentMock).release();
     }
 
+    @Test
+    public void doChannelRead_reserves_HttpContent_bytes_against_RequestBodyMemoryBudget_and_stores_reservation_on_state() {
+        // given
+        RequestBodyMemoryBudget budgetMock = mock(RequestBodyMemoryBudget.class);
+        RequestBodyMemoryBudget.Reservation reservationMock = mock(RequestBodyMemoryBudget.Reservation.class);
+        doReturn(reservationMock).when(budgetMock).newReservation();
+        doReturn(true).when(reservationMock).reserve(anyLong());
+        doReturn(7).when(byteBufMock).readableBytes();
+        handler = new RequestInfoSetterHandler(maxRequestSizeInBytes, null, null, budgetMock);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, httpContentMock);
+
+        // then
+        verify(stateMock).setRequestBodyMemoryReservation(reservationMock);
+        verify(reservationMock).reserve(7);
+        verify(reservationMock, never()).pauseReadingUntilBudgetAvailable(any());
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        verify(httpContentMock).release();
+    }
+
+    @Test
+    public void doChannelRead_reuses_existing_RequestBodyMemoryBudget_reservation_from_state() {
+        // given
+        RequestBodyMemoryBudget budgetMock = mock(RequestBodyMemoryBudget.class);
+        RequestBodyMemoryBudget.Reservation reservationMock = mock(RequestBodyMemoryBudget.Reservation.class);
+        doReturn(reservationMock).when(stateMock).getRequestBodyMemoryReservation();
+        doReturn(true).when(reservationMock).reserve(anyLong());
+        doReturn(7).when(byteBufMock).readableBytes();
+        handler = new RequestInfoSetterHandler(maxRequestSizeInBytes, null, null, budgetMock);
+
+        // when
+        handler.doChannelRead(ctxMock, httpContentMock);
+
+        // then
+        verify(budgetMock, never()).newReservation();
+        verify(stateMock, never()).setRequestBodyMemoryReservation(any());
+        verify(reservationMock).reserve(7);
+    }
+
+    @DataProvider(value = {
+        "false  |   true",
+        "true   |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void doChannelRead_pauses_reading_when_RequestBodyMemoryBudget_is_used_up_unless_it_is_the_last_chunk(
+        boolean isLastChunk, boolean expectPause
+    ) {
+        // given
+        RequestBodyMemoryBudget budgetMock = mock(RequestBodyMemoryBudget.class);
+        RequestBodyMemoryBudget.Reservation reservationMock = mock(RequestBodyMemoryBudget.Reservation.class);
+        doReturn(reservationMock).when(budgetMock).newReservation();
+        doReturn(false).when(reservationMock).reserve(anyLong());
+        HttpContent contentMock = (isLastChunk) ? mock(LastHttpContent.class) : httpContentMock;
+        doReturn(byteBufMock).when(contentMock).content();
+        handler = new RequestInfoSetterHandler(maxRequestSizeInBytes, null, null, budgetMock);
+
+        // when
+        handler.doChannelRead(ctxMock, contentMock);
+
+        // then
+        verify(reservationMock).reserve(anyLong());
+        verify(reservationMock, times(expectPause ? 1 : 0)).pauseReadingUntilBudgetAvailable(ctxMock);
+    }
+
+    private ChannelConfig setupHandlerForSpillFileWrites(
+        RequestInfoImpl<?> requestInfoImplMock, CompletableFuture<Void> pendingWrites
+    ) {
+        handler = new RequestInfoSetterHandler(
+            maxRequestSizeInBytes, RequestContentSpillConfig.DEFAULT_IMPL, null, null, mock(Executor.class)
+        );
+        doReturn(requestInfoImplMock).when(stateMock).getRequestInfo();
+        doReturn(pendingWrites).when(requestInfoImplMock).getPendingSpillFileWrites();
+
+        ChannelConfig channelConfigMock = mock(ChannelConfig.class);
+        doReturn(channelConfigMock).when(channelMock).config();
+        EventExecutor eventExecutorMock = mock(EventExecutor.class);
+        doReturn(eventExecutorMock).when(ctxMock).executor();
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(eventExecutorMock).execute(any(Runnable.class));
+        return channelConfigMock;
+    }
+
+    @Test
+    public void doChannelRead_pauses_reading_until_pending_spill_file_writes_are_done() {
+        // given
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        CompletableFuture<Void> pendingWrites = new CompletableFuture<>();
+        ChannelConfig channelConfigMock = setupHandlerForSpillFileWrites(requestInfoImplMock, pendingWrites);
+
+        // when
+        handler.doChannelRead(ctxMock, httpContentMock);
+
+        // then
+        verify(channelConfigMock).setAutoRead(false);
+        verify(channelConfigMock, never()).setAutoRead(true);
+
+        // and when
+        pendingWrites.complete(null);
+
+        // then
+        verify(channelConfigMock).setAutoRead(true);
+        verify(stateMock, never()).addPreEndpointExecutionWorkChainSegment(any());
+    }
+
+    @Test
+    public void doChannelRead_keeps_reading_paused_if_more_spill_file_writes_are_queued_or_budget_paused_it() {
+        // given
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        CompletableFuture<Void> firstWrites = new CompletableFuture<>();
+        ChannelConfig channelConfigMock = setupHandlerForSpillFileWrites(requestInfoImplMock, firstWrites);
+        handler.doChannelRead(ctxMock, httpContentMock);
+
+        CompletableFuture<Void> secondWrites = new CompletableFuture<>();
+        doReturn(secondWrites).when(requestInfoImplMock).getPendingSpillFileWrites();
+        handler.doChannelRead(ctxMock, httpContentMock);
+
+        RequestBodyMemoryBudget.Reservation reservationMock = mock(RequestBodyMemoryBudget.Reservation.class);
+        doReturn(true).when(reservationMock).isReadingPaused();
+        doReturn(reservationMock).when(stateMock).getRequestBodyMemoryReservation();
+
+        // when
+        firstWrites.complete(null);
+        secondWrites.complete(null);
+
+        // then
+        verify(channelConfigMock, never()).setAutoRead(true);
+    }
+
+    @Test
+    public void doChannelRead_holds_back_endpoint_until_pending_spill_file_writes_are_done_on_last_chunk() {
+        // given
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        CompletableFuture<Void> pendingWrites = new CompletableFuture<>();
+        ChannelConfig channelConfigMock = setupHandlerForSpillFileWrites(requestInfoImplMock, pendingWrites);
+        LastHttpContent lastChunkMock = mock(LastHttpContent.class);
+        doReturn(byteBufMock).when(lastChunkMock).content();
+
+        // when
+        handler.doChannelRead(ctxMock, lastChunkMock);
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Function<Void, CompletableFuture<Void>>> segmentCaptor = ArgumentCaptor.forClass(Function.class);
+        verify(stateMock).addPreEndpointExecutionWorkChainSegment(segmentCaptor.capture());
+        assertThat(segmentCaptor.getValue().apply(null)).isSameAs(pendingWrites);
+        verify(channelConfigMock, never()).setAutoRead(false);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void doChannelRead_does_nothing_extra_when_spill_file_writes_are_already_done(boolean isLastChunk) {
+        // given
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        ChannelConfig channelConfigMock = setupHandlerForSpillFileWrites(
+            requestInfoImplMock, CompletableFuture.completedFuture(null)
+        );
+        HttpContent contentMock = (isLastChunk) ? mock(LastHttpContent.class) : httpContentMock;
+        doReturn(byteBufMock).when(contentMock).content();
+
+        // when
+        handler.doChannelRead(ctxMock, contentMock);
+
+        // then
+        verify(stateMock, never()).addPreEndpointExecutionWorkChainSegment(any());
+        verify(channelConfigMock, never()).setAutoRead(anyBoolean());
+    }
+
+    @Test
+    public void doChannelRead_holds_back_endpoint_on_last_chunk_if_a_spill_file_write_failed() {
+        // given
+        RequestInfoImpl<?> requestInfoImplMock = mock(RequestInfoImpl.class);
+        CompletableFuture<Void> failedWrites = new CompletableFuture<>();
+        failedWrites.completeExceptionally(new RuntimeException("intentional test exception"));
+        setupHandlerForSpillFileWrites(requestInfoImplMock, failedWrites);
+        LastHttpContent lastChunkMock = mock(LastHttpContent.class);
+        doReturn(byteBufMock).when(lastChunkMock).content();
+
+        // when
+        handler.doChannelRead(ctxMock, lastChunkMock);
+
+        // then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Function<Void, CompletableFuture<Void>>> segmentCaptor = ArgumentCaptor.forClass(Function.class);
+        verify(stateMock).addPreEndpointExecutionWorkChainSegment(segmentCaptor.capture());
+        assertThat(segmentCaptor.getValue().apply(null)).isSameAs(failedWrites);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void doChannelRead_does_not_reserve_RequestBodyMemoryBudget_for_endpoints_that_do_not_buffer_content(
+        boolean isProxyRouterEndpoint
+    ) {
+        // given
+        RequestBodyMemoryBudget budgetMock = mock(RequestBodyMemoryBudget.class);
+        Endpoint<?> nonBufferingEndpoint = (isProxyRouterEndpoint)
+                                           ? mock(ProxyRouterEndpoint.class)
+                                           : mock(StreamingRequestEndpoint.class);
+        doReturn(nonBufferingEndpoint).when(stateMock).getEndpointForExecution();
+        handler = new RequestInfoSetterHandler(maxRequestSizeInBytes, null, null, budgetMock);
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, httpContentMock);
+
+        // then
+        verify(budgetMock, never()).newReservation();
+        verify(stateMock, never()).setRequestBodyMemoryReservation(any());
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+    }
+
     @Test
     public void doChannelRead_does_not_throw_exception_when_exceeding_global_max_size_when_request_validation_is_turned_off() {
         // given
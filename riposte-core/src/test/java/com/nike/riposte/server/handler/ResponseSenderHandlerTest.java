@@ -46,7 +46,12 @@ import java.util.stream.Collectors;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
 import io.netty.util.Attribute;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -628,6 +633,52 @@ public class ResponseSenderHandlerTest {
         verifyNoInteractions(responseSenderMock);
     }
 
+    @DataProvider(value = {
+        "true   |   false   |   false   |   true",
+        "false  |   true    |   false   |   true",
+        "true   |   true    |   false   |   true",
+        "false  |   false   |   false   |   false",
+        "true   |   false   |   true    |   false",
+        "false  |   true    |   true    |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void doSendResponse_forces_connection_close_if_response_is_sent_while_caller_is_waiting_on_100_Continue(
+        boolean expectHeaderPresent, boolean continueResponsePending, boolean requestIsComplete, boolean expectClose
+    ) throws JsonProcessingException {
+        // given
+        HttpRequest request = (requestIsComplete)
+                              ? new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo")
+                              : new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo");
+        if (expectHeaderPresent)
+            HttpUtil.set100ContinueExpected(request, true);
+
+        RequestInfo<?> requestInfo = new RequestInfoImpl<>(request);
+        doReturn(requestInfo).when(stateMock).getRequestInfo();
+        doReturn(continueResponsePending).when(stateMock).isContinueResponsePending();
+
+        // when
+        handlerSpy.doSendResponse(ctxMock, null);
+
+        // then
+        assertThat(responseInfo.isForceConnectionCloseAfterResponseSent()).isEqualTo(expectClose);
+        verify(responseSenderMock).sendFullResponse(ctxMock, requestInfo, responseInfo, customSerializerMock);
+    }
+
+    @Test
+    public void doSendResponse_does_not_force_connection_close_once_response_sending_has_started() throws JsonProcessingException {
+        // given
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo");
+        HttpUtil.set100ContinueExpected(request, true);
+        doReturn(new RequestInfoImpl<>(request)).when(stateMock).getRequestInfo();
+        responseInfo.setResponseSendingStarted(true);
+
+        // when
+        handlerSpy.doSendResponse(ctxMock, null);
+
+        // then
+        assertThat(responseInfo.isForceConnectionCloseAfterResponseSent()).isFalse();
+    }
+
     private enum GetErrorResponseBodyIfPossibleScenario {
         RESPONSE_CONTENT_IS_ERROR_RESPONSE_BODY(false, false, mock(ErrorResponseBody.class), true),
         RESPONSE_INFO_IS_NULL(true, false, mock(ErrorResponseBody.class), false),
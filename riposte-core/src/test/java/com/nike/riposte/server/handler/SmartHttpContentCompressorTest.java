@@ -0,0 +1,677 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.ProxyRouterEndpoint;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseCompressionPolicy;
+import com.nike.riposte.server.http.ResponseContentEncoder;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.cache.CompressedVariantCache;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link SmartHttpContentCompressor}
+ */
+@RunWith(DataProviderRunner.class)
+public class SmartHttpContentCompressorTest {
+
+    private static final int THRESHOLD = 10;
+    private static final String LARGE_CONTENT = "this content is definitely larger than the threshold";
+
+    private Endpoint<?> endpointMock;
+    private HttpProcessingState state;
+
+    @Before
+    public void beforeMethod() {
+        endpointMock = mock(Endpoint.class);
+        state = new HttpProcessingState();
+        state.setEndpointForExecution(endpointMock, "/some/path");
+    }
+
+    private static final ResponseContentEncoder FAKE_BROTLI = new FakeContentEncoder("br");
+
+    private static class FakeContentEncoder implements ResponseContentEncoder {
+        private final String contentEncoding;
+
+        FakeContentEncoder(String contentEncoding) {
+            this.contentEncoding = contentEncoding;
+        }
+
+        @Override
+        public @NotNull String contentEncoding() {
+            return contentEncoding;
+        }
+
+        @Override
+        public @NotNull ChannelHandler newEncoder(@Nullable Integer compressionLevel) {
+            return new MessageToByteEncoder<ByteBuf>() {
+                @Override
+                protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) {
+                    out.writeBytes(msg);
+                }
+            };
+        }
+    }
+
+    private static ResponseCompressionConfig config(List<ResponseContentEncoder> encoders,
+                                                    Collection<String> skipTypes) {
+        return new ResponseCompressionConfig() {
+            @Override
+            public @NotNull List<@NotNull ResponseContentEncoder> contentEncoders() {
+                return (encoders == null) ? ResponseCompressionConfig.super.contentEncoders() : encoders;
+            }
+
+            @Override
+            public @NotNull Collection<@NotNull String> skipCompressionContentTypes() {
+                return (skipTypes == null) ? ResponseCompressionConfig.super.skipCompressionContentTypes() : skipTypes;
+            }
+        };
+    }
+
+    private String sendResponse(SmartHttpContentCompressor compressor, String acceptEncoding, String contentType,
+                                String content) {
+        EmbeddedChannel channel = new EmbeddedChannel(compressor);
+        channel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).set(state);
+
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/path");
+        if (acceptEncoding != null) {
+            request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        }
+        channel.writeInbound(request);
+        ReferenceCountUtil.release(channel.readInbound());
+
+        FullHttpResponse response = new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(content.getBytes())
+        );
+        if (contentType != null) {
+            response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        }
+        channel.writeOutbound(response);
+
+        Object firstOutbound = channel.readOutbound();
+        String contentEncoding = ((HttpResponse) firstOutbound).headers().get(HttpHeaderNames.CONTENT_ENCODING);
+        ReferenceCountUtil.release(firstOutbound);
+        Object next;
+        while ((next = channel.readOutbound()) != null) {
+            ReferenceCountUtil.release(next);
+        }
+        channel.finishAndReleaseAll();
+        return contentEncoding;
+    }
+
+    @Test
+    public void response_larger_than_threshold_is_compressed_with_gzip_by_default() {
+        // given
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(THRESHOLD);
+
+        // when
+        String result = sendResponse(compressor, "gzip, deflate", "application/json", LARGE_CONTENT);
+
+        // then
+        assertThat(result).isEqualTo("gzip");
+    }
+
+    @Test
+    public void response_not_larger_than_threshold_is_not_compressed() {
+        // given
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(THRESHOLD);
+
+        // when
+        String result = sendResponse(compressor, "gzip", "application/json", "0123456789");
+
+        // then
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void ProxyRouterEndpoint_responses_are_not_compressed() {
+        // given
+        state.setEndpointForExecution(mock(ProxyRouterEndpoint.class), "/some/path");
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(THRESHOLD);
+
+        // when
+        String result = sendResponse(compressor, "gzip", "application/json", LARGE_CONTENT);
+
+        // then
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void response_is_not_compressed_when_ResponseInfo_prevents_compressed_output() {
+        // given
+        ResponseInfo<?> responseInfo = ResponseInfo.newBuilder().withPreventCompressedOutput(true).build();
+        state.setResponseInfo(responseInfo, null);
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(THRESHOLD);
+
+        // when
+        String result = sendResponse(compressor, "gzip", "application/json", LARGE_CONTENT);
+
+        // then
+        assertThat(result).isNull();
+    }
+
+    @DataProvider(value = {
+        "image/png                  |   false",
+        "IMAGE/PNG                  |   false",
+        "video/mp4                  |   false",
+        "application/zip; foo=bar   |   false",
+        "image/svg+xml              |   true",
+        "application/json           |   true",
+        "text/plain; charset=UTF-8  |   true"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void content_types_in_the_skip_list_are_not_compressed(String contentType, boolean expectCompressed) {
+        // given
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(THRESHOLD, null);
+
+        // when
+        String result = sendResponse(compressor, "gzip", contentType, LARGE_CONTENT);
+
+        // then
+        assertThat(result).isEqualTo((expectCompressed) ? "gzip" : null);
+    }
+
+    @Test
+    public void custom_skip_list_is_honored() {
+        // given
+        ResponseCompressionConfig config = config(null, Collections.singletonList("application/*"));
+
+        // expect
+        assertThat(sendResponse(new SmartHttpContentCompressor(THRESHOLD, config), "gzip", "application/json",
+                                LARGE_CONTENT)).isNull();
+        assertThat(sendResponse(new SmartHttpContentCompressor(THRESHOLD, config), "gzip", "image/png",
+                                LARGE_CONTENT)).isEqualTo("gzip");
+    }
+
+    @Test
+    public void custom_encoders_are_negotiated_via_accept_encoding() {
+        // given
+        Supplier<SmartHttpContentCompressor> compressorSupplier = () -> new SmartHttpContentCompressor(
+            THRESHOLD, config(Arrays.asList(FAKE_BROTLI, ResponseContentEncoder.GZIP), null)
+        );
+
+        // expect
+        assertThat(sendResponse(compressorSupplier.get(), "gzip, br", "application/json", LARGE_CONTENT))
+            .isEqualTo("br");
+        assertThat(sendResponse(compressorSupplier.get(), "gzip, br;q=0.5", "application/json", LARGE_CONTENT))
+            .isEqualTo("gzip");
+        assertThat(sendResponse(compressorSupplier.get(), "deflate", "application/json", LARGE_CONTENT)).isNull();
+        assertThat(sendResponse(compressorSupplier.get(), null, "application/json", LARGE_CONTENT)).isNull();
+    }
+
+    @Test
+    public void endpoint_policy_overrides_threshold() {
+        // given
+        doReturn(ResponseCompressionPolicy.newBuilder().withThresholdBytes(1000).build())
+            .when(endpointMock).responseCompressionPolicy();
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(THRESHOLD);
+
+        // when
+        String result = sendResponse(compressor, "gzip", "application/json", LARGE_CONTENT);
+
+        // then
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void endpoint_policy_restricts_and_reorders_content_encodings() {
+        // given
+        doReturn(ResponseCompressionPolicy.newBuilder().withContentEncodings(Arrays.asList("deflate", "gzip")).build())
+            .when(endpointMock).responseCompressionPolicy();
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(
+            THRESHOLD, config(Arrays.asList(FAKE_BROTLI, ResponseContentEncoder.GZIP, ResponseContentEncoder.DEFLATE),
+                              null)
+        );
+
+        // when
+        String result = sendResponse(compressor, "br, gzip, deflate", "application/json", LARGE_CONTENT);
+
+        // then
+        assertThat(result).isEqualTo("deflate");
+    }
+
+    @Test
+    public void endpoint_policy_with_empty_content_encodings_disables_compression() {
+        // given
+        doReturn(ResponseCompressionPolicy.newBuilder().withContentEncodings(Collections.emptyList()).build())
+            .when(endpointMock).responseCompressionPolicy();
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(THRESHOLD);
+
+        // when
+        String result = sendResponse(compressor, "gzip", "application/json", LARGE_CONTENT);
+
+        // then
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void endpoint_policy_compression_level_is_passed_to_encoder() {
+        // given
+        Integer[] levelHolder = new Integer[1];
+        ResponseContentEncoder levelCapturingEncoder = new FakeContentEncoder("br") {
+            @Override
+            public @NotNull ChannelHandler newEncoder(@Nullable Integer compressionLevel) {
+                levelHolder[0] = compressionLevel;
+                return super.newEncoder(compressionLevel);
+            }
+        };
+        doReturn(ResponseCompressionPolicy.newBuilder().withCompressionLevel(4).build())
+            .when(endpointMock).responseCompressionPolicy();
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(
+            THRESHOLD, config(Collections.singletonList(levelCapturingEncoder), null)
+        );
+
+        // when
+        String result = sendResponse(compressor, "br", "application/json", LARGE_CONTENT);
+
+        // then
+        assertThat(result).isEqualTo("br");
+        assertThat(levelHolder[0]).isEqualTo(4);
+    }
+
+    private enum Encoding {
+        BR, GZIP, DEFLATE, NONE
+    }
+
+    @DataProvider(value = {
+        "gzip                               |   GZIP",
+        "GZIP                               |   GZIP",
+        "br, gzip                           |   BR",
+        "gzip, br                           |   BR",
+        "br;q=0.8, gzip                     |   GZIP",
+        "br;q=0.8, gzip;q=0.9, deflate      |   DEFLATE",
+        "br;q=0, gzip;q=0                   |   NONE",
+        "*                                  |   BR",
+        "*, br;q=0                          |   GZIP",
+        "*;q=0.5, deflate                   |   DEFLATE",
+        "identity                           |   NONE",
+        "gzip;q=not-a-number, deflate;q=0.1 |   DEFLATE",
+        "                                   |   NONE"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void negotiateContentEncoder_works_as_expected(String acceptEncoding, Encoding expected) {
+        // given
+        List<ResponseContentEncoder> encoders = Arrays.asList(
+            FAKE_BROTLI, ResponseContentEncoder.GZIP, ResponseContentEncoder.DEFLATE
+        );
+
+        // when
+        ResponseContentEncoder result = SmartHttpContentCompressor.negotiateContentEncoder(acceptEncoding, encoders);
+
+        // then
+        switch (expected) {
+            case BR:
+                assertThat(result).isSameAs(FAKE_BROTLI);
+                break;
+            case GZIP:
+                assertThat(result).isSameAs(ResponseContentEncoder.GZIP);
+                break;
+            case DEFLATE:
+                assertThat(result).isSameAs(ResponseContentEncoder.DEFLATE);
+                break;
+            case NONE:
+                assertThat(result).isNull();
+                break;
+            default:
+                throw new IllegalArgumentException("Unhandled case: " + expected);
+        }
+    }
+
+    @Test
+    public void negotiateContentEncoder_returns_null_for_null_accept_encoding() {
+        // expect
+        assertThat(
+            SmartHttpContentCompressor.negotiateContentEncoder(null, Collections.singletonList(FAKE_BROTLI))
+        ).isNull();
+    }
+
+    private EmbeddedChannel setupChannelForOffloadTest(SmartHttpContentCompressor compressor, String acceptEncoding) {
+        RequestInfo<?> requestInfoMock = mock(RequestInfo.class);
+        doReturn(new DefaultHttpHeaders().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding))
+            .when(requestInfoMock).getHeaders();
+        state.setRequestInfo(requestInfoMock);
+
+        EmbeddedChannel channel = new EmbeddedChannel(compressor);
+        channel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).set(state);
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/path");
+        request.headers().set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        channel.writeInbound(request);
+        ReferenceCountUtil.release(channel.readInbound());
+        return channel;
+    }
+
+    private static ResponseCompressionConfig offloadConfig(int offloadThresholdBytes) {
+        return new ResponseCompressionConfig() {
+            @Override
+            public int compressionOffloadThresholdBytes() {
+                return offloadThresholdBytes;
+            }
+        };
+    }
+
+    private static FullHttpResponse fullResponse(String content) {
+        FullHttpResponse response = new DefaultFullHttpResponse(
+            HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.copiedBuffer(content, StandardCharsets.UTF_8)
+        );
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+        return response;
+    }
+
+    private static String gunzip(ByteBuf compressed) {
+        EmbeddedChannel decoder = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+        decoder.writeInbound(compressed.retain());
+        StringBuilder sb = new StringBuilder();
+        ByteBuf chunk;
+        while ((chunk = decoder.readInbound()) != null) {
+            sb.append(chunk.toString(StandardCharsets.UTF_8));
+            chunk.release();
+        }
+        decoder.finishAndReleaseAll();
+        return sb.toString();
+    }
+
+    @Test
+    public void large_responses_are_compressed_on_offload_executor_and_held_writes_stay_in_order() {
+        // given
+        List<Runnable> offloadedTasks = new ArrayList<>();
+        MetricsListener metricsListenerMock = mock(MetricsListener.class);
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(
+            THRESHOLD, offloadConfig(20), offloadedTasks::add, metricsListenerMock
+        );
+        EmbeddedChannel channel = setupChannelForOffloadTest(compressor, "gzip");
+        String largeContent = LARGE_CONTENT + LARGE_CONTENT;
+        Object heldMessage = Unpooled.copiedBuffer("held", StandardCharsets.UTF_8);
+
+        // when
+        ChannelFuture responseFuture = channel.writeAndFlush(fullResponse(largeContent));
+        ChannelFuture heldFuture = channel.writeAndFlush(heldMessage);
+
+        // then
+        assertThat(offloadedTasks).hasSize(1);
+        assertThat((Object) channel.readOutbound()).isNull();
+        assertThat(responseFuture.isDone()).isFalse();
+        assertThat(heldFuture.isDone()).isFalse();
+        verify(metricsListenerMock).onEvent(
+            ServerMetricsEvent.RESPONSE_COMPRESSION_OFFLOADED, (long) largeContent.length()
+        );
+
+        // and when
+        offloadedTasks.get(0).run();
+        channel.runPendingTasks();
+
+        // then
+        verify(metricsListenerMock).onEvent(eq(ServerMetricsEvent.RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT), anyLong());
+        FullHttpResponse compressedResponse = channel.readOutbound();
+        assertThat(compressedResponse.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(compressedResponse.headers().getInt(HttpHeaderNames.CONTENT_LENGTH))
+            .isEqualTo(compressedResponse.content().readableBytes());
+        assertThat(gunzip(compressedResponse.content())).isEqualTo(largeContent);
+        compressedResponse.release();
+
+        Object nextOutbound = channel.readOutbound();
+        assertThat(nextOutbound).isSameAs(heldMessage);
+        ReferenceCountUtil.release(nextOutbound);
+        assertThat(responseFuture.isSuccess()).isTrue();
+        assertThat(heldFuture.isSuccess()).isTrue();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void responses_not_larger_than_offload_threshold_are_compressed_inline() {
+        // given
+        List<Runnable> offloadedTasks = new ArrayList<>();
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(
+            THRESHOLD, offloadConfig(1000), offloadedTasks::add, null
+        );
+        EmbeddedChannel channel = setupChannelForOffloadTest(compressor, "gzip");
+
+        // when
+        channel.writeAndFlush(fullResponse(LARGE_CONTENT));
+
+        // then
+        assertThat(offloadedTasks).isEmpty();
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void responses_are_compressed_inline_when_offload_executor_rejects_the_task() {
+        // given
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(
+            THRESHOLD, offloadConfig(20), task -> { throw new RejectedExecutionException("intentional"); }, null
+        );
+        EmbeddedChannel channel = setupChannelForOffloadTest(compressor, "gzip");
+
+        // when
+        ChannelFuture responseFuture = channel.writeAndFlush(fullResponse(LARGE_CONTENT));
+
+        // then
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(responseFuture.isSuccess()).isTrue();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void failed_offloaded_compression_sends_response_uncompressed() {
+        // given
+        List<Runnable> offloadedTasks = new ArrayList<>();
+        ResponseContentEncoder explodingEncoder = new FakeContentEncoder("gzip") {
+            @Override
+            public @NotNull ChannelHandler newEncoder(@Nullable Integer compressionLevel) {
+                throw new RuntimeException("intentional exception");
+            }
+        };
+        ResponseCompressionConfig config = new ResponseCompressionConfig() {
+            @Override
+            public @NotNull List<@NotNull ResponseContentEncoder> contentEncoders() {
+                return Collections.singletonList(explodingEncoder);
+            }
+
+            @Override
+            public int compressionOffloadThresholdBytes() {
+                return 20;
+            }
+        };
+        SmartHttpContentCompressor compressor = new SmartHttpContentCompressor(
+            THRESHOLD, config, offloadedTasks::add, null
+        );
+        EmbeddedChannel channel = setupChannelForOffloadTest(compressor, "gzip");
+
+        // when
+        ChannelFuture responseFuture = channel.writeAndFlush(fullResponse(LARGE_CONTENT));
+        offloadedTasks.get(0).run();
+        channel.runPendingTasks();
+
+        // then
+        FullHttpResponse response = channel.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isNull();
+        assertThat(response.content().toString(StandardCharsets.UTF_8)).isEqualTo(LARGE_CONTENT);
+        assertThat(responseFuture.isSuccess()).isTrue();
+        response.release();
+        channel.finishAndReleaseAll();
+    }
+
+    private SmartHttpContentCompressor variantCachingCompressor(ResponseContentEncoder encoder,
+                                                                CompressedVariantCache cache) {
+        return new SmartHttpContentCompressor(
+            THRESHOLD, config(Collections.singletonList(encoder), null), null, null, cache
+        );
+    }
+
+    private static ResponseContentEncoder encoderCountingCreations(AtomicInteger counter) {
+        return new FakeContentEncoder("gzip") {
+            @Override
+            public @NotNull ChannelHandler newEncoder(@Nullable Integer compressionLevel) {
+                counter.incrementAndGet();
+                return ResponseContentEncoder.GZIP.newEncoder(compressionLevel);
+            }
+        };
+    }
+
+    private String sendResponseAndGunzip(SmartHttpContentCompressor compressor, String content) {
+        EmbeddedChannel channel = setupChannelForOffloadTest(compressor, "gzip");
+        channel.writeAndFlush(fullResponse(content));
+        FullHttpResponse response = channel.readOutbound();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.headers().getInt(HttpHeaderNames.CONTENT_LENGTH))
+            .isEqualTo(response.content().readableBytes());
+        String result = gunzip(response.content());
+        response.release();
+        channel.finishAndReleaseAll();
+        return result;
+    }
+
+    @Test
+    public void identical_responses_are_served_from_compressed_variant_cache_when_endpoint_opts_in() {
+        // given
+        AtomicInteger encoderCreations = new AtomicInteger(0);
+        ResponseContentEncoder encoder = encoderCountingCreations(encoderCreations);
+        CompressedVariantCache cache = new CompressedVariantCache(10_000);
+        doReturn(ResponseCompressionPolicy.newBuilder().withCacheCompressedVariants(true).build())
+            .when(endpointMock).responseCompressionPolicy();
+
+        // when
+        String firstResult = sendResponseAndGunzip(variantCachingCompressor(encoder, cache), LARGE_CONTENT);
+        String secondResult = sendResponseAndGunzip(variantCachingCompressor(encoder, cache), LARGE_CONTENT);
+
+        // then
+        assertThat(firstResult).isEqualTo(LARGE_CONTENT);
+        assertThat(secondResult).isEqualTo(LARGE_CONTENT);
+        assertThat(encoderCreations.get()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void different_responses_do_not_share_compressed_variants() {
+        // given
+        AtomicInteger encoderCreations = new AtomicInteger(0);
+        ResponseContentEncoder encoder = encoderCountingCreations(encoderCreations);
+        CompressedVariantCache cache = new CompressedVariantCache(10_000);
+        doReturn(ResponseCompressionPolicy.newBuilder().withCacheCompressedVariants(true).build())
+            .when(endpointMock).responseCompressionPolicy();
+        String otherContent = LARGE_CONTENT + " but different";
+
+        // when
+        String firstResult = sendResponseAndGunzip(variantCachingCompressor(encoder, cache), LARGE_CONTENT);
+        String secondResult = sendResponseAndGunzip(variantCachingCompressor(encoder, cache), otherContent);
+
+        // then
+        assertThat(firstResult).isEqualTo(LARGE_CONTENT);
+        assertThat(secondResult).isEqualTo(otherContent);
+        assertThat(encoderCreations.get()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void compressed_variant_cache_is_not_used_when_endpoint_does_not_opt_in() {
+        // given
+        AtomicInteger encoderCreations = new AtomicInteger(0);
+        ResponseContentEncoder encoder = encoderCountingCreations(encoderCreations);
+        CompressedVariantCache cache = new CompressedVariantCache(10_000);
+
+        // when
+        String firstResult = sendResponse(
+            variantCachingCompressor(encoder, cache), "gzip", "application/json", LARGE_CONTENT
+        );
+        String secondResult = sendResponse(
+            variantCachingCompressor(encoder, cache), "gzip", "application/json", LARGE_CONTENT
+        );
+
+        // then
+        assertThat(firstResult).isEqualTo("gzip");
+        assertThat(secondResult).isEqualTo("gzip");
+        assertThat(encoderCreations.get()).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void offloaded_compression_stores_compressed_variant_in_cache() {
+        // given
+        List<Runnable> offloadedTasks = new ArrayList<>();
+        CompressedVariantCache cache = new CompressedVariantCache(10_000);
+        doReturn(ResponseCompressionPolicy.newBuilder().withCacheCompressedVariants(true).build())
+            .when(endpointMock).responseCompressionPolicy();
+        String largeContent = LARGE_CONTENT + LARGE_CONTENT;
+        SmartHttpContentCompressor offloadingCompressor = new SmartHttpContentCompressor(
+            THRESHOLD, offloadConfig(20), offloadedTasks::add, null, cache
+        );
+        EmbeddedChannel channel = setupChannelForOffloadTest(offloadingCompressor, "gzip");
+
+        // when
+        channel.writeAndFlush(fullResponse(largeContent));
+        offloadedTasks.get(0).run();
+        channel.runPendingTasks();
+        ReferenceCountUtil.release(channel.readOutbound());
+        channel.finishAndReleaseAll();
+
+        // then
+        assertThat(cache.size()).isEqualTo(1);
+
+        // and when
+        String cachedResult = sendResponseAndGunzip(
+            new SmartHttpContentCompressor(THRESHOLD, offloadConfig(20), offloadedTasks::add, null, cache),
+            largeContent
+        );
+
+        // then
+        assertThat(cachedResult).isEqualTo(largeContent);
+        assertThat(offloadedTasks).hasSize(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+}
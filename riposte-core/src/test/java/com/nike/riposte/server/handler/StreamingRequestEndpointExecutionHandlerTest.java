@@ -0,0 +1,293 @@
+package com.nike.riposte.server.handler;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.channelpipeline.message.LastOutboundMessageSendFullResponseInfo;
+import com.nike.riposte.server.concurrency.TimeoutWheel;
+import com.nike.riposte.server.config.distributedtracing.DefaultRiposteServerSpanNamingAndTaggingStrategy;
+import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
+import com.nike.riposte.server.handler.base.PipelineContinuationBehavior;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestContentStream;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.http.StreamingRequestEndpoint;
+import com.nike.riposte.server.http.cache.RequestCoalescer;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.util.Matcher;
+import com.nike.wingtips.Span;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link StreamingRequestEndpointExecutionHandler}
+ */
+public class StreamingRequestEndpointExecutionHandlerTest {
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext ctxMock;
+    private HttpProcessingState state;
+    private HttpRequest httpRequest;
+    private RequestInfo<?> requestInfo;
+    private TimeoutWheel timeoutWheelMock;
+    private CompletableFuture<ResponseInfo<String>> endpointResult;
+    private ConsumingStreamingEndpoint endpoint;
+    private StreamingRequestEndpointExecutionHandler handler;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void beforeMethod() {
+        channel = new EmbeddedChannel();
+        ctxMock = mock(ChannelHandlerContext.class);
+        doReturn(channel).when(ctxMock).channel();
+        doReturn(channel.eventLoop()).when(ctxMock).executor();
+
+        httpRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/streaming");
+        requestInfo = new RequestInfoImpl<>(httpRequest);
+        endpointResult = new CompletableFuture<>();
+        endpoint = new ConsumingStreamingEndpoint(endpointResult);
+
+        state = new HttpProcessingState();
+        state.setRequestInfo(requestInfo);
+        state.setEndpointForExecution(endpoint, "/streaming");
+        channel.attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY).set(state);
+
+        timeoutWheelMock = mock(TimeoutWheel.class);
+        doReturn(mock(Timeout.class)).when(timeoutWheelMock).schedule(
+            any(Executor.class), any(Runnable.class), any(Long.class), any(TimeUnit.class)
+        );
+
+        DistributedTracingConfig<Span> distributedTracingConfigMock = mock(DistributedTracingConfig.class);
+        doReturn(DefaultRiposteServerSpanNamingAndTaggingStrategy.getDefaultInstance())
+            .when(distributedTracingConfigMock).getServerSpanNamingAndTaggingStrategy();
+
+        handler = new StreamingRequestEndpointExecutionHandler(
+            mock(Executor.class), 4242, distributedTracingConfigMock, new RequestCoalescer(null), timeoutWheelMock
+        );
+    }
+
+    @After
+    public void afterMethod() {
+        endpoint.releaseAll();
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpContent chunk(String content) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldHandleDoChannelReadMessage_only_returns_true_for_StreamingRequestEndpoints() {
+        // expect
+        assertThat(handler.shouldHandleDoChannelReadMessage(httpRequest, endpoint)).isTrue();
+        assertThat(handler.shouldHandleDoChannelReadMessage(mock(HttpContent.class), endpoint)).isTrue();
+        assertThat(handler.shouldHandleDoChannelReadMessage(new Object(), endpoint)).isFalse();
+        assertThat(handler.shouldHandleDoChannelReadMessage(httpRequest, mock(StandardEndpoint.class))).isFalse();
+        assertThat(handler.shouldHandleDoChannelReadMessage(httpRequest, mock(Endpoint.class))).isFalse();
+    }
+
+    @Test
+    public void doChannelRead_returns_CONTINUE_for_other_endpoint_types() {
+        // given
+        state.setEndpointForExecution(mock(StandardEndpoint.class), "/streaming");
+
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, httpRequest);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.CONTINUE);
+        assertThat(state.getRequestContentStream()).isNull();
+    }
+
+    @Test
+    public void doChannelRead_executes_endpoint_on_HttpRequest_and_streams_content_to_it() {
+        // when
+        PipelineContinuationBehavior result = handler.doChannelRead(ctxMock, httpRequest);
+
+        // then
+        assertThat(result).isEqualTo(PipelineContinuationBehavior.DO_NOT_FIRE_CONTINUE_EVENT);
+        RequestContentStream contentStream = state.getRequestContentStream();
+        assertThat(contentStream).isNotNull();
+        assertThat(endpoint.contentStream).isSameAs(contentStream);
+
+        // and when
+        handler.doChannelRead(ctxMock, chunk("foo"));
+        handler.doChannelRead(ctxMock, new DefaultLastHttpContent(Unpooled.copiedBuffer("bar", StandardCharsets.UTF_8)));
+
+        // then
+        assertThat(endpoint.receivedStrings()).containsExactly("foo", "bar");
+        assertThat(endpoint.completed).isTrue();
+        assertThat(channel.config().isAutoRead()).isTrue();
+
+        // and when
+        endpointResult.complete(ResponseInfo.newBuilder("done").build());
+
+        // then
+        assertThat(state.getResponseInfo().getContentForFullResponse()).isEqualTo("done");
+        verify(ctxMock).fireChannelRead(LastOutboundMessageSendFullResponseInfo.INSTANCE);
+    }
+
+    @Test
+    public void content_chunks_are_not_held_by_the_RequestInfo() {
+        // given
+        handler.doChannelRead(ctxMock, httpRequest);
+        HttpContent chunk = chunk("foo");
+
+        // when
+        requestInfo.addContentChunk(chunk);
+        chunk.release();
+        handler.doChannelRead(ctxMock, chunk);
+        requestInfo.releaseAllResources();
+
+        // then
+        assertThat(endpoint.receivedStrings()).containsExactly("foo");
+        assertThat(chunk.refCnt()).isEqualTo(1);
+    }
+
+    @Test
+    public void endpoint_finishing_early_cancels_the_stream_and_discards_remaining_content() {
+        // given
+        endpoint.requestOnSubscribe = false;
+        handler.doChannelRead(ctxMock, httpRequest);
+        HttpContent buffered = chunk("foo");
+        handler.doChannelRead(ctxMock, buffered);
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        // when
+        endpointResult.complete(ResponseInfo.newBuilder("done").build());
+        HttpContent later = chunk("bar");
+        handler.doChannelRead(ctxMock, later);
+
+        // then
+        assertThat(state.getRequestContentStream().isCancelled()).isTrue();
+        assertThat(buffered.refCnt()).isZero();
+        assertThat(later.refCnt()).isZero();
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(endpoint.received).isEmpty();
+        assertThat(endpoint.error).isNull();
+    }
+
+    @Test
+    public void endpoint_failing_aborts_the_stream() {
+        // given
+        handler.doChannelRead(ctxMock, httpRequest);
+        RuntimeException failure = new RuntimeException("intentional test exception");
+
+        // when
+        endpointResult.completeExceptionally(failure);
+
+        // then
+        assertThat(state.getRequestContentStream().isCancelled()).isTrue();
+        assertThat(endpoint.error).isNotNull();
+        assertThat(endpoint.error.getCause()).isSameAs(failure);
+        verify(ctxMock).fireExceptionCaught(endpoint.error);
+    }
+
+    @Test
+    public void doChannelRead_throws_IllegalStateException_and_releases_chunk_if_there_is_no_content_stream() {
+        // given
+        HttpContent chunk = chunk("foo");
+
+        // when
+        Throwable ex = catchThrowable(() -> handler.doChannelRead(ctxMock, chunk));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalStateException.class);
+        assertThat(chunk.refCnt()).isZero();
+    }
+
+    private static class ConsumingStreamingEndpoint extends StreamingRequestEndpoint<String>
+        implements RequestContentStream.Subscriber {
+
+        private final CompletableFuture<ResponseInfo<String>> result;
+        final List<ByteBuf> received = new ArrayList<>();
+        boolean requestOnSubscribe = true;
+        RequestContentStream contentStream;
+        boolean completed = false;
+        Throwable error;
+
+        ConsumingStreamingEndpoint(CompletableFuture<ResponseInfo<String>> result) {
+            this.result = result;
+        }
+
+        @Override
+        public @NotNull CompletableFuture<ResponseInfo<String>> executeStreaming(
+            @NotNull RequestInfo<Void> request,
+            @NotNull RequestContentStream contentStream,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            this.contentStream = contentStream;
+            contentStream.subscribe(this);
+            if (requestOnSubscribe)
+                contentStream.request(Long.MAX_VALUE);
+            return result;
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match("/streaming");
+        }
+
+        @Override
+        public void onNext(@NotNull ByteBuf chunk) {
+            received.add(chunk);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        @Override
+        public void onError(@NotNull Throwable error) {
+            this.error = error;
+        }
+
+        List<String> receivedStrings() {
+            List<String> result = new ArrayList<>();
+            for (ByteBuf buf : received) {
+                result.add(buf.toString(StandardCharsets.UTF_8));
+            }
+            return result;
+        }
+
+        void releaseAll() {
+            for (ByteBuf buf : received) {
+                if (buf.refCnt() > 0)
+                    buf.release();
+            }
+        }
+    }
+}
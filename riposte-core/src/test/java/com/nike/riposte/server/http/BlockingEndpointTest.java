@@ -0,0 +1,130 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.testutils.TestUtil;
+import com.nike.riposte.util.Matcher;
+import com.nike.wingtips.Span;
+import com.nike.wingtips.Tracer;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link BlockingEndpoint}
+ */
+public class BlockingEndpointTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void beforeMethod() {
+        executor = Executors.newCachedThreadPool();
+        MDC.clear();
+        Tracer.getInstance().unregisterFromThread();
+    }
+
+    @After
+    public void afterMethod() {
+        executor.shutdown();
+        MDC.clear();
+        Tracer.getInstance().unregisterFromThread();
+    }
+
+    private static class BlockingEndpointForTesting extends BlockingEndpoint<Void, String> {
+        final AtomicReference<Thread> executingThread = new AtomicReference<>();
+        final AtomicReference<Span> spanDuringExecution = new AtomicReference<>();
+        RuntimeException exceptionToThrow;
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match("/blocking");
+        }
+
+        @Override
+        public @NotNull ResponseInfo<String> executeBlocking(@NotNull RequestInfo<Void> request) {
+            executingThread.set(Thread.currentThread());
+            spanDuringExecution.set(Tracer.getInstance().getCurrentSpan());
+            if (exceptionToThrow != null)
+                throw exceptionToThrow;
+
+            return ResponseInfo.newBuilder("blocking-result").build();
+        }
+    }
+
+    @Test
+    public void execute_runs_executeBlocking_on_longRunningTaskExecutor_with_tracing_info() throws Exception {
+        // given
+        ChannelHandlerContext ctx = TestUtil.mockChannelHandlerContextWithTraceInfo().mockContext;
+        Span parentSpan = Tracer.getInstance().getCurrentSpan();
+        BlockingEndpointForTesting endpoint = new BlockingEndpointForTesting();
+
+        // when
+        CompletableFuture<ResponseInfo<String>> result = endpoint.execute(mock(RequestInfo.class), executor, ctx);
+
+        // then
+        assertThat(result.get().getContentForFullResponse()).isEqualTo("blocking-result");
+        assertThat(endpoint.executingThread.get()).isNotSameAs(Thread.currentThread());
+        assertThat(endpoint.spanDuringExecution.get()).isEqualTo(parentSpan);
+    }
+
+    @Test
+    public void execute_completes_future_exceptionally_when_executeBlocking_throws() {
+        // given
+        ChannelHandlerContext ctx = TestUtil.mockChannelHandlerContextWithTraceInfo().mockContext;
+        BlockingEndpointForTesting endpoint = new BlockingEndpointForTesting();
+        endpoint.exceptionToThrow = new RuntimeException("intentional exception");
+
+        // when
+        CompletableFuture<ResponseInfo<String>> result = endpoint.execute(mock(RequestInfo.class), executor, ctx);
+        Throwable ex = catchThrowable(result::get);
+
+        // then
+        assertThat(ex).isInstanceOf(ExecutionException.class);
+        assertThat(ex.getCause()).isSameAs(endpoint.exceptionToThrow);
+    }
+
+    @Test
+    public void execute_uses_blockingTaskExecutor_override() throws Exception {
+        // given
+        ChannelHandlerContext ctx = TestUtil.mockChannelHandlerContextWithTraceInfo().mockContext;
+        List<Runnable> tasksForCustomExecutor = new ArrayList<>();
+        Executor customExecutor = tasksForCustomExecutor::add;
+        BlockingEndpointForTesting endpoint = new BlockingEndpointForTesting() {
+            @Override
+            protected @NotNull Executor blockingTaskExecutor(@NotNull Executor longRunningTaskExecutor) {
+                return customExecutor;
+            }
+        };
+
+        // when
+        CompletableFuture<ResponseInfo<String>> result = endpoint.execute(mock(RequestInfo.class), executor, ctx);
+
+        // then
+        assertThat(result.isDone()).isFalse();
+        assertThat(tasksForCustomExecutor).hasSize(1);
+
+        // and when
+        tasksForCustomExecutor.get(0).run();
+
+        // then
+        assertThat(result.get().getContentForFullResponse()).isEqualTo("blocking-result");
+        assertThat(endpoint.executingThread.get()).isSameAs(Thread.currentThread());
+    }
+}
@@ -0,0 +1,164 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.http.mimetype.MimeType;
+import com.nike.riposte.server.http.mimetype.MimeTypeParser;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link ContentCodecNegotiator}
+ */
+@RunWith(DataProviderRunner.class)
+public class ContentCodecNegotiatorTest {
+
+    private ContentCodec smileCodecMock;
+    private ContentCodec cborCodecMock;
+    private ContentCodec vendorCodecMock;
+    private ContentCodecNegotiator negotiator;
+
+    private static ContentCodec codecMock(MimeType mimeType) {
+        ContentCodec codec = mock(ContentCodec.class);
+        doReturn(mimeType).when(codec).mimeType();
+        return codec;
+    }
+
+    @SuppressWarnings({"OptionalGetWithoutIsPresent", "ConstantConditions"})
+    private static MimeType mimeType(String mimeType) {
+        return MimeTypeParser.parse(mimeType).get();
+    }
+
+    @Before
+    public void beforeMethod() {
+        smileCodecMock = codecMock(ContentCodec.SMILE_MIME_TYPE);
+        cborCodecMock = codecMock(ContentCodec.CBOR_MIME_TYPE);
+        vendorCodecMock = codecMock(mimeType("application/vnd.nike.foo+proto"));
+        negotiator = new ContentCodecNegotiator(Arrays.asList(smileCodecMock, cborCodecMock, vendorCodecMock));
+    }
+
+    private ContentCodec codecForName(String name) {
+        if (name == null)
+            return null;
+
+        switch (name) {
+            case "null":
+                return null;
+            case "smile":
+                return smileCodecMock;
+            case "cbor":
+                return cborCodecMock;
+            case "vendor":
+                return vendorCodecMock;
+            default:
+                throw new IllegalArgumentException("Unknown codec name: " + name);
+        }
+    }
+
+    @DataProvider(value = {
+        "application/cbor                           |   cbor",
+        "APPLICATION/CBOR                           |   cbor",
+        "application/cbor; charset=UTF-8            |   cbor",
+        "  application/x-jackson-smile              |   smile",
+        "application/vnd.nike.foo+proto             |   vendor",
+        "application/json                           |   null",
+        "application/json; charset=UTF-8            |   null",
+        "text/plain                                 |   null",
+        "not a mime type                            |   null"
+    }, splitBy = "\\|", trimValues = false)
+    @Test
+    public void codecForContentType_returns_the_codec_matching_the_content_type(
+        String contentType, String expectedCodecName
+    ) {
+        // when
+        ContentCodec result = negotiator.codecForContentType(contentType);
+
+        // then
+        assertThat(result).isSameAs(codecForName(expectedCodecName.trim()));
+    }
+
+    @DataProvider(value = {
+        "application/cbor                                                   |   cbor",
+        "application/x-jackson-smile, application/cbor;q=0.9                |   smile",
+        "application/json;q=0.5, application/cbor                           |   cbor",
+        "application/cbor;q=0.5, application/json                           |   null",
+        "text/html, application/cbor;q=0.9                                  |   cbor",
+        "application/cbor;q=0, application/json;q=0.1                       |   null",
+        "application/cbor;q=0, application/x-jackson-smile;q=0.1            |   smile",
+        "*/*                                                                |   null",
+        "application/*, application/cbor;q=0.9                              |   null",
+        "*/*;q=0.1, application/vnd.nike.foo+proto                          |   vendor",
+        "text/html                                                          |   null",
+        "this is not a valid accept header;;;                               |   null"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void codecForAccept_negotiates_the_expected_codec(String acceptHeader, String expectedCodecName) {
+        // when
+        ContentCodec result = negotiator.codecForAccept(acceptHeader);
+
+        // then
+        assertThat(result).isSameAs(codecForName(expectedCodecName));
+    }
+
+    @Test
+    public void methods_return_null_or_false_for_null_headers() {
+        // expect
+        assertThat(negotiator.codecForContentType(null)).isNull();
+        assertThat(negotiator.codecForAccept(null)).isNull();
+        assertThat(negotiator.isCodecMimeType(null)).isFalse();
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void negotiator_without_codecs_never_picks_a_codec(boolean useNullList) {
+        // given
+        ContentCodecNegotiator emptyNegotiator = new ContentCodecNegotiator(
+            (useNullList) ? null : Collections.emptyList()
+        );
+
+        // expect
+        assertThat(emptyNegotiator.hasCodecs()).isFalse();
+        assertThat(emptyNegotiator.codecForContentType("application/cbor")).isNull();
+        assertThat(emptyNegotiator.codecForAccept("application/cbor")).isNull();
+        assertThat(emptyNegotiator.isCodecMimeType("application/cbor")).isFalse();
+    }
+
+    @Test
+    public void first_codec_wins_when_codecs_share_a_media_type() {
+        // given
+        ContentCodec otherCborCodecMock = codecMock(mimeType("application/cbor; foo=bar"));
+        ContentCodecNegotiator duplicateNegotiator = new ContentCodecNegotiator(
+            Arrays.asList(cborCodecMock, otherCborCodecMock)
+        );
+
+        // expect
+        assertThat(duplicateNegotiator.hasCodecs()).isTrue();
+        assertThat(duplicateNegotiator.codecForContentType("application/cbor")).isSameAs(cborCodecMock);
+        assertThat(duplicateNegotiator.codecForAccept("application/cbor")).isSameAs(cborCodecMock);
+    }
+
+    @DataProvider(value = {
+        "application/cbor               |   true",
+        "Application/X-Jackson-Smile    |   true",
+        "application/json               |   false",
+        "garbage                        |   false"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void isCodecMimeType_works_as_expected(String mimeType, boolean expectedResult) {
+        // expect
+        assertThat(negotiator.isCodecMimeType(mimeType)).isEqualTo(expectedResult);
+    }
+}
@@ -0,0 +1,318 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link RequestContentStream}
+ */
+public class RequestContentStreamTest {
+
+    private EmbeddedChannel channel;
+    private RequestContentStream stream;
+    private RecordingSubscriber subscriber;
+
+    @Before
+    public void beforeMethod() {
+        channel = new EmbeddedChannel();
+        stream = new RequestContentStream(channel);
+        subscriber = new RecordingSubscriber();
+    }
+
+    @After
+    public void afterMethod() {
+        subscriber.releaseAll();
+        channel.finishAndReleaseAll();
+    }
+
+    private static HttpContent chunk(String content) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+    }
+
+    private static LastHttpContent lastChunk(String content) {
+        return new DefaultLastHttpContent(Unpooled.copiedBuffer(content, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_channel_is_null() {
+        // when
+        Throwable ex = catchThrowable(() -> new RequestContentStream(null));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("channel cannot be null");
+    }
+
+    @Test
+    public void subscribe_throws_IllegalStateException_if_called_twice() {
+        // given
+        stream.subscribe(subscriber);
+
+        // when
+        Throwable ex = catchThrowable(() -> stream.subscribe(new RecordingSubscriber()));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void request_throws_IllegalArgumentException_if_n_is_not_positive() {
+        // when
+        Throwable ex = catchThrowable(() -> stream.request(0));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void chunks_are_delivered_in_order_only_as_demand_allows_and_autoRead_follows_demand() {
+        // given
+        stream.subscribe(subscriber);
+        HttpContent first = chunk("foo");
+        HttpContent second = chunk("bar");
+        LastHttpContent last = lastChunk("baz");
+
+        // when
+        stream.offerChunk(first);
+
+        // then
+        assertThat(subscriber.received).isEmpty();
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        // and when
+        stream.request(2);
+
+        // then
+        assertThat(subscriber.receivedStrings()).containsExactly("foo");
+        assertThat(channel.config().isAutoRead()).isTrue();
+
+        // and when
+        stream.offerChunk(second);
+        stream.offerChunk(last);
+
+        // then
+        assertThat(subscriber.receivedStrings()).containsExactly("foo", "bar");
+        assertThat(channel.config().isAutoRead()).isFalse();
+        assertThat(subscriber.completed).isFalse();
+
+        // and when
+        stream.request(1);
+
+        // then
+        assertThat(subscriber.receivedStrings()).containsExactly("foo", "bar", "baz");
+        assertThat(subscriber.completed).isTrue();
+        assertThat(stream.isCompleted()).isTrue();
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void chunks_are_buffered_until_a_subscriber_arrives() {
+        // given
+        stream.offerChunk(chunk("foo"));
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        // when
+        stream.subscribe(subscriber);
+        stream.request(Long.MAX_VALUE);
+        stream.request(Long.MAX_VALUE);
+        stream.offerChunk(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // then
+        assertThat(subscriber.receivedStrings()).containsExactly("foo");
+        assertThat(subscriber.completed).isTrue();
+        assertThat(channel.config().isAutoRead()).isTrue();
+    }
+
+    @Test
+    public void empty_chunks_do_not_use_up_demand() {
+        // given
+        stream.subscribe(subscriber);
+        HttpContent empty = new DefaultHttpContent(Unpooled.buffer(0));
+
+        // when
+        stream.offerChunk(empty);
+        stream.offerChunk(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // then
+        assertThat(subscriber.received).isEmpty();
+        assertThat(subscriber.completed).isTrue();
+        assertThat(empty.refCnt()).isZero();
+    }
+
+    @Test
+    public void cancel_releases_buffered_and_future_chunks_and_restores_autoRead_without_notifying_subscriber() {
+        // given
+        stream.subscribe(subscriber);
+        HttpContent buffered = chunk("foo");
+        HttpContent later = chunk("bar");
+        stream.offerChunk(buffered);
+        assertThat(channel.config().isAutoRead()).isFalse();
+
+        // when
+        stream.cancel();
+        stream.offerChunk(later);
+        stream.request(5);
+
+        // then
+        assertThat(buffered.refCnt()).isZero();
+        assertThat(later.refCnt()).isZero();
+        assertThat(stream.isCancelled()).isTrue();
+        assertThat(channel.config().isAutoRead()).isTrue();
+        assertThat(subscriber.received).isEmpty();
+        assertThat(subscriber.completed).isFalse();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test
+    public void abort_notifies_subscriber_of_error() {
+        // given
+        stream.subscribe(subscriber);
+        CancellationException cause = new CancellationException("intentional test exception");
+
+        // when
+        stream.abort(cause);
+        stream.abort(new CancellationException("should be ignored"));
+
+        // then
+        assertThat(subscriber.error).isSameAs(cause);
+        assertThat(stream.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void abort_before_subscribe_notifies_subscriber_when_it_subscribes() {
+        // given
+        HttpContent buffered = chunk("foo");
+        stream.offerChunk(buffered);
+        CancellationException cause = new CancellationException("intentional test exception");
+
+        // when
+        stream.abort(cause);
+        stream.subscribe(subscriber);
+
+        // then
+        assertThat(buffered.refCnt()).isZero();
+        assertThat(subscriber.error).isSameAs(cause);
+        assertThat(subscriber.received).isEmpty();
+    }
+
+    @Test
+    public void abort_does_nothing_after_stream_completed() {
+        // given
+        stream.subscribe(subscriber);
+        stream.request(1);
+        stream.offerChunk(lastChunk("foo"));
+        assertThat(subscriber.completed).isTrue();
+
+        // when
+        stream.abort(new CancellationException("intentional test exception"));
+
+        // then
+        assertThat(subscriber.error).isNull();
+        assertThat(stream.isCancelled()).isFalse();
+    }
+
+    @Test
+    public void subscriber_exception_in_onNext_cancels_the_stream() {
+        // given
+        stream.subscribe(new RecordingSubscriber() {
+            @Override
+            public void onNext(@NotNull ByteBuf chunk) {
+                chunk.release();
+                throw new RuntimeException("intentional test exception");
+            }
+        });
+        HttpContent buffered = chunk("bar");
+        stream.offerChunk(chunk("foo"));
+        stream.offerChunk(buffered);
+
+        // when
+        stream.request(1);
+
+        // then
+        assertThat(stream.isCancelled()).isTrue();
+        assertThat(buffered.refCnt()).isZero();
+        assertThat(channel.config().isAutoRead()).isTrue();
+    }
+
+    @Test
+    public void calls_made_off_the_event_loop_are_handed_off_to_the_event_loop() {
+        // given
+        Channel channelMock = mock(Channel.class);
+        EventLoop eventLoopMock = mock(EventLoop.class);
+        doReturn(eventLoopMock).when(channelMock).eventLoop();
+        doReturn(false).when(eventLoopMock).inEventLoop();
+        RequestContentStream offLoopStream = new RequestContentStream(channelMock);
+
+        // when
+        offLoopStream.request(1);
+        offLoopStream.cancel();
+
+        // then
+        verify(eventLoopMock, times(2)).execute(any(Runnable.class));
+        verify(channelMock, never()).config();
+    }
+
+    private static class RecordingSubscriber implements RequestContentStream.Subscriber {
+        final List<ByteBuf> received = new ArrayList<>();
+        boolean completed = false;
+        Throwable error;
+
+        @Override
+        public void onNext(@NotNull ByteBuf chunk) {
+            received.add(chunk);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        @Override
+        public void onError(@NotNull Throwable error) {
+            this.error = error;
+        }
+
+        List<String> receivedStrings() {
+            List<String> result = new ArrayList<>();
+            for (ByteBuf buf : received) {
+                result.add(buf.toString(StandardCharsets.UTF_8));
+            }
+            return result;
+        }
+
+        void releaseAll() {
+            for (ByteBuf buf : received) {
+                if (buf.refCnt() > 0)
+                    buf.release();
+            }
+        }
+    }
+}
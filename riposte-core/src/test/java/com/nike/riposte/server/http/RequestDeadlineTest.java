@@ -0,0 +1,141 @@
+package com.nike.riposte.server.http;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link RequestDeadline}
+ */
+@RunWith(DataProviderRunner.class)
+public class RequestDeadlineTest {
+
+    private RequestDeadline deadlineWithRemainingMillis(long remainingMillis, String outboundHeaderName) {
+        // Add half a millisecond so the remaining time doesn't get chopped to one less millisecond than we asked for.
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(remainingMillis) + 500_000;
+        return new RequestDeadline(100, deadlineNanos, outboundHeaderName);
+    }
+
+    @Test
+    public void constructor_sets_fields() {
+        // when
+        RequestDeadline instance = new RequestDeadline(100, 4242, "X-Foo");
+
+        // then
+        assertThat(instance.budgetMillis).isEqualTo(100);
+        assertThat(instance.deadlineNanos).isEqualTo(4242);
+        assertThat(instance.outboundHeaderName).isEqualTo("X-Foo");
+    }
+
+    @DataProvider(value = {
+        "10000",
+        "50",
+        "-50"
+    })
+    @Test
+    public void calculateRemainingMillis_returns_time_until_deadline(long remainingMillis) {
+        // given
+        RequestDeadline instance = deadlineWithRemainingMillis(remainingMillis, null);
+
+        // expect
+        assertThat(instance.calculateRemainingMillis()).isBetween(remainingMillis - 10, remainingMillis + 1);
+    }
+
+    @DataProvider(value = {
+        "10000  |   5000    |   5000",
+        "30     |   5000    |   30",
+        "-50    |   5000    |   -50"
+    }, splitBy = "\\|")
+    @Test
+    public void clampTimeoutMillis_does_not_allow_timeout_past_the_deadline(
+        long remainingMillis, long timeoutMillis, long expectedResult
+    ) {
+        // given
+        RequestDeadline instance = deadlineWithRemainingMillis(remainingMillis, null);
+
+        // expect
+        assertThat(instance.clampTimeoutMillis(timeoutMillis)).isBetween(expectedResult - 10, expectedResult + 1);
+    }
+
+    @DataProvider(value = {
+        "10000  |   5000    |   5000",
+        "30     |   5000    |   30",
+        "5000   |   0       |   5000",
+        "5000   |   -1      |   5000",
+        "30     |   0       |   30"
+    }, splitBy = "\\|")
+    @Test
+    public void clampDownstreamCallTimeoutMillis_treats_disabled_timeouts_as_bounded_only_by_the_deadline(
+        long remainingMillis, long timeoutMillis, long expectedResult
+    ) {
+        // given
+        RequestDeadline instance = deadlineWithRemainingMillis(remainingMillis, null);
+
+        // expect
+        assertThat(instance.clampDownstreamCallTimeoutMillis(timeoutMillis))
+            .isBetween(expectedResult - 10, expectedResult + 1);
+    }
+
+    @DataProvider(value = {
+        "5000",
+        "0"
+    })
+    @Test
+    public void clampDownstreamCallTimeoutMillis_never_returns_less_than_1_when_the_deadline_has_passed(
+        long timeoutMillis
+    ) {
+        // given
+        RequestDeadline instance = deadlineWithRemainingMillis(-50, null);
+
+        // expect
+        assertThat(instance.clampDownstreamCallTimeoutMillis(timeoutMillis)).isEqualTo(1);
+    }
+
+    @Test
+    public void propagateRemainingBudget_sets_remaining_millis_on_outbound_header() {
+        // given
+        RequestDeadline instance = deadlineWithRemainingMillis(5000, "X-Foo");
+        Map<String, String> headers = new HashMap<>();
+
+        // when
+        instance.propagateRemainingBudget(headers::put);
+
+        // then
+        assertThat(headers).containsOnlyKeys("X-Foo");
+        assertThat(Long.parseLong(headers.get("X-Foo"))).isBetween(4900L, 5000L);
+    }
+
+    @Test
+    public void propagateRemainingBudget_never_sends_negative_budget() {
+        // given
+        RequestDeadline instance = deadlineWithRemainingMillis(-50, "X-Foo");
+        Map<String, String> headers = new HashMap<>();
+
+        // when
+        instance.propagateRemainingBudget(headers::put);
+
+        // then
+        assertThat(headers).containsEntry("X-Foo", "0");
+    }
+
+    @Test
+    public void propagateRemainingBudget_does_nothing_if_outbound_header_name_is_null() {
+        // given
+        RequestDeadline instance = deadlineWithRemainingMillis(5000, null);
+        Map<String, String> headers = new HashMap<>();
+
+        // when
+        instance.propagateRemainingBudget(headers::put);
+
+        // then
+        assertThat(headers).isEmpty();
+    }
+}
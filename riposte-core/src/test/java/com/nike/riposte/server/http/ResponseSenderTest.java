@@ -1,9 +1,12 @@
 package com.nike.riposte.server.http;
 
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
 import com.nike.riposte.server.config.distributedtracing.DistributedTracingConfig;
 import com.nike.riposte.server.error.handler.ErrorResponseBodySerializer;
+import com.nike.riposte.server.http.impl.FileResponseInfo;
 import com.nike.riposte.server.http.impl.FullResponseInfo;
 import com.nike.riposte.server.testutils.TestUtil;
+import com.nike.riposte.util.XxHash64;
 import com.nike.wingtips.Span;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,26 +17,51 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
+import io.netty.util.CharsetUtil;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(DataProviderRunner.class)
@@ -119,6 +147,629 @@ public class ResponseSenderTest {
         }
     }
 
+    @DataProvider(value = {
+        "bytes=0-9       |   100 |   0   |   9",
+        "bytes=10-       |   100 |   10  |   99",
+        "bytes=-10       |   100 |   90  |   99",
+        "bytes=-1000     |   100 |   0   |   99",
+        "bytes=90-1000   |   100 |   90  |   99",
+        "BYTES=5-5       |   100 |   5   |   5",
+    }, splitBy = "\\|")
+    @Test
+    public void parseSingleByteRange_returns_expected_range(String rangeHeader, long total, long start, long end) {
+        // when
+        long[] result = ResponseSender.parseSingleByteRange(rangeHeader, total);
+
+        // then
+        assertThat(result).containsExactly(start, end);
+    }
+
+    @DataProvider(value = {
+        "bytes=100-     |   100",
+        "bytes=200-300  |   100",
+        "bytes=-0       |   100",
+        "bytes=-5       |   0",
+    }, splitBy = "\\|")
+    @Test
+    public void parseSingleByteRange_returns_UNSATISFIABLE_RANGE_for_unsatisfiable_ranges(String rangeHeader,
+                                                                                         long total) {
+        // expect
+        assertThat(ResponseSender.parseSingleByteRange(rangeHeader, total))
+            .isSameAs(ResponseSender.UNSATISFIABLE_RANGE);
+    }
+
+    @DataProvider(value = {
+        "null",
+        "items=0-9",
+        "bytes=0-9,20-29",
+        "bytes=9-0",
+        "bytes=foo-bar",
+        "bytes=10",
+    }, splitBy = "\\|")
+    @Test
+    public void parseSingleByteRange_returns_null_for_ignorable_ranges(String rangeHeader) {
+        // expect
+        assertThat(ResponseSender.parseSingleByteRange(rangeHeader, 100)).isNull();
+    }
+
+    @Test
+    public void serializeOutputToByteBufForResponse_returns_ByteBuf_content_as_is() {
+        // given
+        ByteBuf content = Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8);
+
+        // when
+        ByteBuf result = responseSender.serializeOutputToByteBufForResponse(content, responseInfo, null, ctx);
+
+        // then
+        assertThat(result).isSameAs(content);
+        assertThat(result.refCnt()).isEqualTo(1);
+    }
+
+    @Test
+    public void serializeOutputToString_uses_a_cached_ObjectWriter_for_the_output_type() throws Exception {
+        // given
+        ObjectMapper serializerSpy = spy(new ObjectMapper());
+        Map<String, String> output = Collections.singletonMap("foo", "bar");
+
+        // when
+        String firstResult = responseSender.serializeOutputToString(output, serializerSpy, responseInfo, ctx);
+        String secondResult = responseSender.serializeOutputToString(output, serializerSpy, responseInfo, ctx);
+
+        // then
+        assertThat(firstResult).isEqualTo("{\"foo\":\"bar\"}");
+        assertThat(secondResult).isEqualTo(firstResult);
+        verify(serializerSpy).writerFor(output.getClass());
+        verify(serializerSpy, never()).writeValueAsString(any());
+    }
+
+    @Test
+    public void serializeOutputToString_handles_null_output() {
+        // expect
+        assertThat(responseSender.serializeOutputToString(null, null, responseInfo, ctx)).isEqualTo("null");
+    }
+
+    private Path createTempFile(int numBytes) throws IOException {
+        Path file = Files.createTempFile("ResponseSenderTest", ".bin");
+        file.toFile().deleteOnExit();
+        byte[] bytes = new byte[numBytes];
+        new Random().nextBytes(bytes);
+        Files.write(file, bytes);
+        return file;
+    }
+
+    private ChannelHandlerContext embeddedChannelContext(EmbeddedChannel channel) {
+        channel.pipeline().addLast("ctxCapture", new ChannelInboundHandlerAdapter());
+        return channel.pipeline().context("ctxCapture");
+    }
+
+    @Test
+    public void sendFullResponse_streams_FileResponseInfo_as_FileRegion_with_file_headers() throws Exception {
+        // given
+        Path file = createTempFile(1000);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext fileCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        FileResponseInfo fileResponseInfo = ResponseInfo.newFileResponseBuilder(file).withFileOffset(100).build();
+
+        // when
+        responseSender.sendFullResponse(fileCtx, requestInfo, fileResponseInfo);
+
+        // then
+        HttpResponse response = channel.readOutbound();
+        assertThat(response).isNotInstanceOf(LastHttpContent.class);
+        assertThat(response.status().code()).isEqualTo(200);
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("900");
+        assertThat(response.headers().get(HttpHeaderNames.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.headers().get(HttpHeaderNames.ETAG)).isNotNull();
+        assertThat(response.headers().get(HttpHeaderNames.LAST_MODIFIED)).isNotNull();
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_TYPE)).startsWith(FileResponseInfo.DEFAULT_FILE_MIME_TYPE);
+
+        FileRegion region = channel.readOutbound();
+        assertThat(region.position()).isEqualTo(100);
+        assertThat(region.count()).isEqualTo(900);
+        region.release();
+
+        assertThat((Object) channel.readOutbound()).isEqualTo(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertThat(fileResponseInfo.getUncompressedRawContentLength()).isEqualTo(900L);
+    }
+
+    @Test
+    public void sendFullResponse_returns_206_partial_content_for_satisfiable_range_request() throws Exception {
+        // given
+        Path file = createTempFile(1000);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext fileCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        httpHeaders.set(HttpHeaderNames.RANGE, "bytes=10-19");
+        FileResponseInfo fileResponseInfo = ResponseInfo.newFileResponseBuilder(file).build();
+
+        // when
+        responseSender.sendFullResponse(fileCtx, requestInfo, fileResponseInfo);
+
+        // then
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.status().code()).isEqualTo(206);
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_RANGE)).isEqualTo("bytes 10-19/1000");
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("10");
+
+        FileRegion region = channel.readOutbound();
+        assertThat(region.position()).isEqualTo(10);
+        assertThat(region.count()).isEqualTo(10);
+        region.release();
+    }
+
+    @Test
+    public void sendFullResponse_ignores_range_request_when_If_Range_does_not_match() throws Exception {
+        // given
+        Path file = createTempFile(1000);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext fileCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        httpHeaders.set(HttpHeaderNames.RANGE, "bytes=10-19");
+        httpHeaders.set(HttpHeaderNames.IF_RANGE, "\"some-stale-etag\"");
+        FileResponseInfo fileResponseInfo = ResponseInfo.newFileResponseBuilder(file).build();
+
+        // when
+        responseSender.sendFullResponse(fileCtx, requestInfo, fileResponseInfo);
+
+        // then
+        HttpResponse response = channel.readOutbound();
+        assertThat(response.status().code()).isEqualTo(200);
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("1000");
+        ((FileRegion) channel.readOutbound()).release();
+    }
+
+    @Test
+    public void sendFullResponse_returns_416_with_no_body_for_unsatisfiable_range_request() throws Exception {
+        // given
+        Path file = createTempFile(1000);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext fileCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        httpHeaders.set(HttpHeaderNames.RANGE, "bytes=5000-");
+        FileResponseInfo fileResponseInfo = ResponseInfo.newFileResponseBuilder(file).build();
+
+        // when
+        responseSender.sendFullResponse(fileCtx, requestInfo, fileResponseInfo);
+
+        // then
+        FullHttpResponse response = channel.readOutbound();
+        assertThat(response.status().code()).isEqualTo(416);
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_RANGE)).isEqualTo("bytes */1000");
+        assertThat(response.content().readableBytes()).isZero();
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+
+    @Test
+    public void sendFullResponse_sends_file_content_length_but_no_body_for_HEAD_request() throws Exception {
+        // given
+        Path file = createTempFile(1000);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext fileCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.HEAD);
+        when(requestInfo.isKeepAliveRequested()).thenReturn(true);
+        FileResponseInfo fileResponseInfo = ResponseInfo.newFileResponseBuilder(file).build();
+
+        // when
+        responseSender.sendFullResponse(fileCtx, requestInfo, fileResponseInfo);
+
+        // then
+        FullHttpResponse response = channel.readOutbound();
+        assertThat(response.status().code()).isEqualTo(200);
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("1000");
+        assertThat(response.content().readableBytes()).isZero();
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+
+    @Test
+    public void sendFullResponse_releases_ByteBuf_content_for_HEAD_with_explicit_content_length() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.HEAD);
+        when(requestInfo.isKeepAliveRequested()).thenReturn(true);
+        ByteBuf content = Unpooled.copiedBuffer("some content", CharsetUtil.UTF_8);
+        ResponseInfo<ByteBuf> response = ResponseInfo.newBuilder(content).build();
+        response.getHeaders().set(HttpHeaderNames.CONTENT_LENGTH, 4242);
+
+        // when
+        responseSender.sendFullResponse(embeddedCtx, requestInfo, response);
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.status().code()).isEqualTo(200);
+        assertThat(sent.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("4242");
+        assertThat(sent.content().readableBytes()).isZero();
+        assertThat(content.refCnt()).isZero();
+        sent.release();
+    }
+
+    private ResponseSender eTagResponseSender() {
+        return new ResponseSender(null, null, distributedTracingConfigMock, true);
+    }
+
+    @Test
+    public void sendFullResponse_adds_hash_based_ETag_when_automatic_ETag_handling_is_enabled() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        when(requestInfo.isKeepAliveRequested()).thenReturn(true);
+        ResponseInfo<String> response = ResponseInfo.newBuilder("some content").build();
+        String expectedETag =
+            "\"" + Long.toHexString(XxHash64.hash(Unpooled.copiedBuffer("some content", CharsetUtil.UTF_8))) + "\"";
+
+        // when
+        eTagResponseSender().sendFullResponse(embeddedCtx, requestInfo, response);
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.status().code()).isEqualTo(200);
+        assertThat(sent.headers().get(HttpHeaderNames.ETAG)).isEqualTo(expectedETag);
+        assertThat(sent.content().toString(CharsetUtil.UTF_8)).isEqualTo("some content");
+        sent.release();
+    }
+
+    @Test
+    public void sendFullResponse_adds_weak_hash_based_ETag_when_the_response_may_be_compressed() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        when(requestInfo.isKeepAliveRequested()).thenReturn(true);
+        httpHeaders.set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate");
+        String opaqueTag =
+            "\"" + Long.toHexString(XxHash64.hash(Unpooled.copiedBuffer("some content", CharsetUtil.UTF_8))) + "\"";
+        httpHeaders.set(HttpHeaderNames.IF_NONE_MATCH, opaqueTag);
+        ResponseInfo<String> response = ResponseInfo.newBuilder("some content").build();
+
+        // when
+        eTagResponseSender().sendFullResponse(embeddedCtx, requestInfo, response);
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.headers().get(HttpHeaderNames.ETAG)).isEqualTo("W/" + opaqueTag);
+        // If-None-Match uses the weak comparison, so a client holding the strong form still gets its 304.
+        assertThat(sent.status().code()).isEqualTo(304);
+        sent.release();
+    }
+
+    @DataProvider(value = {
+        "null           |   false   |   false",
+        "               |   false   |   false",
+        "identity       |   false   |   false",
+        "gzip           |   false   |   true",
+        "gzip, deflate  |   false   |   true",
+        "gzip           |   true    |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void isResponseContentCodingPossible_works_as_expected(
+        String acceptEncoding, boolean preventCompressedOutput, boolean expectedResult
+    ) {
+        // given
+        if (acceptEncoding != null)
+            httpHeaders.set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding);
+        responseInfo.setPreventCompressedOutput(preventCompressedOutput);
+
+        // expect
+        assertThat(responseSender.isResponseContentCodingPossible(requestInfo, responseInfo)).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void sendFullResponse_does_not_add_ETag_when_automatic_ETag_handling_is_disabled() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        httpHeaders.set(HttpHeaderNames.IF_NONE_MATCH, "*");
+
+        // when
+        responseSender.sendFullResponse(embeddedCtx, requestInfo, ResponseInfo.newBuilder("some content").build());
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.status().code()).isEqualTo(200);
+        assertThat(sent.headers().contains(HttpHeaderNames.ETAG)).isFalse();
+        sent.release();
+    }
+
+    private ResponseSender codecResponseSender(ContentCodec... codecs) {
+        return new ResponseSender(null, null, distributedTracingConfigMock, false, Arrays.asList(codecs));
+    }
+
+    private ContentCodec cborCodec() {
+        // A JSON mapper under the CBOR media type keeps the serialized payload human-readable for assertions.
+        return new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+    }
+
+    @Test
+    public void sendFullResponse_serializes_with_the_content_codec_negotiated_from_the_Accept_header() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        httpHeaders.set(HttpHeaderNames.ACCEPT, "application/json;q=0.5, application/cbor");
+        ResponseInfo<Map<String, Integer>> response =
+            ResponseInfo.newBuilder(Collections.singletonMap("foo", 42)).build();
+
+        // when
+        codecResponseSender(cborCodec()).sendFullResponse(embeddedCtx, requestInfo, response);
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.status().code()).isEqualTo(200);
+        assertThat(sent.headers().get(HttpHeaderNames.CONTENT_TYPE)).isEqualTo("application/cbor");
+        assertThat(sent.headers().get(HttpHeaderNames.VARY)).isEqualTo(HttpHeaderNames.ACCEPT.toString());
+        assertThat(sent.content().toString(CharsetUtil.UTF_8)).isEqualTo("{\"foo\":42}");
+        sent.release();
+    }
+
+    @Test
+    public void sendFullResponse_does_not_use_content_codecs_when_the_response_has_a_custom_serializer() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        httpHeaders.set(HttpHeaderNames.ACCEPT, "application/cbor");
+        ResponseInfo<Map<String, Integer>> response =
+            ResponseInfo.newBuilder(Collections.singletonMap("foo", 42)).build();
+
+        // when
+        codecResponseSender(cborCodec()).sendFullResponse(embeddedCtx, requestInfo, response, new ObjectMapper());
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.headers().get(HttpHeaderNames.CONTENT_TYPE)).startsWith("application/json");
+        assertThat(sent.headers().contains(HttpHeaderNames.VARY)).isFalse();
+        sent.release();
+    }
+
+    @Test
+    public void applyNegotiatedContentCodec_uses_JSON_but_adds_Vary_header_when_the_caller_prefers_JSON() {
+        // given
+        responseInfo.setDesiredContentWriterMimeType(null);
+        Object content = Collections.singletonMap("foo", 42);
+        ((ResponseInfo<Object>) responseInfo).setContentForFullResponse(content);
+        httpHeaders.set(HttpHeaderNames.ACCEPT, "application/json, application/cbor;q=0.9");
+        ContentCodecNegotiator negotiator = new ContentCodecNegotiator(Collections.singletonList(cborCodec()));
+
+        // when
+        responseSender.applyNegotiatedContentCodec(ctx, requestInfo, responseInfo, negotiator);
+
+        // then
+        assertThat(responseInfo.getContentForFullResponse()).isSameAs(content);
+        assertThat(responseInfo.getDesiredContentWriterMimeType()).isNull();
+        assertThat(responseInfo.getHeaders().getAll(HttpHeaderNames.VARY))
+            .containsExactly(HttpHeaderNames.ACCEPT.toString());
+    }
+
+    @DataProvider(value = {
+        "STRING_CONTENT",
+        "BYTE_ARRAY_CONTENT",
+        "NULL_CONTENT",
+        "MIME_TYPE_ALREADY_SET",
+        "CONTENT_TYPE_HEADER_ALREADY_SET"
+    })
+    @Test
+    public void applyNegotiatedContentCodec_leaves_the_response_alone_when_it_is_not_a_candidate_for_a_codec(
+        NonCodecResponseScenario scenario
+    ) throws IOException {
+        // given
+        responseInfo.setDesiredContentWriterMimeType(null);
+        ((ResponseInfo<Object>) responseInfo).setContentForFullResponse(Collections.singletonMap("foo", 42));
+        scenario.setupResponse((ResponseInfo<Object>) responseInfo);
+        Object originalContent = responseInfo.getContentForFullResponse();
+        String originalMimeType = responseInfo.getDesiredContentWriterMimeType();
+        httpHeaders.set(HttpHeaderNames.ACCEPT, "application/cbor");
+        ContentCodec codecSpy = spy(cborCodec());
+        ContentCodecNegotiator negotiator = new ContentCodecNegotiator(Collections.singletonList(codecSpy));
+
+        // when
+        responseSender.applyNegotiatedContentCodec(ctx, requestInfo, responseInfo, negotiator);
+
+        // then
+        assertThat(responseInfo.getContentForFullResponse()).isSameAs(originalContent);
+        assertThat(responseInfo.getDesiredContentWriterMimeType()).isEqualTo(originalMimeType);
+        assertThat(responseInfo.getHeaders().contains(HttpHeaderNames.VARY)).isFalse();
+        verify(codecSpy, never()).serialize(any(), any());
+    }
+
+    private enum NonCodecResponseScenario {
+        STRING_CONTENT(response -> response.setContentForFullResponse("some content")),
+        BYTE_ARRAY_CONTENT(response -> response.setContentForFullResponse(new byte[]{1, 2, 3})),
+        NULL_CONTENT(response -> response.setContentForFullResponse(null)),
+        MIME_TYPE_ALREADY_SET(response -> response.setDesiredContentWriterMimeType("application/foo")),
+        CONTENT_TYPE_HEADER_ALREADY_SET(
+            response -> response.getHeaders().set(HttpHeaderNames.CONTENT_TYPE, "application/foo")
+        );
+
+        private final Consumer<ResponseInfo<Object>> responseSetup;
+
+        NonCodecResponseScenario(Consumer<ResponseInfo<Object>> responseSetup) {
+            this.responseSetup = responseSetup;
+        }
+
+        void setupResponse(ResponseInfo<Object> response) {
+            responseSetup.accept(response);
+        }
+    }
+
+    @Test
+    public void applyNegotiatedContentCodec_falls_back_to_JSON_if_the_codec_fails_to_serialize() throws IOException {
+        // given
+        responseInfo.setDesiredContentWriterMimeType(null);
+        Object content = Collections.singletonMap("foo", 42);
+        ((ResponseInfo<Object>) responseInfo).setContentForFullResponse(content);
+        httpHeaders.set(HttpHeaderNames.ACCEPT, "application/cbor");
+        ContentCodec failingCodec = mock(ContentCodec.class);
+        doReturn(ContentCodec.CBOR_MIME_TYPE).when(failingCodec).mimeType();
+        doThrow(new IOException("intentional exception")).when(failingCodec).serialize(any(), any());
+        ContentCodecNegotiator negotiator = new ContentCodecNegotiator(Collections.singletonList(failingCodec));
+
+        // when
+        responseSender.applyNegotiatedContentCodec(ctx, requestInfo, responseInfo, negotiator);
+
+        // then
+        verify(failingCodec).serialize(content, ctx.alloc());
+        assertThat(responseInfo.getContentForFullResponse()).isSameAs(content);
+        assertThat(responseInfo.getDesiredContentWriterMimeType()).isNull();
+    }
+
+    @DataProvider(value = {
+        "application/cbor           |   application/cbor",
+        "application/json           |   application/json; charset=UTF-8"
+    }, splitBy = "\\|")
+    @Test
+    public void buildContentTypeHeader_omits_the_charset_for_content_codec_mime_types(
+        String mimeType, String expectedHeader
+    ) {
+        // given
+        responseInfo.setDesiredContentWriterMimeType(mimeType);
+
+        // when
+        String result = codecResponseSender(cborCodec()).buildContentTypeHeader(responseInfo);
+
+        // then
+        assertThat(result).isEqualTo(expectedHeader);
+    }
+
+    @DataProvider(value = {
+        "\"abc123\"                    |   true",
+        "W/\"abc123\"                  |   true",
+        "\"nope\", \"abc123\"          |   true",
+        "\"a,b\", W/\"abc123\"         |   true",
+        "*                             |   true",
+        "\"nope\"                      |   false",
+        "\"abc1234\"                   |   false",
+        "abc123                        |   false",
+    }, splitBy = "\\|")
+    @Test
+    public void isIfNoneMatchSatisfiedBy_uses_weak_comparison(String ifNoneMatch, boolean expectedResult) {
+        // given
+        httpHeaders.set(HttpHeaderNames.IF_NONE_MATCH, ifNoneMatch);
+
+        // expect
+        assertThat(responseSender.isIfNoneMatchSatisfiedBy(requestInfo, "\"abc123\"")).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void isIfNoneMatchSatisfiedBy_returns_false_when_request_has_no_If_None_Match_header() {
+        // expect
+        assertThat(responseSender.isIfNoneMatchSatisfiedBy(requestInfo, "\"abc123\"")).isFalse();
+    }
+
+    @Test
+    public void sendFullResponse_returns_304_with_no_body_when_If_None_Match_matches_hash_ETag() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        when(requestInfo.isKeepAliveRequested()).thenReturn(true);
+        String etag =
+            "\"" + Long.toHexString(XxHash64.hash(Unpooled.copiedBuffer("some content", CharsetUtil.UTF_8))) + "\"";
+        httpHeaders.set(HttpHeaderNames.IF_NONE_MATCH, etag);
+
+        // when
+        eTagResponseSender().sendFullResponse(embeddedCtx, requestInfo, ResponseInfo.newBuilder("some content").build());
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.status().code()).isEqualTo(304);
+        assertThat(sent.headers().get(HttpHeaderNames.ETAG)).isEqualTo(etag);
+        assertThat(sent.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("12");
+        assertThat(sent.content().readableBytes()).isZero();
+    }
+
+    @Test
+    public void sendFullResponse_uses_ETag_provided_by_endpoint_as_is() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        httpHeaders.set(HttpHeaderNames.IF_NONE_MATCH, "W/\"endpoint-etag\"");
+        ResponseInfo<String> response = ResponseInfo.newBuilder("some content")
+                                                    .withHeaders(new DefaultHttpHeaders().set(
+                                                        HttpHeaderNames.ETAG, "\"endpoint-etag\""
+                                                    ))
+                                                    .build();
+
+        // when
+        eTagResponseSender().sendFullResponse(embeddedCtx, requestInfo, response);
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.status().code()).isEqualTo(304);
+        assertThat(sent.headers().get(HttpHeaderNames.ETAG)).isEqualTo("\"endpoint-etag\"");
+        assertThat(sent.content().readableBytes()).isZero();
+    }
+
+    @Test
+    public void sendFullResponse_uses_endpoint_version_key_and_skips_serialization_for_304() throws Exception {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        Endpoint<?> endpoint = mock(Endpoint.class);
+        when(endpoint.responseETagVersionKey(requestInfo)).thenReturn("v42");
+        HttpProcessingState state = new HttpProcessingState();
+        state.setEndpointForExecution(endpoint, "/foo");
+        ChannelAttributes.getHttpProcessingStateForChannel(embeddedCtx).set(state);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        httpHeaders.set(HttpHeaderNames.IF_NONE_MATCH, "\"v42\"");
+        ObjectMapper serializerMock = mock(ObjectMapper.class);
+        ResponseInfo<Object> response = ResponseInfo.newBuilder((Object) new Object()).build();
+
+        // when
+        eTagResponseSender().sendFullResponse(embeddedCtx, requestInfo, response, serializerMock);
+
+        // then
+        FullHttpResponse sent = channel.readOutbound();
+        assertThat(sent.status().code()).isEqualTo(304);
+        assertThat(sent.headers().get(HttpHeaderNames.ETAG)).isEqualTo("\"v42\"");
+        assertThat(sent.content().readableBytes()).isZero();
+        verifyNoInteractions(serializerMock);
+    }
+
+    @Test
+    public void generateETagFromEndpointVersionKey_hashes_keys_that_are_not_legal_ETag_values() {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext embeddedCtx = embeddedChannelContext(channel);
+        Endpoint<?> endpoint = mock(Endpoint.class);
+        when(endpoint.responseETagVersionKey(requestInfo)).thenReturn("has \"quotes\" and spaces");
+        HttpProcessingState state = new HttpProcessingState();
+        state.setEndpointForExecution(endpoint, "/foo");
+        ChannelAttributes.getHttpProcessingStateForChannel(embeddedCtx).set(state);
+
+        // when
+        String result = responseSender.generateETagFromEndpointVersionKey(embeddedCtx, requestInfo);
+
+        // then
+        assertThat(result).matches("\"[0-9a-f]+\"");
+    }
+
+    @Test
+    public void sendFullResponse_returns_304_for_FileResponseInfo_when_If_None_Match_matches() throws Exception {
+        // given
+        Path file = createTempFile(1000);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelHandlerContext fileCtx = embeddedChannelContext(channel);
+        when(requestInfo.getMethod()).thenReturn(HttpMethod.GET);
+        when(requestInfo.isKeepAliveRequested()).thenReturn(true);
+        httpHeaders.set(HttpHeaderNames.IF_NONE_MATCH, "*");
+        FileResponseInfo fileResponseInfo = ResponseInfo.newFileResponseBuilder(file).build();
+
+        // when
+        eTagResponseSender().sendFullResponse(fileCtx, requestInfo, fileResponseInfo);
+
+        // then
+        FullHttpResponse response = channel.readOutbound();
+        assertThat(response.status().code()).isEqualTo(304);
+        assertThat(response.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("1000");
+        assertThat(response.headers().get(HttpHeaderNames.ETAG)).isNotNull();
+        assertThat(response.content().readableBytes()).isZero();
+        assertThat((Object) channel.readOutbound()).isNull();
+    }
+
     private Set<Cookie> createCookies(int numberOfCookies) {
         if (numberOfCookies < 0) {
             return null;
@@ -0,0 +1,132 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.channelpipeline.ChannelAttributes;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.util.Matcher;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.Attribute;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link StreamingRequestEndpoint}
+ */
+public class StreamingRequestEndpointTest {
+
+    private ChannelHandlerContext ctxMock;
+    private Attribute<HttpProcessingState> stateAttrMock;
+    private HttpProcessingState state;
+    private RequestInfo<Void> requestInfo;
+    private Executor executorMock;
+    private CompletableFuture<ResponseInfo<String>> endpointResult;
+    private RecordingStreamingRequestEndpoint endpoint;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void beforeMethod() {
+        ctxMock = mock(ChannelHandlerContext.class);
+        Channel channelMock = mock(Channel.class);
+        stateAttrMock = mock(Attribute.class);
+        state = new HttpProcessingState();
+        requestInfo = (RequestInfo<Void>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        executorMock = mock(Executor.class);
+        endpointResult = new CompletableFuture<>();
+        endpoint = new RecordingStreamingRequestEndpoint(endpointResult);
+
+        doReturn(channelMock).when(ctxMock).channel();
+        doReturn(stateAttrMock).when(channelMock).attr(ChannelAttributes.HTTP_PROCESSING_STATE_ATTRIBUTE_KEY);
+        doReturn(state).when(stateAttrMock).get();
+    }
+
+    @Test
+    public void execute_delegates_to_executeStreaming_with_the_content_stream_from_the_state() {
+        // given
+        RequestContentStream streamMock = mock(RequestContentStream.class);
+        state.setRequestContentStream(streamMock);
+
+        // when
+        CompletableFuture<ResponseInfo<String>> result = endpoint.execute(requestInfo, executorMock, ctxMock);
+
+        // then
+        assertThat(result).isSameAs(endpointResult);
+        assertThat(endpoint.requestInfo).isSameAs(requestInfo);
+        assertThat(endpoint.contentStream).isSameAs(streamMock);
+        assertThat(endpoint.executor).isSameAs(executorMock);
+        assertThat(endpoint.ctx).isSameAs(ctxMock);
+    }
+
+    @Test
+    public void execute_throws_IllegalStateException_if_there_is_no_content_stream() {
+        // when
+        Throwable ex = catchThrowable(() -> endpoint.execute(requestInfo, executorMock, ctxMock));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalStateException.class);
+        assertThat(endpoint.contentStream).isNull();
+    }
+
+    @Test
+    public void execute_throws_IllegalStateException_if_there_is_no_state() {
+        // given
+        doReturn(null).when(stateAttrMock).get();
+
+        // when
+        Throwable ex = catchThrowable(() -> endpoint.execute(requestInfo, executorMock, ctxMock));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void default_method_implementations_return_expected_values() {
+        // expect
+        assertThat(endpoint.maxRequestSizeInBytesOverride()).isEqualTo(0);
+        assertThat(endpoint.requestContentType()).isNull();
+        assertThat(endpoint.isRequireRequestContent()).isFalse();
+        assertThat(endpoint.requestCoalescingKey(requestInfo)).isNull();
+    }
+
+    private static class RecordingStreamingRequestEndpoint extends StreamingRequestEndpoint<String> {
+
+        private final CompletableFuture<ResponseInfo<String>> result;
+        RequestInfo<Void> requestInfo;
+        RequestContentStream contentStream;
+        Executor executor;
+        ChannelHandlerContext ctx;
+
+        RecordingStreamingRequestEndpoint(CompletableFuture<ResponseInfo<String>> result) {
+            this.result = result;
+        }
+
+        @Override
+        public @NotNull CompletableFuture<ResponseInfo<String>> executeStreaming(
+            @NotNull RequestInfo<Void> request,
+            @NotNull RequestContentStream contentStream,
+            @NotNull Executor longRunningTaskExecutor,
+            @NotNull ChannelHandlerContext ctx
+        ) {
+            this.requestInfo = request;
+            this.contentStream = contentStream;
+            this.executor = longRunningTaskExecutor;
+            this.ctx = ctx;
+            return result;
+        }
+
+        @Override
+        public @NotNull Matcher requestMatcher() {
+            return Matcher.match("/streaming");
+        }
+    }
+}
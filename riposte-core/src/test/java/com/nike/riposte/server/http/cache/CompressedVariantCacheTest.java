@@ -0,0 +1,194 @@
+package com.nike.riposte.server.http.cache;
+
+import com.nike.riposte.server.http.cache.CompressedVariantCache.VariantKey;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link CompressedVariantCache}
+ */
+public class CompressedVariantCacheTest {
+
+    private ByteBuf content(String content) {
+        return Unpooled.copiedBuffer(content, StandardCharsets.UTF_8);
+    }
+
+    private VariantKey key(ByteBuf content) {
+        return CompressedVariantCache.keyFor(content, "gzip", null);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_non_positive_max_size() {
+        // when
+        Throwable ex = catchThrowable(() -> new CompressedVariantCache(0));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void put_then_get_returns_payload_and_tracks_size_and_hit_counts() {
+        // given
+        CompressedVariantCache cache = new CompressedVariantCache(100);
+        ByteBuf content = content("0123456789");
+        ByteBuf otherContent = content("9876543210");
+        byte[] payload = new byte[10];
+
+        // when
+        boolean cached = cache.put(key(content), content, payload);
+
+        // then
+        assertThat(cached).isTrue();
+        assertThat(cache.get(key(content), content)).isSameAs(payload);
+        assertThat(cache.get(key(otherContent), otherContent)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getCurrentSizeInBytes()).isEqualTo(20);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_returns_null_when_the_key_matches_but_the_uncompressed_content_does_not() {
+        // given
+        CompressedVariantCache cache = new CompressedVariantCache(100);
+        ByteBuf content = content("0123456789");
+        ByteBuf collidingContent = content("9876543210");
+        // Simulate a hash collision by looking up different content of the same length with the same key.
+        VariantKey key = key(content);
+        cache.put(key, content, new byte[10]);
+
+        // when
+        byte[] result = cache.get(key, collidingContent);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(cache.getHitCount()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_and_put_do_not_modify_the_uncompressed_content_buffer() {
+        // given
+        CompressedVariantCache cache = new CompressedVariantCache(100);
+        ByteBuf content = content("xx0123456789");
+        content.readerIndex(2);
+        VariantKey key = key(content);
+
+        // when
+        cache.put(key, content, new byte[10]);
+        byte[] result = cache.get(key, content("0123456789"));
+
+        // then
+        assertThat(result).isNotNull();
+        assertThat(content.readerIndex()).isEqualTo(2);
+        assertThat(content.readableBytes()).isEqualTo(10);
+    }
+
+    @Test
+    public void put_replaces_existing_payload_for_same_key() {
+        // given
+        CompressedVariantCache cache = new CompressedVariantCache(100);
+        ByteBuf content = content("0123456789");
+        cache.put(key(content), content, new byte[10]);
+        byte[] replacement = new byte[20];
+
+        // when
+        cache.put(key(content), content, replacement);
+
+        // then
+        assertThat(cache.get(key(content), content)).isSameAs(replacement);
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getCurrentSizeInBytes()).isEqualTo(30);
+    }
+
+    @Test
+    public void put_evicts_least_recently_used_payloads_when_over_max_size() {
+        // given
+        CompressedVariantCache cache = new CompressedVariantCache(60);
+        ByteBuf first = content("1111111111");
+        ByteBuf second = content("2222222222");
+        ByteBuf third = content("3333333333");
+        ByteBuf fourth = content("4444444444");
+        cache.put(key(first), first, new byte[10]);
+        cache.put(key(second), second, new byte[10]);
+        cache.put(key(third), third, new byte[10]);
+        // Touch the first entry so that the second becomes the least recently used.
+        cache.get(key(first), first);
+
+        // when
+        cache.put(key(fourth), fourth, new byte[10]);
+
+        // then
+        assertThat(cache.get(key(second), second)).isNull();
+        assertThat(cache.get(key(first), first)).isNotNull();
+        assertThat(cache.get(key(third), third)).isNotNull();
+        assertThat(cache.get(key(fourth), fourth)).isNotNull();
+        assertThat(cache.getCurrentSizeInBytes()).isEqualTo(60);
+    }
+
+    @Test
+    public void put_does_not_cache_entry_larger_than_max_size() {
+        // given
+        CompressedVariantCache cache = new CompressedVariantCache(30);
+        ByteBuf small = content("0123456789");
+        ByteBuf large = content("01234567890123456789");
+        cache.put(key(small), small, new byte[10]);
+
+        // when
+        boolean cached = cache.put(key(large), large, new byte[11]);
+
+        // then
+        assertThat(cached).isFalse();
+        assertThat(cache.get(key(large), large)).isNull();
+        assertThat(cache.get(key(small), small)).isNotNull();
+        assertThat(cache.getCurrentSizeInBytes()).isEqualTo(20);
+    }
+
+    @Test
+    public void invalidateAll_removes_everything() {
+        // given
+        CompressedVariantCache cache = new CompressedVariantCache(100);
+        ByteBuf first = content("1111111111");
+        ByteBuf second = content("2222222222");
+        cache.put(key(first), first, new byte[10]);
+        cache.put(key(second), second, new byte[10]);
+
+        // when
+        cache.invalidateAll();
+
+        // then
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getCurrentSizeInBytes()).isZero();
+    }
+
+    @Test
+    public void keyFor_depends_on_content_encoding_and_level_without_modifying_buffer() {
+        // given
+        ByteBuf content = Unpooled.copiedBuffer("some content", StandardCharsets.UTF_8);
+        ByteBuf sameContent = Unpooled.copiedBuffer("some content", StandardCharsets.UTF_8);
+        ByteBuf otherContent = Unpooled.copiedBuffer("other content", StandardCharsets.UTF_8);
+        int readerIndexBefore = content.readerIndex();
+
+        // when
+        VariantKey key = CompressedVariantCache.keyFor(content, "gzip", 6);
+
+        // then
+        assertThat(content.readerIndex()).isEqualTo(readerIndexBefore);
+        assertThat(key).isEqualTo(CompressedVariantCache.keyFor(sameContent, "gzip", 6));
+        assertThat(key.hashCode()).isEqualTo(CompressedVariantCache.keyFor(sameContent, "gzip", 6).hashCode());
+        assertThat(key).isNotEqualTo(CompressedVariantCache.keyFor(otherContent, "gzip", 6));
+        assertThat(key).isNotEqualTo(CompressedVariantCache.keyFor(content, "deflate", 6));
+        assertThat(key).isNotEqualTo(CompressedVariantCache.keyFor(content, "gzip", null));
+        content.release();
+        sameContent.release();
+        otherContent.release();
+    }
+}
@@ -0,0 +1,224 @@
+package com.nike.riposte.server.http.cache;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.impl.ChunkedResponseInfo;
+import com.nike.riposte.server.http.impl.FileResponseInfo;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+/**
+ * Tests the functionality of {@link RequestCoalescer}
+ */
+public class RequestCoalescerTest {
+
+    private MetricsListener metricsListenerMock;
+    private RequestCoalescer coalescer;
+    private Object owner;
+    private AtomicInteger executionCount;
+    private CompletableFuture<ResponseInfo<?>> executionFuture;
+
+    @Before
+    public void beforeMethod() {
+        metricsListenerMock = mock(MetricsListener.class);
+        coalescer = new RequestCoalescer(metricsListenerMock);
+        owner = new Object();
+        executionCount = new AtomicInteger(0);
+        executionFuture = new CompletableFuture<>();
+    }
+
+    private CompletableFuture<ResponseInfo<?>> execute(Object owner, String key) {
+        return coalescer.execute(owner, key, () -> {
+            executionCount.incrementAndGet();
+            return executionFuture;
+        });
+    }
+
+    @Test
+    public void concurrent_identical_requests_share_one_execution_and_receive_independent_copies() {
+        // given
+        CompletableFuture<ResponseInfo<?>> first = execute(owner, "foo");
+        CompletableFuture<ResponseInfo<?>> second = execute(owner, "foo");
+        ResponseInfo<String> response = ResponseInfo.newBuilder("some content")
+                                                    .withHttpStatusCode(201)
+                                                    .withHeaders(new DefaultHttpHeaders().set("foo", "bar"))
+                                                    .build();
+
+        // when
+        executionFuture.complete(response);
+
+        // then
+        assertThat(executionCount.get()).isEqualTo(1);
+        ResponseInfo<?> firstResult = first.join();
+        ResponseInfo<?> secondResult = second.join();
+        assertThat(firstResult).isNotSameAs(response).isNotSameAs(secondResult);
+        for (ResponseInfo<?> result : new ResponseInfo<?>[]{firstResult, secondResult}) {
+            assertThat(result.getContentForFullResponse()).isEqualTo("some content");
+            assertThat(result.getHttpStatusCode()).isEqualTo(201);
+            assertThat(result.getHeaders().get("foo")).isEqualTo("bar");
+        }
+
+        firstResult.getHeaders().set("foo", "changed");
+        assertThat(secondResult.getHeaders().get("foo")).isEqualTo("bar");
+
+        assertThat(coalescer.getExecutionCount()).isEqualTo(1);
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(1);
+        assertThat(coalescer.getCoalescingRatio()).isEqualTo(0.5);
+        assertThat(coalescer.getInFlightExecutionCount()).isZero();
+        verify(metricsListenerMock).onEvent(ServerMetricsEvent.REQUEST_COALESCING_EXECUTION, null);
+        verify(metricsListenerMock).onEvent(ServerMetricsEvent.REQUEST_COALESCED, null);
+        verifyNoMoreInteractions(metricsListenerMock);
+    }
+
+    @Test
+    public void different_keys_and_owners_are_not_coalesced() {
+        // when
+        execute(owner, "foo");
+        execute(owner, "bar");
+        execute(new Object(), "foo");
+
+        // then
+        assertThat(executionCount.get()).isEqualTo(3);
+        assertThat(coalescer.getCoalescedCount()).isZero();
+        assertThat(coalescer.getCoalescingRatio()).isZero();
+        assertThat(coalescer.getInFlightExecutionCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void requests_arriving_after_completion_start_a_new_execution() {
+        // given
+        CompletableFuture<ResponseInfo<?>> first = execute(owner, "foo");
+        executionFuture.complete(ResponseInfo.newBuilder("first").build());
+        executionFuture = new CompletableFuture<>();
+
+        // when
+        CompletableFuture<ResponseInfo<?>> second = execute(owner, "foo");
+        executionFuture.complete(ResponseInfo.newBuilder("second").build());
+
+        // then
+        assertThat(executionCount.get()).isEqualTo(2);
+        assertThat(first.join().getContentForFullResponse()).isEqualTo("first");
+        assertThat(second.join().getContentForFullResponse()).isEqualTo("second");
+    }
+
+    @Test
+    public void ByteBuf_content_is_retained_per_copy_and_original_is_released_after_all_copies_are_made() {
+        // given
+        ByteBuf content = Unpooled.copiedBuffer(new byte[]{1, 2, 3});
+        CompletableFuture<ResponseInfo<?>> first = execute(owner, "foo");
+        CompletableFuture<ResponseInfo<?>> second = execute(owner, "foo");
+
+        // when
+        executionFuture.complete(ResponseInfo.newBuilder(content).build());
+
+        // then
+        ByteBuf firstContent = (ByteBuf) first.join().getContentForFullResponse();
+        ByteBuf secondContent = (ByteBuf) second.join().getContentForFullResponse();
+        assertThat(firstContent).isNotSameAs(content).isNotSameAs(secondContent);
+        assertThat(content.refCnt()).isEqualTo(2);
+
+        firstContent.release();
+        secondContent.release();
+        assertThat(content.refCnt()).isZero();
+    }
+
+    @Test
+    public void copy_is_released_if_caller_future_was_already_completed() {
+        // given
+        ByteBuf content = Unpooled.copiedBuffer(new byte[]{1, 2, 3});
+        CompletableFuture<ResponseInfo<?>> first = execute(owner, "foo");
+        CompletableFuture<ResponseInfo<?>> second = execute(owner, "foo");
+        first.completeExceptionally(new RuntimeException("intentional timeout"));
+
+        // when
+        executionFuture.complete(ResponseInfo.newBuilder(content).build());
+
+        // then
+        assertThat(first.isCompletedExceptionally()).isTrue();
+        ByteBuf secondContent = (ByteBuf) second.join().getContentForFullResponse();
+        assertThat(content.refCnt()).isEqualTo(1);
+        secondContent.release();
+        assertThat(content.refCnt()).isZero();
+    }
+
+    @Test
+    public void execution_failures_are_propagated_to_all_callers() {
+        // given
+        CompletableFuture<ResponseInfo<?>> first = execute(owner, "foo");
+        CompletableFuture<ResponseInfo<?>> second = execute(owner, "foo");
+        RuntimeException error = new RuntimeException("kaboom");
+
+        // when
+        executionFuture.completeExceptionally(error);
+
+        // then
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+        assertThat(coalescer.getInFlightExecutionCount()).isZero();
+    }
+
+    @Test
+    public void execution_supplier_that_throws_or_returns_null_results_in_exceptional_completion() {
+        // when
+        CompletableFuture<ResponseInfo<?>> throwing = coalescer.execute(owner, "foo", () -> {
+            throw new RuntimeException("kaboom");
+        });
+        CompletableFuture<ResponseInfo<?>> returnsNull = coalescer.execute(owner, "bar", () -> null);
+
+        // then
+        assertThat(throwing).isCompletedExceptionally();
+        assertThat(returnsNull).isCompletedExceptionally();
+        assertThat(coalescer.getInFlightExecutionCount()).isZero();
+    }
+
+    @Test
+    public void FileResponseInfo_is_copied_with_its_file_settings() {
+        // given
+        CompletableFuture<ResponseInfo<?>> result = execute(owner, "foo");
+        FileResponseInfo response = ResponseInfo.newFileResponseBuilder(Paths.get("foo.txt"))
+                                                .withFileOffset(42)
+                                                .withFileLength(4242L)
+                                                .withRangeRequestsAllowed(false)
+                                                .build();
+        response.setForceConnectionCloseAfterResponseSent(true);
+
+        // when
+        executionFuture.complete(response);
+
+        // then
+        FileResponseInfo copy = (FileResponseInfo) result.join();
+        assertThat(copy).isNotSameAs(response);
+        assertThat(copy.getContentForFullResponse()).isEqualTo(Paths.get("foo.txt"));
+        assertThat(copy.getFileOffset()).isEqualTo(42);
+        assertThat(copy.getFileLength()).isEqualTo(4242L);
+        assertThat(copy.isRangeRequestsAllowed()).isFalse();
+        assertThat(copy.isForceConnectionCloseAfterResponseSent()).isTrue();
+    }
+
+    @Test
+    public void chunked_responses_cannot_be_shared() {
+        // given
+        CompletableFuture<ResponseInfo<?>> result = execute(owner, "foo");
+
+        // when
+        executionFuture.complete(new ChunkedResponseInfo());
+
+        // then
+        assertThat(result).isCompletedExceptionally();
+    }
+}
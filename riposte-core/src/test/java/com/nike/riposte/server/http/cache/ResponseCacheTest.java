@@ -0,0 +1,171 @@
+package com.nike.riposte.server.http.cache;
+
+import org.junit.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ResponseCache}
+ */
+public class ResponseCacheTest {
+
+    private CachedResponse entry(int sizeInBytes) {
+        return new CachedResponse(
+            Unpooled.wrappedBuffer(new byte[sizeInBytes]), 200, new DefaultHttpHeaders(), null, null,
+            System.nanoTime(), 1000, 0
+        );
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_non_positive_max_size() {
+        // when
+        Throwable ex = catchThrowable(() -> new ResponseCache(0));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void put_then_get_returns_entry_and_tracks_size() {
+        // given
+        ResponseCache cache = new ResponseCache(100);
+        CachedResponse entry = entry(10);
+
+        // when
+        boolean cached = cache.put("foo", entry);
+
+        // then
+        assertThat(cached).isTrue();
+        assertThat(cache.get("foo")).isSameAs(entry);
+        assertThat(cache.get("bar")).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getCurrentSizeInBytes()).isEqualTo(10);
+    }
+
+    @Test
+    public void put_replaces_and_releases_existing_entry() {
+        // given
+        ResponseCache cache = new ResponseCache(100);
+        CachedResponse orig = entry(10);
+        CachedResponse replacement = entry(20);
+        cache.put("foo", orig);
+
+        // when
+        cache.put("foo", replacement);
+
+        // then
+        assertThat(cache.get("foo")).isSameAs(replacement);
+        assertThat(orig.getContent().refCnt()).isZero();
+        assertThat(cache.getCurrentSizeInBytes()).isEqualTo(20);
+    }
+
+    @Test
+    public void put_does_not_cache_entry_larger_than_max_size() {
+        // given
+        ResponseCache cache = new ResponseCache(100);
+        CachedResponse tooBig = entry(101);
+
+        // when
+        boolean cached = cache.put("foo", tooBig);
+
+        // then
+        assertThat(cached).isFalse();
+        assertThat(cache.size()).isZero();
+        assertThat(tooBig.getContent().refCnt()).isZero();
+    }
+
+    @Test
+    public void eviction_prefers_probationary_entries_over_entries_that_have_been_hit_again() {
+        // given
+        ResponseCache cache = new ResponseCache(100);
+        CachedResponse popular = entry(40);
+        CachedResponse oneHitWonder = entry(40);
+        cache.put("popular", popular);
+        cache.put("oneHitWonder", oneHitWonder);
+        // Hit the popular entry so it gets promoted to the protected segment.
+        cache.get("popular");
+
+        // when
+        cache.put("newcomer", entry(40));
+
+        // then
+        assertThat(cache.get("popular")).isSameAs(popular);
+        assertThat(cache.get("oneHitWonder")).isNull();
+        assertThat(oneHitWonder.getContent().refCnt()).isZero();
+        assertThat(cache.get("newcomer")).isNotNull();
+        assertThat(cache.getCurrentSizeInBytes()).isEqualTo(80);
+    }
+
+    @Test
+    public void protected_segment_overflow_demotes_least_recently_used_entries_to_probation() {
+        // given
+        ResponseCache cache = new ResponseCache(100);
+        CachedResponse first = entry(45);
+        CachedResponse second = entry(45);
+        cache.put("first", first);
+        cache.put("second", second);
+
+        // when
+        cache.get("first");
+        cache.get("second");
+
+        // then
+        assertThat(cache.protectedSizeInBytes).isEqualTo(45);
+        assertThat(cache.protectedSegment).containsKey("second");
+        assertThat(cache.probationSegment).containsKey("first");
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidate_and_invalidateAll_remove_and_release_entries() {
+        // given
+        ResponseCache cache = new ResponseCache(100);
+        CachedResponse foo = entry(10);
+        CachedResponse bar = entry(10);
+        CachedResponse baz = entry(10);
+        cache.put("foo", foo);
+        cache.put("bar", bar);
+        cache.put("baz", baz);
+        cache.get("bar");
+
+        // when
+        cache.invalidate("foo");
+
+        // then
+        assertThat(cache.get("foo")).isNull();
+        assertThat(foo.getContent().refCnt()).isZero();
+        assertThat(cache.size()).isEqualTo(2);
+
+        // and when
+        cache.invalidateAll();
+
+        // then
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getCurrentSizeInBytes()).isZero();
+        assertThat(bar.getContent().refCnt()).isZero();
+        assertThat(baz.getContent().refCnt()).isZero();
+    }
+
+    @Test
+    public void retainedContent_shares_bytes_and_survives_eviction() {
+        // given
+        ResponseCache cache = new ResponseCache(100);
+        CachedResponse entry = entry(10);
+        cache.put("foo", entry);
+
+        // when
+        ByteBuf retained = entry.retainedContent();
+        cache.invalidate("foo");
+
+        // then
+        assertThat(retained.refCnt()).isEqualTo(1);
+        assertThat(retained.readableBytes()).isEqualTo(10);
+        retained.release();
+        assertThat(entry.getContent().refCnt()).isZero();
+    }
+}
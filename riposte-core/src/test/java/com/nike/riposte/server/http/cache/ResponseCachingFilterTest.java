@@ -0,0 +1,455 @@
+package com.nike.riposte.server.http.cache;
+
+import com.nike.internal.util.Pair;
+import com.nike.riposte.server.http.ContentCodec;
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseCachePolicy;
+import com.nike.riposte.server.http.JacksonContentCodec;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.impl.FullResponseInfo;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.server.testutils.TestUtil;
+import com.nike.riposte.util.Matcher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Optional;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.cookie.DefaultCookie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link ResponseCachingFilter}
+ */
+@RunWith(DataProviderRunner.class)
+public class ResponseCachingFilterTest {
+
+    private ResponseCachingFilter filter;
+    private ChannelHandlerContext ctx;
+    private HttpProcessingState stateMock;
+    private ResponseCachePolicy policy;
+
+    @Before
+    public void beforeMethod() {
+        TestUtil.ChannelHandlerContextMocks mocks = TestUtil.mockChannelHandlerContext();
+        ctx = mocks.mockContext;
+        stateMock = mocks.mockHttpProcessingState;
+        policy = ResponseCachePolicy.newBuilder(60_000)
+                                    .withKeyQueryParamNames(Collections.singleton("a"))
+                                    .withVaryHeaderNames(Collections.singleton("Accept"))
+                                    .build();
+        Endpoint<?> endpoint = new Endpoint<Object>() {
+            @Override
+            public Matcher requestMatcher() {
+                return Matcher.match("/foo");
+            }
+
+            @Override
+            public ResponseCachePolicy responseCachePolicy() {
+                return policy;
+            }
+        };
+        doReturn(endpoint).when(stateMock).getEndpointForExecution();
+        filter = new ResponseCachingFilter(1024 * 1024, null);
+    }
+
+    private RequestInfo<?> request(HttpMethod method, String uri) {
+        return new RequestInfoImpl<>(new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, uri));
+    }
+
+    private String contentAsString(ResponseInfo<?> responseInfo) {
+        return ((ByteBuf) responseInfo.getContentForFullResponse()).toString(StandardCharsets.UTF_8);
+    }
+
+    private ResponseInfo<?> missThenStore(RequestInfo<?> request, ResponseInfo<?> response) {
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> result =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request, ctx);
+        assertThat(result).isNull();
+        return filter.filterResponse(response, request, ctx);
+    }
+
+    @Test
+    public void miss_stores_serialized_response_and_subsequent_request_is_served_from_cache() {
+        // given
+        RequestInfo<?> firstRequest = request(HttpMethod.GET, "/foo?a=1&ignored=x");
+        FullResponseInfo<?> response = ResponseInfo.newBuilder(Collections.singletonMap("hello", "world")).build();
+
+        // when
+        ResponseInfo<?> filteredResponse = missThenStore(firstRequest, response);
+
+        // then
+        assertThat(filteredResponse).isSameAs(response);
+        assertThat(contentAsString(filteredResponse)).isEqualTo("{\"hello\":\"world\"}");
+        assertThat(filter.getCache().size()).isEqualTo(1);
+
+        // and when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> hit =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(
+                request(HttpMethod.GET, "/foo?ignored=y&a=1"), ctx
+            );
+
+        // then
+        assertThat(hit).isNotNull();
+        ResponseInfo<?> cachedResponse = hit.getRight().get();
+        assertThat(cachedResponse.getHttpStatusCode()).isEqualTo(200);
+        assertThat(cachedResponse.getHeaders().get(HttpHeaderNames.AGE)).isEqualTo("0");
+        assertThat(contentAsString(cachedResponse)).isEqualTo("{\"hello\":\"world\"}");
+    }
+
+    @Test
+    public void HEAD_request_is_served_from_cache_populated_by_GET() {
+        // given
+        missThenStore(request(HttpMethod.GET, "/foo"), ResponseInfo.newBuilder("bar").build());
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> hit =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request(HttpMethod.HEAD, "/foo"), ctx);
+
+        // then
+        assertThat(hit).isNotNull();
+        assertThat(contentAsString(hit.getRight().get())).isEqualTo("bar");
+    }
+
+    @DataProvider(value = {
+        "/foo?a=2",
+        "/bar?a=1",
+    })
+    @Test
+    public void requests_with_different_keys_miss_the_cache(String uri) {
+        // given
+        missThenStore(request(HttpMethod.GET, "/foo?a=1"), ResponseInfo.newBuilder("bar").build());
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> result =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request(HttpMethod.GET, uri), ctx);
+
+        // then
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void vary_header_values_are_part_of_the_cache_key() {
+        // given
+        RequestInfo<?> jsonRequest = request(HttpMethod.GET, "/foo");
+        jsonRequest.getHeaders().set(HttpHeaderNames.ACCEPT, "application/json");
+        missThenStore(jsonRequest, ResponseInfo.newBuilder("bar").build());
+
+        RequestInfo<?> xmlRequest = request(HttpMethod.GET, "/foo");
+        xmlRequest.getHeaders().set(HttpHeaderNames.ACCEPT, "application/xml");
+
+        // expect
+        assertThat(filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(xmlRequest, ctx)).isNull();
+    }
+
+    @Test
+    public void endpoints_without_a_policy_are_never_cached() {
+        // given
+        policy = null;
+        RequestInfo<?> request = request(HttpMethod.GET, "/foo");
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> result =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request, ctx);
+        filter.filterResponse(ResponseInfo.newBuilder("bar").build(), request, ctx);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(request.getRequestAttributes()).doesNotContainKey(ResponseCachingFilter.CACHE_KEY_REQUEST_ATTR_KEY);
+        assertThat(filter.getCache().size()).isZero();
+    }
+
+    @Test
+    public void non_GET_requests_are_never_cached() {
+        // given
+        RequestInfo<?> request = request(HttpMethod.POST, "/foo");
+
+        // when
+        filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request, ctx);
+        filter.filterResponse(ResponseInfo.newBuilder("bar").build(), request, ctx);
+
+        // then
+        assertThat(filter.getCache().size()).isZero();
+    }
+
+    @DataProvider(value = {
+        "no-store",
+        "no-cache",
+        "private",
+        "max-age=0",
+    })
+    @Test
+    public void responses_with_cache_control_forbidding_caching_are_not_stored(String cacheControl) {
+        // given
+        FullResponseInfo<?> response = ResponseInfo.newBuilder("bar").build();
+        response.getHeaders().set(HttpHeaderNames.CACHE_CONTROL, cacheControl);
+
+        // when
+        ResponseInfo<?> result = missThenStore(request(HttpMethod.GET, "/foo"), response);
+
+        // then
+        assertThat(filter.getCache().size()).isZero();
+        assertThat(result.getContentForFullResponse()).isEqualTo("bar");
+    }
+
+    @Test
+    public void response_max_age_shortens_but_does_not_lengthen_policy_ttl() {
+        // given
+        FullResponseInfo<?> shorter = ResponseInfo.newBuilder("bar").build();
+        shorter.getHeaders().set(HttpHeaderNames.CACHE_CONTROL, "public, max-age=5");
+        FullResponseInfo<?> longer = ResponseInfo.newBuilder("bar").build();
+        longer.getHeaders().set(HttpHeaderNames.CACHE_CONTROL, "s-maxage=600, max-age=5");
+
+        // expect
+        assertThat(filter.determineTimeToLiveMillis(shorter, policy)).isEqualTo(5000);
+        assertThat(filter.determineTimeToLiveMillis(longer, policy)).isEqualTo(60_000);
+    }
+
+    @Test
+    public void non_200_responses_and_responses_with_cookies_are_not_stored() {
+        // given
+        FullResponseInfo<?> notFound = ResponseInfo.newBuilder("bar").withHttpStatusCode(404).build();
+        FullResponseInfo<?> withCookie = ResponseInfo.newBuilder("bar")
+                                                     .withCookies(Collections.singleton(new DefaultCookie("k", "v")))
+                                                     .build();
+
+        // when
+        missThenStore(request(HttpMethod.GET, "/foo"), notFound);
+        missThenStore(request(HttpMethod.GET, "/foo"), withCookie);
+
+        // then
+        assertThat(filter.getCache().size()).isZero();
+    }
+
+    @Test
+    public void request_no_cache_skips_lookup_but_refreshes_entry() {
+        // given
+        missThenStore(request(HttpMethod.GET, "/foo"), ResponseInfo.newBuilder("old").build());
+        RequestInfo<?> noCacheRequest = request(HttpMethod.GET, "/foo");
+        noCacheRequest.getHeaders().set(HttpHeaderNames.CACHE_CONTROL, "no-cache");
+
+        // when
+        missThenStore(noCacheRequest, ResponseInfo.newBuilder("new").build());
+
+        // then
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> hit =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request(HttpMethod.GET, "/foo"), ctx);
+        assertThat(contentAsString(hit.getRight().get())).isEqualTo("new");
+    }
+
+    @Test
+    public void stale_entry_within_revalidation_window_lets_exactly_one_request_through() throws InterruptedException {
+        // given
+        policy = ResponseCachePolicy.newBuilder(1).withStaleWhileRevalidateMillis(60_000).build();
+        missThenStore(request(HttpMethod.GET, "/foo"), ResponseInfo.newBuilder("bar").build());
+        Thread.sleep(5);
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> first =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request(HttpMethod.GET, "/foo"), ctx);
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> second =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request(HttpMethod.GET, "/foo"), ctx);
+
+        // then
+        assertThat(first).isNull();
+        assertThat(second).isNotNull();
+        assertThat(contentAsString(second.getRight().get())).isEqualTo("bar");
+    }
+
+    @Test
+    public void expired_entry_outside_revalidation_window_is_removed() throws InterruptedException {
+        // given
+        policy = ResponseCachePolicy.newBuilder(1).build();
+        missThenStore(request(HttpMethod.GET, "/foo"), ResponseInfo.newBuilder("bar").build());
+        Thread.sleep(5);
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> result =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(request(HttpMethod.GET, "/foo"), ctx);
+
+        // then
+        assertThat(result).isNull();
+        assertThat(filter.getCache().size()).isZero();
+    }
+
+    @Test
+    public void generateCacheKey_includes_all_query_params_in_sorted_order_when_policy_does_not_select_any() {
+        // given
+        ResponseCachePolicy allParamsPolicy = ResponseCachePolicy.newBuilder(1).build();
+
+        // when
+        String key = filter.generateCacheKey(request(HttpMethod.GET, "/foo?b=2&a=1&a=3"), allParamsPolicy, null);
+
+        // then
+        assertThat(key).isEqualTo("GET 4:/foo&1:a=1:1&1:a=1:3&1:b=1:2");
+    }
+
+    @DataProvider(value = {
+        // Encoded delimiters in a query param value vs. real params.
+        "/foo?a=1%26b%3D2           |   /foo?a=1&b=2",
+        // A decoded '?' in the path vs. a real query string.
+        "/foo%3Fa=1                 |   /foo?a=1",
+        // A decoded '&' in a param value vs. a real second value.
+        "/foo?a=1%26a%3D3           |   /foo?a=1&a=3"
+    }, splitBy = "\\|")
+    @Test
+    public void generateCacheKey_does_not_collide_for_requests_that_only_differ_by_encoded_delimiters(
+        String firstUri, String secondUri
+    ) {
+        // given
+        ResponseCachePolicy allParamsPolicy = ResponseCachePolicy.newBuilder(1).build();
+
+        // when
+        String firstKey = filter.generateCacheKey(request(HttpMethod.GET, firstUri), allParamsPolicy, null);
+        String secondKey = filter.generateCacheKey(request(HttpMethod.GET, secondUri), allParamsPolicy, null);
+
+        // then
+        assertThat(firstKey).isNotEqualTo(secondKey);
+    }
+
+    @Test
+    public void generateCacheKey_does_not_collide_for_vary_header_values_containing_commas_or_newlines() {
+        // given
+        RequestInfo<?> commaInValue = request(HttpMethod.GET, "/foo");
+        commaInValue.getHeaders().add("Accept", "a,b");
+        RequestInfo<?> twoValues = request(HttpMethod.GET, "/foo");
+        twoValues.getHeaders().add("Accept", "a").add("Accept", "b");
+        // Header validation is disabled so the raw newline gets through, as it could from a lenient decoder.
+        RequestInfo<?> newlineInValue = new RequestInfoImpl<>(
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo", false)
+        );
+        newlineInValue.getHeaders().add("Accept", "a\nAccept: b");
+
+        // when
+        String commaKey = filter.generateCacheKey(commaInValue, policy, null);
+        String twoValuesKey = filter.generateCacheKey(twoValues, policy, null);
+        String newlineKey = filter.generateCacheKey(newlineInValue, policy, null);
+
+        // then
+        assertThat(commaKey).isNotEqualTo(twoValuesKey);
+        assertThat(newlineKey).isNotEqualTo(twoValuesKey).isNotEqualTo(commaKey);
+    }
+
+    @Test
+    public void miss_serializes_content_with_the_cached_type_bound_ObjectWriter() throws Exception {
+        // given
+        ObjectMapper serializerSpy = spy(new ObjectMapper());
+        filter = new ResponseCachingFilter(1024 * 1024, serializerSpy);
+
+        // when
+        ResponseInfo<?> firstResponse = missThenStore(
+            request(HttpMethod.GET, "/foo?a=1"), ResponseInfo.newBuilder(Collections.singletonMap("a", 1)).build()
+        );
+        ResponseInfo<?> secondResponse = missThenStore(
+            request(HttpMethod.GET, "/foo?a=2"), ResponseInfo.newBuilder(Collections.singletonMap("a", 2)).build()
+        );
+
+        // then
+        assertThat(contentAsString(firstResponse)).isEqualTo("{\"a\":1}");
+        assertThat(contentAsString(secondResponse)).isEqualTo("{\"a\":2}");
+        verify(serializerSpy).writerFor(Collections.singletonMap("a", 1).getClass());
+        verify(serializerSpy, never()).writeValueAsString(any());
+    }
+
+    private ContentCodec smileCodec() {
+        // A JSON mapper under the Smile media type keeps the serialized payload human-readable for assertions.
+        return new JacksonContentCodec(ContentCodec.SMILE_MIME_TYPE, new ObjectMapper());
+    }
+
+    @Test
+    public void response_is_serialized_and_cached_per_negotiated_content_codec_when_filter_has_content_codecs() {
+        // given
+        policy = ResponseCachePolicy.newBuilder(60_000).build();
+        filter = new ResponseCachingFilter(1024 * 1024, null, Collections.singletonList(smileCodec()));
+        RequestInfo<?> smileRequest = request(HttpMethod.GET, "/foo");
+        smileRequest.getHeaders().set(HttpHeaderNames.ACCEPT, "application/x-jackson-smile");
+
+        // when
+        ResponseInfo<?> filteredResponse = missThenStore(
+            smileRequest, ResponseInfo.newBuilder(Collections.singletonMap("hello", "world")).build()
+        );
+
+        // then
+        assertThat(filteredResponse.getDesiredContentWriterMimeType()).isEqualTo("application/x-jackson-smile");
+        assertThat(filteredResponse.getHeaders().get(HttpHeaderNames.VARY)).isEqualTo("accept");
+        assertThat(contentAsString(filteredResponse)).isEqualTo("{\"hello\":\"world\"}");
+
+        // and when
+        RequestInfo<?> secondSmileRequest = request(HttpMethod.GET, "/foo");
+        secondSmileRequest.getHeaders().set(HttpHeaderNames.ACCEPT, "application/x-jackson-smile");
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> smileHit =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(secondSmileRequest, ctx);
+        RequestInfo<?> jsonRequest = request(HttpMethod.GET, "/foo");
+        jsonRequest.getHeaders().set(HttpHeaderNames.ACCEPT, "application/json");
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> jsonResult =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(jsonRequest, ctx);
+
+        // then
+        assertThat(smileHit).isNotNull();
+        ResponseInfo<?> cachedResponse = smileHit.getRight().get();
+        assertThat(cachedResponse.getDesiredContentWriterMimeType()).isEqualTo("application/x-jackson-smile");
+        assertThat(cachedResponse.getHeaders().get(HttpHeaderNames.VARY)).isEqualTo("accept");
+        assertThat(jsonResult).isNull();
+    }
+
+    @Test
+    public void response_is_cached_as_JSON_with_Vary_header_when_caller_does_not_ask_for_a_content_codec() {
+        // given
+        filter = new ResponseCachingFilter(1024 * 1024, null, Collections.singletonList(smileCodec()));
+        RequestInfo<?> jsonRequest = request(HttpMethod.GET, "/foo");
+        jsonRequest.getHeaders().set(HttpHeaderNames.ACCEPT, "application/json");
+
+        // when
+        ResponseInfo<?> filteredResponse = missThenStore(
+            jsonRequest, ResponseInfo.newBuilder(Collections.singletonMap("hello", "world")).build()
+        );
+
+        // then
+        assertThat(filteredResponse.getDesiredContentWriterMimeType()).isNull();
+        assertThat(filteredResponse.getHeaders().get(HttpHeaderNames.VARY)).isEqualTo("accept");
+        assertThat(contentAsString(filteredResponse)).isEqualTo("{\"hello\":\"world\"}");
+    }
+
+    @Test
+    public void generateCacheKey_includes_the_negotiated_content_codec() {
+        // given
+        RequestInfo<?> request = request(HttpMethod.GET, "/foo");
+        ResponseCachePolicy noVaryPolicy = ResponseCachePolicy.newBuilder(1).build();
+
+        // when
+        String jsonKey = filter.generateCacheKey(request, noVaryPolicy, null);
+        String smileKey = filter.generateCacheKey(request, noVaryPolicy, smileCodec());
+
+        // then
+        assertThat(jsonKey).isEqualTo("GET 4:/foo");
+        assertThat(smileKey).isEqualTo("GET 4:/foo\ncodec 27:application/x-jackson-smile");
+    }
+
+    @Test
+    public void filter_is_short_circuiting_and_executes_after_security_validation() {
+        // expect
+        assertThat(filter.isShortCircuitRequestFilter()).isTrue();
+        assertThat(filter.shouldExecuteBeforeSecurityValidation()).isFalse();
+    }
+}
@@ -0,0 +1,114 @@
+package com.nike.riposte.server.http.ratelimit;
+
+import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.HttpProcessingState;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.server.testutils.TestUtil;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.Attribute;
+import io.netty.util.DefaultAttributeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link RateLimitKeyExtractor}
+ */
+public class RateLimitKeyExtractorTest {
+
+    private ChannelHandlerContext ctx;
+    private Channel channelMock;
+    private HttpProcessingState stateMock;
+    private HttpRequest httpRequest;
+    private RequestInfo<?> requestInfo;
+
+    @Before
+    public void beforeMethod() {
+        TestUtil.ChannelHandlerContextMocks mocks = TestUtil.mockChannelHandlerContext();
+        ctx = mocks.mockContext;
+        channelMock = mocks.mockChannel;
+        stateMock = mocks.mockHttpProcessingState;
+        httpRequest = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo");
+        requestInfo = new RequestInfoImpl<>(httpRequest);
+    }
+
+    @Test
+    public void header_extracts_header_value() {
+        // given
+        httpRequest.headers().set("X-Api-Key", "some-key");
+        requestInfo = new RequestInfoImpl<>(httpRequest);
+
+        // expect
+        assertThat(RateLimitKeyExtractor.header("X-Api-Key").extractKey(requestInfo, ctx)).isEqualTo("some-key");
+        assertThat(RateLimitKeyExtractor.header("X-Other").extractKey(requestInfo, ctx)).isNull();
+        assertThat(RateLimitKeyExtractor.header("X-Api-Key").requiresRoutedEndpoint()).isFalse();
+    }
+
+    @Test
+    public void firstHeaderOf_extracts_value_of_first_present_header() {
+        // given
+        httpRequest.headers().set("userid", "user-b");
+        requestInfo = new RequestInfoImpl<>(httpRequest);
+        RateLimitKeyExtractor extractor = RateLimitKeyExtractor.firstHeaderOf(Arrays.asList("X-User-Id", "userid"));
+
+        // expect
+        assertThat(extractor.extractKey(requestInfo, ctx)).isEqualTo("user-b");
+    }
+
+    @Test
+    public void firstHeaderOf_returns_null_if_no_headers_are_present() {
+        // given
+        RateLimitKeyExtractor extractor = RateLimitKeyExtractor.firstHeaderOf(Arrays.asList("X-User-Id", "userid"));
+
+        // expect
+        assertThat(extractor.extractKey(requestInfo, ctx)).isNull();
+    }
+
+    @Test
+    public void remoteIpAddress_extracts_ip_and_caches_it_on_the_channel() {
+        // given
+        Attribute<String> remoteIpAttr =
+            new DefaultAttributeMap().attr(RateLimitKeyExtractor.REMOTE_IP_ADDRESS_ATTRIBUTE_KEY);
+        doReturn(remoteIpAttr).when(channelMock).attr(RateLimitKeyExtractor.REMOTE_IP_ADDRESS_ATTRIBUTE_KEY);
+        doReturn(new InetSocketAddress("10.1.2.3", 4242)).when(channelMock).remoteAddress();
+        RateLimitKeyExtractor extractor = RateLimitKeyExtractor.remoteIpAddress();
+
+        // when
+        Object firstKey = extractor.extractKey(requestInfo, ctx);
+        Object secondKey = extractor.extractKey(requestInfo, ctx);
+
+        // then
+        assertThat(firstKey).isEqualTo("10.1.2.3");
+        assertThat(secondKey).isSameAs(firstKey);
+        assertThat(remoteIpAttr.get()).isEqualTo("10.1.2.3");
+        verify(channelMock, times(1)).remoteAddress();
+    }
+
+    @Test
+    public void endpoint_extracts_endpoint_from_state_and_requires_routed_endpoint() {
+        // given
+        Endpoint<?> endpointMock = mock(Endpoint.class);
+        doReturn(endpointMock).when(stateMock).getEndpointForExecution();
+        RateLimitKeyExtractor extractor = RateLimitKeyExtractor.endpoint();
+
+        // expect
+        assertThat(extractor.extractKey(requestInfo, ctx)).isSameAs(endpointMock);
+        assertThat(extractor.requiresRoutedEndpoint()).isTrue();
+    }
+}
@@ -0,0 +1,166 @@
+package com.nike.riposte.server.http.ratelimit;
+
+import com.nike.internal.util.Pair;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.impl.RequestInfoImpl;
+import com.nike.riposte.server.testutils.TestUtil;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link RateLimitingFilter}
+ */
+@RunWith(DataProviderRunner.class)
+public class RateLimitingFilterTest {
+
+    private ChannelHandlerContext ctx;
+    private RateLimitKeyExtractor keyExtractorMock;
+    private TokenBucketRateLimiter rateLimiterMock;
+    private RateLimitingFilter filter;
+    private RequestInfo<?> requestInfo;
+
+    @Before
+    public void beforeMethod() {
+        ctx = TestUtil.mockChannelHandlerContext().mockContext;
+        keyExtractorMock = mock(RateLimitKeyExtractor.class);
+        rateLimiterMock = mock(TokenBucketRateLimiter.class);
+        filter = new RateLimitingFilter(keyExtractorMock, rateLimiterMock);
+        requestInfo = new RequestInfoImpl<>(new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo"));
+        doReturn("some-key").when(keyExtractorMock).extractKey(requestInfo, ctx);
+    }
+
+    @Test
+    public void convenience_constructor_creates_rate_limiter() {
+        // when
+        RateLimitingFilter instance = new RateLimitingFilter(keyExtractorMock, 10, 5, 100);
+
+        // then
+        assertThat(instance.keyExtractor).isSameAs(keyExtractorMock);
+        assertThat(instance.rateLimiter.refillIntervalNanos).isEqualTo(TimeUnit.SECONDS.toNanos(1) / 10);
+        assertThat(instance.rateLimiter.getCapacity()).isEqualTo(128);
+    }
+
+    @Test
+    public void constructor_throws_NullPointerException_for_null_args() {
+        // expect
+        assertThat(catchThrowable(() -> new RateLimitingFilter(null, rateLimiterMock)))
+            .isInstanceOf(NullPointerException.class);
+        assertThat(catchThrowable(() -> new RateLimitingFilter(keyExtractorMock, null)))
+            .isInstanceOf(NullPointerException.class);
+    }
+
+    @DataProvider(value = {
+        "false  |   true",
+        "true   |   false"
+    }, splitBy = "\\|")
+    @Test
+    public void shouldExecuteBeforeSecurityValidation_depends_on_whether_key_extractor_requires_routed_endpoint(
+        boolean requiresRoutedEndpoint, boolean expectedResult
+    ) {
+        // given
+        doReturn(requiresRoutedEndpoint).when(keyExtractorMock).requiresRoutedEndpoint();
+
+        // expect
+        assertThat(filter.shouldExecuteBeforeSecurityValidation()).isEqualTo(expectedResult);
+    }
+
+    @Test
+    public void filterRequestFirstChunk_returns_null_when_token_is_acquired() {
+        // given
+        doReturn(0L).when(rateLimiterMock).tryAcquire("some-key");
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> result =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfo, ctx);
+
+        // then
+        assertThat(result).isNull();
+        verify(rateLimiterMock).tryAcquire("some-key");
+    }
+
+    @Test
+    public void filterRequestFirstChunk_does_not_rate_limit_requests_without_a_key() {
+        // given
+        doReturn(null).when(keyExtractorMock).extractKey(requestInfo, ctx);
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> result =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfo, ctx);
+
+        // then
+        assertThat(result).isNull();
+        verify(rateLimiterMock, never()).tryAcquire(any());
+    }
+
+    @DataProvider(value = {
+        "1              |   1",
+        "999999999      |   1",
+        "1000000000     |   1",
+        "1000000001     |   2",
+        "2500000000     |   3"
+    }, splitBy = "\\|")
+    @Test
+    public void filterRequestFirstChunk_short_circuits_with_429_and_Retry_After_when_rate_limited(
+        long waitNanos, long expectedRetryAfterSeconds
+    ) {
+        // given
+        doReturn(waitNanos).when(rateLimiterMock).tryAcquire("some-key");
+
+        // when
+        Pair<? extends RequestInfo<?>, Optional<ResponseInfo<?>>> result =
+            filter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfo, ctx);
+
+        // then
+        assertThat(result).isNotNull();
+        assertThat(result.getLeft()).isSameAs(requestInfo);
+        assertThat(result.getRight()).isPresent();
+        ResponseInfo<?> response = result.getRight().get();
+        assertThat(response.getHttpStatusCode()).isEqualTo(429);
+        assertThat(response.getHeaders().get(HttpHeaderNames.RETRY_AFTER))
+            .isEqualTo(String.valueOf(expectedRetryAfterSeconds));
+    }
+
+    @Test
+    public void filterRequestFirstChunk_rate_limits_using_real_limiter() {
+        // given
+        RateLimitingFilter realFilter = new RateLimitingFilter(keyExtractorMock, 1, 2, 16);
+
+        // expect
+        assertThat(realFilter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfo, ctx)).isNull();
+        assertThat(realFilter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfo, ctx)).isNull();
+        assertThat(realFilter.filterRequestFirstChunkWithOptionalShortCircuitResponse(requestInfo, ctx)).isNotNull();
+    }
+
+    @Test
+    public void filterRequestLastChunk_and_filterResponse_do_nothing() {
+        // given
+        ResponseInfo<?> response = ResponseInfo.newBuilder().build();
+
+        // expect
+        assertThat(filter.filterRequestLastChunkWithOptionalShortCircuitResponse(requestInfo, ctx)).isNull();
+        assertThat(filter.filterResponse(response, requestInfo, ctx)).isNull();
+    }
+}
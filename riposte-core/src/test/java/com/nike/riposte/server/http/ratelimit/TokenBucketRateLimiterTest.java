@@ -0,0 +1,157 @@
+package com.nike.riposte.server.http.ratelimit;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link TokenBucketRateLimiter}
+ */
+@RunWith(DataProviderRunner.class)
+public class TokenBucketRateLimiterTest {
+
+    private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void constructor_sets_fields_as_expected() {
+        // when
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 5, 100);
+
+        // then
+        assertThat(limiter.refillIntervalNanos).isEqualTo(ONE_SECOND_NANOS / 10);
+        assertThat(limiter.burstToleranceNanos).isEqualTo(5 * ONE_SECOND_NANOS / 10);
+        assertThat(limiter.getCapacity()).isEqualTo(128);
+    }
+
+    @DataProvider(value = {
+        "1      |   8",
+        "8      |   8",
+        "9      |   16",
+        "1024   |   1024",
+        "1025   |   2048"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_rounds_capacity_up_to_power_of_2_of_at_least_MAX_PROBES(
+        int maxTrackedKeys, int expectedCapacity
+    ) {
+        // when
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, maxTrackedKeys);
+
+        // then
+        assertThat(limiter.getCapacity()).isEqualTo(expectedCapacity);
+    }
+
+    @DataProvider(value = {
+        "0      |   1   |   1",
+        "-1     |   1   |   1",
+        "1      |   0   |   1",
+        "1      |   1   |   0"
+    }, splitBy = "\\|")
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_invalid_args(
+        double permitsPerSecond, int burstCapacity, int maxTrackedKeys
+    ) {
+        // when
+        Throwable ex = catchThrowable(
+            () -> new TokenBucketRateLimiter(permitsPerSecond, burstCapacity, maxTrackedKeys)
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void tryAcquire_allows_a_full_burst_then_rejects_with_time_until_next_token() {
+        // given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 3, 16);
+        long now = ONE_SECOND_NANOS;
+
+        // expect
+        assertThat(limiter.tryAcquire("foo", now)).isZero();
+        assertThat(limiter.tryAcquire("foo", now)).isZero();
+        assertThat(limiter.tryAcquire("foo", now)).isZero();
+        assertThat(limiter.tryAcquire("foo", now)).isEqualTo(limiter.refillIntervalNanos);
+    }
+
+    @Test
+    public void tryAcquire_refills_lazily_as_time_passes() {
+        // given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1, 16);
+        long now = ONE_SECOND_NANOS;
+        assertThat(limiter.tryAcquire("foo", now)).isZero();
+        assertThat(limiter.tryAcquire("foo", now + 1)).isEqualTo(limiter.refillIntervalNanos - 1);
+
+        // expect
+        assertThat(limiter.tryAcquire("foo", now + limiter.refillIntervalNanos)).isZero();
+    }
+
+    @Test
+    public void tryAcquire_does_not_let_an_idle_bucket_accumulate_more_than_burstCapacity() {
+        // given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 2, 16);
+        long muchLater = ONE_SECOND_NANOS * 1000;
+
+        // expect
+        assertThat(limiter.tryAcquire("foo", muchLater)).isZero();
+        assertThat(limiter.tryAcquire("foo", muchLater)).isZero();
+        assertThat(limiter.tryAcquire("foo", muchLater)).isGreaterThan(0);
+    }
+
+    @Test
+    public void tryAcquire_keeps_separate_buckets_per_key() {
+        // given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 16);
+        long now = ONE_SECOND_NANOS;
+
+        // expect
+        assertThat(limiter.tryAcquire("foo", now)).isZero();
+        assertThat(limiter.tryAcquire("foo", now)).isGreaterThan(0);
+        assertThat(limiter.tryAcquire("bar", now)).isZero();
+        assertThat(limiter.tryAcquire(new String("foo"), now)).isGreaterThan(0);
+    }
+
+    @Test
+    public void slotFor_evicts_the_longest_idle_key_when_probe_window_is_full() {
+        // given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 8);
+        long now = ONE_SECOND_NANOS;
+        // With a capacity of 8 every key is within every other key's probe window, so 8 keys fill the table.
+        for (int i = 0; i < 8; i++) {
+            assertThat(limiter.tryAcquire(i, now + i)).isZero();
+        }
+
+        // when
+        int slot = limiter.slotFor(42);
+
+        // then
+        assertThat(limiter.keys.get(slot)).isEqualTo(42);
+        assertThat(limiter.theoreticalArrivalTimes.get(slot)).isZero();
+        for (int i = 0; i < 8; i++) {
+            boolean stillTracked = false;
+            for (int s = 0; s < limiter.getCapacity(); s++) {
+                if (Integer.valueOf(i).equals(limiter.keys.get(s)))
+                    stillTracked = true;
+            }
+            // Key 0 was used earliest, so it's the one that should have been evicted.
+            assertThat(stillTracked).isEqualTo(i != 0);
+        }
+        assertThat(limiter.tryAcquire(42, now)).isZero();
+    }
+
+    @Test
+    public void tryAcquire_without_explicit_time_uses_the_current_time() {
+        // given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 16);
+
+        // expect
+        assertThat(limiter.tryAcquire("foo")).isZero();
+        assertThat(limiter.tryAcquire("foo")).isGreaterThan(0);
+    }
+}
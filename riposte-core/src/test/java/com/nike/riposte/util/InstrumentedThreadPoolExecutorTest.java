@@ -0,0 +1,287 @@
+package com.nike.riposte.util;
+
+import com.nike.riposte.metrics.MetricsListener;
+import com.nike.riposte.server.config.ServerConfig.BoundedExecutorConfig;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException.RejectionReason;
+import com.nike.riposte.server.http.EndpointPriority;
+import com.nike.riposte.server.metrics.ExecutorTaskStats;
+import com.nike.riposte.server.metrics.ServerMetricsEvent;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link InstrumentedThreadPoolExecutor}
+ */
+public class InstrumentedThreadPoolExecutorTest {
+
+    private InstrumentedThreadPoolExecutor executor;
+    private final CountDownLatch releaseBlockingTasks = new CountDownLatch(1);
+
+    @After
+    public void afterMethod() {
+        releaseBlockingTasks.countDown();
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    private BoundedExecutorConfig config(int threads, int queueCapacity, long queueWaitTimeoutMillis) {
+        return new BoundedExecutorConfig() {
+            @Override
+            public int coreThreads() {
+                return threads;
+            }
+
+            @Override
+            public int maxThreads() {
+                return threads;
+            }
+
+            @Override
+            public int queueCapacity() {
+                return queueCapacity;
+            }
+
+            @Override
+            public long queueWaitTimeoutMillis() {
+                return queueWaitTimeoutMillis;
+            }
+        };
+    }
+
+    private void submitBlockingTask(CountDownLatch startedLatch) {
+        executor.execute(() -> {
+            if (startedLatch != null)
+                startedLatch.countDown();
+            try {
+                releaseBlockingTasks.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Test
+    public void constructor_sets_up_executor_from_config() {
+        // when
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(3, 5, 0), null);
+
+        // then
+        assertThat(executor.getExecutorName()).isEqualTo("foo-executor");
+        assertThat(executor.getCorePoolSize()).isEqualTo(3);
+        assertThat(executor.getMaximumPoolSize()).isEqualTo(3);
+        assertThat(executor.getQueue().remainingCapacity()).isEqualTo(5);
+        assertThat(executor.queueWaitTimeoutNanos).isZero();
+    }
+
+    @Test
+    public void constructor_bumps_max_threads_up_to_core_threads_if_necessary() {
+        // given
+        BoundedExecutorConfig config = new BoundedExecutorConfig() {
+            @Override
+            public int coreThreads() {
+                return 4;
+            }
+
+            @Override
+            public int maxThreads() {
+                return 2;
+            }
+        };
+
+        // when
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config, null);
+
+        // then
+        assertThat(executor.getCorePoolSize()).isEqualTo(4);
+        assertThat(executor.getMaximumPoolSize()).isEqualTo(4);
+    }
+
+    @Test
+    public void execute_emits_EXECUTOR_TASK_STARTED_event_when_task_starts() throws InterruptedException {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 5, 0), metricsListener);
+        CountDownLatch taskRan = new CountDownLatch(1);
+
+        // when
+        executor.execute(taskRan::countDown);
+
+        // then
+        assertThat(taskRan.await(5, TimeUnit.SECONDS)).isTrue();
+        ArgumentCaptor<Object> statsCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(metricsListener, timeout(5000))
+            .onEvent(eq(ServerMetricsEvent.EXECUTOR_TASK_STARTED), statsCaptor.capture());
+        ExecutorTaskStats stats = (ExecutorTaskStats) statsCaptor.getValue();
+        assertThat(stats.executorName).isEqualTo("foo-executor");
+        assertThat(stats.queueWaitNanos).isGreaterThanOrEqualTo(0);
+        assertThat(stats.queueDepth).isZero();
+        assertThat(stats.activeThreadCount).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_rejects_with_QUEUE_FULL_when_threads_are_busy_and_queue_is_full() throws InterruptedException {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 1, 0), metricsListener);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        submitBlockingTask(firstTaskStarted);
+        assertThat(firstTaskStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        submitBlockingTask(null);
+
+        // when
+        Throwable ex = catchThrowable(() -> executor.execute(() -> {}));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(ExecutorOverloadedException.class)
+            .isInstanceOf(RejectedExecutionException.class);
+        ExecutorOverloadedException eoe = (ExecutorOverloadedException) ex;
+        assertThat(eoe.executorName).isEqualTo("foo-executor");
+        assertThat(eoe.rejectionReason).isEqualTo(RejectionReason.QUEUE_FULL);
+        assertThat(eoe.queueDepth).isEqualTo(1);
+        verify(metricsListener).onEvent(ServerMetricsEvent.EXECUTOR_TASK_REJECTED, eoe);
+    }
+
+    @Test
+    public void execute_rejects_with_QUEUE_WAIT_TIMEOUT_when_oldest_queued_task_has_waited_too_long()
+        throws InterruptedException {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 10, 10), metricsListener);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        submitBlockingTask(firstTaskStarted);
+        assertThat(firstTaskStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        submitBlockingTask(null);
+        Thread.sleep(50);
+
+        // when
+        Throwable ex = catchThrowable(() -> executor.execute(() -> {}));
+
+        // then
+        assertThat(ex).isInstanceOf(ExecutorOverloadedException.class);
+        ExecutorOverloadedException eoe = (ExecutorOverloadedException) ex;
+        assertThat(eoe.rejectionReason).isEqualTo(RejectionReason.QUEUE_WAIT_TIMEOUT);
+        assertThat(eoe.queueDepth).isEqualTo(1);
+        assertThat(executor.getQueue()).hasSize(1);
+        verify(metricsListener).onEvent(ServerMetricsEvent.EXECUTOR_TASK_REJECTED, eoe);
+    }
+
+    @Test
+    public void execute_rejects_with_SHUTDOWN_when_executor_is_shut_down() {
+        // given
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 10, 0), null);
+        executor.shutdown();
+
+        // when
+        Throwable ex = catchThrowable(() -> executor.execute(() -> {}));
+
+        // then
+        assertThat(ex).isInstanceOf(ExecutorOverloadedException.class);
+        assertThat(((ExecutorOverloadedException) ex).rejectionReason).isEqualTo(RejectionReason.SHUTDOWN);
+    }
+
+    @Test
+    public void execute_still_runs_tasks_when_metrics_listener_explodes() throws InterruptedException {
+        // given
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        doThrow(new RuntimeException("intentional exception"))
+            .when(metricsListener).onEvent(any(ServerMetricsEvent.class), any());
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 10, 0), metricsListener);
+        CountDownLatch taskRan = new CountDownLatch(1);
+
+        // when
+        executor.execute(taskRan::countDown);
+
+        // then
+        assertThat(taskRan.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void queued_tasks_run_highest_priority_first_and_in_submission_order_within_a_priority()
+        throws InterruptedException {
+        // given
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 10, 0), null);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        submitBlockingTask(firstTaskStarted);
+        assertThat(firstTaskStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        List<String> runOrder = new CopyOnWriteArrayList<>();
+        CountDownLatch allTasksRan = new CountDownLatch(5);
+
+        // when
+        executor.withPriority(EndpointPriority.LOW).execute(() -> { runOrder.add("low"); allTasksRan.countDown(); });
+        executor.execute(() -> { runOrder.add("normal-1"); allTasksRan.countDown(); });
+        executor.withPriority(EndpointPriority.CRITICAL)
+                .execute(() -> { runOrder.add("critical"); allTasksRan.countDown(); });
+        executor.execute(() -> { runOrder.add("normal-2"); allTasksRan.countDown(); });
+        executor.withPriority(EndpointPriority.HIGH).execute(() -> { runOrder.add("high"); allTasksRan.countDown(); });
+        releaseBlockingTasks.countDown();
+
+        // then
+        assertThat(allTasksRan.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(runOrder).containsExactly("critical", "high", "normal-1", "normal-2", "low");
+    }
+
+    @Test
+    public void queue_is_bounded_regardless_of_priority() throws InterruptedException {
+        // given
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 2, 0), null);
+        CountDownLatch firstTaskStarted = new CountDownLatch(1);
+        submitBlockingTask(firstTaskStarted);
+        assertThat(firstTaskStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(() -> {});
+        executor.execute(() -> {});
+
+        // when
+        Throwable ex = catchThrowable(() -> executor.withPriority(EndpointPriority.CRITICAL).execute(() -> {}));
+
+        // then
+        assertThat(ex).isInstanceOf(ExecutorOverloadedException.class);
+        assertThat(((ExecutorOverloadedException) ex).rejectionReason).isEqualTo(RejectionReason.QUEUE_FULL);
+        assertThat(executor.getQueue().remainingCapacity()).isZero();
+    }
+
+    @Test
+    public void withPriority_returns_the_same_view_every_time() {
+        // given
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 10, 0), null);
+
+        // expect
+        for (EndpointPriority priority : EndpointPriority.values()) {
+            assertThat(executor.withPriority(priority)).isSameAs(executor.withPriority(priority));
+        }
+    }
+
+    @Test
+    public void prioritized_returns_priority_view_for_InstrumentedThreadPoolExecutor_and_passes_others_through() {
+        // given
+        executor = new InstrumentedThreadPoolExecutor("foo-executor", config(1, 10, 0), null);
+        Executor otherExecutor = mock(Executor.class);
+
+        // expect
+        assertThat(InstrumentedThreadPoolExecutor.prioritized(executor, EndpointPriority.HIGH))
+            .isSameAs(executor.withPriority(EndpointPriority.HIGH));
+        assertThat(InstrumentedThreadPoolExecutor.prioritized(executor, null)).isSameAs(executor);
+        assertThat(InstrumentedThreadPoolExecutor.prioritized(otherExecutor, EndpointPriority.HIGH))
+            .isSameAs(otherExecutor);
+    }
+}
@@ -0,0 +1,66 @@
+package com.nike.riposte.util;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the functionality of {@link XxHash64}
+ */
+@RunWith(DataProviderRunner.class)
+public class XxHash64Test {
+
+    @DataProvider(value = {
+        "                                           | ef46db3751d8e999",
+        "a                                          | d24ec4f1a98c6e5b",
+        "abc                                        | 44bc2cf5ad770999",
+        "Nobody inspects the spammish repetition    | fbcea83c8a378bf1"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void hash_matches_reference_xxh64_values(String input, String expectedHex) {
+        // given
+        ByteBuf buf = Unpooled.copiedBuffer(input, StandardCharsets.UTF_8);
+
+        // when
+        long result = XxHash64.hash(buf);
+
+        // then
+        assertThat(Long.toHexString(result)).isEqualTo(expectedHex);
+    }
+
+    @Test
+    public void hash_only_considers_readable_bytes_and_does_not_modify_indexes() {
+        // given
+        String payload = "Nobody inspects the spammish repetition";
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeBytes("garbage".getBytes(StandardCharsets.UTF_8));
+        buf.writeBytes(payload.getBytes(StandardCharsets.UTF_8));
+        buf.readerIndex(7);
+
+        // when
+        long result = XxHash64.hash(buf);
+
+        // then
+        assertThat(result).isEqualTo(XxHash64.hash(Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8)));
+        assertThat(buf.readerIndex()).isEqualTo(7);
+        assertThat(buf.readableBytes()).isEqualTo(payload.length());
+    }
+
+    @Test
+    public void hash_is_affected_by_seed() {
+        // given
+        ByteBuf buf = Unpooled.copiedBuffer("foo", StandardCharsets.UTF_8);
+
+        // expect
+        assertThat(XxHash64.hash(buf, 42)).isNotEqualTo(XxHash64.hash(buf, 0));
+    }
+}
@@ -4,11 +4,17 @@ import com.nike.internal.util.StringUtils;
 import com.nike.riposte.metrics.MetricsListener;
 import com.nike.riposte.metrics.codahale.impl.EndpointMetricsHandlerDefaultImpl;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException;
 import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.EndpointPriority;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
+import com.nike.riposte.server.metrics.ConcurrencyLimitStats;
+import com.nike.riposte.server.metrics.ExecutorTaskStats;
+import com.nike.riposte.server.metrics.RequestBodyMemoryBudgetStats;
 import com.nike.riposte.server.metrics.ServerMetricsEvent;
 
 import com.codahale.metrics.Counter;
@@ -18,6 +24,7 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.codahale.metrics.Timer;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -25,6 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -33,12 +42,29 @@ import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerCo
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.ENDPOINTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.MAX_REQUEST_SIZE_IN_BYTES;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMetricNames.WORKER_THREADS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.COALESCED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.COALESCING_EXECUTIONS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.COMPRESSION_OFFLOADED_BYTES;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.COMPRESSION_OFFLOAD_QUEUE_WAIT;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.CONCURRENCY_LIMIT;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.CONCURRENCY_LIMIT_INFLIGHT_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.CONCURRENCY_LIMIT_REJECTED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.CONCURRENCY_LIMIT_REJECTED_REQUESTS_BY_PRIORITY;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.EXECUTOR_QUEUE_DEPTH;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.EXECUTOR_TASKS_REJECTED;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.EXECUTOR_TASK_QUEUE_WAIT;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.FAILED_REQUESTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.INFLIGHT_REQUESTS;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.PROCESSED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.REQUESTS_BY_PRIORITY;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.REQUEST_BODY_MEMORY_BUDGET;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.REQUEST_BODY_MEMORY_BUDGET_PAUSED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.REQUEST_BODY_MEMORY_BUDGET_REJECTED_REQUESTS;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.REQUEST_BODY_MEMORY_BUDGET_RESERVED_BYTES;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.REQUEST_SIZES;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_SIZES;
 import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.RESPONSE_WRITE_FAILED;
+import static com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames.SHED_REQUESTS;
 
 /**
  * Codahale-based {@link MetricsListener}. <b>Two things must occur during app startup for this class to be fully
@@ -76,8 +102,17 @@ public class CodahaleMetricsListener implements MetricsListener {
     protected Counter processedRequests;
     protected Counter failedRequests;
     protected Counter responseWriteFailed;
+    protected Counter coalescingExecutions;
+    protected Counter coalescedRequests;
+    protected Counter compressionOffloadedBytes;
+    protected Timer compressionOffloadQueueWait;
     protected Histogram responseSizes;
     protected Histogram requestSizes;
+    // The concurrency limiter's stats, if one has reported in. Gauges for it are registered the first time it does.
+    protected final AtomicReference<ConcurrencyLimitStats> concurrencyLimitStats = new AtomicReference<>();
+    // Same for the request body memory budget.
+    protected final AtomicReference<RequestBodyMemoryBudgetStats> requestBodyMemoryBudgetStats =
+        new AtomicReference<>();
 
     // Endpoint related metrics are handled by a EndpointMetricsHandler impl.
     protected final EndpointMetricsHandler endpointMetricsHandler;
@@ -202,6 +237,18 @@ public class CodahaleMetricsListener implements MetricsListener {
         this.responseWriteFailed = metricsCollector.getNamedCounter(
             serverStatsMetricNamingStrategy.nameFor(RESPONSE_WRITE_FAILED)
         );
+        this.coalescingExecutions = metricsCollector.getNamedCounter(
+            serverStatsMetricNamingStrategy.nameFor(COALESCING_EXECUTIONS)
+        );
+        this.coalescedRequests = metricsCollector.getNamedCounter(
+            serverStatsMetricNamingStrategy.nameFor(COALESCED_REQUESTS)
+        );
+        this.compressionOffloadedBytes = metricsCollector.getNamedCounter(
+            serverStatsMetricNamingStrategy.nameFor(COMPRESSION_OFFLOADED_BYTES)
+        );
+        this.compressionOffloadQueueWait = metricsCollector.getNamedTimer(
+            serverStatsMetricNamingStrategy.nameFor(COMPRESSION_OFFLOAD_QUEUE_WAIT)
+        );
 
         this.responseSizes = metricsCollector.registerNamedMetric(
             serverStatsMetricNamingStrategy.nameFor(RESPONSE_SIZES),
@@ -317,6 +364,13 @@ public class CodahaleMetricsListener implements MetricsListener {
                     requestElapsedTimeMillis
                 );
 
+                Endpoint<?> endpoint = httpState.getEndpointForExecution();
+                EndpointPriority priority = (endpoint == null) ? null : endpoint.priority();
+                if (priority != null) {
+                    metricsCollector.getNamedTimer(priorityMetricName(REQUESTS_BY_PRIORITY, priority))
+                                    .update(requestElapsedTimeMillis, TimeUnit.MILLISECONDS);
+                }
+
                 // If the http response status is greater than or equal to 400 then it should be marked as a
                 //      failed request.
                 if (responseHttpStatusCodeXXValue >= 4) {
@@ -329,6 +383,88 @@ public class CodahaleMetricsListener implements MetricsListener {
                 responseSizes
                     .update(responseInfo.getFinalContentLength() == null ? 0 : responseInfo.getFinalContentLength());
             }
+            else if (ServerMetricsEvent.REQUEST_COALESCING_EXECUTION.equals(event)) {
+                coalescingExecutions.inc();
+            }
+            else if (ServerMetricsEvent.REQUEST_COALESCED.equals(event)) {
+                coalescedRequests.inc();
+            }
+            else if (ServerMetricsEvent.RESPONSE_COMPRESSION_OFFLOADED.equals(event)) {
+                if (value instanceof Long) {
+                    compressionOffloadedBytes.inc((Long) value);
+                }
+                else {
+                    logger.error("Metrics Error: value is not a Long");
+                }
+            }
+            else if (ServerMetricsEvent.RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT.equals(event)) {
+                if (value instanceof Long) {
+                    compressionOffloadQueueWait.update((Long) value, TimeUnit.NANOSECONDS);
+                }
+                else {
+                    logger.error("Metrics Error: value is not a Long");
+                }
+            }
+            else if (ServerMetricsEvent.EXECUTOR_TASK_STARTED.equals(event)) {
+                if (value instanceof ExecutorTaskStats) {
+                    ExecutorTaskStats stats = (ExecutorTaskStats) value;
+                    metricsCollector.getNamedTimer(executorMetricName(EXECUTOR_TASK_QUEUE_WAIT, stats.executorName))
+                                    .update(stats.queueWaitNanos, TimeUnit.NANOSECONDS);
+                    metricsCollector.getNamedHistogram(executorMetricName(EXECUTOR_QUEUE_DEPTH, stats.executorName))
+                                    .update(stats.queueDepth);
+                }
+                else {
+                    logger.error("Metrics Error: value is not an ExecutorTaskStats");
+                }
+            }
+            else if (ServerMetricsEvent.EXECUTOR_TASK_REJECTED.equals(event)) {
+                if (value instanceof ExecutorOverloadedException) {
+                    ExecutorOverloadedException ex = (ExecutorOverloadedException) value;
+                    metricsCollector.getNamedCounter(executorMetricName(EXECUTOR_TASKS_REJECTED, ex.executorName))
+                                    .inc();
+                }
+                else {
+                    logger.error("Metrics Error: value is not an ExecutorOverloadedException");
+                }
+            }
+            else if (ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED.equals(event)) {
+                if (value instanceof ConcurrencyLimitStats) {
+                    registerConcurrencyLimitGaugesIfNecessary((ConcurrencyLimitStats) value);
+                }
+                else {
+                    logger.error("Metrics Error: value is not a ConcurrencyLimitStats");
+                }
+            }
+            else if (ServerMetricsEvent.CONCURRENCY_LIMIT_REJECTED.equals(event)) {
+                metricsCollector.getNamedCounter(
+                    serverStatsMetricNamingStrategy.nameFor(CONCURRENCY_LIMIT_REJECTED_REQUESTS)
+                ).inc();
+
+                if (value instanceof ConcurrencyLimitExceededException
+                    && ((ConcurrencyLimitExceededException) value).priority != null) {
+                    EndpointPriority priority = ((ConcurrencyLimitExceededException) value).priority;
+                    metricsCollector.getNamedCounter(
+                        priorityMetricName(CONCURRENCY_LIMIT_REJECTED_REQUESTS_BY_PRIORITY, priority)
+                    ).inc();
+                }
+            }
+            else if (ServerMetricsEvent.REQUEST_SHED.equals(event)) {
+                if (value instanceof Long) {
+                    metricsCollector.getNamedTimer(serverStatsMetricNamingStrategy.nameFor(SHED_REQUESTS))
+                                    .update((Long) value, TimeUnit.NANOSECONDS);
+                }
+                else {
+                    logger.error("Metrics Error: value is not a Long");
+                }
+            }
+            else if (ServerMetricsEvent.REQUEST_BODY_MEMORY_BUDGET_CREATED.equals(event)) {
+                if (value instanceof RequestBodyMemoryBudgetStats) {
+                    registerRequestBodyMemoryBudgetGaugesIfNecessary((RequestBodyMemoryBudgetStats) value);
+                }
+                else {
+                    logger.error("Metrics Error: value is not a RequestBodyMemoryBudgetStats");
+                }
+            }
             else {
                 logger.error("Metrics Error: unknown metrics event " + event);
             }
@@ -338,6 +474,64 @@ public class CodahaleMetricsListener implements MetricsListener {
         }
     }
 
+    /**
+     * Executor metrics are tracked per executor, so their names are the {@link #serverStatsMetricNamingStrategy} name
+     * with the executor name appended. The metrics are created lazily the first time a given executor reports in.
+     */
+    protected String executorMetricName(ServerStatisticsMetricNames metricNameEnum, String executorName) {
+        return name(serverStatsMetricNamingStrategy.nameFor(metricNameEnum), executorName);
+    }
+
+    protected String priorityMetricName(ServerStatisticsMetricNames metricNameEnum, EndpointPriority priority) {
+        return name(serverStatsMetricNamingStrategy.nameFor(metricNameEnum), priority.name().toLowerCase());
+    }
+
+    /**
+     * Registers gauges for the concurrency limit and its in-flight request count the first time the concurrency
+     * limiter reports in. The gauges always read from the most recently reported {@link ConcurrencyLimitStats}.
+     */
+    protected void registerConcurrencyLimitGaugesIfNecessary(ConcurrencyLimitStats stats) {
+        if (concurrencyLimitStats.getAndSet(stats) != null)
+            return;
+
+        metricsCollector.registerNamedMetric(serverStatsMetricNamingStrategy.nameFor(CONCURRENCY_LIMIT),
+                                             (Gauge<Integer>)() -> concurrencyLimitStats.get().getLimit());
+
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(CONCURRENCY_LIMIT_INFLIGHT_REQUESTS),
+            (Gauge<Integer>)() -> concurrencyLimitStats.get().getInFlight()
+        );
+    }
+
+    /**
+     * Registers gauges for the request body memory budget the first time it reports in. The gauges always read from
+     * the most recently reported {@link RequestBodyMemoryBudgetStats}.
+     */
+    protected void registerRequestBodyMemoryBudgetGaugesIfNecessary(RequestBodyMemoryBudgetStats stats) {
+        if (requestBodyMemoryBudgetStats.getAndSet(stats) != null)
+            return;
+
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(REQUEST_BODY_MEMORY_BUDGET),
+            (Gauge<Long>)() -> requestBodyMemoryBudgetStats.get().getMaxBytes()
+        );
+
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(REQUEST_BODY_MEMORY_BUDGET_RESERVED_BYTES),
+            (Gauge<Long>)() -> requestBodyMemoryBudgetStats.get().getReservedBytes()
+        );
+
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(REQUEST_BODY_MEMORY_BUDGET_PAUSED_REQUESTS),
+            (Gauge<Integer>)() -> requestBodyMemoryBudgetStats.get().getPausedRequests()
+        );
+
+        metricsCollector.registerNamedMetric(
+            serverStatsMetricNamingStrategy.nameFor(REQUEST_BODY_MEMORY_BUDGET_REJECTED_REQUESTS),
+            (Gauge<Long>)() -> requestBodyMemoryBudgetStats.get().getRejectedCount()
+        );
+    }
+
     public Counter getInflightRequests() {
         return inflightRequests;
     }
@@ -354,6 +548,22 @@ public class CodahaleMetricsListener implements MetricsListener {
         return responseWriteFailed;
     }
 
+    public Counter getCoalescingExecutions() {
+        return coalescingExecutions;
+    }
+
+    public Counter getCoalescedRequests() {
+        return coalescedRequests;
+    }
+
+    public Counter getCompressionOffloadedBytes() {
+        return compressionOffloadedBytes;
+    }
+
+    public Timer getCompressionOffloadQueueWait() {
+        return compressionOffloadQueueWait;
+    }
+
     public Histogram getResponseSizes() {
         return responseSizes;
     }
@@ -379,6 +589,23 @@ public class CodahaleMetricsListener implements MetricsListener {
         PROCESSED_REQUESTS,
         FAILED_REQUESTS,
         RESPONSE_WRITE_FAILED,
+        COALESCING_EXECUTIONS,
+        COALESCED_REQUESTS,
+        COMPRESSION_OFFLOADED_BYTES,
+        COMPRESSION_OFFLOAD_QUEUE_WAIT,
+        EXECUTOR_TASK_QUEUE_WAIT,
+        EXECUTOR_QUEUE_DEPTH,
+        EXECUTOR_TASKS_REJECTED,
+        CONCURRENCY_LIMIT,
+        CONCURRENCY_LIMIT_INFLIGHT_REQUESTS,
+        CONCURRENCY_LIMIT_REJECTED_REQUESTS,
+        CONCURRENCY_LIMIT_REJECTED_REQUESTS_BY_PRIORITY,
+        REQUESTS_BY_PRIORITY,
+        SHED_REQUESTS,
+        REQUEST_BODY_MEMORY_BUDGET,
+        REQUEST_BODY_MEMORY_BUDGET_RESERVED_BYTES,
+        REQUEST_BODY_MEMORY_BUDGET_PAUSED_REQUESTS,
+        REQUEST_BODY_MEMORY_BUDGET_REJECTED_REQUESTS,
         REQUEST_SIZES,
         RESPONSE_SIZES
     }
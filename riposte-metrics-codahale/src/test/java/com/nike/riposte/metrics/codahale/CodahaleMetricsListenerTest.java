@@ -7,12 +7,19 @@ import com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerConfigMet
 import com.nike.riposte.metrics.codahale.CodahaleMetricsListener.ServerStatisticsMetricNames;
 import com.nike.riposte.metrics.codahale.impl.EndpointMetricsHandlerDefaultImpl;
 import com.nike.riposte.server.config.ServerConfig;
+import com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException.RejectionReason;
 import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.EndpointPriority;
 import com.nike.riposte.server.http.HttpProcessingState;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.ResponseSender;
 import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.server.metrics.ConcurrencyLimitStats;
+import com.nike.riposte.server.metrics.ExecutorTaskStats;
+import com.nike.riposte.server.metrics.RequestBodyMemoryBudgetStats;
 import com.nike.riposte.server.metrics.ServerMetricsEvent;
 import com.nike.riposte.util.Matcher;
 
@@ -214,6 +221,10 @@ public class CodahaleMetricsListenerTest {
             invocation -> metricRegistryMock.counter(invocation.getArgument(0))
         ).when(cmcMock).getNamedCounter(anyString());
 
+        doAnswer(
+            invocation -> metricRegistryMock.timer(invocation.getArgument(0))
+        ).when(cmcMock).getNamedTimer(anyString());
+
         doAnswer(
             invocation -> metricRegistryMock.meter(invocation.getArgument(0))
         ).when(cmcMock).getNamedMeter(anyString());
@@ -347,6 +358,28 @@ public class CodahaleMetricsListenerTest {
         verify(metricRegistryMock).counter(name(prefix, "response_write_failed"));
         assertThat(instance.responseWriteFailed).isSameAs(registeredCounterMocks.get(name(prefix, "response_write_failed")));
 
+        assertThat(instance.getCoalescingExecutions()).isSameAs(instance.coalescingExecutions);
+        verify(cmcMock).getNamedCounter(name(prefix, "coalescing_executions"));
+        verify(metricRegistryMock).counter(name(prefix, "coalescing_executions"));
+        assertThat(instance.coalescingExecutions).isSameAs(registeredCounterMocks.get(name(prefix, "coalescing_executions")));
+
+        assertThat(instance.getCoalescedRequests()).isSameAs(instance.coalescedRequests);
+        verify(cmcMock).getNamedCounter(name(prefix, "coalesced_requests"));
+        verify(metricRegistryMock).counter(name(prefix, "coalesced_requests"));
+        assertThat(instance.coalescedRequests).isSameAs(registeredCounterMocks.get(name(prefix, "coalesced_requests")));
+
+        assertThat(instance.getCompressionOffloadedBytes()).isSameAs(instance.compressionOffloadedBytes);
+        verify(cmcMock).getNamedCounter(name(prefix, "compression_offloaded_bytes"));
+        verify(metricRegistryMock).counter(name(prefix, "compression_offloaded_bytes"));
+        assertThat(instance.compressionOffloadedBytes)
+            .isSameAs(registeredCounterMocks.get(name(prefix, "compression_offloaded_bytes")));
+
+        assertThat(instance.getCompressionOffloadQueueWait()).isSameAs(instance.compressionOffloadQueueWait);
+        verify(cmcMock).getNamedTimer(name(prefix, "compression_offload_queue_wait"));
+        verify(metricRegistryMock).timer(name(prefix, "compression_offload_queue_wait"));
+        assertThat(instance.compressionOffloadQueueWait)
+            .isSameAs(registeredTimerMocks.get(name(prefix, "compression_offload_queue_wait")));
+
         assertThat(instance.getResponseSizes()).isSameAs(instance.responseSizes);
         verify(metricRegistryMock).register(name(prefix, "response_sizes"), instance.responseSizes);
         assertThat(instance.responseSizes).isSameAs(registeredHistogramMocks.get(name(prefix, "response_sizes")));
@@ -476,6 +509,246 @@ public class CodahaleMetricsListenerTest {
         verify(listener.responseWriteFailed).inc();
     }
 
+    @Test
+    public void onEvent_works_as_expected_for_REQUEST_COALESCING_EXECUTION() {
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_COALESCING_EXECUTION, null);
+
+        // then
+        verify(listener.coalescingExecutions).inc();
+        verifyNoInteractions(listener.coalescedRequests, listener.inflightRequests, listener.processedRequests);
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_REQUEST_COALESCED() {
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_COALESCED, null);
+
+        // then
+        verify(listener.coalescedRequests).inc();
+        verifyNoInteractions(listener.coalescingExecutions, listener.inflightRequests, listener.processedRequests);
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_RESPONSE_COMPRESSION_OFFLOADED() {
+        // when
+        listener.onEvent(ServerMetricsEvent.RESPONSE_COMPRESSION_OFFLOADED, 4242L);
+
+        // then
+        verify(listener.compressionOffloadedBytes).inc(4242L);
+        verifyNoInteractions(listener.compressionOffloadQueueWait, listener.inflightRequests);
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT() {
+        // when
+        listener.onEvent(ServerMetricsEvent.RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT, 4242L);
+
+        // then
+        verify(listener.compressionOffloadQueueWait).update(4242L, TimeUnit.NANOSECONDS);
+        verifyNoInteractions(listener.compressionOffloadedBytes, listener.inflightRequests);
+    }
+
+    @DataProvider(value = {
+        "RESPONSE_COMPRESSION_OFFLOADED",
+        "RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT"
+    })
+    @Test
+    public void onEvent_does_nothing_for_compression_offload_events_with_non_Long_value(ServerMetricsEvent event) {
+        // when
+        listener.onEvent(event, "not-a-long");
+
+        // then
+        verifyNoInteractions(listener.compressionOffloadedBytes, listener.compressionOffloadQueueWait);
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_EXECUTOR_TASK_STARTED() {
+        // given
+        String prefix = DEFAULT_PREFIX;
+        ExecutorTaskStats stats = new ExecutorTaskStats("some-executor", 4242L, 7, 3);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.EXECUTOR_TASK_STARTED, stats);
+
+        // then
+        String expectedTimerName = name(prefix, "executor_task_queue_wait", "some-executor");
+        String expectedHistogramName = name(prefix, "executor_queue_depth", "some-executor");
+        verify(cmcMock).getNamedTimer(expectedTimerName);
+        verify(cmcMock).getNamedHistogram(expectedHistogramName);
+        verify(registeredTimerMocks.get(expectedTimerName)).update(4242L, TimeUnit.NANOSECONDS);
+        verify(registeredHistogramMocks.get(expectedHistogramName)).update(7);
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_EXECUTOR_TASK_REJECTED() {
+        // given
+        String prefix = DEFAULT_PREFIX;
+        ExecutorOverloadedException ex = new ExecutorOverloadedException(
+            "some-executor", RejectionReason.QUEUE_FULL, 42
+        );
+
+        // when
+        listener.onEvent(ServerMetricsEvent.EXECUTOR_TASK_REJECTED, ex);
+
+        // then
+        String expectedCounterName = name(prefix, "executor_tasks_rejected", "some-executor");
+        verify(cmcMock).getNamedCounter(expectedCounterName);
+        verify(registeredCounterMocks.get(expectedCounterName)).inc();
+    }
+
+    @DataProvider(value = {
+        "EXECUTOR_TASK_STARTED",
+        "EXECUTOR_TASK_REJECTED"
+    })
+    @Test
+    public void onEvent_does_nothing_for_executor_events_with_unexpected_value_type(ServerMetricsEvent event) {
+        // given
+        Map<String, Counter> countersBefore = new HashMap<>(registeredCounterMocks);
+        Map<String, Timer> timersBefore = new HashMap<>(registeredTimerMocks);
+        Map<String, Histogram> histogramsBefore = new HashMap<>(registeredHistogramMocks);
+
+        // when
+        listener.onEvent(event, "not-the-right-type");
+
+        // then
+        assertThat(registeredCounterMocks).isEqualTo(countersBefore);
+        assertThat(registeredTimerMocks).isEqualTo(timersBefore);
+        assertThat(registeredHistogramMocks).isEqualTo(histogramsBefore);
+    }
+
+    @Test
+    public void onEvent_registers_concurrency_limit_gauges_once_for_CONCURRENCY_LIMIT_CHANGED() {
+        // given
+        String prefix = DEFAULT_PREFIX;
+        ConcurrencyLimitStats firstStats = mock(ConcurrencyLimitStats.class);
+        doReturn(42).when(firstStats).getLimit();
+        ConcurrencyLimitStats secondStats = mock(ConcurrencyLimitStats.class);
+        doReturn(24).when(secondStats).getLimit();
+        doReturn(7).when(secondStats).getInFlight();
+
+        // when
+        listener.onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, firstStats);
+
+        // then
+        Gauge<Integer> limitGauge = registeredGauges.get(name(prefix, "concurrency_limit"));
+        Gauge<Integer> inflightGauge = registeredGauges.get(name(prefix, "concurrency_limit_inflight_requests"));
+        assertThat(limitGauge.getValue()).isEqualTo(42);
+
+        // and when
+        listener.onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, secondStats);
+
+        // then
+        verify(cmcMock).registerNamedMetric(eq(name(prefix, "concurrency_limit")), any(Gauge.class));
+        assertThat(limitGauge.getValue()).isEqualTo(24);
+        assertThat(inflightGauge.getValue()).isEqualTo(7);
+    }
+
+    @Test
+    public void onEvent_registers_request_body_memory_budget_gauges_once_for_REQUEST_BODY_MEMORY_BUDGET_CREATED() {
+        // given
+        String prefix = DEFAULT_PREFIX;
+        RequestBodyMemoryBudgetStats firstStats = mock(RequestBodyMemoryBudgetStats.class);
+        doReturn(1000L).when(firstStats).getMaxBytes();
+        RequestBodyMemoryBudgetStats secondStats = mock(RequestBodyMemoryBudgetStats.class);
+        doReturn(2000L).when(secondStats).getMaxBytes();
+        doReturn(1500L).when(secondStats).getReservedBytes();
+        doReturn(3).when(secondStats).getPausedRequests();
+        doReturn(5L).when(secondStats).getRejectedCount();
+
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_BODY_MEMORY_BUDGET_CREATED, firstStats);
+
+        // then
+        Gauge<Long> budgetGauge = registeredGauges.get(name(prefix, "request_body_memory_budget"));
+        Gauge<Long> reservedGauge = registeredGauges.get(name(prefix, "request_body_memory_budget_reserved_bytes"));
+        Gauge<Integer> pausedGauge = registeredGauges.get(name(prefix, "request_body_memory_budget_paused_requests"));
+        Gauge<Long> rejectedGauge = registeredGauges.get(name(prefix, "request_body_memory_budget_rejected_requests"));
+        assertThat(budgetGauge.getValue()).isEqualTo(1000L);
+
+        // and when
+        listener.onEvent(ServerMetricsEvent.REQUEST_BODY_MEMORY_BUDGET_CREATED, secondStats);
+
+        // then
+        verify(cmcMock).registerNamedMetric(eq(name(prefix, "request_body_memory_budget")), any(Gauge.class));
+        assertThat(budgetGauge.getValue()).isEqualTo(2000L);
+        assertThat(reservedGauge.getValue()).isEqualTo(1500L);
+        assertThat(pausedGauge.getValue()).isEqualTo(3);
+        assertThat(rejectedGauge.getValue()).isEqualTo(5L);
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_CONCURRENCY_LIMIT_REJECTED() {
+        // given
+        String prefix = DEFAULT_PREFIX;
+
+        // when
+        listener.onEvent(
+            ServerMetricsEvent.CONCURRENCY_LIMIT_REJECTED, new ConcurrencyLimitExceededException(42, 42, null)
+        );
+
+        // then
+        String expectedCounterName = name(prefix, "concurrency_limit_rejected_requests");
+        verify(cmcMock).getNamedCounter(expectedCounterName);
+        verify(registeredCounterMocks.get(expectedCounterName)).inc();
+    }
+
+    @Test
+    public void onEvent_counts_CONCURRENCY_LIMIT_REJECTED_by_priority_when_priority_is_known() {
+        // given
+        String prefix = DEFAULT_PREFIX;
+
+        // when
+        listener.onEvent(
+            ServerMetricsEvent.CONCURRENCY_LIMIT_REJECTED,
+            new ConcurrencyLimitExceededException(42, 42, null, EndpointPriority.LOW)
+        );
+
+        // then
+        String expectedCounterName = name(prefix, "concurrency_limit_rejected_requests_by_priority", "low");
+        verify(cmcMock).getNamedCounter(expectedCounterName);
+        verify(registeredCounterMocks.get(expectedCounterName)).inc();
+        verify(registeredCounterMocks.get(name(prefix, "concurrency_limit_rejected_requests"))).inc();
+    }
+
+    @Test
+    public void onEvent_does_nothing_for_CONCURRENCY_LIMIT_CHANGED_with_non_ConcurrencyLimitStats_value() {
+        // given
+        Map<String, Gauge> gaugesBefore = new HashMap<>(registeredGauges);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.CONCURRENCY_LIMIT_CHANGED, "not-the-right-type");
+
+        // then
+        assertThat(registeredGauges).isEqualTo(gaugesBefore);
+    }
+
+    @Test
+    public void onEvent_works_as_expected_for_REQUEST_SHED() {
+        // given
+        String prefix = DEFAULT_PREFIX;
+
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_SHED, 4242L);
+
+        // then
+        String expectedTimerName = name(prefix, "shed_requests");
+        verify(cmcMock).getNamedTimer(expectedTimerName);
+        verify(registeredTimerMocks.get(expectedTimerName)).update(4242L, TimeUnit.NANOSECONDS);
+    }
+
+    @Test
+    public void onEvent_does_nothing_for_REQUEST_SHED_with_non_Long_value() {
+        // given
+        Map<String, Timer> timersBefore = new HashMap<>(registeredTimerMocks);
+
+        // when
+        listener.onEvent(ServerMetricsEvent.REQUEST_SHED, "not-the-right-type");
+
+        // then
+        assertThat(registeredTimerMocks).isEqualTo(timersBefore);
+    }
+
     @DataProvider(value = {
         "GET    |   99",
         "GET    |   142",
@@ -594,6 +867,11 @@ public class CodahaleMetricsListenerTest {
         );
         long expectedElapsedTimeNanos = state.getResponseEndTimeNanos() - state.getRequestStartTimeNanos();
         assertThat(elapsedTimeMillisArgCaptor.getValue()).isEqualTo(NANOSECONDS.toMillis(expectedElapsedTimeNanos));
+
+        // The per-priority latency timer should have been updated
+        String expectedPriorityTimerName = name(DEFAULT_PREFIX, "requests_by_priority", "normal");
+        verify(registeredTimerMocks.get(expectedPriorityTimerName))
+            .update(elapsedTimeMillisArgCaptor.getValue(), TimeUnit.MILLISECONDS);
     }
 
     @DataProvider(value = {
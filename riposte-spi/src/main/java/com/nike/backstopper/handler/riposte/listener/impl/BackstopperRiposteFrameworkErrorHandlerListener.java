@@ -13,8 +13,10 @@ import com.nike.fastbreak.exception.CircuitBreakerOpenException;
 import com.nike.fastbreak.exception.CircuitBreakerTimeoutException;
 import com.nike.internal.util.Pair;
 import com.nike.internal.util.StringUtils;
+import com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException;
 import com.nike.riposte.server.error.exception.Forbidden403Exception;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
 import com.nike.riposte.server.error.exception.IncompleteHttpCallTimeoutException;
@@ -27,7 +29,9 @@ import com.nike.riposte.server.error.exception.NativeIoExceptionWrapper;
 import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut;
 import com.nike.riposte.server.error.exception.PathNotFound404Exception;
 import com.nike.riposte.server.error.exception.PathParameterMatchingException;
+import com.nike.riposte.server.error.exception.RequestBodyMemoryBudgetExceededException;
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
+import com.nike.riposte.server.error.exception.RequestDeadlineExceededException;
 import com.nike.riposte.server.error.exception.RequestTooBigException;
 import com.nike.riposte.server.error.exception.TooManyOpenChannelsException;
 import com.nike.riposte.server.error.exception.Unauthorized401Exception;
@@ -303,6 +307,53 @@ public class BackstopperRiposteFrameworkErrorHandlerListener implements ApiExcep
             );
         }
 
+        if (ex instanceof ExecutorOverloadedException) {
+            ExecutorOverloadedException theEx = (ExecutorOverloadedException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("overloaded_executor_name", theEx.executorName),
+                    Pair.of("executor_rejection_reason", theEx.rejectionReason.name()),
+                    Pair.of("executor_queue_depth", String.valueOf(theEx.queueDepth))
+                )
+            );
+        }
+
+        if (ex instanceof ConcurrencyLimitExceededException) {
+            ConcurrencyLimitExceededException theEx = (ConcurrencyLimitExceededException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("concurrency_limit", String.valueOf(theEx.concurrencyLimit)),
+                    Pair.of("inflight_requests", String.valueOf(theEx.inFlightRequests)),
+                    Pair.of("concurrency_limit_partition", String.valueOf(theEx.partition))
+                )
+            );
+        }
+
+        if (ex instanceof RequestDeadlineExceededException) {
+            RequestDeadlineExceededException theEx = (RequestDeadlineExceededException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("deadline_budget_millis", String.valueOf(theEx.deadlineBudgetMillis)),
+                    Pair.of("deadline_overrun_millis", String.valueOf(theEx.overrunMillis))
+                )
+            );
+        }
+
+        if (ex instanceof RequestBodyMemoryBudgetExceededException) {
+            RequestBodyMemoryBudgetExceededException theEx = (RequestBodyMemoryBudgetExceededException) ex;
+            return ApiExceptionHandlerListenerResult.handleResponse(
+                singletonError(projectApiErrors.getTemporaryServiceProblemApiError()),
+                Arrays.asList(
+                    Pair.of("request_body_memory_budget_bytes", String.valueOf(theEx.budgetBytes)),
+                    Pair.of("request_body_memory_reserved_bytes", String.valueOf(theEx.reservedBytes)),
+                    Pair.of("request_body_memory_waited_millis", String.valueOf(theEx.waitedMillis))
+                )
+            );
+        }
+
         if (ex instanceof IncompleteHttpCallTimeoutException) {
             IncompleteHttpCallTimeoutException theEx = (IncompleteHttpCallTimeoutException)ex;
             return ApiExceptionHandlerListenerResult.handleResponse(
@@ -18,8 +18,11 @@ import com.nike.riposte.server.hooks.PipelineCreateHook;
 import com.nike.riposte.server.hooks.PostServerStartupHook;
 import com.nike.riposte.server.hooks.PreServerStartupHook;
 import com.nike.riposte.server.hooks.ServerShutdownHook;
+import com.nike.riposte.server.http.ContentCodec;
 import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.EndpointPriority;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseContentEncoder;
 import com.nike.riposte.server.http.filter.RequestAndResponseFilter;
 import com.nike.riposte.server.logging.AccessLogger;
 
@@ -28,9 +31,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.file.Path;
 import java.security.cert.CertificateException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -217,6 +224,36 @@ public interface ServerConfig {
         return null;
     }
 
+    /**
+     * @return The {@link ContentCodec}s (e.g. {@link ContentCodec#smile(ObjectMapper)} or {@link
+     * ContentCodec#cbor(ObjectMapper)}) the server can use for request and response content in addition to JSON, or
+     * null if only JSON should be used. Request content is deserialized with the codec that matches the request's
+     * Content-Type header, and response content is serialized with the codec the request's Accept header prefers over
+     * JSON (responses that have to be serialized also get a {@code Vary: Accept} header). Codecs take precedence over
+     * {@link Endpoint#customRequestContentDeserializer(RequestInfo)} when the Content-Type matches them, since a JSON
+     * mapper can't read another format anyway, but responses for endpoints with a {@link
+     * Endpoint#customResponseContentSerializer(RequestInfo)} are always serialized with that serializer. If you
+     * register a {@code com.nike.riposte.server.http.cache.ResponseCachingFilter} then give it these same codecs,
+     * since it serializes the responses it caches itself. Defaults to null.
+     */
+    default @Nullable List<@NotNull ContentCodec> contentCodecs() {
+        return null;
+    }
+
+    /**
+     * @return true if the server should automatically add an ETag header to successful (200) full responses for GET
+     * and HEAD requests, and short circuit with a 304 Not Modified (and no payload) when the request's {@code
+     * If-None-Match} header matches it. The ETag is taken from the response's ETag header if the endpoint already set
+     * one, otherwise from {@link Endpoint#responseETagVersionKey(RequestInfo)} if the endpoint supports it (which
+     * avoids serializing the response at all for 304s), otherwise it is generated by hashing the serialized response
+     * bytes. Generated ETags are strong unless the request has an {@code Accept-Encoding} header and the response
+     * doesn't prevent compression, in which case they're weak since the response may be compressed after the ETag is
+     * calculated. Defaults to false.
+     */
+    default boolean isAutomaticETagHandlingEnabled() {
+        return false;
+    }
+
     /**
      * @return true if the server should enable some debugging features, false if those debug features should be hidden.
      * This is usually just for some extra debug logging, but it could result in a significant amount of log spam so it
@@ -393,6 +430,79 @@ public interface ServerConfig {
         return 20000;
     }
 
+    /**
+     * @return The {@link ConcurrencyLimitConfig} describing an adaptive limit on the number of requests the server will
+     * process concurrently, or null to disable concurrency limiting. Defaults to null. Unlike {@link
+     * #maxOpenIncomingServerChannels()}, which only limits connections, this limits in-flight requests no matter how
+     * many keep-alive connections they arrive on. The limit is adjusted continuously based on observed request
+     * latency, and requests that arrive when the server is at its limit are rejected with a 503 before any security
+     * validation or endpoint work is done for them. See {@link ConcurrencyLimitConfig} for details.
+     */
+    default @Nullable ConcurrencyLimitConfig concurrencyLimitConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link LoadSheddingConfig} describing when requests should be shed because they've spent too long
+     * waiting to be processed, or null to disable load shedding. Defaults to null. When the worker event loops fall
+     * behind, requests sit in Netty's task queues and socket buffers long enough that the caller may have already
+     * given up on them by the time Riposte gets to them. Load shedding measures how far behind each event loop is and
+     * immediately responds with a cheap 503 to requests that have been waiting too long while the server is
+     * overloaded, rather than doing work whose answer nobody will read. See {@link LoadSheddingConfig} for details.
+     */
+    default @Nullable LoadSheddingConfig loadSheddingConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link RequestDeadlineConfig} describing how callers' deadlines are read from incoming requests and
+     * propagated to downstream calls, or null to disable deadline support. Defaults to null. When enabled, a request
+     * that arrives with a deadline header has its endpoint timeout (see {@link
+     * #defaultCompletableFutureTimeoutInMillisForNonblockingEndpoints()}) clamped to the caller's remaining budget, the
+     * remaining budget is forwarded on downstream calls, and a request whose deadline has already passed fails fast
+     * with a 503 before its endpoint runs. See {@link RequestDeadlineConfig} for details.
+     */
+    default @Nullable RequestDeadlineConfig requestDeadlineConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link RequestContentSpillConfig} describing when large request payloads should be spilled from
+     * memory to a temp file, or null to keep all payloads in memory. Defaults to null. Payloads are normally held as
+     * direct-memory chunks until the request completes, so a burst of large uploads can use up the process's direct
+     * memory. When enabled, the payload of any request that grows past {@link
+     * RequestContentSpillConfig#inMemoryThresholdBytes()} is written to a temp file instead, and read back when the
+     * endpoint asks for the content. The endpoint API is unchanged. See {@link RequestContentSpillConfig} for details.
+     */
+    default @Nullable RequestContentSpillConfig requestContentSpillConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link StreamingMultipartConfig} describing how multipart request payloads should be decoded as they
+     * arrive, or null to decode multipart payloads only after the whole payload has been buffered in memory. Defaults
+     * to null. When enabled, each chunk of a multipart payload is fed into the multipart decoder as soon as it arrives
+     * and then released, and any part larger than {@link StreamingMultipartConfig#minSizeForDiskBytes()} is written to
+     * a temp file by the decoder. A large upload is therefore never held in memory, let alone held twice (once as raw
+     * chunks and again as decoded parts). See {@link StreamingMultipartConfig} for details.
+     */
+    default @Nullable StreamingMultipartConfig streamingMultipartConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link RequestBodyMemoryBudgetConfig} describing the server-wide budget for request payload bytes
+     * buffered in memory, or null to disable the budget. Defaults to null. {@link #maxRequestSizeInBytes()} only limits
+     * the size of a single request, so without a budget enough concurrent large uploads can still use up the
+     * process's direct memory. When enabled, every payload chunk buffered for an endpoint is counted against the
+     * budget until the request's resources are released. While the budget is used up, reading from callers that are
+     * still sending payloads is paused, and a request that stays paused for too long fails with a 503. See {@link
+     * RequestBodyMemoryBudgetConfig} for details.
+     */
+    default @Nullable RequestBodyMemoryBudgetConfig requestBodyMemoryBudgetConfig() {
+        return null;
+    }
+
     /**
      * @return The maximum allowed request size in bytes. If Riposte receives a request larger than this then it will
      * throw a {@link com.nike.riposte.server.error.exception.RequestTooBigException}.
@@ -418,12 +528,26 @@ public interface ServerConfig {
         return 500;
     }
 
+    /**
+     * @return The {@link ResponseCompressionConfig} that controls which content codings response payloads can be
+     * compressed with and which content types are never compressed, or null if you want to use the default values
+     * (gzip and deflate, skipping content types that are already compressed). See the javadocs for {@link
+     * ResponseCompressionConfig} and its methods for more details. Individual endpoints can further restrict these
+     * settings via {@link Endpoint#responseCompressionPolicy()}.
+     */
+    default @Nullable ResponseCompressionConfig responseCompressionConfig() {
+        return null;
+    }
+
     /**
      * @return The {@link Executor} that should be used for long running tasks when non-blocking endpoints need to do
      * blocking I/O and there is no nonblocking driver/client, or if the endpoint needs to do serious number crunching
-     * or anything else that shouldn't be done on the Netty worker thread. This can be null - if it is null then {@link
-     * Executors#newCachedThreadPool()} will be used, which dynamically grows to fulfill demand,
-     * reuses threads where possible, and kills threads that have been idle for 60 seconds.
+     * or anything else that shouldn't be done on the Netty worker thread. This can be null - if it is null then on Java
+     * 21 and later {@code Executors.newVirtualThreadPerTaskExecutor()} will be used, which runs each task on its own
+     * cheap virtual thread so that blocking work doesn't pin down platform threads. On earlier JVMs {@link
+     * Executors#newCachedThreadPool()} will be used instead, which dynamically grows to fulfill demand, reuses threads
+     * where possible, and kills threads that have been idle for 60 seconds. Endpoints that extend {@code
+     * BlockingEndpoint} from {@code riposte-core} have their blocking work run on this executor automatically.
      *
      * <p><b>NOTE:</b> You should try to find a non-blocking solution that uses fixed thread pools rather than use this
      * executor. For example you can use the {@code riposte-async-http-client} (or other async HTTP clients that don't
@@ -435,6 +559,29 @@ public interface ServerConfig {
         return null;
     }
 
+    /**
+     * Only used when {@link #longRunningTaskExecutor()} returns null.
+     *
+     * @return The {@link BoundedExecutorConfig} describing a bounded, instrumented executor that should be used as the
+     * long running task executor, or null to use the unbounded default described in {@link
+     * #longRunningTaskExecutor()}. A bounded executor rejects tasks when it's overloaded, which results in an immediate
+     * 503 to the caller rather than an ever-growing backlog, and reports its queue wait times, queue depth, and
+     * rejections to the {@link #metricsListener()}. See {@link BoundedExecutorConfig} for details.
+     */
+    default @Nullable BoundedExecutorConfig longRunningTaskExecutorConfig() {
+        return null;
+    }
+
+    /**
+     * @return The {@link BoundedExecutorConfig} describing a bounded, instrumented executor that should be used to run
+     * the {@link #requestSecurityValidator()} when it is not {@link
+     * RequestSecurityValidator#isFastEnoughToRunOnNettyWorkerThread() fast enough} to run on the Netty worker thread,
+     * or null to use the default work-stealing pool. See {@link BoundedExecutorConfig} for details.
+     */
+    default @Nullable BoundedExecutorConfig securityValidationExecutorConfig() {
+        return null;
+    }
+
     /**
      * @return The {@link MetricsListener} that should be used for collecting and reporting Riposte server metrics. This
      * can be null - if it is null then no Riposte server metrics will be collected.
@@ -617,4 +764,504 @@ public interface ServerConfig {
             return 8192;
         }
     }
+
+    /**
+     * Config options that control how response payloads are compressed by the server.
+     */
+    interface ResponseCompressionConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ResponseCompressionConfig} interface that returns the
+         * default values.
+         */
+        @NotNull ResponseCompressionConfig DEFAULT_IMPL = new ResponseCompressionConfig() {};
+
+        /**
+         * The default value returned by {@link #skipCompressionContentTypes()}.
+         */
+        @NotNull List<@NotNull String> DEFAULT_SKIP_COMPRESSION_CONTENT_TYPES = Collections.unmodifiableList(
+            Arrays.asList(
+                "image/png", "image/jpeg", "image/gif", "image/webp", "image/avif", "audio/*", "video/*",
+                "application/zip", "application/gzip", "application/x-gzip", "application/zstd",
+                "application/x-bzip2", "application/x-7z-compressed", "application/x-rar-compressed",
+                "application/pdf", "font/woff", "font/woff2"
+            )
+        );
+
+        /**
+         * Defaults to {@link ResponseContentEncoder#GZIP} and {@link ResponseContentEncoder#DEFLATE}, in that order.
+         *
+         * @return The encoders that response payloads can be compressed with, in order of preference. The encoder used
+         * for a given response is the one with the highest q-value in the request's Accept-Encoding header, with ties
+         * broken by this preference order. Register additional {@link ResponseContentEncoder}s (e.g. for {@code br} or
+         * {@code zstd}) here - typically ahead of gzip, since they give a better compression ratio.
+         */
+        default @NotNull List<@NotNull ResponseContentEncoder> contentEncoders() {
+            return Arrays.asList(ResponseContentEncoder.GZIP, ResponseContentEncoder.DEFLATE);
+        }
+
+        /**
+         * Defaults to {@link #DEFAULT_SKIP_COMPRESSION_CONTENT_TYPES}, which covers the common image, audio, video,
+         * archive, document, and font formats that are already compressed. Text-based image formats like {@code
+         * image/svg+xml} compress well and are intentionally not included.
+         *
+         * @return The response Content-Type mime types (without parameters like charset) that should never be
+         * compressed, since re-compressing payloads that are already compressed wastes CPU for little or no gain.
+         * Entries are compared case-insensitively and can use a {@code type/*} wildcard for the subtype.
+         */
+        default @NotNull Collection<@NotNull String> skipCompressionContentTypes() {
+            return DEFAULT_SKIP_COMPRESSION_CONTENT_TYPES;
+        }
+
+        /**
+         * Defaults to 0 (disabled).
+         *
+         * @return The size (in bytes) above which a response payload is compressed on the {@link
+         * #compressionOffloadExecutor()} rather than inline on the channel's Netty worker thread, or 0 or less to
+         * always compress inline. Compressing a multi-megabyte payload can take several milliseconds, during which
+         * every other connection served by the same worker thread is stalled - offloading large payloads avoids that
+         * at the cost of a thread hop. Payloads at or below this size are still compressed inline since the hop would
+         * cost more than it saves. The compressed response is written back to the channel on its worker thread, and
+         * any other writes to that channel are held until then so the output order is preserved.
+         */
+        default int compressionOffloadThresholdBytes() {
+            return 0;
+        }
+
+        /**
+         * Only used when {@link #compressionOffloadThresholdBytes()} is greater than 0.
+         *
+         * @return The executor that large response payloads should be compressed on, or null to use a default bounded
+         * executor with one daemon thread per available processor and a queue of 1024 tasks. The executor should be
+         * bounded - if it rejects a task (i.e. throws a {@link java.util.concurrent.RejectedExecutionException})
+         * then the payload is simply compressed inline instead, which gives natural backpressure when the executor is
+         * saturated.
+         */
+        default @Nullable Executor compressionOffloadExecutor() {
+            return null;
+        }
+
+        /**
+         * Defaults to 16 MiB.
+         *
+         * @return The maximum total size (in bytes) of the payloads held by the server's compressed variant cache, or 0
+         * or less to disable the cache entirely. The cache is only used for endpoints that opt in via {@link
+         * com.nike.riposte.server.http.ResponseCompressionPolicy#isCacheCompressedVariants()} - when a response payload
+         * from such an endpoint matches one that was already compressed with the negotiated content coding, the cached
+         * compressed bytes are written directly without running the encoder again. Each entry holds both the
+         * compressed payload and the uncompressed content it was produced from (so a hash collision can't cause a false
+         * hit), and both count toward this limit.
+         */
+        default long compressedVariantCacheMaxSizeInBytes() {
+            return 16L * 1024 * 1024;
+        }
+    }
+
+    /**
+     * Config options for a bounded executor that Riposte creates and instruments on your behalf (see {@link
+     * #longRunningTaskExecutorConfig()} and {@link #securityValidationExecutorConfig()}). The executor starts
+     * {@link #coreThreads()} threads, queues tasks once they're all busy, and only grows toward {@link #maxThreads()}
+     * once the queue is full. Tasks submitted when the queue is full and all {@link #maxThreads()} threads are busy are
+     * rejected with a {@link com.nike.riposte.server.error.exception.ExecutorOverloadedException}, which the default
+     * error handler maps to a 503.
+     *
+     * <p>Queued tasks run in order of the {@link Endpoint#priority()} of the request that submitted them, and in
+     * submission order within a priority, so under saturation high priority work doesn't queue behind a backlog of low
+     * priority work.
+     *
+     * <p>Every task start is reported to the {@link #metricsListener()} as a {@link
+     * com.nike.riposte.server.metrics.ServerMetricsEvent#EXECUTOR_TASK_STARTED} event, and every rejection as a {@link
+     * com.nike.riposte.server.metrics.ServerMetricsEvent#EXECUTOR_TASK_REJECTED} event.
+     */
+    interface BoundedExecutorConfig {
+
+        /**
+         * Statically accessible implementation of the {@link BoundedExecutorConfig} interface that returns the
+         * default values.
+         */
+        @NotNull BoundedExecutorConfig DEFAULT_IMPL = new BoundedExecutorConfig() {};
+
+        /**
+         * Defaults to twice the number of available processors.
+         *
+         * @return The number of threads the executor keeps around even when they're idle.
+         */
+        default int coreThreads() {
+            return Runtime.getRuntime().availableProcessors() * 2;
+        }
+
+        /**
+         * Defaults to 200.
+         *
+         * @return The maximum number of threads the executor will create. Threads beyond {@link #coreThreads()} are
+         * only created when the queue is full, and are killed after they've been idle for 60 seconds.
+         */
+        default int maxThreads() {
+            return 200;
+        }
+
+        /**
+         * Defaults to 1000.
+         *
+         * @return The maximum number of tasks that can wait in the queue for a free thread, or 0 for no queue (tasks
+         * are handed directly to a thread, and rejected if {@link #maxThreads()} threads are all busy).
+         */
+        default int queueCapacity() {
+            return 1000;
+        }
+
+        /**
+         * Defaults to 0 (disabled).
+         *
+         * @return The longest time (in milliseconds) a task should wait in the queue, or 0 or less for no limit. When
+         * the oldest queued task has already been waiting longer than this, new tasks are rejected with a {@link
+         * com.nike.riposte.server.error.exception.ExecutorOverloadedException.RejectionReason#QUEUE_WAIT_TIMEOUT}
+         * reason even if the queue has room - the executor is clearly not keeping up, so it's better to fail fast
+         * than to add more latency.
+         */
+        default long queueWaitTimeoutMillis() {
+            return 0;
+        }
+    }
+
+    /**
+     * Config options for the adaptive concurrency limiter (see {@link #concurrencyLimitConfig()}). The limiter starts
+     * at {@link #initialLimit()} concurrent requests and adjusts the limit after every successful request using a
+     * gradient algorithm: it compares a short-term average of request latency against a long-term average, shrinking
+     * the limit when latency rises (a sign that requests are queueing somewhere) and growing it when latency holds
+     * steady. The limit always stays between {@link #minLimit()} and {@link #maxLimit()}.
+     *
+     * <p>Endpoints can be grouped into partitions via {@link Endpoint#concurrencyLimitPartition()}. Each partition
+     * named in {@link #partitionGuaranteedShares()} is guaranteed that fraction of the limit: when the server is at its
+     * limit, requests for a partition that is using less than its guaranteed share are still accepted. This keeps a
+     * flood of requests to one set of endpoints from starving the others.
+     *
+     * <p>Endpoints can also declare an {@link Endpoint#priority()}. Each priority is only admitted while the number of
+     * in-flight requests is below its {@link #priorityLimitFactor(EndpointPriority)} share of the limit, so as the
+     * server approaches its limit low priority requests are rejected first, and high priority requests keep some
+     * headroom above the limit.
+     *
+     * <p>The current limit, in-flight request count, and rejections are reported to the {@link #metricsListener()}
+     * via {@link com.nike.riposte.server.metrics.ServerMetricsEvent#CONCURRENCY_LIMIT_CHANGED} and {@link
+     * com.nike.riposte.server.metrics.ServerMetricsEvent#CONCURRENCY_LIMIT_REJECTED} events.
+     */
+    interface ConcurrencyLimitConfig {
+
+        /**
+         * Statically accessible implementation of the {@link ConcurrencyLimitConfig} interface that returns the
+         * default values.
+         */
+        @NotNull ConcurrencyLimitConfig DEFAULT_IMPL = new ConcurrencyLimitConfig() {};
+
+        /**
+         * Defaults to 100.
+         *
+         * @return The concurrency limit to use before any latency has been observed.
+         */
+        default int initialLimit() {
+            return 100;
+        }
+
+        /**
+         * Defaults to 20.
+         *
+         * @return The lowest the concurrency limit is allowed to go, no matter how bad latency gets.
+         */
+        default int minLimit() {
+            return 20;
+        }
+
+        /**
+         * Defaults to 1000.
+         *
+         * @return The highest the concurrency limit is allowed to go, no matter how good latency looks.
+         */
+        default int maxLimit() {
+            return 1000;
+        }
+
+        /**
+         * Defaults to 0.2.
+         *
+         * @return How much weight (between 0 and 1) each limit calculation carries relative to the previous limit.
+         * Lower values make the limit change more slowly and smoothly.
+         */
+        default double smoothing() {
+            return 0.2;
+        }
+
+        /**
+         * Defaults to 1.5.
+         *
+         * @return How much higher (as a ratio) the short-term latency average can be than the long-term average
+         * before the limit starts to shrink. Higher values make the limiter more tolerant of latency spikes.
+         */
+        default double rttTolerance() {
+            return 1.5;
+        }
+
+        /**
+         * Defaults to an empty map (no partitions).
+         *
+         * @return A map of partition name to the fraction of the concurrency limit (between 0 and 1) that partition is
+         * guaranteed. See {@link Endpoint#concurrencyLimitPartition()}.
+         */
+        default @NotNull Map<@NotNull String, @NotNull Double> partitionGuaranteedShares() {
+            return Collections.emptyMap();
+        }
+
+        /**
+         * Defaults to 1.25 for {@link EndpointPriority#CRITICAL}, 1.1 for {@link EndpointPriority#HIGH}, 1.0 for
+         * {@link EndpointPriority#NORMAL}, and 0.8 for {@link EndpointPriority#LOW}.
+         *
+         * @return The multiple of the current concurrency limit that the in-flight request count must be below for a
+         * request with the given priority to be admitted. Values below 1 shed that priority before the server reaches
+         * its limit, and values above 1 let that priority keep being admitted after it does.
+         */
+        default double priorityLimitFactor(@NotNull EndpointPriority priority) {
+            switch (priority) {
+                case CRITICAL:
+                    return 1.25;
+                case HIGH:
+                    return 1.1;
+                case LOW:
+                    return 0.8;
+                default:
+                    return 1.0;
+            }
+        }
+    }
+
+    /**
+     * Config options for queue-delay based load shedding (see {@link #loadSheddingConfig()}), which uses the CoDel
+     * (controlled delay) approach to decide which requests to shed.
+     *
+     * <p>Each worker event loop periodically schedules a probe task to measure how late it runs - this scheduling lag
+     * is how long bytes for a new request are likely to have waited before the event loop could read them. When a
+     * request arrives, its sojourn time is estimated as that lag plus the time since the request was decoded. Each
+     * event loop tracks the minimum sojourn time it sees over every {@link #intervalMillis()} window. If the minimum
+     * stays above {@link #targetDelayMillis()} for a whole window then the event loop is considered overloaded (a
+     * standing queue has formed, as opposed to a short burst), and while overloaded any request whose sojourn time is
+     * more than double the target is shed with a 503.
+     *
+     * <p>Shed requests are reported to the {@link #metricsListener()} via {@link
+     * com.nike.riposte.server.metrics.ServerMetricsEvent#REQUEST_SHED} events.
+     */
+    interface LoadSheddingConfig {
+
+        /**
+         * Statically accessible implementation of the {@link LoadSheddingConfig} interface that returns the default
+         * values.
+         */
+        @NotNull LoadSheddingConfig DEFAULT_IMPL = new LoadSheddingConfig() {};
+
+        /**
+         * Defaults to 5.
+         *
+         * @return The acceptable amount of time (in milliseconds) for a request to wait before processing starts. An
+         * event loop whose requests consistently wait longer than this is considered overloaded.
+         */
+        default long targetDelayMillis() {
+            return 5;
+        }
+
+        /**
+         * Defaults to 100.
+         *
+         * @return The length of the window (in milliseconds) that request wait times must stay above {@link
+         * #targetDelayMillis()} for before an event loop is considered overloaded. This keeps short bursts of traffic
+         * from triggering load shedding.
+         */
+        default long intervalMillis() {
+            return 100;
+        }
+
+        /**
+         * Defaults to 10.
+         *
+         * @return How often (in milliseconds) each event loop measures its scheduling lag. Lower values give more
+         * up-to-date lag measurements at the cost of a little extra work on the event loops.
+         */
+        default long eventLoopLagProbeIntervalMillis() {
+            return 10;
+        }
+    }
+
+    /**
+     * Config options for end-to-end request deadlines (see {@link #requestDeadlineConfig()}).
+     *
+     * <p>Deadlines are passed between services as the caller's <b>remaining</b> budget in milliseconds rather than as
+     * an absolute timestamp, so clock skew between machines doesn't matter. When a request arrives with the {@link
+     * #inboundHeaderName()} header, its absolute deadline is calculated relative to when Riposte first saw the request
+     * and stored on the request's processing state. From then on:
+     * <ul>
+     *     <li>If the deadline has passed before the endpoint runs, a {@link
+     *     com.nike.riposte.server.error.exception.RequestDeadlineExceededException} is thrown (which maps to a 503)
+     *     and the endpoint is never executed.</li>
+     *     <li>Non-blocking and proxy router endpoint timeouts are clamped to the remaining budget.</li>
+     *     <li>Downstream calls made via Riposte's HTTP clients have the remaining budget set in the {@link
+     *     #outboundHeaderName()} header, and have their own timeouts clamped to it where the client supports it.</li>
+     * </ul>
+     * Requests without the header (or with an unparseable value) are processed with the normal static timeouts.
+     */
+    interface RequestDeadlineConfig {
+
+        /**
+         * Statically accessible implementation of the {@link RequestDeadlineConfig} interface that returns the default
+         * values.
+         */
+        @NotNull RequestDeadlineConfig DEFAULT_IMPL = new RequestDeadlineConfig() {};
+
+        /**
+         * Defaults to "X-Request-Timeout-Ms".
+         *
+         * @return The name of the request header containing the caller's remaining budget for the request in
+         * milliseconds.
+         */
+        default @NotNull String inboundHeaderName() {
+            return "X-Request-Timeout-Ms";
+        }
+
+        /**
+         * Defaults to {@link #inboundHeaderName()}.
+         *
+         * @return The name of the header used to send the remaining budget on downstream calls, or null if the budget
+         * should not be propagated downstream.
+         */
+        default @Nullable String outboundHeaderName() {
+            return inboundHeaderName();
+        }
+    }
+
+    /**
+     * Config options for spilling large request payloads to disk (see {@link #requestContentSpillConfig()}).
+     *
+     * <p>Chunks are held in memory as usual until the payload grows past {@link #inMemoryThresholdBytes()}. At that
+     * point the chunks received so far are written to a temp file in {@link #tempDirectory()} and released, and all
+     * later chunks are written straight to the file and released as they arrive. When the endpoint asks for the
+     * content the file is memory-mapped and read back, and the file is deleted once the content has been read or the
+     * request's resources are released.
+     *
+     * <p>The temp file is created and written on the server's {@link #longRunningTaskExecutor()}, one batch of chunks
+     * at a time and in order, so a slow disk doesn't stall the other connections on the Netty worker thread. Reading
+     * from the caller is paused while a write is pending, and the endpoint isn't executed until every write is done.
+     * Synchronous request content validation reads the content on the worker thread though, and waits for any writes
+     * still pending when the last chunk arrives, so the temp directory should still be on a local disk.
+     *
+     * <p>Payloads for {@code ProxyRouterEndpoint}s and streaming endpoints are never buffered, so they're never
+     * spilled either.
+     */
+    interface RequestContentSpillConfig {
+
+        /**
+         * Statically accessible implementation of the {@link RequestContentSpillConfig} interface that returns the
+         * default values.
+         */
+        @NotNull RequestContentSpillConfig DEFAULT_IMPL = new RequestContentSpillConfig() {};
+
+        /**
+         * Defaults to 1 MB.
+         *
+         * @return The payload size in bytes past which the payload is spilled to a temp file.
+         */
+        default long inMemoryThresholdBytes() {
+            return 1024 * 1024;
+        }
+
+        /**
+         * Defaults to null.
+         *
+         * @return The directory to create the temp files in, or null to use the default temp directory (the {@code
+         * java.io.tmpdir} System property).
+         */
+        default @Nullable Path tempDirectory() {
+            return null;
+        }
+    }
+
+    /**
+     * Config options for the server-wide request payload memory budget (see {@link
+     * #requestBodyMemoryBudgetConfig()}).
+     *
+     * <p>Each payload chunk is counted against the budget as it arrives, and the request's whole reservation is given
+     * back once its resources are released after the response is sent. If a chunk takes the total past {@link
+     * #maxBufferedBytes()}, the chunk is kept (it has already been read) but autoRead is turned off for that caller's
+     * channel so no more of its payload is read. Reading resumes once other requests have given back enough of the
+     * budget. If that doesn't happen within {@link #maxWaitMillis()} the request fails with a {@link
+     * com.nike.riposte.server.error.exception.RequestBodyMemoryBudgetExceededException} (which maps to a 503).
+     *
+     * <p>Payloads for {@code ProxyRouterEndpoint}s and {@code StreamingRequestEndpoint}s are never buffered, so they
+     * don't count against the budget. Payloads that are spilled to disk or decoded as they arrive (see {@link
+     * #requestContentSpillConfig()} and {@link #streamingMultipartConfig()}) are still counted in full, so the budget
+     * is a conservative upper bound in those cases.
+     */
+    interface RequestBodyMemoryBudgetConfig {
+
+        /**
+         * Statically accessible implementation of the {@link RequestBodyMemoryBudgetConfig} interface that returns the
+         * default values.
+         */
+        @NotNull RequestBodyMemoryBudgetConfig DEFAULT_IMPL = new RequestBodyMemoryBudgetConfig() {};
+
+        /**
+         * Defaults to 256 MB.
+         *
+         * @return The total number of payload bytes that may be buffered across all in-flight requests.
+         */
+        default long maxBufferedBytes() {
+            return 256L * 1024 * 1024;
+        }
+
+        /**
+         * Defaults to 1000 (1 second).
+         *
+         * @return How long in milliseconds reading a request's payload may stay paused waiting for the budget before
+         * the request fails with a 503. Set this to 0 to fail requests straight away instead of pausing them.
+         */
+        default long maxWaitMillis() {
+            return 1000;
+        }
+    }
+
+    /**
+     * Config options for decoding multipart payloads as they arrive (see {@link #streamingMultipartConfig()}).
+     *
+     * <p>Parts are decoded using Netty's mixed memory/disk storage: a part is kept in memory until it grows past {@link
+     * #minSizeForDiskBytes()}, at which point it's moved to a temp file in {@link #tempDirectory()} and the rest of it
+     * is written straight to that file. Simple form attributes are normally small enough to stay in memory, while file
+     * uploads of any real size go to disk. The temp files are deleted when the request's resources are released.
+     *
+     * <p>Since the raw chunks are released as soon as they've been decoded, {@link
+     * com.nike.riposte.server.http.RequestInfo#getRawContentBytes()} and {@link
+     * com.nike.riposte.server.http.RequestInfo#getRawContent()} return null for multipart requests when this is
+     * enabled - use {@link com.nike.riposte.server.http.RequestInfo#getMultipartParts()} instead. Payloads that arrive
+     * in full with the request (i.e. a {@code FullHttpRequest}) are decoded the normal way.
+     */
+    interface StreamingMultipartConfig {
+
+        /**
+         * Statically accessible implementation of the {@link StreamingMultipartConfig} interface that returns the
+         * default values.
+         */
+        @NotNull StreamingMultipartConfig DEFAULT_IMPL = new StreamingMultipartConfig() {};
+
+        /**
+         * Defaults to 16 KB.
+         *
+         * @return The size in bytes past which a part is moved from memory to a temp file.
+         */
+        default long minSizeForDiskBytes() {
+            return 16 * 1024;
+        }
+
+        /**
+         * Defaults to null.
+         *
+         * @return The directory to create the temp files in, or null to use the default temp directory (the {@code
+         * java.io.tmpdir} System property).
+         */
+        default @Nullable Path tempDirectory() {
+            return null;
+        }
+    }
 }
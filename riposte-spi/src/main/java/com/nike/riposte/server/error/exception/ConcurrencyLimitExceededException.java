@@ -0,0 +1,36 @@
+package com.nike.riposte.server.error.exception;
+
+import com.nike.riposte.server.http.EndpointPriority;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Thrown when a request arrives while the server is at its adaptive concurrency limit (see {@code
+ * ServerConfig#concurrencyLimitConfig()}). The default Riposte error handler maps this to a 503 so the caller can back
+ * off or retry elsewhere instead of adding to the server's overload.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public final int concurrencyLimit;
+    public final int inFlightRequests;
+    public final @Nullable String partition;
+    public final @Nullable EndpointPriority priority;
+
+    public ConcurrencyLimitExceededException(int concurrencyLimit, int inFlightRequests, @Nullable String partition) {
+        this(concurrencyLimit, inFlightRequests, partition, null);
+    }
+
+    public ConcurrencyLimitExceededException(
+        int concurrencyLimit,
+        int inFlightRequests,
+        @Nullable String partition,
+        @Nullable EndpointPriority priority
+    ) {
+        super("Too many concurrent requests. This request will be rejected. concurrency_limit=" + concurrencyLimit
+              + ", inflight_requests=" + inFlightRequests + ", partition=" + partition + ", priority=" + priority);
+        this.concurrencyLimit = concurrencyLimit;
+        this.inFlightRequests = inFlightRequests;
+        this.partition = partition;
+        this.priority = priority;
+    }
+}
@@ -0,0 +1,49 @@
+package com.nike.riposte.server.error.exception;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown by Riposte's bounded executors (see {@code ServerConfig.BoundedExecutorConfig}) when they refuse to accept a
+ * task because they're overloaded. This is a {@link RejectedExecutionException} so anything that already handles
+ * executor rejection keeps working, and the default Riposte error handler maps it to a 503 so the caller finds out
+ * about the overload immediately instead of waiting in an ever-growing queue.
+ */
+public class ExecutorOverloadedException extends RejectedExecutionException {
+
+    /**
+     * The reasons a bounded executor can reject a task.
+     */
+    public enum RejectionReason {
+        /**
+         * The executor's threads were all busy and its queue was full.
+         */
+        QUEUE_FULL,
+        /**
+         * The oldest task in the executor's queue had already been waiting longer than the executor's queue-wait
+         * timeout, so a new task would have waited even longer.
+         */
+        QUEUE_WAIT_TIMEOUT,
+        /**
+         * The executor has been shut down.
+         */
+        SHUTDOWN
+    }
+
+    public final @NotNull String executorName;
+    public final @NotNull RejectionReason rejectionReason;
+    public final int queueDepth;
+
+    public ExecutorOverloadedException(
+        @NotNull String executorName,
+        @NotNull RejectionReason rejectionReason,
+        int queueDepth
+    ) {
+        super("Executor rejected the task. executor_name=" + executorName + ", rejection_reason=" + rejectionReason
+              + ", queue_depth=" + queueDepth);
+        this.executorName = executorName;
+        this.rejectionReason = rejectionReason;
+        this.queueDepth = queueDepth;
+    }
+}
@@ -0,0 +1,21 @@
+package com.nike.riposte.server.error.exception;
+
+/**
+ * Thrown when a request's payload can't be buffered because the server-wide request payload memory budget (see {@code
+ * ServerConfig#requestBodyMemoryBudgetConfig()}) stayed used up for longer than the request was allowed to wait. The
+ * default Riposte error handler maps this to a 503 so the caller can back off or retry elsewhere.
+ */
+public class RequestBodyMemoryBudgetExceededException extends RuntimeException {
+
+    public final long budgetBytes;
+    public final long reservedBytes;
+    public final long waitedMillis;
+
+    public RequestBodyMemoryBudgetExceededException(long budgetBytes, long reservedBytes, long waitedMillis) {
+        super("The request payload memory budget is used up. This request will be rejected. budget_bytes="
+              + budgetBytes + ", reserved_bytes=" + reservedBytes + ", waited_millis=" + waitedMillis);
+        this.budgetBytes = budgetBytes;
+        this.reservedBytes = reservedBytes;
+        this.waitedMillis = waitedMillis;
+    }
+}
@@ -0,0 +1,20 @@
+package com.nike.riposte.server.error.exception;
+
+/**
+ * Thrown when a request's caller-supplied deadline (see {@code ServerConfig#requestDeadlineConfig()}) passes before
+ * the request could be completed, either before its endpoint could run or while waiting for the endpoint to finish.
+ * The default Riposte error handler maps this to a 503 - the caller has given up on the request by now, so there's no
+ * point doing any more work for it.
+ */
+public class RequestDeadlineExceededException extends RuntimeException {
+
+    public final long deadlineBudgetMillis;
+    public final long overrunMillis;
+
+    public RequestDeadlineExceededException(long deadlineBudgetMillis, long overrunMillis) {
+        super("The request's deadline passed before the request could be completed. deadline_budget_millis="
+              + deadlineBudgetMillis + ", overrun_millis=" + overrunMillis);
+        this.deadlineBudgetMillis = deadlineBudgetMillis;
+        this.overrunMillis = overrunMillis;
+    }
+}
@@ -0,0 +1,91 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.http.mimetype.MimeType;
+import com.nike.riposte.server.http.mimetype.MimeTypeParser;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * Converts request and response payloads to and from a specific media type, typically a binary format that is cheaper
+ * to produce and parse than JSON text. Request content is deserialized with the codec whose {@link #mimeType()}
+ * matches the request's Content-Type header, and response content is serialized with the codec negotiated from the
+ * request's Accept header (including q-values) - see {@link
+ * com.nike.riposte.server.config.ServerConfig#contentCodecs()}. Requests and responses that don't match a registered
+ * codec keep using the server's default JSON {@link ObjectMapper}s.
+ *
+ * <p>{@link #smile(ObjectMapper)} and {@link #cbor(ObjectMapper)} create codecs for the Jackson Smile and CBOR binary
+ * formats. Other formats (e.g. Protobuf) can be supported by implementing this interface and registering the
+ * implementation with the server's {@link com.nike.riposte.server.config.ServerConfig#contentCodecs()}.
+ *
+ * <p>Implementations must be thread safe.
+ */
+public interface ContentCodec {
+
+    /**
+     * The {@code application/x-jackson-smile} media type used by {@link #smile(ObjectMapper)}.
+     */
+    @SuppressWarnings({"OptionalGetWithoutIsPresent", "ConstantConditions"})
+    @NotNull MimeType SMILE_MIME_TYPE = MimeTypeParser.parse("application/x-jackson-smile").get();
+
+    /**
+     * The {@code application/cbor} media type used by {@link #cbor(ObjectMapper)}.
+     */
+    @SuppressWarnings({"OptionalGetWithoutIsPresent", "ConstantConditions"})
+    @NotNull MimeType CBOR_MIME_TYPE = MimeTypeParser.parse("application/cbor").get();
+
+    /**
+     * @param smileMapper An {@link ObjectMapper} created with a {@code
+     * com.fasterxml.jackson.dataformat.smile.SmileFactory} (from the {@code
+     * com.fasterxml.jackson.dataformat:jackson-dataformat-smile} library), configured the way you want Smile payloads
+     * to be read and written.
+     * @return A codec for {@link #SMILE_MIME_TYPE} payloads that uses the given mapper.
+     * @throws IllegalArgumentException if the given mapper isn't backed by a Smile factory.
+     */
+    static @NotNull ContentCodec smile(@NotNull ObjectMapper smileMapper) {
+        return JacksonContentCodec.forFormat(SMILE_MIME_TYPE, smileMapper, "Smile");
+    }
+
+    /**
+     * @param cborMapper An {@link ObjectMapper} created with a {@code
+     * com.fasterxml.jackson.dataformat.cbor.CBORFactory} (from the {@code
+     * com.fasterxml.jackson.dataformat:jackson-dataformat-cbor} library), configured the way you want CBOR payloads to
+     * be read and written.
+     * @return A codec for {@link #CBOR_MIME_TYPE} payloads that uses the given mapper.
+     * @throws IllegalArgumentException if the given mapper isn't backed by a CBOR factory.
+     */
+    static @NotNull ContentCodec cbor(@NotNull ObjectMapper cborMapper) {
+        return JacksonContentCodec.forFormat(CBOR_MIME_TYPE, cborMapper, "CBOR");
+    }
+
+    /**
+     * @return The media type this codec reads and writes. Only the type and subtype are used when matching Content-Type
+     * and Accept headers - any parameters are ignored.
+     */
+    @NotNull MimeType mimeType();
+
+    /**
+     * @param content The full request payload. The codec should read it from its current reader index, and must not
+     * release it.
+     * @param typeReference The type the payload should be deserialized into.
+     * @return The deserialized payload.
+     * @throws IOException if the payload can't be deserialized into the requested type.
+     */
+    <T> @Nullable T deserialize(@NotNull ByteBuf content, @NotNull TypeReference<T> typeReference) throws IOException;
+
+    /**
+     * @param content The response content to serialize.
+     * @param allocator The allocator to create the returned buffer with.
+     * @return A new buffer containing the serialized content. Ownership of the buffer passes to the caller.
+     * @throws IOException if the content can't be serialized.
+     */
+    @NotNull ByteBuf serialize(@NotNull Object content, @NotNull ByteBufAllocator allocator) throws IOException;
+}
@@ -159,4 +159,53 @@ public interface Endpoint<I> {
     default boolean isDecompressRequestPayloadAllowed(@NotNull RequestInfo<?> request) {
         return true;
     }
+
+    /**
+     * @return The {@link ResponseCachePolicy} describing how this endpoint's responses may be cached by a server-side
+     * response cache (e.g. {@code ResponseCachingFilter} from {@code riposte-core}), or null if this endpoint's
+     * responses should never be cached. Defaults to null - response caching is strictly opt-in per endpoint.
+     */
+    default @Nullable ResponseCachePolicy responseCachePolicy() {
+        return null;
+    }
+
+    /**
+     * @return The {@link ResponseCompressionPolicy} containing this endpoint's overrides for the response compression
+     * threshold, compression level, and allowed content codings, or null if the server-wide compression settings
+     * should be used. Defaults to null.
+     */
+    default @Nullable ResponseCompressionPolicy responseCompressionPolicy() {
+        return null;
+    }
+
+    /**
+     * @return The name of the concurrency limit partition this endpoint belongs to, or null if it isn't in a
+     * partition. Only used when {@link ServerConfig#concurrencyLimitConfig()} is non-null, in which case a partition
+     * named in {@link ServerConfig.ConcurrencyLimitConfig#partitionGuaranteedShares()} is guaranteed its share of the
+     * server's concurrency limit even when other endpoints are saturating it. Defaults to null.
+     */
+    default @Nullable String concurrencyLimitPartition() {
+        return null;
+    }
+
+    /**
+     * @return How important this endpoint's requests are relative to other endpoints' when the server is saturated.
+     * See {@link EndpointPriority} for how this is used. Defaults to {@link EndpointPriority#NORMAL}.
+     */
+    default @NotNull EndpointPriority priority() {
+        return EndpointPriority.NORMAL;
+    }
+
+    /**
+     * @return A cheap version key for the representation this endpoint returned for the given request (e.g. an entity
+     * version number or last-updated timestamp), or null if this endpoint doesn't track versions. Only used when
+     * {@link ServerConfig#isAutomaticETagHandlingEnabled()} is true, in which case a non-null value is used as the
+     * response's ETag (weak if the response might be compressed) so that the server can answer a matching {@code
+     * If-None-Match} with a 304 without ever serializing the response content. The key must uniquely identify the
+     * serialized response bytes - if two responses could serialize differently then they must have different keys.
+     * Defaults to null, which causes the ETag to be generated by hashing the serialized response bytes instead.
+     */
+    default @Nullable String responseETagVersionKey(@NotNull RequestInfo<?> request) {
+        return null;
+    }
 }
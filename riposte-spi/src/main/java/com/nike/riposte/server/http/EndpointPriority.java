@@ -0,0 +1,29 @@
+package com.nike.riposte.server.http;
+
+/**
+ * How important an endpoint's requests are relative to other endpoints' when the server is saturated. See {@link
+ * Endpoint#priority()}. When there's contention, higher priority work is favored: higher priority tasks jump ahead of
+ * lower priority ones in Riposte's bounded executor queues (see {@code ServerConfig#longRunningTaskExecutorConfig()}
+ * and {@code ServerConfig#securityValidationExecutorConfig()}), and the adaptive concurrency limiter (see {@code
+ * ServerConfig#concurrencyLimitConfig()}) starts rejecting lower priority requests before higher priority ones.
+ * <p/>
+ * Values are declared from highest to lowest priority.
+ */
+public enum EndpointPriority {
+    /**
+     * For endpoints that must keep working even when the server is overloaded, e.g. health checks.
+     */
+    CRITICAL,
+    /**
+     * For business critical endpoints that should be favored over normal traffic, e.g. checkout.
+     */
+    HIGH,
+    /**
+     * The default priority.
+     */
+    NORMAL,
+    /**
+     * For work that can be deferred or retried later, e.g. bulk reporting. This is the first to be shed.
+     */
+    LOW
+}
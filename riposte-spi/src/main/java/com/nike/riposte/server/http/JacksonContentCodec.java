@@ -0,0 +1,112 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.http.mimetype.MimeType;
+import com.nike.riposte.util.ObjectReaderWriterCache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+/**
+ * A {@link ContentCodec} backed by a Jackson {@link ObjectMapper}, which means it supports whatever format the
+ * mapper's {@link com.fasterxml.jackson.core.JsonFactory} reads and writes (e.g. Smile, CBOR, or Ion). You'll usually
+ * want {@link ContentCodec#smile(ObjectMapper)} or {@link ContentCodec#cbor(ObjectMapper)} rather than creating
+ * instances of this directly.
+ *
+ * <p>Payloads are read from and written to {@link ByteBuf}s directly rather than going through an intermediate byte
+ * array, and the mapper's readers and writers come from {@link ObjectReaderWriterCache#getDefaultInstance()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class JacksonContentCodec implements ContentCodec {
+
+    protected final @NotNull MimeType mimeType;
+    protected final @NotNull ObjectMapper mapper;
+
+    /**
+     * @param mimeType The media type the given mapper reads and writes.
+     * @param mapper The mapper to read and write payloads with. It should be fully configured before being passed in.
+     */
+    public JacksonContentCodec(@NotNull MimeType mimeType, @NotNull ObjectMapper mapper) {
+        //noinspection ConstantConditions
+        if (mimeType == null)
+            throw new IllegalArgumentException("mimeType cannot be null");
+
+        //noinspection ConstantConditions
+        if (mapper == null)
+            throw new IllegalArgumentException("mapper cannot be null");
+
+        this.mimeType = mimeType;
+        this.mapper = mapper;
+    }
+
+    /**
+     * @return A new codec for the given mapper, after verifying that the mapper's factory produces the given format
+     * (as reported by {@link com.fasterxml.jackson.core.JsonFactory#getFormatName()}). This catches a plain JSON
+     * mapper being registered for a binary media type, which would otherwise only show up as parse errors at runtime.
+     */
+    protected static @NotNull JacksonContentCodec forFormat(
+        @NotNull MimeType mimeType, @NotNull ObjectMapper mapper, @NotNull String expectedFormatName
+    ) {
+        //noinspection ConstantConditions
+        if (mapper == null)
+            throw new IllegalArgumentException("mapper cannot be null");
+
+        String formatName = mapper.getFactory().getFormatName();
+        if (!expectedFormatName.equals(formatName)) {
+            throw new IllegalArgumentException(
+                "The mapper for " + mimeType + " content must be backed by a " + expectedFormatName
+                + " JsonFactory. Invalid mapper format: " + formatName
+            );
+        }
+
+        return new JacksonContentCodec(mimeType, mapper);
+    }
+
+    @Override
+    public @NotNull MimeType mimeType() {
+        return mimeType;
+    }
+
+    @Override
+    public <T> @Nullable T deserialize(
+        @NotNull ByteBuf content, @NotNull TypeReference<T> typeReference
+    ) throws IOException {
+        ObjectReader reader = ObjectReaderWriterCache.getDefaultInstance().readerFor(mapper, typeReference);
+
+        if (content.hasArray()) {
+            // Heap buffers can be parsed in place.
+            return reader.readValue(
+                content.array(), content.arrayOffset() + content.readerIndex(), content.readableBytes()
+            );
+        }
+
+        return reader.readValue((InputStream) new ByteBufInputStream(content));
+    }
+
+    @Override
+    public @NotNull ByteBuf serialize(@NotNull Object content, @NotNull ByteBufAllocator allocator) throws IOException {
+        ByteBuf buffer = allocator.buffer();
+        try {
+            ObjectReaderWriterCache.getDefaultInstance()
+                                   .writerFor(mapper, content.getClass())
+                                   .writeValue((OutputStream) new ByteBufOutputStream(buffer), content);
+            return buffer;
+        }
+        catch (Throwable t) {
+            buffer.release();
+            throw t;
+        }
+    }
+}
@@ -128,4 +128,23 @@ public interface NonblockingEndpoint<I, O> extends Endpoint<I> {
     ) {
         return null;
     }
+
+    /**
+     * @param request
+     *     The request that is about to be executed. Its content will be fully available.
+     *
+     * @return The key identifying which requests to this endpoint are identical for the purposes of request
+     * coalescing, or null (the default) if this request should never be coalesced. When this returns a non-null key,
+     * concurrent requests to this endpoint with the same key share a single call to {@link #execute(RequestInfo,
+     * Executor, ChannelHandlerContext)} (the one made for the first of those requests to arrive), and each request
+     * receives its own copy of the resulting {@link ResponseInfo}. This is useful for protecting expensive downstream
+     * work from a stampede of identical requests, but the key must capture *everything* that affects the response
+     * (path, relevant query params and headers, caller identity if the response is caller specific, etc), and it
+     * should only be non-null for safe/idempotent requests. Note that the copies share the same content object (or,
+     * for {@link io.netty.buffer.ByteBuf} content, the same underlying bytes), so it must not be modified after
+     * {@link #execute(RequestInfo, Executor, ChannelHandlerContext)} completes.
+     */
+    default @Nullable String requestCoalescingKey(@NotNull RequestInfo<I> request) {
+        return null;
+    }
 }
@@ -275,9 +275,24 @@ public interface RequestInfo<T> {
     );
 
     /**
-     * @return true if {@link #setupContentDeserializer(ObjectMapper, TypeReference)} was called and passed valid
-     * deserialization info such that content can be deserialized and returned properly from {@link #getContent()},
-     * false otherwise. Individual endpoints should never need to worry about this.
+     * Same as {@link #setupContentDeserializer(ObjectMapper, TypeReference)}, except {@link #getContent()} will be
+     * deserialized with the given {@link ContentCodec} rather than a JSON {@link ObjectMapper}. The default pipeline
+     * calls this instead of {@link #setupContentDeserializer(ObjectMapper, TypeReference)} when the request's
+     * Content-Type matches one of the server's {@link com.nike.riposte.server.config.ServerConfig#contentCodecs()}.
+     * Whichever of the two methods is called last wins.
+     *
+     * @return this instance.
+     */
+    @NotNull RequestInfo<T> setupContentCodec(
+        @NotNull ContentCodec codec,
+        @NotNull TypeReference<T> typeReference
+    );
+
+    /**
+     * @return true if {@link #setupContentDeserializer(ObjectMapper, TypeReference)} or {@link
+     * #setupContentCodec(ContentCodec, TypeReference)} was called and passed valid deserialization info such that
+     * content can be deserialized and returned properly from {@link #getContent()}, false otherwise. Individual
+     * endpoints should never need to worry about this.
      */
     boolean isContentDeserializerSetup();
 
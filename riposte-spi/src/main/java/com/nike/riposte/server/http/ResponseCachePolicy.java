@@ -0,0 +1,143 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Describes how the responses of an {@link Endpoint} may be cached by a server-side response cache (see {@link
+ * Endpoint#responseCachePolicy()}). Only successful full responses to GET and HEAD requests are ever cached.
+ *
+ * <ul>
+ *     <li>
+ *         {@link #getTimeToLiveMillis()} - how long a cached response is considered fresh. A {@code max-age} or
+ *         {@code s-maxage} directive in the response's Cache-Control header can shorten (but never lengthen) this.
+ *     </li>
+ *     <li>
+ *         {@link #getStaleWhileRevalidateMillis()} - how long after it expires a cached response may still be served
+ *         while a single request is let through to the endpoint to regenerate it.
+ *     </li>
+ *     <li>
+ *         {@link #getKeyQueryParamNames()} - the query params that make up the cache key along with the HTTP method and
+ *         path. Null means all query params are part of the key; an empty set means query params are ignored.
+ *     </li>
+ *     <li>
+ *         {@link #getVaryHeaderNames()} - the request headers whose values make up the cache key, e.g. {@code
+ *         Accept} or {@code Accept-Language}.
+ *     </li>
+ * </ul>
+ *
+ * Use {@link #newBuilder(long)} to create instances.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ResponseCachePolicy {
+
+    protected final long timeToLiveMillis;
+    protected final long staleWhileRevalidateMillis;
+    protected final @Nullable Set<String> keyQueryParamNames;
+    protected final @NotNull List<String> varyHeaderNames;
+
+    protected ResponseCachePolicy(
+        long timeToLiveMillis,
+        long staleWhileRevalidateMillis,
+        @Nullable Collection<String> keyQueryParamNames,
+        @Nullable Collection<String> varyHeaderNames
+    ) {
+        if (timeToLiveMillis <= 0) {
+            throw new IllegalArgumentException("timeToLiveMillis must be greater than 0");
+        }
+
+        if (staleWhileRevalidateMillis < 0) {
+            throw new IllegalArgumentException("staleWhileRevalidateMillis cannot be negative");
+        }
+
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.staleWhileRevalidateMillis = staleWhileRevalidateMillis;
+        // Sort the query param and header names so the cache keys generated from them are deterministic.
+        this.keyQueryParamNames = (keyQueryParamNames == null)
+                                  ? null
+                                  : Collections.unmodifiableSet(new TreeSet<>(keyQueryParamNames));
+        this.varyHeaderNames = (varyHeaderNames == null)
+                               ? Collections.emptyList()
+                               : Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(varyHeaderNames)));
+    }
+
+    /**
+     * @return A new builder for a {@link ResponseCachePolicy} with the given time-to-live.
+     */
+    public static @NotNull Builder newBuilder(long timeToLiveMillis) {
+        return new Builder(timeToLiveMillis);
+    }
+
+    /**
+     * @return How long in milliseconds a cached response is considered fresh.
+     */
+    public long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    /**
+     * @return How long in milliseconds after it expires a cached response may still be served while it is being
+     * regenerated.
+     */
+    public long getStaleWhileRevalidateMillis() {
+        return staleWhileRevalidateMillis;
+    }
+
+    /**
+     * @return The (sorted) names of the query params that are part of the cache key, or null if all query params are
+     * part of the cache key.
+     */
+    public @Nullable Set<String> getKeyQueryParamNames() {
+        return keyQueryParamNames;
+    }
+
+    /**
+     * @return The (sorted) names of the request headers whose values are part of the cache key. Never null.
+     */
+    public @NotNull List<String> getVaryHeaderNames() {
+        return varyHeaderNames;
+    }
+
+    /**
+     * Builder for {@link ResponseCachePolicy}.
+     */
+    public static final class Builder {
+
+        private final long timeToLiveMillis;
+        private long staleWhileRevalidateMillis = 0;
+        private @Nullable Collection<String> keyQueryParamNames;
+        private @Nullable Collection<String> varyHeaderNames;
+
+        private Builder(long timeToLiveMillis) {
+            this.timeToLiveMillis = timeToLiveMillis;
+        }
+
+        public @NotNull Builder withStaleWhileRevalidateMillis(long staleWhileRevalidateMillis) {
+            this.staleWhileRevalidateMillis = staleWhileRevalidateMillis;
+            return this;
+        }
+
+        public @NotNull Builder withKeyQueryParamNames(@Nullable Collection<String> keyQueryParamNames) {
+            this.keyQueryParamNames = keyQueryParamNames;
+            return this;
+        }
+
+        public @NotNull Builder withVaryHeaderNames(@Nullable Collection<String> varyHeaderNames) {
+            this.varyHeaderNames = varyHeaderNames;
+            return this;
+        }
+
+        public @NotNull ResponseCachePolicy build() {
+            return new ResponseCachePolicy(
+                timeToLiveMillis, staleWhileRevalidateMillis, keyQueryParamNames, varyHeaderNames
+            );
+        }
+    }
+}
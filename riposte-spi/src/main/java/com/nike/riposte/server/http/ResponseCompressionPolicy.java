@@ -0,0 +1,154 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-endpoint overrides for how an {@link Endpoint}'s responses are compressed (see {@link
+ * Endpoint#responseCompressionPolicy()}). Any value left null falls back to the server-wide setting.
+ *
+ * <ul>
+ *     <li>
+ *         {@link #getThresholdBytes()} - the size (in bytes) a response payload must exceed before it is compressed.
+ *         Overrides {@link com.nike.riposte.server.config.ServerConfig#responseCompressionThresholdBytes()}.
+ *     </li>
+ *     <li>
+ *         {@link #getCompressionLevel()} - the compression level passed to {@link
+ *         ResponseContentEncoder#newEncoder(Integer)}. The meaning of the level is algorithm specific.
+ *     </li>
+ *     <li>
+ *         {@link #getContentEncodings()} - the content codings (e.g. {@code br}, {@code gzip}) this endpoint allows,
+ *         in order of preference. The preference order is used to break ties between codings the client accepts with
+ *         equal q-values. Codings that the server has no {@link ResponseContentEncoder} for are ignored. An empty
+ *         list disables compression for the endpoint.
+ *     </li>
+ *     <li>
+ *         {@link #isCacheCompressedVariants()} - whether compressed copies of this endpoint's response payloads should
+ *         be cached and reused for identical payloads, so that the encoder doesn't have to run again. Only worth
+ *         enabling for endpoints that return the same content repeatedly. Defaults to false.
+ *     </li>
+ * </ul>
+ *
+ * Use {@link #newBuilder()} to create instances.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ResponseCompressionPolicy {
+
+    protected final @Nullable Integer thresholdBytes;
+    protected final @Nullable Integer compressionLevel;
+    protected final @Nullable List<String> contentEncodings;
+    protected final boolean cacheCompressedVariants;
+
+    protected ResponseCompressionPolicy(
+        @Nullable Integer thresholdBytes,
+        @Nullable Integer compressionLevel,
+        @Nullable List<String> contentEncodings,
+        boolean cacheCompressedVariants
+    ) {
+        if (thresholdBytes != null && thresholdBytes < 0) {
+            throw new IllegalArgumentException("thresholdBytes cannot be negative");
+        }
+
+        this.thresholdBytes = thresholdBytes;
+        this.compressionLevel = compressionLevel;
+        if (contentEncodings == null) {
+            this.contentEncodings = null;
+        }
+        else {
+            List<String> normalized = new ArrayList<>(contentEncodings.size());
+            for (String contentEncoding : contentEncodings) {
+                if (contentEncoding == null || contentEncoding.trim().isEmpty()) {
+                    throw new IllegalArgumentException("contentEncodings cannot contain null or blank values");
+                }
+                normalized.add(contentEncoding.trim().toLowerCase(Locale.US));
+            }
+            this.contentEncodings = Collections.unmodifiableList(normalized);
+        }
+        this.cacheCompressedVariants = cacheCompressedVariants;
+    }
+
+    /**
+     * @return A new builder for a {@link ResponseCompressionPolicy}.
+     */
+    public static @NotNull Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The size (in bytes) a response payload must exceed before it is compressed, or null if the server-wide
+     * threshold should be used.
+     */
+    public @Nullable Integer getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    /**
+     * @return The compression level to use, or null if each encoder's default level should be used.
+     */
+    public @Nullable Integer getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * @return The (lowercased) content codings this endpoint allows in order of preference, or null if all of the
+     * server's encoders are allowed in the server's preference order. An empty list means compression is disabled.
+     */
+    public @Nullable List<String> getContentEncodings() {
+        return contentEncodings;
+    }
+
+    /**
+     * @return true if compressed copies of this endpoint's response payloads should be kept in the server's compressed
+     * variant cache and reused when the same payload is compressed with the same content coding again, false if every
+     * response should be compressed from scratch. Has no effect if the server's compressed variant cache is disabled
+     * (see {@code ServerConfig.ResponseCompressionConfig#compressedVariantCacheMaxSizeInBytes()}).
+     */
+    public boolean isCacheCompressedVariants() {
+        return cacheCompressedVariants;
+    }
+
+    /**
+     * Builder for {@link ResponseCompressionPolicy}.
+     */
+    public static final class Builder {
+
+        private @Nullable Integer thresholdBytes;
+        private @Nullable Integer compressionLevel;
+        private @Nullable List<String> contentEncodings;
+        private boolean cacheCompressedVariants;
+
+        private Builder() {
+        }
+
+        public @NotNull Builder withThresholdBytes(@Nullable Integer thresholdBytes) {
+            this.thresholdBytes = thresholdBytes;
+            return this;
+        }
+
+        public @NotNull Builder withCompressionLevel(@Nullable Integer compressionLevel) {
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        public @NotNull Builder withContentEncodings(@Nullable List<String> contentEncodings) {
+            this.contentEncodings = contentEncodings;
+            return this;
+        }
+
+        public @NotNull Builder withCacheCompressedVariants(boolean cacheCompressedVariants) {
+            this.cacheCompressedVariants = cacheCompressedVariants;
+            return this;
+        }
+
+        public @NotNull ResponseCompressionPolicy build() {
+            return new ResponseCompressionPolicy(
+                thresholdBytes, compressionLevel, contentEncodings, cacheCompressedVariants
+            );
+        }
+    }
+}
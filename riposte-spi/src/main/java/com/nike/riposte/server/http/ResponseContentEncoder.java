@@ -0,0 +1,45 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+/**
+ * A content coding that response payloads can be compressed with (e.g. gzip). The server negotiates which encoder to
+ * use for each response based on the request's Accept-Encoding header (including q-values) and the encoders that are
+ * available - see {@link com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig#contentEncoders()} and
+ * {@link ResponseCompressionPolicy#getContentEncodings()}.
+ *
+ * <p>{@link #GZIP} and {@link #DEFLATE} are provided out of the box. Other codings (e.g. {@code br} or {@code zstd})
+ * can be supported by implementing this interface with a Netty {@link io.netty.handler.codec.MessageToByteEncoder}
+ * from a library that provides that algorithm, and registering it with the server's {@link
+ * com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig}.
+ */
+public interface ResponseContentEncoder {
+
+    /**
+     * Encodes response payloads with gzip using the default compression level (6).
+     */
+    @NotNull ResponseContentEncoder GZIP = new ZlibResponseContentEncoder(ZlibWrapper.GZIP);
+
+    /**
+     * Encodes response payloads with deflate (zlib) using the default compression level (6).
+     */
+    @NotNull ResponseContentEncoder DEFLATE = new ZlibResponseContentEncoder(ZlibWrapper.ZLIB);
+
+    /**
+     * @return The Content-Encoding token for this encoder as it appears in Accept-Encoding and Content-Encoding
+     * headers, e.g. {@code gzip} or {@code br}. Tokens are compared case-insensitively.
+     */
+    @NotNull String contentEncoding();
+
+    /**
+     * @param compressionLevel The compression level that should be used, or null if this encoder's default level
+     * should be used. The meaning of the level is algorithm specific.
+     * @return A new encoder that accepts {@link io.netty.buffer.ByteBuf}s of raw response content and outputs the
+     * encoded bytes. A new instance is needed for every response, so this cannot return a shared handler.
+     */
+    @NotNull ChannelHandler newEncoder(@Nullable Integer compressionLevel);
+}
@@ -1,12 +1,14 @@
 package com.nike.riposte.server.http;
 
 import com.nike.riposte.server.http.impl.ChunkedResponseInfo.ChunkedResponseInfoBuilder;
+import com.nike.riposte.server.http.impl.FileResponseInfo.FileResponseInfoBuilder;
 import com.nike.riposte.server.http.impl.FullResponseInfo.FullResponseInfoBuilder;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.Set;
 
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -286,4 +288,14 @@ public interface ResponseInfo<T> {
         return new ChunkedResponseInfoBuilder();
     }
 
+    /**
+     * @return A new builder for full responses whose body is the given file (or a region of it). The file is streamed
+     * directly from disk to the socket rather than being loaded onto the heap, so this is what you want for serving
+     * static assets, exports, or other large payloads that already live on disk. See {@link
+     * com.nike.riposte.server.http.impl.FileResponseInfo} for details.
+     */
+    static @NotNull FileResponseInfoBuilder newFileResponseBuilder(@NotNull Path file) {
+        return new FileResponseInfoBuilder().withFile(file);
+    }
+
 }
@@ -0,0 +1,90 @@
+package com.nike.riposte.server.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+/**
+ * A {@link ResponseContentEncoder} for the gzip and deflate content codings, backed by Netty's {@link
+ * ZlibCodecFactory}. You'll usually want {@link ResponseContentEncoder#GZIP} or {@link ResponseContentEncoder#DEFLATE}
+ * rather than creating instances of this directly - only create your own if you need non-default zlib settings.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ZlibResponseContentEncoder implements ResponseContentEncoder {
+
+    protected final @NotNull ZlibWrapper wrapper;
+    protected final @NotNull String contentEncoding;
+    protected final int defaultCompressionLevel;
+    protected final int windowBits;
+    protected final int memLevel;
+
+    /**
+     * Creates an instance with the default compression level (6), window bits (15), and memory level (8).
+     *
+     * @param wrapper Must be {@link ZlibWrapper#GZIP} or {@link ZlibWrapper#ZLIB}.
+     */
+    public ZlibResponseContentEncoder(@NotNull ZlibWrapper wrapper) {
+        this(wrapper, 6, 15, 8);
+    }
+
+    /**
+     * @param wrapper Must be {@link ZlibWrapper#GZIP} or {@link ZlibWrapper#ZLIB}.
+     * @param defaultCompressionLevel The compression level (0-9) to use when {@link #newEncoder(Integer)} is not given
+     * one.
+     * @param windowBits The base two logarithm of the size of the history buffer (9-15).
+     * @param memLevel How much memory should be allocated for the internal compression state (1-9).
+     */
+    public ZlibResponseContentEncoder(
+        @NotNull ZlibWrapper wrapper,
+        int defaultCompressionLevel,
+        int windowBits,
+        int memLevel
+    ) {
+        switch (wrapper) {
+            case GZIP:
+                this.contentEncoding = "gzip";
+                break;
+            case ZLIB:
+                this.contentEncoding = "deflate";
+                break;
+            default:
+                throw new IllegalArgumentException(
+                    "Only ZlibWrapper.GZIP and ZlibWrapper.ZLIB are supported. Invalid wrapper: " + wrapper
+                );
+        }
+
+        checkCompressionLevel(defaultCompressionLevel);
+
+        this.wrapper = wrapper;
+        this.defaultCompressionLevel = defaultCompressionLevel;
+        this.windowBits = windowBits;
+        this.memLevel = memLevel;
+    }
+
+    protected static void checkCompressionLevel(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException(
+                "compressionLevel must be between 0 and 9 (inclusive). Invalid value: " + compressionLevel
+            );
+        }
+    }
+
+    @Override
+    public @NotNull String contentEncoding() {
+        return contentEncoding;
+    }
+
+    @Override
+    public @NotNull ChannelHandler newEncoder(@Nullable Integer compressionLevel) {
+        int level = defaultCompressionLevel;
+        if (compressionLevel != null) {
+            checkCompressionLevel(compressionLevel);
+            level = compressionLevel;
+        }
+
+        return ZlibCodecFactory.newZlibEncoder(wrapper, level, windowBits, memLevel);
+    }
+}
@@ -31,6 +31,9 @@ import static com.nike.riposte.util.text.parsercombinator.Parser.Parsers.zeroOrM
 /**
  * Offers a set of Parser instances for parsing the components of an RFC-2616 14.1 Accept Header.
  *
+ * <p>Riposte parses request headers with the equivalent hand-written {@link FastHeaderParser} (cached via {@link
+ * ParsedHeaderCache}), which this class serves as the reference implementation for.
+ *
  * @author Kirk Peterson
  */
 @SuppressWarnings("WeakerAccess")
@@ -40,7 +43,7 @@ public class AcceptHeaderParser {
      * A Parser that extracts the quality-factor from a key-value pair.
      */
     public static Parser<Float> qualityFactorParser =
-        skip(regex("\\s*;?\\s*q\\s*=\\s*")).thenParse(filter(floatNumber(), q -> q > 0.0f && q <= 1.0f));
+        skip(regex("\\s*;?\\s*q\\s*=\\s*")).thenParse(filter(floatNumber(), q -> q >= 0.0f && q <= 1.0f));
 
     /**
      * A Parser that extracts a key-value pair that preceed the quality-factor header.
@@ -0,0 +1,574 @@
+package com.nike.riposte.server.http.header;
+
+import com.nike.riposte.server.http.header.accept.MediaRange;
+import com.nike.riposte.server.http.header.accept.MediaRangeSubType;
+import com.nike.riposte.server.http.header.accept.MediaRangeType;
+import com.nike.riposte.server.http.header.accept.MimeMediaRangeSubType;
+import com.nike.riposte.server.http.header.accept.MimeMediaRangeType;
+import com.nike.riposte.server.http.mimetype.MimeType;
+import com.nike.riposte.server.http.mimetype.MimeType.Facet;
+import com.nike.riposte.server.http.mimetype.MimeType.SubType;
+import com.nike.riposte.server.http.mimetype.MimeType.Type;
+import com.nike.riposte.server.http.mimetype.MimeTypeParser;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Hand-written, single-pass parsers for the Content-Type and Accept header values that Riposte looks at on every
+ * request. They produce the same {@link MimeType} and {@link AcceptHeader} models as {@link MimeTypeParser} and {@link
+ * AcceptHeaderParser}, which remain the reference implementations, but without the regex matching and intermediate
+ * objects of the parser-combinator library. Header values repeat heavily from request to request, so you'll usually
+ * want {@link ParsedHeaderCache} rather than calling these methods directly.
+ *
+ * <p>For well-formed values the results are equal to those of the reference parsers. The reference parsers stop at
+ * the first thing they can't parse and silently return whatever came before it (e.g. {@code
+ * multipart/form-data; boundary=--abc} parses as {@code multipart/form-data} with no parameters). These parsers
+ * instead follow the RFC-7231 syntax - parameter values can be any token or a quoted-string, a subtype's structured
+ * syntax suffix is whatever follows its last {@code +}, and empty Accept list elements are ignored - and reject
+ * anything else outright.
+ *
+ * <p>The returned models are never modified after they're created, and their parameter maps are unmodifiable, so they
+ * can be safely shared between threads. This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class FastHeaderParser {
+
+    protected static final String CHARSET_PARAM_PREFIX = "charset=";
+
+    protected static final Facet[] REGISTRATION_TREE_FACETS =
+        Stream.of(Facet.values()).filter(facet -> facet.getRegistrationTreeName().isPresent()).toArray(Facet[]::new);
+
+    // Intentionally protected - use the static methods.
+    protected FastHeaderParser() { /* do nothing */ }
+
+    /**
+     * @param text The Content-Type header value (or any other RFC-6838 media type) to parse. Leading and trailing
+     * whitespace is ignored.
+     * @return The parsed {@link MimeType}, or empty if the given text isn't a valid media type.
+     */
+    public static @NotNull Optional<MimeType> parseMimeType(@Nullable CharSequence text) {
+        if (text == null)
+            return Optional.empty();
+
+        Cursor cursor = new Cursor(text);
+        cursor.skipWhitespace();
+
+        Type type = parseType(cursor);
+        if (type == null || !cursor.consume('/'))
+            return Optional.empty();
+
+        SubType subType = parseSubType(cursor);
+        if (subType == null)
+            return Optional.empty();
+
+        Map<String, String> parameters = new HashMap<>();
+        while (cursor.consumeSemicolon()) {
+            if (!parseParameter(cursor, parameters, false))
+                return Optional.empty();
+        }
+
+        cursor.skipWhitespace();
+        if (!cursor.atEnd())
+            return Optional.empty();
+
+        return Optional.of(MimeType.of(type, subType, unmodifiable(parameters)));
+    }
+
+    /**
+     * @param text The Accept header value to parse. Leading and trailing whitespace is ignored.
+     * @return The parsed {@link AcceptHeader}, or empty if any of the header's media ranges are invalid. An empty
+     * header value results in an {@link AcceptHeader} with no media ranges, just like {@link AcceptHeaderParser}.
+     */
+    public static @NotNull Optional<AcceptHeader> parseAcceptHeader(@Nullable CharSequence text) {
+        if (text == null)
+            return Optional.empty();
+
+        Cursor cursor = new Cursor(text);
+        List<MediaRange> mediaRanges = new ArrayList<>();
+        while (true) {
+            cursor.skipWhitespace();
+            if (cursor.atEnd())
+                break;
+
+            // RFC-7230 section 7 says empty list elements must be accepted and ignored.
+            if (cursor.consume(','))
+                continue;
+
+            MediaRange mediaRange = parseMediaRange(cursor);
+            if (mediaRange == null)
+                return Optional.empty();
+
+            mediaRanges.add(mediaRange);
+
+            cursor.skipWhitespace();
+            if (!cursor.atEnd() && !cursor.consume(','))
+                return Optional.empty();
+        }
+
+        return Optional.of(new AcceptHeader(mediaRanges));
+    }
+
+    /**
+     * Finds the charset in the given Content-Type header value the same way {@code
+     * HttpUtils.CONTENT_TYPE_CHARSET_EXTRACTOR_PATTERN} does: the first case-insensitive {@code charset=} that starts
+     * a word, followed by optional whitespace and an optional opening quote.
+     *
+     * @param contentTypeHeader The Content-Type header value to search.
+     * @return The charset name exactly as it appears in the header, or null if the header doesn't contain a charset.
+     * The name is not validated - it may even be empty (e.g. {@code text/plain; charset=}).
+     */
+    public static @Nullable String extractCharsetName(@Nullable CharSequence contentTypeHeader) {
+        if (contentTypeHeader == null)
+            return null;
+
+        int length = contentTypeHeader.length();
+        int lastPossibleStart = length - CHARSET_PARAM_PREFIX.length();
+        for (int start = 0; start <= lastPossibleStart; start++) {
+            if ((start > 0 && isRegexWordChar(contentTypeHeader.charAt(start - 1)))
+                || !regionMatchesAsciiIgnoreCase(contentTypeHeader, start, CHARSET_PARAM_PREFIX)
+            ) {
+                continue;
+            }
+
+            int pos = start + CHARSET_PARAM_PREFIX.length();
+            while (pos < length && isRegexWhitespace(contentTypeHeader.charAt(pos))) {
+                pos++;
+            }
+            if (pos < length && contentTypeHeader.charAt(pos) == '"')
+                pos++;
+
+            int valueStart = pos;
+            while (pos < length) {
+                char c = contentTypeHeader.charAt(pos);
+                if (c == ';' || c == '"' || isRegexWhitespace(c))
+                    break;
+                pos++;
+            }
+
+            return contentTypeHeader.subSequence(valueStart, pos).toString();
+        }
+
+        return null;
+    }
+
+    protected static @Nullable MediaRange parseMediaRange(@NotNull Cursor cursor) {
+        MediaRangeType type;
+        MediaRangeSubType subType;
+        if (cursor.consume('*')) {
+            // A wildcard type must have a wildcard subtype.
+            if (!cursor.consume('/') || !cursor.consume('*'))
+                return null;
+
+            type = MediaRange.WILDCARD_TYPE;
+            subType = MediaRange.WILDCARD_SUBTYPE;
+        }
+        else {
+            Type mimeType = parseType(cursor);
+            if (mimeType == null || !cursor.consume('/'))
+                return null;
+
+            type = new MimeMediaRangeType(mimeType);
+            if (cursor.consume('*')) {
+                subType = MediaRange.WILDCARD_SUBTYPE;
+            }
+            else {
+                SubType mimeSubType = parseSubType(cursor);
+                if (mimeSubType == null)
+                    return null;
+
+                subType = new MimeMediaRangeSubType(mimeSubType);
+            }
+        }
+
+        // Parameters before the quality-factor are media-range params, and the ones after it are accept-params.
+        Map<String, String> mediaRangeParameters = new HashMap<>();
+        Map<String, String> acceptParameters = new HashMap<>();
+        Float qualityFactor = null;
+        while (cursor.consumeSemicolon()) {
+            if (qualityFactor == null && cursor.peekQualityFactorName()) {
+                Map<String, String> qualityFactorParam = new HashMap<>(1);
+                if (!parseParameter(cursor, qualityFactorParam, true))
+                    return null;
+
+                qualityFactor = parseQualityFactor(qualityFactorParam.get("q"));
+                if (qualityFactor == null)
+                    return null;
+            }
+            else if (!parseParameter(cursor, (qualityFactor == null) ? mediaRangeParameters : acceptParameters, true)) {
+                return null;
+            }
+        }
+
+        return new MediaRange(
+            type,
+            subType,
+            (qualityFactor == null) ? 1.0f : qualityFactor,
+            unmodifiable(mediaRangeParameters),
+            unmodifiable(acceptParameters)
+        );
+    }
+
+    protected static @Nullable Type parseType(@NotNull Cursor cursor) {
+        String name = cursor.readRestrictedName();
+        return (name == null) ? null : Type.of(name);
+    }
+
+    /**
+     * Parses a subtype per RFC-6838 section 4.2: the characters after the last {@code +} are the structured syntax
+     * suffix, and a leading {@code vnd.}, {@code prs.}, or {@code x.} names the registration tree (matched
+     * case-sensitively, as {@link MimeTypeParser#facetParser} does).
+     */
+    protected static @Nullable SubType parseSubType(@NotNull Cursor cursor) {
+        int start = cursor.pos;
+        if (cursor.atEnd() || !isRestrictedNameFirstChar(cursor.peek()))
+            return null;
+
+        int lastPlus = -1;
+        while (!cursor.atEnd()) {
+            char c = cursor.peek();
+            if (c == '+')
+                lastPlus = cursor.pos;
+            else if (!isRestrictedNameChar(c))
+                break;
+            cursor.pos++;
+        }
+
+        String fullName;
+        Optional<String> suffix;
+        if (lastPlus < 0) {
+            fullName = cursor.substring(start, cursor.pos);
+            suffix = Optional.empty();
+        }
+        else {
+            if (lastPlus + 1 >= cursor.pos || !isRestrictedNameFirstChar(cursor.charAt(lastPlus + 1)))
+                return null;
+
+            fullName = cursor.substring(start, lastPlus);
+            suffix = Optional.of(cursor.substring(lastPlus + 1, cursor.pos));
+        }
+
+        for (Facet facet : REGISTRATION_TREE_FACETS) {
+            @SuppressWarnings("OptionalGetWithoutIsPresent")
+            String tree = facet.getRegistrationTreeName().get();
+            int treeLength = tree.length();
+            if (fullName.length() > treeLength + 1
+                && fullName.startsWith(tree)
+                && fullName.charAt(treeLength) == '.'
+                && isRestrictedNameFirstChar(fullName.charAt(treeLength + 1))
+            ) {
+                return SubType.of(facet, fullName.substring(treeLength + 1), suffix);
+            }
+        }
+
+        return SubType.of(Facet.STANDARD, fullName, suffix);
+    }
+
+    /**
+     * Parses a {@code name=value} parameter (the leading semicolon must have already been consumed) into the given
+     * map, where the value is a token or a quoted-string. Whitespace around the {@code =} is only allowed when
+     * parsing Accept headers, matching {@link AcceptHeaderParser}.
+     *
+     * @return true if a parameter was parsed, false if the input isn't a valid parameter.
+     */
+    protected static boolean parseParameter(
+        @NotNull Cursor cursor, @NotNull Map<String, String> parameters, boolean allowWhitespaceAroundEquals
+    ) {
+        String name = cursor.readToken();
+        if (name == null)
+            return false;
+
+        if (allowWhitespaceAroundEquals)
+            cursor.skipWhitespace();
+
+        if (!cursor.consume('='))
+            return false;
+
+        if (allowWhitespaceAroundEquals)
+            cursor.skipWhitespace();
+
+        String value = (!cursor.atEnd() && cursor.peek() == '"') ? cursor.readQuotedString() : cursor.readToken();
+        if (value == null)
+            return false;
+
+        parameters.put(name, value);
+        return true;
+    }
+
+    /**
+     * @return The given q-value as a float, or null if it isn't a plain decimal number between 0 and 1 inclusive.
+     */
+    protected static @Nullable Float parseQualityFactor(@Nullable String value) {
+        if (value == null || value.isEmpty())
+            return null;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '.' && (c < '0' || c > '9'))
+                return null;
+        }
+
+        float qualityFactor;
+        try {
+            qualityFactor = Float.parseFloat(value);
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+
+        return (qualityFactor >= 0.0f && qualityFactor <= 1.0f) ? qualityFactor : null;
+    }
+
+    protected static @NotNull Map<String, String> unmodifiable(@NotNull Map<String, String> map) {
+        return (map.isEmpty()) ? Collections.emptyMap() : Collections.unmodifiableMap(map);
+    }
+
+    protected static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * @return true if the given char can start an RFC-6838 restricted-name.
+     */
+    protected static boolean isRestrictedNameFirstChar(char c) {
+        return isAsciiLetterOrDigit(c);
+    }
+
+    /**
+     * @return true if the given char is allowed in an RFC-6838 restricted-name, excluding {@code +} (which is handled
+     * separately as the structured syntax suffix delimiter). This is the same set of chars {@link
+     * MimeTypeParser#tokenPattern} allows.
+     */
+    protected static boolean isRestrictedNameChar(char c) {
+        if (isAsciiLetterOrDigit(c))
+            return true;
+
+        switch (c) {
+            case '!':
+            case '#':
+            case '$':
+            case '&':
+            case '-':
+            case '^':
+            case '_':
+            case '.':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if the given char is an RFC-7230 tchar, i.e. allowed in parameter names and unquoted values.
+     */
+    protected static boolean isTokenChar(char c) {
+        if (isAsciiLetterOrDigit(c))
+            return true;
+
+        switch (c) {
+            case '!':
+            case '#':
+            case '$':
+            case '%':
+            case '&':
+            case '\'':
+            case '*':
+            case '+':
+            case '-':
+            case '.':
+            case '^':
+            case '_':
+            case '`':
+            case '|':
+            case '~':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return true if the given char matches the regex {@code \s} character class.
+     */
+    protected static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * @return true if the given char counts as a word char for the regex {@code \b} boundary.
+     */
+    protected static boolean isRegexWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Compares the given lowercase ASCII string against the text at the given offset, ignoring ASCII case only (the
+     * same as the regex {@code (?i)} flag does without {@code UNICODE_CASE}).
+     */
+    protected static boolean regionMatchesAsciiIgnoreCase(
+        @NotNull CharSequence text, int offset, @NotNull String lowercaseAscii
+    ) {
+        for (int i = 0; i < lowercaseAscii.length(); i++) {
+            char c = text.charAt(offset + i);
+            if (c >= 'A' && c <= 'Z')
+                c = (char) (c + ('a' - 'A'));
+
+            if (c != lowercaseAscii.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * A read position in the text being parsed.
+     */
+    protected static final class Cursor {
+        private final CharSequence text;
+        private final int length;
+        int pos;
+
+        Cursor(@NotNull CharSequence text) {
+            this.text = text;
+            this.length = text.length();
+            this.pos = 0;
+        }
+
+        boolean atEnd() {
+            return pos >= length;
+        }
+
+        char peek() {
+            return text.charAt(pos);
+        }
+
+        char charAt(int index) {
+            return text.charAt(index);
+        }
+
+        @NotNull String substring(int start, int end) {
+            return text.subSequence(start, end).toString();
+        }
+
+        boolean consume(char expected) {
+            if (pos < length && text.charAt(pos) == expected) {
+                pos++;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Skips RFC-7230 optional whitespace (spaces and horizontal tabs).
+         */
+        void skipWhitespace() {
+            while (pos < length) {
+                char c = text.charAt(pos);
+                if (c != ' ' && c != '\t')
+                    return;
+                pos++;
+            }
+        }
+
+        /**
+         * Consumes a semicolon and any whitespace around it. The position is left unchanged if the next
+         * non-whitespace char isn't a semicolon.
+         */
+        boolean consumeSemicolon() {
+            int start = pos;
+            skipWhitespace();
+            if (!consume(';')) {
+                pos = start;
+                return false;
+            }
+
+            skipWhitespace();
+            return true;
+        }
+
+        /**
+         * @return true if the next parameter is the {@code q} quality-factor, which like {@link AcceptHeaderParser}
+         * is only recognized in lowercase.
+         */
+        boolean peekQualityFactorName() {
+            if (pos >= length || text.charAt(pos) != 'q')
+                return false;
+
+            int next = pos + 1;
+            while (next < length && (text.charAt(next) == ' ' || text.charAt(next) == '\t')) {
+                next++;
+            }
+            return next < length && text.charAt(next) == '=';
+        }
+
+        @Nullable String readRestrictedName() {
+            int start = pos;
+            if (pos >= length || !isRestrictedNameFirstChar(text.charAt(pos)))
+                return null;
+
+            pos++;
+            while (pos < length && isRestrictedNameChar(text.charAt(pos))) {
+                pos++;
+            }
+            return substring(start, pos);
+        }
+
+        @Nullable String readToken() {
+            int start = pos;
+            while (pos < length && isTokenChar(text.charAt(pos))) {
+                pos++;
+            }
+            return (pos == start) ? null : substring(start, pos);
+        }
+
+        /**
+         * Reads an RFC-7230 quoted-string, returning its contents with any quoted-pairs unescaped, or null if the
+         * closing quote is missing.
+         */
+        @Nullable String readQuotedString() {
+            if (!consume('"'))
+                return null;
+
+            StringBuilder sb = null;
+            int segmentStart = pos;
+            while (pos < length) {
+                char c = text.charAt(pos);
+                if (c == '"') {
+                    String value = (sb == null)
+                                   ? substring(segmentStart, pos)
+                                   : sb.append(text, segmentStart, pos).toString();
+                    pos++;
+                    return value;
+                }
+
+                if (c == '\\') {
+                    if (pos + 1 >= length)
+                        return null;
+
+                    if (sb == null)
+                        sb = new StringBuilder();
+                    sb.append(text, segmentStart, pos).append(text.charAt(pos + 1));
+                    pos += 2;
+                    segmentStart = pos;
+                    continue;
+                }
+
+                if (c < ' ' && c != '\t')
+                    return null;
+
+                pos++;
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.nike.riposte.server.http.header;
+
+import com.nike.riposte.server.http.mimetype.MimeType;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.Charset;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Caches the results of {@link FastHeaderParser} by raw header value. In practice the Content-Type and Accept headers
+ * a service sees come from a tiny set of distinct values, so in steady state parsing them is a hash lookup. Results
+ * are shared between callers and threads, which is safe since the parsed models are never modified.
+ * <p/>
+ * Header values are caller-controlled, so the cache is bounded two ways: values longer than {@link
+ * #MAX_CACHEABLE_VALUE_LENGTH} are parsed but never cached, and a cache that reaches its max entries is cleared before
+ * the next value is added. Clearing (rather than refusing new entries like {@link
+ * com.nike.riposte.util.ObjectReaderWriterCache} does) means a burst of unique junk values can't permanently lock the
+ * common values out of the cache - they're simply re-cached on their next use.
+ * <p/>
+ * This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ParsedHeaderCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+    public static final int MAX_CACHEABLE_VALUE_LENGTH = 1024;
+
+    private static final ParsedHeaderCache DEFAULT_INSTANCE = new ParsedHeaderCache(DEFAULT_MAX_ENTRIES);
+
+    protected final int maxEntries;
+    protected final ConcurrentMap<String, Optional<MimeType>> mimeTypes = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<String, Optional<AcceptHeader>> acceptHeaders = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<String, Optional<Charset>> contentTypeCharsets = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxEntries The max number of entries to cache for each kind of header. Pass 0 to disable caching.
+     */
+    public ParsedHeaderCache(int maxEntries) {
+        if (maxEntries < 0)
+            throw new IllegalArgumentException("maxEntries cannot be negative");
+
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return The JVM-wide instance used by Riposte for parsing request and response headers.
+     */
+    public static @NotNull ParsedHeaderCache getDefaultInstance() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * @return The result of {@link FastHeaderParser#parseMimeType(CharSequence)} for the given value, e.g. a
+     * Content-Type header.
+     */
+    public @NotNull Optional<MimeType> mimeType(@NotNull String headerValue) {
+        return getOrParse(mimeTypes, headerValue, FastHeaderParser::parseMimeType);
+    }
+
+    /**
+     * @return The result of {@link FastHeaderParser#parseAcceptHeader(CharSequence)} for the given Accept header
+     * value.
+     */
+    public @NotNull Optional<AcceptHeader> acceptHeader(@NotNull String headerValue) {
+        return getOrParse(acceptHeaders, headerValue, FastHeaderParser::parseAcceptHeader);
+    }
+
+    /**
+     * @return The charset named by the given Content-Type header value (as found by {@link
+     * FastHeaderParser#extractCharsetName(CharSequence)}), or empty if the header doesn't name a charset.
+     * @throws IllegalArgumentException (e.g. {@link java.nio.charset.UnsupportedCharsetException}) if the header names
+     * a charset that doesn't exist. These failures are not cached.
+     */
+    public @NotNull Optional<Charset> charsetFromContentType(@NotNull String contentTypeHeader) {
+        return getOrParse(contentTypeCharsets, contentTypeHeader, ParsedHeaderCache::parseCharset);
+    }
+
+    protected static @NotNull Optional<Charset> parseCharset(@NotNull String contentTypeHeader) {
+        String charsetName = FastHeaderParser.extractCharsetName(contentTypeHeader);
+        if (charsetName == null)
+            return Optional.empty();
+
+        return Optional.of(Charset.forName(charsetName.trim().toUpperCase()));
+    }
+
+    protected <V> @NotNull V getOrParse(
+        @NotNull ConcurrentMap<String, V> cache, @NotNull String headerValue, @NotNull Function<String, V> parser
+    ) {
+        V result = cache.get(headerValue);
+        if (result != null)
+            return result;
+
+        result = parser.apply(headerValue);
+        if (maxEntries > 0 && headerValue.length() <= MAX_CACHEABLE_VALUE_LENGTH) {
+            if (cache.size() >= maxEntries)
+                cache.clear();
+
+            V existing = cache.putIfAbsent(headerValue, result);
+            if (existing != null)
+                return existing;
+        }
+
+        return result;
+    }
+}
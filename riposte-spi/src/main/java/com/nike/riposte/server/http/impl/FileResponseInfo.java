@@ -0,0 +1,232 @@
+package com.nike.riposte.server.http.impl;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Set;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.cookie.Cookie;
+
+/**
+ * An extension of {@link BaseResponseInfo} that represents a full (not chunked) response whose body is a region of a
+ * file on disk rather than an in-memory object. The response sender streams the file region straight to the socket
+ * (zero-copy via {@link io.netty.channel.FileRegion} when possible, or {@link io.netty.handler.stream.ChunkedNioFile}
+ * when the channel is encrypted) instead of loading it onto the heap, sets Content-Length and ETag headers based on the
+ * file region, and honors single-range HTTP {@code Range} requests if {@link #isRangeRequestsAllowed()} is true.
+ *
+ * <p>{@link #getContentForFullResponse()} returns the {@link Path} of the file. The region of the file to send is
+ * defined by {@link #getFileOffset()} and {@link #getFileLength()} - a null length means "everything from the offset
+ * to the end of the file". You should use the {@link FileResponseInfoBuilder} (via {@link
+ * com.nike.riposte.server.http.ResponseInfo#newFileResponseBuilder(Path)}) to create new instances.
+ */
+@SuppressWarnings("WeakerAccess")
+public class FileResponseInfo extends BaseResponseInfo<Path> {
+
+    /**
+     * The mime type that will be used if neither {@link #getDesiredContentWriterMimeType()} nor a Content-Type header
+     * are specified when this object is created.
+     */
+    public static final String DEFAULT_FILE_MIME_TYPE = "application/octet-stream";
+
+    protected @Nullable Path file;
+    protected final long fileOffset;
+    protected final @Nullable Long fileLength;
+    protected final boolean rangeRequestsAllowed;
+
+    /**
+     * The "populate everything" constructor. It's recommended that you use the {@link FileResponseInfoBuilder}
+     * instead.
+     */
+    public FileResponseInfo(
+        @Nullable Path file,
+        long fileOffset,
+        @Nullable Long fileLength,
+        boolean rangeRequestsAllowed,
+        @Nullable Integer httpStatusCode,
+        @Nullable HttpHeaders headers,
+        @Nullable String desiredContentWriterMimeType,
+        @Nullable Charset desiredContentWriterEncoding,
+        @Nullable Set<Cookie> cookies,
+        boolean preventCompressedOutput
+    ) {
+        super(httpStatusCode, headers, desiredContentWriterMimeType, desiredContentWriterEncoding, cookies,
+              preventCompressedOutput);
+
+        if (fileOffset < 0) {
+            throw new IllegalArgumentException("fileOffset cannot be negative");
+        }
+
+        if (fileLength != null && fileLength < 0) {
+            throw new IllegalArgumentException("fileLength cannot be negative");
+        }
+
+        if (this.desiredContentWriterMimeType == null && !this.headers.contains(HttpHeaderNames.CONTENT_TYPE)) {
+            this.desiredContentWriterMimeType = DEFAULT_FILE_MIME_TYPE;
+        }
+
+        this.file = file;
+        this.fileOffset = fileOffset;
+        this.fileLength = fileLength;
+        this.rangeRequestsAllowed = rangeRequestsAllowed;
+    }
+
+    /**
+     * Since this is a full response, this method always returns false.
+     */
+    @Override
+    public boolean isChunkedResponse() {
+        return false;
+    }
+
+    /**
+     * @return The file that should be sent as the response body, or null if no body should be sent.
+     */
+    @Override
+    public @Nullable Path getContentForFullResponse() {
+        return file;
+    }
+
+    @Override
+    public void setContentForFullResponse(@Nullable Path file) {
+        if (isResponseSendingLastChunkSent()) {
+            throw new IllegalStateException("isFullResponseSent() is true. You cannot set content for a response that "
+                                            + "has already been sent to the user.");
+        }
+
+        this.file = file;
+    }
+
+    /**
+     * @return The byte offset into {@link #getContentForFullResponse()} where the response body starts.
+     */
+    public long getFileOffset() {
+        return fileOffset;
+    }
+
+    /**
+     * @return The number of bytes of {@link #getContentForFullResponse()} (starting at {@link #getFileOffset()}) that
+     * make up the response body, or null if the response body should extend to the end of the file.
+     */
+    public @Nullable Long getFileLength() {
+        return fileLength;
+    }
+
+    /**
+     * @return true if the response sender should honor a single-range {@code Range: bytes=...} request header by
+     * returning a 206 Partial Content response for the requested sub-region, false if Range headers should be ignored.
+     */
+    public boolean isRangeRequestsAllowed() {
+        return rangeRequestsAllowed;
+    }
+
+    /**
+     * Builder for {@link FileResponseInfo}. Create one of these with {@link
+     * com.nike.riposte.server.http.ResponseInfo#newFileResponseBuilder(Path)}.
+     */
+    public static final class FileResponseInfoBuilder extends BaseResponseInfoBuilder<Path> {
+
+        private @Nullable Path file;
+        private long fileOffset = 0;
+        private @Nullable Long fileLength;
+        private boolean rangeRequestsAllowed = true;
+
+        public FileResponseInfoBuilder() {
+
+        }
+
+        /**
+         * Populates this builder with the file to send as the response body.
+         */
+        public @NotNull FileResponseInfoBuilder withFile(@Nullable Path file) {
+            this.file = file;
+            return this;
+        }
+
+        /**
+         * Populates this builder with the byte offset into the file where the response body starts. Defaults to 0.
+         */
+        public @NotNull FileResponseInfoBuilder withFileOffset(long fileOffset) {
+            this.fileOffset = fileOffset;
+            return this;
+        }
+
+        /**
+         * Populates this builder with the number of bytes of the file (starting at the file offset) to send. Defaults
+         * to null, meaning "everything from the offset to the end of the file".
+         */
+        public @NotNull FileResponseInfoBuilder withFileLength(@Nullable Long fileLength) {
+            this.fileLength = fileLength;
+            return this;
+        }
+
+        /**
+         * Populates this builder with whether single-range HTTP Range requests should be honored. Defaults to true.
+         */
+        public @NotNull FileResponseInfoBuilder withRangeRequestsAllowed(boolean rangeRequestsAllowed) {
+            this.rangeRequestsAllowed = rangeRequestsAllowed;
+            return this;
+        }
+
+        @Override
+        public @NotNull FileResponseInfoBuilder withHttpStatusCode(@Nullable Integer httpStatusCode) {
+            super.withHttpStatusCode(httpStatusCode);
+            return this;
+        }
+
+        @Override
+        public @NotNull FileResponseInfoBuilder withHeaders(@Nullable HttpHeaders headers) {
+            super.withHeaders(headers);
+            return this;
+        }
+
+        @Override
+        public @NotNull FileResponseInfoBuilder withDesiredContentWriterMimeType(
+            @Nullable String desiredContentWriterMimeType
+        ) {
+            super.withDesiredContentWriterMimeType(desiredContentWriterMimeType);
+            return this;
+        }
+
+        @Override
+        public @NotNull FileResponseInfoBuilder withDesiredContentWriterEncoding(
+            @Nullable Charset desiredContentWriterEncoding
+        ) {
+            super.withDesiredContentWriterEncoding(desiredContentWriterEncoding);
+            return this;
+        }
+
+        @Override
+        public @NotNull FileResponseInfoBuilder withCookies(@Nullable Set<Cookie> cookies) {
+            super.withCookies(cookies);
+            return this;
+        }
+
+        @Override
+        public @NotNull FileResponseInfoBuilder withPreventCompressedOutput(boolean preventCompressedOutput) {
+            super.withPreventCompressedOutput(preventCompressedOutput);
+            return this;
+        }
+
+        /**
+         * @return A {@link FileResponseInfo} setup with all the values contained in this builder.
+         */
+        public @NotNull FileResponseInfo build() {
+            return new FileResponseInfo(file,
+                                        fileOffset,
+                                        fileLength,
+                                        rangeRequestsAllowed,
+                                        getHttpStatusCode(),
+                                        getHeaders(),
+                                        getDesiredContentWriterMimeType(),
+                                        getDesiredContentWriterEncoding(),
+                                        getCookies(),
+                                        isPreventCompressedOutput()
+            );
+        }
+    }
+
+}
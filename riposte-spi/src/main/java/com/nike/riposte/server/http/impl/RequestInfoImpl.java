@@ -1,8 +1,11 @@
 package com.nike.riposte.server.http.impl;
 
+import com.nike.riposte.server.error.exception.InvalidHttpRequestException;
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
+import com.nike.riposte.server.http.ContentCodec;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.util.HttpUtils;
+import com.nike.riposte.util.ObjectReaderWriterCache;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,8 +15,15 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -21,10 +31,16 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -38,11 +54,40 @@ import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
 import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
+import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder.ErrorDataDecoderException;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
 import io.netty.util.ReferenceCounted;
 
 /**
  * Default implementation of {@link RequestInfo}
+ * <p/>
+ * A {@link RequestInfoImpl} is created for every request, so the parts of it that many requests never touch (the
+ * query params, cookies, content charset, and trailing headers) are computed lazily the first time
+ * they're asked for and then memoized, rather than being computed up front in the constructor. They're memoized in
+ * volatile fields, and the mutable ones (cookies and trailing headers) plus the query params are created under this
+ * instance's lock so that every thread gets the same instance.
+ * <p/>
+ * Content chunks are only ever added on the Netty worker thread, and the content is immutable once {@link
+ * #isCompleteRequestWithAllChunks()} is true. Since {@link #isCompleteRequestWithAllChunks} is volatile and is set
+ * after the final chunk is added, any thread that sees it set will also see the complete content. The content views
+ * ({@link #getRawContentBytes()}, {@link #getRawContent()}, {@link #getContent()}, and {@link #getMultipartParts()})
+ * are memoized in volatile fields, so once a view has been created, reading it from any thread is lock-free. Only
+ * the first creation of the raw bytes, deserialized content, and multipart views locks this instance. Those steps
+ * must happen at most once, because they release the content chunks or return an object the caller may hold on to.
+ * <p/>
+ * If {@link #spillContentToDiskPastThreshold(long, Path)} has been called, then once the content grows past the
+ * threshold the chunks are written to a temp file and released, and every chunk after that is written to the file and
+ * released as it arrives. {@link #getRawContentBytes()} then memory-maps the file to read the content back. The temp
+ * file is deleted as soon as the content has been read back or the content chunks are released, whichever comes first.
+ * If {@link #spillContentToDiskPastThreshold(long, Path, Executor)} was given an executor then the temp file is
+ * created and written on that executor instead of the thread adding the chunks. The writes are queued in chunk order,
+ * {@link #getPendingSpillFileWrites()} completes once the queue is empty, and {@link #getRawContentBytes()} waits for
+ * it before reading the file back.
+ * <p/>
+ * If {@link #decodeMultipartContentAsItArrives(long, Path)} has been called on a multipart request, then the multipart
+ * decoder is created up front and each chunk is offered to it and released as soon as it's added, so the parts are
+ * already decoded (with large parts stored in temp files) by the time the last chunk arrives. The raw content views
+ * return null in that case, since the raw chunks are gone.
  *
  * @author Nic Munroe
  */
@@ -55,30 +100,59 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
     protected final @NotNull String path;
     protected final @Nullable HttpMethod method;
     protected final @NotNull HttpHeaders headers;
-    protected @NotNull HttpHeaders trailingHeaders;
-    protected @NotNull final QueryStringDecoder queryParams;
-    protected final @NotNull Set<Cookie> cookies;
+    // Starts out as EmptyHttpHeaders.INSTANCE when there are no trailing headers yet, and is swapped for a mutable
+    //      DefaultHttpHeaders only if needed - see getTrailingHeaders().
+    protected volatile @NotNull HttpHeaders trailingHeaders;
+    // Lazily created from the uri - see getQueryParams().
+    protected volatile @Nullable QueryStringDecoder queryParams;
+    // Lazily extracted from cookieSourceRequest (if non-null) - see getCookies(). cookieSourceRequest is only
+    //      cleared while holding this instance's lock, after cookies has been set.
+    protected volatile @Nullable Set<Cookie> cookies;
+    protected volatile @Nullable HttpRequest cookieSourceRequest;
     protected @Nullable String pathTemplate;
     protected @NotNull Map<String, String> pathParams = Collections.emptyMap();
     protected final @NotNull Map<String, Object> attributes = new HashMap<>();
     protected int rawContentLengthInBytes;
-    protected @Nullable byte[] rawContentBytes;
-    protected @Nullable String rawContent;
-    protected @Nullable T content;
-    protected final @NotNull Charset contentCharset;
+    protected volatile @Nullable byte[] rawContentBytes;
+    protected volatile boolean rawContentBytesInitialized = false;
+    protected volatile @Nullable String rawContent;
+    protected volatile @Nullable T content;
+    // Lazily determined from the content-type header - see getContentCharset().
+    protected volatile @Nullable Charset contentCharset;
     protected final @Nullable HttpVersion protocolVersion;
     protected final boolean keepAliveRequested;
     protected final @NotNull List<HttpContent> contentChunks = new ArrayList<>();
-    protected boolean isCompleteRequestWithAllChunks;
+    protected volatile boolean isCompleteRequestWithAllChunks;
     protected final boolean isMultipart;
     protected boolean multipartDataIsDestroyed = false;
-    protected @Nullable HttpPostMultipartRequestDecoder multipartData;
+    protected volatile @Nullable HttpPostMultipartRequestDecoder multipartData;
+    // True when multipartData was created up front and is being fed content chunks as they arrive.
+    protected boolean multipartDecodedIncrementally = false;
 
     protected @Nullable ObjectMapper contentDeserializer;
+    protected @Nullable ContentCodec contentCodec;
     protected @Nullable TypeReference<T> contentDeserializerTypeReference;
 
     protected boolean contentChunksWillBeReleasedExternally = false;
 
+    // Spilling content to a temp file is disabled (-1) until spillContentToDiskPastThreshold() is called.
+    protected long spillThresholdBytes = -1;
+    protected @Nullable Path spillTempDirectory;
+    // Guards creating, writing, and deleting the spill file. Writes done on spillWriteExecutor only hold this lock
+    //      rather than the instance lock, so a slow disk never holds up the rest of this class.
+    protected final Object spillFileLock = new Object();
+    protected @Nullable Path spillFile;
+    protected @Nullable FileChannel spillFileChannel;
+    // Set on the thread adding chunks as soon as the first chunk is handed to the spill file, which may be before the
+    //      file exists if the writes are done on spillWriteExecutor.
+    protected volatile boolean contentSpilledToFile = false;
+    protected @Nullable Executor spillWriteExecutor;
+    // Each queued write is chained onto the previous one, so the writes happen one at a time and in chunk order.
+    protected volatile @NotNull CompletableFuture<Void> pendingSpillFileWrites =
+        CompletableFuture.completedFuture(null);
+    // Queued writes that run after the content has been released must not recreate the spill file.
+    protected volatile boolean spillFileReleased = false;
+
     public RequestInfoImpl(
         @Nullable String uri,
         @Nullable HttpMethod method,
@@ -102,18 +176,13 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         }
 
         if (trailingHeaders == null) {
-            trailingHeaders = new DefaultHttpHeaders();
-        }
-
-        if (queryParams == null) {
-            queryParams = new QueryStringDecoder(uri);
-        }
-
-        if (cookies == null) {
-            cookies = new HashSet<>();
+            trailingHeaders = EmptyHttpHeaders.INSTANCE;
         }
 
         this.uri = uri;
+        // The path is decoded eagerly (unlike the other lazily computed fields) because decoding it is how invalid
+        //      URIs are detected so that they can be rejected up front. It's cheap for the common case where the path
+        //      has nothing to decode.
         this.path = QueryStringDecoder.decodeComponent(HttpUtils.extractPath(uri));
         this.method = method;
         this.headers = headers;
@@ -121,7 +190,6 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         this.queryParams = queryParams;
         this.cookies = cookies;
         setPathParams(pathParams);
-        this.contentCharset = HttpUtils.determineCharsetFromContentType(headers, DEFAULT_CONTENT_CHARSET);
         if (contentChunks != null) {
             contentChunks.forEach(this::addContentChunk);
         }
@@ -138,7 +206,7 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
             request.headers(),
             HttpUtils.extractTrailingHeadersIfPossible(request),
             null,
-            HttpUtils.extractCookies(request),
+            null,
             null,
             HttpUtils.extractContentChunks(request),
             request.protocolVersion(),
@@ -146,6 +214,8 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
             (request instanceof FullHttpRequest),
             HttpPostRequestDecoder.isMultipart(request)
         );
+        // Cookies are only decoded if getCookies() is actually called.
+        this.cookieSourceRequest = request;
     }
 
     /**
@@ -158,7 +228,8 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         QueryStringDecoder queryParams = new QueryStringDecoder("/?" + NONE_OR_UNKNOWN_TAG + "=true");
 
         return new RequestInfoImpl<>(
-            NONE_OR_UNKNOWN_TAG, null, headers, null, queryParams, null, null, null, null, false, true, false
+            NONE_OR_UNKNOWN_TAG, null, headers, new DefaultHttpHeaders(), queryParams, null, null, null, null, false,
+            true, false
         );
     }
 
@@ -199,7 +270,17 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      */
     @Override
     public @NotNull QueryStringDecoder getQueryParams() {
-        return queryParams;
+        QueryStringDecoder result = queryParams;
+        if (result != null)
+            return result;
+
+        synchronized (this) {
+            // The decoder memoizes its own parse results, so every caller must get the same instance.
+            if (queryParams == null)
+                queryParams = new QueryStringDecoder(uri);
+
+            return queryParams;
+        }
     }
 
     /**
@@ -207,7 +288,21 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      */
     @Override
     public @NotNull Set<Cookie> getCookies() {
-        return cookies;
+        Set<Cookie> result = cookies;
+        if (result != null)
+            return result;
+
+        synchronized (this) {
+            // The set is mutable and the source request is cleared below, so it must only be created once.
+            if (cookies == null) {
+                HttpRequest sourceRequest = cookieSourceRequest;
+                cookies = (sourceRequest == null) ? new HashSet<>() : HttpUtils.extractCookies(sourceRequest);
+                // We don't need the request anymore.
+                cookieSourceRequest = null;
+            }
+
+            return cookies;
+        }
     }
 
     /**
@@ -215,7 +310,13 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      */
     @Override
     public @NotNull Charset getContentCharset() {
-        return contentCharset;
+        Charset result = contentCharset;
+        if (result == null) {
+            result = HttpUtils.determineCharsetFromContentType(headers, DEFAULT_CONTENT_CHARSET);
+            contentCharset = result;
+        }
+
+        return result;
     }
 
     /**
@@ -238,7 +339,7 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      * {@inheritDoc}
      */
     @Override
-    public synchronized int getRawContentLengthInBytes() {
+    public int getRawContentLengthInBytes() {
         if (!isCompleteRequestWithAllChunks)
             return 0;
 
@@ -249,47 +350,84 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      * {@inheritDoc}
      */
     @Override
-    public synchronized @Nullable byte[] getRawContentBytes() {
+    public @Nullable byte[] getRawContentBytes() {
         if (!isCompleteRequestWithAllChunks)
             return null;
 
-        if (!contentChunks.isEmpty()) {
-            rawContentBytes = HttpUtils.convertContentChunksToRawBytes(contentChunks);
-            releaseContentChunks();
-        }
+        // Lock-free fast path for when the raw bytes have already been created.
+        if (rawContentBytesInitialized)
+            return rawContentBytes;
+
+        // Wait outside the lock so that other threads aren't held up behind the disk.
+        if (contentSpilledToFile)
+            waitForPendingSpillFileWrites();
+
+        synchronized (this) {
+            // Converting the chunks releases them, so it must only happen once no matter how many threads get here.
+            if (!rawContentBytesInitialized) {
+                if (contentSpilledToFile) {
+                    synchronized (spillFileLock) {
+                        FileChannel fileChannel = spillFileChannel;
+                        if (fileChannel != null)
+                            rawContentBytes = readContentFromSpillFile(fileChannel);
+                    }
+                    releaseContentChunks();
+                }
+                else if (!contentChunks.isEmpty()) {
+                    rawContentBytes = HttpUtils.convertContentChunksToRawBytes(contentChunks);
+                    releaseContentChunks();
+                }
+                rawContentBytesInitialized = true;
+            }
 
-        return rawContentBytes;
+            return rawContentBytes;
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized @Nullable String getRawContent() {
+    public @Nullable String getRawContent() {
         if (!isCompleteRequestWithAllChunks)
             return null;
 
-        if (rawContent != null)
-            return rawContent;
+        String result = rawContent;
+        if (result != null)
+            return result;
 
-        // The raw content string has not been loaded/cached yet. Do that now.
-        rawContent = HttpUtils.convertRawBytesToString(getContentCharset(), getRawContentBytes());
+        // The raw content string has not been loaded/cached yet. Do that now. No lock is needed - converting the
+        //      (immutable) raw bytes is idempotent, so the worst case is that racing threads each create an equal
+        //      string and one of them wins.
+        result = HttpUtils.convertRawBytesToString(getContentCharset(), getRawContentBytes());
+        rawContent = result;
 
-        return rawContent;
+        return result;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized @Nullable T getContent() {
+    public @Nullable T getContent() {
         if (!isCompleteRequestWithAllChunks)
             return null;
 
-        if (content == null)
-            content = deserializeContent();
+        // Lock-free fast path for when the content has already been deserialized.
+        T result = content;
+        if (result != null)
+            return result;
+
+        if (contentSpilledToFile)
+            waitForPendingSpillFileWrites();
+
+        synchronized (this) {
+            // Only deserialize once so that every caller gets the same object.
+            if (content == null)
+                content = deserializeContent();
 
-        return content;
+            return content;
+        }
     }
 
     /**
@@ -304,41 +442,63 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      * {@inheritDoc}
      */
     @Override
-    public synchronized @Nullable List<InterfaceHttpData> getMultipartParts() {
+    public @Nullable List<InterfaceHttpData> getMultipartParts() {
         if (!isMultipartRequest() || !isCompleteRequestWithAllChunks())
             return null;
 
-        if (multipartData == null) {
-            byte[] contentBytes = getRawContentBytes();
-            HttpVersion httpVersion = getProtocolVersion();
-            HttpMethod httpMethod = getMethod();
-            // HttpVersion and HttpMethod cannot be null because DefaultFullHttpRequest doesn't allow them to be
-            //      null, but our getProtocolVersion() and getMethod() methods might return null (i.e. due to an
-            //      invalid request). They shouldn't be null in practice by the time this getMultipartParts() method
-            //      is called, but since they don't seem to be used by the Netty code we delegate to, we can just
-            //      default them to something if null somehow slips through.
-            if (httpVersion == null) {
-                httpVersion = HttpVersion.HTTP_1_0;
-            }
-
-            if (httpMethod == null) {
-                httpMethod = HttpMethod.POST;
+        // Lock-free fast path for when the multipart data has already been decoded.
+        HttpPostMultipartRequestDecoder decoder = multipartData;
+        if (decoder != null)
+            return decoder.getBodyHttpDatas();
+
+        if (contentSpilledToFile)
+            waitForPendingSpillFileWrites();
+
+        synchronized (this) {
+            // Only decode once so that the parts are only created (and later destroyed) once.
+            if (multipartData == null) {
+                byte[] contentBytes = getRawContentBytes();
+                ByteBuf content = (contentBytes == null) ? Unpooled.EMPTY_BUFFER : Unpooled.wrappedBuffer(contentBytes);
+                multipartData = new HttpPostMultipartRequestDecoder(
+                    new DefaultHttpDataFactory(false),
+                    createHttpRequestForMultipartDecoder(content),
+                    getContentCharset()
+                );
             }
 
-            HttpRequest fullHttpRequestForMultipartDecoder =
-                (contentBytes == null)
-                ? new DefaultFullHttpRequest(httpVersion, httpMethod, getUri())
-                : new DefaultFullHttpRequest(httpVersion, httpMethod, getUri(),
-                                             Unpooled.wrappedBuffer(contentBytes));
+            return multipartData.getBodyHttpDatas();
+        }
+    }
 
-            fullHttpRequestForMultipartDecoder.headers().add(getHeaders());
+    /**
+     * @return A {@link HttpRequest} with this request's headers for {@link HttpPostMultipartRequestDecoder} to decode.
+     * It will be a {@link DefaultFullHttpRequest} containing the given content if it's non-null, otherwise a {@link
+     * DefaultHttpRequest} with no content (for when the content will be offered to the decoder as it arrives).
+     */
+    protected @NotNull HttpRequest createHttpRequestForMultipartDecoder(@Nullable ByteBuf content) {
+        HttpVersion httpVersion = getProtocolVersion();
+        HttpMethod httpMethod = getMethod();
+        // HttpVersion and HttpMethod cannot be null because DefaultFullHttpRequest doesn't allow them to be null, but
+        //      our getProtocolVersion() and getMethod() methods might return null (i.e. due to an invalid request).
+        //      They shouldn't be null in practice by the time the multipart decoder is created, but since they don't
+        //      seem to be used by the Netty code we delegate to, we can just default them to something if null
+        //      somehow slips through.
+        if (httpVersion == null) {
+            httpVersion = HttpVersion.HTTP_1_0;
+        }
 
-            multipartData = new HttpPostMultipartRequestDecoder(
-                new DefaultHttpDataFactory(false), fullHttpRequestForMultipartDecoder, getContentCharset()
-            );
+        if (httpMethod == null) {
+            httpMethod = HttpMethod.POST;
         }
 
-        return multipartData.getBodyHttpDatas();
+        HttpRequest httpRequestForMultipartDecoder =
+            (content == null)
+            ? new DefaultHttpRequest(httpVersion, httpMethod, getUri())
+            : new DefaultFullHttpRequest(httpVersion, httpMethod, getUri(), content);
+
+        httpRequestForMultipartDecoder.headers().add(getHeaders());
+
+        return httpRequestForMultipartDecoder;
     }
 
     protected T deserializeContent() {
@@ -367,9 +527,16 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
             }
 
             // Not a String or CharSequence. Do our best to deserialize.
+            if (contentCodec != null)
+                return deserializeContentWithCodec(contentCodec, contentDeserializerTypeReference);
+
             byte[] bytes = getRawContentBytes();
             //noinspection ConstantConditions - isContentDeserializerSetup() verifies contentDeserializer is non-null.
-            return (bytes == null) ? null : contentDeserializer.readValue(bytes, contentDeserializerTypeReference);
+            return (bytes == null)
+                   ? null
+                   : ObjectReaderWriterCache.getDefaultInstance()
+                                            .readerFor(contentDeserializer, contentDeserializerTypeReference)
+                                            .readValue(bytes);
         }
         catch (Throwable e) {
             // Something went wrong during deserialization. Throw an appropriate error.
@@ -382,6 +549,35 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         }
     }
 
+    /**
+     * Deserializes the content with the given codec. If the content chunks haven't been converted to {@link
+     * #getRawContentBytes()} yet then the codec reads straight from the chunks, which skips copying the payload into a
+     * byte array. The chunks are left in place (so {@link #getRawContentBytes()} still works afterward) and are released
+     * along with everything else by {@link #releaseAllResources()}.
+     */
+    protected @Nullable T deserializeContentWithCodec(
+        @NotNull ContentCodec codec, @NotNull TypeReference<T> typeReference
+    ) throws IOException {
+        if (!rawContentBytesInitialized && !contentSpilledToFile && !contentChunks.isEmpty()) {
+            ByteBuf[] chunkContents = new ByteBuf[contentChunks.size()];
+            for (int i = 0; i < chunkContents.length; i++) {
+                chunkContents[i] = contentChunks.get(i).content().retainedDuplicate();
+            }
+
+            // The composite owns the retained duplicates, so releasing it leaves the chunks' own references alone.
+            ByteBuf content = Unpooled.wrappedBuffer(chunkContents);
+            try {
+                return codec.deserialize(content, typeReference);
+            }
+            finally {
+                content.release();
+            }
+        }
+
+        byte[] bytes = getRawContentBytes();
+        return (bytes == null) ? null : codec.deserialize(Unpooled.wrappedBuffer(bytes), typeReference);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -391,6 +587,21 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         @NotNull TypeReference<T> typeReference
     ) {
         this.contentDeserializer = deserializer;
+        this.contentCodec = null;
+        this.contentDeserializerTypeReference = typeReference;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull RequestInfo<T> setupContentCodec(
+        @NotNull ContentCodec codec,
+        @NotNull TypeReference<T> typeReference
+    ) {
+        this.contentCodec = codec;
+        this.contentDeserializer = null;
         this.contentDeserializerTypeReference = typeReference;
         return this;
     }
@@ -400,7 +611,7 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      */
     @Override
     public boolean isContentDeserializerSetup() {
-        return contentDeserializer != null && contentDeserializerTypeReference != null;
+        return (contentDeserializer != null || contentCodec != null) && contentDeserializerTypeReference != null;
     }
 
     /**
@@ -408,7 +619,19 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
      */
     @Override
     public @NotNull HttpHeaders getTrailingHeaders() {
-        return trailingHeaders;
+        HttpHeaders result = trailingHeaders;
+        if (result != EmptyHttpHeaders.INSTANCE)
+            return result;
+
+        synchronized (this) {
+            // Callers may expect to be able to modify the trailing headers, so swap out the read-only empty
+            //      placeholder the first time they're asked for. This must only happen once, or headers added to one
+            //      caller's instance would be lost.
+            if (trailingHeaders == EmptyHttpHeaders.INSTANCE)
+                trailingHeaders = new DefaultHttpHeaders();
+
+            return trailingHeaders;
+        }
     }
 
     /**
@@ -447,7 +670,104 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         if (contentChunks.size() > 0) {
             contentChunks.clear();
         }
+        // Any content that was already spilled to disk will never be read, so the temp file can go.
+        releaseSpillFile();
+        // Likewise the multipart decoder will never see the full content, so it can go too.
+        if (multipartDecodedIncrementally) {
+            multipartDecodedIncrementally = false;
+            releaseMultipartData();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void spillContentToDiskPastThreshold(long inMemoryThresholdBytes, @Nullable Path tempDirectory) {
+        spillContentToDiskPastThreshold(inMemoryThresholdBytes, tempDirectory, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void spillContentToDiskPastThreshold(
+        long inMemoryThresholdBytes, @Nullable Path tempDirectory, @Nullable Executor spillWriteExecutor
+    ) {
+        if (inMemoryThresholdBytes < 0) {
+            throw new IllegalArgumentException(
+                "inMemoryThresholdBytes cannot be negative. inMemoryThresholdBytes: " + inMemoryThresholdBytes
+            );
+        }
+
+        this.spillThresholdBytes = inMemoryThresholdBytes;
+        this.spillTempDirectory = tempDirectory;
+        this.spillWriteExecutor = spillWriteExecutor;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> getPendingSpillFileWrites() {
+        return pendingSpillFileWrites;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void decodeMultipartContentAsItArrives(long minSizeForDiskBytes, @Nullable Path tempDirectory) {
+        // Content that has already arrived in full, is being released externally, or has been spilled to disk is
+        //      decoded the normal way (if at all) when getMultipartParts() is called.
+        if (!isMultipart || isCompleteRequestWithAllChunks || contentChunksWillBeReleasedExternally
+            || contentSpilledToFile || multipartData != null) {
+            return;
+        }
+
+        DefaultHttpDataFactory dataFactory = new DefaultHttpDataFactory(minSizeForDiskBytes, getContentCharset());
+        if (tempDirectory != null)
+            dataFactory.setBaseDir(tempDirectory.toString());
+        // The temp files are deleted when releaseMultipartData() destroys the decoder, so there's no need to also
+        //      register them for deletion on JVM exit (which would leak memory for the life of the JVM).
+        dataFactory.setDeleteOnExit(false);
+
+        try {
+            multipartData = new HttpPostMultipartRequestDecoder(
+                dataFactory, createHttpRequestForMultipartDecoder(null), getContentCharset()
+            );
+        }
+        catch (ErrorDataDecoderException ex) {
+            throw new InvalidHttpRequestException("Unable to decode multipart request content", ex);
+        }
+        multipartDecodedIncrementally = true;
+
+        // Catch the decoder up on any chunks that arrived before now.
+        List<HttpContent> chunksSoFar = new ArrayList<>(contentChunks);
+        contentChunks.clear();
+        chunksSoFar.forEach(this::offerChunkToMultipartDecoder);
+    }
+
+    /**
+     * Offers the given chunk to the incremental multipart decoder, then releases the chunk (the decoder copies
+     * whatever it needs).
+     */
+    protected void offerChunkToMultipartDecoder(@NotNull HttpContent chunk) {
+        HttpPostMultipartRequestDecoder decoder = multipartData;
+        if (decoder == null)
+            throw new IllegalStateException("Multipart decoder has not been created. This should not be possible.");
+
+        try {
+            decoder.offer(chunk);
+        }
+        catch (ErrorDataDecoderException ex) {
+            throw new InvalidHttpRequestException("Unable to decode multipart request content", ex);
+        }
+        finally {
+            chunk.release();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -461,18 +781,15 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         chunk.retain();
         rawContentLengthInBytes += chunk.content().readableBytes();
 
+        if (multipartDecodedIncrementally) {
+            // The decoder takes what it needs from the chunk, so there's no need to hold on to it.
+            offerChunkToMultipartDecoder(chunk);
+        }
         // If content chunks will be released externally then there's no point in us holding on to them
-        if (!contentChunksWillBeReleasedExternally)
+        else if (!contentChunksWillBeReleasedExternally)
             contentChunks.add(chunk);
 
         if (chunk instanceof LastHttpContent) {
-            // If content chunks will be released externally then we can't guarantee that the data will be available
-            //      at any given time (earlier chunks may have already been released before the last chunk arrives,
-            //      e.g. in the case of ProxyRouter endpoints), so we'll never allow isCompleteRequestWithAllChunks
-            //      to be set to true if content chunks are released externally.
-            if (!contentChunksWillBeReleasedExternally)
-                isCompleteRequestWithAllChunks = true;
-
             HttpHeaders chunkTrailingHeaders = ((LastHttpContent) chunk).trailingHeaders();
             //noinspection StatementWithEmptyBody
             if (trailingHeaders == chunkTrailingHeaders) {
@@ -484,13 +801,194 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
                                                     + "populated. This should not be possible.");
                 }
 
-                trailingHeaders.add(chunkTrailingHeaders);
+                // Most requests don't have trailing headers, so only bother copying them if there are any.
+                if (!chunkTrailingHeaders.isEmpty())
+                    getTrailingHeaders().add(chunkTrailingHeaders);
             }
         }
 
+        // Once the content has been spilled to disk every later chunk must follow it there to keep the content in
+        //      order.
+        if (!contentChunksWillBeReleasedExternally && !multipartDecodedIncrementally
+            && (contentSpilledToFile
+                || (spillThresholdBytes >= 0 && rawContentLengthInBytes > spillThresholdBytes))
+        ) {
+            Executor executor = spillWriteExecutor;
+            if (executor == null)
+                writeContentChunksToSpillFile();
+            else
+                queueContentChunksForSpillFile(executor);
+
+            contentSpilledToFile = true;
+        }
+
+        // If content chunks will be released externally then we can't guarantee that the data will be available
+        //      at any given time (earlier chunks may have already been released before the last chunk arrives,
+        //      e.g. in the case of ProxyRouter endpoints), so we'll never allow isCompleteRequestWithAllChunks
+        //      to be set to true if content chunks are released externally. Otherwise it's set last, after the
+        //      trailing headers and any spill file writes are in place, since other threads rely on the volatile
+        //      write to see the complete content. Spill file writes done on spillWriteExecutor may still be queued
+        //      at this point, so the spill file readers wait for getPendingSpillFileWrites() before reading.
+        if (chunk instanceof LastHttpContent && !contentChunksWillBeReleasedExternally)
+            isCompleteRequestWithAllChunks = true;
+
         return rawContentLengthInBytes;
     }
 
+    /**
+     * Writes all the chunks in {@link #contentChunks} to the end of the spill file (creating it first if necessary),
+     * then releases and clears them.
+     */
+    protected synchronized void writeContentChunksToSpillFile() {
+        // If this throws then the chunks are still in contentChunks, so they'll be released along with the partial
+        //      spill file when releaseContentChunks() is called.
+        appendToSpillFile(contentChunks);
+        contentChunks.forEach(ReferenceCounted::release);
+        contentChunks.clear();
+    }
+
+    /**
+     * Moves all the chunks in {@link #contentChunks} into a task on the given executor that writes them to the end of
+     * the spill file (creating it first if necessary) and then releases them. The task is chained onto {@link
+     * #pendingSpillFileWrites} so that it only runs after the previously queued writes. If a previous write failed
+     * then the chunks are released without being written, and the failure is passed along.
+     */
+    protected void queueContentChunksForSpillFile(@NotNull Executor executor) {
+        List<HttpContent> chunksToWrite = new ArrayList<>(contentChunks);
+        contentChunks.clear();
+        pendingSpillFileWrites = pendingSpillFileWrites.handleAsync(
+            (ignored, previousWriteFailure) -> {
+                try {
+                    if (previousWriteFailure != null) {
+                        throw (previousWriteFailure instanceof CompletionException)
+                              ? (CompletionException) previousWriteFailure
+                              : new CompletionException(previousWriteFailure);
+                    }
+
+                    writeQueuedContentChunksToSpillFile(chunksToWrite);
+                    return null;
+                }
+                finally {
+                    chunksToWrite.forEach(ReferenceCounted::release);
+                }
+            },
+            executor
+        );
+    }
+
+    /**
+     * Writes the given chunks to the end of the spill file unless the content has been released in the meantime. Does
+     * not release the chunks.
+     */
+    protected void writeQueuedContentChunksToSpillFile(@NotNull List<HttpContent> chunks) {
+        synchronized (spillFileLock) {
+            if (!spillFileReleased)
+                appendToSpillFile(chunks);
+        }
+    }
+
+    /**
+     * Writes the given chunks to the end of the spill file, creating it first if necessary. Does not release the
+     * chunks.
+     */
+    protected void appendToSpillFile(@NotNull List<HttpContent> chunks) {
+        synchronized (spillFileLock) {
+            try {
+                FileChannel fileChannel = spillFileChannel;
+                if (fileChannel == null) {
+                    spillFile = (spillTempDirectory == null)
+                                ? Files.createTempFile("riposte-request-content-", ".tmp")
+                                : Files.createTempFile(spillTempDirectory, "riposte-request-content-", ".tmp");
+                    fileChannel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    spillFileChannel = fileChannel;
+                }
+
+                for (HttpContent chunk : chunks) {
+                    ByteBuf buf = chunk.content();
+                    int index = buf.readerIndex();
+                    int remaining = buf.readableBytes();
+                    while (remaining > 0) {
+                        int written = buf.getBytes(index, fileChannel, remaining);
+                        index += written;
+                        remaining -= written;
+                    }
+                }
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException("Unable to write request content to temp file: " + spillFile, ex);
+            }
+        }
+    }
+
+    /**
+     * Waits for {@link #pendingSpillFileWrites} to finish, rethrowing the cause if a write failed.
+     */
+    protected void waitForPendingSpillFileWrites() {
+        try {
+            pendingSpillFileWrites.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Deletes the spill file, or if writes to it are still queued then stops them from writing anything more and
+     * deletes the file once they're done. That way releasing the content never waits on a queued write.
+     */
+    protected void releaseSpillFile() {
+        // Not under the lock, since a queued write may be holding it while it waits on the disk.
+        spillFileReleased = true;
+        CompletableFuture<Void> pendingWrites = pendingSpillFileWrites;
+        if (pendingWrites.isDone())
+            deleteSpillFile();
+        else
+            pendingWrites.whenComplete((ignored, error) -> deleteSpillFile());
+    }
+
+    /**
+     * @return The full contents of the given spill file, read via a memory-mapped view of the file.
+     */
+    protected @NotNull byte[] readContentFromSpillFile(@NotNull FileChannel fileChannel) {
+        try {
+            MappedByteBuffer mapped = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            byte[] bytes = new byte[mapped.remaining()];
+            mapped.get(bytes);
+            return bytes;
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read request content from temp file: " + spillFile, ex);
+        }
+    }
+
+    /**
+     * Closes and deletes the spill file if there is one. Safe to call multiple times.
+     */
+    protected void deleteSpillFile() {
+        synchronized (spillFileLock) {
+            Path file = spillFile;
+            if (file == null)
+                return;
+
+            try {
+                if (spillFileChannel != null)
+                    spillFileChannel.close();
+
+                Files.deleteIfExists(file);
+            }
+            catch (IOException ex) {
+                logger.warn("Unable to delete request content temp file: {}", file, ex);
+            }
+            finally {
+                spillFile = null;
+                spillFileChannel = null;
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -520,6 +1018,8 @@ public class RequestInfoImpl<T> implements RequestInfo<T>, RiposteInternalReques
         //      for anything, and if this method is called a second time we don't want to re-release the chunks
         //      (which would screw up the reference counting).
         contentChunks.clear();
+        // Same goes for any content that was spilled to disk.
+        releaseSpillFile();
     }
 
     /**
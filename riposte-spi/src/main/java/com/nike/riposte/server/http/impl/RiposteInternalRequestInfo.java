@@ -2,6 +2,13 @@ package com.nike.riposte.server.http.impl;
 
 import com.nike.riposte.server.http.RequestInfo;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.HttpContent;
 
@@ -35,4 +42,58 @@ public interface RiposteInternalRequestInfo {
      */
     void contentChunksWillBeReleasedExternally();
 
+    /**
+     * Indicates to this {@link RequestInfo} implementation that once the content added via {@link
+     * RequestInfo#addContentChunk(HttpContent)} grows past the given threshold it should stop holding the content
+     * chunks in memory and write the content to a temp file instead. The content-related methods must continue to
+     * work as normal (reading the content back from the temp file), and the temp file must be deleted when {@link
+     * RequestInfo#releaseAllResources()} is called. This has no effect if {@link
+     * #contentChunksWillBeReleasedExternally()} has been called.
+     *
+     * <p>The temp file is created and written on the thread calling {@link RequestInfo#addContentChunk(HttpContent)}.
+     * Use {@link #spillContentToDiskPastThreshold(long, Path, Executor)} to do the disk I/O elsewhere.
+     *
+     * @param inMemoryThresholdBytes The content size in bytes past which the content should be written to a temp file.
+     * @param tempDirectory The directory to create the temp file in, or null to use the default temp directory.
+     */
+    void spillContentToDiskPastThreshold(long inMemoryThresholdBytes, @Nullable Path tempDirectory);
+
+    /**
+     * The same as {@link #spillContentToDiskPastThreshold(long, Path)}, except that if an executor is given then the
+     * temp file is created and written on that executor, so a slow disk never holds up the thread adding the content
+     * chunks (i.e. the Netty worker thread). The writes must happen one at a time and in chunk order, and {@link
+     * #getPendingSpillFileWrites()} must not complete until all the writes queued so far are done. The
+     * content-related methods must wait for the queued writes before reading the temp file.
+     *
+     * @param inMemoryThresholdBytes The content size in bytes past which the content should be written to a temp file.
+     * @param tempDirectory The directory to create the temp file in, or null to use the default temp directory.
+     * @param spillWriteExecutor The executor to write the temp file on, or null to write it on the thread adding the
+     * content chunks.
+     */
+    void spillContentToDiskPastThreshold(
+        long inMemoryThresholdBytes, @Nullable Path tempDirectory, @Nullable Executor spillWriteExecutor
+    );
+
+    /**
+     * @return A future that completes once every content chunk handed to the temp file so far (see {@link
+     * #spillContentToDiskPastThreshold(long, Path, Executor)}) has been written, or completes exceptionally if a write
+     * failed. Already complete if no writes are queued.
+     */
+    @NotNull CompletableFuture<Void> getPendingSpillFileWrites();
+
+    /**
+     * Indicates to this {@link RequestInfo} implementation that if it represents a multipart request, then each content
+     * chunk added via {@link RequestInfo#addContentChunk(HttpContent)} should be fed into the multipart decoder
+     * straight away and then released, rather than being held until the full request has arrived. Parts larger than
+     * the given size should be stored in temp files, which must be deleted when {@link
+     * RequestInfo#releaseAllResources()} is called. {@link RequestInfo#getMultipartParts()} must continue to work as
+     * normal, but the raw content methods will return null since the raw content is no longer available. This has no
+     * effect if this is not a multipart request, if the full request has already arrived, or if {@link
+     * #contentChunksWillBeReleasedExternally()} has been called.
+     *
+     * @param minSizeForDiskBytes The size in bytes past which a part should be moved from memory to a temp file.
+     * @param tempDirectory The directory to create the temp files in, or null to use the default temp directory.
+     */
+    void decodeMultipartContentAsItArrives(long minSizeForDiskBytes, @Nullable Path tempDirectory);
+
 }
@@ -42,6 +42,11 @@ import static com.nike.riposte.util.text.parsercombinator.Parser.Parsers.success
  *
  * <p>e.g. Accept: text/*;q=0.3, text/html;q=0.7, text/html;level=1, text/html;level=2;q=0.4
  *
+ * <p>Riposte parses request headers with the equivalent hand-written {@link
+ * com.nike.riposte.server.http.header.FastHeaderParser} (cached via {@link
+ * com.nike.riposte.server.http.header.ParsedHeaderCache}), which this class serves as the reference implementation
+ * for.
+ *
  * <p>This parser is implemented using the following from  RFC-6838:
  * <blockquote>
  * <pre>
@@ -0,0 +1,24 @@
+package com.nike.riposte.server.metrics;
+
+/**
+ * The value passed along with {@link ServerMetricsEvent#CONCURRENCY_LIMIT_CHANGED} events. Gives a live view of the
+ * adaptive concurrency limiter (see {@code ServerConfig#concurrencyLimitConfig()}) - the getters always return the
+ * current values, not a snapshot from when the event was fired.
+ */
+public interface ConcurrencyLimitStats {
+
+    /**
+     * @return The current concurrency limit.
+     */
+    int getLimit();
+
+    /**
+     * @return The number of requests currently being processed under the limit.
+     */
+    int getInFlight();
+
+    /**
+     * @return The total number of requests that have been rejected because the server was at its limit.
+     */
+    long getRejectedCount();
+}
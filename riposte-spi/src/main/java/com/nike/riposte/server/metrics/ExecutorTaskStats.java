@@ -0,0 +1,28 @@
+package com.nike.riposte.server.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The value passed along with {@link ServerMetricsEvent#EXECUTOR_TASK_STARTED} events. Describes how long a task
+ * waited in one of Riposte's bounded executors before it started, along with a snapshot of the executor's load at
+ * that moment.
+ */
+public class ExecutorTaskStats {
+
+    public final @NotNull String executorName;
+    public final long queueWaitNanos;
+    public final int queueDepth;
+    public final int activeThreadCount;
+
+    public ExecutorTaskStats(
+        @NotNull String executorName,
+        long queueWaitNanos,
+        int queueDepth,
+        int activeThreadCount
+    ) {
+        this.executorName = executorName;
+        this.queueWaitNanos = queueWaitNanos;
+        this.queueDepth = queueDepth;
+        this.activeThreadCount = activeThreadCount;
+    }
+}
@@ -0,0 +1,29 @@
+package com.nike.riposte.server.metrics;
+
+/**
+ * The value passed along with {@link ServerMetricsEvent#REQUEST_BODY_MEMORY_BUDGET_CREATED} events. Gives a live view
+ * of the request payload memory budget (see {@code ServerConfig#requestBodyMemoryBudgetConfig()}) - the getters always
+ * return the current values, not a snapshot from when the event was fired.
+ */
+public interface RequestBodyMemoryBudgetStats {
+
+    /**
+     * @return The total number of payload bytes that may be buffered across all in-flight requests.
+     */
+    long getMaxBytes();
+
+    /**
+     * @return The number of payload bytes currently counted against the budget.
+     */
+    long getReservedBytes();
+
+    /**
+     * @return The number of requests whose payload reading is currently paused waiting for the budget.
+     */
+    int getPausedRequests();
+
+    /**
+     * @return The total number of requests that have been rejected because the budget stayed used up for too long.
+     */
+    long getRejectedCount();
+}
@@ -6,5 +6,60 @@ package com.nike.riposte.server.metrics;
 public enum ServerMetricsEvent {
     REQUEST_RECEIVED, RESPONSE_SENT,
     // TODO: This should be removed (see todos in ChannelPipelineFinalizerHandler)
-    RESPONSE_WRITE_FAILED
+    RESPONSE_WRITE_FAILED,
+    /**
+     * A request executed a coalescing-enabled endpoint, and any identical requests that arrived while it was in flight
+     * will share its response. See {@code NonblockingEndpoint#requestCoalescingKey(RequestInfo)}.
+     */
+    REQUEST_COALESCING_EXECUTION,
+    /**
+     * A request shared the response of an identical in-flight request rather than executing the endpoint itself. The
+     * ratio of these to {@link #REQUEST_COALESCING_EXECUTION} events shows how much work coalescing is saving.
+     */
+    REQUEST_COALESCED,
+    /**
+     * A response payload was handed off to the compression offload executor rather than being compressed inline on the
+     * channel's worker thread. The event value is a {@link Long} containing the number of uncompressed bytes that were
+     * offloaded. See {@code ServerConfig.ResponseCompressionConfig#compressionOffloadThresholdBytes()}.
+     */
+    RESPONSE_COMPRESSION_OFFLOADED,
+    /**
+     * An offloaded response compression task started executing. The event value is a {@link Long} containing the
+     * number of nanoseconds the task waited in the compression offload executor's queue before it started.
+     */
+    RESPONSE_COMPRESSION_OFFLOAD_QUEUE_WAIT,
+    /**
+     * A task started executing on one of Riposte's bounded executors (see {@code
+     * ServerConfig.BoundedExecutorConfig}). The event value is an {@link ExecutorTaskStats} describing how long the
+     * task waited in the queue and how busy the executor was.
+     */
+    EXECUTOR_TASK_STARTED,
+    /**
+     * One of Riposte's bounded executors rejected a task. The event value is the {@code
+     * com.nike.riposte.server.error.exception.ExecutorOverloadedException} that was thrown to the caller.
+     */
+    EXECUTOR_TASK_REJECTED,
+    /**
+     * The adaptive concurrency limiter (see {@code ServerConfig#concurrencyLimitConfig()}) was created or its limit
+     * changed. The event value is the limiter's {@link ConcurrencyLimitStats}, which always reflects the current limit
+     * and in-flight request count, so it's safe to hold on to it (e.g. for gauges).
+     */
+    CONCURRENCY_LIMIT_CHANGED,
+    /**
+     * The adaptive concurrency limiter rejected a request because the server was at its concurrency limit. The event
+     * value is the {@code com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException} that was thrown.
+     */
+    CONCURRENCY_LIMIT_REJECTED,
+    /**
+     * A request was shed with a 503 because it waited too long before processing started while the server was
+     * overloaded (see {@code ServerConfig#loadSheddingConfig()}). The event value is a {@link Long} containing the
+     * request's estimated wait time in nanoseconds.
+     */
+    REQUEST_SHED,
+    /**
+     * The request payload memory budget (see {@code ServerConfig#requestBodyMemoryBudgetConfig()}) was created. The
+     * event value is the budget's {@link RequestBodyMemoryBudgetStats}, which always reflects the current usage, so
+     * it's safe to hold on to it (e.g. for gauges).
+     */
+    REQUEST_BODY_MEMORY_BUDGET_CREATED
 }
@@ -4,6 +4,8 @@ import com.nike.riposte.server.error.exception.InvalidCharsetInContentTypeHeader
 import com.nike.riposte.server.error.exception.PathParameterMatchingException;
 import com.nike.riposte.server.http.Endpoint;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.header.FastHeaderParser;
+import com.nike.riposte.server.http.header.ParsedHeaderCache;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -14,8 +16,8 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import io.netty.buffer.ByteBuf;
@@ -40,7 +42,9 @@ import static io.netty.handler.codec.http.HttpHeaderNames.COOKIE;
 public class HttpUtils {
 
     /**
-     * Regex Pattern for parsing charset from content-type header
+     * Regex Pattern for parsing charset from content-type header. {@link #determineCharsetFromContentType(HttpHeaders,
+     * Charset)} uses the equivalent hand-written {@link FastHeaderParser#extractCharsetName(CharSequence)} (with
+     * caching) instead - this is kept as the reference for that method's behavior.
      */
     protected static final Pattern CONTENT_TYPE_CHARSET_EXTRACTOR_PATTERN =
         Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]*)");
@@ -112,20 +116,16 @@ public class HttpUtils {
             return def;
         }
 
-        String charset;
-        Matcher m = CONTENT_TYPE_CHARSET_EXTRACTOR_PATTERN.matcher(contentTypeHeader);
-        if (m.find()) {
-            charset = m.group(1).trim().toUpperCase();
-            try {
-                return Charset.forName(charset);
-            }
-            catch (Exception ex) {
-                throw new InvalidCharsetInContentTypeHeaderException("Invalid charset in Content-Type header", ex,
-                                                                     contentTypeHeader);
-            }
+        Optional<Charset> charset;
+        try {
+            charset = ParsedHeaderCache.getDefaultInstance().charsetFromContentType(contentTypeHeader);
+        }
+        catch (Exception ex) {
+            throw new InvalidCharsetInContentTypeHeaderException("Invalid charset in Content-Type header", ex,
+                                                                 contentTypeHeader);
         }
 
-        return def;
+        return charset.orElse(def);
     }
 
     public static @Nullable List<HttpContent> extractContentChunks(@Nullable HttpRequest request) {
@@ -0,0 +1,122 @@
+package com.nike.riposte.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches pre-resolved Jackson {@link ObjectReader}s and {@link ObjectWriter}s per {@link ObjectMapper} and type.
+ * Calling {@link ObjectMapper#readValue(byte[], TypeReference)} or {@link ObjectMapper#writeValueAsString(Object)}
+ * means Jackson has to resolve the {@link com.fasterxml.jackson.databind.JavaType} and look up the (de)serializer in
+ * its caches on every call, whereas a reader or writer that's already bound to a type skips that work.
+ * <p/>
+ * Mappers are compared by identity. Readers and writers are snapshots of their mapper's configuration at the time
+ * they were created, so mappers should be fully configured before they're used with this class. The number of cached
+ * entries is capped so that callers creating a new {@link ObjectMapper} per request can't grow the cache without
+ * bounds - past the cap readers and writers are still created, they just aren't cached.
+ * <p/>
+ * This class is thread safe.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ObjectReaderWriterCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private static final ObjectReaderWriterCache DEFAULT_INSTANCE = new ObjectReaderWriterCache(DEFAULT_MAX_ENTRIES);
+
+    protected final int maxEntries;
+    protected final ConcurrentMap<CacheKey, ObjectReader> readers = new ConcurrentHashMap<>();
+    protected final ConcurrentMap<CacheKey, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public ObjectReaderWriterCache(int maxEntries) {
+        if (maxEntries < 0)
+            throw new IllegalArgumentException("maxEntries cannot be negative");
+
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return The JVM-wide instance used by Riposte for request content deserialization and response content
+     * serialization.
+     */
+    public static @NotNull ObjectReaderWriterCache getDefaultInstance() {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * @return An {@link ObjectReader} from the given mapper that's bound to the given type.
+     */
+    public @NotNull ObjectReader readerFor(@NotNull ObjectMapper mapper, @NotNull TypeReference<?> typeReference) {
+        CacheKey key = new CacheKey(mapper, typeReference.getType());
+        ObjectReader reader = readers.get(key);
+        if (reader != null)
+            return reader;
+
+        reader = mapper.readerFor(typeReference);
+        if (readers.size() < maxEntries) {
+            ObjectReader existing = readers.putIfAbsent(key, reader);
+            if (existing != null)
+                return existing;
+        }
+
+        return reader;
+    }
+
+    /**
+     * @return An {@link ObjectWriter} from the given mapper that's bound to the given type.
+     */
+    public @NotNull ObjectWriter writerFor(@NotNull ObjectMapper mapper, @NotNull Class<?> type) {
+        CacheKey key = new CacheKey(mapper, type);
+        ObjectWriter writer = writers.get(key);
+        if (writer != null)
+            return writer;
+
+        writer = mapper.writerFor(type);
+        if (writers.size() < maxEntries) {
+            ObjectWriter existing = writers.putIfAbsent(key, writer);
+            if (existing != null)
+                return existing;
+        }
+
+        return writer;
+    }
+
+    /**
+     * Compares mappers by identity and types by equality.
+     */
+    protected static final class CacheKey {
+        private final ObjectMapper mapper;
+        private final Type type;
+        private final int hashCode;
+
+        CacheKey(@NotNull ObjectMapper mapper, @NotNull Type type) {
+            this.mapper = mapper;
+            this.type = type;
+            this.hashCode = 31 * System.identityHashCode(mapper) + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return mapper == that.mapper && type.equals(that.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -11,8 +11,10 @@ import com.nike.fastbreak.exception.CircuitBreakerException;
 import com.nike.fastbreak.exception.CircuitBreakerOpenException;
 import com.nike.fastbreak.exception.CircuitBreakerTimeoutException;
 import com.nike.internal.util.Pair;
+import com.nike.riposte.server.error.exception.ConcurrencyLimitExceededException;
 import com.nike.riposte.server.error.exception.DownstreamChannelClosedUnexpectedlyException;
 import com.nike.riposte.server.error.exception.DownstreamIdleChannelTimeoutException;
+import com.nike.riposte.server.error.exception.ExecutorOverloadedException;
 import com.nike.riposte.server.error.exception.Forbidden403Exception;
 import com.nike.riposte.server.error.exception.HostnameResolutionException;
 import com.nike.riposte.server.error.exception.IncompleteHttpCallTimeoutException;
@@ -25,7 +27,9 @@ import com.nike.riposte.server.error.exception.NativeIoExceptionWrapper;
 import com.nike.riposte.server.error.exception.NonblockingEndpointCompletableFutureTimedOut;
 import com.nike.riposte.server.error.exception.PathNotFound404Exception;
 import com.nike.riposte.server.error.exception.PathParameterMatchingException;
+import com.nike.riposte.server.error.exception.RequestBodyMemoryBudgetExceededException;
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
+import com.nike.riposte.server.error.exception.RequestDeadlineExceededException;
 import com.nike.riposte.server.error.exception.RequestTooBigException;
 import com.nike.riposte.server.error.exception.TooManyOpenChannelsException;
 import com.nike.riposte.server.error.exception.Unauthorized401Exception;
@@ -271,6 +275,75 @@ public class BackstopperRiposteFrameworkErrorHandlerListenerTest {
         verifyExceptionHandled(new TooManyOpenChannelsException(43, 42), singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
     }
 
+    @Test
+    public void should_handle_ExecutorOverloadedException() {
+        // given
+        ExecutorOverloadedException ex = new ExecutorOverloadedException(
+            "some-executor", ExecutorOverloadedException.RejectionReason.QUEUE_FULL, 42
+        );
+
+        // when
+        ApiExceptionHandlerListenerResult result = listener.shouldHandleException(ex);
+
+        // then
+        verifyExceptionHandled(ex, singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
+        assertThat(result.extraDetailsForLogging).containsExactly(
+            Pair.of("overloaded_executor_name", "some-executor"),
+            Pair.of("executor_rejection_reason", "QUEUE_FULL"),
+            Pair.of("executor_queue_depth", "42")
+        );
+    }
+
+    @Test
+    public void should_handle_ConcurrencyLimitExceededException() {
+        // given
+        ConcurrencyLimitExceededException ex = new ConcurrencyLimitExceededException(42, 43, "some-partition");
+
+        // when
+        ApiExceptionHandlerListenerResult result = listener.shouldHandleException(ex);
+
+        // then
+        verifyExceptionHandled(ex, singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
+        assertThat(result.extraDetailsForLogging).containsExactly(
+            Pair.of("concurrency_limit", "42"),
+            Pair.of("inflight_requests", "43"),
+            Pair.of("concurrency_limit_partition", "some-partition")
+        );
+    }
+
+    @Test
+    public void should_handle_RequestDeadlineExceededException() {
+        // given
+        RequestDeadlineExceededException ex = new RequestDeadlineExceededException(50, 7);
+
+        // when
+        ApiExceptionHandlerListenerResult result = listener.shouldHandleException(ex);
+
+        // then
+        verifyExceptionHandled(ex, singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
+        assertThat(result.extraDetailsForLogging).containsExactly(
+            Pair.of("deadline_budget_millis", "50"),
+            Pair.of("deadline_overrun_millis", "7")
+        );
+    }
+
+    @Test
+    public void should_handle_RequestBodyMemoryBudgetExceededException() {
+        // given
+        RequestBodyMemoryBudgetExceededException ex = new RequestBodyMemoryBudgetExceededException(1000, 1024, 42);
+
+        // when
+        ApiExceptionHandlerListenerResult result = listener.shouldHandleException(ex);
+
+        // then
+        verifyExceptionHandled(ex, singletonError(testProjectApiErrors.getTemporaryServiceProblemApiError()));
+        assertThat(result.extraDetailsForLogging).containsExactly(
+            Pair.of("request_body_memory_budget_bytes", "1000"),
+            Pair.of("request_body_memory_reserved_bytes", "1024"),
+            Pair.of("request_body_memory_waited_millis", "42")
+        );
+    }
+
     @Test
     public void shouldHandleErrorDataDecoderException() {
         verifyExceptionHandled(new ErrorDataDecoderException(), singletonError(testProjectApiErrors.getMalformedRequestApiError()));
@@ -1,6 +1,16 @@
 package com.nike.riposte.server.config;
 
+import com.nike.riposte.server.config.ServerConfig.BoundedExecutorConfig;
+import com.nike.riposte.server.config.ServerConfig.ConcurrencyLimitConfig;
+import com.nike.riposte.server.config.ServerConfig.LoadSheddingConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestBodyMemoryBudgetConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestContentSpillConfig;
+import com.nike.riposte.server.config.ServerConfig.RequestDeadlineConfig;
+import com.nike.riposte.server.config.ServerConfig.ResponseCompressionConfig;
+import com.nike.riposte.server.config.ServerConfig.StreamingMultipartConfig;
 import com.nike.riposte.server.http.Endpoint;
+import com.nike.riposte.server.http.EndpointPriority;
+import com.nike.riposte.server.http.ResponseContentEncoder;
 
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
@@ -35,7 +45,16 @@ public class ServerConfigTest {
         assertThat(defaultImpl.defaultCompletableFutureTimeoutInMillisForNonblockingEndpoints()).isEqualTo((58L * 1000L));
         assertThat(defaultImpl.defaultRequestContentDeserializer()).isNull();
         assertThat(defaultImpl.defaultResponseContentSerializer()).isNull();
+        assertThat(defaultImpl.contentCodecs()).isNull();
         assertThat(defaultImpl.longRunningTaskExecutor()).isNull();
+        assertThat(defaultImpl.longRunningTaskExecutorConfig()).isNull();
+        assertThat(defaultImpl.securityValidationExecutorConfig()).isNull();
+        assertThat(defaultImpl.concurrencyLimitConfig()).isNull();
+        assertThat(defaultImpl.loadSheddingConfig()).isNull();
+        assertThat(defaultImpl.requestDeadlineConfig()).isNull();
+        assertThat(defaultImpl.requestContentSpillConfig()).isNull();
+        assertThat(defaultImpl.streamingMultipartConfig()).isNull();
+        assertThat(defaultImpl.requestBodyMemoryBudgetConfig()).isNull();
         assertThat(defaultImpl.metricsListener()).isNull();
         assertThat(defaultImpl.accessLogger()).isNull();
         assertThat(defaultImpl.postServerStartupHooks()).isNull();
@@ -47,10 +66,12 @@ public class ServerConfigTest {
         assertThat(defaultImpl.numWorkerThreads()).isEqualTo((0));
         assertThat(defaultImpl.maxRequestSizeInBytes()).isEqualTo((0));
         assertThat(defaultImpl.responseCompressionThresholdBytes()).isEqualTo((500));
+        assertThat(defaultImpl.responseCompressionConfig()).isNull();
         assertThat(defaultImpl.createSslContext()).isNotNull();
         assertThat(defaultImpl.errorResponseBodySerializer()).isNull();
         assertThat(defaultImpl.requestContentValidationService()).isNull();
         assertThat(defaultImpl.isDebugActionsEnabled()).isEqualTo((false));
+        assertThat(defaultImpl.isAutomaticETagHandlingEnabled()).isFalse();
         assertThat(defaultImpl.endpointsPort()).isEqualTo((8080));
         assertThat(defaultImpl.endpointsSslPort()).isEqualTo((8443));
         assertThat(defaultImpl.isEndpointsUseSsl()).isEqualTo((false));
@@ -66,4 +87,115 @@ public class ServerConfigTest {
         assertThat(defaultImpl.distributedTracingConfig()).isNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void ResponseCompressionConfig_default_method_implementations_return_expected_values() {
+        // given
+        ResponseCompressionConfig defaultImpl = ResponseCompressionConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.contentEncoders())
+            .containsExactly(ResponseContentEncoder.GZIP, ResponseContentEncoder.DEFLATE);
+        assertThat(defaultImpl.skipCompressionContentTypes())
+            .isEqualTo(ResponseCompressionConfig.DEFAULT_SKIP_COMPRESSION_CONTENT_TYPES)
+            .contains("image/png", "video/*", "application/zip")
+            .doesNotContain("image/svg+xml", "application/json");
+        assertThat(defaultImpl.compressionOffloadThresholdBytes()).isZero();
+        assertThat(defaultImpl.compressionOffloadExecutor()).isNull();
+        assertThat(defaultImpl.compressedVariantCacheMaxSizeInBytes()).isEqualTo(16L * 1024 * 1024);
+    }
+
+    @Test
+    public void BoundedExecutorConfig_default_method_implementations_return_expected_values() {
+        // given
+        BoundedExecutorConfig defaultImpl = BoundedExecutorConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.coreThreads()).isEqualTo(Runtime.getRuntime().availableProcessors() * 2);
+        assertThat(defaultImpl.maxThreads()).isEqualTo(200);
+        assertThat(defaultImpl.queueCapacity()).isEqualTo(1000);
+        assertThat(defaultImpl.queueWaitTimeoutMillis()).isZero();
+    }
+
+    @Test
+    public void ConcurrencyLimitConfig_default_method_implementations_return_expected_values() {
+        // given
+        ConcurrencyLimitConfig defaultImpl = ConcurrencyLimitConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.initialLimit()).isEqualTo(100);
+        assertThat(defaultImpl.minLimit()).isEqualTo(20);
+        assertThat(defaultImpl.maxLimit()).isEqualTo(1000);
+        assertThat(defaultImpl.smoothing()).isEqualTo(0.2);
+        assertThat(defaultImpl.rttTolerance()).isEqualTo(1.5);
+        assertThat(defaultImpl.partitionGuaranteedShares()).isEmpty();
+        assertThat(defaultImpl.priorityLimitFactor(EndpointPriority.CRITICAL)).isEqualTo(1.25);
+        assertThat(defaultImpl.priorityLimitFactor(EndpointPriority.HIGH)).isEqualTo(1.1);
+        assertThat(defaultImpl.priorityLimitFactor(EndpointPriority.NORMAL)).isEqualTo(1.0);
+        assertThat(defaultImpl.priorityLimitFactor(EndpointPriority.LOW)).isEqualTo(0.8);
+    }
+
+    @Test
+    public void LoadSheddingConfig_default_method_implementations_return_expected_values() {
+        // given
+        LoadSheddingConfig defaultImpl = LoadSheddingConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.targetDelayMillis()).isEqualTo(5);
+        assertThat(defaultImpl.intervalMillis()).isEqualTo(100);
+        assertThat(defaultImpl.eventLoopLagProbeIntervalMillis()).isEqualTo(10);
+    }
+
+    @Test
+    public void RequestDeadlineConfig_default_method_implementations_return_expected_values() {
+        // given
+        RequestDeadlineConfig defaultImpl = RequestDeadlineConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.inboundHeaderName()).isEqualTo("X-Request-Timeout-Ms");
+        assertThat(defaultImpl.outboundHeaderName()).isEqualTo("X-Request-Timeout-Ms");
+    }
+
+    @Test
+    public void RequestDeadlineConfig_outboundHeaderName_defaults_to_inboundHeaderName() {
+        // given
+        RequestDeadlineConfig config = new RequestDeadlineConfig() {
+            @Override
+            public @NotNull String inboundHeaderName() {
+                return "X-Foo-Deadline";
+            }
+        };
+
+        // expect
+        assertThat(config.outboundHeaderName()).isEqualTo("X-Foo-Deadline");
+    }
+
+    @Test
+    public void RequestContentSpillConfig_default_method_implementations_return_expected_values() {
+        // given
+        RequestContentSpillConfig defaultImpl = RequestContentSpillConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.inMemoryThresholdBytes()).isEqualTo(1024 * 1024);
+        assertThat(defaultImpl.tempDirectory()).isNull();
+    }
+
+    @Test
+    public void StreamingMultipartConfig_default_method_implementations_return_expected_values() {
+        // given
+        StreamingMultipartConfig defaultImpl = StreamingMultipartConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.minSizeForDiskBytes()).isEqualTo(16 * 1024);
+        assertThat(defaultImpl.tempDirectory()).isNull();
+    }
+
+    @Test
+    public void RequestBodyMemoryBudgetConfig_default_method_implementations_return_expected_values() {
+        // given
+        RequestBodyMemoryBudgetConfig defaultImpl = RequestBodyMemoryBudgetConfig.DEFAULT_IMPL;
+
+        // expect
+        assertThat(defaultImpl.maxBufferedBytes()).isEqualTo(256L * 1024 * 1024);
+        assertThat(defaultImpl.maxWaitMillis()).isEqualTo(1000);
+    }
+}
@@ -42,7 +42,11 @@ public class EndpointTest {
         assertThat(defaultImpl.customResponseContentSerializer(null)).isNull();
         assertThat(defaultImpl.requestContentType()).isNull();
         assertThat(defaultImpl.completableFutureTimeoutOverrideMillis()).isNull();
+        assertThat(defaultImpl.responseCachePolicy()).isNull();
+        assertThat(defaultImpl.responseCompressionPolicy()).isNull();
+        assertThat(defaultImpl.responseETagVersionKey(reqMock)).isNull();
         assertThat(defaultImpl.shouldValidateAsynchronously(reqMock)).isEqualTo(shouldValidateAsync);
+        assertThat(defaultImpl.priority()).isEqualTo(EndpointPriority.NORMAL);
     }
 
     @DataProvider(value = {
@@ -0,0 +1,215 @@
+package com.nike.riposte.server.http;
+
+import com.nike.riposte.server.http.mimetype.MimeType;
+import com.nike.riposte.server.http.mimetype.MimeTypeParser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Function;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the functionality of {@link JacksonContentCodec}
+ */
+@RunWith(DataProviderRunner.class)
+public class JacksonContentCodecTest {
+
+    private static final TypeReference<Map<String, Integer>> MAP_TYPE_REF = new TypeReference<Map<String, Integer>>() {};
+    private static final byte[] PAYLOAD_BYTES = "{\"foo\":42}".getBytes(StandardCharsets.UTF_8);
+
+    private static ObjectMapper mapperWithFormatName(String formatName) {
+        return new ObjectMapper(new JsonFactory() {
+            @Override
+            public String getFormatName() {
+                return formatName;
+            }
+        });
+    }
+
+    @Test
+    public void built_in_mime_types_are_as_expected() {
+        // expect
+        assertThat(ContentCodec.SMILE_MIME_TYPE.toString()).isEqualTo("application/x-jackson-smile");
+        assertThat(ContentCodec.CBOR_MIME_TYPE.toString()).isEqualTo("application/cbor");
+    }
+
+    @Test
+    public void smile_and_cbor_factory_methods_create_codecs_for_mappers_with_the_matching_format() {
+        // given
+        ObjectMapper smileMapper = mapperWithFormatName("Smile");
+        ObjectMapper cborMapper = mapperWithFormatName("CBOR");
+
+        // when
+        ContentCodec smileCodec = ContentCodec.smile(smileMapper);
+        ContentCodec cborCodec = ContentCodec.cbor(cborMapper);
+
+        // then
+        assertThat(smileCodec.mimeType()).isSameAs(ContentCodec.SMILE_MIME_TYPE);
+        assertThat(((JacksonContentCodec) smileCodec).mapper).isSameAs(smileMapper);
+        assertThat(cborCodec.mimeType()).isSameAs(ContentCodec.CBOR_MIME_TYPE);
+        assertThat(((JacksonContentCodec) cborCodec).mapper).isSameAs(cborMapper);
+    }
+
+    @DataProvider(value = {
+        "true",
+        "false"
+    })
+    @Test
+    public void smile_and_cbor_factory_methods_throw_IllegalArgumentException_for_mappers_with_another_format(
+        boolean useSmile
+    ) {
+        // given
+        ObjectMapper jsonMapper = new ObjectMapper();
+
+        // when
+        Throwable ex = catchThrowable(
+            () -> {
+                if (useSmile)
+                    ContentCodec.smile(jsonMapper);
+                else
+                    ContentCodec.cbor(jsonMapper);
+            }
+        );
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining((useSmile) ? "Smile" : "CBOR")
+            .hasMessageEndingWith("Invalid mapper format: JSON");
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_null_args() {
+        // when
+        Throwable nullMimeTypeEx = catchThrowable(() -> new JacksonContentCodec(null, new ObjectMapper()));
+        Throwable nullMapperEx = catchThrowable(() -> new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, null));
+
+        // then
+        assertThat(nullMimeTypeEx)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("mimeType cannot be null");
+        assertThat(nullMapperEx)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("mapper cannot be null");
+    }
+
+    private enum BufferScenario {
+        HEAP(bytes -> Unpooled.wrappedBuffer(bytes)),
+        HEAP_WITH_OFFSET(bytes -> {
+            ByteBuf buf = Unpooled.buffer();
+            buf.writeBytes("garbage".getBytes(StandardCharsets.UTF_8));
+            buf.writeBytes(bytes);
+            buf.readerIndex("garbage".length());
+            return buf;
+        }),
+        DIRECT(bytes -> Unpooled.directBuffer().writeBytes(bytes)),
+        COMPOSITE(bytes -> Unpooled.wrappedBuffer(
+            Unpooled.wrappedBuffer(bytes, 0, 3), Unpooled.directBuffer().writeBytes(bytes, 3, bytes.length - 3)
+        ));
+
+        private final Function<byte[], ByteBuf> bufferFactory;
+
+        BufferScenario(Function<byte[], ByteBuf> bufferFactory) {
+            this.bufferFactory = bufferFactory;
+        }
+    }
+
+    @DataProvider(value = {
+        "HEAP",
+        "HEAP_WITH_OFFSET",
+        "DIRECT",
+        "COMPOSITE"
+    })
+    @Test
+    public void deserialize_reads_the_readable_bytes_of_the_given_buffer_without_releasing_it(
+        BufferScenario scenario
+    ) throws IOException {
+        // given
+        JacksonContentCodec codec = new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+        ByteBuf content = scenario.bufferFactory.apply(PAYLOAD_BYTES);
+
+        // when
+        Map<String, Integer> result = codec.deserialize(content, MAP_TYPE_REF);
+
+        // then
+        assertThat(result).isEqualTo(Collections.singletonMap("foo", 42));
+        assertThat(content.refCnt()).isEqualTo(1);
+        content.release();
+    }
+
+    @Test
+    public void deserialize_throws_IOException_for_invalid_content() {
+        // given
+        JacksonContentCodec codec = new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+
+        // when
+        Throwable ex = catchThrowable(
+            () -> codec.deserialize(Unpooled.copiedBuffer("not valid", StandardCharsets.UTF_8), MAP_TYPE_REF)
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void serialize_writes_the_content_to_a_buffer_from_the_given_allocator() throws IOException {
+        // given
+        JacksonContentCodec codec = new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+
+        // when
+        ByteBuf result = codec.serialize(Collections.singletonMap("foo", 42), UnpooledByteBufAllocator.DEFAULT);
+
+        // then
+        assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("{\"foo\":42}");
+        assertThat(result.refCnt()).isEqualTo(1);
+        result.release();
+    }
+
+    @Test
+    public void serialize_releases_the_buffer_and_rethrows_if_serialization_fails() {
+        // given
+        JacksonContentCodec codec = new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+        ByteBuf buffer = Unpooled.buffer();
+        ByteBufAllocator allocatorMock = mock(ByteBufAllocator.class);
+        doReturn(buffer).when(allocatorMock).buffer();
+        doReturn(buffer).when(allocatorMock).buffer(anyInt());
+
+        // when
+        Throwable ex = catchThrowable(() -> codec.serialize(new Object(), allocatorMock));
+
+        // then
+        assertThat(ex).isInstanceOf(IOException.class);
+        assertThat(buffer.refCnt()).isZero();
+    }
+
+    @Test
+    public void mimeType_returns_the_mime_type_passed_to_the_constructor() {
+        // given
+        @SuppressWarnings({"OptionalGetWithoutIsPresent", "ConstantConditions"})
+        MimeType mimeType = MimeTypeParser.parse("application/x-custom").get();
+
+        // expect
+        assertThat(new JacksonContentCodec(mimeType, new ObjectMapper()).mimeType()).isSameAs(mimeType);
+    }
+}
@@ -45,6 +45,7 @@ public class NonblockingEndpointTest {
             defaultImpl.getCustomTimeoutExceptionCause(mock(RequestInfo.class), mock(ChannelHandlerContext.class)),
             nullValue()
         );
+        assertThat(defaultImpl.requestCoalescingKey(mock(RequestInfo.class)), nullValue());
     }
 
 }
\ No newline at end of file
@@ -219,6 +219,13 @@ public class RequestInfoTest {
             return this;
         }
 
+        @Override
+        public @NotNull RequestInfo<T> setupContentCodec(
+            @NotNull ContentCodec codec, @NotNull TypeReference<T> typeReference
+        ) {
+            return this;
+        }
+
         @Override
         public boolean isContentDeserializerSetup() {
             return false;
@@ -0,0 +1,74 @@
+package com.nike.riposte.server.http;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ResponseCachePolicy}
+ */
+public class ResponseCachePolicyTest {
+
+    @Test
+    public void builder_uses_reasonable_defaults() {
+        // when
+        ResponseCachePolicy policy = ResponseCachePolicy.newBuilder(42).build();
+
+        // then
+        assertThat(policy.getTimeToLiveMillis()).isEqualTo(42);
+        assertThat(policy.getStaleWhileRevalidateMillis()).isZero();
+        assertThat(policy.getKeyQueryParamNames()).isNull();
+        assertThat(policy.getVaryHeaderNames()).isEmpty();
+    }
+
+    @Test
+    public void builder_sets_values_as_expected_and_sorts_names() {
+        // when
+        ResponseCachePolicy policy = ResponseCachePolicy.newBuilder(42)
+                                                        .withStaleWhileRevalidateMillis(4242)
+                                                        .withKeyQueryParamNames(Arrays.asList("b", "a"))
+                                                        .withVaryHeaderNames(Arrays.asList("Accept", "Accept-Language"))
+                                                        .build();
+
+        // then
+        assertThat(policy.getTimeToLiveMillis()).isEqualTo(42);
+        assertThat(policy.getStaleWhileRevalidateMillis()).isEqualTo(4242);
+        assertThat(policy.getKeyQueryParamNames()).containsExactly("a", "b");
+        assertThat(policy.getVaryHeaderNames()).containsExactly("Accept", "Accept-Language");
+    }
+
+    @Test
+    public void empty_keyQueryParamNames_is_preserved_as_empty() {
+        // when
+        ResponseCachePolicy policy = ResponseCachePolicy.newBuilder(42)
+                                                        .withKeyQueryParamNames(Collections.emptySet())
+                                                        .build();
+
+        // then
+        assertThat(policy.getKeyQueryParamNames()).isNotNull().isEmpty();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_non_positive_ttl() {
+        // when
+        Throwable ex = catchThrowable(() -> ResponseCachePolicy.newBuilder(0).build());
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_negative_staleWhileRevalidateMillis() {
+        // when
+        Throwable ex = catchThrowable(
+            () -> ResponseCachePolicy.newBuilder(42).withStaleWhileRevalidateMillis(-1).build()
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+}
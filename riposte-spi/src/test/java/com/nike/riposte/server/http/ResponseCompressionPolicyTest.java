@@ -0,0 +1,75 @@
+package com.nike.riposte.server.http;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ResponseCompressionPolicy}
+ */
+public class ResponseCompressionPolicyTest {
+
+    @Test
+    public void builder_uses_null_defaults() {
+        // when
+        ResponseCompressionPolicy policy = ResponseCompressionPolicy.newBuilder().build();
+
+        // then
+        assertThat(policy.getThresholdBytes()).isNull();
+        assertThat(policy.getCompressionLevel()).isNull();
+        assertThat(policy.getContentEncodings()).isNull();
+        assertThat(policy.isCacheCompressedVariants()).isFalse();
+    }
+
+    @Test
+    public void builder_sets_values_as_expected_and_normalizes_content_encodings() {
+        // when
+        ResponseCompressionPolicy policy = ResponseCompressionPolicy.newBuilder()
+                                                                    .withThresholdBytes(42)
+                                                                    .withCompressionLevel(4)
+                                                                    .withContentEncodings(Arrays.asList(" BR ", "gzip"))
+                                                                    .withCacheCompressedVariants(true)
+                                                                    .build();
+
+        // then
+        assertThat(policy.getThresholdBytes()).isEqualTo(42);
+        assertThat(policy.getCompressionLevel()).isEqualTo(4);
+        assertThat(policy.getContentEncodings()).containsExactly("br", "gzip");
+        assertThat(policy.isCacheCompressedVariants()).isTrue();
+    }
+
+    @Test
+    public void empty_contentEncodings_is_preserved_as_empty() {
+        // when
+        ResponseCompressionPolicy policy = ResponseCompressionPolicy.newBuilder()
+                                                                    .withContentEncodings(Collections.emptyList())
+                                                                    .build();
+
+        // then
+        assertThat(policy.getContentEncodings()).isNotNull().isEmpty();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_negative_threshold() {
+        // when
+        Throwable ex = catchThrowable(() -> ResponseCompressionPolicy.newBuilder().withThresholdBytes(-1).build());
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_blank_content_encoding() {
+        // when
+        Throwable ex = catchThrowable(
+            () -> ResponseCompressionPolicy.newBuilder().withContentEncodings(Arrays.asList("gzip", " ")).build()
+        );
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.nike.riposte.server.http;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ZlibResponseContentEncoder}
+ */
+@RunWith(DataProviderRunner.class)
+public class ZlibResponseContentEncoderTest {
+
+    @Test
+    public void built_in_encoders_have_expected_content_encodings() {
+        // expect
+        assertThat(ResponseContentEncoder.GZIP.contentEncoding()).isEqualTo("gzip");
+        assertThat(ResponseContentEncoder.DEFLATE.contentEncoding()).isEqualTo("deflate");
+    }
+
+    @DataProvider(value = {
+        "GZIP   |   null",
+        "GZIP   |   1",
+        "ZLIB   |   null",
+        "ZLIB   |   9"
+    }, splitBy = "\\|", trimValues = true)
+    @Test
+    public void newEncoder_produces_encoder_whose_output_can_be_decoded(ZlibWrapper wrapper, Integer level) {
+        // given
+        ZlibResponseContentEncoder encoder = new ZlibResponseContentEncoder(wrapper);
+        String payload = "some payload that will be compressed, some payload that will be compressed";
+        EmbeddedChannel encoderChannel = new EmbeddedChannel(encoder.newEncoder(level));
+        EmbeddedChannel decoderChannel = new EmbeddedChannel(ZlibCodecFactory.newZlibDecoder(wrapper));
+
+        // when
+        encoderChannel.writeOutbound(Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8));
+        encoderChannel.finish();
+        ByteBuf encoded;
+        while ((encoded = encoderChannel.readOutbound()) != null) {
+            decoderChannel.writeInbound(encoded);
+        }
+
+        // then
+        StringBuilder decoded = new StringBuilder();
+        ByteBuf decodedChunk;
+        while ((decodedChunk = decoderChannel.readInbound()) != null) {
+            decoded.append(decodedChunk.toString(StandardCharsets.UTF_8));
+            decodedChunk.release();
+        }
+        assertThat(decoded.toString()).isEqualTo(payload);
+        decoderChannel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_unsupported_wrapper() {
+        // when
+        Throwable ex = catchThrowable(() -> new ZlibResponseContentEncoder(ZlibWrapper.NONE));
+
+        // then
+        assertThat(ex).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DataProvider(value = {
+        "-1",
+        "10"
+    })
+    @Test
+    public void invalid_compression_levels_throw_IllegalArgumentException(int level) {
+        // when
+        Throwable constructorEx = catchThrowable(() -> new ZlibResponseContentEncoder(ZlibWrapper.GZIP, level, 15, 8));
+        Throwable newEncoderEx = catchThrowable(() -> ResponseContentEncoder.GZIP.newEncoder(level));
+
+        // then
+        assertThat(constructorEx).isInstanceOf(IllegalArgumentException.class);
+        assertThat(newEncoderEx).isInstanceOf(IllegalArgumentException.class);
+    }
+}
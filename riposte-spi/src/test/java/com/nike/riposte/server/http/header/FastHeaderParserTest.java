@@ -0,0 +1,260 @@
+package com.nike.riposte.server.http.header;
+
+import com.nike.riposte.server.http.header.accept.MediaRange;
+import com.nike.riposte.server.http.header.accept.MediaRangeFixture;
+import com.nike.riposte.server.http.header.accept.MimeMediaRangeSubType;
+import com.nike.riposte.server.http.mimetype.MimeType;
+import com.nike.riposte.server.http.mimetype.MimeType.Facet;
+import com.nike.riposte.server.http.mimetype.MimeTypeParser;
+
+import com.tngtech.java.junit.dataprovider.DataProvider;
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link FastHeaderParser}
+ */
+@RunWith(DataProviderRunner.class)
+public class FastHeaderParserTest {
+
+    @DataProvider(value = {
+        "application/json",
+        "application/json;charset=UTF-8",
+        "application/json; charset=utf-8",
+        "application/json ; charset=utf-8 ; foo=bar",
+        "text/html",
+        "Text/HTML",
+        "APPLICATION/json",
+        "application/vnd.nike.runningcoach-v3.1+json;charset=UTF-8",
+        "application/vnd.adobe.air-application-installer-package+zip",
+        "application/x-7z-compressed",
+        "application/x.foo+json",
+        "image/prs.btif",
+        "application/VND.foo",
+        "application/vnd.-foo",
+        "application/vnd..foo",
+        "x-conference/x-cooltalk",
+        "chemical/x-cdx",
+        "application/atom+xml; type=entry",
+        "application/x-jackson-smile",
+        "multipart/form-data; boundary=abc123"
+    }, splitBy = "\\|")
+    @Test
+    public void parseMimeType_matches_the_reference_parser_for_well_formed_values(String text) {
+        // given
+        Optional<MimeType> expected = MimeTypeParser.parse(text);
+        assertThat(expected).isPresent();
+
+        // when
+        Optional<MimeType> result = FastHeaderParser.parseMimeType(text);
+
+        // then
+        assertThat(result).isEqualTo(expected);
+        assertThat(result.get().toString()).isEqualTo(expected.get().toString());
+    }
+
+    @DataProvider(value = {
+        "text/html;q=0.7",
+        "text/*;q=0.3, text/html;q=0.7, text/html;level=1, text/html;level=2;q=0.4, */*;q=0.5",
+        "application/json",
+        "application/cbor;q=0, application/json;q=0.1",
+        "application/cbor;q=0.000, application/json;q=1",
+        "application/x-jackson-smile, application/cbor;q=0.9",
+        "*/*",
+        "*/*;q=0.2;level=1",
+        "text/html;level = 1",
+        "text/html ; q = 0.5",
+        "application/vnd.nike.runningcoach-v3.1+json;charset=utf-8",
+        "application/vnd.nike.foo+proto, */*;q=0.1",
+        "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8",
+        "application/json, text/plain, */*",
+        ""
+    }, splitBy = "\\|")
+    @Test
+    public void parseAcceptHeader_matches_the_reference_parser_for_well_formed_values(String text) {
+        // given
+        Optional<AcceptHeader> expected = AcceptHeaderParser.parse(text);
+        assertThat(expected).isPresent();
+
+        // when
+        Optional<AcceptHeader> result = FastHeaderParser.parseAcceptHeader(text);
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(result.get().mediaRanges).isEqualTo(expected.get().mediaRanges);
+        assertThat(result.get().toString()).isEqualTo(expected.get().toString());
+    }
+
+    @Test
+    public void parseAcceptHeader_parses_the_media_range_fixtures() {
+        // given
+        String acceptHeaderValue = Arrays.stream(MediaRangeFixture.fixtures)
+                                         .map(MediaRangeFixture::getMediaRangeString)
+                                         .collect(Collectors.joining(","));
+        List<MediaRange> expectedRanges = Arrays.stream(MediaRangeFixture.fixtures)
+                                                .map(MediaRangeFixture::getExpectedMediaRange)
+                                                .collect(Collectors.toList());
+
+        // when
+        Optional<AcceptHeader> result = FastHeaderParser.parseAcceptHeader(acceptHeaderValue);
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(result.get().mediaRanges).containsExactlyInAnyOrderElementsOf(expectedRanges);
+    }
+
+    @Test
+    public void parseMimeType_supports_quoted_and_token_parameter_values_the_reference_parser_stops_at() {
+        // when
+        Optional<MimeType> result = FastHeaderParser.parseMimeType(
+            "multipart/form-data; boundary=----WebKitFormBoundary7MA4YWxkTrZu0gW; name=\"a \\\"quoted\\\" value;\""
+        );
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(result.get().getParameters())
+            .containsEntry("boundary", "----WebKitFormBoundary7MA4YWxkTrZu0gW")
+            .containsEntry("name", "a \"quoted\" value;")
+            .hasSize(2);
+    }
+
+    @Test
+    public void parseMimeType_uses_the_last_plus_for_the_structured_syntax_suffix() {
+        // when
+        Optional<MimeType> result = FastHeaderParser.parseMimeType("application/vnd.foo+bar+json");
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(result.get().getSubType().getFacet()).isEqualTo(Facet.VENDOR);
+        assertThat(result.get().getSubType().getName()).isEqualTo("foo+bar");
+        assertThat(result.get().getSubType().getSuffix()).contains("json");
+    }
+
+    @DataProvider(value = {
+        "null",
+        "",
+        "   ",
+        "application",
+        "application/",
+        "/json",
+        "-application/json",
+        "application/json+",
+        "application/+json",
+        "application/json garbage",
+        "application/json;",
+        "application/json; charset",
+        "application/json; charset=",
+        "application/json; charset = utf-8",
+        "application/json; charset=\"utf-8",
+        "application/json, text/html",
+        "*/*"
+    }, splitBy = "\\|")
+    @Test
+    public void parseMimeType_returns_empty_for_invalid_values(String text) {
+        // expect
+        assertThat(FastHeaderParser.parseMimeType(text)).isEmpty();
+    }
+
+    @DataProvider(value = {
+        "null",
+        "text/html, garbage",
+        "text/html;",
+        "text/html;q=2",
+        "text/html;q=-0.5",
+        "text/html;q=1e0",
+        "text/html;q=abc",
+        "text/html;level",
+        "*/json",
+        "*",
+        "text/html text/plain"
+    }, splitBy = "\\|")
+    @Test
+    public void parseAcceptHeader_returns_empty_for_invalid_values(String text) {
+        // expect
+        assertThat(FastHeaderParser.parseAcceptHeader(text)).isEmpty();
+    }
+
+    @Test
+    public void parseAcceptHeader_ignores_empty_list_elements() {
+        // when
+        Optional<AcceptHeader> result = FastHeaderParser.parseAcceptHeader(" , text/html,, application/json ,");
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(result.get().toString()).isEqualTo("application/json,text/html");
+    }
+
+    @Test
+    public void parseAcceptHeader_separates_media_range_params_from_accept_params_and_treats_later_q_as_accept_param() {
+        // when
+        Optional<AcceptHeader> result = FastHeaderParser.parseAcceptHeader("text/html;level=1;q=0.5;foo=\"bar\";q=1");
+
+        // then
+        assertThat(result).isPresent();
+        MediaRange mediaRange = result.get().mediaRanges.get(0);
+        assertThat(mediaRange.qualityFactor).isEqualTo(0.5f);
+        assertThat(mediaRange.mediaRangeParameters).containsOnlyKeys("level");
+        assertThat(mediaRange.acceptParameters).containsEntry("foo", "bar").containsEntry("q", "1").hasSize(2);
+        assertThat(((MimeMediaRangeSubType) mediaRange.subType).getSubType().getName()).isEqualTo("html");
+    }
+
+    @Test
+    public void parsed_parameter_maps_are_unmodifiable() {
+        // given
+        Map<String, String> mimeTypeParams =
+            FastHeaderParser.parseMimeType("text/plain; charset=utf-8").get().getParameters();
+        MediaRange mediaRange = FastHeaderParser.parseAcceptHeader("text/plain;a=b;q=0.5;c=d").get().mediaRanges.get(0);
+
+        // when
+        Throwable mimeTypeEx = catchThrowable(() -> mimeTypeParams.put("foo", "bar"));
+        Throwable mediaRangeParamsEx = catchThrowable(() -> mediaRange.mediaRangeParameters.put("foo", "bar"));
+        Throwable acceptParamsEx = catchThrowable(() -> mediaRange.acceptParameters.put("foo", "bar"));
+
+        // then
+        assertThat(mimeTypeEx).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(mediaRangeParamsEx).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(acceptParamsEx).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @DataProvider(value = {
+        "text/plain; charset=UTF-8                  |   UTF-8",
+        "text/plain;CHARSET=utf-8                   |   utf-8",
+        "text/plain; charset=\"ISO-8859-1\"         |   ISO-8859-1",
+        "text/plain; charset=  us-ascii ; foo=bar   |   us-ascii",
+        "text/text charset=US-ASCII                 |   US-ASCII",
+        "text/plain; x-charset=utf-16               |   utf-16",
+        "text/plain; xcharset=utf-16; charset=utf-8 |   utf-8",
+        "text/plain; charset=                       |   ",
+        "text/plain; charset                        |   null",
+        "text/plain; xcharset=utf-16                |   null",
+        "text/plain                                 |   null"
+    }, splitBy = "\\|", trimValues = false)
+    @Test
+    public void extractCharsetName_works_as_expected(String contentType, String expectedCharsetName) {
+        // given
+        String expected = ("null".equals(expectedCharsetName.trim())) ? null : expectedCharsetName.trim();
+
+        // when
+        String result = FastHeaderParser.extractCharsetName(contentType.trim());
+
+        // then
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    public void extractCharsetName_returns_null_for_null_header() {
+        // expect
+        assertThat(FastHeaderParser.extractCharsetName(null)).isNull();
+    }
+}
@@ -0,0 +1,147 @@
+package com.nike.riposte.server.http.header;
+
+import com.nike.riposte.server.http.mimetype.MimeType;
+
+import com.tngtech.java.junit.dataprovider.DataProviderRunner;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Tests the functionality of {@link ParsedHeaderCache}
+ */
+@RunWith(DataProviderRunner.class)
+public class ParsedHeaderCacheTest {
+
+    @Test
+    public void getDefaultInstance_returns_a_singleton_with_the_default_max_entries() {
+        // when
+        ParsedHeaderCache instance = ParsedHeaderCache.getDefaultInstance();
+
+        // then
+        assertThat(instance).isSameAs(ParsedHeaderCache.getDefaultInstance());
+        assertThat(instance.maxEntries).isEqualTo(ParsedHeaderCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_for_negative_maxEntries() {
+        // when
+        Throwable ex = catchThrowable(() -> new ParsedHeaderCache(-1));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxEntries cannot be negative");
+    }
+
+    @Test
+    public void methods_return_parsed_values_and_cache_them_by_raw_header_value() {
+        // given
+        ParsedHeaderCache cache = new ParsedHeaderCache(10);
+
+        // when
+        Optional<MimeType> mimeType = cache.mimeType("application/json; charset=UTF-8");
+        Optional<AcceptHeader> acceptHeader = cache.acceptHeader("text/html, application/json;q=0.5");
+        Optional<Charset> charset = cache.charsetFromContentType("application/json; charset=utf-8");
+
+        // then
+        assertThat(mimeType).isEqualTo(FastHeaderParser.parseMimeType("application/json; charset=UTF-8"));
+        assertThat(acceptHeader.get().toString()).isEqualTo("text/html,application/json;q=0.5");
+        assertThat(charset).contains(StandardCharsets.UTF_8);
+
+        assertThat(cache.mimeType("application/json; charset=UTF-8")).isSameAs(mimeType);
+        assertThat(cache.acceptHeader("text/html, application/json;q=0.5")).isSameAs(acceptHeader);
+        assertThat(cache.charsetFromContentType("application/json; charset=utf-8")).isSameAs(charset);
+        assertThat(cache.mimeTypes).hasSize(1);
+        assertThat(cache.acceptHeaders).hasSize(1);
+        assertThat(cache.contentTypeCharsets).hasSize(1);
+    }
+
+    @Test
+    public void unparseable_values_and_missing_charsets_are_cached_as_empty() {
+        // given
+        ParsedHeaderCache cache = new ParsedHeaderCache(10);
+
+        // when
+        Optional<MimeType> mimeType = cache.mimeType("not a mime type");
+        Optional<AcceptHeader> acceptHeader = cache.acceptHeader("not an accept header");
+        Optional<Charset> charset = cache.charsetFromContentType("application/json");
+
+        // then
+        assertThat(mimeType).isEmpty();
+        assertThat(acceptHeader).isEmpty();
+        assertThat(charset).isEmpty();
+        assertThat(cache.mimeTypes).containsKey("not a mime type");
+        assertThat(cache.acceptHeaders).containsKey("not an accept header");
+        assertThat(cache.contentTypeCharsets).containsKey("application/json");
+    }
+
+    @Test
+    public void charsetFromContentType_throws_for_unknown_charsets_without_caching_the_failure() {
+        // given
+        ParsedHeaderCache cache = new ParsedHeaderCache(10);
+
+        // when
+        Throwable ex = catchThrowable(() -> cache.charsetFromContentType("text/plain; charset=garbagio"));
+
+        // then
+        assertThat(ex).isInstanceOf(UnsupportedCharsetException.class);
+        assertThat(cache.contentTypeCharsets).isEmpty();
+    }
+
+    @Test
+    public void cache_is_cleared_when_it_reaches_max_entries() {
+        // given
+        ParsedHeaderCache cache = new ParsedHeaderCache(2);
+        cache.mimeType("text/plain");
+        cache.mimeType("text/html");
+        assertThat(cache.mimeTypes).hasSize(2);
+
+        // when
+        Optional<MimeType> result = cache.mimeType("application/json");
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(cache.mimeTypes).containsOnlyKeys("application/json");
+    }
+
+    @Test
+    public void values_longer_than_MAX_CACHEABLE_VALUE_LENGTH_are_parsed_but_not_cached() {
+        // given
+        ParsedHeaderCache cache = new ParsedHeaderCache(10);
+        StringBuilder sb = new StringBuilder("text/plain; foo=");
+        while (sb.length() <= ParsedHeaderCache.MAX_CACHEABLE_VALUE_LENGTH) {
+            sb.append('a');
+        }
+        String longValue = sb.toString();
+
+        // when
+        Optional<MimeType> result = cache.mimeType(longValue);
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(cache.mimeTypes).isEmpty();
+    }
+
+    @Test
+    public void cache_with_zero_max_entries_never_caches() {
+        // given
+        ParsedHeaderCache cache = new ParsedHeaderCache(0);
+
+        // when
+        Optional<AcceptHeader> result = cache.acceptHeader("application/json");
+
+        // then
+        assertThat(result).isPresent();
+        assertThat(cache.acceptHeaders).isEmpty();
+        assertThat(cache.acceptHeader("application/json")).isNotSameAs(result);
+    }
+}
@@ -57,7 +57,9 @@ public class MediaRangeTest {
             ";q =.24|0.24",
             ";q= .24|0.24",
             "; q=.24|0.24",
-            "; q=1|1.0"
+            "; q=1|1.0",
+            ";q=0|0.0",
+            ";q=0.000|0.0"
     }, splitBy = "\\|")
     public void test_quality_factor_parser_works (final String testQualityFactorString, final String expectedFloatString) throws Parser.ParserFailure {
         Optional<Float> oResult;
@@ -0,0 +1,188 @@
+package com.nike.riposte.server.http.impl;
+
+import com.nike.riposte.server.http.ResponseInfo;
+
+import com.google.common.collect.Sets;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.UUID;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.codec.http.cookie.DefaultCookie;
+import io.netty.util.CharsetUtil;
+
+import static junit.framework.TestCase.fail;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the functionality of {@link FileResponseInfo}
+ */
+public class FileResponseInfoTest {
+
+    private Path randomPath() {
+        return Paths.get("/tmp", UUID.randomUUID().toString());
+    }
+
+    @Test
+    public void uber_constructor_sets_fields_as_expected() {
+        // given
+        Path file = randomPath();
+        long offset = 42;
+        Long length = 4242L;
+        boolean rangeRequestsAllowed = false;
+        int httpStatusCode = 200;
+        HttpHeaders headers = new DefaultHttpHeaders();
+        String mimeType = "text/text";
+        Charset contentCharset = CharsetUtil.UTF_8;
+        Set<Cookie> cookies = Sets.newHashSet(new DefaultCookie("key1", "val1"), new DefaultCookie("key2", "val2"));
+        boolean preventCompressedResponse = true;
+
+        // when
+        FileResponseInfo responseInfo = new FileResponseInfo(
+            file, offset, length, rangeRequestsAllowed, httpStatusCode, headers, mimeType, contentCharset, cookies,
+            preventCompressedResponse
+        );
+
+        // then
+        assertThat(responseInfo.getContentForFullResponse(), is(file));
+        assertThat(responseInfo.getFileOffset(), is(offset));
+        assertThat(responseInfo.getFileLength(), is(length));
+        assertThat(responseInfo.isRangeRequestsAllowed(), is(rangeRequestsAllowed));
+        assertThat(responseInfo.getHttpStatusCode(), is(httpStatusCode));
+        assertThat(responseInfo.getHeaders(), is(headers));
+        assertThat(responseInfo.getDesiredContentWriterMimeType(), is(mimeType));
+        assertThat(responseInfo.getDesiredContentWriterEncoding(), is(contentCharset));
+        assertThat(responseInfo.getCookies(), is(cookies));
+        assertThat(responseInfo.getUncompressedRawContentLength(), nullValue());
+        assertThat(responseInfo.getFinalContentLength(), nullValue());
+        assertThat(responseInfo.isPreventCompressedOutput(), is(preventCompressedResponse));
+        assertThat(responseInfo.isChunkedResponse(), is(false));
+        assertThat(responseInfo.isResponseSendingStarted(), is(false));
+        assertThat(responseInfo.isResponseSendingLastChunkSent(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_IllegalArgumentException_if_passed_negative_offset() {
+        // expect
+        new FileResponseInfo(randomPath(), -1, null, true, null, null, null, null, null, false);
+        fail("Exception was expected but none was thrown");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_throws_IllegalArgumentException_if_passed_negative_length() {
+        // expect
+        new FileResponseInfo(randomPath(), 0, -1L, true, null, null, null, null, null, false);
+        fail("Exception was expected but none was thrown");
+    }
+
+    @Test
+    public void constructor_defaults_mime_type_to_octet_stream_if_not_specified() {
+        // when
+        FileResponseInfo responseInfo = ResponseInfo.newFileResponseBuilder(randomPath()).build();
+
+        // then
+        assertThat(responseInfo.getDesiredContentWriterMimeType(), is(FileResponseInfo.DEFAULT_FILE_MIME_TYPE));
+    }
+
+    @Test
+    public void constructor_does_not_default_mime_type_if_content_type_header_is_specified() {
+        // given
+        HttpHeaders headers = new DefaultHttpHeaders().set("Content-Type", "image/png");
+
+        // when
+        FileResponseInfo responseInfo = ResponseInfo.newFileResponseBuilder(randomPath()).withHeaders(headers).build();
+
+        // then
+        assertThat(responseInfo.getDesiredContentWriterMimeType(), nullValue());
+    }
+
+    @Test
+    public void newFileResponseBuilder_uses_reasonable_default_values() {
+        // given
+        Path file = randomPath();
+
+        // when
+        FileResponseInfo responseInfo = ResponseInfo.newFileResponseBuilder(file).build();
+
+        // then
+        assertThat(responseInfo.getContentForFullResponse(), is(file));
+        assertThat(responseInfo.getFileOffset(), is(0L));
+        assertThat(responseInfo.getFileLength(), nullValue());
+        assertThat(responseInfo.isRangeRequestsAllowed(), is(true));
+        assertThat(responseInfo.getHttpStatusCode(), nullValue());
+        assertThat(responseInfo.getHeaders().isEmpty(), is(true));
+        assertThat(responseInfo.getCookies(), nullValue());
+        assertThat(responseInfo.isPreventCompressedOutput(), is(false));
+        assertThat(responseInfo.isChunkedResponse(), is(false));
+    }
+
+    @Test
+    public void builder_sets_values_as_expected() {
+        // given
+        Path file = randomPath();
+        long offset = 42;
+        Long length = 4242L;
+        int httpStatusCode = 200;
+        HttpHeaders headers = new DefaultHttpHeaders();
+        String mimeType = "text/text";
+        Charset contentCharset = CharsetUtil.ISO_8859_1;
+        Set<Cookie> cookies = Sets.newHashSet(new DefaultCookie("key1", "val1"), new DefaultCookie("key2", "val2"));
+        boolean preventCompressedOutput = true;
+
+        // when
+        FileResponseInfo responseInfo = ResponseInfo.newFileResponseBuilder(file)
+                                                    .withFileOffset(offset)
+                                                    .withFileLength(length)
+                                                    .withRangeRequestsAllowed(false)
+                                                    .withHttpStatusCode(httpStatusCode)
+                                                    .withHeaders(headers)
+                                                    .withDesiredContentWriterMimeType(mimeType)
+                                                    .withDesiredContentWriterEncoding(contentCharset)
+                                                    .withCookies(cookies)
+                                                    .withPreventCompressedOutput(preventCompressedOutput).build();
+
+        // then
+        assertThat(responseInfo.getContentForFullResponse(), is(file));
+        assertThat(responseInfo.getFileOffset(), is(offset));
+        assertThat(responseInfo.getFileLength(), is(length));
+        assertThat(responseInfo.isRangeRequestsAllowed(), is(false));
+        assertThat(responseInfo.getHttpStatusCode(), is(httpStatusCode));
+        assertThat(responseInfo.getHeaders(), is(headers));
+        assertThat(responseInfo.getDesiredContentWriterMimeType(), is(mimeType));
+        assertThat(responseInfo.getDesiredContentWriterEncoding(), is(contentCharset));
+        assertThat(responseInfo.getCookies(), is(cookies));
+        assertThat(responseInfo.isPreventCompressedOutput(), is(preventCompressedOutput));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setContentForFullResponse_throws_IllegalStateException_if_isResponseSendingLastChunkSent_returns_true() {
+        // given
+        FileResponseInfo responseInfo = ResponseInfo.newFileResponseBuilder(randomPath()).build();
+        responseInfo.setResponseSendingLastChunkSent(true);
+
+        // expect
+        responseInfo.setContentForFullResponse(randomPath());
+    }
+
+    @Test
+    public void setContentForFullResponse_works_if_isResponseSendingLastChunkSent_returns_false() {
+        // given
+        FileResponseInfo responseInfo = ResponseInfo.newFileResponseBuilder(randomPath()).build();
+        Path newFile = randomPath();
+
+        // when
+        responseInfo.setContentForFullResponse(newFile);
+
+        // then
+        assertThat(responseInfo.getContentForFullResponse(), is(newFile));
+    }
+}
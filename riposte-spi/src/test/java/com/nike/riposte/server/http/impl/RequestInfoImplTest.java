@@ -1,12 +1,16 @@
 package com.nike.riposte.server.http.impl;
 
 import com.nike.internal.util.Pair;
+import com.nike.riposte.server.error.exception.InvalidHttpRequestException;
 import com.nike.riposte.server.error.exception.PathParameterMatchingException;
 import com.nike.riposte.server.error.exception.RequestContentDeserializationException;
+import com.nike.riposte.server.http.ContentCodec;
+import com.nike.riposte.server.http.JacksonContentCodec;
 import com.nike.riposte.server.http.RequestInfo;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.collect.Sets;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
@@ -18,8 +22,13 @@ import com.nike.riposte.testutils.Whitebox;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -28,13 +37,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -45,6 +63,8 @@ import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.codec.http.cookie.ClientCookieEncoder;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
+import io.netty.handler.codec.http.multipart.Attribute;
+import io.netty.handler.codec.http.multipart.DefaultHttpDataFactory;
 import io.netty.handler.codec.http.multipart.FileUpload;
 import io.netty.handler.codec.http.multipart.HttpPostMultipartRequestDecoder;
 import io.netty.handler.codec.http.multipart.InterfaceHttpData;
@@ -192,6 +212,77 @@ public class RequestInfoImplTest {
         assertThat(requestInfo.isKeepAliveRequested(), is(true));
     }
 
+    @Test
+    public void netty_helper_constructor_defers_decoding_until_first_access_and_memoizes_results() {
+        // given
+        String cookieName = UUID.randomUUID().toString();
+        String cookieValue = UUID.randomUUID().toString();
+        DefaultHttpRequest nettyRequest = new DefaultHttpRequest(
+            HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/uri/path?foo=bar"
+        );
+        nettyRequest.headers()
+                    .set(HttpHeaders.Names.CONTENT_TYPE, "text/plain; charset=UTF-16")
+                    .set(HttpHeaders.Names.COOKIE, ClientCookieEncoder.LAX.encode(cookieName, cookieValue));
+
+        // when
+        RequestInfoImpl<?> requestInfo = new RequestInfoImpl<>(nettyRequest);
+
+        // then
+        assertThat(requestInfo.queryParams, nullValue());
+        assertThat(requestInfo.cookies, nullValue());
+        assertThat(requestInfo.cookieSourceRequest, sameInstance(nettyRequest));
+        assertThat(requestInfo.contentCharset, nullValue());
+        assertThat(requestInfo.trailingHeaders, sameInstance(EmptyHttpHeaders.INSTANCE));
+
+        // and when
+        QueryStringDecoder queryParams = requestInfo.getQueryParams();
+        Set<Cookie> cookies = requestInfo.getCookies();
+        Charset contentCharset = requestInfo.getContentCharset();
+
+        // then
+        assertThat(queryParams.parameters().get("foo"), is(Collections.singletonList("bar")));
+        assertThat(cookies, is(Sets.newHashSet(new DefaultCookie(cookieName, cookieValue))));
+        assertThat(contentCharset, is(CharsetUtil.UTF_16));
+        assertThat(requestInfo.cookieSourceRequest, nullValue());
+        assertThat(requestInfo.getQueryParams(), sameInstance(queryParams));
+        assertThat(requestInfo.getCookies(), sameInstance(cookies));
+        assertThat(requestInfo.getContentCharset(), sameInstance(contentCharset));
+    }
+
+    @Test
+    public void getTrailingHeaders_swaps_empty_placeholder_for_mutable_headers() {
+        // given
+        RequestInfoImpl<?> requestInfo = new RequestInfoImpl<>(
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo")
+        );
+        assertThat(requestInfo.trailingHeaders, sameInstance(EmptyHttpHeaders.INSTANCE));
+
+        // when
+        HttpHeaders result = requestInfo.getTrailingHeaders();
+        result.add("foo", "bar");
+
+        // then
+        assertThat(result, instanceOf(DefaultHttpHeaders.class));
+        assertThat(requestInfo.getTrailingHeaders(), sameInstance(result));
+        assertThat(requestInfo.getTrailingHeaders().get("foo"), is("bar"));
+    }
+
+    @Test
+    public void addContentChunk_does_not_allocate_trailing_headers_if_last_chunk_has_none() {
+        // given
+        RequestInfoImpl<?> requestInfo = new RequestInfoImpl<>(
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/foo")
+        );
+
+        // when
+        requestInfo.addContentChunk(LastHttpContent.EMPTY_LAST_CONTENT);
+
+        // then
+        assertThat(requestInfo.isCompleteRequestWithAllChunks(), is(true));
+        assertThat(requestInfo.trailingHeaders, sameInstance(EmptyHttpHeaders.INSTANCE));
+        assertThat(requestInfo.getTrailingHeaders().isEmpty(), is(true));
+    }
+
     @Test
     public void dummyInstanceForUnknownRequests_creates_instance_with_expected_data() {
         // when
@@ -382,7 +473,7 @@ public class RequestInfoImplTest {
         assertThat(result.bar, is(expectedTco.bar));
         verify(requestInfoSpy).getRawContentBytes();
         verify(requestInfoSpy, never()).getRawContent();
-        verify(objectMapperSpy).readValue(rawBytes, typeRef);
+        verify(objectMapperSpy).readerFor(typeRef);
     }
 
     @Test
@@ -393,7 +484,9 @@ public class RequestInfoImplTest {
         byte[] rawBytes = new byte[]{};
         doReturn(rawBytes).when(requestInfoSpy).getRawContentBytes();
         RuntimeException expectedRootCause = new RuntimeException("splat");
-        doThrow(expectedRootCause).when(objectMapperSpy).readValue(any(byte[].class), any(TypeReference.class));
+        ObjectReader objectReaderMock = mock(ObjectReader.class);
+        doReturn(objectReaderMock).when(objectMapperSpy).readerFor(any(TypeReference.class));
+        doThrow(expectedRootCause).when(objectReaderMock).readValue(any(byte[].class));
         HttpMethod method = HttpMethod.CONNECT;
         String path = UUID.randomUUID().toString();
         TypeReference<TestContentObject> typeRef = new TypeReference<TestContentObject>() {};
@@ -414,6 +507,98 @@ public class RequestInfoImplTest {
         assertThat(actualEx.getCause(), is(expectedRootCause));
     }
 
+    @Test
+    public void setupContentCodec_and_getContent_deserialize_straight_from_the_content_chunks() {
+        // given
+        RequestInfoImpl<Map<String, Integer>> requestInfo =
+            (RequestInfoImpl<Map<String, Integer>>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        HttpContent chunk1 = contentChunk("{\"foo\":", false);
+        HttpContent lastChunk = contentChunk("42}", true);
+        requestInfo.addContentChunk(chunk1);
+        requestInfo.addContentChunk(lastChunk);
+        ContentCodec codec = new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+
+        // when
+        requestInfo.setupContentCodec(codec, new TypeReference<Map<String, Integer>>() {});
+        Map<String, Integer> result = requestInfo.getContent();
+
+        // then
+        assertThat(result, is(Collections.singletonMap("foo", 42)));
+        assertThat(requestInfo.isContentDeserializerSetup(), is(true));
+        assertThat(requestInfo.rawContentBytesInitialized, is(false));
+        assertThat(requestInfo.contentChunks.size(), is(2));
+        assertThat(chunk1.refCnt(), is(2));
+        assertThat(lastChunk.refCnt(), is(2));
+        // The chunks are still usable for the raw content afterward.
+        assertThat(requestInfo.getRawContent(), is("{\"foo\":42}"));
+        assertThat(chunk1.refCnt(), is(1));
+        assertThat(lastChunk.refCnt(), is(1));
+    }
+
+    @Test
+    public void setupContentCodec_and_getContent_use_the_raw_content_bytes_if_they_were_already_created() {
+        // given
+        RequestInfoImpl<Map<String, Integer>> requestInfo =
+            (RequestInfoImpl<Map<String, Integer>>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.rawContentBytes = "{\"foo\":42}".getBytes(CharsetUtil.UTF_8);
+        ContentCodec codec = new JacksonContentCodec(ContentCodec.CBOR_MIME_TYPE, new ObjectMapper());
+
+        // when
+        requestInfo.setupContentCodec(codec, new TypeReference<Map<String, Integer>>() {});
+
+        // then
+        assertThat(requestInfo.getContent(), is(Collections.singletonMap("foo", 42)));
+    }
+
+    @Test
+    public void setupContentCodec_and_setupContentDeserializer_replace_each_other() {
+        // given
+        RequestInfoImpl<TestContentObject> requestInfo =
+            (RequestInfoImpl<TestContentObject>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        ObjectMapper deserializer = new ObjectMapper();
+        ContentCodec codec = mock(ContentCodec.class);
+        TypeReference<TestContentObject> typeRef = new TypeReference<TestContentObject>() {};
+
+        // when
+        requestInfo.setupContentDeserializer(deserializer, typeRef);
+        requestInfo.setupContentCodec(codec, typeRef);
+
+        // then
+        assertThat(requestInfo.contentCodec, sameInstance(codec));
+        assertThat(requestInfo.contentDeserializer, nullValue());
+        assertThat(requestInfo.isContentDeserializerSetup(), is(true));
+
+        // and when
+        requestInfo.setupContentDeserializer(deserializer, typeRef);
+
+        // then
+        assertThat(requestInfo.contentCodec, nullValue());
+        assertThat(requestInfo.contentDeserializer, sameInstance(deserializer));
+        assertThat(requestInfo.isContentDeserializerSetup(), is(true));
+    }
+
+    @Test
+    public void getContent_throws_RequestContentDeserializationException_if_the_content_codec_fails() throws IOException {
+        // given
+        RequestInfoImpl<TestContentObject> requestInfo =
+            (RequestInfoImpl<TestContentObject>) RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.rawContentBytes = new byte[]{ 1, 2, 3 };
+        ContentCodec codecMock = mock(ContentCodec.class);
+        IOException expectedRootCause = new IOException("splat");
+        TypeReference<TestContentObject> typeRef = new TypeReference<TestContentObject>() {};
+        doThrow(expectedRootCause).when(codecMock).deserialize(any(ByteBuf.class), any(TypeReference.class));
+        requestInfo.setupContentCodec(codecMock, typeRef);
+
+        // when
+        Throwable actualEx = catchThrowable(requestInfo::getContent);
+
+        // then
+        assertThat(actualEx, instanceOf(RequestContentDeserializationException.class));
+        assertThat(((RequestContentDeserializationException) actualEx).desiredObjectType, sameInstance(typeRef));
+        assertThat(actualEx.getCause(), is(expectedRootCause));
+    }
+
     @Test
     public void getContent_returns_null_if_request_is_not_complete_with_all_chunks() {
         // given
@@ -427,6 +612,132 @@ public class RequestInfoImplTest {
         assertThat(result, nullValue());
     }
 
+    private RequestInfoImpl<TestContentObject> completeRequestInfoWithJsonContent(
+        TestContentObject contentObj
+    ) throws IOException {
+        RequestInfoImpl<TestContentObject> requestInfo = new RequestInfoImpl<>(
+            new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/foo")
+        );
+        byte[] contentBytes = new ObjectMapper().writeValueAsBytes(contentObj);
+        requestInfo.addContentChunk(new DefaultLastHttpContent(Unpooled.copiedBuffer(contentBytes)));
+        requestInfo.setupContentDeserializer(new ObjectMapper(), new TypeReference<TestContentObject>() {});
+        return requestInfo;
+    }
+
+    @Test
+    public void lazy_request_views_are_created_only_once_when_called_concurrently() throws Exception {
+        // given
+        String cookieName = UUID.randomUUID().toString();
+        String cookieValue = UUID.randomUUID().toString();
+        DefaultHttpRequest nettyRequest = new DefaultHttpRequest(
+            HttpVersion.HTTP_1_1, HttpMethod.GET, "/some/uri/path?foo=bar"
+        );
+        nettyRequest.headers().set(HttpHeaders.Names.COOKIE, ClientCookieEncoder.LAX.encode(cookieName, cookieValue));
+        RequestInfoImpl<?> requestInfo = new RequestInfoImpl<>(nettyRequest);
+        int numThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+
+        try {
+            // when
+            List<Future<List<Object>>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                futures.add(executor.submit(() -> {
+                    startLatch.await();
+                    return Arrays.asList(
+                        requestInfo.getCookies(), requestInfo.getQueryParams(), requestInfo.getTrailingHeaders()
+                    );
+                }));
+            }
+            startLatch.countDown();
+
+            // then
+            List<Object> first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<List<Object>> future : futures) {
+                List<Object> result = future.get(10, TimeUnit.SECONDS);
+                for (int i = 0; i < result.size(); i++) {
+                    assertThat(result.get(i), sameInstance(first.get(i)));
+                }
+            }
+            assertThat(requestInfo.getCookies(), is(Sets.newHashSet(new DefaultCookie(cookieName, cookieValue))));
+            assertThat(requestInfo.getTrailingHeaders(), sameInstance(first.get(2)));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void content_accessors_create_each_view_only_once_when_called_concurrently() throws Exception {
+        // given
+        TestContentObject contentObj = new TestContentObject(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        RequestInfoImpl<TestContentObject> requestInfo = completeRequestInfoWithJsonContent(contentObj);
+        HttpContent chunk = requestInfo.contentChunks.get(0);
+        int numThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+
+        try {
+            // when
+            List<Future<Pair<byte[], TestContentObject>>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                futures.add(executor.submit(() -> {
+                    startLatch.await();
+                    return Pair.of(requestInfo.getRawContentBytes(), requestInfo.getContent());
+                }));
+            }
+            startLatch.countDown();
+
+            // then
+            Pair<byte[], TestContentObject> first = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<Pair<byte[], TestContentObject>> future : futures) {
+                Pair<byte[], TestContentObject> result = future.get(10, TimeUnit.SECONDS);
+                assertThat(result.getLeft(), sameInstance(first.getLeft()));
+                assertThat(result.getRight(), sameInstance(first.getRight()));
+            }
+            assertThat(first.getRight().foo, is(contentObj.foo));
+            // The chunk was retained once when added and must only have been released once.
+            assertThat(chunk.refCnt(), is(1));
+            Assertions.assertThat(requestInfo.contentChunks).isEmpty();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void content_accessors_do_not_lock_once_content_views_have_been_created() throws Exception {
+        // given
+        TestContentObject contentObj = new TestContentObject(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        RequestInfoImpl<TestContentObject> requestInfo = completeRequestInfoWithJsonContent(contentObj);
+        byte[] rawBytes = requestInfo.getRawContentBytes();
+        String rawContent = requestInfo.getRawContent();
+        TestContentObject content = requestInfo.getContent();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // when
+            Future<List<Object>> future;
+            synchronized (requestInfo) {
+                // Another thread holding the monitor must not block reads of the already-created views.
+                future = executor.submit(() -> Arrays.asList(
+                    requestInfo.getRawContentLengthInBytes(), requestInfo.getRawContentBytes(),
+                    requestInfo.getRawContent(), requestInfo.getContent()
+                ));
+                List<Object> results = future.get(10, TimeUnit.SECONDS);
+
+                // then
+                assertThat(results.get(0), is(rawBytes.length));
+                assertThat(results.get(1), sameInstance(rawBytes));
+                assertThat(results.get(2), sameInstance(rawContent));
+                assertThat(results.get(3), sameInstance(content));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test
     @DataProvider(value = {
             "/some/path/foo/bar  | /some/path/{param1}/{param2}  | foo | bar",
@@ -589,6 +900,276 @@ public class RequestInfoImplTest {
         assertThat(lastChunk.refCnt(), is(1));
     }
 
+    private static HttpContent contentChunk(String content, boolean isLast) {
+        ByteBuf buf = Unpooled.copiedBuffer(content, CharsetUtil.UTF_8);
+        return (isLast) ? new DefaultLastHttpContent(buf) : new DefaultHttpContent(buf);
+    }
+
+    @Test
+    public void addContentChunk_spills_content_to_temp_file_once_threshold_is_exceeded_and_getRawContentBytes_reads_it_back() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(5, null);
+        HttpContent chunk1 = contentChunk("abc", false);
+        HttpContent chunk2 = contentChunk("defgh", false);
+        HttpContent lastChunk = contentChunk("ij", true);
+
+        // when
+        requestInfo.addContentChunk(chunk1);
+
+        // then
+        assertThat(requestInfo.spillFile, nullValue());
+        assertThat(requestInfo.contentChunks.size(), is(1));
+        assertThat(chunk1.refCnt(), is(2));
+
+        // and when
+        requestInfo.addContentChunk(chunk2);
+        requestInfo.addContentChunk(lastChunk);
+
+        // then
+        Path spillFile = requestInfo.spillFile;
+        assertThat(spillFile, notNullValue());
+        assertThat(Files.exists(spillFile), is(true));
+        assertThat(requestInfo.contentChunks.isEmpty(), is(true));
+        assertThat(chunk1.refCnt(), is(1));
+        assertThat(chunk2.refCnt(), is(1));
+        assertThat(lastChunk.refCnt(), is(1));
+        assertThat(requestInfo.isCompleteRequestWithAllChunks(), is(true));
+        assertThat(requestInfo.getRawContentLengthInBytes(), is(10));
+
+        // and when
+        String rawContent = requestInfo.getRawContent();
+
+        // then
+        assertThat(rawContent, is("abcdefghij"));
+        assertThat(requestInfo.getRawContentBytes(), is("abcdefghij".getBytes(CharsetUtil.UTF_8)));
+        assertThat(Files.exists(spillFile), is(false));
+        assertThat(requestInfo.spillFile, nullValue());
+        assertThat(requestInfo.spillFileChannel, nullValue());
+    }
+
+    @Test
+    public void addContentChunk_keeps_content_in_memory_if_threshold_is_not_exceeded() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(5, null);
+        HttpContent lastChunk = contentChunk("abcde", true);
+
+        // when
+        requestInfo.addContentChunk(lastChunk);
+
+        // then
+        assertThat(requestInfo.spillFile, nullValue());
+        assertThat(requestInfo.contentChunks.size(), is(1));
+        assertThat(requestInfo.getRawContent(), is("abcde"));
+        assertThat(lastChunk.refCnt(), is(1));
+    }
+
+    @Test
+    public void addContentChunk_does_not_spill_content_if_contentChunksWillBeReleasedExternally_is_true() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(0, null);
+        requestInfo.contentChunksWillBeReleasedExternally();
+        HttpContent chunk = contentChunk("abc", false);
+
+        // when
+        requestInfo.addContentChunk(chunk);
+
+        // then
+        assertThat(requestInfo.spillFile, nullValue());
+        assertThat(chunk.refCnt(), is(2));
+        chunk.release(2);
+    }
+
+    @Test
+    public void contentChunksWillBeReleasedExternally_deletes_spill_file() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(0, null);
+        requestInfo.addContentChunk(contentChunk("abc", false));
+        Path spillFile = requestInfo.spillFile;
+        assertThat(Files.exists(spillFile), is(true));
+
+        // when
+        requestInfo.contentChunksWillBeReleasedExternally();
+
+        // then
+        assertThat(Files.exists(spillFile), is(false));
+        assertThat(requestInfo.spillFile, nullValue());
+    }
+
+    @Test
+    public void releaseAllResources_deletes_spill_file_and_subsequent_calls_do_nothing() throws IOException {
+        // given
+        Path tempDirectory = Files.createTempDirectory("RequestInfoImplTest");
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(1, tempDirectory);
+        requestInfo.addContentChunk(contentChunk("abc", false));
+        Path spillFile = requestInfo.spillFile;
+        assertThat(spillFile.getParent(), is(tempDirectory));
+        assertThat(Files.exists(spillFile), is(true));
+
+        try {
+            // when
+            requestInfo.releaseAllResources();
+            requestInfo.releaseAllResources();
+
+            // then
+            assertThat(Files.exists(spillFile), is(false));
+            assertThat(requestInfo.spillFile, nullValue());
+            assertThat(requestInfo.spillFileChannel, nullValue());
+        }
+        finally {
+            Files.deleteIfExists(spillFile);
+            Files.deleteIfExists(tempDirectory);
+        }
+    }
+
+    private static void runQueuedTasks(List<Runnable> queuedTasks) {
+        while (!queuedTasks.isEmpty()) {
+            queuedTasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void addContentChunk_queues_spill_file_writes_on_the_given_executor_in_chunk_order() {
+        // given
+        List<Runnable> queuedTasks = new ArrayList<>();
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(5, null, queuedTasks::add);
+        HttpContent chunk1 = contentChunk("abc", false);
+        HttpContent chunk2 = contentChunk("defgh", false);
+        HttpContent lastChunk = contentChunk("ij", true);
+
+        // when
+        requestInfo.addContentChunk(chunk1);
+        requestInfo.addContentChunk(chunk2);
+        requestInfo.addContentChunk(lastChunk);
+
+        // then
+        // Nothing touches the disk on the calling thread, and the second write isn't handed to the executor until
+        //      the first one is done.
+        assertThat(queuedTasks.size(), is(1));
+        assertThat(requestInfo.spillFile, nullValue());
+        assertThat(requestInfo.contentChunks.isEmpty(), is(true));
+        assertThat(chunk1.refCnt(), is(2));
+        assertThat(lastChunk.refCnt(), is(2));
+        assertThat(requestInfo.getPendingSpillFileWrites().isDone(), is(false));
+        assertThat(requestInfo.isCompleteRequestWithAllChunks(), is(true));
+
+        // and when
+        runQueuedTasks(queuedTasks);
+
+        // then
+        Path spillFile = requestInfo.spillFile;
+        assertThat(spillFile, notNullValue());
+        assertThat(Files.exists(spillFile), is(true));
+        assertThat(requestInfo.getPendingSpillFileWrites().isDone(), is(true));
+        assertThat(chunk1.refCnt(), is(1));
+        assertThat(chunk2.refCnt(), is(1));
+        assertThat(lastChunk.refCnt(), is(1));
+        assertThat(requestInfo.getRawContent(), is("abcdefghij"));
+        assertThat(Files.exists(spillFile), is(false));
+    }
+
+    @Test
+    public void getRawContentBytes_waits_for_queued_spill_file_writes() throws Exception {
+        // given
+        List<Runnable> queuedTasks = Collections.synchronizedList(new ArrayList<>());
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(0, null, queuedTasks::add);
+        requestInfo.addContentChunk(contentChunk("abc", false));
+        requestInfo.addContentChunk(contentChunk("def", true));
+        ExecutorService readerThread = Executors.newSingleThreadExecutor();
+
+        try {
+            // when
+            Future<String> rawContentFuture = readerThread.submit(requestInfo::getRawContent);
+            Thread.sleep(100);
+
+            // then
+            assertThat(rawContentFuture.isDone(), is(false));
+
+            // and when
+            runQueuedTasks(queuedTasks);
+
+            // then
+            assertThat(rawContentFuture.get(5, TimeUnit.SECONDS), is("abcdef"));
+        }
+        finally {
+            readerThread.shutdownNow();
+        }
+    }
+
+    @Test
+    public void releaseAllResources_releases_chunks_in_queued_spill_file_writes_without_creating_spill_file() {
+        // given
+        List<Runnable> queuedTasks = new ArrayList<>();
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(0, null, queuedTasks::add);
+        HttpContent chunk1 = contentChunk("abc", false);
+        HttpContent chunk2 = contentChunk("def", false);
+        requestInfo.addContentChunk(chunk1);
+        requestInfo.addContentChunk(chunk2);
+
+        // when
+        requestInfo.releaseAllResources();
+        runQueuedTasks(queuedTasks);
+
+        // then
+        assertThat(requestInfo.getPendingSpillFileWrites().isDone(), is(true));
+        assertThat(requestInfo.spillFile, nullValue());
+        assertThat(requestInfo.spillFileChannel, nullValue());
+        assertThat(chunk1.refCnt(), is(1));
+        assertThat(chunk2.refCnt(), is(1));
+    }
+
+    @Test
+    public void failed_spill_file_write_releases_later_chunks_and_is_rethrown_by_getRawContentBytes() {
+        // given
+        List<Runnable> queuedTasks = new ArrayList<>();
+        Path missingDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "does-not-exist-" + UUID.randomUUID());
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+        requestInfo.spillContentToDiskPastThreshold(0, missingDirectory, queuedTasks::add);
+        HttpContent chunk = contentChunk("abc", false);
+        HttpContent lastChunk = contentChunk("def", true);
+        requestInfo.addContentChunk(chunk);
+        requestInfo.addContentChunk(lastChunk);
+
+        // when
+        runQueuedTasks(queuedTasks);
+        Throwable ex = catchThrowable(requestInfo::getRawContentBytes);
+
+        // then
+        CompletableFuture<Void> pendingWrites = requestInfo.getPendingSpillFileWrites();
+        assertThat(pendingWrites.isCompletedExceptionally(), is(true));
+        assertThat(ex, instanceOf(UncheckedIOException.class));
+        assertThat(chunk.refCnt(), is(1));
+        assertThat(lastChunk.refCnt(), is(1));
+    }
+
+    @Test
+    public void spillContentToDiskPastThreshold_throws_IllegalArgumentException_if_threshold_is_negative() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+
+        // when
+        Throwable ex = catchThrowable(() -> requestInfo.spillContentToDiskPastThreshold(-1, null));
+
+        // then
+        assertThat(ex, instanceOf(IllegalArgumentException.class));
+    }
+
     @Test
     public void addContentChunk_adds_last_chunk_trailing_headers() {
         // given
@@ -823,6 +1404,178 @@ public class RequestInfoImplTest {
         assertThat(result, nullValue());
     }
 
+    private static final String KNOWN_MULTIPART_DATA_ATTR_NAME = "someAttr";
+    private static final String KNOWN_MULTIPART_DATA_ATTR_VALUE = "someAttrValue";
+    private static final String KNOWN_MULTIPART_DATA_LARGE_FILE_CONTENT = String.join("", Collections.nCopies(100, "0123456789"));
+    private static final String KNOWN_MULTIPART_DATA_BODY_WITH_ATTR_AND_LARGE_FILE =
+            "--OnbiRR2K8-ZzW3rj0wLh_r9td9w_XD34jBR\n"+
+            "Content-Disposition: form-data; name=\"" + KNOWN_MULTIPART_DATA_ATTR_NAME + "\"\n"+
+            "\n"+
+            KNOWN_MULTIPART_DATA_ATTR_VALUE + "\n" +
+            "--OnbiRR2K8-ZzW3rj0wLh_r9td9w_XD34jBR\n"+
+            "Content-Disposition: form-data; name=\"" + KNOWN_MULTIPART_DATA_NAME + "\"; filename=\"" + KNOWN_MULTIPART_DATA_FILENAME + "\"\n"+
+            "Content-Type: application/octet-stream\n"+
+            "Content-Transfer-Encoding: binary\n"+
+            "\n"+
+            KNOWN_MULTIPART_DATA_LARGE_FILE_CONTENT + "\n" +
+            "--OnbiRR2K8-ZzW3rj0wLh_r9td9w_XD34jBR--\n";
+
+    private static RequestInfoImpl<?> multipartRequestInfoWithNoContentYet() {
+        DefaultHttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/some/upload");
+        request.headers().set(HttpHeaders.Names.CONTENT_TYPE, KNOWN_MULTIPART_DATA_CONTENT_TYPE_HEADER);
+        return new RequestInfoImpl<>(request);
+    }
+
+    private static List<HttpContent> splitIntoChunks(String content, int chunkSize) {
+        List<HttpContent> chunks = new ArrayList<>();
+        for (int i = 0; i < content.length(); i += chunkSize) {
+            int end = Math.min(i + chunkSize, content.length());
+            chunks.add(contentChunk(content.substring(i, end), end == content.length()));
+        }
+        return chunks;
+    }
+
+    @Test
+    public void decodeMultipartContentAsItArrives_decodes_chunks_as_they_arrive_and_stores_large_parts_on_disk() throws IOException {
+        // given
+        Path tempDirectory = Files.createTempDirectory("RequestInfoImplTest");
+        RequestInfoImpl<?> requestInfo = multipartRequestInfoWithNoContentYet();
+        List<HttpContent> chunks = splitIntoChunks(KNOWN_MULTIPART_DATA_BODY_WITH_ATTR_AND_LARGE_FILE, 64);
+
+        try {
+            // when
+            requestInfo.decodeMultipartContentAsItArrives(256, tempDirectory);
+            chunks.forEach(requestInfo::addContentChunk);
+
+            // then
+            assertThat(requestInfo.multipartDecodedIncrementally, is(true));
+            assertThat(requestInfo.contentChunks.isEmpty(), is(true));
+            chunks.forEach(chunk -> assertThat(chunk.refCnt(), is(1)));
+            assertThat(requestInfo.isCompleteRequestWithAllChunks(), is(true));
+            assertThat(requestInfo.getRawContentLengthInBytes(), is(KNOWN_MULTIPART_DATA_BODY_WITH_ATTR_AND_LARGE_FILE.length()));
+            assertThat(requestInfo.getRawContentBytes(), nullValue());
+
+            List<InterfaceHttpData> parts = requestInfo.getMultipartParts();
+            assertThat(parts.size(), is(2));
+
+            Attribute attribute = (Attribute) parts.get(0);
+            assertThat(attribute.getName(), is(KNOWN_MULTIPART_DATA_ATTR_NAME));
+            assertThat(attribute.getValue(), is(KNOWN_MULTIPART_DATA_ATTR_VALUE));
+            assertThat(attribute.isInMemory(), is(true));
+
+            FileUpload fileUpload = (FileUpload) parts.get(1);
+            assertThat(fileUpload.getName(), is(KNOWN_MULTIPART_DATA_NAME));
+            assertThat(fileUpload.getFilename(), is(KNOWN_MULTIPART_DATA_FILENAME));
+            assertThat(fileUpload.getString(CharsetUtil.UTF_8), is(KNOWN_MULTIPART_DATA_LARGE_FILE_CONTENT));
+            assertThat(fileUpload.isInMemory(), is(false));
+            Path uploadFile = fileUpload.getFile().toPath();
+            assertThat(uploadFile.getParent(), is(tempDirectory));
+            assertThat(Files.exists(uploadFile), is(true));
+
+            // and when
+            requestInfo.releaseAllResources();
+
+            // then
+            assertThat(Files.exists(uploadFile), is(false));
+        }
+        finally {
+            chunks.stream().filter(chunk -> chunk.refCnt() > 0).forEach(chunk -> chunk.release(chunk.refCnt()));
+            try (Stream<Path> leftovers = Files.list(tempDirectory)) {
+                for (Path leftover : leftovers.collect(Collectors.toList())) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+            Files.deleteIfExists(tempDirectory);
+        }
+    }
+
+    @Test
+    public void decodeMultipartContentAsItArrives_catches_decoder_up_on_chunks_that_already_arrived() {
+        // given
+        RequestInfoImpl<?> requestInfo = multipartRequestInfoWithNoContentYet();
+        List<HttpContent> chunks = splitIntoChunks(KNOWN_MULTIPART_DATA_BODY, 32);
+        HttpContent firstChunk = chunks.get(0);
+        requestInfo.addContentChunk(firstChunk);
+        assertThat(firstChunk.refCnt(), is(2));
+
+        // when
+        requestInfo.decodeMultipartContentAsItArrives(DefaultHttpDataFactory.MINSIZE, null);
+        chunks.subList(1, chunks.size()).forEach(requestInfo::addContentChunk);
+
+        // then
+        assertThat(firstChunk.refCnt(), is(1));
+        assertThat(requestInfo.contentChunks.isEmpty(), is(true));
+        List<InterfaceHttpData> parts = requestInfo.getMultipartParts();
+        assertThat(parts.size(), is(1));
+        assertThat(((FileUpload) parts.get(0)).getFilename(), is(KNOWN_MULTIPART_DATA_FILENAME));
+        requestInfo.releaseAllResources();
+    }
+
+    @Test
+    public void decodeMultipartContentAsItArrives_does_nothing_if_request_is_not_multipart() {
+        // given
+        RequestInfoImpl<?> requestInfo = RequestInfoImpl.dummyInstanceForUnknownRequests();
+        requestInfo.isCompleteRequestWithAllChunks = false;
+
+        // when
+        requestInfo.decodeMultipartContentAsItArrives(DefaultHttpDataFactory.MINSIZE, null);
+
+        // then
+        assertThat(requestInfo.multipartDecodedIncrementally, is(false));
+        assertThat(requestInfo.multipartData, nullValue());
+    }
+
+    @Test
+    public void decodeMultipartContentAsItArrives_does_nothing_if_contentChunksWillBeReleasedExternally_is_true() {
+        // given
+        RequestInfoImpl<?> requestInfo = multipartRequestInfoWithNoContentYet();
+        requestInfo.contentChunksWillBeReleasedExternally();
+
+        // when
+        requestInfo.decodeMultipartContentAsItArrives(DefaultHttpDataFactory.MINSIZE, null);
+
+        // then
+        assertThat(requestInfo.multipartDecodedIncrementally, is(false));
+        assertThat(requestInfo.multipartData, nullValue());
+    }
+
+    @Test
+    public void contentChunksWillBeReleasedExternally_destroys_incremental_multipart_decoder() {
+        // given
+        RequestInfoImpl<?> requestInfo = multipartRequestInfoWithNoContentYet();
+        requestInfo.decodeMultipartContentAsItArrives(DefaultHttpDataFactory.MINSIZE, null);
+        HttpContent chunk = contentChunk("abc", false);
+
+        // when
+        requestInfo.contentChunksWillBeReleasedExternally();
+        requestInfo.addContentChunk(chunk);
+
+        // then
+        assertThat(requestInfo.multipartDecodedIncrementally, is(false));
+        assertThat(requestInfo.multipartDataIsDestroyed, is(true));
+        assertThat(chunk.refCnt(), is(2));
+        chunk.release(2);
+    }
+
+    @Test
+    public void addContentChunk_throws_InvalidHttpRequestException_and_releases_chunk_if_multipart_content_cannot_be_decoded() {
+        // given
+        RequestInfoImpl<?> requestInfo = multipartRequestInfoWithNoContentYet();
+        requestInfo.decodeMultipartContentAsItArrives(DefaultHttpDataFactory.MINSIZE, null);
+        HttpContent chunk = contentChunk(
+            "--OnbiRR2K8-ZzW3rj0wLh_r9td9w_XD34jBR\nContent-Disposition: not-form-data\n\nfoo\n", false
+        );
+
+        // when
+        Throwable ex = catchThrowable(() -> requestInfo.addContentChunk(chunk));
+
+        // then
+        assertThat(ex, instanceOf(InvalidHttpRequestException.class));
+        assertThat(chunk.refCnt(), is(1));
+        chunk.release();
+        requestInfo.releaseAllResources();
+    }
+
     @Test
     public void releaseContentChunks_calls_release_on_each_chunk_and_calls_clear_on_chunk_list() {
         // given
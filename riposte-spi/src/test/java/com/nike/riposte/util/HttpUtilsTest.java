@@ -2,6 +2,7 @@ package com.nike.riposte.util;
 
 import com.nike.riposte.server.error.exception.InvalidCharsetInContentTypeHeaderException;
 import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.header.FastHeaderParser;
 
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
@@ -21,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Matcher;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
@@ -224,6 +226,7 @@ public class HttpUtilsTest {
     @DataProvider(value = {
             "text/text charset=US-ASCII |   UTF-8   | US-ASCII",
             "text/text charset=us-ascii |   UTF-8   | US-ASCII",
+            "text/text; charset=\"utf-16\" | UTF-8 | UTF-16",
             "text/text                  |   UTF-8   | UTF-8",
             "                           |   UTF-8   | UTF-8",
             "null                       |   UTF-8   | UTF-8",
@@ -263,6 +266,29 @@ public class HttpUtilsTest {
         fail("Expected an exception but none was thrown");
     }
 
+    @Test
+    @DataProvider(value = {
+            "text/text charset=US-ASCII",
+            "application/json; charset=utf-8",
+            "application/json;Charset=\"UTF-8\";foo=bar",
+            "application/json; charset=\t utf-8 ",
+            "text/plain; x-charset=utf-16",
+            "text/plain; xcharset=utf-16; charset=utf-8",
+            "text/plain; xcharset=utf-16",
+            "text/plain; \u00e9charset=utf-16",
+            "text/plain; charset=",
+            "text/plain; charset",
+            "text/plain"
+    }, splitBy = "\\|", trimValues = false)
+    public void FastHeaderParser_extractCharsetName_matches_CONTENT_TYPE_CHARSET_EXTRACTOR_PATTERN(String contentType) {
+        // given
+        Matcher m = HttpUtils.CONTENT_TYPE_CHARSET_EXTRACTOR_PATTERN.matcher(contentType);
+        String expected = (m.find()) ? m.group(1) : null;
+
+        // expect
+        assertThat(FastHeaderParser.extractCharsetName(contentType), is(expected));
+    }
+
     @Test
     public void extractCookies_works_if_cookies_defined_in_headers() {
         // given
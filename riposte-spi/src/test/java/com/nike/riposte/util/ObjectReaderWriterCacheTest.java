@@ -0,0 +1,130 @@
+package com.nike.riposte.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the functionality of {@link ObjectReaderWriterCache}
+ */
+public class ObjectReaderWriterCacheTest {
+
+    private ObjectReaderWriterCache cache;
+    private ObjectMapper mapperSpy;
+
+    @Before
+    public void beforeMethod() {
+        cache = new ObjectReaderWriterCache(ObjectReaderWriterCache.DEFAULT_MAX_ENTRIES);
+        mapperSpy = spy(new ObjectMapper());
+    }
+
+    @Test
+    public void getDefaultInstance_returns_the_same_instance_every_time() {
+        // expect
+        assertThat(ObjectReaderWriterCache.getDefaultInstance())
+            .isNotNull()
+            .isSameAs(ObjectReaderWriterCache.getDefaultInstance());
+    }
+
+    @Test
+    public void constructor_throws_IllegalArgumentException_if_maxEntries_is_negative() {
+        // when
+        Throwable ex = catchThrowable(() -> new ObjectReaderWriterCache(-1));
+
+        // then
+        assertThat(ex)
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("maxEntries cannot be negative");
+    }
+
+    @Test
+    public void readerFor_caches_readers_per_mapper_and_type() throws Exception {
+        // given
+        TypeReference<Map<String, Integer>> typeRef = new TypeReference<Map<String, Integer>>() {};
+        TypeReference<Map<String, Integer>> equivalentTypeRef = new TypeReference<Map<String, Integer>>() {};
+
+        // when
+        ObjectReader reader = cache.readerFor(mapperSpy, typeRef);
+        ObjectReader secondReader = cache.readerFor(mapperSpy, equivalentTypeRef);
+        ObjectReader otherTypeReader = cache.readerFor(mapperSpy, new TypeReference<List<String>>() {});
+        ObjectReader otherMapperReader = cache.readerFor(new ObjectMapper(), typeRef);
+
+        // then
+        assertThat(secondReader).isSameAs(reader);
+        assertThat(otherTypeReader).isNotSameAs(reader);
+        assertThat(otherMapperReader).isNotSameAs(reader);
+        verify(mapperSpy, times(2)).readerFor(any(TypeReference.class));
+
+        Map<String, Integer> result = reader.readValue("{\"foo\":42}".getBytes());
+        assertThat(result).isEqualTo(Collections.singletonMap("foo", 42));
+    }
+
+    @Test
+    public void writerFor_caches_writers_per_mapper_and_type_and_uses_the_mapper_configuration() throws Exception {
+        // given
+        ObjectMapper snakeCaseMapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE);
+
+        // when
+        ObjectWriter writer = cache.writerFor(mapperSpy, FooBar.class);
+        ObjectWriter secondWriter = cache.writerFor(mapperSpy, FooBar.class);
+        ObjectWriter otherTypeWriter = cache.writerFor(mapperSpy, String.class);
+        ObjectWriter snakeCaseWriter = cache.writerFor(snakeCaseMapper, FooBar.class);
+
+        // then
+        assertThat(secondWriter).isSameAs(writer);
+        assertThat(otherTypeWriter).isNotSameAs(writer);
+        verify(mapperSpy, times(2)).writerFor(any(Class.class));
+
+        assertThat(writer.writeValueAsString(new FooBar("baz"))).isEqualTo("{\"fooBar\":\"baz\"}");
+        assertThat(snakeCaseWriter.writeValueAsString(new FooBar("baz"))).isEqualTo("{\"foo_bar\":\"baz\"}");
+    }
+
+    @Test
+    public void readers_and_writers_are_still_created_but_not_cached_past_maxEntries() {
+        // given
+        cache = new ObjectReaderWriterCache(1);
+        TypeReference<String> typeRef = new TypeReference<String>() {};
+        cache.readerFor(mapperSpy, new TypeReference<Integer>() {});
+        cache.writerFor(mapperSpy, Integer.class);
+
+        // when
+        ObjectReader reader = cache.readerFor(mapperSpy, typeRef);
+        ObjectReader secondReader = cache.readerFor(mapperSpy, typeRef);
+        ObjectWriter writer = cache.writerFor(mapperSpy, String.class);
+        ObjectWriter secondWriter = cache.writerFor(mapperSpy, String.class);
+
+        // then
+        assertThat(reader).isNotNull();
+        assertThat(secondReader).isNotNull().isNotSameAs(reader);
+        assertThat(writer).isNotNull();
+        assertThat(secondWriter).isNotNull().isNotSameAs(writer);
+        assertThat(cache.readers).hasSize(1);
+        assertThat(cache.writers).hasSize(1);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public static class FooBar {
+        public final String fooBar;
+
+        public FooBar(String fooBar) {
+            this.fooBar = fooBar;
+        }
+    }
+}